@@ -34,6 +34,8 @@ public enum Group
     PAGE_CACHE_EVICTION( "PageCacheEviction" ),
     /* Page cache background eviction. */
     PAGE_CACHE_PRE_FETCHER( "PageCachePreFetcher", ExecutorServiceFactory.cachedWithDiscard() ),
+    /** Reloading profiled pages into the page cache after a restart, and periodically profiling the page cache contents. */
+    PAGE_CACHE_WARMER( "PageCacheWarmer" ),
     /** Watch out for, and report, external manipulation of store files. */
     FILE_WATCHER( "FileWatcher" ),
     /** Monitor and report system-wide pauses, in case they lead to service interruption. */
@@ -58,6 +60,8 @@ public enum Group
     INDEX_SAMPLING( "IndexSampling" ),
     /** Background index update applier, for eventually consistent indexes. */
     INDEX_UPDATING( "IndexUpdating", ExecutorServiceFactory.singleThread() ), // Single-threaded to serialise updates with opening/closing/flushing of indexes.
+    /** Applying the index updates of committed transactions, one index per job. */
+    INDEX_UPDATE_APPLY( "IndexUpdateApply" ),
     /** Thread pool for anyone who want some help doing file IO in parallel. */
     FILE_IO_HELPER( "FileIOHelper" ),
     NATIVE_SECURITY( "NativeSecurity" ),
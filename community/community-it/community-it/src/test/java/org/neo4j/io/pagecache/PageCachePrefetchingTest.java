@@ -57,6 +57,7 @@ class PageCachePrefetchingTest
     private File file;
     private DefaultPageCursorTracer tracer;
     private Consumer<PageCursor> scanner;
+    private int stride = 1;
 
     @BeforeEach
     void setUp()
@@ -111,6 +112,19 @@ class PageCachePrefetchingTest
         assertThat( faultsWithPreFetch ).as( "faults" ).isLessThan( faultsWithoutPreFetch );
     }
 
+    @Test
+    void scanningWithPreFetchMustGiveStridedScannerFewerPageFaults() throws Exception
+    {
+        scanner = cursor -> cursor.putBytes( PageCache.PAGE_SIZE, (byte) 0xA7 );
+        stride = 3;
+
+        runScan( file, tracer, "Warmup", PF_READ_AHEAD );
+        long faultsWithPreFetch = runScan( file, tracer, "Scanner With Prefetch", PF_READ_AHEAD );
+        long faultsWithoutPreFetch = runScan( file, tracer, "Scanner Without Prefetch", 0 );
+
+        assertThat( faultsWithPreFetch ).as( "faults" ).isLessThan( faultsWithoutPreFetch );
+    }
+
     private long runScan( File file, DefaultPageCursorTracer tracer, String threadName, int additionalPfFlags ) throws InterruptedException
     {
         long faultsWith;
@@ -170,7 +184,7 @@ class PageCachePrefetchingTest
         {
             for ( int i = 0; i < 6_000; i++ )
             {
-                cursor.next();
+                cursor.next( (long) i * stride );
                 scanner.accept( cursor );
             }
         }
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.internal.nativeimpl.LinuxNativeAccess;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.io.pagecache.PageSwapperTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@EnabledOnOs( OS.LINUX )
+class IOUringPageSwapperTest extends PageSwapperTest
+{
+    private DefaultFileSystemAbstraction fileSystem;
+
+    @BeforeEach
+    void setUp()
+    {
+        fileSystem = new DefaultFileSystemAbstraction();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException
+    {
+        fileSystem.close();
+    }
+
+    @Override
+    protected PageSwapperFactory swapperFactory( FileSystemAbstraction fileSystem )
+    {
+        return new IOUringPageSwapperFactory( fileSystem );
+    }
+
+    @Override
+    protected void mkdirs( File dir ) throws IOException
+    {
+        getFs().mkdirs( dir );
+    }
+
+    @Override
+    protected FileSystemAbstraction getFs()
+    {
+        return fileSystem;
+    }
+
+    @Test
+    void vectoredWritesAndReadsThroughRingMustRoundTrip() throws Exception
+    {
+        IOUringPageSwapperFactory factory = (IOUringPageSwapperFactory) createSwapperFactory( getFs() );
+        assumeTrue( factory.isAvailable(), "io_uring is not available on this system" );
+        int pageSize = 32;
+        int pageCount = 100; // More pages than a single ring entry takes, so the vector is split into several requests.
+        PageSwapper swapper = createSwapper( factory, testDir.file( "file" ), pageSize, NO_CALLBACK, true );
+
+        long[] pages = new long[pageCount];
+        for ( int i = 0; i < pageCount; i++ )
+        {
+            pages[i] = createPage( pageSize );
+            putInt( pages[i], 0, i );
+        }
+        assertThat( swapper.write( 0, pages, 0, pageCount ) ).isEqualTo( (long) pageCount * pageSize );
+
+        for ( long page : pages )
+        {
+            clear( page );
+        }
+        assertThat( swapper.read( 0, pages, 0, pageCount ) ).isEqualTo( (long) pageCount * pageSize );
+        for ( int i = 0; i < pageCount; i++ )
+        {
+            assertThat( getInt( pages[i], 0 ) ).isEqualTo( i );
+        }
+    }
+
+    @Test
+    void vectoredReadThroughRingMustZeroFillPagesBeyondEndOfFile() throws Exception
+    {
+        IOUringPageSwapperFactory factory = (IOUringPageSwapperFactory) createSwapperFactory( getFs() );
+        assumeTrue( factory.isAvailable(), "io_uring is not available on this system" );
+        int pageSize = 32;
+        PageSwapper swapper = createSwapper( factory, testDir.file( "file" ), pageSize, NO_CALLBACK, true );
+
+        long[] pages = {createPage( pageSize ), createPage( pageSize ), createPage( pageSize )};
+        putInt( pages[0], 0, 1 );
+        swapper.write( 0, pages, 0, 1 );
+        putInt( pages[1], 0, 2 );
+        putInt( pages[2], 0, 3 );
+
+        assertThat( swapper.read( 0, pages, 0, 3 ) ).isEqualTo( pageSize );
+        assertThat( getInt( pages[0], 0 ) ).isEqualTo( 1 );
+        assertThat( getInt( pages[1], 0 ) ).isEqualTo( 0 );
+        assertThat( getInt( pages[2], 0 ) ).isEqualTo( 0 );
+    }
+
+    @Test
+    void vectoredWriteMustWaitForRequestsInFlightBeforeFallingBackWhenRingFails() throws Exception
+    {
+        // The first submission reaches the kernel, but the system call still reports a failure, so the requests are in flight.
+        FailingNativeAccess nativeAccess = new FailingNativeAccess( true, 1 );
+        IOUringPageSwapperFactory factory = new IOUringPageSwapperFactory( getFs(), nativeAccess );
+        try
+        {
+            assumeTrue( factory.isAvailable(), "io_uring is not available on this system" );
+            int pageSize = 32;
+            int pageCount = 100;
+            PageSwapper swapper = createSwapper( factory, testDir.file( "file" ), pageSize, NO_CALLBACK, true );
+
+            long[] pages = new long[pageCount];
+            for ( int i = 0; i < pageCount; i++ )
+            {
+                pages[i] = createPage( pageSize );
+                putInt( pages[i], 0, i );
+            }
+            assertThat( swapper.write( 0, pages, 0, pageCount ) ).isEqualTo( (long) pageCount * pageSize );
+            assertThat( nativeAccess.failures ).isZero();
+
+            for ( long page : pages )
+            {
+                clear( page );
+            }
+            assertThat( swapper.read( 0, pages, 0, pageCount ) ).isEqualTo( (long) pageCount * pageSize );
+            for ( int i = 0; i < pageCount; i++ )
+            {
+                assertThat( getInt( pages[i], 0 ) ).isEqualTo( i );
+            }
+        }
+        finally
+        {
+            factory.close();
+        }
+    }
+
+    @Test
+    void vectoredWriteMustFailRatherThanFallBackWhenRingCannotBeDrained() throws Exception
+    {
+        // Every submission fails, so the kernel might still pick up the published requests at any time.
+        FailingNativeAccess nativeAccess = new FailingNativeAccess( false, Integer.MAX_VALUE );
+        IOUringPageSwapperFactory factory = new IOUringPageSwapperFactory( getFs(), nativeAccess );
+        try
+        {
+            assumeTrue( factory.isAvailable(), "io_uring is not available on this system" );
+            int pageSize = 32;
+            PageSwapper swapper = createSwapper( factory, testDir.file( "file" ), pageSize, NO_CALLBACK, true );
+            long[] pages = {createPage( pageSize ), createPage( pageSize )};
+
+            assertThrows( IOException.class, () -> swapper.write( 0, pages, 0, pages.length ) );
+        }
+        finally
+        {
+            factory.close();
+        }
+    }
+
+    private static class FailingNativeAccess extends LinuxNativeAccess
+    {
+        private final boolean failAfterSubmitting;
+        private int failures;
+
+        FailingNativeAccess( boolean failAfterSubmitting, int failures )
+        {
+            this.failAfterSubmitting = failAfterSubmitting;
+            this.failures = failures;
+        }
+
+        @Override
+        public int ioUringEnter( int ringFd, int toSubmit, int minComplete, int flags ) throws IOException
+        {
+            if ( toSubmit > 0 && failures > 0 )
+            {
+                failures--;
+                if ( failAfterSubmitting )
+                {
+                    super.ioUringEnter( ringFd, toSubmit, minComplete, flags );
+                }
+                throw new IOException( "Native call io_uring_enter failed with error code 4: Interrupted system call" );
+            }
+            return super.ioUringEnter( ringFd, toSubmit, minComplete, flags );
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.EnabledOnOs;
 import org.junit.jupiter.api.condition.OS;
 import org.junit.jupiter.api.function.ThrowingSupplier;
 
@@ -55,6 +56,7 @@ import org.neo4j.io.fs.EphemeralFileSystemAbstraction;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.StoreChannel;
 import org.neo4j.io.fs.StoreFileChannel;
+import org.neo4j.io.mem.MemoryAllocator;
 import org.neo4j.io.memory.ByteBuffers;
 import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.PageSwapperFactory;
@@ -703,6 +705,56 @@ public class SingleFilePageSwapperTest extends PageSwapperTest
         }
     }
 
+    @Test
+    @EnabledOnOs( OS.LINUX )
+    void directIOReadsMustZeroFillPagesBeyondEndOfFile() throws Exception
+    {
+        File file = testDir.file( "file" );
+        int pageSize = (int) fileSystem.getBlockSize( file );
+        assumeTrue( UnsafeUtil.pageSize() % pageSize == 0 );
+        int tailBytes = 100;
+        byte[] data = new byte[pageSize + tailBytes];
+        ThreadLocalRandom.current().nextBytes( data );
+        try ( StoreChannel channel = fileSystem.write( file ) )
+        {
+            channel.writeAll( wrap( data ) );
+        }
+
+        MemoryAllocator allocator = MemoryAllocator.createAllocator( 4L * pageSize, INSTANCE );
+        try
+        {
+            PageSwapperFactory factory = createSwapperFactory( fileSystem );
+            PageSwapper swapper = createSwapper( factory, file, pageSize, NO_CALLBACK, false, true );
+            long page = allocator.allocateAligned( pageSize, UnsafeUtil.pageSize() );
+            assertThat( swapper.read( 1, page ) ).isEqualTo( tailBytes );
+            assertDirectPage( page, pageSize, data, pageSize );
+
+            long[] pages = new long[3];
+            for ( int i = 0; i < pages.length; i++ )
+            {
+                pages[i] = allocator.allocateAligned( pageSize, UnsafeUtil.pageSize() );
+            }
+            assertThat( swapper.read( 0, pages, 0, pages.length ) ).isEqualTo( data.length );
+            for ( int i = 0; i < pages.length; i++ )
+            {
+                assertDirectPage( pages[i], pageSize, data, i * pageSize );
+            }
+        }
+        finally
+        {
+            allocator.close();
+        }
+    }
+
+    private static void assertDirectPage( long page, int pageSize, byte[] data, int dataOffset )
+    {
+        for ( int i = 0; i < pageSize; i++ )
+        {
+            byte expected = dataOffset + i < data.length ? data[dataOffset + i] : 0;
+            assertThat( UnsafeUtil.getByte( page + i ) ).as( "byte " + i + " of page at offset " + dataOffset ).isEqualTo( expected );
+        }
+    }
+
     private static class ThreadRegistryFactory extends NamedThreadFactory
     {
         private final Set<Thread> threads = newKeySet();
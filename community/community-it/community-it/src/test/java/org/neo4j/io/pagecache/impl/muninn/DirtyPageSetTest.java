@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DirtyPageSetTest
+{
+    // 64 pages per chunk, which is a single word of bits.
+    private static final int CHUNK_SIZE_POWER = 6;
+
+    @Test
+    void drainMustReportMarkedPagesAsSortedRunsAcrossChunks()
+    {
+        DirtyPageSet set = new DirtyPageSet( CHUNK_SIZE_POWER, 4 );
+        set.mark( 200 );
+        set.mark( 65 );
+        set.mark( 3 );
+        set.mark( 64 );
+        set.mark( 4 );
+        set.mark( 63 );
+        set.mark( 5 );
+
+        assertThat( drain( set, 4096 ) ).containsExactly( run( 3, 3 ), run( 63, 3 ), run( 200, 1 ) );
+    }
+
+    @Test
+    void drainMustEmptyTheSet()
+    {
+        DirtyPageSet set = new DirtyPageSet( CHUNK_SIZE_POWER, 4 );
+        set.markRun( 10, 100 );
+
+        assertThat( drain( set, 4096 ) ).containsExactly( run( 10, 100 ) );
+        assertThat( drain( set, 4096 ) ).isEmpty();
+    }
+
+    @Test
+    void sizeMustCountDistinctMarkedPagesUntilDrained()
+    {
+        DirtyPageSet set = new DirtyPageSet( CHUNK_SIZE_POWER, 4 );
+        set.markRun( 10, 100 );
+        set.mark( 10 );
+        set.mark( 200 );
+        assertThat( set.size() ).isEqualTo( 101 );
+
+        drain( set, 4096 );
+        assertThat( set.size() ).isZero();
+    }
+
+    @Test
+    void drainMustCapRunLength()
+    {
+        DirtyPageSet set = new DirtyPageSet( CHUNK_SIZE_POWER, 1 );
+        set.markRun( 0, 10 );
+
+        assertThat( drain( set, 4 ) ).containsExactly( run( 0, 4 ), run( 4, 4 ), run( 8, 2 ) );
+    }
+
+    @Test
+    void marksBeyondCapacityMustBeIgnoredUntilSetHasGrown()
+    {
+        DirtyPageSet set = new DirtyPageSet( CHUNK_SIZE_POWER, 1 );
+        set.mark( 1000 );
+        assertThat( drain( set, 4096 ) ).isEmpty();
+
+        set.ensureCapacity( 16 );
+        set.mark( 1000 );
+        assertThat( drain( set, 4096 ) ).containsExactly( run( 1000, 1 ) );
+    }
+
+    @Test
+    void concurrentMarksMustNeverBeLostByConcurrentDrains() throws Exception
+    {
+        int pages = 64 * 16;
+        DirtyPageSet set = new DirtyPageSet( CHUNK_SIZE_POWER, 16 );
+        AtomicBoolean stop = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+        try
+        {
+            List<Future<MutableLongSet>> markers = new ArrayList<>();
+            for ( int i = 0; i < 4; i++ )
+            {
+                markers.add( executor.submit( () ->
+                {
+                    MutableLongSet marked = new LongHashSet();
+                    ThreadLocalRandom rng = ThreadLocalRandom.current();
+                    for ( int j = 0; j < 100_000; j++ )
+                    {
+                        long filePageId = rng.nextInt( pages );
+                        set.mark( filePageId );
+                        marked.add( filePageId );
+                    }
+                    return marked;
+                } ) );
+            }
+
+            MutableLongSet drained = new LongHashSet();
+            Future<?> drainer = executor.submit( () ->
+            {
+                while ( !stop.get() )
+                {
+                    set.drain( 4096, ( start, count ) -> addRun( drained, start, count ) );
+                }
+            } );
+
+            MutableLongSet marked = new LongHashSet();
+            for ( Future<MutableLongSet> marker : markers )
+            {
+                marked.addAll( marker.get() );
+            }
+            stop.set( true );
+            drainer.get();
+            set.drain( 4096, ( start, count ) -> addRun( drained, start, count ) );
+
+            assertThat( drained ).isEqualTo( marked );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private static void addRun( MutableLongSet pages, long start, int count )
+    {
+        for ( int i = 0; i < count; i++ )
+        {
+            pages.add( start + i );
+        }
+    }
+
+    private static List<String> drain( DirtyPageSet set, int maxRunLength )
+    {
+        List<String> runs = new ArrayList<>();
+        set.drain( maxRunLength, ( start, count ) -> runs.add( run( start, count ) ) );
+        return runs;
+    }
+
+    private static String run( long start, int count )
+    {
+        return start + "+" + count;
+    }
+}
@@ -33,6 +33,7 @@ import org.neo4j.time.Clocks;
 public class MuninnPageCacheFixture extends PageCacheTestSupport.Fixture<MuninnPageCache>
 {
     CountDownLatch backgroundFlushLatch;
+    EvictionPolicy evictionPolicy = EvictionPolicy.CLOCK;
     private MemoryAllocator allocator;
 
     @Override
@@ -42,7 +43,7 @@ public class MuninnPageCacheFixture extends PageCacheTestSupport.Fixture<MuninnP
         long memory = MuninnPageCache.memoryRequiredForPages( maxPages );
         var memoryTracker = new LocalMemoryTracker();
         allocator = MemoryAllocator.createAllocator( memory, memoryTracker );
-        return new MuninnPageCache( swapperFactory, allocator, tracer, contextSupplier, jobScheduler, Clocks.nanoClock(), memoryTracker );
+        return new MuninnPageCache( swapperFactory, allocator, tracer, contextSupplier, jobScheduler, Clocks.nanoClock(), memoryTracker, evictionPolicy );
     }
 
     @Override
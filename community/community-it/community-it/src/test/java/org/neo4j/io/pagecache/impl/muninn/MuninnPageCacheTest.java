@@ -20,6 +20,7 @@
 package org.neo4j.io.pagecache.impl.muninn;
 
 import org.apache.commons.lang3.mutable.MutableBoolean;
+import org.eclipse.collections.api.set.ImmutableSet;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
@@ -31,6 +32,8 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.IntSupplier;
 import java.util.function.LongSupplier;
 
@@ -43,11 +46,13 @@ import org.neo4j.io.memory.ByteBuffers;
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCacheTest;
 import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PageResidency;
 import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.DelegatingPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
+import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContext;
@@ -58,15 +63,20 @@ import org.neo4j.io.pagecache.tracing.recording.RecordingPageCursorTracer.Fault;
 
 import static java.time.Duration.ofMillis;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.eclipse.collections.impl.factory.Sets.immutable;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_GROW;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_TRANSIENT;
+import static org.neo4j.io.pagecache.PageResidency.Priority.HIGH;
 import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
 import static org.neo4j.io.pagecache.tracing.recording.RecordingPageCacheTracer.Evict;
 import static org.neo4j.memory.EmptyMemoryTracker.INSTANCE;
@@ -730,6 +740,316 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
         } );
     }
 
+    @Test
+    void flushAndForceMustCoalesceDirtyPagesAcrossTranslationTableChunks() throws IOException
+    {
+        VectorCountingTracer tracer = new VectorCountingTracer();
+        getPageCache( fs, 40, tracer );
+        long firstPageId = MuninnPagedFile.MAX_FLUSH_RUN_PAGES - 5;
+        try ( PagedFile pagedFile = map( pageCache, existingFile( "a" ), filePageSize ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( firstPageId, PF_SHARED_WRITE_LOCK, NULL ) )
+            {
+                for ( int i = 0; i < 10; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( firstPageId + i );
+                }
+            }
+
+            pageCache.flushAndForce();
+
+            assertEquals( 1, tracer.vectoredWrites.get() );
+            assertEquals( 10, tracer.flushes() );
+        }
+    }
+
+    @Test
+    void limitedFlushMustWriteDirtyPagesOfAllFilesThroughOneSerialLimiter() throws IOException
+    {
+        getPageCache( fs, 100, PageCacheTracer.NULL );
+        List<File> files = List.of( existingFile( "a" ), existingFile( "b" ), existingFile( "c" ), existingFile( "d" ) );
+        List<PagedFile> pagedFiles = new ArrayList<>();
+        int dirtyPages = 0;
+        for ( File file : files )
+        {
+            PagedFile pagedFile = map( pageCache, file, filePageSize );
+            pagedFiles.add( pagedFile );
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK, NULL ) )
+            {
+                for ( int pageId = 0; pageId < 20; pageId += 3 )
+                {
+                    assertTrue( cursor.next( pageId ) );
+                    cursor.putLong( pageId );
+                    dirtyPages++;
+                }
+            }
+        }
+
+        AtomicInteger callers = new AtomicInteger();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        AtomicInteger limitedIOs = new AtomicInteger();
+        IOLimiter limiter = ( previousStamp, recentlyCompletedIOs, flushable ) ->
+        {
+            if ( callers.incrementAndGet() > 1 )
+            {
+                overlapped.set( true );
+            }
+            limitedIOs.addAndGet( recentlyCompletedIOs );
+            Thread.yield();
+            callers.decrementAndGet();
+            return previousStamp + 1;
+        };
+        pageCache.flushAndForce( limiter );
+
+        assertFalse( overlapped.get() );
+        assertEquals( dirtyPages, limitedIOs.get() );
+        for ( File file : files )
+        {
+            ByteBuffer buffer = ByteBuffers.allocate( 19 * filePageSize, INSTANCE );
+            try ( StoreChannel channel = fs.read( file ) )
+            {
+                channel.readAll( buffer );
+            }
+            for ( int pageId = 0; pageId < 20; pageId += 3 )
+            {
+                assertEquals( pageId, buffer.getLong( pageId * filePageSize ) );
+            }
+        }
+        IOUtils.closeAll( pagedFiles );
+    }
+
+    @Test
+    void pagesThatFailedToFlushMustBeFlushedByNextFlush() throws IOException
+    {
+        MutableBoolean throwException = new MutableBoolean( false );
+        FileSystemAbstraction fs = new DelegatingFileSystemAbstraction( this.fs )
+        {
+            @Override
+            public StoreChannel open( File fileName, Set<OpenOption> options ) throws IOException
+            {
+                return new DelegatingStoreChannel( super.open( fileName, options ) )
+                {
+                    @Override
+                    public void writeAll( ByteBuffer src, long position ) throws IOException
+                    {
+                        if ( throwException.booleanValue() )
+                        {
+                            throw new IOException( "uh-oh..." );
+                        }
+                        super.writeAll( src, position );
+                    }
+                };
+            }
+        };
+
+        File file = existingFile( "a" );
+        try ( MuninnPageCache pageCache = createPageCache( fs, 40, PageCacheTracer.NULL );
+                PagedFile pagedFile = map( pageCache, file, filePageSize ) )
+        {
+            writePages( pagedFile, 10 );
+
+            throwException.setTrue();
+            assertThrows( IOException.class, pageCache::flushAndForce );
+            assertThrows( IOException.class, pagedFile::flushAndForce );
+            throwException.setFalse();
+            pagedFile.flushAndForce();
+
+            ByteBuffer buffer = ByteBuffers.allocate( 10 * filePageSize, INSTANCE );
+            try ( StoreChannel channel = this.fs.read( file ) )
+            {
+                channel.readAll( buffer );
+            }
+            for ( int pageId = 0; pageId < 10; pageId++ )
+            {
+                assertEquals( pageId, buffer.getLong( pageId * filePageSize ) );
+            }
+        }
+    }
+
+    @Test
+    void scanResistantEvictionMustKeepRepeatedlyUsedPagesThroughLargeScans()
+    {
+        assertTimeoutPreemptively( ofMillis( SEMI_LONG_TIMEOUT_MILLIS ), () ->
+        {
+            fixture.evictionPolicy = EvictionPolicy.SCAN_RESISTANT;
+            int cachePages = 40;
+            int hotPages = 8;
+            int scanPages = cachePages * 10;
+            try ( MuninnPageCache pageCache = createPageCache( fs, cachePages, PageCacheTracer.NULL );
+                  PagedFile pagedFile = map( pageCache, file( "a" ), filePageSize ) )
+            {
+                try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK, NULL ) )
+                {
+                    for ( int i = 0; i < hotPages + scanPages; i++ )
+                    {
+                        assertTrue( cursor.next() );
+                        cursor.putLong( i );
+                    }
+                }
+
+                // Use the hot pages repeatedly, so they get promoted out of the probationary segment.
+                for ( int round = 0; round < 3; round++ )
+                {
+                    try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK, NULL ) )
+                    {
+                        for ( int i = 0; i < hotPages; i++ )
+                        {
+                            assertTrue( cursor.next() );
+                        }
+                    }
+                }
+
+                // A sequential scan over many times the size of the cache.
+                try ( PageCursor cursor = pagedFile.io( hotPages, PF_SHARED_READ_LOCK, NULL ) )
+                {
+                    while ( cursor.next() )
+                    {
+                        long value;
+                        do
+                        {
+                            value = cursor.getLong();
+                        }
+                        while ( cursor.shouldRetry() );
+                        assertEquals( cursor.getCurrentPageId(), value );
+                    }
+                }
+
+                try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT, NULL ) )
+                {
+                    for ( int i = 0; i < hotPages; i++ )
+                    {
+                        assertTrue( cursor.next() );
+                        assertEquals( i, cursor.getCurrentPageId(), "hot page should still be in memory" );
+                    }
+                }
+            }
+        } );
+    }
+
+    @Test
+    void highPriorityPagesMustStayInMemoryWhenOtherPagesCanBeEvicted()
+    {
+        assertTimeoutPreemptively( ofMillis( SEMI_LONG_TIMEOUT_MILLIS ), () ->
+        {
+            int highPriorityPages = 10;
+            try ( MuninnPageCache pageCache = createPageCache( fs, 60, PageCacheTracer.NULL );
+                  PagedFile highPriorityFile = map( pageCache, existingFile( "high" ), filePageSize, immutable.of( PageResidency.priority( HIGH ) ) );
+                  PagedFile normalFile = map( pageCache, existingFile( "normal" ), filePageSize ) )
+            {
+                writePages( highPriorityFile, highPriorityPages );
+                writePages( normalFile, 300 );
+
+                assertResidentPages( highPriorityFile, 0, highPriorityPages );
+            }
+        } );
+    }
+
+    @Test
+    void pagesOfFilesOverQuotaMustBeEvictedBeforePagesOfOtherFiles()
+    {
+        assertTimeoutPreemptively( ofMillis( SEMI_LONG_TIMEOUT_MILLIS ), () ->
+        {
+            int otherPages = 40;
+            try ( MuninnPageCache pageCache = createPageCache( fs, 100, PageCacheTracer.NULL );
+                  PagedFile otherFile = map( pageCache, existingFile( "other" ), filePageSize );
+                  PagedFile cappedFile = map( pageCache, existingFile( "capped" ), filePageSize, immutable.of( PageResidency.maxResidentPercent( 10 ) ) ) )
+            {
+                writePages( otherFile, otherPages );
+                writePages( cappedFile, 300 );
+
+                assertResidentPages( otherFile, 0, otherPages );
+            }
+        } );
+    }
+
+    @Test
+    void otherFilesMustNoLongerBeSparedOnceFileDropsUnderQuota()
+    {
+        assertTimeoutPreemptively( ofMillis( SEMI_LONG_TIMEOUT_MILLIS ), () ->
+        {
+            // Few enough pages are faulted in for the background eviction thread to stay parked
+            try ( MuninnPageCache pageCache = createPageCache( fs, 100, PageCacheTracer.NULL );
+                  PagedFile otherFile = map( pageCache, existingFile( "other" ), filePageSize );
+                  PagedFile cappedFile = map( pageCache, existingFile( "capped" ), filePageSize, immutable.of( PageResidency.maxResidentPercent( 10 ) ) ) )
+            {
+                FileResidency cappedResidency = ((MuninnPagedFile) cappedFile).residency;
+                long quota = pageCache.maxCachedPages() / 10;
+                writePages( otherFile, 20 );
+                writePages( cappedFile, (int) quota + 2 );
+                long excessPages = cappedResidency.getResidentPages() - quota;
+                assertThat( excessPages ).isGreaterThan( 0L );
+
+                // Evicting the excess pages brings the capped file back under its quota. The clock arm must then go on
+                // to evict the next capped page, instead of sparing everything until it comes around to the other file.
+                pageCache.evictPages( (int) excessPages + 1, 0, EvictionRunEvent.NULL );
+
+                assertThat( cappedResidency.getResidentPages() ).isEqualTo( quota - 1 );
+                assertResidentPages( otherFile, 0, 20 );
+            }
+        } );
+    }
+
+    @Test
+    void transientCursorsMustNotChangeUsageCounters() throws Exception
+    {
+        try ( MuninnPageCache pageCache = createPageCache( fs, 10, PageCacheTracer.NULL );
+              PagedFile pagedFile = map( pageCache, existingFile( "a" ), filePageSize ) )
+        {
+            writePages( pagedFile, 1 );
+            long pageRef = pageCache.pages.deref( 0 );
+            byte usage = pageCache.pages.getUsageCounter( pageRef );
+
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT | PF_TRANSIENT, NULL ) )
+            {
+                assertTrue( cursor.next() );
+            }
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK | PF_TRANSIENT, NULL ) )
+            {
+                assertTrue( cursor.next() );
+            }
+            assertEquals( usage, pageCache.pages.getUsageCounter( pageRef ) );
+
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK, NULL ) )
+            {
+                assertTrue( cursor.next() );
+            }
+            assertThat( pageCache.pages.getUsageCounter( pageRef ) ).isGreaterThan( usage );
+        }
+    }
+
+    @Test
+    void mustNotMapFileWithMoreThanOneResidencyOption()
+    {
+        configureStandardPageCache();
+        ImmutableSet<OpenOption> options = immutable.of( PageResidency.priority( HIGH ), PageResidency.maxResidentPercent( 30 ) );
+        assertThrows( IllegalArgumentException.class, () -> map( pageCache, file( "a" ), filePageSize, options ) );
+    }
+
+    private static void writePages( PagedFile pagedFile, int pageCount ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK, NULL ) )
+        {
+            for ( int i = 0; i < pageCount; i++ )
+            {
+                assertTrue( cursor.next() );
+                cursor.putLong( i );
+            }
+        }
+    }
+
+    private static void assertResidentPages( PagedFile pagedFile, int fromPageId, int toPageId ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( fromPageId, PF_SHARED_READ_LOCK | PF_NO_FAULT, NULL ) )
+        {
+            for ( int i = fromPageId; i < toPageId; i++ )
+            {
+                assertTrue( cursor.next() );
+                assertEquals( i, cursor.getCurrentPageId(), "page should still be in memory" );
+            }
+        }
+    }
+
     private static class FlushRendezvousTracer extends DefaultPageCacheTracer
     {
         private final CountDownLatch latch;
@@ -755,6 +1075,36 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
         }
     }
 
+    private static class VectorCountingTracer extends DefaultPageCacheTracer
+    {
+        private final AtomicInteger vectoredWrites = new AtomicInteger();
+
+        @Override
+        public MajorFlushEvent beginFileFlush( PageSwapper swapper )
+        {
+            MajorFlushEvent event = super.beginFileFlush( swapper );
+            return new MajorFlushEvent()
+            {
+                @Override
+                public FlushEventOpportunity flushEventOpportunity()
+                {
+                    FlushEventOpportunity opportunity = event.flushEventOpportunity();
+                    return ( filePageId, cachePageId, flushSwapper ) ->
+                    {
+                        vectoredWrites.incrementAndGet();
+                        return opportunity.beginFlush( filePageId, cachePageId, flushSwapper );
+                    };
+                }
+
+                @Override
+                public void close()
+                {
+                    event.close();
+                }
+            };
+        }
+    }
+
     private void evictAllPages( MuninnPageCache pageCache ) throws IOException
     {
         PageList pages = pageCache.pages;
@@ -146,7 +146,7 @@ public class IndexStatisticsTest
     }
 
     @Test
-    public void shouldNotSeeDataCreatedAfterPopulation() throws KernelException
+    public void shouldSeeDataCreatedAfterPopulationInIncrementalStatistics() throws KernelException
     {
         // given
         indexOnlineMonitor.initialize( 0 );
@@ -156,14 +156,14 @@ public class IndexStatisticsTest
         // when
         createSomePersons();
 
-        // then
-        assertEquals( 1.0d, indexSelectivity( index ), 0d );
-        assertEquals( 0L, indexSize( index ) );
+        // then the native index keeps its statistics up to date, while still counting updates towards resampling it
+        assertEquals( 0.75d, indexSelectivity( index ), 0d );
+        assertEquals( 4L, indexSize( index ) );
         assertEquals( 4L, indexUpdates( index ) );
     }
 
     @Test
-    public void shouldProvideIndexStatisticsForDataSeenDuringPopulationAndIgnoreDataCreatedAfterPopulation()
+    public void shouldProvideIndexStatisticsForDataSeenDuringPopulationAndDataCreatedAfterPopulation()
             throws KernelException
     {
         // given
@@ -176,8 +176,8 @@ public class IndexStatisticsTest
         createSomePersons();
 
         // then
-        assertEquals( 0.75d, indexSelectivity( index ), 0d );
-        assertEquals( 4L, indexSize( index ) );
+        assertEquals( 0.375d, indexSelectivity( index ), 0d );
+        assertEquals( 8L, indexSize( index ) );
         assertEquals( 4L, indexUpdates( index ) );
     }
 
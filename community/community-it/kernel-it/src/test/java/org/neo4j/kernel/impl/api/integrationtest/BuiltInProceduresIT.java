@@ -50,10 +50,12 @@ import org.neo4j.kernel.api.KernelTransaction;
 import org.neo4j.kernel.api.security.AnonymousContext;
 import org.neo4j.kernel.impl.api.index.IndexingService;
 import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingMode;
+import org.neo4j.kernel.impl.transaction.stats.CommitPhase;
 import org.neo4j.kernel.impl.util.DefaultValueMapper;
 import org.neo4j.kernel.internal.Version;
 import org.neo4j.monitoring.Monitors;
 import org.neo4j.values.AnyValue;
+import org.neo4j.values.storable.NumberValue;
 import org.neo4j.values.storable.Values;
 import org.neo4j.values.virtual.ListValue;
 import org.neo4j.values.virtual.VirtualValues;
@@ -122,6 +124,31 @@ class BuiltInProceduresIT extends CommunityProcedureITBase
         assertThat( dbmsInfoRow ).hasSize( 3 );
     }
 
+    @Test
+    void commitLatency() throws Throwable
+    {
+        // Given
+        KernelTransaction transaction = newTransaction( AnonymousContext.writeToken() );
+        transaction.dataWrite().nodeCreate();
+        commit();
+
+        // When
+        RawIterator<AnyValue[],ProcedureException> stream =
+                procs().procedureCallRead( procs().procedureGet( procedureName( "db", "commitLatency" ) ).id(), new AnyValue[0], EMPTY );
+
+        // Then
+        var procedureResult = asList( stream );
+        assertThat( procedureResult ).hasSize( CommitPhase.values().length );
+        for ( AnyValue[] row : procedureResult )
+        {
+            assertThat( row ).hasSize( 8 );
+            if ( !stringValue( CommitPhase.INDEX_APPLY.phaseName() ).equals( row[0] ) )
+            {
+                assertThat( ((NumberValue) row[1]).longValue() ).as( row[0].toString() ).isGreaterThanOrEqualTo( 1 );
+            }
+        }
+    }
+
     @Test
     @Timeout( value = 6, unit = MINUTES )
     void listAllLabelsMustNotBlockOnConstraintCreatingTransaction() throws Throwable
@@ -148,6 +148,10 @@ public interface ProcedureITBase
                         "Triggers an index resample and waits for it to complete, and after that clears query caches." +
                                 " After this procedure has finished queries will be planned using the latest database " + "statistics.",
                         stringArray( "admin" ), "READ" ),
+                proc( "db.commitLatency", "() :: (phase :: STRING?, count :: INTEGER?, meanMicros :: INTEGER?, p50Micros :: INTEGER?, " +
+                                "p90Micros :: INTEGER?, p99Micros :: INTEGER?, p999Micros :: INTEGER?, maxMicros :: INTEGER?)",
+                        "List the latencies of the phases of committing transactions in the database, in microseconds.",
+                        stringArray( "admin" ), "READ" ),
                 proc( "db.stats.retrieve", "(section :: STRING?, config = {} :: MAP?) :: (section :: STRING?, data :: MAP?)",
                         "Retrieve statistical data about the current database. Valid sections are 'GRAPH COUNTS', 'TOKENS', 'QUERIES', 'META'",
                         stringArray( "admin" ), "READ" ),
@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.newapi;
+
+import org.eclipse.collections.api.list.primitive.LongList;
+import org.eclipse.collections.api.list.primitive.MutableLongList;
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.eclipse.collections.impl.factory.primitive.LongLists;
+import org.eclipse.collections.impl.factory.primitive.LongSets;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+import org.neo4j.exceptions.KernelException;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.internal.kernel.api.CursorFactory;
+import org.neo4j.internal.kernel.api.IndexQuery;
+import org.neo4j.internal.kernel.api.IndexReadSession;
+import org.neo4j.internal.kernel.api.NodeValueIndexCursor;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.Scan;
+import org.neo4j.internal.kernel.api.Write;
+import org.neo4j.internal.schema.IndexOrder;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.values.storable.Values;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.neo4j.graphdb.Label.label;
+import static org.neo4j.internal.kernel.api.IndexQueryConstraints.constrained;
+import static org.neo4j.internal.kernel.api.IndexQueryConstraints.unconstrained;
+import static org.neo4j.internal.kernel.api.IndexQueryConstraints.unorderedValues;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+import static org.neo4j.kernel.impl.newapi.TestUtils.assertDistinct;
+import static org.neo4j.kernel.impl.newapi.TestUtils.concat;
+import static org.neo4j.kernel.impl.newapi.TestUtils.randomBatchWorker;
+
+public abstract class ParallelNodeValueIndexSeekTestBase<G extends KernelAPIReadTestSupport> extends KernelAPIReadTestBase<G>
+{
+    private static final int NUMBER_OF_NODES = 10_000;
+    private static final int PARTITIONS = 4;
+    private static final String INDEX_NAME = "parallelSeekIndex";
+    private static final ToLongFunction<NodeValueIndexCursor> NODE_GET = NodeValueIndexCursor::nodeReference;
+    private static long[] NODES_BY_VALUE;
+
+    @Override
+    public void createTestGraph( GraphDatabaseService graphDb )
+    {
+        try ( Transaction tx = graphDb.beginTx() )
+        {
+            tx.schema().indexFor( label( "Node" ) ).on( "prop" ).withName( INDEX_NAME ).create();
+            tx.commit();
+        }
+        try ( Transaction tx = graphDb.beginTx() )
+        {
+            tx.schema().awaitIndexesOnline( 5, MINUTES );
+            tx.commit();
+        }
+        NODES_BY_VALUE = new long[NUMBER_OF_NODES];
+        try ( Transaction tx = graphDb.beginTx() )
+        {
+            for ( int i = 0; i < NUMBER_OF_NODES; i++ )
+            {
+                Node node = tx.createNode( label( "Node" ) );
+                node.setProperty( "prop", i );
+                NODES_BY_VALUE[i] = node.getId();
+            }
+            tx.commit();
+        }
+    }
+
+    @Test
+    void shouldScanAllNodesInPartitions() throws KernelException
+    {
+        try ( NodeValueIndexCursor nodes = cursors.allocateNodeValueIndexCursor( NULL ) )
+        {
+            // when
+            Scan<NodeValueIndexCursor> scan = read.nodeIndexScanPartitioned( indexSession( read ), PARTITIONS, unconstrained() );
+            MutableLongList ids = LongLists.mutable.empty();
+            int batches = 0;
+            while ( scan.reserveBatch( nodes, 1 ) )
+            {
+                batches++;
+                while ( nodes.next() )
+                {
+                    ids.add( nodes.nodeReference() );
+                }
+            }
+
+            // then
+            assertTrue( batches > 1, "Expected the scan to be partitioned, but got " + batches + " partition(s)" );
+            assertTrue( batches <= PARTITIONS );
+            assertEquals( NUMBER_OF_NODES, ids.size() );
+            assertEquals( nodes( 0, NUMBER_OF_NODES ), LongSets.immutable.withAll( ids ) );
+        }
+    }
+
+    @Test
+    void shouldSeekRangeFromMultipleThreads() throws Exception
+    {
+        // given
+        ExecutorService service = Executors.newFixedThreadPool( PARTITIONS );
+        CursorFactory cursors = testSupport.kernelToTest().cursors();
+        Scan<NodeValueIndexCursor> scan = read.nodeIndexSeekPartitioned( indexSession( read ), PARTITIONS, unorderedValues(),
+                IndexQuery.range( propertyKey(), 1000, true, 9000, false ) );
+
+        try
+        {
+            // when
+            List<Future<LongList>> futures = new ArrayList<>();
+            for ( int i = 0; i < PARTITIONS; i++ )
+            {
+                futures.add( service.submit( randomBatchWorker( scan, () -> cursors.allocateNodeValueIndexCursor( NULL ), NODE_GET ) ) );
+            }
+
+            // then
+            List<LongList> lists = futures.stream().map( TestUtils::unsafeGet ).collect( Collectors.toList() );
+            assertDistinct( lists );
+            assertEquals( nodes( 1000, 9000 ), LongSets.immutable.withAll( concat( lists ) ) );
+        }
+        finally
+        {
+            service.shutdown();
+            service.awaitTermination( 1, TimeUnit.MINUTES );
+        }
+    }
+
+    @Test
+    void shouldReturnValuesFromPartitions() throws KernelException
+    {
+        try ( NodeValueIndexCursor nodes = cursors.allocateNodeValueIndexCursor( NULL ) )
+        {
+            // when
+            Scan<NodeValueIndexCursor> scan = read.nodeIndexSeekPartitioned( indexSession( read ), PARTITIONS, unorderedValues(),
+                    IndexQuery.range( propertyKey(), 100, true, 200, true ) );
+            int count = 0;
+            while ( scan.reserveBatch( nodes, 1 ) )
+            {
+                while ( nodes.next() )
+                {
+                    // then
+                    assertTrue( nodes.hasValue() );
+                    int value = ((Number) nodes.propertyValue( 0 ).asObject()).intValue();
+                    assertEquals( NODES_BY_VALUE[value], nodes.nodeReference() );
+                    count++;
+                }
+            }
+            assertEquals( 101, count );
+        }
+    }
+
+    @Test
+    void shouldHandleSeekWithoutMatches() throws KernelException
+    {
+        try ( NodeValueIndexCursor nodes = cursors.allocateNodeValueIndexCursor( NULL ) )
+        {
+            // when
+            Scan<NodeValueIndexCursor> scan =
+                    read.nodeIndexSeekPartitioned( indexSession( read ), PARTITIONS, unconstrained(), IndexQuery.exact( propertyKey(), "no such value" ) );
+            int count = 0;
+            while ( scan.reserveBatch( nodes, 1 ) )
+            {
+                count += TestUtils.count( nodes );
+            }
+
+            // then
+            assertEquals( 0, count );
+        }
+    }
+
+    @Test
+    void shouldSeeTransactionStateInExactlyOnePartition() throws KernelException
+    {
+        try ( KernelTransaction tx = beginTransaction() )
+        {
+            // given
+            Write write = tx.dataWrite();
+            int label = tx.tokenRead().nodeLabel( "Node" );
+            long added = write.nodeCreate();
+            write.nodeAddLabel( added, label );
+            write.nodeSetProperty( added, propertyKey(), Values.intValue( 1500 ) );
+            long deleted = NODES_BY_VALUE[1600];
+            write.nodeDelete( deleted );
+
+            try ( NodeValueIndexCursor nodes = tx.cursors().allocateNodeValueIndexCursor( NULL ) )
+            {
+                // when
+                Scan<NodeValueIndexCursor> scan = tx.dataRead().nodeIndexSeekPartitioned( indexSession( tx.dataRead() ), PARTITIONS, unconstrained(),
+                        IndexQuery.range( propertyKey(), 1000, true, 2000, false ) );
+                MutableLongList ids = LongLists.mutable.empty();
+                while ( scan.reserveBatch( nodes, 1 ) )
+                {
+                    while ( nodes.next() )
+                    {
+                        ids.add( nodes.nodeReference() );
+                    }
+                }
+
+                // then
+                MutableLongSet expected = nodes( 1000, 2000 );
+                expected.add( added );
+                expected.remove( deleted );
+                assertEquals( expected.size(), ids.size() );
+                assertEquals( expected, LongSets.immutable.withAll( ids ) );
+            }
+        }
+    }
+
+    @Test
+    void shouldFailForOrderedSeek()
+    {
+        assertThrows( IllegalArgumentException.class, () -> read.nodeIndexSeekPartitioned( indexSession( read ), PARTITIONS,
+                constrained( IndexOrder.ASCENDING, true ), IndexQuery.range( propertyKey(), 1000, true, 2000, false ) ) );
+    }
+
+    @Test
+    void shouldFailForSizeHintZero() throws KernelException
+    {
+        try ( NodeValueIndexCursor nodes = cursors.allocateNodeValueIndexCursor( NULL ) )
+        {
+            // given
+            Scan<NodeValueIndexCursor> scan = read.nodeIndexScanPartitioned( indexSession( read ), PARTITIONS, unconstrained() );
+
+            // when
+            assertThrows( IllegalArgumentException.class, () -> scan.reserveBatch( nodes, 0 ) );
+        }
+    }
+
+    private IndexReadSession indexSession( Read read ) throws KernelException
+    {
+        return read.indexReadSession( schemaRead.indexGetForName( INDEX_NAME ) );
+    }
+
+    private int propertyKey()
+    {
+        return token.propertyKey( "prop" );
+    }
+
+    private static MutableLongSet nodes( int fromValue, int toValue )
+    {
+        MutableLongSet nodes = LongSets.mutable.empty();
+        for ( int value = fromValue; value < toValue; value++ )
+        {
+            nodes.add( NODES_BY_VALUE[value] );
+        }
+        return nodes;
+    }
+}
@@ -42,12 +42,15 @@ import org.neo4j.kernel.impl.transaction.log.PhysicalLogVersionedStoreChannel;
 import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
 import org.neo4j.logging.NullLogProvider;
 import org.neo4j.memory.EmptyMemoryTracker;
+import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.storageengine.api.StoreId;
 import org.neo4j.test.extension.Inject;
 import org.neo4j.test.extension.testdirectory.TestDirectoryExtension;
 import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.scheduler.ThreadPoolJobScheduler;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogVersions.CURRENT_FORMAT_LOG_HEADER_SIZE;
 
 @TestDirectoryExtension
@@ -99,21 +102,104 @@ class TransactionLogChannelAllocatorIT
         }
     }
 
+    @Test
+    void useFileAllocatedAheadForNextTransactionLogFile() throws Exception
+    {
+        ThreadPoolJobScheduler jobScheduler = new ThreadPoolJobScheduler();
+        try
+        {
+            TransactionLogChannelAllocator fileAllocator = createLogFileAllocator( jobScheduler );
+            fileAllocator.allocateAhead( 12 );
+            try ( PhysicalLogVersionedStoreChannel channel = fileAllocator.createLogChannel( 12, () -> 1L ) )
+            {
+                assertEquals( 12, channel.getVersion() );
+                assertTrue( channel.size() >= CURRENT_FORMAT_LOG_HEADER_SIZE );
+            }
+            File[] files = fileSystem.listFiles( testDirectory.homeDir() );
+            assertEquals( 1, files.length );
+            assertEquals( fileHelper.getLogFileForVersion( 12 ), files[0] );
+        }
+        finally
+        {
+            jobScheduler.shutdown();
+        }
+    }
+
+    @Test
+    void discardFileAllocatedAheadForOtherVersion() throws Exception
+    {
+        ThreadPoolJobScheduler jobScheduler = new ThreadPoolJobScheduler();
+        try
+        {
+            TransactionLogChannelAllocator fileAllocator = createLogFileAllocator( jobScheduler );
+            fileAllocator.allocateAhead( 13 );
+            fileAllocator.createLogChannel( 14, () -> 1L ).close();
+            File[] files = fileSystem.listFiles( testDirectory.homeDir() );
+            assertEquals( 1, files.length );
+            assertEquals( fileHelper.getLogFileForVersion( 14 ), files[0] );
+        }
+        finally
+        {
+            jobScheduler.shutdown();
+        }
+    }
+
+    @Test
+    void deleteFilesAllocatedAheadInEarlierRunForOtherVersions() throws IOException
+    {
+        for ( long version : new long[]{3, 5, 7} )
+        {
+            fileSystem.write( allocatedFile( version ) ).close();
+        }
+        fileSystem.write( fileHelper.getLogFileForVersion( 4 ) ).close();
+
+        fileAllocator.deleteStaleAllocations( 5 );
+
+        File[] files = fileSystem.listFiles( testDirectory.homeDir() );
+        assertEquals( 2, files.length );
+        assertTrue( fileSystem.fileExists( allocatedFile( 5 ) ) );
+        assertTrue( fileSystem.fileExists( fileHelper.getLogFileForVersion( 4 ) ) );
+    }
+
+    @Test
+    void useFileAllocatedAheadInEarlierRunForItsVersion() throws IOException
+    {
+        fileSystem.write( allocatedFile( 15 ) ).close();
+
+        try ( PhysicalLogVersionedStoreChannel channel = fileAllocator.createLogChannel( 15, () -> 1L ) )
+        {
+            assertEquals( 15, channel.getVersion() );
+        }
+        File[] files = fileSystem.listFiles( testDirectory.homeDir() );
+        assertEquals( 1, files.length );
+        assertEquals( fileHelper.getLogFileForVersion( 15 ), files[0] );
+    }
+
+    private File allocatedFile( long version )
+    {
+        return new File( testDirectory.homeDir(), TransactionLogFilesHelper.DEFAULT_NAME + "_allocated." + version );
+    }
+
     private TransactionLogChannelAllocator createLogFileAllocator()
+    {
+        return createLogFileAllocator( null );
+    }
+
+    private TransactionLogChannelAllocator createLogFileAllocator( JobScheduler allocationScheduler )
     {
         LogHeaderCache logHeaderCache = new LogHeaderCache( 10 );
-        var logFileContext = createLogFileContext();
+        var logFileContext = createLogFileContext( allocationScheduler );
         var nativeChannelAccessor = new LogFileChannelNativeAccessor( fileSystem, logFileContext );
         return new TransactionLogChannelAllocator( logFileContext, fileHelper, logHeaderCache, nativeChannelAccessor );
     }
 
-    private TransactionLogFilesContext createLogFileContext()
+    private TransactionLogFilesContext createLogFileContext( JobScheduler allocationScheduler )
     {
-        return new TransactionLogFilesContext( new AtomicLong( ROTATION_THRESHOLD ), new AtomicBoolean( true ),
+        return new TransactionLogFilesContext( new AtomicLong( ROTATION_THRESHOLD ), new AtomicBoolean( true ), false,
                 new VersionAwareLogEntryReader( new TestCommandReaderFactory() ), () -> 1L,
                 () -> 1L, () -> new LogPosition( 0, 1 ),
                 SimpleLogVersionRepository::new, fileSystem,
                 NullLogProvider.getInstance(), DatabaseTracers.EMPTY, () -> StoreId.UNKNOWN, NativeAccessProvider.getNativeAccess(),
-                EmptyMemoryTracker.INSTANCE );
+                EmptyMemoryTracker.INSTANCE, allocationScheduler, null, false );
     }
 }
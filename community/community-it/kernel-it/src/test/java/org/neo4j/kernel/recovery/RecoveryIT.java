@@ -25,6 +25,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.jupiter.api.Test;
 import org.neo4j.configuration.Config;
+import org.neo4j.configuration.GraphDatabaseInternalSettings;
 import org.neo4j.dbms.DatabaseStateService;
 import org.neo4j.dbms.api.DatabaseManagementService;
 import org.neo4j.dbms.database.DatabaseStartAbortedException;
@@ -35,6 +36,7 @@ import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.schema.IndexType;
+import org.neo4j.internal.helpers.collection.Iterators;
 import org.neo4j.internal.kernel.api.RelationshipIndexCursor;
 import org.neo4j.internal.schema.IndexDescriptor;
 import org.neo4j.io.ByteUnit;
@@ -80,6 +82,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.neo4j.configuration.Config.defaults;
@@ -392,6 +395,132 @@ class RecoveryIT
         }
     }
 
+    @Test
+    void recoverDatabaseWithParallelRecovery() throws Throwable
+    {
+        GraphDatabaseService database = createDatabase();
+
+        int numberOfNodes = 200;
+        Label person = Label.label( "Person" );
+        RelationshipType knows = withName( "KNOWS" );
+        String idProperty = "id";
+        try ( Transaction transaction = database.beginTx() )
+        {
+            transaction.schema().indexFor( person ).on( idProperty ).create();
+            transaction.commit();
+        }
+        awaitIndexesOnline( database );
+        managementService.shutdown();
+        database = createDatabase();
+
+        long[] nodeIds = new long[numberOfNodes];
+        for ( int i = 0; i < numberOfNodes; i++ )
+        {
+            try ( Transaction transaction = database.beginTx() )
+            {
+                Node node = transaction.createNode( person );
+                node.setProperty( idProperty, i );
+                node.setProperty( "name", randomAlphanumeric( 100 ) );
+                nodeIds[i] = node.getId();
+                transaction.commit();
+            }
+        }
+        // Each of these touches the node of the previous transaction, and some of them create new label tokens
+        for ( int i = 0; i < numberOfNodes; i++ )
+        {
+            try ( Transaction transaction = database.beginTx() )
+            {
+                Node node = transaction.getNodeById( nodeIds[i] );
+                node.setProperty( idProperty, numberOfNodes + i );
+                node.createRelationshipTo( transaction.getNodeById( nodeIds[(i + 1) % numberOfNodes] ), knows );
+                if ( i % 50 == 0 )
+                {
+                    node.addLabel( Label.label( "Group" + i ) );
+                }
+                transaction.commit();
+            }
+        }
+        for ( int i = 0; i < numberOfNodes; i += 10 )
+        {
+            try ( Transaction transaction = database.beginTx() )
+            {
+                Node node = transaction.getNodeById( nodeIds[i] );
+                node.getRelationships().forEach( Relationship::delete );
+                node.delete();
+                transaction.commit();
+            }
+        }
+        managementService.shutdown();
+        removeLastCheckpointRecordFromLastLogFile();
+
+        recoverDatabase( EMPTY, Config.newBuilder().set( GraphDatabaseInternalSettings.recovery_parallelism, 4 ) );
+
+        GraphDatabaseService recoveredDatabase = createDatabase();
+        try ( Transaction transaction = recoveredDatabase.beginTx() )
+        {
+            int expectedNodes = numberOfNodes - numberOfNodes / 10;
+            assertEquals( expectedNodes, count( transaction.getAllNodes() ) );
+            assertEquals( expectedNodes, (long) transaction.execute( "MATCH (n:Person) RETURN count(n) AS c" ).columnAs( "c" ).next() );
+            assertEquals( numberOfNodes - 2 * (numberOfNodes / 10), count( transaction.getAllRelationships() ) );
+            for ( int i = 0; i < numberOfNodes; i++ )
+            {
+                assertNull( transaction.findNode( person, idProperty, i ) );
+                Node node = transaction.findNode( person, idProperty, numberOfNodes + i );
+                if ( i % 10 == 0 )
+                {
+                    assertNull( node );
+                }
+                else
+                {
+                    assertNotNull( node );
+                    assertEquals( nodeIds[i], node.getId() );
+                }
+            }
+        }
+        finally
+        {
+            managementService.shutdown();
+        }
+    }
+
+    @Test
+    void recoverDatabaseWithCompressedTransactionLogs() throws Throwable
+    {
+        createBuilder( logical_log_rotation_threshold.defaultValue() );
+        builder.setConfig( GraphDatabaseInternalSettings.tx_log_compress_commands, true );
+        GraphDatabaseService database = createDatabase();
+
+        int numberOfNodes = 50;
+        String name = randomAlphanumeric( 10 );
+        for ( int i = 0; i < numberOfNodes; i++ )
+        {
+            try ( Transaction transaction = database.beginTx() )
+            {
+                Node node = transaction.createNode( Label.label( "Person" ) );
+                node.setProperty( "id", i );
+                node.setProperty( "name", name.repeat( 30 ) );
+                node.createRelationshipTo( transaction.createNode(), withName( "KNOWS" ) );
+                transaction.commit();
+            }
+        }
+        managementService.shutdown();
+        removeLastCheckpointRecordFromLastLogFile();
+
+        recoverDatabase( EMPTY, Config.newBuilder().set( GraphDatabaseInternalSettings.tx_log_compress_commands, true ) );
+
+        GraphDatabaseService recoveredDatabase = createDatabase();
+        try ( Transaction transaction = recoveredDatabase.beginTx() )
+        {
+            assertEquals( numberOfNodes * 2, count( transaction.getAllNodes() ) );
+            assertEquals( numberOfNodes, count( transaction.getAllRelationships() ) );
+            assertEquals( numberOfNodes, Iterators.count( transaction.findNodes( Label.label( "Person" ), "name", name.repeat( 30 ) ) ) );
+        }
+        finally
+        {
+            managementService.shutdown();
+        }
+    }
+
     @Test
     void recoverDatabaseWithFirstTransactionLogFileWithoutShutdownCheckpoint() throws Throwable
     {
@@ -744,7 +873,12 @@ class RecoveryIT
 
     private void recoverDatabase( DatabaseTracers databaseTracers ) throws Exception
     {
-        Config config = Config.newBuilder().set( enable_relationship_type_scan_store, enableRelationshipTypeScanStore() ).build();
+        recoverDatabase( databaseTracers, Config.newBuilder() );
+    }
+
+    private void recoverDatabase( DatabaseTracers databaseTracers, Config.Builder configBuilder ) throws Exception
+    {
+        Config config = configBuilder.set( enable_relationship_type_scan_store, enableRelationshipTypeScanStore() ).build();
         assertTrue( isRecoveryRequired( databaseLayout, config ) );
         performRecovery( fileSystem, pageCache, databaseTracers, config, databaseLayout, INSTANCE );
         assertFalse( isRecoveryRequired( databaseLayout, config ) );
@@ -25,6 +25,8 @@ import java.util.List;
 
 import org.neo4j.annotations.service.ServiceProvider;
 import org.neo4j.graphdb.config.Setting;
+import org.neo4j.io.mem.NumaPolicy;
+import org.neo4j.io.pagecache.impl.muninn.EvictionPolicy;
 import org.neo4j.logging.FormattedLogFormat;
 
 import static java.time.Duration.ofMillis;
@@ -36,6 +38,7 @@ import static org.neo4j.configuration.SettingConstraints.min;
 import static org.neo4j.configuration.SettingConstraints.range;
 import static org.neo4j.configuration.SettingImpl.newBuilder;
 import static org.neo4j.configuration.SettingValueParsers.BOOL;
+import static org.neo4j.configuration.SettingValueParsers.BYTES;
 import static org.neo4j.configuration.SettingValueParsers.DOUBLE;
 import static org.neo4j.configuration.SettingValueParsers.DURATION;
 import static org.neo4j.configuration.SettingValueParsers.INT;
@@ -45,6 +48,7 @@ import static org.neo4j.configuration.SettingValueParsers.STRING;
 import static org.neo4j.configuration.SettingValueParsers.listOf;
 import static org.neo4j.configuration.SettingValueParsers.ofEnum;
 import static org.neo4j.io.ByteUnit.kibiBytes;
+import static org.neo4j.io.ByteUnit.mebiBytes;
 
 @ServiceProvider
 public class GraphDatabaseInternalSettings implements SettingsDeclaration
@@ -307,6 +311,20 @@ public class GraphDatabaseInternalSettings implements SettingsDeclaration
     public static final Setting<Integer> index_population_workers =
             newBuilder( "unsupported.dbms.index_population.workers", INT, 8 ).addConstraint( min( 0 ) ).build();
 
+    @Internal
+    @Description( "Set the number of threads used to apply the index updates of committed transactions. Updates are spread over these threads " +
+            "one index at a time, so that each index still gets its updates in commit order. One means that all index updates are applied " +
+            "by the committing thread." )
+    public static final Setting<Integer> index_update_apply_workers =
+            newBuilder( "unsupported.dbms.index.update_apply_workers", INT, Math.min( Runtime.getRuntime().availableProcessors(), 8 ) )
+                    .addConstraint( min( 1 ) ).build();
+
+    @Internal
+    @Description( "The smallest number of index updates, in a batch of committed transactions, for that batch to be applied by more than one thread, " +
+            "see unsupported.dbms.index.update_apply_workers." )
+    public static final Setting<Integer> index_update_apply_parallel_threshold =
+            newBuilder( "unsupported.dbms.index.update_apply_parallel_threshold", INT, 1000 ).addConstraint( min( 1 ) ).build();
+
     @Internal
     @Description( "The default index provider used for managing full-text indexes. Only 'fulltext-1.0' is supported." )
     public static final Setting<String> default_fulltext_provider =
@@ -319,6 +337,34 @@ public class GraphDatabaseInternalSettings implements SettingsDeclaration
     public static final Setting<Boolean> fail_on_corrupted_log_files =
             newBuilder("unsupported.dbms.tx_log.fail_on_corrupted_log_files", BOOL, true ).build();
 
+    @Internal
+    @Description( "If `true`, the commands of each appended transaction are written to the transaction log as a single zstd compressed block, " +
+            "instead of one log entry per command. Logs written with this enabled can only be read by versions that understand compressed " +
+            "command blocks." )
+    public static final Setting<Boolean> tx_log_compress_commands =
+            newBuilder( "unsupported.dbms.tx_log.compress_commands", BOOL, false ).build();
+
+    @Internal
+    @Description( "If `true`, transaction log files that are no longer written to are read through memory mapped segments of the files, " +
+            "instead of through a read-ahead buffer. This speeds up large log scans, like recovery and catching up from old transactions. " +
+            "The current log file is always read through a read-ahead buffer." )
+    public static final Setting<Boolean> tx_log_memory_mapped_reads =
+            newBuilder( "unsupported.dbms.tx_log.memory_mapped_reads", BOOL, false ).build();
+
+    @Internal
+    @Description( "If `true`, the file of the next transaction log version is created, and preallocated if enabled, in the background " +
+            "while the current one is being written to. Log rotation then only has to move that file into place and write its header." )
+    public static final Setting<Boolean> tx_log_allocate_ahead =
+            newBuilder( "unsupported.dbms.tx_log.allocate_ahead", BOOL, false ).build();
+
+    @Internal
+    @Description( "Number of threads used to write the store records of recovered transactions. With more than one thread, recovered " +
+            "transactions are applied in batches where the records of transactions touching different entities are written concurrently, " +
+            "while counts, label index, schema index and id updates are still applied in transaction order. " +
+            "One, the default, applies every recovered transaction by itself." )
+    public static final Setting<Integer> recovery_parallelism =
+            newBuilder( "unsupported.dbms.recovery.parallelism", INT, 1 ).addConstraint( min( 1 ) ).build();
+
     @Internal
     @Description( "Specifies if engine should run cypher query based on a snapshot of accessed data. " +
             "Query will be restarted in case if concurrent modification of data will be detected." )
@@ -482,4 +528,49 @@ public class GraphDatabaseInternalSettings implements SettingsDeclaration
     @Description( "Enables logging of leaked driver session" )
     public static final Setting<Boolean> routing_driver_log_leaked_sessions =
             newBuilder( "dbms.routing.driver.logging.leaked_sessions", BOOL, false ).build();
+
+    @Internal
+    @Description( "The policy the page cache uses for choosing which pages to evict when it needs to make room for other pages. " +
+            "'CLOCK' evicts the pages that have been least recently used. 'SCAN_RESISTANT' keeps pages that are used repeatedly " +
+            "in a protected segment, so that large sequential scans do not push the working set out of the page cache." )
+    public static final Setting<EvictionPolicy> pagecache_eviction_policy =
+            newBuilder( "unsupported.dbms.memory.pagecache.eviction_policy", ofEnum( EvictionPolicy.class ), EvictionPolicy.CLOCK ).build();
+
+    @Internal
+    @Description( "Use io_uring for vectored page cache reads and writes on Linux, so that flushes and read-ahead can keep many requests in " +
+            "flight at once. Falls back to regular file channel IO if io_uring is not supported by the kernel." )
+    public static final Setting<Boolean> pagecache_io_uring = newBuilder( "unsupported.dbms.memory.pagecache.io_uring", BOOL, false ).build();
+
+    @Internal
+    @Description( "Advise the operating system to back page cache memory with transparent huge pages, on Linux. This reduces the TLB misses " +
+            "of page cache accesses, which matters most for large page caches. Transparent huge pages must be enabled in either " +
+            "'madvise' or 'always' mode for this to have an effect." )
+    public static final Setting<Boolean> pagecache_huge_pages = newBuilder( "unsupported.dbms.memory.pagecache.huge_pages", BOOL, false ).build();
+
+    @Internal
+    @Description( "How page cache memory is placed on the NUMA nodes of the system, on Linux. 'NONE' leaves the placement to the operating " +
+            "system. 'INTERLEAVE' spreads the memory page by page across all nodes. 'PARTITION' prefers each node in turn for large chunks of " +
+            "the memory, which may still be placed on other nodes when the preferred node is out of free memory." )
+    public static final Setting<NumaPolicy> pagecache_numa_policy =
+            newBuilder( "unsupported.dbms.memory.pagecache.numa_policy", ofEnum( NumaPolicy.class ), NumaPolicy.NONE ).build();
+
+    @Internal
+    @Description( "Limit the rate, in bytes per second, at which checkpoints may write pages to the store files. The budget is shared by all " +
+            "the threads that flush pages in parallel during a checkpoint. Zero, the default, means that the rate is only limited by the edition " +
+            "specific IO limiter, if there is one." )
+    public static final Setting<Long> check_point_flush_rate =
+            newBuilder( "unsupported.dbms.checkpoint.flush_rate", BYTES, 0L ).addConstraint( min( 0L ) ).build();
+
+    @Internal
+    @Description( "The rate, in bytes per second, at which recovery is assumed to replay the transaction log. Used by the 'adaptive' " +
+            "check-point policy to estimate how long recovery would take." )
+    public static final Setting<Long> check_point_recovery_replay_rate =
+            newBuilder( "unsupported.dbms.checkpoint.recovery_replay_rate", BYTES, mebiBytes( 32 ) ).addConstraint( min( 1L ) ).build();
+
+    @Internal
+    @Description( "Store the label and relationship type scan stores with one roaring bitmap style container per range of 16384 entities, " +
+            "instead of one 64 bit bit set per range of 64 entities. Each container is an array, a bitmap or a run list, whichever is " +
+            "smallest. An existing scan store in the other format is rebuilt on startup." )
+    public static final Setting<Boolean> token_scan_store_roaring_format =
+            newBuilder( "unsupported.dbms.token_scan_store.roaring_format", BOOL, false ).build();
 }
@@ -378,7 +378,7 @@ public class GraphDatabaseSettings implements SettingsDeclaration
 
     public enum CheckpointPolicy
     {
-        PERIODIC, CONTINUOUS, VOLUMETRIC
+        PERIODIC, CONTINUOUS, VOLUMETRIC, ADAPTIVE
     }
     @Description( "Configures the general policy for when check-points should occur. The default policy is the " +
             "'periodic' check-point policy, as specified by the 'dbms.checkpoint.interval.tx' and " +
@@ -388,7 +388,12 @@ public class GraphDatabaseSettings implements SettingsDeclaration
             "check-point process all the time. " +
             "The second is the 'volumetric' check-point policy, which makes a best-effort at check-pointing " +
             "often enough so that the database doesn't get too far behind on deleting old transaction logs in " +
-            "accordance with the 'dbms.tx_log.rotation.retention_policy' setting." )
+            "accordance with the 'dbms.tx_log.rotation.retention_policy' setting. " +
+            "The 'adaptive' check-point policy check-points when the transaction log appended since the last check-point, " +
+            "together with the log expected to be appended while flushing the pages that are currently dirty, would take " +
+            "longer than 'dbms.checkpoint.recovery_time_target' to recover. It paces the flushing of its check-points so that " +
+            "they finish just in time, rather than flushing as fast as the hardware will go. " +
+            "The 'dbms.checkpoint.interval.time' setting still puts an upper bound on the time between check-points." )
     public static final Setting<CheckpointPolicy> check_point_policy =
             newBuilder( "dbms.checkpoint", ofEnum( CheckpointPolicy.class ), CheckpointPolicy.PERIODIC ).build();
 
@@ -414,6 +419,11 @@ public class GraphDatabaseSettings implements SettingsDeclaration
     public static final Setting<Duration> check_point_interval_time =
             newBuilder( "dbms.checkpoint.interval.time", DURATION, ofMinutes( 15 ) ).build();
 
+    @Description( "Configures how long recovery may take after a crash, when the 'adaptive' check-point policy is used. " +
+            "The recovery time is estimated from the amount of transaction log that would have to be replayed." )
+    public static final Setting<Duration> check_point_recovery_time_target =
+            newBuilder( "dbms.checkpoint.recovery_time_target", DURATION, ofMinutes( 5 ) ).addConstraint( min( ofSeconds( 1 ) ) ).build();
+
     @Description( "Limit the number of IOs the background checkpoint process will consume per second. " +
             "This setting is advisory, is ignored in Neo4j Community Edition, and is followed to " +
             "best effort in Enterprise Edition. " +
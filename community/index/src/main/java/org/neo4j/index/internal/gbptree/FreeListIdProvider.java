@@ -137,8 +137,12 @@ class FreeListIdProvider implements IdProvider
         }
     }
 
+    /**
+     * Synchronized, like {@link #releaseId(long, long, long, PageCursorTracer)}, because parallel writers may offload keys and values
+     * concurrently with each other, see {@link GBPTree#parallelWriter(PageCursorTracer)}.
+     */
     @Override
-    public long acquireNewId( long stableGeneration, long unstableGeneration, PageCursorTracer cursorTracer ) throws IOException
+    public synchronized long acquireNewId( long stableGeneration, long unstableGeneration, PageCursorTracer cursorTracer ) throws IOException
     {
         try ( PageCursor cursor = pagedFile.io( 0, PagedFile.PF_SHARED_WRITE_LOCK, cursorTracer ) )
         {
@@ -202,7 +206,7 @@ class FreeListIdProvider implements IdProvider
     }
 
     @Override
-    public void releaseId( long stableGeneration, long unstableGeneration, long id, PageCursorTracer cursorTracer ) throws IOException
+    public synchronized void releaseId( long stableGeneration, long unstableGeneration, long id, PageCursorTracer cursorTracer ) throws IOException
     {
         try ( PageCursor cursor = pagedFile.io( writePageId, PagedFile.PF_SHARED_WRITE_LOCK, cursorTracer ) )
         {
@@ -35,10 +35,15 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Consumer;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
+import org.neo4j.index.internal.gbptree.InternalTreeLogic.LeafChange;
 import org.neo4j.index.internal.gbptree.TreeNode.Type;
 import org.neo4j.internal.helpers.Exceptions;
 import org.neo4j.io.IOUtils;
@@ -90,6 +95,8 @@ import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
  * <p>
  * A single writer w/ multiple concurrent readers is supported. Assuming usage adheres to this
  * constraint neither writer nor readers are blocking. Readers are virtually garbage-free.
+ * Alternatively multiple {@link #parallelWriter(PageCursorTracer) parallel writers} can write at the same time, changing
+ * different leaves in parallel and taking turns for changes to the structure of the tree, like splits and merges.
  * <p>
  * An reader of GB+Tree is a {@link SeekCursor} that returns result as it finds them.
  * As the cursor move over keys/values, returned results are considered "behind" it
@@ -138,6 +145,11 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
 {
     private static final String INDEX_INTERNAL_TAG = "indexInternal";
 
+    /**
+     * Number of {@link #leafLatches}, a power of two so that a leaf id can be masked to its latch.
+     */
+    private static final int LEAF_LATCH_STRIPES = 64;
+
     /**
      * For monitoring {@link GBPTree}.
      */
@@ -370,6 +382,16 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
      */
     private final TreeNode<KEY,VALUE> bTreeNode;
 
+    /**
+     * Format of the tree nodes, for creating a {@link TreeNode} for each {@link ParallelWriter}, since tree nodes keep state while writing.
+     */
+    private final TreeNodeSelector.Factory treeNodeFormat;
+
+    /**
+     * Store of keys and values which are too large to be inlined in tree nodes.
+     */
+    private final OffloadStore<KEY,VALUE> offloadStore;
+
     /**
      * A free-list of released ids. Acquiring new ids involves first trying out the free-list and then,
      * as a fall-back allocate a new id at the end of the store.
@@ -377,7 +399,7 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
     private final FreeListIdProvider freeList;
 
     /**
-     * A single instance {@link Writer} because tree only supports single writer.
+     * A single instance {@link Writer} because tree only supports a single writer, unless writing with {@link ParallelWriter parallel writers}.
      */
     private final SingleWriter writer;
 
@@ -404,6 +426,20 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
      */
     private final GBPTreeLock lock = new GBPTreeLock();
 
+    /**
+     * Lock between {@link ParallelWriter parallel writers}. Changes confined to a single leaf are made under the read lock,
+     * any number of them at the same time, each writer holding the {@link #leafLatches latch} of the leaf it changes.
+     * Changes to the structure of the tree, like splitting or merging leaves or creating new versions of tree nodes,
+     * are made under the write lock, since they change internal nodes, sibling leaves and the free-list.
+     */
+    private final ReadWriteLock structureLock = new ReentrantReadWriteLock();
+
+    /**
+     * Latches of the leaves changed by {@link ParallelWriter parallel writers} under the read lock of {@link #structureLock}, striped by leaf id.
+     * Page write locks can't serve as latches, since any number of cursors may hold the write lock of the same page at the same time.
+     */
+    private final Lock[] leafLatches = newLeafLatches();
+
     /**
      * Page size, i.e. tree node size, of the tree nodes in this tree. The page size is determined on
      * tree creation, stored in meta page and read when opening tree later.
@@ -590,21 +626,20 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
                 this.pagedFile = openOrCreate( pageCache, indexFile, tentativePageSize, cursorTracer, openOptions );
                 this.pageSize = pagedFile.pageSize();
                 closed = false;
-                TreeNodeSelector.Factory format;
                 if ( created )
                 {
-                    format = TreeNodeSelector.selectByLayout( layout );
-                    writeMeta( layout, format, pagedFile, cursorTracer );
+                    this.treeNodeFormat = TreeNodeSelector.selectByLayout( layout );
+                    writeMeta( layout, treeNodeFormat, pagedFile, cursorTracer );
                 }
                 else
                 {
                     Meta meta = readMeta( layout, pagedFile, cursorTracer );
                     meta.verify( layout );
-                    format = TreeNodeSelector.selectByFormat( meta.getFormatIdentifier(), meta.getFormatVersion() );
+                    this.treeNodeFormat = TreeNodeSelector.selectByFormat( meta.getFormatIdentifier(), meta.getFormatVersion() );
                 }
                 this.freeList = new FreeListIdProvider( pagedFile, rootId );
-                OffloadStoreImpl<KEY,VALUE> offloadStore = buildOffload( layout, freeList, pagedFile, pageSize );
-                this.bTreeNode = format.create( pageSize, layout, offloadStore );
+                this.offloadStore = buildOffload( layout, freeList, pagedFile, pageSize );
+                this.bTreeNode = treeNodeFormat.create( pageSize, layout, offloadStore );
                 this.writer = new SingleWriter( new InternalTreeLogic<>( freeList, bTreeNode, layout, monitor ) );
 
                 // Create or load state
@@ -1379,13 +1414,128 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
      * returned writer.
      */
     public Writer<KEY,VALUE> writer( double ratioToKeepInLeftOnSplit, PageCursorTracer cursorTracer ) throws IOException
+    {
+        return writer( ratioToKeepInLeftOnSplit, false, cursorTracer );
+    }
+
+    /**
+     * Use default value for fillFactor
+     * @param cursorTracer underlying page cursor tracer
+     * @see GBPTree#sortedWriter(double, PageCursorTracer)
+     */
+    public Writer<KEY,VALUE> sortedWriter( PageCursorTracer cursorTracer ) throws IOException
+    {
+        return sortedWriter( InternalTreeLogic.DEFAULT_SPLIT_RATIO, cursorTracer );
+    }
+
+    /**
+     * Returns a {@link Writer} like {@link #writer(double, PageCursorTracer)}, for writing keys in ascending order.
+     * <p>
+     * Like any writer it keeps the path from the root down to the leaf of the last change and only goes back up as far as it needs to,
+     * which for keys in ascending order is rarely further than the parent. On top of that this writer remembers where in the leaf the
+     * last key went, so that the next key only needs to be searched for from there instead of in the whole leaf. Leaves and internal
+     * nodes that fill up are split keeping {@code fillFactor} of the keys in the left node, where keys in ascending order won't go
+     * again, e.g. {@code 1} for appending to the end of the tree, to leave every node full.
+     * <p>
+     * Keys that don't come in ascending order are still written correctly, just without the benefit of the remembered leaf position.
+     *
+     * @param fillFactor how much to keep in left node on split, 0=keep nothing, 0.5=split 50-50, 1=keep everything.
+     * @param cursorTracer underlying page cursor tracer
+     * @return the single {@link Writer} for this index, see {@link #writer(double, PageCursorTracer)}.
+     * @throws IOException on error accessing the index.
+     */
+    public Writer<KEY,VALUE> sortedWriter( double fillFactor, PageCursorTracer cursorTracer ) throws IOException
+    {
+        return writer( fillFactor, true, cursorTracer );
+    }
+
+    private Writer<KEY,VALUE> writer( double ratioToKeepInLeftOnSplit, boolean sortedInserts, PageCursorTracer cursorTracer ) throws IOException
     {
         assertNotReadOnly( "Open tree writer." );
-        writer.initialize( ratioToKeepInLeftOnSplit, cursorTracer );
+        writer.initialize( ratioToKeepInLeftOnSplit, sortedInserts, cursorTracer );
         changesSinceLastCheckpoint = true;
         return writer;
     }
 
+    /**
+     * Use default value for ratioToKeepInLeftOnSplit
+     * @param cursorTracer underlying page cursor tracer
+     * @see GBPTree#parallelWriter(double, PageCursorTracer)
+     */
+    public Writer<KEY,VALUE> parallelWriter( PageCursorTracer cursorTracer ) throws IOException
+    {
+        return parallelWriter( InternalTreeLogic.DEFAULT_SPLIT_RATIO, cursorTracer );
+    }
+
+    /**
+     * Returns a new {@link Writer} which, unlike the single {@link #writer(double, PageCursorTracer) writer}, can be used at the same time
+     * as other parallel writers, each by its own thread. After usage the returned writer must be closed, typically by using
+     * try-with-resource clause.
+     * <p>
+     * Parallel writers change different leaves in parallel. Each change first goes down the tree the way a reader does, to find the leaf
+     * to change, and takes a latch of that leaf, which keeps other writers out of it until the change is made. Changes that need
+     * to change the structure of the tree instead, e.g. splitting or merging leaves, or creating new versions of tree nodes after a
+     * {@link #checkpoint(IOLimiter, PageCursorTracer) checkpoint}, wait for the changes in progress in other writers to complete and
+     * then go down the tree like the single writer does, keeping other writers out until done. Writing keys far apart from each other
+     * in different writers therefore scales better than writing keys close to each other, and a tree which has just been check-pointed
+     * needs to have new versions of its leaves created first.
+     * <p>
+     * Parallel writers can't be used at the same time as the single writer and, like it, block
+     * {@link #checkpoint(IOLimiter, PageCursorTracer) checkpoints} until all of them are closed. Waiting for a checkpoint or the
+     * single writer while holding a parallel writer will therefore wait forever.
+     *
+     * @param ratioToKeepInLeftOnSplit Decide how much to keep in left node on split, 0=keep nothing, 0.5=split 50-50, 1=keep everything.
+     * @param cursorTracer underlying page cursor tracer, which must only be used by the thread using the returned writer.
+     * @return a new parallel {@link Writer} for this index. The returned writer must be {@link Writer#close() closed}.
+     * @throws IOException on error accessing the index.
+     */
+    public Writer<KEY,VALUE> parallelWriter( double ratioToKeepInLeftOnSplit, PageCursorTracer cursorTracer ) throws IOException
+    {
+        assertNotReadOnly( "Open parallel tree writer." );
+        ParallelWriter parallelWriter = new ParallelWriter( ratioToKeepInLeftOnSplit, cursorTracer );
+        parallelWriter.initialize();
+        changesSinceLastCheckpoint = true;
+        return parallelWriter;
+    }
+
+    /**
+     * Makes the root changes a writer reports after it has propagated a change all the way up to the root,
+     * i.e. creates a new root if the root was split or sets the new version of the root if one was created.
+     *
+     * @param cursor {@link PageCursor} to use for creating a new root, left at the new root if there is one.
+     * @param structurePropagation {@link StructurePropagation} from the change, cleared when this method returns.
+     * @return {@code true} if there is a new root, otherwise {@code false}.
+     * @throws IOException on error accessing the index.
+     */
+    private boolean handleRootChanges( PageCursor cursor, StructurePropagation<KEY> structurePropagation, long stableGeneration,
+            long unstableGeneration, PageCursorTracer cursorTracer ) throws IOException
+    {
+        boolean newRoot = false;
+        if ( structurePropagation.hasRightKeyInsert )
+        {
+            // New root
+            long newRootId = freeList.acquireNewId( stableGeneration, unstableGeneration, cursorTracer );
+            PageCursorUtil.goTo( cursor, "new root", newRootId );
+
+            bTreeNode.initializeInternal( cursor, stableGeneration, unstableGeneration );
+            bTreeNode.setChildAt( cursor, structurePropagation.midChild, 0,
+                    stableGeneration, unstableGeneration );
+            bTreeNode.insertKeyAndRightChildAt( cursor, structurePropagation.rightKey, structurePropagation.rightChild, 0, 0,
+                    stableGeneration, unstableGeneration, cursorTracer );
+            TreeNode.setKeyCount( cursor, 1 );
+            setRoot( newRootId, unstableGeneration );
+            monitor.treeGrowth();
+            newRoot = true;
+        }
+        else if ( structurePropagation.hasMidChildUpdate )
+        {
+            setRoot( GenerationSafePointerPair.pointer( structurePropagation.midChild ), unstableGeneration );
+            newRoot = true;
+        }
+        structurePropagation.clear();
+        return newRoot;
+    }
+
     private void setRoot( long rootId, long rootGeneration )
     {
         this.root = new Root( rootId, rootGeneration );
@@ -1576,8 +1726,8 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
     private class SingleWriter implements Writer<KEY,VALUE>
     {
         /**
-         * Currently an index only supports one concurrent writer and so this boolean will act as
-         * guard so that only one writer ever exist.
+         * An index only supports one concurrent single writer and so this boolean will act as
+         * guard so that only one such writer ever exist.
          */
         private final AtomicBoolean writerTaken = new AtomicBoolean();
         private final InternalTreeLogic<KEY,VALUE> treeLogic;
@@ -1590,6 +1740,7 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
         private long stableGeneration;
         private long unstableGeneration;
         private double ratioToKeepInLeftOnSplit;
+        private boolean sortedInserts;
 
         SingleWriter( InternalTreeLogic<KEY,VALUE> treeLogic )
         {
@@ -1615,9 +1766,10 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
          *
          * @throws IOException if fail to open {@link PageCursor}
          * @param ratioToKeepInLeftOnSplit Decide how much to keep in left node on split, 0=keep nothing, 0.5=split 50-50, 1=keep everything.
+         * @param sortedInserts whether or not keys are expected to be written in ascending order.
          * @param cursorTracer underlying page cursor tracer
          */
-        void initialize( double ratioToKeepInLeftOnSplit, PageCursorTracer cursorTracer ) throws IOException
+        void initialize( double ratioToKeepInLeftOnSplit, boolean sortedInserts, PageCursorTracer cursorTracer ) throws IOException
         {
             if ( !writerTaken.compareAndSet( false, true ) )
             {
@@ -1637,8 +1789,9 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
                 stableGeneration = stableGeneration( generation );
                 unstableGeneration = unstableGeneration( generation );
                 this.ratioToKeepInLeftOnSplit = ratioToKeepInLeftOnSplit;
+                this.sortedInserts = sortedInserts;
                 assert assertNoSuccessor( cursor, stableGeneration, unstableGeneration );
-                treeLogic.initialize( cursor, ratioToKeepInLeftOnSplit );
+                treeLogic.initialize( cursor, ratioToKeepInLeftOnSplit, sortedInserts );
                 success = true;
             }
             catch ( Throwable e )
@@ -1696,13 +1849,6 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
             checkOutOfBounds( cursor );
         }
 
-        private void setRoot( long rootPointer )
-        {
-            long rootId = GenerationSafePointerPair.pointer( rootPointer );
-            GBPTree.this.setRoot( rootId, unstableGeneration );
-            treeLogic.initialize( cursor, ratioToKeepInLeftOnSplit );
-        }
-
         @Override
         public VALUE remove( KEY key )
         {
@@ -1731,26 +1877,10 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
 
         private void handleStructureChanges( PageCursorTracer cursorTracer ) throws IOException
         {
-            if ( structurePropagation.hasRightKeyInsert )
+            if ( handleRootChanges( cursor, structurePropagation, stableGeneration, unstableGeneration, cursorTracer ) )
             {
-                // New root
-                long newRootId = freeList.acquireNewId( stableGeneration, unstableGeneration, cursorTracer );
-                PageCursorUtil.goTo( cursor, "new root", newRootId );
-
-                bTreeNode.initializeInternal( cursor, stableGeneration, unstableGeneration );
-                bTreeNode.setChildAt( cursor, structurePropagation.midChild, 0,
-                        stableGeneration, unstableGeneration );
-                bTreeNode.insertKeyAndRightChildAt( cursor, structurePropagation.rightKey, structurePropagation.rightChild, 0, 0,
-                        stableGeneration, unstableGeneration, cursorTracer );
-                TreeNode.setKeyCount( cursor, 1 );
-                setRoot( newRootId );
-                monitor.treeGrowth();
+                treeLogic.initialize( cursor, ratioToKeepInLeftOnSplit, sortedInserts );
             }
-            else if ( structurePropagation.hasMidChildUpdate )
-            {
-                setRoot( structurePropagation.midChild );
-            }
-            structurePropagation.clear();
         }
 
         @Override
@@ -1775,6 +1905,243 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
         }
     }
 
+    /**
+     * A {@link Writer} which can be used at the same time as other parallel writers, see {@link #parallelWriter(double, PageCursorTracer)}.
+     * Cursors are only kept open during each change, since a writer waiting for another writer must not have any page pinned.
+     */
+    private class ParallelWriter implements Writer<KEY,VALUE>
+    {
+        private final InternalTreeLogic<KEY,VALUE> treeLogic;
+        private final StructurePropagation<KEY> structurePropagation;
+        private final double ratioToKeepInLeftOnSplit;
+        private final PageCursorTracer cursorTracer;
+        private boolean closed;
+
+        // Writer can't live past a checkpoint because of the mutex with checkpoint,
+        // therefore safe to locally cache these generation fields from the volatile generation in the tree
+        private long stableGeneration;
+        private long unstableGeneration;
+
+        ParallelWriter( double ratioToKeepInLeftOnSplit, PageCursorTracer cursorTracer )
+        {
+            // Each writer has its own tree node since tree nodes keep state while writing
+            TreeNode<KEY,VALUE> treeNode = treeNodeFormat.create( pageSize, layout, offloadStore );
+            this.treeLogic = new InternalTreeLogic<>( freeList, treeNode, layout, monitor );
+            this.structurePropagation = new StructurePropagation<>( layout.newKey(), layout.newKey(), layout.newKey() );
+            this.ratioToKeepInLeftOnSplit = ratioToKeepInLeftOnSplit;
+            this.cursorTracer = cursorTracer;
+        }
+
+        void initialize() throws IOException
+        {
+            // Block here until cleaning has completed, if cleaning was required
+            lock.parallelWriterLock();
+            try
+            {
+                assertRecoveryCleanSuccessful();
+                stableGeneration = stableGeneration( generation );
+                unstableGeneration = unstableGeneration( generation );
+            }
+            catch ( Throwable e )
+            {
+                lock.parallelWriterUnlock();
+                appendTreeInformation( e );
+                throw e;
+            }
+        }
+
+        @Override
+        public void put( KEY key, VALUE value )
+        {
+            merge( key, value, ValueMergers.overwrite() );
+        }
+
+        @Override
+        public void merge( KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger )
+        {
+            internalMerge( key, value, valueMerger, true );
+        }
+
+        @Override
+        public void mergeIfExists( KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger )
+        {
+            internalMerge( key, value, valueMerger, false );
+        }
+
+        private void internalMerge( KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger, boolean createIfNotExists )
+        {
+            try
+            {
+                LeafChange change;
+                structureLock.readLock().lock();
+                try
+                {
+                    long leafId = leafFor( key );
+                    Lock leafLatch = leafLatch( leafId );
+                    leafLatch.lock();
+                    try ( PageCursor cursor = openLeafCursor( leafId ) )
+                    {
+                        change = treeLogic.tryInsertInLeaf( cursor, key, value, valueMerger, createIfNotExists,
+                                stableGeneration, unstableGeneration, cursorTracer );
+                        checkOutOfBounds( cursor );
+                    }
+                    finally
+                    {
+                        leafLatch.unlock();
+                    }
+                }
+                finally
+                {
+                    structureLock.readLock().unlock();
+                }
+
+                if ( change == LeafChange.STRUCTURE_CHANGE_NEEDED )
+                {
+                    structureLock.writeLock().lock();
+                    try ( PageCursor cursor = openRootCursor( PagedFile.PF_SHARED_WRITE_LOCK, cursorTracer ) )
+                    {
+                        treeLogic.initialize( cursor, ratioToKeepInLeftOnSplit );
+                        treeLogic.insert( cursor, structurePropagation, key, value, valueMerger, createIfNotExists,
+                                stableGeneration, unstableGeneration, cursorTracer );
+                        handleRootChanges( cursor, structurePropagation, stableGeneration, unstableGeneration, cursorTracer );
+                        checkOutOfBounds( cursor );
+                    }
+                    finally
+                    {
+                        structureLock.writeLock().unlock();
+                    }
+                }
+            }
+            catch ( IOException e )
+            {
+                appendTreeInformation( e );
+                throw new UncheckedIOException( e );
+            }
+            catch ( Throwable t )
+            {
+                appendTreeInformation( t );
+                throw t;
+            }
+        }
+
+        @Override
+        public VALUE remove( KEY key )
+        {
+            try
+            {
+                VALUE into = layout.newValue();
+                LeafChange change;
+                structureLock.readLock().lock();
+                try
+                {
+                    long leafId = leafFor( key );
+                    Lock leafLatch = leafLatch( leafId );
+                    leafLatch.lock();
+                    try ( PageCursor cursor = openLeafCursor( leafId ) )
+                    {
+                        change = treeLogic.tryRemoveFromLeaf( cursor, key, into, stableGeneration, unstableGeneration, cursorTracer );
+                        checkOutOfBounds( cursor );
+                    }
+                    finally
+                    {
+                        leafLatch.unlock();
+                    }
+                }
+                finally
+                {
+                    structureLock.readLock().unlock();
+                }
+
+                if ( change != LeafChange.STRUCTURE_CHANGE_NEEDED )
+                {
+                    return change == LeafChange.DONE ? into : null;
+                }
+
+                structureLock.writeLock().lock();
+                try ( PageCursor cursor = openRootCursor( PagedFile.PF_SHARED_WRITE_LOCK, cursorTracer ) )
+                {
+                    treeLogic.initialize( cursor, ratioToKeepInLeftOnSplit );
+                    VALUE result = treeLogic.remove( cursor, structurePropagation, key, into, stableGeneration, unstableGeneration, cursorTracer );
+                    handleRootChanges( cursor, structurePropagation, stableGeneration, unstableGeneration, cursorTracer );
+                    checkOutOfBounds( cursor );
+                    return result;
+                }
+                finally
+                {
+                    structureLock.writeLock().unlock();
+                }
+            }
+            catch ( IOException e )
+            {
+                appendTreeInformation( e );
+                throw new UncheckedIOException( e );
+            }
+            catch ( Throwable e )
+            {
+                appendTreeInformation( e );
+                throw e;
+            }
+        }
+
+        /**
+         * Goes down the tree to the leaf which {@code key} belongs in. Must be called with the read lock of {@link #structureLock} held,
+         * so that it stays the right leaf until that lock is released.
+         */
+        private long leafFor( KEY key ) throws IOException
+        {
+            try ( PageCursor readCursor = pagedFile.io( 0L /*Ignored*/, PagedFile.PF_SHARED_READ_LOCK, cursorTracer ) )
+            {
+                return treeLogic.leafFor( readCursor, root.id(), key, stableGeneration, unstableGeneration, cursorTracer );
+            }
+        }
+
+        /**
+         * @return a write cursor pinned to the leaf, which must only be opened with the {@link #leafLatch(long) latch} of the leaf held.
+         * The latch is taken before pinning the leaf, since a writer waiting for another writer must not have any page pinned.
+         */
+        private PageCursor openLeafCursor( long leafId ) throws IOException
+        {
+            PageCursor cursor = pagedFile.io( leafId, PagedFile.PF_SHARED_WRITE_LOCK, cursorTracer );
+            try
+            {
+                PageCursorUtil.goTo( cursor, "leaf", leafId );
+                return cursor;
+            }
+            catch ( Throwable e )
+            {
+                cursor.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            if ( closed )
+            {
+                throw new IllegalStateException( "Tried to close parallel writer of " + GBPTree.this +
+                        ", but writer is already closed." );
+            }
+            closed = true;
+            lock.parallelWriterUnlock();
+        }
+    }
+
+    private Lock leafLatch( long leafId )
+    {
+        return leafLatches[(int) (leafId & (LEAF_LATCH_STRIPES - 1))];
+    }
+
+    private static Lock[] newLeafLatches()
+    {
+        Lock[] latches = new Lock[LEAF_LATCH_STRIPES];
+        for ( int i = 0; i < latches.length; i++ )
+        {
+            latches[i] = new ReentrantLock();
+        }
+        return latches;
+    }
+
     /**
      * Total size limit for key and value.
      * This limit includes storage overhead that is specific to key implementation for example entity id or meta data about type.
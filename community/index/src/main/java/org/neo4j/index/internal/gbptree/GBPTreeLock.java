@@ -30,6 +30,8 @@ class GBPTreeLock
     private static final long stateOffset = UnsafeUtil.getFieldOffset( GBPTreeLock.class, "state" );
     private static final long writerLockBit = 0x00000000_00000001L;
     private static final long cleanerLockBit = 0x00000000_00000002L;
+    private static final long parallelWriterCountUnit = 0x00000001_00000000L;
+    private static final long parallelWriterCountMask = 0xFFFFFFFF_00000000L;
     private volatile long state;
 
     // Used for testing
@@ -70,6 +72,39 @@ class GBPTreeLock
         doUnlock( writerLockBit | cleanerLockBit );
     }
 
+    /**
+     * Locks writer and cleaner like {@link #writerAndCleanerLock()}, but shared with other parallel writers,
+     * i.e. any number of parallel writers can hold this lock at the same time, but no other writer, cleaner or checkpoint.
+     */
+    void parallelWriterLock()
+    {
+        long currentState;
+        do
+        {
+            currentState = state;
+            while ( (currentState & (writerLockBit | cleanerLockBit)) != 0 )
+            {
+                sleep();
+                currentState = state;
+            }
+        }
+        while ( !UnsafeUtil.compareAndSwapLong( this, stateOffset, currentState, currentState + parallelWriterCountUnit ) );
+    }
+
+    void parallelWriterUnlock()
+    {
+        long currentState;
+        do
+        {
+            currentState = state;
+            if ( (currentState & parallelWriterCountMask) == 0 )
+            {
+                throw new IllegalStateException( "Can not unlock parallel writer lock that is not locked" );
+            }
+        }
+        while ( !UnsafeUtil.compareAndSwapLong( this, stateOffset, currentState, currentState - parallelWriterCountUnit ) );
+    }
+
     private void doLock( long targetLockBit )
     {
         long currentState;
@@ -105,7 +140,8 @@ class GBPTreeLock
 
     private boolean canLock( long state, long targetLockBit )
     {
-        return (state & targetLockBit) == 0;
+        // Parallel writers hold both writer and cleaner lock, albeit shared among them
+        return (state & targetLockBit) == 0 && (state & parallelWriterCountMask) == 0;
     }
 
     private boolean canUnlock( long state, long targetLockBit )
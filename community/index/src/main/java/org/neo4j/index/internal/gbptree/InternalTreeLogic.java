@@ -86,6 +86,7 @@ import static org.neo4j.index.internal.gbptree.TreeNode.Type.LEAF;
 class InternalTreeLogic<KEY,VALUE>
 {
     static final double DEFAULT_SPLIT_RATIO = 0.5;
+    private static final long NO_FINGER = -1;
 
     private final IdProvider idProvider;
     private final TreeNode<KEY,VALUE> bTreeNode;
@@ -94,6 +95,7 @@ class InternalTreeLogic<KEY,VALUE>
     private final KEY readKey;
     private final VALUE readValue;
     private final GBPTree.Monitor monitor;
+    private final KEY fingerKey;
 
     /**
      * Current path down the tree
@@ -113,6 +115,40 @@ class InternalTreeLogic<KEY,VALUE>
     private int currentLevel = -1;
     private double ratioToKeepInLeftOnSplit;
 
+    /**
+     * Whether or not keys are expected to come in ascending order, see {@link #initialize(PageCursor, double, boolean)}.
+     * In this mode the position in the leaf where the last insert happened is remembered as a finger, so that the next insert
+     * into the same leaf, with a key that is not smaller, only needs to search from there.
+     * <p>
+     * The finger is only valid as long as the leaf {@link #fingerNodeId} still has {@link #fingerKeyCount} keys, and it guarantees
+     * that all keys in that leaf before {@link #fingerPos} are smaller than {@link #fingerKey}.
+     */
+    private boolean sortedInserts;
+    private long fingerNodeId = NO_FINGER;
+    private int fingerPos;
+    private int fingerKeyCount;
+
+    /**
+     * Outcome of trying to change a leaf without changing the structure of the tree, see
+     * {@link #tryInsertInLeaf(PageCursor, Object, Object, ValueMerger, boolean, long, long, PageCursorTracer)} and
+     * {@link #tryRemoveFromLeaf(PageCursor, Object, Object, long, long, PageCursorTracer)}.
+     */
+    enum LeafChange
+    {
+        /**
+         * The change was made in the leaf.
+         */
+        DONE,
+        /**
+         * The key doesn't exist and so there was nothing to change.
+         */
+        NOT_FOUND,
+        /**
+         * Nothing was changed because the change needs to change the structure of the tree, e.g. split the leaf or create a new version of it.
+         */
+        STRUCTURE_CHANGE_NEEDED
+    }
+
     /**
      * Keeps information about one level in a path down the tree where the {@link PageCursor} is currently at.
      *
@@ -166,6 +202,7 @@ class InternalTreeLogic<KEY,VALUE>
         this.readKey = layout.newKey();
         this.readValue = layout.newValue();
         this.monitor = monitor;
+        this.fingerKey = layout.newKey();
 
         // an arbitrary depth slightly bigger than an unimaginably big tree
         ensureStackCapacity( 10 );
@@ -195,6 +232,18 @@ class InternalTreeLogic<KEY,VALUE>
      * @param ratioToKeepInLeftOnSplit Decide how much to keep in left node on split, 0=keep nothing, 0.5=split 50-50, 1=keep everything.
      */
     protected void initialize( PageCursor cursorAtRoot, double ratioToKeepInLeftOnSplit )
+    {
+        initialize( cursorAtRoot, ratioToKeepInLeftOnSplit, false );
+    }
+
+    /**
+     * Prepare for starting over with new updates.
+     * @param cursorAtRoot {@link PageCursor} pointing at root of tree.
+     * @param ratioToKeepInLeftOnSplit Decide how much to keep in left node on split, 0=keep nothing, 0.5=split 50-50, 1=keep everything.
+     * @param sortedInserts whether or not keys are expected to be inserted in ascending order. Keys in any other order are still
+     * inserted correctly, only without benefiting from this.
+     */
+    protected void initialize( PageCursor cursorAtRoot, double ratioToKeepInLeftOnSplit, boolean sortedInserts )
     {
         currentLevel = 0;
         Level<KEY> level = levels[currentLevel];
@@ -202,6 +251,8 @@ class InternalTreeLogic<KEY,VALUE>
         level.lowerIsOpenEnded = true;
         level.upperIsOpenEnded = true;
         this.ratioToKeepInLeftOnSplit = ratioToKeepInLeftOnSplit;
+        this.sortedInserts = sortedInserts;
+        this.fingerNodeId = NO_FINGER;
     }
 
     private boolean popLevel( PageCursor cursor ) throws IOException
@@ -525,19 +576,53 @@ class InternalTreeLogic<KEY,VALUE>
             boolean createIfNotExists, long stableGeneration, long unstableGeneration, PageCursorTracer cursorTracer ) throws IOException
     {
         int keyCount = TreeNode.keyCount( cursor );
-        int search = search( cursor, LEAF, key, readKey, keyCount, cursorTracer );
+        int search = searchLeaf( cursor, key, keyCount, cursorTracer );
         int pos = positionOf( search );
         if ( isHit( search ) )
         {
             mergeValue( cursor, structurePropagation, key, value, valueMerger, pos, keyCount, stableGeneration, unstableGeneration, cursorTracer );
-            return;
         }
-
-        if ( createIfNotExists )
+        else if ( createIfNotExists )
         {
             createSuccessorIfNeeded( cursor, structurePropagation, UPDATE_MID_CHILD, stableGeneration, unstableGeneration, cursorTracer );
             doInsertInLeaf( cursor, structurePropagation, key, value, pos, keyCount, stableGeneration, unstableGeneration, cursorTracer );
         }
+        rememberFinger( cursor, structurePropagation, key, pos );
+    }
+
+    /**
+     * Searches the leaf the cursor is at for the given key, starting from the finger if keys are inserted in ascending order and
+     * the finger is still valid for this leaf and key.
+     */
+    private int searchLeaf( PageCursor cursor, KEY key, int keyCount, PageCursorTracer cursorTracer )
+    {
+        if ( sortedInserts && fingerNodeId == cursor.getCurrentPageId() && fingerKeyCount == keyCount && layout.compare( key, fingerKey ) >= 0 )
+        {
+            return KeySearch.searchFrom( cursor, bTreeNode, LEAF, key, readKey, fingerPos, keyCount, cursorTracer );
+        }
+        return search( cursor, LEAF, key, readKey, keyCount, cursorTracer );
+    }
+
+    /**
+     * Remembers where in the leaf the given key was inserted, merged or looked for, unless that change caused the leaf to split or
+     * to be rebalanced or merged with a sibling, in which case the keys before that position may no longer be the same.
+     */
+    private void rememberFinger( PageCursor cursor, StructurePropagation<KEY> structurePropagation, KEY key, int pos )
+    {
+        if ( !sortedInserts )
+        {
+            return;
+        }
+        if ( structurePropagation.hasRightKeyInsert || structurePropagation.hasLeftKeyReplace || structurePropagation.hasRightKeyReplace ||
+                structurePropagation.hasLeftChildUpdate || structurePropagation.hasRightChildUpdate )
+        {
+            fingerNodeId = NO_FINGER;
+            return;
+        }
+        fingerNodeId = cursor.getCurrentPageId();
+        fingerPos = pos;
+        fingerKeyCount = TreeNode.keyCount( cursor );
+        layout.copyKey( key, fingerKey );
     }
 
     private void mergeValue( PageCursor cursor, StructurePropagation<KEY> structurePropagation, KEY key, VALUE value,
@@ -746,6 +831,7 @@ class InternalTreeLogic<KEY,VALUE>
             long stableGeneration, long unstableGeneration, PageCursorTracer cursorTracer ) throws IOException
     {
         assert cursorIsAtExpectedLocation( cursor );
+        fingerNodeId = NO_FINGER;
         moveToCorrectLeaf( cursor, key, stableGeneration, unstableGeneration, cursorTracer );
 
         if ( !removeFromLeaf( cursor, structurePropagation, key, into, stableGeneration, unstableGeneration, cursorTracer ) )
@@ -763,6 +849,176 @@ class InternalTreeLogic<KEY,VALUE>
         return into;
     }
 
+    /**
+     * Finds the leaf which {@code key} belongs in, going down from the root without remembering the path or changing anything.
+     * Internal nodes are read the way a reader reads them, so that parallel writers don't block each other on their way down.
+     * The returned leaf is only the right one for as long as nothing changes the structure of the tree.
+     *
+     * @param cursor {@link PageCursor} to read internal nodes with.
+     * @param rootId id of the root of the tree.
+     * @param key KEY to find the leaf for.
+     * @param stableGeneration stable generation.
+     * @param unstableGeneration unstable generation.
+     * @param cursorTracer underlying page cursor tracer.
+     * @return id of the leaf which {@code key} belongs in.
+     * @throws IOException on {@link PageCursor} error.
+     */
+    long leafFor( PageCursor cursor, long rootId, KEY key, long stableGeneration, long unstableGeneration, PageCursorTracer cursorTracer )
+            throws IOException
+    {
+        TreeNode.goTo( cursor, "root", rootId );
+        while ( true )
+        {
+            boolean isInternal;
+            long childId = TreeNode.NO_NODE_FLAG;
+            do
+            {
+                isInternal = TreeNode.isInternal( cursor );
+                if ( isInternal )
+                {
+                    int keyCount = TreeNode.keyCount( cursor );
+                    int searchResult = KeySearch.search( cursor, bTreeNode, INTERNAL, key, readKey, keyCount, cursorTracer );
+                    int childPos = positionOf( searchResult );
+                    if ( isHit( searchResult ) )
+                    {
+                        childPos++;
+                    }
+                    childId = bTreeNode.childAt( cursor, childPos, stableGeneration, unstableGeneration );
+                }
+            }
+            while ( cursor.shouldRetry() );
+            PageCursorUtil.checkOutOfBounds( cursor );
+
+            if ( !isInternal )
+            {
+                return cursor.getCurrentPageId();
+            }
+            PointerChecking.checkPointer( childId, false );
+            TreeNode.goTo( cursor, "child", childId );
+        }
+    }
+
+    /**
+     * Like {@link #insert(PageCursor, StructurePropagation, Object, Object, ValueMerger, boolean, long, long, PageCursorTracer)},
+     * but only if the change can be made in the leaf that {@code cursor} is pinned to without changing the structure of the tree,
+     * i.e. without splitting the leaf or creating a new version of it. Only that leaf is changed and so multiple writers can do this at the
+     * same time, in different leaves, as long as nothing changes the structure of the tree meanwhile.
+     *
+     * @param cursor {@link PageCursor} pinned to the leaf which {@code key} belongs in, see {@link #leafFor(PageCursor, long, Object, long, long,
+     * PageCursorTracer)}.
+     * @param key key to be inserted
+     * @param value value to be associated with key
+     * @param valueMerger {@link ValueMerger} for deciding what to do with existing keys
+     * @param createIfNotExists create this key if it doesn't exist
+     * @param stableGeneration stable generation, i.e. generations <= this generation are considered stable.
+     * @param unstableGeneration unstable generation, i.e. generation which is under development right now.
+     * @param cursorTracer underlying page cursor tracer
+     * @return {@link LeafChange#STRUCTURE_CHANGE_NEEDED} if nothing was changed because the insert needs to change the structure of the tree.
+     * @throws IOException on cursor failure
+     */
+    LeafChange tryInsertInLeaf( PageCursor cursor, KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger, boolean createIfNotExists,
+            long stableGeneration, long unstableGeneration, PageCursorTracer cursorTracer ) throws IOException
+    {
+        assert TreeNode.isLeaf( cursor ) : "Expected cursor to be at a leaf, but was at " + cursor.getCurrentPageId();
+        bTreeNode.validateKeyValueSize( key, value );
+        int keyCount = TreeNode.keyCount( cursor );
+        int search = search( cursor, LEAF, key, readKey, keyCount, cursorTracer );
+        int pos = positionOf( search );
+        if ( isHit( search ) )
+        {
+            bTreeNode.valueAt( cursor, readValue, pos, cursorTracer );
+            ValueMerger.MergeResult mergeResult = valueMerger.merge( readKey, key, readValue, value );
+            if ( mergeResult == ValueMerger.MergeResult.UNCHANGED )
+            {
+                return LeafChange.DONE;
+            }
+            if ( TreeNode.generation( cursor ) != unstableGeneration )
+            {
+                return LeafChange.STRUCTURE_CHANGE_NEEDED;
+            }
+            if ( mergeResult == ValueMerger.MergeResult.REPLACED || mergeResult == ValueMerger.MergeResult.MERGED )
+            {
+                // A value of different size can't be overwritten in a simple way and may need to split the leaf
+                VALUE mergedValue = mergeResult == ValueMerger.MergeResult.REPLACED ? value : readValue;
+                return bTreeNode.setValueAt( cursor, mergedValue, pos ) ? LeafChange.DONE : LeafChange.STRUCTURE_CHANGE_NEEDED;
+            }
+            if ( mergeResult == ValueMerger.MergeResult.REMOVED )
+            {
+                return tryRemoveFromLeafAt( cursor, readValue, keyCount, pos, stableGeneration, unstableGeneration, cursorTracer );
+            }
+            throw new UnsupportedOperationException( "Unexpected merge result " + mergeResult );
+        }
+
+        if ( !createIfNotExists )
+        {
+            return LeafChange.NOT_FOUND;
+        }
+        if ( TreeNode.generation( cursor ) != unstableGeneration )
+        {
+            return LeafChange.STRUCTURE_CHANGE_NEEDED;
+        }
+        Overflow overflow = bTreeNode.leafOverflow( cursor, keyCount, key, value );
+        if ( overflow == YES )
+        {
+            return LeafChange.STRUCTURE_CHANGE_NEEDED;
+        }
+        if ( overflow == NO_NEED_DEFRAG )
+        {
+            bTreeNode.defragmentLeaf( cursor );
+        }
+        bTreeNode.insertKeyValueAt( cursor, key, value, pos, keyCount, stableGeneration, unstableGeneration, cursorTracer );
+        TreeNode.setKeyCount( cursor, keyCount + 1 );
+        return LeafChange.DONE;
+    }
+
+    /**
+     * Like {@link #remove(PageCursor, StructurePropagation, Object, Object, long, long, PageCursorTracer)}, but only if the change can be
+     * made in the leaf that {@code cursor} is pinned to without changing the structure of the tree, i.e. without creating a new version
+     * of the leaf or rebalancing or merging it with a sibling, see
+     * {@link #tryInsertInLeaf(PageCursor, Object, Object, ValueMerger, boolean, long, long, PageCursorTracer)}.
+     *
+     * @param cursor {@link PageCursor} pinned to the leaf which {@code key} belongs in.
+     * @param key key to be removed
+     * @param into {@code VALUE} instance to write removed value to
+     * @param stableGeneration stable generation, i.e. generations <= this generation are considered stable.
+     * @param unstableGeneration unstable generation, i.e. generation which is under development right now.
+     * @param cursorTracer underlying page cursor tracer
+     * @return {@link LeafChange#DONE} if {@code key} was removed and its value written to {@code into}, {@link LeafChange#NOT_FOUND}
+     * if {@code key} does not exist or {@link LeafChange#STRUCTURE_CHANGE_NEEDED} if nothing was changed because the remove needs to
+     * change the structure of the tree.
+     * @throws IOException on cursor failure
+     */
+    LeafChange tryRemoveFromLeaf( PageCursor cursor, KEY key, VALUE into, long stableGeneration, long unstableGeneration,
+            PageCursorTracer cursorTracer ) throws IOException
+    {
+        assert TreeNode.isLeaf( cursor ) : "Expected cursor to be at a leaf, but was at " + cursor.getCurrentPageId();
+        int keyCount = TreeNode.keyCount( cursor );
+        int search = search( cursor, LEAF, key, readKey, keyCount, cursorTracer );
+        if ( !isHit( search ) )
+        {
+            return LeafChange.NOT_FOUND;
+        }
+        if ( TreeNode.generation( cursor ) != unstableGeneration )
+        {
+            return LeafChange.STRUCTURE_CHANGE_NEEDED;
+        }
+        return tryRemoveFromLeafAt( cursor, into, keyCount, positionOf( search ), stableGeneration, unstableGeneration, cursorTracer );
+    }
+
+    private LeafChange tryRemoveFromLeafAt( PageCursor cursor, VALUE into, int keyCount, int pos, long stableGeneration, long unstableGeneration,
+            PageCursorTracer cursorTracer ) throws IOException
+    {
+        if ( bTreeNode.leafUnderflowAfterRemove( cursor, keyCount, pos ) &&
+                (TreeNode.isNode( TreeNode.leftSibling( cursor, stableGeneration, unstableGeneration ) ) ||
+                 TreeNode.isNode( TreeNode.rightSibling( cursor, stableGeneration, unstableGeneration ) )) )
+        {
+            // Underflow would rebalance or merge the leaf with a sibling
+            return LeafChange.STRUCTURE_CHANGE_NEEDED;
+        }
+        simplyRemoveFromLeaf( cursor, into, keyCount, pos, stableGeneration, unstableGeneration, cursorTracer );
+        return LeafChange.DONE;
+    }
+
     private void handleStructureChanges( PageCursor cursor, StructurePropagation<KEY> structurePropagation,
             long stableGeneration, long unstableGeneration, PageCursorTracer cursorTracer ) throws IOException
     {
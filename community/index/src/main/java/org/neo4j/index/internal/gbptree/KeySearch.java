@@ -125,6 +125,62 @@ class KeySearch
         return searchResult( pos, hit );
     }
 
+    /**
+     * Like {@link #search(PageCursor, TreeNode, TreeNode.Type, Object, Object, int, PageCursorTracer)}, but for a key which is known to
+     * not be smaller than any key before {@code fromPos}. Instead of a binary search over the whole node this gallops forward from
+     * {@code fromPos}, i.e. looks at positions 1, 2, 4, 8... away from it, until passing the key, and then does a binary search over
+     * what's left. A key that belongs close to {@code fromPos}, which is typical for keys inserted in ascending order, is found
+     * after looking at only a few keys.
+     *
+     * @param fromPos position before which all keys in the node are known to be smaller than {@code key}.
+     * @return search result, same as for {@link #search(PageCursor, TreeNode, TreeNode.Type, Object, Object, int, PageCursorTracer)}.
+     */
+    static <KEY,VALUE> int searchFrom( PageCursor cursor, TreeNode<KEY,VALUE> bTreeNode, TreeNode.Type type, KEY key,
+            KEY readKey, int fromPos, int keyCount, PageCursorTracer cursorTracer )
+    {
+        Comparator<KEY> comparator = bTreeNode.keyComparator();
+        // All keys before lower are smaller than key, and if higher < keyCount the key at higher is greater than key
+        int lower = fromPos;
+        int higher = keyCount;
+        int step = 1;
+        int comparison;
+        while ( lower + step - 1 < keyCount )
+        {
+            int probe = lower + step - 1;
+            comparison = comparator.compare( key, bTreeNode.keyAt( cursor, readKey, probe, type, cursorTracer ) );
+            if ( comparison == 0 )
+            {
+                return searchResult( probe, true );
+            }
+            if ( comparison < 0 )
+            {
+                higher = probe;
+                break;
+            }
+            lower = probe + 1;
+            step <<= 1;
+        }
+
+        while ( lower < higher )
+        {
+            int pos = (lower + higher) >>> 1;
+            comparison = comparator.compare( key, bTreeNode.keyAt( cursor, readKey, pos, type, cursorTracer ) );
+            if ( comparison == 0 )
+            {
+                return searchResult( pos, true );
+            }
+            if ( comparison < 0 )
+            {
+                higher = pos;
+            }
+            else
+            {
+                lower = pos + 1;
+            }
+        }
+        return searchResult( lower, false );
+    }
+
     private static int searchResult( int pos, boolean hit )
     {
         return (pos & POSITION_MASK) | (hit ? HIT_FLAG : NO_HIT_FLAG);
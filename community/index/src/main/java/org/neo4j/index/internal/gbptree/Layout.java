@@ -122,6 +122,91 @@ public interface Layout<KEY, VALUE> extends Comparator<KEY>
         copyKey( right, into );
     }
 
+    /**
+     * Whether or not leaves of trees created with this layout should store the prefix that their keys have in common once,
+     * and only the remainder of each key in its entry. Which part of a key that can be shared with other keys is decided by
+     * the layout, but it must be a prefix of that part that is shared. Trees created before a layout started returning
+     * {@code true} here can still be opened with it, their leaves are then left uncompressed.
+     * <p>
+     * Layouts returning {@code true} must implement {@link #keyPrefixLength(Object, Object)},
+     * {@link #keyPrefixLength(Object, PageCursor, int, int)}, {@link #writeKeyPrefix(PageCursor, Object, int)},
+     * {@link #writeKeySuffix(PageCursor, Object, int)} and {@link #readKeySuffix(PageCursor, Object, int, int, int)}.
+     *
+     * @return {@code true} if keys of this layout can have their prefix compressed in leaves, otherwise {@code false}.
+     */
+    default boolean compressKeyPrefix()
+    {
+        return false;
+    }
+
+    /**
+     * Length of the prefix that two keys have in common. Any key that sorts between {@code left} and {@code right}
+     * must share at least the returned prefix too.
+     *
+     * @param left key that is less than or equal to right.
+     * @param right key that is greater than or equal to left.
+     * @return number of leading bytes of the sharable part of the two keys that are equal.
+     */
+    default int keyPrefixLength( KEY left, KEY right )
+    {
+        return 0;
+    }
+
+    /**
+     * Length of the prefix that a key has in common with a prefix written by {@link #writeKeyPrefix(PageCursor, Object, int)}.
+     *
+     * @param key key to compare with the written prefix.
+     * @param cursor {@link PageCursor} to read the written prefix from.
+     * @param prefixOffset offset into {@code cursor} where the written prefix starts.
+     * @param prefixLength length of the written prefix.
+     * @return number of leading bytes, at most {@code prefixLength}, of the sharable part of the key that are equal to the written prefix.
+     */
+    default int keyPrefixLength( KEY key, PageCursor cursor, int prefixOffset, int prefixLength )
+    {
+        return 0;
+    }
+
+    /**
+     * Writes the first {@code prefixLength} bytes of the sharable part of {@code key} into {@code cursor} at its current offset.
+     *
+     * @param cursor {@link PageCursor} to write into, at current offset.
+     * @param key key containing the prefix to write.
+     * @param prefixLength number of bytes to write, at most what {@link #keyPrefixLength(Object, Object)} would return for this key and itself.
+     */
+    default void writeKeyPrefix( PageCursor cursor, KEY key, int prefixLength )
+    {
+        throw new UnsupportedOperationException( "Key prefix compression not supported by " + this );
+    }
+
+    /**
+     * Writes contents of {@code key}, except the first {@code prefixLength} bytes of its sharable part, into {@code cursor} at its current offset.
+     * Exactly {@code keySize( key ) - prefixLength} bytes are written.
+     *
+     * @param cursor {@link PageCursor} to write into, at current offset.
+     * @param key key containing data to write.
+     * @param prefixLength number of bytes of the sharable part to leave out.
+     */
+    default void writeKeySuffix( PageCursor cursor, KEY key, int prefixLength )
+    {
+        throw new UnsupportedOperationException( "Key prefix compression not supported by " + this );
+    }
+
+    /**
+     * Reads key contents written by {@link #writeKeySuffix(PageCursor, Object, int)} at {@code cursor} at its current offset into {@code into}.
+     * The bytes left out when writing it are read from the prefix at {@code prefixOffset} in the same cursor. When done the cursor
+     * is positioned right after the read suffix.
+     *
+     * @param cursor {@link PageCursor} to read from, at current offset.
+     * @param into key instances to read into.
+     * @param suffixSize number of bytes written by {@link #writeKeySuffix(PageCursor, Object, int)}.
+     * @param prefixOffset offset into {@code cursor} where the prefix starts.
+     * @param prefixLength number of bytes that were left out when writing the key.
+     */
+    default void readKeySuffix( PageCursor cursor, KEY into, int suffixSize, int prefixOffset, int prefixLength )
+    {
+        throw new UnsupportedOperationException( "Key prefix compression not supported by " + this );
+    }
+
     /**
      * Used as verification when loading an index after creation, to verify that the same layout is used,
      * as the one it was initially created with.
@@ -165,8 +165,7 @@ public class Meta
         }
 
         Factory formatByLayout = TreeNodeSelector.selectByLayout( layout );
-        if ( formatByLayout.formatIdentifier() != formatIdentifier ||
-             formatByLayout.formatVersion() != formatVersion )
+        if ( !formatByLayout.compatibleWith( formatIdentifier, formatVersion ) )
         {
             throw new MetadataMismatchException( format( "Tried to open using layout not compatible with what index was created with. " +
                     "Created with formatIdentifier:%d,formatVersion:%d. Opened with formatIdentifier:%d,formatVersion%d",
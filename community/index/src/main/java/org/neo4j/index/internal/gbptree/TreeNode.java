@@ -357,6 +357,12 @@ abstract class TreeNode<KEY,VALUE>
 
     abstract boolean leafUnderflow( PageCursor cursor, int keyCount );
 
+    /**
+     * Will leaf underflow if removing key and value at {@code pos}?
+     * @return true if leaf will underflow after the remove, else false.
+     */
+    abstract boolean leafUnderflowAfterRemove( PageCursor cursor, int keyCount, int pos );
+
     /**
      * How do we best rebalance left and right leaf?
      * Can we move keys from underflowing left to right so that none of them underflow?
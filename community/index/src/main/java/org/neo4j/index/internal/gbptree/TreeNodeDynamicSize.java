@@ -27,6 +27,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.StringJoiner;
 
+import org.neo4j.io.pagecache.ByteArrayPageCursor;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.util.VisibleForTesting;
@@ -67,11 +68,24 @@ import static org.neo4j.index.internal.gbptree.TreeNode.Type.LEAF;
  *  0         1     2           6         10            34           58         82           84          86
  *
  * See {@link DynamicSizeUtil} for more detailed layout for individual offset array entries and key / key_value entries.
+ *
+ * In {@link #FORMAT_VERSION_KEY_PREFIX} the header has one more byte, the length of the key prefix (KP) that keys in a leaf have in common.
+ * The key prefix is stored once at the end of the leaf. If it's not empty, every inlined key starts with the number of bytes (P) it shares
+ * with the key prefix, followed by the rest of the key. Offloaded keys and keys in internal nodes are stored in full.
+ *
+ * LEAF
+ * [                                   HEADER   87B                                                              ]|[KEY_OFFSETS]####[KEYS_VALUES][KP]
+ * [NODETYPE][TYPE][GENERATION][KEYCOUNT][RIGHTSIBLING][LEFTSIBLING][SUCCESSOR][ALLOCOFFSET][DEADSPACE][KPLENGTH]|[K0*,K1*,K2*]-> <-[KV0,KV2,KV1][KP]
+ *  0         1     2           6         10            34           58         82           84         86         87
+ *
+ * KEY_VALUE
+ * [keyValueSize][P][key bytes after the first P][value]
  */
 public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
 {
     static final byte FORMAT_IDENTIFIER = 3;
     static final byte FORMAT_VERSION = 0;
+    static final byte FORMAT_VERSION_KEY_PREFIX = 1;
 
     /**
      * Concepts
@@ -92,6 +106,11 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     private static final int BYTE_POS_DEADSPACE = BYTE_POS_ALLOCOFFSET + bytesPageOffset();
     @VisibleForTesting
     static final int HEADER_LENGTH_DYNAMIC = BYTE_POS_DEADSPACE + bytesPageOffset();
+    private static final int BYTE_POS_KEY_PREFIX_LENGTH = HEADER_LENGTH_DYNAMIC;
+    private static final int SIZE_KEY_PREFIX_LENGTH = Byte.BYTES;
+    private static final int MAX_KEY_PREFIX_LENGTH = 0xFF;
+    // Key prefix may take at most this part of total space, to not shrink the inline cap of small pages too much
+    private static final int KEY_PREFIX_SPACE_DIVISOR = 16;
 
     private static final int LEAST_NUMBER_OF_ENTRIES_PER_PAGE = 2;
     private static final int MINIMUM_ENTRY_SIZE_CAP = Long.SIZE;
@@ -102,19 +121,43 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     private final int maxKeyCount = pageSize / (bytesKeyOffset() + SIZE_KEY_SIZE + SIZE_VALUE_SIZE);
     private final int[] oldOffset = new int[maxKeyCount];
     private final int[] newOffset = new int[maxKeyCount];
+    private final boolean compressKeyPrefix;
+    private final int headerLength;
     private final int totalSpace;
     private final int halfSpace;
+    private final int maxKeyPrefixLength;
     private final KEY tmpKeyLeft;
     private final KEY tmpKeyRight;
     private final OffloadStore<KEY,VALUE> offloadStore;
+    // Only used when compressing key prefix, for re-encoding entries moving between leaves with different key prefix
+    private final KEY tmpKey;
+    private final VALUE tmpValue;
+    private final byte[] scratchPage;
+    private final PageCursor scratchCursor;
+    // Result of the last sizeRebuiltLeaf call, space that the entries take together with each of the key prefixes a rebuilt leaf can get
+    private int rangeKeyPrefixLength;
+    private int spaceWithSourceKeyPrefix;
+    private int spaceWithRangeKeyPrefix;
+    private int spaceWithoutKeyPrefix;
 
     TreeNodeDynamicSize( int pageSize, Layout<KEY,VALUE> layout, OffloadStore<KEY,VALUE> offloadStore )
+    {
+        this( pageSize, layout, offloadStore, false );
+    }
+
+    TreeNodeDynamicSize( int pageSize, Layout<KEY,VALUE> layout, OffloadStore<KEY,VALUE> offloadStore, boolean compressKeyPrefix )
     {
         super( pageSize, layout );
         this.offloadStore = offloadStore;
-        totalSpace = pageSize - HEADER_LENGTH_DYNAMIC;
+        this.compressKeyPrefix = compressKeyPrefix;
+        headerLength = compressKeyPrefix ? HEADER_LENGTH_DYNAMIC + SIZE_KEY_PREFIX_LENGTH : HEADER_LENGTH_DYNAMIC;
+        totalSpace = pageSize - headerLength;
         halfSpace = totalSpace / 2;
-        inlineKeyValueSizeCap = inlineKeyValueSizeCap( pageSize );
+        maxKeyPrefixLength = compressKeyPrefix ? Math.min( MAX_KEY_PREFIX_LENGTH, totalSpace / KEY_PREFIX_SPACE_DIVISOR ) : 0;
+        // With compressed key prefix two entries, each one byte larger for the shared prefix length, must fit together with the largest key prefix
+        inlineKeyValueSizeCap = compressKeyPrefix
+                                ? (totalSpace - maxKeyPrefixLength) / LEAST_NUMBER_OF_ENTRIES_PER_PAGE - SIZE_TOTAL_OVERHEAD - SIZE_KEY_PREFIX_LENGTH
+                                : inlineKeyValueSizeCap( pageSize );
         keyValueSizeCap = offloadStore.maxEntrySize();
 
         if ( inlineKeyValueSizeCap < MINIMUM_ENTRY_SIZE_CAP )
@@ -127,6 +170,10 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
 
         tmpKeyLeft = layout.newKey();
         tmpKeyRight = layout.newKey();
+        tmpKey = compressKeyPrefix ? layout.newKey() : null;
+        tmpValue = compressKeyPrefix ? layout.newValue() : null;
+        scratchPage = compressKeyPrefix ? new byte[pageSize] : null;
+        scratchCursor = compressKeyPrefix ? ByteArrayPageCursor.wrap( scratchPage ) : null;
     }
 
     @VisibleForTesting
@@ -146,6 +193,10 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     {
         setAllocOffset( cursor, pageSize );
         setDeadSpace( cursor, 0 );
+        if ( compressKeyPrefix )
+        {
+            setKeyPrefixLength( cursor, 0 );
+        }
     }
 
     @Override
@@ -166,6 +217,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     @Override
     KEY keyAt( PageCursor cursor, KEY into, int pos, Type type, PageCursorTracer cursorTracer )
     {
+        int keyPrefixLength = type == LEAF ? keyPrefixLength( cursor ) : 0;
         placeCursorAtActualKey( cursor, pos, type );
 
         // Read key
@@ -193,7 +245,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
                 readUnreliableKeyValueSize( cursor, keySize, valueSize, keyValueSize, pos );
                 return into;
             }
-            layout.readKey( cursor, into, keySize );
+            readInlineKey( cursor, into, keySize, keyPrefixLength, pos );
         }
         return into;
     }
@@ -201,6 +253,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     @Override
     void keyValueAt( PageCursor cursor, KEY intoKey, VALUE intoValue, int pos, PageCursorTracer cursorTracer )
     {
+        int keyPrefixLength = keyPrefixLength( cursor );
         placeCursorAtActualKey( cursor, pos, LEAF );
 
         long keyValueSize = readKeyValueSize( cursor, true );
@@ -226,11 +279,47 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
                 readUnreliableKeyValueSize( cursor, keySize, valueSize, keyValueSize, pos );
                 return;
             }
-            layout.readKey( cursor, intoKey, keySize );
-            layout.readValue( cursor, intoValue, valueSize );
+            if ( readInlineKey( cursor, intoKey, keySize, keyPrefixLength, pos ) )
+            {
+                layout.readValue( cursor, intoValue, valueSize );
+            }
         }
     }
 
+    /**
+     * Reads an inlined key, at the current offset of the cursor, directly after its key value size.
+     *
+     * @param keySize size of the key as written in the node, see {@link #inlineKeySize(int, int, int)}.
+     * @param keyPrefixLength length of the key prefix of the node, only leaves can have one.
+     * @return {@code true} if the key was read, otherwise {@code false} and a cursor exception has been set.
+     */
+    private boolean readInlineKey( PageCursor cursor, KEY into, int keySize, int keyPrefixLength, int pos )
+    {
+        if ( keyPrefixLength == 0 )
+        {
+            layout.readKey( cursor, into, keySize );
+            return true;
+        }
+
+        int sharedPrefixLength = cursor.getByte() & 0xFF;
+        if ( sharedPrefixLength > keyPrefixLength || keySize < SIZE_KEY_PREFIX_LENGTH )
+        {
+            cursor.setCursorException( format( "Read unreliable key prefix, id=%d, keySize=%d, sharedPrefixLength=%d, keyPrefixLength=%d, pos=%d",
+                    cursor.getCurrentPageId(), keySize, sharedPrefixLength, keyPrefixLength, pos ) );
+            return false;
+        }
+        int suffixSize = keySize - SIZE_KEY_PREFIX_LENGTH;
+        if ( sharedPrefixLength == 0 )
+        {
+            layout.readKey( cursor, into, suffixSize );
+        }
+        else
+        {
+            layout.readKeySuffix( cursor, into, suffixSize, pageSize - keyPrefixLength, sharedPrefixLength );
+        }
+        return true;
+    }
+
     @Override
     void insertKeyAndRightChildAt( PageCursor cursor, KEY key, long child, int pos, int keyCount, long stableGeneration,
             long unstableGeneration, PageCursorTracer cursorTracer ) throws IOException
@@ -272,24 +361,36 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     void insertKeyValueAt( PageCursor cursor, KEY key, VALUE value, int pos, int keyCount, long stableGeneration, long unstableGeneration,
             PageCursorTracer cursorTracer ) throws IOException
     {
-        // Where to write key?
-        int currentKeyValueOffset = getAllocOffset( cursor );
+        // Write key and value
+        int newKeyValueOffset = writeKeyValue( cursor, getAllocOffset( cursor ), key, value, stableGeneration, unstableGeneration, cursorTracer );
+
+        // Update alloc space
+        setAllocOffset( cursor, newKeyValueOffset );
+
+        // Write to offset array
+        insertSlotsAt( cursor, pos, 1, keyCount, keyPosOffsetLeaf( 0 ), bytesKeyOffset() );
+        cursor.setOffset( keyPosOffsetLeaf( pos ) );
+        putKeyOffset( cursor, newKeyValueOffset );
+    }
+
+    /**
+     * Write key and value to leaf, right before given alloc offset, inlined or offloaded depending on size.
+     * Doesn't update alloc offset or offset array.
+     * @return offset of the written key and value, i.e. new alloc offset.
+     */
+    private int writeKeyValue( PageCursor cursor, int allocOffset, KEY key, VALUE value, long stableGeneration, long unstableGeneration,
+            PageCursorTracer cursorTracer ) throws IOException
+    {
         int keySize = layout.keySize( key );
         int valueSize = layout.valueSize( value );
         int newKeyValueOffset;
         if ( canInline( keySize + valueSize ) )
         {
-            newKeyValueOffset = currentKeyValueOffset - keySize - valueSize - getOverhead( keySize, valueSize, false );
-
-            // Write key and value
-            cursor.setOffset( newKeyValueOffset );
-            putKeyValueSize( cursor, keySize, valueSize, false );
-            layout.writeKey( cursor, key );
-            layout.writeValue( cursor, value );
+            newKeyValueOffset = writeInlineKeyValue( cursor, allocOffset, key, value, keySize, valueSize );
         }
         else
         {
-            newKeyValueOffset = currentKeyValueOffset - getOverhead( keySize, valueSize, true );
+            newKeyValueOffset = allocOffset - getOverhead( keySize, valueSize, true );
 
             // Write
             cursor.setOffset( newKeyValueOffset );
@@ -297,14 +398,57 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
             long offloadId = offloadStore.writeKeyValue( key, value, stableGeneration, unstableGeneration, cursorTracer );
             DynamicSizeUtil.putOffloadId( cursor, offloadId );
         }
+        return newKeyValueOffset;
+    }
 
-        // Update alloc space
-        setAllocOffset( cursor, newKeyValueOffset );
+    private int writeInlineKeyValue( PageCursor cursor, int allocOffset, KEY key, VALUE value, int keySize, int valueSize )
+    {
+        int keyPrefixLength = keyPrefixLength( cursor );
+        int sharedPrefixLength = sharedKeyPrefixLength( cursor, keyPrefixLength, key );
+        int inlineKeySize = inlineKeySize( keySize, keyPrefixLength, sharedPrefixLength );
+        int newKeyValueOffset = allocOffset - inlineKeySize - valueSize - getOverhead( inlineKeySize, valueSize, false );
 
-        // Write to offset array
-        insertSlotsAt( cursor, pos, 1, keyCount, keyPosOffsetLeaf( 0 ), bytesKeyOffset() );
-        cursor.setOffset( keyPosOffsetLeaf( pos ) );
-        putKeyOffset( cursor, newKeyValueOffset );
+        // Write key and value
+        cursor.setOffset( newKeyValueOffset );
+        putKeyValueSize( cursor, inlineKeySize, valueSize, false );
+        writeInlineKey( cursor, key, keyPrefixLength, sharedPrefixLength );
+        layout.writeValue( cursor, value );
+        return newKeyValueOffset;
+    }
+
+    private void writeInlineKey( PageCursor cursor, KEY key, int keyPrefixLength, int sharedPrefixLength )
+    {
+        if ( keyPrefixLength == 0 )
+        {
+            layout.writeKey( cursor, key );
+            return;
+        }
+
+        cursor.putByte( (byte) sharedPrefixLength );
+        if ( sharedPrefixLength == 0 )
+        {
+            layout.writeKey( cursor, key );
+        }
+        else
+        {
+            layout.writeKeySuffix( cursor, key, sharedPrefixLength );
+        }
+    }
+
+    /**
+     * @return size of key as written inline in a leaf with the given key prefix length, when sharing the given number of bytes with it.
+     */
+    private static int inlineKeySize( int keySize, int keyPrefixLength, int sharedPrefixLength )
+    {
+        return keyPrefixLength == 0 ? keySize : SIZE_KEY_PREFIX_LENGTH + keySize - sharedPrefixLength;
+    }
+
+    /**
+     * @return number of bytes that the key has in common with the key prefix of the leaf.
+     */
+    private int sharedKeyPrefixLength( PageCursor cursor, int keyPrefixLength, KEY key )
+    {
+        return keyPrefixLength == 0 ? 0 : layout.keyPrefixLength( key, cursor, pageSize - keyPrefixLength, keyPrefixLength );
     }
 
     @Override
@@ -558,17 +702,92 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         int allocSpace = getAllocSpace( cursor, currentKeyCount, LEAF );
 
         // How much space do we need?
-        int neededSpace = totalSpaceOfKeyValue( newKey, newValue );
+        int neededSpace = totalSpaceOfKeyValue( cursor, newKey, newValue );
 
         // There is your answer!
-        return neededSpace <= allocSpace ? Overflow.NO :
-               neededSpace <= allocSpace + deadSpace ? Overflow.NO_NEED_DEFRAG : Overflow.YES;
+        if ( neededSpace <= allocSpace )
+        {
+            return Overflow.NO;
+        }
+        if ( sizeRebuiltLeafInPlace( cursor, currentKeyCount ) )
+        {
+            // Defragmenting gives the leaf the key prefix that its keys have in common, which may make room for the new entry without a split
+            return spaceOfRebuiltLeaf() + spaceOfKeyValueInRebuiltLeaf( newKey, newValue ) <= totalSpace ? Overflow.NO_NEED_DEFRAG : Overflow.YES;
+        }
+        return neededSpace <= allocSpace + deadSpace ? Overflow.NO_NEED_DEFRAG : Overflow.YES;
     }
 
+    /**
+     * Also gives a leaf with compressed key prefix the key prefix that takes least space, see {@link #leafOverflow(PageCursor, int, Object, Object)}.
+     * Moves between leaves, which are planned with the key prefixes that the leaves have, defragment without changing key prefix.
+     */
     @Override
     void defragmentLeaf( PageCursor cursor )
     {
-        doDefragment( cursor, LEAF );
+        int keyCount = TreeNode.keyCount( cursor );
+        if ( sizeRebuiltLeafInPlace( cursor, keyCount ) )
+        {
+            // Rebuilding the leaf with the key prefix that takes least space also leaves no dead space behind
+            cursor.setOffset( 0 );
+            cursor.getBytes( scratchPage );
+            try
+            {
+                // No new entry is written, so nothing is offloaded
+                rebuildLeaf( cursor, 0, keyCount, keyCount, null, null, 0, 0, PageCursorTracer.NULL );
+                scratchCursor.checkAndClearCursorException();
+            }
+            catch ( IOException e )
+            {
+                cursor.setCursorException( "Failed to rebuild leaf with new key prefix, cause: " + e.getMessage() );
+            }
+        }
+        else
+        {
+            doDefragment( cursor, LEAF );
+        }
+    }
+
+    /**
+     * {@link #sizeRebuiltLeaf(PageCursor, int, int, int, Object, Object, PageCursorTracer) Sizes} all entries in a leaf, unless its first or last key
+     * is offloaded, since their key prefix is only known after reading them from the offload store.
+     *
+     * @return {@code true} if rebuilding the leaf with another key prefix than its current one makes its entries take less space.
+     */
+    private boolean sizeRebuiltLeafInPlace( PageCursor cursor, int keyCount )
+    {
+        if ( !compressKeyPrefix || keyCount < 2 || isOffloaded( cursor, 0 ) || isOffloaded( cursor, keyCount - 1 ) )
+        {
+            return false;
+        }
+        sizeRebuiltLeaf( cursor, 0, keyCount, keyCount, null, null, PageCursorTracer.NULL );
+        return spaceWithSourceKeyPrefix > Math.min( spaceWithRangeKeyPrefix, spaceWithoutKeyPrefix );
+    }
+
+    /**
+     * @return space that key and value would take if inserted into a leaf rebuilt from the entries last
+     * {@link #sizeRebuiltLeaf(PageCursor, int, int, int, Object, Object, PageCursorTracer) sized} in place, with another key prefix than before.
+     */
+    private int spaceOfKeyValueInRebuiltLeaf( KEY key, VALUE value )
+    {
+        int keySize = layout.keySize( key );
+        int valueSize = layout.valueSize( value );
+        if ( !canInline( keySize + valueSize ) )
+        {
+            return bytesKeyOffset() + getOverhead( keySize, valueSize, true );
+        }
+        if ( spaceWithRangeKeyPrefix >= spaceWithoutKeyPrefix )
+        {
+            return totalSpaceOfInlineKeyValue( keySize, valueSize );
+        }
+        // The range key prefix is that of the first key, which sizing left in tmpKeyLeft
+        int sharedPrefixLength = Math.min( layout.keyPrefixLength( tmpKeyLeft, key ), rangeKeyPrefixLength );
+        return totalSpaceOfInlineKeyValue( inlineKeySize( keySize, rangeKeyPrefixLength, sharedPrefixLength ), valueSize );
+    }
+
+    private boolean isOffloaded( PageCursor cursor, int pos )
+    {
+        placeCursorAtActualKey( cursor, pos, LEAF );
+        return extractOffload( readKeyValueSize( cursor, true ) );
     }
 
     @Override
@@ -631,7 +850,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         int oldOffsetCursor = 0;
         int newOffsetCursor = 0;
 
-        int aliveRangeOffset = pageSize; // Everything after this point is alive
+        int aliveRangeOffset = heapEnd( cursor ); // Everything after this point is alive
         int deadRangeOffset; // Everything between this point and aliveRangeOffset is dead space
 
         // Rightmost alive keys does not need to move
@@ -736,13 +955,32 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         return availableSpace > halfSpace;
     }
 
+    @Override
+    boolean leafUnderflowAfterRemove( PageCursor cursor, int keyCount, int pos )
+    {
+        placeCursorAtActualKey( cursor, pos, LEAF );
+        long keyValueSize = readKeyValueSize( cursor, true );
+        boolean offload = DynamicSizeUtil.extractOffload( keyValueSize );
+        int keySize = extractKeySize( keyValueSize );
+        int valueSize = extractValueSize( keyValueSize );
+
+        // Same space as freed by removeKeyValueAt, i.e. the key and value becoming dead space and the slot in the offset array
+        int removedSpace = keySize + valueSize + getOverhead( keySize, valueSize, offload ) + bytesKeyOffset();
+        int availableSpace = getAllocSpace( cursor, keyCount, LEAF ) + getDeadSpace( cursor ) + removedSpace;
+        return availableSpace > halfSpace;
+    }
+
     @Override
     int canRebalanceLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
     {
         int leftActiveSpace = totalActiveSpace( leftCursor, leftKeyCount, LEAF );
         int rightActiveSpace = totalActiveSpace( rightCursor, rightKeyCount, LEAF );
+        int leftKeyPrefixLength = keyPrefixLength( leftCursor );
+        int rightKeyPrefixLength = keyPrefixLength( rightCursor );
+        int commonKeyPrefixLength = commonKeyPrefixLength( leftCursor, leftKeyPrefixLength, rightCursor, rightKeyPrefixLength );
 
-        if ( leftActiveSpace + rightActiveSpace < totalSpace )
+        int leftSpaceMovedToRight = totalSpaceOfKeyValuesMovedTo( leftCursor, leftKeyCount, leftKeyPrefixLength, rightKeyPrefixLength, commonKeyPrefixLength );
+        if ( leftSpaceMovedToRight + rightActiveSpace < totalSpace )
         {
             // We can merge
             return -1;
@@ -757,12 +995,15 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         int currentDelta = Math.abs( leftActiveSpace - rightActiveSpace );
         int keysToMove = 0;
         int lastChunkSize;
+        int lastMovedChunkSize;
         do
         {
             keysToMove++;
-            lastChunkSize = totalSpaceOfKeyValue( leftCursor, leftKeyCount - keysToMove );
+            int pos = leftKeyCount - keysToMove;
+            lastChunkSize = totalSpaceOfKeyValue( leftCursor, pos );
+            lastMovedChunkSize = totalSpaceOfKeyValueMovedTo( leftCursor, pos, leftKeyPrefixLength, rightKeyPrefixLength, commonKeyPrefixLength );
             leftActiveSpace -= lastChunkSize;
-            rightActiveSpace += lastChunkSize;
+            rightActiveSpace += lastMovedChunkSize;
 
             prevDelta = currentDelta;
             currentDelta = Math.abs( leftActiveSpace - rightActiveSpace );
@@ -770,7 +1011,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         while ( currentDelta < prevDelta );
         keysToMove--; // Move back to optimal split
         leftActiveSpace += lastChunkSize;
-        rightActiveSpace -= lastChunkSize;
+        rightActiveSpace -= lastMovedChunkSize;
 
         int halfSpace = this.halfSpace;
         boolean canRebalance = leftActiveSpace > halfSpace && rightActiveSpace > halfSpace;
@@ -780,10 +1021,13 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     @Override
     boolean canMergeLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
     {
-        int leftActiveSpace = totalActiveSpace( leftCursor, leftKeyCount, LEAF );
         int rightActiveSpace = totalActiveSpace( rightCursor, rightKeyCount, LEAF );
+        int leftKeyPrefixLength = keyPrefixLength( leftCursor );
+        int rightKeyPrefixLength = keyPrefixLength( rightCursor );
+        int commonKeyPrefixLength = commonKeyPrefixLength( leftCursor, leftKeyPrefixLength, rightCursor, rightKeyPrefixLength );
+        int leftSpaceMovedToRight = totalSpaceOfKeyValuesMovedTo( leftCursor, leftKeyCount, leftKeyPrefixLength, rightKeyPrefixLength, commonKeyPrefixLength );
         int totalSpace = this.totalSpace;
-        return totalSpace >= leftActiveSpace + rightActiveSpace;
+        return totalSpace >= leftSpaceMovedToRight + rightActiveSpace;
     }
 
     @Override
@@ -794,6 +1038,13 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         // Find split position
         int keyCountAfterInsert = leftKeyCount + 1;
         int splitPos = splitPosInLeaf( leftCursor, insertPos, newKey, newValue, keyCountAfterInsert, ratioToKeepInLeftOnSplit );
+        if ( compressKeyPrefix )
+        {
+            // Both leaves are rebuilt from a copy of the left leaf, each with the key prefix that suits its own keys
+            leftCursor.setOffset( 0 );
+            leftCursor.getBytes( scratchPage );
+            splitPos = splitPosOfRebuiltLeaves( splitPos, insertPos, newKey, newValue, keyCountAfterInsert, ratioToKeepInLeftOnSplit, cursorTracer );
+        }
 
         KEY leftInSplit;
         KEY rightInSplit;
@@ -822,14 +1073,20 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
 
         int rightKeyCount = keyCountAfterInsert - splitPos;
 
-        if ( insertPos < splitPos )
+        if ( compressKeyPrefix )
+        {
+            rebuildLeaf( leftCursor, 0, splitPos, insertPos, newKey, newValue, stableGeneration, unstableGeneration, cursorTracer );
+            rebuildLeaf( rightCursor, splitPos, keyCountAfterInsert, insertPos, newKey, newValue, stableGeneration, unstableGeneration, cursorTracer );
+            scratchCursor.checkAndClearCursorException();
+        }
+        else if ( insertPos < splitPos )
         {
             //                v---------v       copy
             // before _,_,_,_,_,_,_,_,_,_
             // insert _,_,_,X,_,_,_,_,_,_,_
             // split            ^
             moveKeysAndValues( leftCursor, splitPos - 1, rightCursor, 0, rightKeyCount );
-            defragmentLeaf( leftCursor );
+            doDefragment( leftCursor, LEAF );
             insertKeyValueAt( leftCursor, newKey, newValue, insertPos, splitPos - 1, stableGeneration, unstableGeneration, cursorTracer );
         }
         else
@@ -844,13 +1101,186 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
             int newInsertPos = insertPos - splitPos;
             int keysToMove = leftKeyCount - splitPos;
             moveKeysAndValues( leftCursor, splitPos, rightCursor, 0, keysToMove );
-            defragmentLeaf( leftCursor );
+            doDefragment( leftCursor, LEAF );
             insertKeyValueAt( rightCursor, newKey, newValue, newInsertPos, keysToMove, stableGeneration, unstableGeneration, cursorTracer );
         }
         TreeNode.setKeyCount( leftCursor, splitPos );
         TreeNode.setKeyCount( rightCursor, rightKeyCount );
     }
 
+    /**
+     * Rebuilds a leaf from the copy of a leaf in {@link #scratchCursor}, with {@code newKey} and {@code newValue} inserted at {@code insertPos}.
+     * Entries in range [fromPos, toPos), positions counted as if the new entry was inserted, are written to the leaf. The leaf gets
+     * the key prefix which makes those entries take least space of: the key prefix of the copied leaf, the prefix that the keys in the range
+     * have in common or no key prefix at all. Keeping the key prefix of the copied leaf always fit, if the range was selected by
+     * {@link #splitPosInLeaf(PageCursor, int, Object, Object, int, double)}, and the others are only selected if they need less space than that.
+     * A range selected by {@link #splitPosOfRebuiltLeaves(int, int, Object, Object, int, double, PageCursorTracer)} fits with the selected key prefix.
+     * Does NOT update key count.
+     */
+    private void rebuildLeaf( PageCursor cursor, int fromPos, int toPos, int insertPos, KEY newKey, VALUE newValue, long stableGeneration,
+            long unstableGeneration, PageCursorTracer cursorTracer ) throws IOException
+    {
+        PageCursor source = scratchCursor;
+        int sourceKeyPrefixLength = keyPrefixLength( source );
+        sizeRebuiltLeaf( source, fromPos, toPos, insertPos, newKey, newValue, cursorTracer );
+        KEY firstKey = keyAfterInsert( source, fromPos, insertPos, newKey, tmpKeyLeft, cursorTracer );
+
+        // Clear the leaf and write the selected key prefix
+        boolean keepSourceKeyPrefix = spaceWithSourceKeyPrefix <= Math.min( spaceWithRangeKeyPrefix, spaceWithoutKeyPrefix );
+        int keyPrefixLength = keepSourceKeyPrefix ? sourceKeyPrefixLength : spaceWithRangeKeyPrefix < spaceWithoutKeyPrefix ? rangeKeyPrefixLength : 0;
+        int allocOffset = pageSize - keyPrefixLength;
+        zeroPad( cursor, headerLength, totalSpace );
+        setDeadSpace( cursor, 0 );
+        setKeyPrefixLength( cursor, keyPrefixLength );
+        cursor.setOffset( allocOffset );
+        if ( keepSourceKeyPrefix )
+        {
+            cursor.putBytes( scratchPage, allocOffset, keyPrefixLength );
+        }
+        else if ( keyPrefixLength > 0 )
+        {
+            layout.writeKeyPrefix( cursor, firstKey, keyPrefixLength );
+        }
+
+        // Write entries
+        int commonKeyPrefixLength = commonKeyPrefixLength( source, sourceKeyPrefixLength, cursor, keyPrefixLength );
+        for ( int pos = fromPos; pos < toPos; pos++ )
+        {
+            if ( pos == insertPos )
+            {
+                allocOffset = writeKeyValue( cursor, allocOffset, newKey, newValue, stableGeneration, unstableGeneration, cursorTracer );
+            }
+            else
+            {
+                int sourcePos = pos < insertPos ? pos : pos - 1;
+                allocOffset = transferKeyValue( source, sourcePos, cursor, allocOffset, sourceKeyPrefixLength, keyPrefixLength, commonKeyPrefixLength );
+            }
+            cursor.setOffset( keyPosOffsetLeaf( pos - fromPos ) );
+            putKeyOffset( cursor, allocOffset );
+        }
+        if ( allocOffset < keyPosOffsetLeaf( toPos - fromPos ) )
+        {
+            throw new IllegalStateException( format( "Keys in leaf did not share the key prefix that the first and last key have in common, " +
+                    "as required by %s. Key prefix length:%d", layout, keyPrefixLength ) );
+        }
+        setAllocOffset( cursor, allocOffset );
+    }
+
+    /**
+     * Sizes the entries in range [fromPos, toPos) of the copy of a leaf in {@link #scratchCursor}, positions counted as if {@code newKey} and
+     * {@code newValue} was inserted at {@code insertPos}, with each of the key prefixes that {@link #rebuildLeaf(PageCursor, int, int, int, Object,
+     * Object, long, long, PageCursorTracer) rebuildLeaf} can give a leaf with those entries. The result is left in {@link #rangeKeyPrefixLength},
+     * {@link #spaceWithSourceKeyPrefix}, {@link #spaceWithRangeKeyPrefix} and {@link #spaceWithoutKeyPrefix}.
+     */
+    private void sizeRebuiltLeaf( PageCursor source, int fromPos, int toPos, int insertPos, KEY newKey, VALUE newValue, PageCursorTracer cursorTracer )
+    {
+        int sourceKeyPrefixLength = keyPrefixLength( source );
+
+        // Any key sorting between the first and last key shares the prefix that those two have in common
+        KEY firstKey = keyAfterInsert( source, fromPos, insertPos, newKey, tmpKeyLeft, cursorTracer );
+        KEY lastKey = keyAfterInsert( source, toPos - 1, insertPos, newKey, tmpKeyRight, cursorTracer );
+        rangeKeyPrefixLength = toPos - fromPos > 1 ? Math.min( layout.keyPrefixLength( firstKey, lastKey ), maxKeyPrefixLength ) : 0;
+
+        spaceWithSourceKeyPrefix = sourceKeyPrefixLength;
+        spaceWithRangeKeyPrefix = rangeKeyPrefixLength;
+        spaceWithoutKeyPrefix = 0;
+        for ( int pos = fromPos; pos < toPos; pos++ )
+        {
+            int space;
+            int keySize;
+            int valueSize;
+            boolean offload;
+            if ( pos == insertPos )
+            {
+                space = totalSpaceOfKeyValue( source, newKey, newValue );
+                keySize = layout.keySize( newKey );
+                valueSize = layout.valueSize( newValue );
+                offload = !canInline( keySize + valueSize );
+            }
+            else
+            {
+                int sourcePos = pos < insertPos ? pos : pos - 1;
+                space = totalSpaceOfKeyValue( source, sourcePos );
+                placeCursorAtActualKey( source, sourcePos, LEAF );
+                long keyValueSize = readKeyValueSize( source, true );
+                keySize = extractKeySize( keyValueSize );
+                valueSize = extractValueSize( keyValueSize );
+                offload = extractOffload( keyValueSize );
+                if ( !offload && sourceKeyPrefixLength > 0 )
+                {
+                    keySize += (source.getByte() & 0xFF) - SIZE_KEY_PREFIX_LENGTH;
+                }
+            }
+            spaceWithSourceKeyPrefix += space;
+            int rangeInlineKeySize = inlineKeySize( keySize, rangeKeyPrefixLength, rangeKeyPrefixLength );
+            spaceWithRangeKeyPrefix += offload ? space : totalSpaceOfInlineKeyValue( rangeInlineKeySize, valueSize );
+            spaceWithoutKeyPrefix += offload ? space : totalSpaceOfInlineKeyValue( keySize, valueSize );
+        }
+    }
+
+    /**
+     * @return space that a leaf rebuilt from the entries last
+     * {@link #sizeRebuiltLeaf(PageCursor, int, int, int, Object, Object, PageCursorTracer) sized} takes.
+     */
+    private int spaceOfRebuiltLeaf()
+    {
+        return Math.min( spaceWithSourceKeyPrefix, Math.min( spaceWithRangeKeyPrefix, spaceWithoutKeyPrefix ) );
+    }
+
+    /**
+     * {@link #splitPosInLeaf(PageCursor, int, Object, Object, int, double)} selects the split position from the space that entries take with the
+     * key prefix of the split leaf, which may neither match the space they take in the rebuilt leaves, nor keep both of them from
+     * {@link #leafUnderflow(PageCursor, int) underflowing}. While a rebuilt leaf would underflow, entries are moved to it from the other leaf
+     * as long as that one doesn't underflow, so that the leaves aren't rebalanced or merged again by the next change in them.
+     * A split which keeps nothing or everything in the left leaf only has its leaves kept from underflowing because of getting
+     * a longer key prefix.
+     *
+     * @return the split position, moved so that neither rebuilt leaf underflows, if possible.
+     */
+    private int splitPosOfRebuiltLeaves( int splitPos, int insertPos, KEY newKey, VALUE newValue, int keyCountAfterInsert,
+            double ratioToKeepInLeftOnSplit, PageCursorTracer cursorTracer )
+    {
+        int minSpace = totalSpace - halfSpace;
+        boolean keepSomeInEachLeaf = ratioToKeepInLeftOnSplit > 0 && ratioToKeepInLeftOnSplit < 1;
+        while ( true )
+        {
+            sizeRebuiltLeaf( scratchCursor, 0, splitPos, insertPos, newKey, newValue, cursorTracer );
+            boolean leftUnderflows = spaceOfRebuiltLeaf() < minSpace && (keepSomeInEachLeaf || spaceWithSourceKeyPrefix >= minSpace);
+            sizeRebuiltLeaf( scratchCursor, splitPos, keyCountAfterInsert, insertPos, newKey, newValue, cursorTracer );
+            boolean rightUnderflows = spaceOfRebuiltLeaf() < minSpace && (keepSomeInEachLeaf || spaceWithSourceKeyPrefix >= minSpace);
+
+            int candidateSplitPos;
+            if ( leftUnderflows && splitPos < keyCountAfterInsert - 1 )
+            {
+                candidateSplitPos = splitPos + 1;
+            }
+            else if ( rightUnderflows && splitPos > 1 )
+            {
+                candidateSplitPos = splitPos - 1;
+            }
+            else
+            {
+                return splitPos;
+            }
+
+            sizeRebuiltLeaf( scratchCursor, 0, candidateSplitPos, insertPos, newKey, newValue, cursorTracer );
+            int leftSpace = spaceOfRebuiltLeaf();
+            sizeRebuiltLeaf( scratchCursor, candidateSplitPos, keyCountAfterInsert, insertPos, newKey, newValue, cursorTracer );
+            int rightSpace = spaceOfRebuiltLeaf();
+            int givingLeafSpace = candidateSplitPos > splitPos ? rightSpace : leftSpace;
+            if ( leftSpace > totalSpace || rightSpace > totalSpace || givingLeafSpace < minSpace )
+            {
+                return splitPos;
+            }
+            splitPos = candidateSplitPos;
+        }
+    }
+
+    private KEY keyAfterInsert( PageCursor source, int pos, int insertPos, KEY newKey, KEY into, PageCursorTracer cursorTracer )
+    {
+        return pos == insertPos ? newKey : keyAt( source, into, pos < insertPos ? pos : pos - 1, LEAF, cursorTracer );
+    }
+
     @Override
     void doSplitInternal( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int insertPos, KEY newKey,
             long newRightChild, long stableGeneration, long unstableGeneration, KEY newSplitter, double ratioToKeepInLeftOnSplit,
@@ -933,7 +1363,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     void moveKeyValuesFromLeftToRight( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount,
             int fromPosInLeftNode )
     {
-        defragmentLeaf( rightCursor );
+        doDefragment( rightCursor, LEAF );
         int numberOfKeysToMove = leftKeyCount - fromPosInLeftNode;
 
         // Push keys and values in right sibling to the right
@@ -949,55 +1379,37 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     // NOTE: Does update keyCount
     private void moveKeysAndValues( PageCursor fromCursor, int fromPos, PageCursor toCursor, int toPos, int count )
     {
-        int firstAllocOffset = getAllocOffset( toCursor );
-        int toAllocOffset = firstAllocOffset;
+        int fromKeyPrefixLength = keyPrefixLength( fromCursor );
+        int toKeyPrefixLength = keyPrefixLength( toCursor );
+        int commonKeyPrefixLength = commonKeyPrefixLength( fromCursor, fromKeyPrefixLength, toCursor, toKeyPrefixLength );
+        int toAllocOffset = getAllocOffset( toCursor );
+        int totalMovedBytes = 0;
         for ( int i = 0; i < count; i++, toPos++ )
         {
-            toAllocOffset = moveRawKeyValue( fromCursor, fromPos + i, toCursor, toAllocOffset );
+            totalMovedBytes += totalSpaceOfKeyValue( fromCursor, fromPos + i ) - bytesKeyOffset();
+            toAllocOffset = transferKeyValue( fromCursor, fromPos + i, toCursor, toAllocOffset, fromKeyPrefixLength, toKeyPrefixLength,
+                    commonKeyPrefixLength );
             toCursor.setOffset( keyPosOffsetLeaf( toPos ) );
             putKeyOffset( toCursor, toAllocOffset );
+
+            // Put tombstone
+            placeCursorAtActualKey( fromCursor, fromPos + i, LEAF );
+            putTombstone( fromCursor );
         }
         setAllocOffset( toCursor, toAllocOffset );
 
         // Update deadspace
         int deadSpace = getDeadSpace( fromCursor );
-        int totalMovedBytes = firstAllocOffset - toAllocOffset;
         setDeadSpace( fromCursor, deadSpace + totalMovedBytes );
 
         // Key count
         setKeyCount( fromCursor, fromPos );
     }
 
-    /**
-     * Transfer key and value from logical position in 'from' to physical position next to current alloc offset in 'to'.
-     * Mark transferred key as dead.
-     * @return new alloc offset in 'to'
-     */
-    private int moveRawKeyValue( PageCursor fromCursor, int fromPos, PageCursor toCursor, int toAllocOffset )
-    {
-        // What to copy?
-        placeCursorAtActualKey( fromCursor, fromPos, LEAF );
-        int fromKeyOffset = fromCursor.getOffset();
-        long keyValueSize = readKeyValueSize( fromCursor, true );
-        int keySize = extractKeySize( keyValueSize );
-        int valueSize = extractValueSize( keyValueSize );
-        boolean offload = extractOffload( keyValueSize );
-
-        // Copy
-        int toCopy = getOverhead( keySize, valueSize, offload ) + keySize + valueSize;
-        int newRightAllocSpace = toAllocOffset - toCopy;
-        fromCursor.copyTo( fromKeyOffset, toCursor, newRightAllocSpace, toCopy );
-
-        // Put tombstone
-        fromCursor.setOffset( fromKeyOffset );
-        putTombstone( fromCursor );
-        return newRightAllocSpace;
-    }
-
     @Override
     void copyKeyValuesFromLeftToRight( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
     {
-        defragmentLeaf( rightCursor );
+        doDefragment( rightCursor, LEAF );
 
         // Push keys and values in right sibling to the right
         insertSlotsAt( rightCursor, 0, leftKeyCount, rightKeyCount, keyPosOffsetLeaf( 0 ), bytesKeyOffset() );
@@ -1011,10 +1423,14 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
 
     private void copyKeysAndValues( PageCursor fromCursor, int fromPos, PageCursor toCursor, int toPos, int count )
     {
+        int fromKeyPrefixLength = keyPrefixLength( fromCursor );
+        int toKeyPrefixLength = keyPrefixLength( toCursor );
+        int commonKeyPrefixLength = commonKeyPrefixLength( fromCursor, fromKeyPrefixLength, toCursor, toKeyPrefixLength );
         int toAllocOffset = getAllocOffset( toCursor );
         for ( int i = 0; i < count; i++, toPos++ )
         {
-            toAllocOffset = copyRawKeyValue( fromCursor, fromPos + i, toCursor, toAllocOffset );
+            toAllocOffset = transferKeyValue( fromCursor, fromPos + i, toCursor, toAllocOffset, fromKeyPrefixLength, toKeyPrefixLength,
+                    commonKeyPrefixLength );
             toCursor.setOffset( keyPosOffsetLeaf( toPos ) );
             putKeyOffset( toCursor, toAllocOffset );
         }
@@ -1022,11 +1438,14 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     }
 
     /**
-     * Copy key and value from logical position in 'from' tp physical position next to current alloc offset in 'to'.
+     * Copy key and value from logical position in 'from' to physical position next to current alloc offset in 'to'.
+     * The entry is copied as is, unless its key shares a different part of the key prefix in 'from' than of the one in 'to',
+     * then it's written anew.
      * Does NOT mark transferred key as dead.
      * @return new alloc offset in 'to'
      */
-    private int copyRawKeyValue( PageCursor fromCursor, int fromPos, PageCursor toCursor, int toAllocOffset )
+    private int transferKeyValue( PageCursor fromCursor, int fromPos, PageCursor toCursor, int toAllocOffset, int fromKeyPrefixLength,
+            int toKeyPrefixLength, int commonKeyPrefixLength )
     {
         // What to copy?
         placeCursorAtActualKey( fromCursor, fromPos, LEAF );
@@ -1036,11 +1455,38 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         int valueSize = extractValueSize( keyValueSize );
         boolean offload = extractOffload( keyValueSize );
 
-        // Copy
-        int toCopy = getOverhead( keySize, valueSize, offload ) + keySize + valueSize;
-        int newRightAllocSpace = toAllocOffset - toCopy;
-        fromCursor.copyTo( fromKeyOffset, toCursor, newRightAllocSpace, toCopy );
-        return newRightAllocSpace;
+        // A key sharing all of the common prefix may share more with a longer key prefix in 'to', then it's written anew to share as much as it can
+        boolean copyAsIs = offload || (fromKeyPrefixLength == 0 && toKeyPrefixLength == 0);
+        if ( !copyAsIs && fromKeyPrefixLength > 0 && toKeyPrefixLength > 0 )
+        {
+            int sharedPrefixLength = fromCursor.getByte() & 0xFF;
+            copyAsIs = sharedPrefixLength < commonKeyPrefixLength ||
+                    (sharedPrefixLength == commonKeyPrefixLength && commonKeyPrefixLength == toKeyPrefixLength);
+        }
+        if ( copyAsIs )
+        {
+            int toCopy = getOverhead( keySize, valueSize, offload ) + keySize + valueSize;
+            int newAllocOffset = toAllocOffset - toCopy;
+            copyBytes( fromCursor, fromKeyOffset, toCursor, newAllocOffset, toCopy );
+            return newAllocOffset;
+        }
+
+        keyValueAt( fromCursor, tmpKey, tmpValue, fromPos, PageCursorTracer.NULL );
+        return writeInlineKeyValue( toCursor, toAllocOffset, tmpKey, tmpValue, layout.keySize( tmpKey ), valueSize );
+    }
+
+    private void copyBytes( PageCursor fromCursor, int fromOffset, PageCursor toCursor, int toOffset, int length )
+    {
+        if ( fromCursor == scratchCursor )
+        {
+            // The scratch page isn't a page in the page cache and so can't copy to one
+            toCursor.setOffset( toOffset );
+            toCursor.putBytes( scratchPage, fromOffset, length );
+        }
+        else
+        {
+            fromCursor.copyTo( fromOffset, toCursor, toOffset, length );
+        }
     }
 
     private int getAllocSpace( PageCursor cursor, int keyCount, Type type )
@@ -1053,7 +1499,8 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     private void recordDeadAndAliveLeaf( PageCursor cursor, MutableIntStack deadKeysOffset, MutableIntStack aliveKeysOffset )
     {
         int currentOffset = getAllocOffset( cursor );
-        while ( currentOffset < pageSize )
+        int heapEnd = heapEnd( cursor );
+        while ( currentOffset < heapEnd )
         {
             cursor.setOffset( currentOffset );
             long keyValueSize = readKeyValueSize( cursor, true );
@@ -1077,7 +1524,8 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     private void recordDeadAndAliveInternal( PageCursor cursor, MutableIntStack deadKeysOffset, MutableIntStack aliveKeysOffset )
     {
         int currentOffset = getAllocOffset( cursor );
-        while ( currentOffset < pageSize )
+        int heapEnd = heapEnd( cursor );
+        while ( currentOffset < heapEnd )
         {
             cursor.setOffset( currentOffset );
             long keyValueSize = readKeyValueSize( cursor, true );
@@ -1243,11 +1691,13 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         int targetLeftSpace = (int) (this.totalSpace * ratioToKeepInLeftOnSplit);
         int splitPos = 0;
         int currentPos = 0;
-        int accumulatedLeftSpace = 0;
-        int currentDelta = targetLeftSpace;
+        // A key prefix is kept by both leaves, unless they get one that takes less space
+        int keyPrefixSpace = keyPrefixLength( cursor );
+        int accumulatedLeftSpace = keyPrefixSpace;
+        int currentDelta = Math.abs( keyPrefixSpace - targetLeftSpace );
         int prevDelta;
-        int spaceOfNewKey = totalSpaceOfKeyValue( newKey, newValue );
-        int totalSpaceIncludingNewKey = totalActiveSpace( cursor, keyCountAfterInsert - 1, LEAF ) + spaceOfNewKey;
+        int spaceOfNewKey = totalSpaceOfKeyValue( cursor, newKey, newValue );
+        int totalSpaceIncludingNewKey = totalActiveSpace( cursor, keyCountAfterInsert - 1, LEAF ) + spaceOfNewKey + keyPrefixSpace;
         boolean includedNew = false;
         boolean prevPosPossible;
         boolean thisPosPossible = false;
@@ -1298,14 +1748,19 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         return totalSpace - deadSpace - allocSpace;
     }
 
-    private int totalSpaceOfKeyValue( KEY key, VALUE value )
+    /**
+     * @return space that key and value would take if inserted into leaf that cursor is placed at, including its slot in the offset array.
+     */
+    private int totalSpaceOfKeyValue( PageCursor cursor, KEY key, VALUE value )
     {
         int keySize = layout.keySize( key );
         int valueSize = layout.valueSize( value );
         boolean canInline = canInline( keySize + valueSize );
         if ( canInline )
         {
-            return bytesKeyOffset() + getOverhead( keySize, valueSize, false ) + keySize + valueSize;
+            int keyPrefixLength = keyPrefixLength( cursor );
+            int inlineKeySize = inlineKeySize( keySize, keyPrefixLength, sharedKeyPrefixLength( cursor, keyPrefixLength, key ) );
+            return totalSpaceOfInlineKeyValue( inlineKeySize, valueSize );
         }
         else
         {
@@ -1313,6 +1768,11 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         }
     }
 
+    private static int totalSpaceOfInlineKeyValue( int inlineKeySize, int valueSize )
+    {
+        return bytesKeyOffset() + getOverhead( inlineKeySize, valueSize, false ) + inlineKeySize + valueSize;
+    }
+
     private int totalSpaceOfKeyChild( KEY key )
     {
         int keySize = layout.keySize( key );
@@ -1337,6 +1797,47 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         return bytesKeyOffset() + getOverhead( keySize, valueSize, offload ) + keySize + valueSize;
     }
 
+    /**
+     * @return space that key and value at pos in 'from' would take if transferred to leaf with key prefix of length toKeyPrefixLength,
+     * including its slot in the offset array.
+     */
+    private int totalSpaceOfKeyValueMovedTo( PageCursor fromCursor, int pos, int fromKeyPrefixLength, int toKeyPrefixLength,
+            int commonKeyPrefixLength )
+    {
+        if ( fromKeyPrefixLength == 0 && toKeyPrefixLength == 0 )
+        {
+            return totalSpaceOfKeyValue( fromCursor, pos );
+        }
+        placeCursorAtActualKey( fromCursor, pos, LEAF );
+        long keyValueSize = readKeyValueSize( fromCursor, true );
+        int keySize = extractKeySize( keyValueSize );
+        int valueSize = extractValueSize( keyValueSize );
+        if ( extractOffload( keyValueSize ) )
+        {
+            return bytesKeyOffset() + getOverhead( keySize, valueSize, true ) + keySize + valueSize;
+        }
+        // A key without shared prefix in 'from' may still share some with 'to', but that's only known when it's written
+        int sharedPrefixLength = fromKeyPrefixLength > 0 ? fromCursor.getByte() & 0xFF : 0;
+        int fullKeySize = fromKeyPrefixLength > 0 ? keySize - SIZE_KEY_PREFIX_LENGTH + sharedPrefixLength : keySize;
+        int movedKeySize = inlineKeySize( fullKeySize, toKeyPrefixLength, Math.min( sharedPrefixLength, commonKeyPrefixLength ) );
+        return totalSpaceOfInlineKeyValue( movedKeySize, valueSize );
+    }
+
+    private int totalSpaceOfKeyValuesMovedTo( PageCursor fromCursor, int keyCount, int fromKeyPrefixLength, int toKeyPrefixLength,
+            int commonKeyPrefixLength )
+    {
+        if ( fromKeyPrefixLength == 0 && toKeyPrefixLength == 0 )
+        {
+            return totalActiveSpace( fromCursor, keyCount, LEAF );
+        }
+        int space = 0;
+        for ( int pos = 0; pos < keyCount; pos++ )
+        {
+            space += totalSpaceOfKeyValueMovedTo( fromCursor, pos, fromKeyPrefixLength, toKeyPrefixLength, commonKeyPrefixLength );
+        }
+        return space;
+    }
+
     private int totalSpaceOfKeyChild( PageCursor cursor, int pos )
     {
         placeCursorAtActualKey( cursor, pos, INTERNAL );
@@ -1357,6 +1858,44 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         return PageCursorUtil.getUnsignedShort( cursor, BYTE_POS_ALLOCOFFSET );
     }
 
+    /**
+     * @return length of key prefix of leaf, always 0 if keys are not prefix compressed.
+     */
+    @VisibleForTesting
+    int keyPrefixLength( PageCursor cursor )
+    {
+        return compressKeyPrefix ? cursor.getByte( BYTE_POS_KEY_PREFIX_LENGTH ) & 0xFF : 0;
+    }
+
+    private static void setKeyPrefixLength( PageCursor cursor, int keyPrefixLength )
+    {
+        cursor.putByte( BYTE_POS_KEY_PREFIX_LENGTH, (byte) keyPrefixLength );
+    }
+
+    /**
+     * @return offset where key prefix starts, or page size if there is none. Keys and values are stored in front of this offset.
+     */
+    private int heapEnd( PageCursor cursor )
+    {
+        return pageSize - keyPrefixLength( cursor );
+    }
+
+    /**
+     * @return number of leading bytes that key prefixes of both leaves have in common.
+     */
+    private int commonKeyPrefixLength( PageCursor leftCursor, int leftKeyPrefixLength, PageCursor rightCursor, int rightKeyPrefixLength )
+    {
+        int maxLength = Math.min( leftKeyPrefixLength, rightKeyPrefixLength );
+        int leftOffset = pageSize - leftKeyPrefixLength;
+        int rightOffset = pageSize - rightKeyPrefixLength;
+        int length = 0;
+        while ( length < maxLength && leftCursor.getByte( leftOffset + length ) == rightCursor.getByte( rightOffset + length ) )
+        {
+            length++;
+        }
+        return length;
+    }
+
     @VisibleForTesting
     void setDeadSpace( PageCursor cursor, int deadSpace )
     {
@@ -1379,10 +1918,10 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         int keyOffset = readKeyOffset( cursor );
 
         // Verify offset is reasonable
-        if ( keyOffset >= pageSize || keyOffset < HEADER_LENGTH_DYNAMIC )
+        if ( keyOffset >= pageSize || keyOffset < headerLength )
         {
             cursor.setCursorException( format( "Tried to read key on offset=%d, headerLength=%d, pageSize=%d, pos=%d",
-                    keyOffset, HEADER_LENGTH_DYNAMIC, pageSize, pos ) );
+                    keyOffset, headerLength, pageSize, pos ) );
             return;
         }
 
@@ -1415,13 +1954,13 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
 
     private int keyPosOffsetLeaf( int pos )
     {
-        return HEADER_LENGTH_DYNAMIC + pos * bytesKeyOffset();
+        return headerLength + pos * bytesKeyOffset();
     }
 
     private int keyPosOffsetInternal( int pos )
     {
         // header + childPointer + pos * (keyPosOffsetSize + childPointer)
-        return HEADER_LENGTH_DYNAMIC + childSize() + pos * keyChildSize();
+        return headerLength + childSize() + pos * keyChildSize();
     }
 
     private int keyChildSize()
@@ -1447,7 +1986,8 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     @Override
     public String toString()
     {
-        return "TreeNodeDynamicSize[pageSize:" + pageSize + ", keyValueSizeCap:" + keyValueSizeCap() + ", inlineKeyValueSizeCap:" + inlineKeyValueSizeCap + "]";
+        return "TreeNodeDynamicSize[pageSize:" + pageSize + ", keyValueSizeCap:" + keyValueSizeCap() + ", inlineKeyValueSizeCap:" + inlineKeyValueSizeCap +
+                ", compressKeyPrefix:" + compressKeyPrefix + "]";
     }
 
     private String asString( PageCursor cursor, boolean includeValue, boolean includeAllocSpace,
@@ -1463,7 +2003,9 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         // HEADER
         int allocOffset = getAllocOffset( cursor );
         int deadSpace = getDeadSpace( cursor );
-        String additionalHeader = "{" + cursor.getCurrentPageId() + "} [allocOffset=" + allocOffset + " deadSpace=" + deadSpace + "] ";
+        int keyPrefixLength = type == LEAF ? keyPrefixLength( cursor ) : 0;
+        String additionalHeader = "{" + cursor.getCurrentPageId() + "} [allocOffset=" + allocOffset + " deadSpace=" + deadSpace +
+                (compressKeyPrefix ? " keyPrefixLength=" + keyPrefixLength : "") + "] ";
 
         // OFFSET ARRAY
         String offsetArray = readOffsetArray( cursor, stableGeneration, unstableGeneration, type );
@@ -1480,7 +2022,8 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         VALUE readValue = layout.newValue();
         StringJoiner keys = new StringJoiner( " " );
         cursor.setOffset( allocOffset );
-        while ( cursor.getOffset() < cursor.getCurrentPageSize() )
+        int heapEnd = pageSize - keyPrefixLength;
+        while ( cursor.getOffset() < heapEnd )
         {
             StringJoiner singleKey = new StringJoiner( "|" );
             singleKey.add( Integer.toString( cursor.getOffset() ) );
@@ -1515,7 +2058,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
             }
             else
             {
-                layout.readKey( cursor, readKey, keySize );
+                readInlineKey( cursor, readKey, keySize, keyPrefixLength, -1 );
                 if ( type == LEAF )
                 {
                     layout.readValue( cursor, readValue, valueSize );
@@ -1594,7 +2137,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
             }
         }
 
-        if ( allocOffset < pageSize && allocOffset >= 0 )
+        if ( allocOffset < heapEnd( cursor ) && allocOffset >= 0 )
         {
             // Verify allocOffset point at start of key
             cursor.setOffset( allocOffset );
@@ -1634,14 +2177,15 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     private int totalActiveSpaceRaw( PageCursor cursor, int keyCount, Type type )
     {
         // Offset array
-        int offsetArrayStart = HEADER_LENGTH_DYNAMIC;
+        int offsetArrayStart = headerLength;
         int offsetArrayEnd = keyPosOffset( keyCount, type );
         int offsetArraySize = offsetArrayEnd - offsetArrayStart;
 
         // Alive keys
         int aliveKeySize = 0;
         int nextKeyOffset = getAllocOffset( cursor );
-        while ( nextKeyOffset < pageSize )
+        int heapEnd = heapEnd( cursor );
+        while ( nextKeyOffset < heapEnd )
         {
             cursor.setOffset( nextKeyOffset );
             long keyValueSize = readKeyValueSize( cursor, true );
@@ -1655,7 +2199,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
             }
             nextKeyOffset = cursor.getOffset() + (offload ? DynamicSizeUtil.SIZE_OFFLOAD_ID : keySize + valueSize);
         }
-        return offsetArraySize + aliveKeySize;
+        return offsetArraySize + aliveKeySize + keyPrefixLength( cursor );
     }
 
     private String readAllocSpace( PageCursor cursor, int allocOffset, Type type )
@@ -75,6 +75,37 @@ class TreeNodeSelector
         }
     };
 
+    /**
+     * Creates {@link TreeNodeDynamicSize} instances which compress the key prefix in leaves.
+     * Trees of the uncompressed {@link #DYNAMIC} format can be opened with layouts selecting this format.
+     */
+    private static final Factory DYNAMIC_KEY_PREFIX = new Factory()
+    {
+        @Override
+        public <KEY,VALUE> TreeNode<KEY,VALUE> create( int pageSize, Layout<KEY,VALUE> layout, OffloadStore<KEY,VALUE> offloadStore )
+        {
+            return new TreeNodeDynamicSize<>( pageSize, layout, offloadStore, true );
+        }
+
+        @Override
+        public byte formatIdentifier()
+        {
+            return TreeNodeDynamicSize.FORMAT_IDENTIFIER;
+        }
+
+        @Override
+        public byte formatVersion()
+        {
+            return TreeNodeDynamicSize.FORMAT_VERSION_KEY_PREFIX;
+        }
+
+        @Override
+        public boolean compatibleWith( byte formatIdentifier, byte formatVersion )
+        {
+            return formatIdentifier == formatIdentifier() && (formatVersion == formatVersion() || formatVersion == DYNAMIC.formatVersion());
+        }
+    };
+
     /**
      * Selects a format based on the given {@link Layout}.
      *
@@ -83,8 +114,12 @@ class TreeNodeSelector
      */
     static Factory selectByLayout( Layout<?,?> layout )
     {
-        // For now the selection is done in a simple fashion, by looking at layout.fixedSize().
-        return layout.fixedSize() ? FIXED : DYNAMIC;
+        // For now the selection is done in a simple fashion, by looking at layout.fixedSize() and layout.compressKeyPrefix().
+        if ( layout.fixedSize() )
+        {
+            return FIXED;
+        }
+        return layout.compressKeyPrefix() ? DYNAMIC_KEY_PREFIX : DYNAMIC;
     }
 
     /**
@@ -106,6 +141,10 @@ class TreeNodeSelector
         {
             return DYNAMIC;
         }
+        else if ( formatIdentifier == TreeNodeDynamicSize.FORMAT_IDENTIFIER && formatVersion == TreeNodeDynamicSize.FORMAT_VERSION_KEY_PREFIX )
+        {
+            return DYNAMIC_KEY_PREFIX;
+        }
         throw new IllegalArgumentException(
                 format( "Unknown format identifier:%d and version:%d combination", formatIdentifier, formatVersion ) );
     }
@@ -143,5 +182,18 @@ class TreeNodeSelector
          * Can return this w/o instantiating the {@link TreeNode}.
          */
         byte formatVersion();
+
+        /**
+         * Whether or not a tree stored in the given format can be opened with a {@link Layout} for which this format is
+         * {@link #selectByLayout(Layout) selected}. Typically only trees stored in this exact format and version can.
+         *
+         * @param formatIdentifier format identifier of the stored tree.
+         * @param formatVersion format version of the stored tree.
+         * @return {@code true} if the stored format is compatible with this format, otherwise {@code false}.
+         */
+        default boolean compatibleWith( byte formatIdentifier, byte formatVersion )
+        {
+            return formatIdentifier == formatIdentifier() && formatVersion == formatVersion();
+        }
     }
 }
@@ -32,6 +32,7 @@ import org.neo4j.test.extension.Inject;
 import org.neo4j.test.extension.actors.Actor;
 import org.neo4j.test.extension.actors.ActorsExtension;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -163,6 +164,62 @@ class GBPTreeLockTest
         assertOnlyOneSucceeds( lock::writerAndCleanerLock, lock::writerAndCleanerLock );
     }
 
+    @Test
+    void test_race_PvsP() throws Throwable
+    {
+        assertBothSucceeds( lock::parallelWriterLock, lock::parallelWriterLock );
+    }
+
+    @Test
+    void test_race_PvsUL() throws Throwable
+    {
+        assertOnlyOneSucceeds( lock::parallelWriterLock, lock::cleanerLock );
+    }
+
+    @Test
+    void test_race_PvsLU() throws Throwable
+    {
+        assertOnlyOneSucceeds( lock::parallelWriterLock, lock::writerLock );
+    }
+
+    @Test
+    void test_race_PvsLL() throws Throwable
+    {
+        assertOnlyOneSucceeds( lock::parallelWriterLock, lock::writerAndCleanerLock );
+    }
+
+    @Test
+    void parallelWritersShouldBlockWriterUntilAllOfThemUnlock() throws Exception
+    {
+        // given
+        lock.parallelWriterLock();
+        lock.parallelWriterLock();
+
+        // when
+        Future<Object> future = executor.submit( () ->
+        {
+            lock.writerAndCleanerLock();
+            return null;
+        } );
+        executor.untilWaitingIn( GBPTreeLock.class.getDeclaredMethod( "doLock", long.class ) );
+        lock.parallelWriterUnlock();
+
+        // then
+        assertFalse( future.isDone() );
+        lock.parallelWriterUnlock();
+        future.get();
+        lock.writerAndCleanerUnlock();
+        assertUU();
+    }
+
+    @Test
+    void shouldNotUnlockParallelWriterLockThatIsNotLocked()
+    {
+        assertThrows( IllegalStateException.class, lock::parallelWriterUnlock );
+        lock.writerAndCleanerLock();
+        assertThrows( IllegalStateException.class, lock::parallelWriterUnlock );
+    }
+
     private void assertOnlyOneSucceeds( Runnable lockAction1, Runnable lockAction2 ) throws Throwable
     {
         assertUU();
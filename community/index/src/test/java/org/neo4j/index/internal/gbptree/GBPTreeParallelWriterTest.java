@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.test.Race;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.RandomExtension;
+import org.neo4j.test.extension.pagecache.PageCacheSupportExtension;
+import org.neo4j.test.extension.testdirectory.EphemeralTestDirectoryExtension;
+import org.neo4j.test.rule.PageCacheConfig;
+import org.neo4j.test.rule.RandomRule;
+import org.neo4j.test.rule.TestDirectory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+
+@EphemeralTestDirectoryExtension
+@ExtendWith( RandomExtension.class )
+class GBPTreeParallelWriterTest
+{
+    private static final int THREADS = 4;
+
+    @RegisterExtension
+    static PageCacheSupportExtension pageCacheExtension = new PageCacheSupportExtension( PageCacheConfig.config().withPageSize( 512 ) );
+    @Inject
+    private TestDirectory directory;
+    @Inject
+    private PageCache pageCache;
+    @Inject
+    private RandomRule random;
+
+    @ParameterizedTest
+    @ValueSource( booleans = {true, false} )
+    void shouldInsertAndRemoveInParallel( boolean fixedSize ) throws Throwable
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().withFixedSize( fixedSize ).build();
+        Map<Long,Long> expected = new TreeMap<>();
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            for ( int round = 0; round < 3; round++ )
+            {
+                // Each writer inserts and removes its own keys, all of them interleaved with the keys of the other writers
+                int keysPerThread = 2_000;
+                long roundBase = round * THREADS * keysPerThread;
+                List<List<Long>> keysPerWriter = new ArrayList<>();
+                for ( int thread = 0; thread < THREADS; thread++ )
+                {
+                    List<Long> keys = new ArrayList<>();
+                    for ( int i = 0; i < keysPerThread; i++ )
+                    {
+                        keys.add( roundBase + (long) i * THREADS + thread );
+                    }
+                    Collections.shuffle( keys, random.random() );
+                    keysPerWriter.add( keys );
+                }
+
+                Race race = new Race();
+                for ( List<Long> keys : keysPerWriter )
+                {
+                    race.addContestant( Race.throwing( () ->
+                    {
+                        try ( Writer<MutableLong,MutableLong> writer = tree.parallelWriter( NULL ) )
+                        {
+                            for ( long key : keys )
+                            {
+                                writer.put( layout.key( key ), layout.value( key * 10 ) );
+                            }
+                            for ( int i = 0; i < keys.size(); i += 3 )
+                            {
+                                long key = keys.get( i );
+                                MutableLong removed = writer.remove( layout.key( key ) );
+                                assertEquals( key * 10, removed.longValue() );
+                                assertNull( writer.remove( layout.key( key ) ) );
+                            }
+                        }
+                    } ) );
+                    for ( int i = 0; i < keys.size(); i++ )
+                    {
+                        if ( i % 3 != 0 )
+                        {
+                            expected.put( keys.get( i ), keys.get( i ) * 10 );
+                        }
+                    }
+                }
+                race.go();
+
+                assertTree( tree, layout, expected );
+                tree.checkpoint( IOLimiter.UNLIMITED, NULL );
+            }
+        }
+    }
+
+    @Test
+    void shouldMergeSameKeysInParallel() throws Throwable
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().withFixedSize( true ).build();
+        int keyCount = 500;
+        int mergesPerKey = 20;
+        ValueMerger<MutableLong,MutableLong> adder = ( existingKey, newKey, existingValue, newValue ) ->
+        {
+            existingValue.add( newValue.longValue() );
+            return ValueMerger.MergeResult.MERGED;
+        };
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            // All writers write to all keys, contending for the same leaves
+            Race race = new Race();
+            race.addContestants( THREADS, Race.throwing( () ->
+            {
+                try ( Writer<MutableLong,MutableLong> writer = tree.parallelWriter( NULL ) )
+                {
+                    for ( int i = 0; i < mergesPerKey; i++ )
+                    {
+                        for ( long key = 0; key < keyCount; key++ )
+                        {
+                            writer.merge( layout.key( key ), layout.value( 1 ), adder );
+                        }
+                    }
+                }
+            } ) );
+            race.go();
+
+            Map<Long,Long> expected = new TreeMap<>();
+            for ( long key = 0; key < keyCount; key++ )
+            {
+                expected.put( key, (long) THREADS * mergesPerKey );
+            }
+            assertTree( tree, layout, expected );
+        }
+    }
+
+    @Test
+    void shouldNotLoseMergesToSameLeafWithMoreWritersThanCores() throws Throwable
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().withFixedSize( true ).build();
+        int threads = Math.max( 8, Runtime.getRuntime().availableProcessors() * 4 );
+        int keyCount = 10;
+        int mergesPerKey = 5_000;
+        ValueMerger<MutableLong,MutableLong> adder = ( existingKey, newKey, existingValue, newValue ) ->
+        {
+            existingValue.add( newValue.longValue() );
+            return ValueMerger.MergeResult.MERGED;
+        };
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            // All keys fit in the root leaf, so every merge of every writer changes the same leaf in place,
+            // with writers being preempted in the middle of their changes
+            Race race = new Race();
+            race.addContestants( threads, Race.throwing( () ->
+            {
+                try ( Writer<MutableLong,MutableLong> writer = tree.parallelWriter( NULL ) )
+                {
+                    for ( int i = 0; i < mergesPerKey; i++ )
+                    {
+                        for ( long key = 0; key < keyCount; key++ )
+                        {
+                            writer.merge( layout.key( key ), layout.value( 1 ), adder );
+                        }
+                    }
+                }
+            } ) );
+            race.go();
+
+            Map<Long,Long> expected = new TreeMap<>();
+            for ( long key = 0; key < keyCount; key++ )
+            {
+                expected.put( key, (long) threads * mergesPerKey );
+            }
+            assertTree( tree, layout, expected );
+        }
+    }
+
+    @Test
+    void shouldNotCloseParallelWriterTwice() throws IOException
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().withFixedSize( true ).build();
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            Writer<MutableLong,MutableLong> writer = tree.parallelWriter( NULL );
+            writer.close();
+            assertThrows( IllegalStateException.class, writer::close );
+        }
+    }
+
+    private static void assertTree( GBPTree<MutableLong,MutableLong> tree, SimpleLongLayout layout, Map<Long,Long> expected ) throws IOException
+    {
+        assertTrue( tree.consistencyCheck( NULL ) );
+        Map<Long,Long> actual = new TreeMap<>();
+        try ( Seeker<MutableLong,MutableLong> seeker = tree.seek( layout.key( Long.MIN_VALUE ), layout.key( Long.MAX_VALUE ), NULL ) )
+        {
+            while ( seeker.next() )
+            {
+                actual.put( seeker.key().longValue(), seeker.value().longValue() );
+            }
+        }
+        assertEquals( expected, actual );
+    }
+}
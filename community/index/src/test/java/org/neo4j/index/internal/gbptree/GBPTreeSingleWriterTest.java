@@ -21,27 +21,34 @@ package org.neo4j.index.internal.gbptree;
 
 import org.apache.commons.lang3.mutable.MutableLong;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.extension.RegisterExtension;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.RandomExtension;
 import org.neo4j.test.extension.pagecache.PageCacheSupportExtension;
 import org.neo4j.test.extension.testdirectory.EphemeralTestDirectoryExtension;
 import org.neo4j.test.rule.PageCacheConfig;
+import org.neo4j.test.rule.RandomRule;
 import org.neo4j.test.rule.TestDirectory;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
 
 @EphemeralTestDirectoryExtension
+@ExtendWith( RandomExtension.class )
 class GBPTreeSingleWriterTest
 {
     @RegisterExtension
@@ -50,6 +57,8 @@ class GBPTreeSingleWriterTest
     private TestDirectory directory;
     @Inject
     private PageCache pageCache;
+    @Inject
+    private RandomRule random;
     private SimpleLongLayout layout = SimpleLongLayout.longLayout().withFixedSize( true ).build();
 
     @Test
@@ -108,6 +117,73 @@ class GBPTreeSingleWriterTest
         }
     }
 
+    @Test
+    void sortedWriterShouldInitializeTreeLogicWithGivenFillFactor() throws IOException
+    {
+        TreeHeightTracker treeHeightTracker = new TreeHeightTracker();
+        try ( GBPTree<MutableLong,MutableLong> gbpTree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout )
+                .with( treeHeightTracker )
+                .build();
+              Writer<MutableLong,MutableLong> writer = gbpTree.sortedWriter( 1, NULL ) )
+        {
+            MutableLong dontCare = layout.value( 0 );
+
+            long keySeed = 0;
+            while ( treeHeightTracker.treeHeight < 5 )
+            {
+                MutableLong key = layout.key( keySeed++ );
+                writer.put( key, dontCare );
+            }
+            // The rightmost node on all levels should have either one or zero key (zero for internal nodes).
+            KeyCountingVisitor keyCountingVisitor = new KeyCountingVisitor();
+            gbpTree.visit( keyCountingVisitor, NULL );
+            for ( Integer rightmostKeyCount : keyCountingVisitor.keyCountOnRightmostPerLevel )
+            {
+                assertTrue( rightmostKeyCount == 0 || rightmostKeyCount == 1 );
+            }
+        }
+    }
+
+    @Test
+    void sortedWriterShouldHandleKeysThatAreNotInOrder() throws IOException
+    {
+        TreeMap<Long,Long> expected = new TreeMap<>();
+        try ( GBPTree<MutableLong,MutableLong> gbpTree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            try ( Writer<MutableLong,MutableLong> writer = gbpTree.sortedWriter( NULL ) )
+            {
+                long nextKey = 0;
+                for ( int i = 0; i < 10_000; i++ )
+                {
+                    // Mostly ascending keys, but every now and then one which is smaller, existing or removed
+                    long key = random.nextInt( 10 ) == 0 ? random.nextLong( nextKey + 1 ) : nextKey++;
+                    long value = random.nextLong( 1_000 );
+                    if ( random.nextInt( 20 ) == 0 )
+                    {
+                        writer.remove( layout.key( key ) );
+                        expected.remove( key );
+                    }
+                    else
+                    {
+                        writer.put( layout.key( key ), layout.value( value ) );
+                        expected.put( key, value );
+                    }
+                }
+            }
+
+            try ( Seeker<MutableLong,MutableLong> seek = gbpTree.seek( layout.key( 0 ), layout.key( Long.MAX_VALUE ), NULL ) )
+            {
+                for ( Map.Entry<Long,Long> entry : expected.entrySet() )
+                {
+                    assertTrue( seek.next() );
+                    assertEquals( entry.getKey().longValue(), seek.key().longValue() );
+                    assertEquals( entry.getValue().longValue(), seek.value().longValue() );
+                }
+                assertFalse( seek.next() );
+            }
+        }
+    }
+
     @Test
     void trackPageCacheAccessOnMerge() throws IOException
     {
@@ -53,7 +53,6 @@ import static org.junit.jupiter.params.provider.Arguments.arguments;
 import static org.neo4j.index.internal.gbptree.GBPTree.NO_MONITOR;
 import static org.neo4j.index.internal.gbptree.GBPTreeConsistencyChecker.assertNoCrashOrBrokenPointerInGSPP;
 import static org.neo4j.index.internal.gbptree.GenerationSafePointerPair.pointer;
-import static org.neo4j.index.internal.gbptree.TreeNode.Overflow.NO;
 import static org.neo4j.index.internal.gbptree.TreeNode.Overflow.YES;
 import static org.neo4j.index.internal.gbptree.TreeNode.Type.INTERNAL;
 import static org.neo4j.index.internal.gbptree.TreeNode.Type.LEAF;
@@ -161,7 +160,7 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         int keyCount = 0;
         KEY newKey = key( someHighSeed );
         VALUE newValue = value( someHighSeed );
-        while ( node.leafOverflow( cursor, keyCount, newKey, newValue ) == NO )
+        while ( node.leafOverflow( cursor, keyCount, newKey, newValue ) != YES )
         {
             insert( newKey, newValue );
 
@@ -186,7 +185,7 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         int keyCount = 0;
         KEY key = key( keyCount );
         VALUE value = value( keyCount );
-        while ( node.leafOverflow( cursor, keyCount, key, value ) == NO )
+        while ( node.leafOverflow( cursor, keyCount, key, value ) != YES )
         {
             // when
             insert( key, value );
@@ -214,7 +213,7 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         long middleValue = keyCount % 2 == 0 ? keyCount / 2 : someHighSeed - keyCount / 2;
         KEY key = key( middleValue );
         VALUE value = value( middleValue );
-        while ( node.leafOverflow( cursor, keyCount, key, value ) == NO )
+        while ( node.leafOverflow( cursor, keyCount, key, value ) != YES )
         {
             insert( key, value );
 
@@ -240,7 +239,7 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         int middle = keyCount % 2 == 0 ? keyCount : someMiddleSeed - keyCount;
         KEY key = key( middle );
         VALUE value = value( middle );
-        while ( node.leafOverflow( cursor, keyCount, key, value ) == NO )
+        while ( node.leafOverflow( cursor, keyCount, key, value ) != YES )
         {
             insert( key, value );
 
@@ -267,7 +266,7 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         int keyCount = 0;
         KEY key = key( keyCount );
         VALUE value = value( keyCount );
-        while ( node.leafOverflow( cursor, keyCount, key, value ) == NO )
+        while ( node.leafOverflow( cursor, keyCount, key, value ) != YES )
         {
             insert( key, value );
             assertFalse( structurePropagation.hasRightKeyInsert );
@@ -295,7 +294,7 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         int someHighSeed = 1000;
         KEY key = key( someHighSeed - keyCount );
         VALUE value = value( someHighSeed - keyCount );
-        while ( node.leafOverflow( cursor, keyCount, key, value ) == NO )
+        while ( node.leafOverflow( cursor, keyCount, key, value ) != YES )
         {
             insert( key, value );
             assertFalse( structurePropagation.hasRightKeyInsert );
@@ -323,7 +322,7 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         int keyCount = 0;
         KEY key = key( someLargeSeed - keyCount );
         VALUE value = value( someLargeSeed - keyCount );
-        while ( node.leafOverflow( cursor, keyCount, key, value ) == NO )
+        while ( node.leafOverflow( cursor, keyCount, key, value ) != YES )
         {
             insert( key, value );
 
@@ -377,7 +376,7 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         int keyCount = 0;
         KEY key = key( random.nextLong() );
         VALUE value = value( random.nextLong() );
-        while ( node.leafOverflow( cursor, keyCount, key, value ) == NO )
+        while ( node.leafOverflow( cursor, keyCount, key, value ) != YES )
         {
             insert( key, value );
             assertFalse( structurePropagation.hasRightKeyInsert );
@@ -415,7 +414,7 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         int keyCount = 0;
         KEY key = key( random.nextLong() );
         VALUE value = value( random.nextLong() );
-        while ( node.leafOverflow( cursor, keyCount, key, value ) == NO )
+        while ( node.leafOverflow( cursor, keyCount, key, value ) != YES )
         {
             insert( key, value );
             assertFalse( structurePropagation.hasRightKeyInsert );
@@ -475,7 +474,7 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         int maxKeyCount = 0;
         KEY key = key( maxKeyCount );
         VALUE value = value( maxKeyCount );
-        while ( node.leafOverflow( cursor, maxKeyCount, key, value ) == NO )
+        while ( node.leafOverflow( cursor, maxKeyCount, key, value ) != YES )
         {
             insert( key, value );
 
@@ -508,7 +507,7 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         int maxKeyCount = 0;
         KEY key = key( maxKeyCount );
         VALUE value = value( maxKeyCount );
-        while ( node.leafOverflow( cursor, maxKeyCount, key, value ) == NO )
+        while ( node.leafOverflow( cursor, maxKeyCount, key, value ) != YES )
         {
             insert( key, value );
 
@@ -543,7 +542,7 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         int maxKeyCount = 0;
         KEY key = key( maxKeyCount );
         VALUE value = value( maxKeyCount );
-        while ( node.leafOverflow( cursor, maxKeyCount, key, value ) == NO )
+        while ( node.leafOverflow( cursor, maxKeyCount, key, value ) != YES )
         {
             insert( key, value );
 
@@ -601,7 +600,9 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         {
             insert( key( i ), value( i ) );
         }
-        insert( key( i ), value( i ) ); // And one more to avoid rebalance
+        // And a couple more to avoid rebalance, also if the split left the right child just half full
+        insert( key( i ), value( i ) );
+        insert( key( i + 1 ), value( i + 1 ) );
 
         // when key to remove exists in internal
         KEY internalKey = structurePropagation.rightKey;
@@ -640,7 +641,7 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         int maxKeyCount = 0;
         KEY key = key( maxKeyCount );
         VALUE value = value( maxKeyCount );
-        while ( node.leafOverflow( cursor, maxKeyCount, key, value ) == NO )
+        while ( node.leafOverflow( cursor, maxKeyCount, key, value ) != YES )
         {
             insert( key, value );
 
@@ -673,7 +674,9 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         {
             insert( key( i ), value( i ) );
         }
-        insert( key( i ), value( i ) ); // And an extra to not cause rebalance
+        // And a couple more to avoid rebalance, also if the split left the right child just half full
+        insert( key( i ), value( i ) );
+        insert( key( i + 1 ), value( i + 1 ) );
 
         // when key to remove exists in internal
         long currentRightChild = structurePropagation.rightChild;
@@ -1477,7 +1480,7 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         int keyCount = 0;
         KEY key = key( keyCount );
         VALUE value = value( keyCount );
-        while ( node.leafOverflow( cursor, keyCount, key, value ) == NO )
+        while ( node.leafOverflow( cursor, keyCount, key, value ) != YES )
         {
             insert( key, value );
             keyCount++;
@@ -1496,7 +1499,7 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         long rightChild = childAt( readCursor, 1, stableGeneration, unstableGeneration );
         goTo( readCursor, rightChild );
         int rightChildKeyCount = TreeNode.keyCount( readCursor );
-        while ( node.leafOverflow( readCursor, rightChildKeyCount, key, value ) == NO )
+        while ( node.leafOverflow( readCursor, rightChildKeyCount, key, value ) != YES )
         {
             insert( key, value );
             keyCount++;
@@ -1994,7 +1997,7 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         return result;
     }
 
-    private interface GenerationManager
+    interface GenerationManager
     {
         void checkpoint();
 
@@ -515,6 +515,51 @@ class KeySearchTest
         }
     }
 
+    @Test
+    void searchFromShouldGiveSameResultAsSearchOnRandomData() throws IOException
+    {
+        // GIVEN a leaf node with random, although sorted, data
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        List<MutableLong> keys = new ArrayList<>();
+        int currentKey = random.nextInt( 10_000 );
+        MutableLong key = layout.newKey();
+
+        int keyCount = 0;
+        while ( true )
+        {
+            MutableLong expectedKey = layout.newKey();
+            key.setValue( currentKey );
+            if ( node.leafOverflow( cursor, keyCount, key, dummyValue ) != NO )
+            {
+                break;
+            }
+            layout.copyKey( key, expectedKey );
+            keys.add( keyCount, expectedKey );
+            node.insertKeyValueAt( cursor, key, dummyValue, keyCount, keyCount, STABLE_GENERATION, UNSTABLE_GENERATION, NULL );
+            currentKey += random.nextInt( 100 ) + 10;
+            keyCount++;
+        }
+        TreeNode.setKeyCount( cursor, keyCount );
+
+        // WHEN searching for random keys from a random position before which all keys are smaller
+        MutableLong searchKey = layout.newKey();
+        MutableLong fromReadKey = layout.newKey();
+        for ( int i = 0; i < 1_000; i++ )
+        {
+            searchKey.setValue( random.nextInt( currentKey + 10 ) );
+            int searchResult = search( cursor, node, LEAF, searchKey, readKey, keyCount, NULL );
+            int fromPos = random.nextInt( KeySearch.positionOf( searchResult ) + 1 );
+            int searchFromResult = KeySearch.searchFrom( cursor, node, LEAF, searchKey, fromReadKey, fromPos, keyCount, NULL );
+
+            // THEN the result should be the same as that of a full search
+            assertEquals( searchResult, searchFromResult );
+            if ( KeySearch.isHit( searchFromResult ) )
+            {
+                assertEquals( searchKey, fromReadKey );
+            }
+        }
+    }
+
     /* Helper */
 
     private int searchKey( long key )
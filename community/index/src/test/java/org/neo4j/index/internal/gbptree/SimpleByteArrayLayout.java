@@ -50,6 +50,7 @@ public class SimpleByteArrayLayout extends TestLayout<RawBytes,RawBytes>
     private final boolean useFirstLongAsSeed;
     private final int largeEntriesSize;
     private final long largeEntryModulo;
+    private final boolean compressKeyPrefix;
 
     /**
      * This should be default constructor unless you want to exactly control entry size from outside
@@ -88,15 +89,32 @@ public class SimpleByteArrayLayout extends TestLayout<RawBytes,RawBytes>
      */
     SimpleByteArrayLayout( int largeEntriesSize, long largeEntryModulo )
     {
-        this( true, largeEntriesSize, largeEntryModulo );
+        this( true, largeEntriesSize, largeEntryModulo, false );
+    }
+
+    /**
+     * Same as {@link #SimpleByteArrayLayout(int, long)}, but can also let trees compress key prefixes in leaves,
+     * where the whole byte array of keys is sharable.
+     *
+     * @param compressKeyPrefix whether or not leaves should compress key prefixes, see {@link Layout#compressKeyPrefix()}.
+     */
+    SimpleByteArrayLayout( int largeEntriesSize, long largeEntryModulo, boolean compressKeyPrefix )
+    {
+        this( true, largeEntriesSize, largeEntryModulo, compressKeyPrefix );
     }
 
     private SimpleByteArrayLayout( boolean useFirstLongAsSeed, int largeEntriesSize, long largeEntryModulo )
+    {
+        this( useFirstLongAsSeed, largeEntriesSize, largeEntryModulo, false );
+    }
+
+    private SimpleByteArrayLayout( boolean useFirstLongAsSeed, int largeEntriesSize, long largeEntryModulo, boolean compressKeyPrefix )
     {
         super( false, 666, 0, 0 );
         this.useFirstLongAsSeed = useFirstLongAsSeed;
         this.largeEntriesSize = largeEntriesSize;
         this.largeEntryModulo = largeEntryModulo;
+        this.compressKeyPrefix = compressKeyPrefix;
     }
 
     @Override
@@ -197,6 +215,59 @@ public class SimpleByteArrayLayout extends TestLayout<RawBytes,RawBytes>
         }
     }
 
+    @Override
+    public boolean compressKeyPrefix()
+    {
+        return compressKeyPrefix;
+    }
+
+    @Override
+    public int keyPrefixLength( RawBytes left, RawBytes right )
+    {
+        int maxLength = Math.min( left.bytes.length, right.bytes.length );
+        int length = 0;
+        while ( length < maxLength && left.bytes[length] == right.bytes[length] )
+        {
+            length++;
+        }
+        return length;
+    }
+
+    @Override
+    public int keyPrefixLength( RawBytes key, PageCursor cursor, int prefixOffset, int prefixLength )
+    {
+        int maxLength = Math.min( key.bytes.length, prefixLength );
+        int length = 0;
+        while ( length < maxLength && key.bytes[length] == cursor.getByte( prefixOffset + length ) )
+        {
+            length++;
+        }
+        return length;
+    }
+
+    @Override
+    public void writeKeyPrefix( PageCursor cursor, RawBytes key, int prefixLength )
+    {
+        cursor.putBytes( key.bytes, 0, prefixLength );
+    }
+
+    @Override
+    public void writeKeySuffix( PageCursor cursor, RawBytes key, int prefixLength )
+    {
+        cursor.putBytes( key.bytes, prefixLength, key.bytes.length - prefixLength );
+    }
+
+    @Override
+    public void readKeySuffix( PageCursor cursor, RawBytes into, int suffixSize, int prefixOffset, int prefixLength )
+    {
+        into.bytes = new byte[prefixLength + suffixSize];
+        int suffixOffset = cursor.getOffset();
+        cursor.setOffset( prefixOffset );
+        cursor.getBytes( into.bytes, 0, prefixLength );
+        cursor.setOffset( suffixOffset );
+        cursor.getBytes( into.bytes, prefixLength, suffixSize );
+    }
+
     @Override
     public int compare( RawBytes o1, RawBytes o2 )
     {
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import org.neo4j.io.pagecache.PageCursor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.neo4j.index.internal.gbptree.TreeNode.Overflow.NO;
+import static org.neo4j.index.internal.gbptree.TreeNode.Type.LEAF;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+
+public class TreeNodeDynamicSizeKeyPrefixTest extends TreeNodeTestBase<RawBytes,RawBytes>
+{
+    private SimpleByteArrayLayout layout = new SimpleByteArrayLayout();
+
+    @Override
+    protected TestLayout<RawBytes,RawBytes> getLayout()
+    {
+        return layout;
+    }
+
+    @Override
+    protected TreeNodeDynamicSize<RawBytes,RawBytes> getNode( int pageSize, Layout<RawBytes,RawBytes> layout,
+            OffloadStore<RawBytes,RawBytes> offloadStore )
+    {
+        return new TreeNodeDynamicSize<>( pageSize, layout, offloadStore, true );
+    }
+
+    @Override
+    void assertAdditionalHeader( PageCursor cursor, TreeNode<RawBytes,RawBytes> node, int pageSize )
+    {
+        // When
+        int currentAllocSpace = ((TreeNodeDynamicSize) node).getAllocOffset( cursor );
+        int keyPrefixLength = ((TreeNodeDynamicSize) node).keyPrefixLength( cursor );
+
+        // Then
+        assertEquals( pageSize, currentAllocSpace, "allocSpace point to end of page" );
+        assertEquals( 0, keyPrefixLength, "no key prefix" );
+    }
+
+    @Test
+    void shouldCompressKeyPrefixOfBothLeavesOnSplit() throws IOException
+    {
+        // given
+        TreeNodeDynamicSize<RawBytes,RawBytes> node = (TreeNodeDynamicSize<RawBytes,RawBytes>) this.node;
+        PageAwareByteArrayCursor rightCursor = cursor.duplicate( cursor.getCurrentPageId() + 1 );
+        rightCursor.next();
+
+        // when
+        int keyCount = fillAndSplitLeaf( node, cursor, rightCursor, 0 );
+
+        // then
+        assertThat( node.keyPrefixLength( cursor ) ).isGreaterThan( 0 );
+        assertThat( node.keyPrefixLength( rightCursor ) ).isGreaterThan( 0 );
+        int leftKeyCount = TreeNode.keyCount( cursor );
+        int rightKeyCount = TreeNode.keyCount( rightCursor );
+        assertEquals( keyCount, leftKeyCount + rightKeyCount );
+        for ( int pos = 0; pos < leftKeyCount; pos++ )
+        {
+            assertKeyValue( node, cursor, pos, pos );
+        }
+        for ( int pos = 0; pos < rightKeyCount; pos++ )
+        {
+            assertKeyValue( node, rightCursor, pos, leftKeyCount + pos );
+        }
+        assertConsistentLeaf( node, cursor, leftKeyCount );
+        assertConsistentLeaf( node, rightCursor, rightKeyCount );
+    }
+
+    @Test
+    void shouldKeepKeysReadableWhenCopiedBetweenLeavesWithDifferentKeyPrefix() throws IOException
+    {
+        // given two leaves with different key prefixes
+        TreeNodeDynamicSize<RawBytes,RawBytes> node = (TreeNodeDynamicSize<RawBytes,RawBytes>) this.node;
+        PageAwareByteArrayCursor leftCursor = cursor;
+        PageAwareByteArrayCursor rightCursor = cursor.duplicate( cursor.getCurrentPageId() + 1 );
+        rightCursor.next();
+        fillAndSplitLeaf( node, leftCursor, rightCursor, 1 << 8 );
+        PageAwareByteArrayCursor otherRightCursor = cursor.duplicate( cursor.getCurrentPageId() + 2 );
+        otherRightCursor.next();
+        fillAndSplitLeaf( node, rightCursor, otherRightCursor, 1 << 16 );
+        int leftKeyCount = 2;
+        int rightKeyCount = TreeNode.keyCount( rightCursor );
+        assertThat( node.keyPrefixLength( leftCursor ) ).isGreaterThan( 0 );
+        assertThat( node.keyPrefixLength( rightCursor ) ).isGreaterThan( 0 );
+
+        // when
+        node.copyKeyValuesFromLeftToRight( leftCursor, leftKeyCount, rightCursor, rightKeyCount );
+
+        // then
+        assertEquals( leftKeyCount + rightKeyCount, TreeNode.keyCount( rightCursor ) );
+        for ( int pos = 0; pos < leftKeyCount + rightKeyCount; pos++ )
+        {
+            long expectedSeed = pos < leftKeyCount ? (1 << 8) + pos : (1 << 16) + pos - leftKeyCount;
+            assertKeyValue( node, rightCursor, pos, expectedSeed );
+        }
+        assertConsistentLeaf( node, rightCursor, leftKeyCount + rightKeyCount );
+    }
+
+    /**
+     * Inserts keys from baseSeed and up into leftCursor until it overflows and then splits it into rightCursor.
+     * @return total number of keys in the two leaves.
+     */
+    private int fillAndSplitLeaf( TreeNodeDynamicSize<RawBytes,RawBytes> node, PageAwareByteArrayCursor leftCursor,
+            PageAwareByteArrayCursor rightCursor, long baseSeed ) throws IOException
+    {
+        node.initializeLeaf( leftCursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        int keyCount = 0;
+        RawBytes newKey = layout.key( baseSeed );
+        RawBytes newValue = layout.value( baseSeed );
+        while ( node.leafOverflow( leftCursor, keyCount, newKey, newValue ) == NO )
+        {
+            node.insertKeyValueAt( leftCursor, newKey, newValue, keyCount, keyCount, STABLE_GENERATION, UNSTABLE_GENERATION, NULL );
+            keyCount++;
+            newKey = layout.key( baseSeed + keyCount );
+            newValue = layout.value( baseSeed + keyCount );
+        }
+        assertEquals( 0, node.keyPrefixLength( leftCursor ) );
+
+        node.initializeLeaf( rightCursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.doSplitLeaf( leftCursor, keyCount, rightCursor, keyCount, newKey, newValue, layout.newKey(), 0.5, STABLE_GENERATION, UNSTABLE_GENERATION,
+                NULL );
+        return keyCount + 1;
+    }
+
+    private static void assertConsistentLeaf( TreeNodeDynamicSize<RawBytes,RawBytes> node, PageAwareByteArrayCursor cursor, int keyCount )
+    {
+        assertEquals( "", node.checkMetaConsistency( cursor, keyCount, LEAF, new GBPTreeConsistencyCheckVisitor.Adaptor<>() ) );
+    }
+
+    private void assertKeyValue( TreeNodeDynamicSize<RawBytes,RawBytes> node, PageAwareByteArrayCursor cursor, int pos, long expectedSeed )
+    {
+        RawBytes key = layout.newKey();
+        RawBytes value = layout.newValue();
+        node.keyValueAt( cursor, key, value, pos, NULL );
+        assertEquals( 0, layout.compare( layout.key( expectedSeed ), key ), "key at pos " + pos );
+        assertEquals( 0, layout.compare( layout.value( expectedSeed ), value ), "value at pos " + pos );
+        assertEquals( 0, layout.compare( layout.key( expectedSeed ), node.keyAt( cursor, layout.newKey(), pos, LEAF, NULL ) ), "key at pos " + pos );
+    }
+}
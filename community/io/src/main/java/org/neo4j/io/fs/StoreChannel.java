@@ -22,6 +22,7 @@ package org.neo4j.io.fs;
 import java.io.Flushable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileLock;
 import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.InterruptibleChannel;
@@ -81,6 +82,17 @@ public interface StoreChannel extends Flushable, SeekableByteChannel, GatheringB
      */
     int getFileDescriptor();
 
+    /**
+     * Memory map a region of this channel's file for reading, if the underlying file supports it.
+     * The mapping stays valid after this channel is closed, and must not be accessed beyond the end of the file should the file be truncated.
+     * @param position the file offset the mapping starts at.
+     * @param size the number of bytes to map.
+     * @return the read-only mapped region, or {@code null} if this channel cannot be memory mapped.
+     * @throws IOException if an I/O error occurs.
+     * @see java.nio.channels.FileChannel#map(java.nio.channels.FileChannel.MapMode, long, long)
+     */
+    MappedByteBuffer mapReadOnly( long position, long size ) throws IOException;
+
     /**
      * Returns {@code true} if {@link #getPositionLock} returns a valid position lock object.
      * @return {@code true} if this channel has a valid position lock.
@@ -26,6 +26,7 @@ import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 
@@ -204,6 +205,16 @@ public class StoreFileChannel implements StoreChannel
         return INVALID_FILE_DESCRIPTOR;
     }
 
+    @Override
+    public MappedByteBuffer mapReadOnly( long position, long size ) throws IOException
+    {
+        if ( channel.getClass() != CLS_FILE_CHANNEL_IMPL )
+        {
+            return null;
+        }
+        return channel.map( FileChannel.MapMode.READ_ONLY, position, size );
+    }
+
     @Override
     public boolean hasPositionLock()
     {
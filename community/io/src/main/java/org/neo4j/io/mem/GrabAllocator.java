@@ -19,14 +19,12 @@
  */
 package org.neo4j.io.mem;
 
+import org.neo4j.internal.nativeimpl.NativeAccessProvider;
 import org.neo4j.internal.unsafe.UnsafeUtil;
 import org.neo4j.memory.MemoryTracker;
 
 import java.lang.ref.Cleaner;
 
-import static org.neo4j.io.ByteUnit.kibiBytes;
-import static org.neo4j.util.FeatureToggles.getInteger;
-
 /**
  * This memory allocator is allocating memory in large segments, called "grabs", and the memory returned by the memory
  * manager is page aligned, and plays well with transparent huge pages and other operating system optimisations.
@@ -48,7 +46,21 @@ public final class GrabAllocator implements MemoryAllocator
      */
     GrabAllocator( long expectedMaxMemory, MemoryTracker memoryTracker )
     {
-        this.grabs = new Grabs( expectedMaxMemory, memoryTracker );
+        this( expectedMaxMemory, memoryTracker, false, NumaPolicy.NONE );
+    }
+
+    /**
+     * Create a new GrabAllocator that will allocate the given amount of memory, and advise the operating system on how to place it.
+     *
+     * @param expectedMaxMemory The maximum amount of memory that this memory manager is expected to allocate.
+     * @param memoryTracker memory usage tracker
+     * @param hugePages whether to advise that the memory should be backed by transparent huge pages.
+     * @param numaPolicy how the memory should be placed on the NUMA nodes of the system.
+     */
+    GrabAllocator( long expectedMaxMemory, MemoryTracker memoryTracker, boolean hugePages, NumaPolicy numaPolicy )
+    {
+        GrabPlacement placement = new GrabPlacement( hugePages, numaPolicy, NativeAccessProvider.getNativeAccess() );
+        this.grabs = new Grabs( expectedMaxMemory, memoryTracker, placement );
         this.cleanable = globalCleaner.register( this, new GrabsDeallocator( grabs ) );
     }
 
@@ -84,10 +96,11 @@ public final class GrabAllocator implements MemoryAllocator
         private final MemoryTracker memoryTracker;
         private long nextPointer;
 
-        Grab( Grab next, long size, MemoryTracker memoryTracker )
+        Grab( Grab next, long size, MemoryTracker memoryTracker, GrabPlacement placement )
         {
             this.next = next;
             this.address = UnsafeUtil.allocateMemory( size, memoryTracker );
+            placement.place( address, size );
             this.limit = address + size;
             this.memoryTracker = memoryTracker;
             nextPointer = address;
@@ -150,19 +163,21 @@ public final class GrabAllocator implements MemoryAllocator
 
     private static final class Grabs
     {
+        private final MemoryTracker memoryTracker;
+        private final GrabPlacement placement;
         /**
          * The amount of memory, in bytes, to grab in each Grab.
          */
-        private static final long GRAB_SIZE = getInteger( GrabAllocator.class, "GRAB_SIZE", (int) kibiBytes( 512 ) );
-
-        private final MemoryTracker memoryTracker;
+        private final long standardGrabSize;
         private long expectedMaxMemory;
         private Grab head;
 
-        Grabs( long expectedMaxMemory, MemoryTracker memoryTracker )
+        Grabs( long expectedMaxMemory, MemoryTracker memoryTracker, GrabPlacement placement )
         {
             this.expectedMaxMemory = expectedMaxMemory;
             this.memoryTracker = memoryTracker;
+            this.placement = placement;
+            this.standardGrabSize = placement.grabSize();
         }
 
         long usedMemory()
@@ -206,19 +221,19 @@ public final class GrabAllocator implements MemoryAllocator
             {
                 throw new IllegalArgumentException( "Invalid alignment: " + alignment + ". Alignment must be positive." );
             }
-            long grabSize = Math.min( GRAB_SIZE, expectedMaxMemory );
+            long grabSize = Math.min( standardGrabSize, expectedMaxMemory );
             long maxAllocationSize = bytes + alignment - 1;
-            if ( maxAllocationSize > GRAB_SIZE )
+            if ( maxAllocationSize > standardGrabSize )
             {
                 // This is a huge allocation. Put it in its own grab and keep any existing grab at the head.
                 grabSize = bytes;
                 Grab nextGrab = head == null ? null : head.next;
-                Grab allocationGrab = new Grab( nextGrab, grabSize, memoryTracker );
+                Grab allocationGrab = new Grab( nextGrab, grabSize, memoryTracker, placement );
                 if ( !allocationGrab.canAllocate( bytes, alignment ) )
                 {
                     allocationGrab.free();
                     grabSize = maxAllocationSize;
-                    allocationGrab = new Grab( nextGrab, grabSize, memoryTracker );
+                    allocationGrab = new Grab( nextGrab, grabSize, memoryTracker, placement );
                 }
                 long allocation = allocationGrab.allocate( bytes, alignment );
                 head = head == null ? allocationGrab : head.setNext( allocationGrab );
@@ -231,7 +246,7 @@ public final class GrabAllocator implements MemoryAllocator
                 if ( grabSize < bytes )
                 {
                     grabSize = bytes;
-                    Grab grab = new Grab( head, grabSize, memoryTracker );
+                    Grab grab = new Grab( head, grabSize, memoryTracker, placement );
                     if ( grab.canAllocate( bytes, alignment ) )
                     {
                         expectedMaxMemory -= grabSize;
@@ -241,7 +256,7 @@ public final class GrabAllocator implements MemoryAllocator
                     grab.free();
                     grabSize = maxAllocationSize;
                 }
-                head = new Grab( head, grabSize, memoryTracker );
+                head = new Grab( head, grabSize, memoryTracker, placement );
                 expectedMaxMemory -= grabSize;
             }
             return head.allocate( bytes, alignment );
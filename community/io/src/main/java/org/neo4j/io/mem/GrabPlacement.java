@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.mem;
+
+import org.neo4j.internal.nativeimpl.NativeAccess;
+import org.neo4j.internal.unsafe.UnsafeUtil;
+
+import static org.neo4j.io.ByteUnit.kibiBytes;
+import static org.neo4j.io.ByteUnit.mebiBytes;
+import static org.neo4j.util.FeatureToggles.getInteger;
+
+/**
+ * Decides how large the grabs of a {@link GrabAllocator} are, and advises the operating system about the memory of every grab before it
+ * is first touched.
+ *
+ * The grabs themselves are allocated with plain malloc, so the advice only covers the part of a grab that is aligned to the OS page size, or
+ * to the huge page size. Grabs are made large enough for this to be nearly all of it, when advice is given.
+ */
+final class GrabPlacement
+{
+    /**
+     * The amount of memory, in bytes, to grab in each Grab.
+     */
+    private static final long GRAB_SIZE = getInteger( GrabAllocator.class, "GRAB_SIZE", (int) kibiBytes( 512 ) );
+
+    /**
+     * The amount of memory, in bytes, to grab in each Grab, when the memory is placed with huge pages or on NUMA nodes.
+     */
+    private static final long PLACED_GRAB_SIZE = getInteger( GrabAllocator.class, "PLACED_GRAB_SIZE", (int) mebiBytes( 32 ) );
+
+    /**
+     * The size of transparent huge pages on x86-64 and on aarch64 with 4 KiB base pages.
+     */
+    private static final long HUGE_PAGE_SIZE = mebiBytes( 2 );
+
+    private final boolean hugePages;
+    private final NumaPolicy numaPolicy;
+    private final NativeAccess nativeAccess;
+    private int nextNode;
+
+    GrabPlacement( boolean hugePages, NumaPolicy numaPolicy, NativeAccess nativeAccess )
+    {
+        this.hugePages = hugePages;
+        this.numaPolicy = numaPolicy;
+        this.nativeAccess = nativeAccess;
+    }
+
+    long grabSize()
+    {
+        return isPlaced() ? PLACED_GRAB_SIZE : GRAB_SIZE;
+    }
+
+    void place( long address, long size )
+    {
+        if ( !isPlaced() )
+        {
+            return;
+        }
+        long pageSize = UnsafeUtil.pageSize();
+        long start = alignUp( address, pageSize );
+        long end = alignDown( address + size, pageSize );
+        if ( end > start )
+        {
+            if ( numaPolicy == NumaPolicy.INTERLEAVE )
+            {
+                nativeAccess.tryInterleaveMemory( start, end - start );
+            }
+            else if ( numaPolicy == NumaPolicy.PARTITION )
+            {
+                nativeAccess.tryPlaceMemoryOnNode( start, end - start, nextNode );
+                nextNode = (nextNode + 1) % nativeAccess.numaNodeCount();
+            }
+        }
+        long hugeStart = alignUp( address, HUGE_PAGE_SIZE );
+        long hugeEnd = alignDown( address + size, HUGE_PAGE_SIZE );
+        if ( hugePages && hugeEnd > hugeStart )
+        {
+            nativeAccess.tryAdviseHugePages( hugeStart, hugeEnd - hugeStart );
+        }
+    }
+
+    private boolean isPlaced()
+    {
+        return hugePages || numaPolicy != NumaPolicy.NONE;
+    }
+
+    private static long alignUp( long address, long alignment )
+    {
+        return (address + alignment - 1) & -alignment;
+    }
+
+    private static long alignDown( long address, long alignment )
+    {
+        return address & -alignment;
+    }
+}
@@ -31,6 +31,15 @@ public interface MemoryAllocator
         return new GrabAllocator( expectedMemory, memoryTracker );
     }
 
+    /**
+     * Create an allocator that advises the operating system to back its memory with transparent huge pages, and to place it on the NUMA
+     * nodes of the system according to the given policy. The advice is only given where native access is available.
+     */
+    static MemoryAllocator createAllocator( long expectedMemory, MemoryTracker memoryTracker, boolean hugePages, NumaPolicy numaPolicy )
+    {
+        return new GrabAllocator( expectedMemory, memoryTracker, hugePages, numaPolicy );
+    }
+
     /**
      * @return The sum, in bytes, of all the memory currently allocating through this allocator.
      */
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.mem;
+
+/**
+ * How a {@link MemoryAllocator} places the memory it allocates on the NUMA nodes of the system.
+ */
+public enum NumaPolicy
+{
+    /**
+     * Leave the placement to the operating system, which usually places memory on the node of the thread that first touches it.
+     */
+    NONE,
+
+    /**
+     * Interleave the memory page by page across all nodes, so that memory bandwidth and latency are the same for threads on all nodes.
+     */
+    INTERLEAVE,
+
+    /**
+     * Prefer each node in turn for consecutive large chunks of the memory, so that every node holds an about equal share of the memory.
+     * This is only a preference, a chunk is placed on another node when its preferred node runs out of free memory.
+     */
+    PARTITION
+}
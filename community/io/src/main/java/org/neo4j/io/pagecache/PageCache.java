@@ -161,6 +161,23 @@ public interface PageCache extends AutoCloseable
      */
     void flushAndForce( IOLimiter limiter ) throws IOException;
 
+    /**
+     * Flush all dirty pages of the given files, which must have been mapped by this page cache, but limit the rate of IO as advised by the given
+     * IOPSLimiter. The files are flushed as one unit of work, which lets implementations order and spread the IO over all the files at once,
+     * rather than flushing them one by one.
+     *
+     * @param files The {@link PagedFile}s to flush.
+     * @param limiter The {@link IOLimiter} that determines if pauses or sleeps should be injected into the flushing
+     * process to keep the IO rate down.
+     */
+    default void flushAndForce( List<PagedFile> files, IOLimiter limiter ) throws IOException
+    {
+        for ( PagedFile file : files )
+        {
+            file.flushAndForce( limiter );
+        }
+    }
+
     /**
      * Close the page cache to prevent any future mapping of files.
      * This also releases any internal resources, including the {@link PageSwapperFactory} through its
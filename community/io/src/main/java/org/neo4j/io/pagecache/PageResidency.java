@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache;
+
+import org.eclipse.collections.api.set.ImmutableSet;
+
+import java.io.File;
+import java.nio.file.OpenOption;
+import java.util.Objects;
+
+/**
+ * An {@link OpenOption} for {@link PageCache#map(File, int, ImmutableSet)}, that controls how the pages of the mapped file
+ * compete with the pages of other mapped files, for room in the page cache.
+ * <p>
+ * The residency is decided by the first mapping of a file, and is ignored if the file is already mapped.
+ * Page caches that do not support residency options are free to ignore them.
+ */
+public final class PageResidency implements OpenOption
+{
+    /**
+     * The priority class of the pages of a mapped file.
+     */
+    public enum Priority
+    {
+        /**
+         * The pages of the file are aged faster than other pages, and will be evicted sooner.
+         */
+        LOW,
+        /**
+         * The pages of the file are evicted according to the eviction policy of the page cache.
+         */
+        NORMAL,
+        /**
+         * The pages of the file are only evicted when no other pages can be evicted, effectively pinning them in memory.
+         */
+        HIGH
+    }
+
+    private static final int UNLIMITED_PERCENT = 100;
+
+    private final Priority priority;
+    private final int maxResidentPercent;
+
+    private PageResidency( Priority priority, int maxResidentPercent )
+    {
+        if ( maxResidentPercent < 1 || maxResidentPercent > UNLIMITED_PERCENT )
+        {
+            throw new IllegalArgumentException( "The max resident percentage must be between 1 and 100, but was " + maxResidentPercent + "." );
+        }
+        this.priority = Objects.requireNonNull( priority );
+        this.maxResidentPercent = maxResidentPercent;
+    }
+
+    /**
+     * @param priority the priority class of the pages of the mapped file.
+     * @return a residency option with the given priority, and no quota.
+     */
+    public static PageResidency priority( Priority priority )
+    {
+        return new PageResidency( priority, UNLIMITED_PERCENT );
+    }
+
+    /**
+     * @param maxResidentPercent the maximum percentage of the pages in the page cache, that the mapped file should occupy.
+     * @return a residency option with {@link Priority#NORMAL normal} priority, and the given quota.
+     */
+    public static PageResidency maxResidentPercent( int maxResidentPercent )
+    {
+        return new PageResidency( Priority.NORMAL, maxResidentPercent );
+    }
+
+    /**
+     * @param priority the priority class of the pages of the mapped file.
+     * @param maxResidentPercent the maximum percentage of the pages in the page cache, that the mapped file should occupy.
+     * @return a residency option with the given priority and quota.
+     */
+    public static PageResidency of( Priority priority, int maxResidentPercent )
+    {
+        return new PageResidency( priority, maxResidentPercent );
+    }
+
+    public Priority getPriority()
+    {
+        return priority;
+    }
+
+    /**
+     * The quota is soft: a file can grow beyond its quota while there are free pages, but once the page cache needs to
+     * evict pages, the pages of files that exceed their quota will be evicted first, regardless of their usage.
+     *
+     * @return the maximum percentage of the pages in the page cache, that the mapped file should occupy.
+     */
+    public int getMaxResidentPercent()
+    {
+        return maxResidentPercent;
+    }
+
+    public boolean hasQuota()
+    {
+        return maxResidentPercent < UNLIMITED_PERCENT;
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o )
+        {
+            return true;
+        }
+        if ( o == null || getClass() != o.getClass() )
+        {
+            return false;
+        }
+        PageResidency that = (PageResidency) o;
+        return maxResidentPercent == that.maxResidentPercent && priority == that.priority;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash( priority, maxResidentPercent );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "PageResidency[priority=" + priority + ", maxResidentPercent=" + maxResidentPercent + "]";
+    }
+}
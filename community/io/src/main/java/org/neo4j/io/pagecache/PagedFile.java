@@ -75,9 +75,10 @@ public interface PagedFile extends AutoCloseable
      */
     int PF_NO_FAULT = 1 << 4;
     /**
-     * Do not update page access statistics.
+     * Do not update page access statistics. Pages that are pinned by such a cursor are neither kept in memory for longer, nor evicted sooner,
+     * because of it, and pages that are faulted in by such a cursor are the first candidates for eviction.
      */
-    int PF_TRANSIENT = 1 << 5; // TBD
+    int PF_TRANSIENT = 1 << 5;
     /**
      * Flush pages more aggressively, after they have been dirtied by a write cursor.
      */
@@ -149,6 +150,12 @@ public interface PagedFile extends AutoCloseable
      */
     long fileSize() throws IOException;
 
+    /**
+     * Number of pages of this file that may have been written to since they were last flushed. This is an estimate of how much a flush of
+     * the file would have to write, and may include pages that have since been flushed by eviction.
+     */
+    long dirtyPages();
+
     /**
      * Get the filename that is mapped by this {@code PagedFile}.
      */
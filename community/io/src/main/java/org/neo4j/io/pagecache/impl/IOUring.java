@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.neo4j.internal.nativeimpl.LinuxNativeAccess;
+import org.neo4j.internal.unsafe.UnsafeUtil;
+
+import static org.neo4j.memory.EmptyMemoryTracker.INSTANCE;
+
+/**
+ * A minimal io_uring submission and completion queue pair, used for submitting batches of vectored reads and writes with a single system call.
+ *
+ * The queues are shared with the kernel through memory mappings, and are accessed with the same ordering rules as liburing uses: the tail of the
+ * submission queue is published with a volatile store after the entries have been written, and the tail of the completion queue is read with a volatile
+ * load before the entries are read.
+ *
+ * A ring is not thread-safe. It must only be used by one thread at a time, which submits a batch of entries and then waits for all of them to complete,
+ * before submitting the next batch. This way, the submission queue entry in slot {@code i} is always the {@code i}'th entry of the current batch.
+ *
+ * The queues are mapped by the kernel, rather than allocated through {@link UnsafeUtil}, so they are accessed with the absolute addressing variants of
+ * the {@link UnsafeUtil} methods, that take a {@code null} base object.
+ */
+final class IOUring implements Closeable
+{
+    static final byte IORING_OP_READV = 1;
+    static final byte IORING_OP_WRITEV = 2;
+
+    private static final int IORING_ENTER_GETEVENTS = 1;
+    private static final long IORING_OFF_SQ_RING = 0L;
+    private static final long IORING_OFF_CQ_RING = 0x8000000L;
+    private static final long IORING_OFF_SQES = 0x10000000L;
+
+    // Layout of struct io_uring_params, and the struct io_sqring_offsets and struct io_cqring_offsets it contains.
+    private static final int PARAMS_SIZE = 120;
+    private static final int PARAMS_SQ_ENTRIES = 0;
+    private static final int PARAMS_CQ_ENTRIES = 4;
+    private static final int PARAMS_SQ_OFF = 40;
+    private static final int PARAMS_CQ_OFF = 80;
+    private static final int SQ_OFF_TAIL = 4;
+    private static final int SQ_OFF_RING_MASK = 8;
+    private static final int SQ_OFF_ARRAY = 24;
+    private static final int CQ_OFF_HEAD = 0;
+    private static final int CQ_OFF_TAIL = 4;
+    private static final int CQ_OFF_RING_MASK = 8;
+    private static final int CQ_OFF_CQES = 20;
+
+    // Layout of struct io_uring_sqe, struct io_uring_cqe and struct iovec.
+    private static final int SQE_SIZE = 64;
+    private static final int SQE_OPCODE = 0;
+    private static final int SQE_FD = 4;
+    private static final int SQE_OFF = 8;
+    private static final int SQE_ADDR = 16;
+    private static final int SQE_LEN = 24;
+    private static final int SQE_USER_DATA = 32;
+    private static final int CQE_SIZE = 16;
+    private static final int CQE_USER_DATA = 0;
+    private static final int CQE_RES = 8;
+    private static final int IOVEC_SIZE = 16;
+
+    // The number of times waiting for the remaining entries of a failed batch is retried, before giving up on them.
+    private static final int DRAIN_ATTEMPTS = 100;
+
+    private final LinuxNativeAccess nativeAccess;
+    private final int ringFd;
+    private final int entries;
+    private final int maxIovecsPerEntry;
+    private final long sqRing;
+    private final long sqRingSize;
+    private final long cqRing;
+    private final long cqRingSize;
+    private final long sqes;
+    private final long sqesSize;
+    private final long sqTail;
+    private final int sqMask;
+    private final long sqArray;
+    private final long cqHead;
+    private final long cqTail;
+    private final int cqMask;
+    private final long cqes;
+    private final long iovecs;
+    private final long iovecsSize;
+    private final int[] results;
+    // Entries of the current batch that the kernel has not consumed from the submission queue yet.
+    private int unsubmitted;
+    // Entries of the current batch whose completions have not been reaped yet. Includes the unsubmitted entries.
+    private int uncompleted;
+    private boolean closed;
+
+    private IOUring( LinuxNativeAccess nativeAccess, int ringFd, long params, int maxIovecsPerEntry ) throws IOException
+    {
+        this.nativeAccess = nativeAccess;
+        this.ringFd = ringFd;
+        this.maxIovecsPerEntry = maxIovecsPerEntry;
+        entries = UnsafeUtil.getInt( params + PARAMS_SQ_ENTRIES );
+        int cqEntries = UnsafeUtil.getInt( params + PARAMS_CQ_ENTRIES );
+        long sqOff = params + PARAMS_SQ_OFF;
+        long cqOff = params + PARAMS_CQ_OFF;
+
+        sqRingSize = UnsafeUtil.getInt( sqOff + SQ_OFF_ARRAY ) + (long) entries * Integer.BYTES;
+        cqRingSize = UnsafeUtil.getInt( cqOff + CQ_OFF_CQES ) + (long) cqEntries * CQE_SIZE;
+        sqesSize = (long) entries * SQE_SIZE;
+        iovecsSize = (long) entries * maxIovecsPerEntry * IOVEC_SIZE;
+        long sqRingAddress = 0;
+        long cqRingAddress = 0;
+        long sqesAddress = 0;
+        try
+        {
+            sqRingAddress = nativeAccess.mapShared( ringFd, IORING_OFF_SQ_RING, sqRingSize );
+            cqRingAddress = nativeAccess.mapShared( ringFd, IORING_OFF_CQ_RING, cqRingSize );
+            sqesAddress = nativeAccess.mapShared( ringFd, IORING_OFF_SQES, sqesSize );
+            iovecs = UnsafeUtil.allocateMemory( iovecsSize, INSTANCE );
+        }
+        catch ( IOException | RuntimeException | OutOfMemoryError e )
+        {
+            unmapQuietly( sqesAddress, sqesSize, e );
+            unmapQuietly( cqRingAddress, cqRingSize, e );
+            unmapQuietly( sqRingAddress, sqRingSize, e );
+            throw e;
+        }
+        sqRing = sqRingAddress;
+        cqRing = cqRingAddress;
+        sqes = sqesAddress;
+
+        sqTail = sqRing + UnsafeUtil.getInt( sqOff + SQ_OFF_TAIL );
+        sqMask = UnsafeUtil.getInt( null, sqRing + UnsafeUtil.getInt( sqOff + SQ_OFF_RING_MASK ) );
+        sqArray = sqRing + UnsafeUtil.getInt( sqOff + SQ_OFF_ARRAY );
+        cqHead = cqRing + UnsafeUtil.getInt( cqOff + CQ_OFF_HEAD );
+        cqTail = cqRing + UnsafeUtil.getInt( cqOff + CQ_OFF_TAIL );
+        cqMask = UnsafeUtil.getInt( null, cqRing + UnsafeUtil.getInt( cqOff + CQ_OFF_RING_MASK ) );
+        cqes = cqRing + UnsafeUtil.getInt( cqOff + CQ_OFF_CQES );
+        results = new int[entries];
+    }
+
+    private void unmapQuietly( long address, long size, Throwable failure )
+    {
+        if ( address != 0 )
+        {
+            try
+            {
+                nativeAccess.unmap( address, size );
+            }
+            catch ( IOException e )
+            {
+                failure.addSuppressed( e );
+            }
+        }
+    }
+
+    /**
+     * Set up a new ring.
+     * @param entries the requested number of submission queue entries. The kernel rounds this up to a power of two.
+     * @param maxIovecsPerEntry the maximum number of buffers in a single vectored read or write.
+     * @throws IOException if io_uring is not supported by the kernel, or cannot be set up.
+     */
+    static IOUring open( LinuxNativeAccess nativeAccess, int entries, int maxIovecsPerEntry ) throws IOException
+    {
+        long params = UnsafeUtil.allocateMemory( PARAMS_SIZE, INSTANCE );
+        try
+        {
+            UnsafeUtil.setMemory( params, PARAMS_SIZE, (byte) 0 );
+            int ringFd = nativeAccess.ioUringSetup( entries, params );
+            try
+            {
+                return new IOUring( nativeAccess, ringFd, params, maxIovecsPerEntry );
+            }
+            catch ( IOException | RuntimeException e )
+            {
+                nativeAccess.closeFileDescriptor( ringFd );
+                throw e;
+            }
+        }
+        finally
+        {
+            UnsafeUtil.free( params, PARAMS_SIZE, INSTANCE );
+        }
+    }
+
+    /**
+     * @return the maximum number of entries in a single batch.
+     */
+    int entries()
+    {
+        return entries;
+    }
+
+    int maxIovecsPerEntry()
+    {
+        return maxIovecsPerEntry;
+    }
+
+    /**
+     * Prepare the given entry of the next batch, as a vectored read or write of the given buffers.
+     * @param entry the index of the entry in the batch, less than {@link #entries()}.
+     * @param opcode {@link #IORING_OP_READV} or {@link #IORING_OP_WRITEV}.
+     */
+    void prepare( int entry, byte opcode, int fd, long fileOffset, long[] bufferAddresses, int arrayOffset, int length, int bufferSize )
+    {
+        long iovec = iovecs + (long) entry * maxIovecsPerEntry * IOVEC_SIZE;
+        for ( int i = 0; i < length; i++ )
+        {
+            UnsafeUtil.putLong( iovec + (long) i * IOVEC_SIZE, bufferAddresses[arrayOffset + i] );
+            UnsafeUtil.putLong( iovec + (long) i * IOVEC_SIZE + Long.BYTES, bufferSize );
+        }
+        long sqe = sqes + (long) entry * SQE_SIZE;
+        for ( int i = 0; i < SQE_SIZE; i += Long.BYTES )
+        {
+            UnsafeUtil.putLong( null, sqe + i, 0 );
+        }
+        UnsafeUtil.putByte( null, sqe + SQE_OPCODE, opcode );
+        UnsafeUtil.putInt( null, sqe + SQE_FD, fd );
+        UnsafeUtil.putLong( null, sqe + SQE_OFF, fileOffset );
+        UnsafeUtil.putLong( null, sqe + SQE_ADDR, iovec );
+        UnsafeUtil.putInt( null, sqe + SQE_LEN, length );
+        UnsafeUtil.putLong( null, sqe + SQE_USER_DATA, entry );
+    }
+
+    /**
+     * Submit the first {@code count} prepared entries, and wait for all of them to complete.
+     * If this throws, then some of the entries may still be in flight, and {@link #drain()} must be called before the ring or the buffers of the
+     * entries are used for anything else.
+     * @return the results of the entries, indexed by entry. A result is the number of bytes transferred, or a negated error number.
+     */
+    int[] submitAndAwait( int count ) throws IOException
+    {
+        int tail = UnsafeUtil.getInt( null, sqTail );
+        for ( int i = 0; i < count; i++ )
+        {
+            UnsafeUtil.putInt( null, sqArray + (long) ((tail + i) & sqMask) * Integer.BYTES, i );
+        }
+        // Publish the new entries to the kernel.
+        UnsafeUtil.putIntVolatile( null, sqTail, tail + count );
+        unsubmitted = count;
+        uncompleted = count;
+        awaitCompletions();
+        return results;
+    }
+
+    /**
+     * Wait for the entries of a batch that failed with an exception from {@link #submitAndAwait(int)}. The kernel may still be transferring data to or
+     * from the buffers of entries it has consumed, and published entries it has not consumed yet would be picked up by the next submission, so all of
+     * them are submitted and waited for. Failures, like interrupted system calls, are retried a bounded number of times.
+     * @return {@code true} if the kernel is done with all the entries of the batch, or {@code false} if it may still use their buffers.
+     */
+    boolean drain()
+    {
+        for ( int attempt = 0; attempt < DRAIN_ATTEMPTS && uncompleted > 0; attempt++ )
+        {
+            try
+            {
+                awaitCompletions();
+            }
+            catch ( IOException e )
+            {
+                // Try again.
+            }
+        }
+        return uncompleted == 0;
+    }
+
+    private void awaitCompletions() throws IOException
+    {
+        int head = UnsafeUtil.getInt( null, cqHead );
+        while ( uncompleted > 0 )
+        {
+            if ( unsubmitted > 0 )
+            {
+                // Only wait for completions once everything is submitted, or we could end up waiting for entries the kernel never got.
+                unsubmitted -= nativeAccess.ioUringEnter( ringFd, unsubmitted, 0, 0 );
+            }
+            else if ( head == UnsafeUtil.getIntVolatile( null, cqTail ) )
+            {
+                nativeAccess.ioUringEnter( ringFd, 0, uncompleted, IORING_ENTER_GETEVENTS );
+            }
+            while ( head != UnsafeUtil.getIntVolatile( null, cqTail ) )
+            {
+                long cqe = cqes + (long) (head & cqMask) * CQE_SIZE;
+                results[(int) UnsafeUtil.getLong( null, cqe + CQE_USER_DATA )] = UnsafeUtil.getInt( null, cqe + CQE_RES );
+                head++;
+                uncompleted--;
+            }
+            // Release the consumed completion queue entries back to the kernel.
+            UnsafeUtil.putIntVolatile( null, cqHead, head );
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if ( closed )
+        {
+            return;
+        }
+        closed = true;
+        try
+        {
+            nativeAccess.unmap( sqes, sqesSize );
+            nativeAccess.unmap( cqRing, cqRingSize );
+            nativeAccess.unmap( sqRing, sqRingSize );
+        }
+        finally
+        {
+            UnsafeUtil.free( iovecs, iovecsSize, INSTANCE );
+            nativeAccess.closeFileDescriptor( ringFd );
+        }
+    }
+}
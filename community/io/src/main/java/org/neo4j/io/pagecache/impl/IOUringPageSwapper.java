@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageEvictionCallback;
+
+import static org.neo4j.io.fs.FileSystemAbstraction.INVALID_FILE_DESCRIPTOR;
+
+/**
+ * A {@link SingleFilePageSwapper} that performs its vectored reads and writes through an io_uring, borrowed from its
+ * {@link IOUringPageSwapperFactory factory}. A vector is split into many smaller requests, which are all submitted with a single system call and are
+ * all in flight at the same time, giving the device a deep queue to work with.
+ *
+ * Single page reads and writes, and everything else, are done by the {@link SingleFilePageSwapper}. If no ring is available, or the ring fails, then
+ * vectored reads and writes are done by the {@link SingleFilePageSwapper} as well. A failed ring is only given up on after the kernel is done with all
+ * of its requests, since late completions would otherwise land in pages that have moved on.
+ */
+class IOUringPageSwapper extends SingleFilePageSwapper
+{
+    private final IOUringPageSwapperFactory factory;
+
+    IOUringPageSwapper( File file, FileSystemAbstraction fs, int filePageSize, PageEvictionCallback onEviction, boolean useDirectIO,
+            IOUringPageSwapperFactory factory ) throws IOException
+    {
+        super( file, fs, filePageSize, onEviction, useDirectIO );
+        this.factory = factory;
+    }
+
+    @Override
+    public long read( long startFilePageId, long[] bufferAddresses, int arrayOffset, int length ) throws IOException
+    {
+        long bytesRead = transfer( IOUring.IORING_OP_READV, startFilePageId, bufferAddresses, arrayOffset, length );
+        return bytesRead >= 0 ? bytesRead : super.read( startFilePageId, bufferAddresses, arrayOffset, length );
+    }
+
+    @Override
+    public long write( long startFilePageId, long[] bufferAddresses, int arrayOffset, int length ) throws IOException
+    {
+        long bytesWritten = transfer( IOUring.IORING_OP_WRITEV, startFilePageId, bufferAddresses, arrayOffset, length );
+        return bytesWritten >= 0 ? bytesWritten : super.write( startFilePageId, bufferAddresses, arrayOffset, length );
+    }
+
+    /**
+     * @return the number of bytes transferred, or -1 if the transfer could not be done through a ring.
+     */
+    private long transfer( byte opcode, long startFilePageId, long[] bufferAddresses, int arrayOffset, int length ) throws IOException
+    {
+        int fd;
+        if ( length <= 1 || (fd = fileDescriptor()) == INVALID_FILE_DESCRIPTOR )
+        {
+            return -1;
+        }
+        IOUring ring = factory.acquireRing();
+        if ( ring == null )
+        {
+            return -1;
+        }
+        try
+        {
+            long bytes = transfer( ring, fd, opcode, startFilePageId, bufferAddresses, arrayOffset, length );
+            factory.releaseRing( ring );
+            return bytes;
+        }
+        catch ( IOException e )
+        {
+            if ( !ring.drain() )
+            {
+                // The kernel may still read into or write from the buffers, so neither the ring nor the transfer can be reused.
+                factory.abandonRing( ring );
+                throw e;
+            }
+            // Both reads and writes of whole pages can safely be done again, so the caller can redo the whole transfer without the ring.
+            factory.discardRing( ring );
+            return -1;
+        }
+        catch ( RuntimeException e )
+        {
+            // Bad arguments are found while the entries are prepared, before anything is submitted, so the ring is still good.
+            factory.releaseRing( ring );
+            throw e;
+        }
+    }
+
+    private long transfer( IOUring ring, int fd, byte opcode, long startFilePageId, long[] bufferAddresses, int arrayOffset, int length )
+            throws IOException
+    {
+        boolean read = opcode == IOUring.IORING_OP_READV;
+        int pageSize = filePageSize();
+        int pagesPerEntry = ring.maxIovecsPerEntry();
+        int pagesPerBatch = ring.entries() * pagesPerEntry;
+        if ( !read )
+        {
+            increaseFileSizeTo( pageIdToPosition( startFilePageId + length ) );
+        }
+
+        long bytes = 0;
+        for ( int batchStart = 0; batchStart < length; batchStart += pagesPerBatch )
+        {
+            int batchLength = Math.min( length - batchStart, pagesPerBatch );
+            int entries = (batchLength + pagesPerEntry - 1) / pagesPerEntry;
+            for ( int entry = 0; entry < entries; entry++ )
+            {
+                int page = batchStart + entry * pagesPerEntry;
+                int count = Math.min( pagesPerEntry, length - page );
+                ring.prepare( entry, opcode, fd, pageIdToPosition( startFilePageId + page ), bufferAddresses, arrayOffset + page, count, pageSize );
+            }
+            int[] results = ring.submitAndAwait( entries );
+            for ( int entry = 0; entry < entries; entry++ )
+            {
+                int page = batchStart + entry * pagesPerEntry;
+                int count = Math.min( pagesPerEntry, length - page );
+                long expected = (long) count * pageSize;
+                if ( results[entry] == expected )
+                {
+                    bytes += expected;
+                }
+                else
+                {
+                    // A short transfer at the end of the file, or an error. The file channel knows how to deal with both.
+                    bytes += read ? super.read( startFilePageId + page, bufferAddresses, arrayOffset + page, count )
+                                  : super.write( startFilePageId + page, bufferAddresses, arrayOffset + page, count );
+                }
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.internal.nativeimpl.LinuxNativeAccess;
+import org.neo4j.internal.nativeimpl.NativeAccess;
+import org.neo4j.internal.nativeimpl.NativeAccessProvider;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+
+import static org.neo4j.util.FeatureToggles.getInteger;
+
+/**
+ * A {@link PageSwapperFactory} for Linux, whose swappers submit vectored reads and writes as batches of asynchronous requests through io_uring.
+ * This gives flushes, and vectored page faults such as read-ahead, deep queue depths on devices that can make use of them.
+ *
+ * The rings are pooled in the factory and shared by all the swappers. A swapper that cannot get a ring does its IO through the file channel instead,
+ * exactly like the {@link SingleFilePageSwapperFactory} would. If io_uring is not supported by the platform, then this factory creates plain
+ * {@link SingleFilePageSwapper single file page swappers}.
+ */
+public class IOUringPageSwapperFactory implements PageSwapperFactory
+{
+    private static final int ringEntries = getInteger( IOUringPageSwapperFactory.class, "ringEntries", 64 );
+    private static final int pagesPerRequest = getInteger( IOUringPageSwapperFactory.class, "pagesPerRequest", 16 );
+    private static final int maxRings = getInteger( IOUringPageSwapperFactory.class, "maxRings", Runtime.getRuntime().availableProcessors() );
+
+    private final FileSystemAbstraction fs;
+    private final LinuxNativeAccess nativeAccess;
+    private final Queue<IOUring> idleRings = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger ringCount = new AtomicInteger();
+    private final boolean available;
+    private volatile boolean closed;
+
+    public IOUringPageSwapperFactory( FileSystemAbstraction fs )
+    {
+        this( fs, linuxNativeAccess() );
+    }
+
+    IOUringPageSwapperFactory( FileSystemAbstraction fs, LinuxNativeAccess nativeAccess )
+    {
+        this.fs = fs;
+        this.nativeAccess = nativeAccess;
+        IOUring ring = nativeAccess != null ? openRing() : null;
+        available = ring != null;
+        if ( available )
+        {
+            ringCount.set( 1 );
+            idleRings.add( ring );
+        }
+    }
+
+    private static LinuxNativeAccess linuxNativeAccess()
+    {
+        NativeAccess access = NativeAccessProvider.getNativeAccess();
+        return access instanceof LinuxNativeAccess ? (LinuxNativeAccess) access : null;
+    }
+
+    /**
+     * @return {@code true} if io_uring is supported by the platform, and swappers from this factory will use it.
+     */
+    public boolean isAvailable()
+    {
+        return available;
+    }
+
+    @Override
+    public PageSwapper createPageSwapper(
+            File file,
+            int filePageSize,
+            PageEvictionCallback onEviction,
+            boolean createIfNotExist,
+            boolean useDirectIO ) throws IOException
+    {
+        if ( !createIfNotExist && !fs.fileExists( file ) )
+        {
+            throw new NoSuchFileException( file.getPath(), null, "Cannot map non-existing file" );
+        }
+        if ( !available )
+        {
+            return new SingleFilePageSwapper( file, fs, filePageSize, onEviction, useDirectIO );
+        }
+        return new IOUringPageSwapper( file, fs, filePageSize, onEviction, useDirectIO, this );
+    }
+
+    /**
+     * Borrow a ring, which must be given back with {@link #releaseRing(IOUring)}, {@link #discardRing(IOUring)} or {@link #abandonRing(IOUring)}.
+     * @return a ring, or {@code null} if all the rings are in use.
+     */
+    IOUring acquireRing()
+    {
+        IOUring ring = idleRings.poll();
+        if ( ring != null || closed )
+        {
+            return ring;
+        }
+        int count;
+        do
+        {
+            count = ringCount.get();
+            if ( count >= maxRings )
+            {
+                return null;
+            }
+        }
+        while ( !ringCount.compareAndSet( count, count + 1 ) );
+        ring = openRing();
+        if ( ring == null )
+        {
+            ringCount.decrementAndGet();
+        }
+        return ring;
+    }
+
+    void releaseRing( IOUring ring )
+    {
+        idleRings.add( ring );
+        if ( closed )
+        {
+            closeIdleRings();
+        }
+    }
+
+    /**
+     * Close a ring that failed, rather than giving it back to the pool.
+     */
+    void discardRing( IOUring ring )
+    {
+        closeQuietly( ring );
+        ringCount.decrementAndGet();
+    }
+
+    /**
+     * Forget about a ring that failed with requests still in flight. The ring is left open, since the kernel may still be using it.
+     */
+    void abandonRing( IOUring ring )
+    {
+        ringCount.decrementAndGet();
+    }
+
+    private IOUring openRing()
+    {
+        try
+        {
+            return IOUring.open( nativeAccess, ringEntries, pagesPerRequest );
+        }
+        catch ( IOException | RuntimeException | LinkageError e )
+        {
+            // io_uring is not supported here. Fall back to the file channel.
+            return null;
+        }
+    }
+
+    private void closeIdleRings()
+    {
+        IOUring ring;
+        while ( (ring = idleRings.poll()) != null )
+        {
+            closeQuietly( ring );
+        }
+    }
+
+    private static void closeQuietly( IOUring ring )
+    {
+        try
+        {
+            ring.close();
+        }
+        catch ( IOException ignore )
+        {
+            // The ring is gone either way.
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        closeIdleRings();
+    }
+}
@@ -90,6 +90,7 @@ public class SingleFilePageSwapper implements PageSwapper
     private final File file;
     private final int filePageSize;
     private final Set<OpenOption> openOptions;
+    private final boolean useDirectIO;
     private volatile PageEvictionCallback onEviction;
     private StoreChannel channel;
     private FileLock fileLock;
@@ -113,6 +114,7 @@ public class SingleFilePageSwapper implements PageSwapper
             options.add( ExtendedOpenOption.DIRECT );
         }
         openOptions = Set.copyOf( options );
+        this.useDirectIO = useDirectIO;
         channel = createStoreChannel();
 
         this.filePageSize = filePageSize;
@@ -158,9 +160,16 @@ public class SingleFilePageSwapper implements PageSwapper
             throw new IllegalArgumentException( "Direct IO can be used only when page cache page size is a multiplier of a block size. "
                     + "File page size: " + filePageSize + ", block size: " + blockSize );
         }
+        // The page cache aligns its page buffers to the OS memory page size, and direct IO requires the buffers to also be aligned to the block size.
+        long bufferAlignment = UnsafeUtil.pageSize();
+        if ( bufferAlignment % blockSize != 0 )
+        {
+            throw new IllegalArgumentException( "Direct IO can be used only when the memory page size is a multiplier of a block size. "
+                    + "Memory page size: " + bufferAlignment + ", block size: " + blockSize );
+        }
     }
 
-    private void increaseFileSizeTo( long newFileSize )
+    void increaseFileSizeTo( long newFileSize )
     {
         long currentFileSize;
         do
@@ -211,11 +220,13 @@ public class SingleFilePageSwapper implements PageSwapper
         {
             ByteBuffer bufferProxy = proxy( bufferAddress, filePageSize );
             int read;
+            // With direct IO, a short read means that we have reached the end of the file. We cannot continue reading from there anyway,
+            // because the file position and buffer offset would no longer be aligned to the block size.
             do
             {
                 read = channel.read( bufferProxy, fileOffset + readTotal );
             }
-            while ( read != -1 && (readTotal += read) < filePageSize );
+            while ( read != -1 && (readTotal += read) < filePageSize && !useDirectIO );
 
             // Zero-fill the rest.
             int rest = filePageSize - readTotal;
@@ -328,9 +339,9 @@ public class SingleFilePageSwapper implements PageSwapper
         long bytesRead = lockPositionReadVector( fileOffset, srcs );
         if ( bytesRead == -1 )
         {
-            for ( long address : bufferAddresses )
+            for ( int i = 0; i < length; i++ )
             {
-                UnsafeUtil.setMemory( address, filePageSize, MuninnPageCache.ZERO_BYTE );
+                UnsafeUtil.setMemory( bufferAddresses[arrayOffset + i], filePageSize, MuninnPageCache.ZERO_BYTE );
             }
             return 0;
         }
@@ -362,11 +373,12 @@ public class SingleFilePageSwapper implements PageSwapper
         synchronized ( channel.getPositionLock() )
         {
             setPositionUnderLock( fileOffset );
+            // Like in swapIn, a short read with direct IO means that we have reached the end of the file.
             do
             {
                 read = channel.read( srcs );
             }
-            while ( read != -1 && (readTotal += read) < toRead );
+            while ( read != -1 && (readTotal += read) < toRead && !useDirectIO );
             return readTotal;
         }
     }
@@ -528,11 +540,24 @@ public class SingleFilePageSwapper implements PageSwapper
         return file;
     }
 
-    private long pageIdToPosition( long pageId )
+    long pageIdToPosition( long pageId )
     {
         return filePageSize * pageId;
     }
 
+    int filePageSize()
+    {
+        return filePageSize;
+    }
+
+    /**
+     * @return the file descriptor of the channel of this swapper, or {@link FileSystemAbstraction#INVALID_FILE_DESCRIPTOR} if it has none.
+     */
+    int fileDescriptor()
+    {
+        return fs.getFileDescriptor( channel );
+    }
+
     @Override
     public boolean equals( Object o )
     {
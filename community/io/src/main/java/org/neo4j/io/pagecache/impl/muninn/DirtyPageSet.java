@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.neo4j.internal.unsafe.UnsafeUtil;
+
+/**
+ * The set of file pages of a {@link MuninnPagedFile} that may have been dirtied since the file was last flushed, so that flushing does not
+ * have to sweep the whole translation table to find the few pages that were written to.
+ * <p>
+ * The set is a bitmap with one bit per file page, divided into chunks that cover the same file pages as the chunks of the translation table,
+ * and that are grown together with it. The first word of every chunk is a summary flag that is raised whenever any bit in the chunk is set,
+ * which lets {@link #drain(int, MuninnPagedFile.DirtyRunConsumer) draining} skip clean chunks with a single read.
+ * <p>
+ * Write cursors {@link #mark(long) mark} their page <em>after</em> they have released their write lock. A flush first drains the bits, and
+ * then takes its flush locks. A write that overlaps with the flush of its page will therefore always mark the page again after the flush has
+ * drained it, and the page will be picked up by the next flush, even though the flush lock release leaves the page marked as modified.
+ * The set may contain pages that are not dirty, for instance because they have since been evicted, but it never misses a dirty page, as
+ * long as every drained page that is not successfully flushed is {@link #mark(long) marked} again.
+ */
+final class DirtyPageSet
+{
+    private static final int longArrayBase = UnsafeUtil.arrayBaseOffset( long[].class );
+    private static final int longArrayScale = UnsafeUtil.arrayIndexScale( long[].class );
+    private static final long summaryOffset = UnsafeUtil.arrayOffset( 0, longArrayBase, longArrayScale );
+
+    private final int chunkSizePower;
+    private final long chunkSizeMask;
+    private final int wordsPerChunk;
+    private final LongAdder size = new LongAdder();
+    private volatile long[][] chunks;
+
+    DirtyPageSet( int chunkSizePower, int initialChunks )
+    {
+        this.chunkSizePower = chunkSizePower;
+        this.chunkSizeMask = (1L << chunkSizePower) - 1;
+        this.wordsPerChunk = Math.max( 1, (1 << chunkSizePower) >>> 6 );
+        long[][] table = new long[initialChunks][];
+        for ( int i = 0; i < initialChunks; i++ )
+        {
+            table[i] = newChunk();
+        }
+        chunks = table;
+    }
+
+    /**
+     * Grow the set to cover at least the given number of chunks. Must be called under the same lock that guards the growth of the
+     * translation table, and before the grown translation table is published, so that anyone who can see a translation table chunk can
+     * also see the corresponding chunk of this set.
+     */
+    void ensureCapacity( int chunkCount )
+    {
+        long[][] table = chunks;
+        if ( table.length < chunkCount )
+        {
+            long[][] newTable = new long[chunkCount][];
+            System.arraycopy( table, 0, newTable, 0, table.length );
+            for ( int i = table.length; i < chunkCount; i++ )
+            {
+                newTable[i] = newChunk();
+            }
+            chunks = newTable;
+        }
+    }
+
+    /**
+     * Add the given file page to the set.
+     */
+    void mark( long filePageId )
+    {
+        long[][] table = chunks;
+        long chunkId = filePageId >>> chunkSizePower;
+        if ( chunkId >= table.length )
+        {
+            // The translation table has not been grown to include this page, so no cursor can have written to it.
+            return;
+        }
+        long[] chunk = table[(int) chunkId];
+        int index = (int) (filePageId & chunkSizeMask);
+        long offset = wordOffset( index >>> 6 );
+        long bit = 1L << (index & 63);
+        long word;
+        do
+        {
+            word = UnsafeUtil.getLongVolatile( chunk, offset );
+            if ( (word & bit) != 0 )
+            {
+                // Already marked. The summary is either raised, or about to be raised by whoever set the bit, or a drain has lowered it
+                // and has yet to get to our word.
+                return;
+            }
+        }
+        while ( !UnsafeUtil.compareAndSwapLong( chunk, offset, word, word | bit ) );
+        size.increment();
+        if ( UnsafeUtil.getLongVolatile( chunk, summaryOffset ) == 0 )
+        {
+            UnsafeUtil.putLongVolatile( chunk, summaryOffset, 1 );
+        }
+    }
+
+    /**
+     * Add the given run of file pages to the set.
+     */
+    void markRun( long startFilePageId, int pageCount )
+    {
+        for ( int i = 0; i < pageCount; i++ )
+        {
+            mark( startFilePageId + i );
+        }
+    }
+
+    /**
+     * Remove all pages from the set, and report them as runs of consecutive file pages, in file page order. A run can span several chunks,
+     * but is never longer than the given maximum.
+     */
+    void drain( int maxRunLength, MuninnPagedFile.DirtyRunConsumer consumer )
+    {
+        long[][] table = chunks;
+        long runStart = 0;
+        int runLength = 0;
+        for ( int chunkId = 0; chunkId < table.length; chunkId++ )
+        {
+            long[] chunk = table[chunkId];
+            if ( UnsafeUtil.getLongVolatile( chunk, summaryOffset ) == 0 || UnsafeUtil.getAndSetLong( chunk, summaryOffset, 0 ) == 0 )
+            {
+                if ( runLength > 0 )
+                {
+                    consumer.accept( runStart, runLength );
+                    runLength = 0;
+                }
+                continue;
+            }
+            long chunkStart = ((long) chunkId) << chunkSizePower;
+            for ( int w = 0; w < wordsPerChunk; w++ )
+            {
+                long offset = wordOffset( w );
+                long word = UnsafeUtil.getLongVolatile( chunk, offset ) == 0 ? 0 : UnsafeUtil.getAndSetLong( chunk, offset, 0 );
+                if ( word == 0 )
+                {
+                    if ( runLength > 0 )
+                    {
+                        consumer.accept( runStart, runLength );
+                        runLength = 0;
+                    }
+                    continue;
+                }
+                size.add( -Long.bitCount( word ) );
+                long wordStart = chunkStart + (w << 6);
+                for ( int bit = 0; bit < 64; bit++ )
+                {
+                    if ( (word & (1L << bit)) != 0 )
+                    {
+                        if ( runLength == 0 )
+                        {
+                            runStart = wordStart + bit;
+                        }
+                        runLength++;
+                        if ( runLength == maxRunLength )
+                        {
+                            consumer.accept( runStart, runLength );
+                            runLength = 0;
+                        }
+                    }
+                    else if ( runLength > 0 )
+                    {
+                        consumer.accept( runStart, runLength );
+                        runLength = 0;
+                    }
+                }
+            }
+        }
+        if ( runLength > 0 )
+        {
+            consumer.accept( runStart, runLength );
+        }
+    }
+
+    /**
+     * @return the number of pages in the set. The count is only exact when the set is not concurrently marked or drained.
+     */
+    long size()
+    {
+        return Math.max( 0, size.sum() );
+    }
+
+    private long[] newChunk()
+    {
+        return new long[1 + wordsPerChunk];
+    }
+
+    private static long wordOffset( int wordIndex )
+    {
+        return UnsafeUtil.arrayOffset( 1 + wordIndex, longArrayBase, longArrayScale );
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+/**
+ * The policy used by the {@link MuninnPageCache} for choosing which pages to evict, when it needs to make room for
+ * page faults.
+ */
+public enum EvictionPolicy
+{
+    /**
+     * A plain clock-sweep over the page usage counters. Every time the clock arm passes a page, its usage counter is
+     * decremented, and the page is evicted once the counter reaches zero.
+     * This policy works well for random access, but large sequential scans will push the entire working set out of
+     * the cache.
+     */
+    CLOCK
+            {
+                @Override
+                EvictionSweep createSweep( PageList pages )
+                {
+                    return new ClockEvictionSweep( pages );
+                }
+            },
+
+    /**
+     * A segmented clock-sweep, where pages that have only been accessed once since they were faulted in are kept in a
+     * probationary segment, and pages that have been accessed repeatedly are kept in a protected segment.
+     * The clock arm only evicts probationary pages, and only ages protected pages when there are too few probationary
+     * pages left. This way, a large sequential scan can only replace other probationary pages, and will not flush
+     * the frequently used pages out of the cache.
+     */
+    SCAN_RESISTANT
+            {
+                @Override
+                EvictionSweep createSweep( PageList pages )
+                {
+                    return new ScanResistantEvictionSweep( pages );
+                }
+            };
+
+    abstract EvictionSweep createSweep( PageList pages );
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+/**
+ * The eviction candidate selection of an {@link EvictionPolicy}, for a particular {@link PageList}.
+ * <p>
+ * The methods are only ever called for pages that are loaded, and they are allowed to update the usage counters of
+ * those pages. No locks are held on the pages when the methods are called.
+ */
+interface EvictionSweep
+{
+    /**
+     * Called by the background eviction thread, for every loaded page that its clock arm passes.
+     *
+     * @param pageRef the page the clock arm is currently pointing at.
+     * @return {@code true} if an attempt should be made to evict the given page.
+     */
+    boolean shouldEvict( long pageRef );
+
+    /**
+     * Called by page faulting threads that have to evict pages themselves, because there are no free pages available.
+     * Implementations must eventually give up on any page preference, so that the cooperative clock arm will find a
+     * victim if one exists.
+     *
+     * @param pageRef the page the cooperative clock arm is currently pointing at.
+     * @param revolutions the number of full revolutions the cooperative clock arm has already completed.
+     * @return {@code true} if an attempt should be made to evict the given page.
+     */
+    boolean shouldEvictCooperatively( long pageRef, int revolutions );
+
+    /**
+     * Called by the background eviction thread whenever its clock arm wraps around to the first page.
+     */
+    void revolutionCompleted();
+}
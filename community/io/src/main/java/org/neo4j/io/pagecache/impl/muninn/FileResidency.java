@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.neo4j.internal.unsafe.UnsafeUtil;
+import org.neo4j.io.pagecache.PageResidency;
+
+/**
+ * The {@link PageResidency} of a mapped file, resolved against the size of the page cache, together with the number of
+ * pages of the file that are currently resident. The resident pages are only counted for files that have a quota.
+ */
+final class FileResidency
+{
+    static final FileResidency UNRESTRICTED = new FileResidency( PageResidency.Priority.NORMAL, Long.MAX_VALUE );
+
+    private static final long residentPagesOffset = UnsafeUtil.getFieldOffset( FileResidency.class, "residentPages" );
+
+    final PageResidency.Priority priority;
+    private final long maxResidentPages;
+    private final boolean tracked;
+    @SuppressWarnings( "unused" ) // Accessed via Unsafe
+    private volatile long residentPages;
+
+    private FileResidency( PageResidency.Priority priority, long maxResidentPages )
+    {
+        this.priority = priority;
+        this.maxResidentPages = maxResidentPages;
+        this.tracked = maxResidentPages != Long.MAX_VALUE;
+    }
+
+    static FileResidency of( PageResidency residency, long cachePageCount )
+    {
+        if ( residency == null )
+        {
+            return UNRESTRICTED;
+        }
+        long maxResidentPages = residency.hasQuota() ? Math.max( 1, cachePageCount * residency.getMaxResidentPercent() / 100 ) : Long.MAX_VALUE;
+        return new FileResidency( residency.getPriority(), maxResidentPages );
+    }
+
+    void pageFaulted()
+    {
+        if ( tracked )
+        {
+            UnsafeUtil.getAndAddLong( this, residentPagesOffset, 1 );
+        }
+    }
+
+    void pageEvicted()
+    {
+        if ( tracked )
+        {
+            UnsafeUtil.getAndAddLong( this, residentPagesOffset, -1 );
+        }
+    }
+
+    boolean hasQuota()
+    {
+        return tracked;
+    }
+
+    boolean isOverQuota()
+    {
+        return tracked && residentPages > maxResidentPages;
+    }
+
+    long getResidentPages()
+    {
+        return residentPages;
+    }
+}
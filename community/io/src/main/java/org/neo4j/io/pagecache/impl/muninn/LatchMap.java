@@ -104,6 +104,27 @@ final class LatchMap
         return null;
     }
 
+    /**
+     * Like {@link #takeOrAwaitLatch(long)}, except this method never waits. If a latch is already installed for the given (or any colliding) identifier,
+     * then {@code null} is returned immediately.
+     */
+    Latch tryTakeLatch( long identifier )
+    {
+        int index = index( identifier );
+        if ( getLatch( index ) != null )
+        {
+            return null;
+        }
+        Latch latch = new Latch();
+        if ( compareAndSetLatch( index, null, latch ) )
+        {
+            latch.latchMap = this;
+            latch.index = index;
+            return latch;
+        }
+        return null;
+    }
+
     private int index( long identifier )
     {
         return (int) (mix( identifier ) & faultLockMask);
@@ -30,7 +30,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -41,11 +40,11 @@ import org.neo4j.io.mem.MemoryAllocator;
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageCacheOpenOptions;
+import org.neo4j.io.pagecache.PageResidency;
 import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
-import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
@@ -53,7 +52,6 @@ import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
 import org.neo4j.memory.EmptyMemoryTracker;
 import org.neo4j.memory.MemoryTracker;
 import org.neo4j.scheduler.Group;
-import org.neo4j.scheduler.JobHandle;
 import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.time.Clocks;
 import org.neo4j.time.SystemNanoClock;
@@ -131,6 +129,10 @@ public class MuninnPageCache implements PageCache
     private static final int cooperativeEvictionLiveLockThreshold = getInteger(
             MuninnPageCache.class, "cooperativeEvictionLiveLockThreshold", 100 );
 
+    // The eviction policy to use when none is given explicitly.
+    private static final EvictionPolicy defaultEvictionPolicy = flag(
+            MuninnPageCache.class, "evictionPolicy", EvictionPolicy.CLOCK );
+
     // This is a pre-allocated constant, so we can throw it without allocating any objects:
     @SuppressWarnings( "ThrowableInstanceNeverThrown" )
     private static final IOException oomException = new IOException(
@@ -152,6 +154,7 @@ public class MuninnPageCache implements PageCache
     // Scheduler that runs all the background jobs for page cache.
     private final JobScheduler scheduler;
     private final SystemNanoClock clock;
+    private final ReadAheadEngine readAheadEngine;
 
     private static final List<OpenOption> ignoredOpenOptions = Arrays.asList( StandardOpenOption.APPEND,
             StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.SPARSE );
@@ -166,6 +169,7 @@ public class MuninnPageCache implements PageCache
     private final PageCacheTracer pageCacheTracer;
     private final VersionContextSupplier versionContextSupplier;
     final PageList pages;
+    private final EvictionSweep evictionSweep;
     // All PageCursors are initialised with their pointers pointing to the victim page. This way, we don't have to throw
     // exceptions on bounds checking failures; we can instead return the victim page pointer, and permit the page
     // accesses to take place without fear of segfaulting newly allocated cursors.
@@ -193,6 +197,10 @@ public class MuninnPageCache implements PageCache
     // threads scheduling meta-data in the OS kernel.
     private volatile boolean evictorParked;
     private volatile IOException evictorException;
+    // Residency state of the background eviction thread. Only accessed by the eviction thread.
+    private boolean quotaExceeded;
+    private boolean evictHighPriorityPages;
+    private int evictedInRevolution;
 
     // Flag for when page cache is closed - writes guarded by synchronized(this), reads can be unsynchronized
     private volatile boolean closed;
@@ -244,7 +252,23 @@ public class MuninnPageCache implements PageCache
     public MuninnPageCache( PageSwapperFactory swapperFactory, MemoryAllocator memoryAllocator, PageCacheTracer pageCacheTracer,
             VersionContextSupplier versionContextSupplier, JobScheduler jobScheduler, SystemNanoClock clock, MemoryTracker memoryTracker )
     {
-        this( swapperFactory, memoryAllocator, PAGE_SIZE, pageCacheTracer, versionContextSupplier, jobScheduler, clock, memoryTracker );
+        this( swapperFactory, memoryAllocator, pageCacheTracer, versionContextSupplier, jobScheduler, clock, memoryTracker, defaultEvictionPolicy );
+    }
+
+    /**
+     * Create page cache.
+     * @param swapperFactory page cache swapper factory
+     * @param memoryAllocator the source of native memory the page cache should use
+     * @param pageCacheTracer global page cache tracer
+     * @param versionContextSupplier supplier of thread local (transaction local) version context that will provide access to thread local version context
+     * @param memoryTracker underlying buffers allocation memory tracker
+     * @param evictionPolicy the policy for choosing which pages to evict
+     */
+    public MuninnPageCache( PageSwapperFactory swapperFactory, MemoryAllocator memoryAllocator, PageCacheTracer pageCacheTracer,
+            VersionContextSupplier versionContextSupplier, JobScheduler jobScheduler, SystemNanoClock clock, MemoryTracker memoryTracker,
+            EvictionPolicy evictionPolicy )
+    {
+        this( swapperFactory, memoryAllocator, PAGE_SIZE, pageCacheTracer, versionContextSupplier, jobScheduler, clock, memoryTracker, evictionPolicy );
     }
 
     /**
@@ -255,6 +279,14 @@ public class MuninnPageCache implements PageCache
     @Deprecated
     public MuninnPageCache( PageSwapperFactory swapperFactory, MemoryAllocator memoryAllocator, int cachePageSize, PageCacheTracer pageCacheTracer,
             VersionContextSupplier versionContextSupplier, JobScheduler jobScheduler, SystemNanoClock clock, MemoryTracker memoryTracker )
+    {
+        this( swapperFactory, memoryAllocator, cachePageSize, pageCacheTracer, versionContextSupplier, jobScheduler, clock, memoryTracker,
+                defaultEvictionPolicy );
+    }
+
+    private MuninnPageCache( PageSwapperFactory swapperFactory, MemoryAllocator memoryAllocator, int cachePageSize, PageCacheTracer pageCacheTracer,
+            VersionContextSupplier versionContextSupplier, JobScheduler jobScheduler, SystemNanoClock clock, MemoryTracker memoryTracker,
+            EvictionPolicy evictionPolicy )
     {
         verifyHacks();
         verifyCachePageSizeIsPowerOfTwo( cachePageSize );
@@ -272,8 +304,10 @@ public class MuninnPageCache implements PageCache
         this.printExceptionsOnClose = true;
         this.victimPage = VictimPageReference.getVictimPage( cachePageSize, memoryTracker );
         this.pages = new PageList( maxPages, cachePageSize, memoryAllocator, new SwapperSet(), victimPage, UnsafeUtil.pageSize() );
+        this.evictionSweep = evictionPolicy.createSweep( pages );
         this.scheduler = jobScheduler;
         this.clock = clock;
+        this.readAheadEngine = new ReadAheadEngine( jobScheduler, pageCacheTracer, clock, maxPages );
 
         setFreelistHead( new AtomicInteger() );
     }
@@ -326,6 +360,7 @@ public class MuninnPageCache implements PageCache
         boolean deleteOnClose = false;
         boolean anyPageSize = false;
         boolean useDirectIO = false;
+        PageResidency residency = null;
         for ( OpenOption option : openOptions )
         {
             if ( option.equals( StandardOpenOption.CREATE ) )
@@ -348,6 +383,14 @@ public class MuninnPageCache implements PageCache
             {
                 useDirectIO = true;
             }
+            else if ( option instanceof PageResidency )
+            {
+                if ( residency != null )
+                {
+                    throw new IllegalArgumentException( "Cannot map file " + file + " with more than one residency option: " + openOptions );
+                }
+                residency = (PageResidency) option;
+            }
             else if ( !ignoredOpenOptions.contains( option ) )
             {
                 throw new UnsupportedOperationException( "Unsupported OpenOption: " + option );
@@ -397,7 +440,8 @@ public class MuninnPageCache implements PageCache
                 swapperFactory,
                 pageCacheTracer, versionContextSupplier,
                 createIfNotExists,
-                truncateExisting, useDirectIO );
+                truncateExisting, useDirectIO,
+                FileResidency.of( residency, pages.getPageCount() ) );
         pagedFile.incrementRefCount();
         pagedFile.setDeleteOnClose( deleteOnClose );
         current = new FileMapping( file, pagedFile );
@@ -565,76 +609,42 @@ public class MuninnPageCache implements PageCache
 
     @Override
     public void flushAndForce( IOLimiter limiter ) throws IOException
+    {
+        flushAndForce( listExistingMappings(), limiter );
+    }
+
+    @Override
+    public void flushAndForce( List<PagedFile> files, IOLimiter limiter ) throws IOException
     {
         if ( limiter == null )
         {
             throw new IllegalArgumentException( "IOLimiter cannot be null" );
         }
-        List<PagedFile> files = listExistingMappings();
-
-        try ( MajorFlushEvent ignored = pageCacheTracer.beginCacheFlush() )
+        // The dirty pages of our own files are flushed together, sorted and spread over a number of workers. Anything else,
+        // like wrapped or adversarial paged files, can only be flushed through their own flushAndForce method.
+        List<MuninnPagedFile> muninnFiles = new ArrayList<>( files.size() );
+        List<PagedFile> otherFiles = new ArrayList<>();
+        for ( PagedFile file : files )
         {
-            if ( limiter.isLimited() )
+            if ( file instanceof MuninnPagedFile && ((MuninnPagedFile) file).pageCache == this )
             {
-                flushAllPages( files, limiter );
+                muninnFiles.add( (MuninnPagedFile) file );
             }
             else
             {
-                flushAllPagesParallel( files, limiter );
+                otherFiles.add( file );
             }
         }
-        clearEvictorException();
-    }
-
-    private void flushAllPages( List<PagedFile> files, IOLimiter limiter ) throws IOException
-    {
-        for ( PagedFile file : files )
-        {
-            flushFile( (MuninnPagedFile) file, limiter );
-        }
-    }
-
-    private void flushAllPagesParallel( List<PagedFile> files, IOLimiter limiter ) throws IOException
-    {
-        List<JobHandle<?>> flushes = new ArrayList<>( files.size() );
 
-        // Submit all flushes to the background thread
-        for ( PagedFile file : files )
-        {
-            flushes.add( scheduler.schedule( Group.FILE_IO_HELPER, () ->
-            {
-                try
-                {
-                    flushFile( (MuninnPagedFile) file, limiter );
-                }
-                catch ( IOException e )
-                {
-                    throw new UncheckedIOException( e );
-                }
-            } ) );
-        }
-
-        // Wait for all to complete
-        for ( JobHandle<?> flush : flushes )
+        try ( MajorFlushEvent ignored = pageCacheTracer.beginCacheFlush() )
         {
-            try
-            {
-                flush.waitTermination();
-            }
-            catch ( InterruptedException | ExecutionException e )
-            {
-                throw new IOException( e );
-            }
+            new ParallelFlush( muninnFiles, limiter, pageCacheTracer, scheduler ).flushAndForce();
         }
-    }
-
-    private void flushFile( MuninnPagedFile muninnPagedFile,  IOLimiter limiter ) throws IOException
-    {
-        try ( MajorFlushEvent fileFlush = pageCacheTracer.beginFileFlush( muninnPagedFile.swapper ) )
+        for ( PagedFile file : otherFiles )
         {
-            FlushEventOpportunity flushOpportunity = fileFlush.flushEventOpportunity();
-            muninnPagedFile.flushAndForceInternal( flushOpportunity, false, limiter );
+            file.flushAndForce( limiter );
         }
+        clearEvictorException();
     }
 
     @Override
@@ -666,6 +676,7 @@ public class MuninnPageCache implements PageCache
 
         interrupt( evictionThread );
         evictionThread = null;
+        readAheadEngine.shutdown();
 
         // Close the page swapper factory last. If this fails then we will still consider ourselves closed.
         swapperFactory.close();
@@ -742,6 +753,28 @@ public class MuninnPageCache implements PageCache
         // to check and see if it is the shutdownSignal instance. If that's the
         // case, then the page cache has been shut down, and we should throw an
         // exception from our page fault routine.
+        for (;;)
+        {
+            long pageRef = tryGrabFreeAndExclusivelyLockedPage();
+            if ( pageRef != 0 )
+            {
+                return pageRef;
+            }
+            unparkEvictor();
+            pageRef = cooperativelyEvict( faultEvent );
+            if ( pageRef != 0 )
+            {
+                return pageRef;
+            }
+        }
+    }
+
+    /**
+     * Grab a page from the freelist, without doing any eviction if the freelist is empty.
+     * @return the grabbed page, exclusively locked, or 0 if the freelist is empty.
+     */
+    long tryGrabFreeAndExclusivelyLockedPage() throws IOException
+    {
         Object current;
         for (;;)
         {
@@ -749,12 +782,7 @@ public class MuninnPageCache implements PageCache
             current = getFreelistHead();
             if ( current == null )
             {
-                unparkEvictor();
-                long pageRef = cooperativelyEvict( faultEvent );
-                if ( pageRef != 0 )
-                {
-                    return pageRef;
-                }
+                return 0;
             }
             else if ( current instanceof AtomicInteger )
             {
@@ -791,6 +819,7 @@ public class MuninnPageCache implements PageCache
         int iterations = 0;
         int pageCount = pages.getPageCount();
         int clockArm = ThreadLocalRandom.current().nextInt( pageCount );
+        boolean anyFileOverQuota = isAnyFileOverQuota();
         boolean evicted = false;
         long pageRef;
         do
@@ -812,7 +841,7 @@ public class MuninnPageCache implements PageCache
             }
 
             pageRef = pages.deref( clockArm );
-            if ( pages.isLoaded( pageRef ) && pages.decrementUsage( pageRef ) )
+            if ( pages.isLoaded( pageRef ) && shouldEvictCooperatively( pageRef, iterations, anyFileOverQuota ) )
             {
                 evicted = pages.tryEvict( pageRef, faultEvent );
             }
@@ -871,9 +900,9 @@ public class MuninnPageCache implements PageCache
     }
 
     /**
-     * Scan through all the pages, one by one, and decrement their usage stamps.
-     * If a usage reaches zero, we try-write-locking it, and if we get that lock,
-     * we evict the page. If we don't, we move on to the next page.
+     * Scan through all the pages, one by one, and let the {@link EvictionPolicy} decide which of them to evict.
+     * With the default clock policy, we decrement their usage stamps, and if a usage reaches zero, we try-write-locking
+     * it, and if we get that lock, we evict the page. If we don't, we move on to the next page.
      * Once we have enough free pages, we park our thread. Page-faulting will
      * unpark our thread as needed.
      */
@@ -947,11 +976,19 @@ public class MuninnPageCache implements PageCache
 
     int evictPages( int pageCountToEvict, int clockArm, EvictionRunEvent evictionRunEvent )
     {
+        quotaExceeded = isAnyFileOverQuota();
         while ( pageCountToEvict > 0 && !closed )
         {
             if ( clockArm == pages.getPageCount() )
             {
                 clockArm = 0;
+                evictionSweep.revolutionCompleted();
+                // If we went a whole revolution without evicting anything, then we have to relax the residency
+                // constraints, or we might never find anything to evict.
+                boolean evictedNothing = evictedInRevolution == 0;
+                evictHighPriorityPages = evictedNothing;
+                quotaExceeded = !evictedNothing && isAnyFileOverQuota();
+                evictedInRevolution = 0;
             }
 
             if ( closed )
@@ -961,15 +998,22 @@ public class MuninnPageCache implements PageCache
             }
 
             long pageRef = pages.deref( clockArm );
-            if ( pages.isLoaded( pageRef ) && pages.decrementUsage( pageRef ) )
+            FileResidency residency = pages.isLoaded( pageRef ) ? residencyOf( pageRef ) : null;
+            if ( residency != null && shouldEvict( pageRef, residency ) )
             {
                 try
                 {
                     pageCountToEvict--;
                     if ( pages.tryEvict( pageRef, evictionRunEvent ) )
                     {
+                        evictedInRevolution++;
                         clearEvictorException();
                         addFreePageToFreelist( pageRef );
+                        if ( residency.hasQuota() )
+                        {
+                            // The file may just have dropped under its quota, in which case other files should no longer be spared.
+                            quotaExceeded = isAnyFileOverQuota();
+                        }
                     }
                 }
                 catch ( IOException e )
@@ -993,6 +1037,86 @@ public class MuninnPageCache implements PageCache
         return clockArm;
     }
 
+    /**
+     * Decide if the background eviction thread should evict the given loaded page. Pages of files that exceed their
+     * residency quota are always evicted, and while any file exceeds its quota, the pages of other files are left alone.
+     * High priority pages are left alone unless the previous revolution of the clock arm found nothing to evict, and
+     * low priority pages are aged twice as fast as other pages. Everything else is left to the {@link EvictionPolicy}.
+     */
+    private boolean shouldEvict( long pageRef, FileResidency residency )
+    {
+        if ( residency.isOverQuota() )
+        {
+            return true;
+        }
+        if ( quotaExceeded )
+        {
+            return false;
+        }
+        switch ( residency.priority )
+        {
+        case HIGH:
+            return evictHighPriorityPages && evictionSweep.shouldEvict( pageRef );
+        case LOW:
+            return pages.decrementUsage( pageRef ) || evictionSweep.shouldEvict( pageRef );
+        default:
+            return evictionSweep.shouldEvict( pageRef );
+        }
+    }
+
+    /**
+     * The cooperative counterpart to {@link #shouldEvict(long, FileResidency)}. After the first revolution of the cooperative clock
+     * arm, residency is no longer taken into account, since the faulting thread must find a page eventually.
+     */
+    private boolean shouldEvictCooperatively( long pageRef, int revolutions, boolean anyFileOverQuota )
+    {
+        if ( revolutions == 0 )
+        {
+            FileResidency residency = residencyOf( pageRef );
+            if ( residency.isOverQuota() )
+            {
+                return true;
+            }
+            if ( anyFileOverQuota || residency.priority == PageResidency.Priority.HIGH )
+            {
+                return false;
+            }
+            if ( residency.priority == PageResidency.Priority.LOW )
+            {
+                pages.decrementUsage( pageRef );
+            }
+        }
+        return evictionSweep.shouldEvictCooperatively( pageRef, revolutions );
+    }
+
+    private FileResidency residencyOf( long pageRef )
+    {
+        int swapperId = pages.getSwapperId( pageRef );
+        if ( swapperId != 0 )
+        {
+            SwapperSet.SwapperMapping mapping = pages.getSwappers().getAllocation( swapperId );
+            if ( mapping != null )
+            {
+                return mapping.residency;
+            }
+        }
+        return FileResidency.UNRESTRICTED;
+    }
+
+    private boolean isAnyFileOverQuota()
+    {
+        FileMapping current = mappedFiles;
+        while ( current != null )
+        {
+            if ( current.pagedFile.residency.isOverQuota() )
+            {
+                return true;
+            }
+            current = current.next;
+        }
+        return false;
+    }
+
     void addFreePageToFreelist( long pageRef )
     {
         Object current;
@@ -1056,10 +1180,9 @@ public class MuninnPageCache implements PageCache
         } );
     }
 
-    void startPreFetching( MuninnPageCursor cursor, CursorFactory cursorFactory )
+    void startReadAhead( MuninnPageCursor cursor, MuninnPagedFile pagedFile )
     {
-        PreFetcher preFetcher = new PreFetcher( cursor, cursorFactory, pageCacheTracer, clock );
-        cursor.preFetcher = scheduler.schedule( Group.PAGE_CACHE_PRE_FETCHER, preFetcher );
+        cursor.readAheadStream = readAheadEngine.register( cursor, pagedFile );
     }
 
     void allocateFileAsync( PageSwapper swapper, long newFileSize )
@@ -35,12 +35,12 @@ import org.neo4j.io.pagecache.tracing.PinEvent;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContext;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
-import org.neo4j.scheduler.JobHandle;
 import org.neo4j.util.Preconditions;
 import org.neo4j.util.VisibleForTesting;
 
 import static org.neo4j.io.pagecache.PagedFile.PF_EAGER_FLUSH;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_TRANSIENT;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
 import static org.neo4j.io.pagecache.impl.muninn.MuninnPagedFile.UNMAPPED_TTE;
 import static org.neo4j.util.FeatureToggles.flag;
@@ -73,12 +73,13 @@ public abstract class MuninnPageCursor extends PageCursor
     protected int pf_flags;
     protected boolean eagerFlush;
     protected boolean noFault;
+    protected boolean transientAccess;
     protected boolean noGrow;
     @SuppressWarnings( "unused" ) // This field is accessed via Unsafe.
     private long currentPageId;
     protected long nextPageId;
     protected MuninnPageCursor linkedCursor;
-    protected JobHandle<?> preFetcher;
+    ReadAheadEngine.Stream readAheadStream;
     private long pointer;
     private int pageSize;
     private int filePageSize;
@@ -110,6 +111,7 @@ public abstract class MuninnPageCursor extends PageCursor
         this.eagerFlush = isFlagRaised( pf_flags, PF_EAGER_FLUSH );
         this.noFault = isFlagRaised( pf_flags, PF_NO_FAULT );
         this.noGrow = noFault || isFlagRaised( pf_flags, PagedFile.PF_NO_GROW );
+        this.transientAccess = isFlagRaised( pf_flags, PF_TRANSIENT );
     }
 
     private boolean isFlagRaised( int flagSet, int flag )
@@ -208,12 +210,12 @@ public abstract class MuninnPageCursor extends PageCursor
             // We null out the pagedFile field to allow it and its (potentially big) translation table to be garbage
             // collected when the file is unmapped, since the cursors can stick around in thread local caches, etc.
             cursor.pagedFile = null;
-            // Signal to any pre-fetchers that the cursor is closed.
+            // Signal to any read-ahead that the cursor is closed.
             cursor.storeCurrentPageId( UNBOUND_PAGE_ID );
-            if ( preFetcher != null )
+            if ( cursor.readAheadStream != null )
             {
-                preFetcher.cancel();
-                preFetcher = null;
+                cursor.readAheadStream.close();
+                cursor.readAheadStream = null;
             }
             cursor = cursor.linkedCursor;
         }
@@ -418,6 +420,7 @@ public abstract class MuninnPageCursor extends PageCursor
             assertPagedFileStillMappedAndGetIdOfLastPage();
             pagedFile.initBuffer( pageRef );
             pagedFile.fault( pageRef, swapper, pagedFile.swapperId, filePageId, faultEvent );
+            pagedFile.residency.pageFaulted();
         }
         catch ( Throwable throwable )
         {
@@ -19,6 +19,9 @@
  */
 package org.neo4j.io.pagecache.impl.muninn;
 
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+
 import java.io.File;
 import java.io.Flushable;
 import java.io.IOException;
@@ -38,6 +41,7 @@ import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
+import org.neo4j.io.pagecache.tracing.PinEvent;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
 
@@ -53,6 +57,12 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
     private static final int translationTableChunkArrayBase = UnsafeUtil.arrayBaseOffset( int[].class );
     private static final int translationTableChunkArrayScale = UnsafeUtil.arrayIndexScale( int[].class );
 
+    /**
+     * The longest run of consecutive dirty pages that {@link #collectDirtyRuns(DirtyRunConsumer)} will report, and thus the largest IO vector
+     * of a {@link #flushRun(long, int, FlushEventOpportunity, long[], long[], long[]) run flush}. This is 32 MiB, with the default page size.
+     */
+    static final int MAX_FLUSH_RUN_PAGES = translationTableChunkSize;
+
     private static final long headerStateOffset = UnsafeUtil.getFieldOffset( MuninnPagedFile.class, "headerState" );
     private static final int headerStateRefCountShift = 48;
     private static final int headerStateRefCountMax = 0x7FFF;
@@ -69,8 +79,12 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
     // a time, and we ensure this mutual exclusion using the monitor lock on this MuninnPagedFile object.
     volatile int[][] translationTable;
 
+    // The file pages that have been written to since they were last flushed. Grown together with the translation table.
+    private final DirtyPageSet dirtyPages;
+
     final PageSwapper swapper;
     final int swapperId;
+    final FileResidency residency;
     private final CursorFactory cursorFactory;
 
     private volatile boolean deleteOnClose;
@@ -111,14 +125,17 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
      * access to thread local version context
      * @param createIfNotExists should create file if it does not exists
      * @param truncateExisting should truncate file if it exists
+     * @param useDirectIo should use direct I/O for the file
+     * @param residency the residency constraints for the pages of this file
      * @throws IOException If the {@link PageSwapper} could not be created.
      */
     MuninnPagedFile( File file, MuninnPageCache pageCache, int filePageSize, PageSwapperFactory swapperFactory, PageCacheTracer pageCacheTracer,
-            VersionContextSupplier versionContextSupplier, boolean createIfNotExists, boolean truncateExisting, boolean useDirectIo )
-            throws IOException
+            VersionContextSupplier versionContextSupplier, boolean createIfNotExists, boolean truncateExisting, boolean useDirectIo,
+            FileResidency residency ) throws IOException
     {
         super( pageCache.pages );
         this.pageCache = pageCache;
+        this.residency = residency;
         this.filePageSize = filePageSize;
         this.cursorFactory = new CursorFactory( this, versionContextSupplier );
         this.pageCacheTracer = pageCacheTracer;
@@ -154,10 +171,11 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         {
             tt[i] = newChunk();
         }
+        dirtyPages = new DirtyPageSet( translationTableChunkSizePower, initialChunks );
         translationTable = tt;
 
         initialiseLastPageId( lastPageId );
-        this.swapperId = getSwappers().allocate( swapper );
+        this.swapperId = getSwappers().allocate( swapper, residency );
     }
 
     @Override
@@ -187,7 +205,7 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         cursor.rewind();
         if ( ( pf_flags & PF_READ_AHEAD ) == PF_READ_AHEAD && ( pf_flags & PF_NO_FAULT ) != PF_NO_FAULT )
         {
-            pageCache.startPreFetching( cursor, cursorFactory );
+            pageCache.startReadAhead( cursor, this );
         }
         return cursor;
     }
@@ -223,6 +241,12 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         return (lastPageId + 1) * pageSize();
     }
 
+    @Override
+    public long dirtyPages()
+    {
+        return dirtyPages.size();
+    }
+
     @Override
     public File file()
     {
@@ -361,29 +385,46 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         }
         catch ( ClosedChannelException e )
         {
-            if ( getRefCount() > 0 )
-            {
-                // The file is not supposed to be closed, since we have a positive ref-count, yet we got a
-                // ClosedChannelException anyway? It's an odd situation, so let's tell the outside world about
-                // this failure.
-                e.addSuppressed( closeStackTrace );
-                throw e;
-            }
-            // Otherwise: The file was closed while we were trying to flush it. Since unmapping implies a flush
-            // anyway, we can safely assume that this is not a problem. The file was flushed, and it doesn't
-            // really matter how that happened. We'll ignore this exception.
+            rethrowUnlessUnmapped( e );
         }
     }
 
+    private void rethrowUnlessUnmapped( ClosedChannelException e ) throws ClosedChannelException
+    {
+        if ( getRefCount() > 0 )
+        {
+            // The file is not supposed to be closed, since we have a positive ref-count, yet we got a
+            // ClosedChannelException anyway? It's an odd situation, so let's tell the outside world about
+            // this failure.
+            e.addSuppressed( closeStackTrace );
+            throw e;
+        }
+        // Otherwise: The file was closed while we were trying to flush it. Since unmapping implies a flush
+        // anyway, we can safely assume that this is not a problem. The file was flushed, and it doesn't
+        // really matter how that happened. We'll ignore this exception.
+    }
+
     private void doFlushAndForceInternal( FlushEventOpportunity flushes, boolean forClosing, IOLimiter limiter )
             throws IOException
     {
         // TODO it'd be awesome if, on Linux, we'd call sync_file_range(2) instead of fsync
+        if ( forClosing )
+        {
+            // Closing must leave every page clean, so we don't rely on the dirty page set here, but sweep the whole translation table.
+            flushAllDirtyPagesForClose( flushes );
+        }
+        else
+        {
+            flushDirtyRuns( flushes, limiter );
+        }
+        swapper.force();
+    }
+
+    private void flushAllDirtyPagesForClose( FlushEventOpportunity flushes ) throws IOException
+    {
         long[] pages = new long[translationTableChunkSize];
-        long[] flushStamps = forClosing ? null : new long[translationTableChunkSize];
         long[] bufferAddresses = new long[translationTableChunkSize];
         long filePageId = -1; // Start at -1 because we increment at the *start* of the chunk-loop iteration.
-        long limiterStamp = IOLimiter.INITIAL_STAMP;
         int[][] tt = this.translationTable;
         for ( int[] chunk : tt )
         {
@@ -391,71 +432,219 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
             // TODO The clean pages in question must still be loaded, though. Otherwise we'll end up writing
             // TODO garbage to the file.
             int pagesGrabbed = 0;
-            chunkLoop:
             for ( int i = 0; i < chunk.length; i++ )
             {
                 filePageId++;
-                long offset = computeChunkOffset( filePageId );
+                if ( tryGrabDirtyPage( chunk, filePageId, true, pages, null, bufferAddresses, pagesGrabbed ) )
+                {
+                    pagesGrabbed++;
+                    continue;
+                }
+                if ( pagesGrabbed > 0 )
+                {
+                    vectoredFlush( pages, bufferAddresses, null, pagesGrabbed, flushes, true );
+                    pagesGrabbed = 0;
+                }
+            }
+            if ( pagesGrabbed > 0 )
+            {
+                vectoredFlush( pages, bufferAddresses, null, pagesGrabbed, flushes, true );
+            }
+        }
+    }
 
-                // We might race with eviction, but we also mustn't miss a dirty page, so we loop until we succeed
-                // in getting a lock on all available pages.
-                for (;;)
+    private void flushDirtyRuns( FlushEventOpportunity flushes, IOLimiter limiter ) throws IOException
+    {
+        LongArrayList runStarts = new LongArrayList();
+        IntArrayList runLengths = new IntArrayList();
+        collectDirtyRuns( ( startFilePageId, pageCount ) ->
+        {
+            runStarts.add( startFilePageId );
+            runLengths.add( pageCount );
+        } );
+
+        long[] pages = new long[MAX_FLUSH_RUN_PAGES];
+        long[] flushStamps = new long[MAX_FLUSH_RUN_PAGES];
+        long[] bufferAddresses = new long[MAX_FLUSH_RUN_PAGES];
+        long limiterStamp = IOLimiter.INITIAL_STAMP;
+        int run = 0;
+        try
+        {
+            for ( ; run < runStarts.size(); run++ )
+            {
+                int pagesFlushed = flushRun( runStarts.get( run ), runLengths.get( run ), flushes, pages, flushStamps, bufferAddresses );
+                if ( pagesFlushed > 0 )
                 {
-                    int pageId = UnsafeUtil.getIntVolatile( chunk, offset );
-                    if ( pageId != UNMAPPED_TTE )
-                    {
-                        long pageRef = deref( pageId );
-                        long stamp = tryOptimisticReadLock( pageRef );
-                        if ( (!isModified( pageRef )) && validateReadLock( pageRef, stamp ) )
-                        {
-                            break;
-                        }
+                    limiterStamp = limiter.maybeLimitIO( limiterStamp, pagesFlushed, this );
+                }
+            }
+        }
+        finally
+        {
+            // If we failed, the runs we didn't get to must be found again by the next flush.
+            for ( int i = run + 1; i < runStarts.size(); i++ )
+            {
+                markRunDirty( runStarts.get( i ), runLengths.get( i ) );
+            }
+        }
+    }
 
-                        long flushStamp = 0;
-                        if ( !(forClosing ? tryExclusiveLock( pageRef ) : ((flushStamp = tryFlushLock( pageRef )) != 0)) )
-                        {
-                            continue;
-                        }
-                        if ( isBoundTo( pageRef, swapperId, filePageId ) && isModified( pageRef ) )
-                        {
-                            // The page is still bound to the expected file and file page id after we locked it,
-                            // so we didn't race with eviction and faulting, and the page is dirty.
-                            // So we add it to our IO vector.
-                            pages[pagesGrabbed] = pageRef;
-                            if ( !forClosing )
-                            {
-                                flushStamps[pagesGrabbed] = flushStamp;
-                            }
-                            bufferAddresses[pagesGrabbed] = getAddress( pageRef );
-                            pagesGrabbed++;
-                            continue chunkLoop;
-                        }
-                        else if ( forClosing )
-                        {
-                            unlockExclusive( pageRef );
-                        }
-                        else
-                        {
-                            unlockFlush( pageRef, flushStamp, false );
-                        }
+    /**
+     * Lock the page that is mapped to the given file page id, if it is dirty, and put it into the IO vector at the given index.
+     * The page is exclusively locked when we are flushing for closing, and flush locked otherwise.
+     *
+     * @return {@code true} if the page was locked and added to the IO vector, or {@code false} if there was no dirty page to flush.
+     */
+    private boolean tryGrabDirtyPage( int[] chunk, long filePageId, boolean forClosing,
+            long[] pages, long[] flushStamps, long[] bufferAddresses, int index )
+    {
+        long offset = computeChunkOffset( filePageId );
+
+        // We might race with eviction, but we also mustn't miss a dirty page, so we loop until we succeed
+        // in getting a lock on all available pages.
+        for (;;)
+        {
+            int pageId = UnsafeUtil.getIntVolatile( chunk, offset );
+            if ( pageId != UNMAPPED_TTE )
+            {
+                long pageRef = deref( pageId );
+                long stamp = tryOptimisticReadLock( pageRef );
+                if ( (!isModified( pageRef )) && validateReadLock( pageRef, stamp ) )
+                {
+                    return false;
+                }
+
+                long flushStamp = 0;
+                if ( !(forClosing ? tryExclusiveLock( pageRef ) : ((flushStamp = tryFlushLock( pageRef )) != 0)) )
+                {
+                    continue;
+                }
+                if ( isBoundTo( pageRef, swapperId, filePageId ) && isModified( pageRef ) )
+                {
+                    // The page is still bound to the expected file and file page id after we locked it,
+                    // so we didn't race with eviction and faulting, and the page is dirty.
+                    // So we add it to our IO vector.
+                    pages[index] = pageRef;
+                    if ( !forClosing )
+                    {
+                        flushStamps[index] = flushStamp;
                     }
-                    break;
+                    bufferAddresses[index] = getAddress( pageRef );
+                    return true;
+                }
+                else if ( forClosing )
+                {
+                    unlockExclusive( pageRef );
+                }
+                else
+                {
+                    unlockFlush( pageRef, flushStamp, false );
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Remove every run of consecutive file pages from the {@link DirtyPageSet dirty page set} of this file, and report them to the given consumer,
+     * in file page order. A run can span multiple translation table chunks, but it is never longer than {@link #MAX_FLUSH_RUN_PAGES} pages.
+     * <p>
+     * The cost of this is proportional to the number of pages written to since the last flush, rather than to the size of the file, but the
+     * runs are only a snapshot. Pages that are cleaned or evicted after they have been reported are skipped by
+     * {@link #flushRun(long, int, FlushEventOpportunity, long[], long[], long[])}, and pages that are written to after they have been reported
+     * are added to the set again, for the next flush. Runs that are reported but then not flushed must be given back to
+     * {@link #markRunDirty(long, int)}.
+     */
+    void collectDirtyRuns( DirtyRunConsumer consumer )
+    {
+        dirtyPages.drain( MAX_FLUSH_RUN_PAGES, consumer );
+    }
+
+    /**
+     * Add the given file page to the dirty page set. Must be called <em>after</em> the write lock on the page has been released.
+     */
+    void markDirty( long filePageId )
+    {
+        dirtyPages.mark( filePageId );
+    }
+
+    /**
+     * Add the given run of file pages back to the dirty page set, because they were collected but not flushed.
+     */
+    void markRunDirty( long startFilePageId, int pageCount )
+    {
+        dirtyPages.markRun( startFilePageId, pageCount );
+    }
+
+    /**
+     * Flush the pages in the given run of file pages that are still dirty, using one vectored write for every stretch of consecutive dirty pages.
+     * The file is not forced; that is left to the caller, once all the runs of the file have been flushed.
+     *
+     * @param startFilePageId the first file page id of the run.
+     * @param pageCount the number of file pages in the run, which must be no more than {@link #MAX_FLUSH_RUN_PAGES}.
+     * @param flushes the flush event opportunity to report the writes to.
+     * @param pages IO vector scratch space for the page references, with room for at least {@code pageCount} pages.
+     * @param flushStamps IO vector scratch space for the flush lock stamps, with room for at least {@code pageCount} pages.
+     * @param bufferAddresses IO vector scratch space for the page buffer addresses, with room for at least {@code pageCount} pages.
+     * @return the number of pages that were written.
+     */
+    int flushRun( long startFilePageId, int pageCount, FlushEventOpportunity flushes,
+            long[] pages, long[] flushStamps, long[] bufferAddresses ) throws IOException
+    {
+        int pagesFlushed = 0;
+        try
+        {
+            int[][] tt = this.translationTable;
+            int pagesGrabbed = 0;
+            long endFilePageId = startFilePageId + pageCount;
+            for ( long filePageId = startFilePageId; filePageId < endFilePageId; filePageId++ )
+            {
+                int chunkId = computeChunkId( filePageId );
+                if ( chunkId < tt.length && tryGrabDirtyPage( tt[chunkId], filePageId, false, pages, flushStamps, bufferAddresses, pagesGrabbed ) )
+                {
+                    pagesGrabbed++;
+                    continue;
                 }
                 if ( pagesGrabbed > 0 )
                 {
-                    vectoredFlush( pages, bufferAddresses, flushStamps, pagesGrabbed, flushes, forClosing );
-                    limiterStamp = limiter.maybeLimitIO( limiterStamp, pagesGrabbed, this );
+                    vectoredFlush( pages, bufferAddresses, flushStamps, pagesGrabbed, flushes, false );
+                    pagesFlushed += pagesGrabbed;
                     pagesGrabbed = 0;
                 }
             }
             if ( pagesGrabbed > 0 )
             {
-                vectoredFlush( pages, bufferAddresses, flushStamps, pagesGrabbed, flushes, forClosing );
-                limiterStamp = limiter.maybeLimitIO( limiterStamp, pagesGrabbed, this );
+                vectoredFlush( pages, bufferAddresses, flushStamps, pagesGrabbed, flushes, false );
+                pagesFlushed += pagesGrabbed;
             }
         }
+        catch ( ClosedChannelException e )
+        {
+            markRunDirty( startFilePageId, pageCount );
+            rethrowUnlessUnmapped( e );
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            // Any pages we didn't get to flush must be found again by the next flush. Re-marking pages that did get flushed is harmless.
+            markRunDirty( startFilePageId, pageCount );
+            throw e;
+        }
+        return pagesFlushed;
+    }
 
-        swapper.force();
+    /**
+     * Force the written pages of this file to the storage device, tolerating that the file has been concurrently unmapped.
+     */
+    void forceAfterFlush() throws IOException
+    {
+        try
+        {
+            swapper.force();
+        }
+        catch ( ClosedChannelException e )
+        {
+            rethrowUnlessUnmapped( e );
+        }
     }
 
     private void vectoredFlush(
@@ -682,6 +871,131 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         return pageCache.grabFreeAndExclusivelyLockedPage( faultEvent );
     }
 
+    /**
+     * Opportunistically fault in up to {@code maxPages} consecutive file pages, starting from {@code startFilePageId}, with a single vectored read.
+     * The run of pages ends early at the first page that is already in memory, is being faulted in by someone else, or is beyond the end of the file,
+     * or when the freelist runs dry. Unlike page faults through cursors, this never waits for other page faults, and never evicts pages.
+     *
+     * @param startFilePageId the first file page to fault in.
+     * @param maxPages the maximum number of pages to fault in.
+     * @param tracer the cursor tracer that the page faults are reported to.
+     * @return the number of pages that were faulted in.
+     */
+    int readAhead( long startFilePageId, int maxPages, PageCursorTracer tracer ) throws IOException
+    {
+        long lastPageId = getLastPageId();
+        if ( startFilePageId < 0 || startFilePageId > lastPageId || maxPages <= 0 )
+        {
+            return 0;
+        }
+        int length = (int) Math.min( maxPages, lastPageId - startFilePageId + 1 );
+        LatchMap.Latch[] latches = new LatchMap.Latch[length];
+        long[] pageRefs = new long[length];
+        PinEvent[] pinEvents = new PinEvent[length];
+        PageFaultEvent[] faultEvents = new PageFaultEvent[length];
+        int[][] tt = translationTable;
+        int count = 0;
+        long bytesRead;
+        try
+        {
+            while ( count < length )
+            {
+                long filePageId = startFilePageId + count;
+                int chunkId = computeChunkId( filePageId );
+                if ( tt.length <= chunkId )
+                {
+                    tt = expandCapacity( chunkId );
+                }
+                int[] chunk = tt[chunkId];
+                long chunkOffset = computeChunkOffset( filePageId );
+                if ( UnsafeUtil.getIntVolatile( chunk, chunkOffset ) != UNMAPPED_TTE )
+                {
+                    break;
+                }
+                LatchMap.Latch latch = pageFaultLatches.tryTakeLatch( filePageId );
+                if ( latch == null )
+                {
+                    break;
+                }
+                long pageRef;
+                // Double-check that no page fault completed in-between our check of the translation table, and us getting the latch.
+                if ( UnsafeUtil.getIntVolatile( chunk, chunkOffset ) != UNMAPPED_TTE || (pageRef = pageCache.tryGrabFreeAndExclusivelyLockedPage()) == 0 )
+                {
+                    latch.release();
+                    break;
+                }
+                latches[count] = latch;
+                pageRefs[count] = pageRef;
+                count++;
+                initBuffer( pageRef );
+            }
+            if ( count == 0 )
+            {
+                return 0;
+            }
+            // The page faults begin before the vectored read, so that each of them lasts as long as the read that serves it.
+            for ( int i = 0; i < count; i++ )
+            {
+                pinEvents[i] = tracer.beginPin( false, startFilePageId + i, swapper );
+                faultEvents[i] = pinEvents[i].beginPageFault();
+                faultEvents[i].setCachePageId( toId( pageRefs[i] ) );
+            }
+            // Check if we're racing with unmapping, before the read would otherwise reopen the file channel.
+            getLastPageId();
+            bytesRead = faultVector( pageRefs, new long[count], count, swapper, swapperId, startFilePageId );
+        }
+        catch ( Throwable throwable )
+        {
+            for ( int i = 0; i < count; i++ )
+            {
+                long pageRef = pageRefs[i];
+                if ( isLoaded( pageRef ) )
+                {
+                    // The eviction thread will pick up pages that are loaded but not bound.
+                    unlockExclusive( pageRef );
+                }
+                else
+                {
+                    pageCache.addFreePageToFreelist( pageRef );
+                }
+                latches[i].release();
+                if ( faultEvents[i] != null )
+                {
+                    faultEvents[i].done( throwable );
+                    pinEvents[i].done();
+                }
+            }
+            throw throwable;
+        }
+
+        for ( int i = 0; i < count; i++ )
+        {
+            long pageRef = pageRefs[i];
+            long filePageId = startFilePageId + i;
+            // Publish the page in the translation table before unlocking it, just like a regular page fault.
+            UnsafeUtil.putIntVolatile( tt[computeChunkId( filePageId )], computeChunkOffset( filePageId ), toId( pageRef ) );
+            unlockExclusive( pageRef );
+            residency.pageFaulted();
+            latches[i].release();
+            long pageBytes = Math.min( filePageSize, Math.max( 0, bytesRead - (long) i * filePageSize ) );
+            faultEvents[i].addBytesRead( pageBytes );
+            faultEvents[i].done();
+            pinEvents[i].done();
+        }
+        return count;
+    }
+
+    /**
+     * @return {@code true} if the translation table currently maps the given file page to a page in memory. The answer may be stale by the time
+     * it is returned, since this does not lock the page.
+     */
+    boolean isMapped( long filePageId )
+    {
+        int chunkId = computeChunkId( filePageId );
+        int[][] tt = translationTable;
+        return chunkId < tt.length && UnsafeUtil.getIntVolatile( tt[chunkId], computeChunkOffset( filePageId ) ) != UNMAPPED_TTE;
+    }
+
     /**
      * Remove the mapping of the given filePageId from the translation table, and return the evicted page object.
      * @param filePageId The id of the file page to evict.
@@ -696,6 +1010,7 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         long pageRef = deref( mappedPageId );
         setHighestEvictedTransactionId( getAndResetLastModifiedTransactionId( pageRef ) );
         UnsafeUtil.putIntVolatile( chunk, chunkOffset, UNMAPPED_TTE );
+        residency.pageEvicted();
     }
 
     private void setHighestEvictedTransactionId( long modifiedTransactionId )
@@ -726,6 +1041,7 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
                 ntt[i] = newChunk();
             }
             tt = ntt;
+            dirtyPages.ensureCapacity( newLength );
             translationTable = tt;
             if ( swapper.canAllocate() )
             {
@@ -764,4 +1080,10 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         int index = (int) (filePageId & translationTableChunkSizeMask);
         return UnsafeUtil.arrayOffset( index, translationTableChunkArrayBase, translationTableChunkArrayScale );
     }
+
+    @FunctionalInterface
+    interface DirtyRunConsumer
+    {
+        void accept( long startFilePageId, int pageCount );
+    }
 }
@@ -41,6 +41,8 @@ final class MuninnWritePageCursor extends MuninnPageCursor
         if ( pageRef != 0 )
         {
             pinEvent.done();
+            // The current page id of the cursor might already have moved on, but the page stays bound to its file page while we hold the lock.
+            long filePageId = pagedFile.getFilePageId( pageRef );
             // Mark the page as dirty *after* our write access, to make sure it's dirty even if it was concurrently
             // flushed. Unlocking the write-locked page will mark it as dirty for us.
             if ( eagerFlush )
@@ -51,6 +53,9 @@ final class MuninnWritePageCursor extends MuninnPageCursor
             {
                 pagedFile.unlockWrite( pageRef );
             }
+            // For the same reason, the page must only be added to the dirty page set of the file once the write lock has been released.
+            // An eagerly flushed page is added as well, in case the flush failed or overlapped with another writer.
+            pagedFile.markDirty( filePageId );
         }
         clearPageCursorState();
     }
@@ -126,7 +131,10 @@ final class MuninnWritePageCursor extends MuninnPageCursor
         // after the reset() call, which means that if we throw, the cursor will
         // be closed and the page lock will be released.
         assertPagedFileStillMappedAndGetIdOfLastPage();
-        pagedFile.incrementUsage( pageRef );
+        if ( !transientAccess )
+        {
+            pagedFile.incrementUsage( pageRef );
+        }
         pagedFile.setLastModifiedTxId( pageRef, versionContextSupplier.getVersionContext().committingTransactionId() );
     }
 
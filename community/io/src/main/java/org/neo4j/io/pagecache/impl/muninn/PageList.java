@@ -301,7 +301,7 @@ class PageList
         }
     }
 
-    private byte getUsageCounter( long pageRef )
+    byte getUsageCounter( long pageRef )
     {
         return (byte) (UnsafeUtil.getLongVolatile( offPageBinding( pageRef ) ) & MASK_USAGE_COUNT);
     }
@@ -437,6 +437,47 @@ class PageList
         setSwapperId( pageRef, swapperId ); // Page now considered isBoundTo( swapper, filePageId )
     }
 
+    /**
+     * Fault a range of consecutive file pages, starting from the given {@code startFilePageId}, into the given exclusively locked free pages, with a
+     * single vectored read. This follows the same protocol as {@link #fault(long, PageSwapper, int, long, PageFaultEvent)}, only for many pages at once.
+     *
+     * @param pageRefs the free pages to fault into, one for each file page in the range.
+     * @param bufferAddresses scratch array for the addresses of the given pages, at least {@code length} long.
+     * @param length the number of file pages to fault in.
+     * @return the number of bytes read.
+     */
+    long faultVector( long[] pageRefs, long[] bufferAddresses, int length, PageSwapper swapper, int swapperId, long startFilePageId )
+            throws IOException
+    {
+        if ( swapper == null )
+        {
+            throw swapperCannotBeNull();
+        }
+        for ( int i = 0; i < length; i++ )
+        {
+            long pageRef = pageRefs[i];
+            long filePageId = startFilePageId + i;
+            int currentSwapper = getSwapperId( pageRef );
+            long currentFilePageId = getFilePageId( pageRef );
+            if ( filePageId == PageCursor.UNBOUND_PAGE_ID || !isExclusivelyLocked( pageRef )
+                 || currentSwapper != 0 || currentFilePageId != PageCursor.UNBOUND_PAGE_ID )
+            {
+                throw cannotFaultException( pageRef, swapper, swapperId, filePageId, currentSwapper, currentFilePageId );
+            }
+        }
+        for ( int i = 0; i < length; i++ )
+        {
+            setFilePageId( pageRefs[i], startFilePageId + i ); // Pages now considered isLoaded()
+            bufferAddresses[i] = getAddress( pageRefs[i] );
+        }
+        long bytesRead = swapper.read( startFilePageId, bufferAddresses, 0, length );
+        for ( int i = 0; i < length; i++ )
+        {
+            setSwapperId( pageRefs[i], swapperId ); // Pages now considered isBoundTo( swapper, filePageId )
+        }
+        return bytesRead;
+    }
+
     private static IllegalArgumentException swapperCannotBeNull()
     {
         return new IllegalArgumentException( "swapper cannot be null" );
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobHandle;
+import org.neo4j.scheduler.JobScheduler;
+
+import static org.neo4j.util.FeatureToggles.getInteger;
+
+/**
+ * Flushes the dirty pages of a number of {@link MuninnPagedFile files} as a single unit of work.
+ * <p>
+ * The dirty page sets of all the files are first drained into runs of consecutive file pages. Since the sets are drained in file page order,
+ * the runs come out sorted by file offset, and neighbouring dirty pages end up in the same run even when they belong to different translation
+ * table chunks. The runs are then handed out to a number of workers, that each lock, write and unlock a run at a time,
+ * using a single vectored write for as long as the dirty pages stay consecutive. Finally, once all the runs have been written, the files are
+ * forced in parallel.
+ * <p>
+ * The workers share a single {@link IOLimiter} stamp, and the calls to the limiter are serialised. The limiter thus observes the IO of the whole
+ * flush as one stream, and a limiter that injects a pause holds back every worker, so the IO budget applies to the flush as a whole rather than
+ * to each worker individually.
+ */
+final class ParallelFlush
+{
+    private static final int maxWorkers = getInteger( ParallelFlush.class, "maxWorkers", Math.max( 4, Runtime.getRuntime().availableProcessors() / 2 ) );
+
+    private final List<MuninnPagedFile> files;
+    private final IOLimiter limiter;
+    private final PageCacheTracer pageCacheTracer;
+    private final JobScheduler scheduler;
+    private final AtomicInteger nextRun = new AtomicInteger();
+    private final IntArrayList runFiles = new IntArrayList();
+    private final LongArrayList runStarts = new LongArrayList();
+    private final IntArrayList runLengths = new IntArrayList();
+    private int runCount;
+    private long limiterStamp = IOLimiter.INITIAL_STAMP;
+
+    ParallelFlush( List<MuninnPagedFile> files, IOLimiter limiter, PageCacheTracer pageCacheTracer, JobScheduler scheduler )
+    {
+        this.files = files;
+        this.limiter = limiter;
+        this.pageCacheTracer = pageCacheTracer;
+        this.scheduler = scheduler;
+    }
+
+    void flushAndForce() throws IOException
+    {
+        for ( int i = 0; i < files.size(); i++ )
+        {
+            int fileIndex = i;
+            files.get( i ).collectDirtyRuns( ( startFilePageId, pageCount ) -> addRun( fileIndex, startFilePageId, pageCount ) );
+        }
+
+        int workers = Math.min( maxWorkers, runCount );
+        List<JobHandle<?>> writers = new ArrayList<>( workers );
+        for ( int i = 0; i < workers; i++ )
+        {
+            writers.add( scheduler.schedule( Group.FILE_IO_HELPER, () -> unchecked( this::writeRuns ) ) );
+        }
+        try
+        {
+            awaitAll( writers );
+        }
+        catch ( IOException e )
+        {
+            // The failed workers may have left runs that nobody got to, and those must be found again by the next flush.
+            // Giving back runs that did get flushed is harmless.
+            for ( int run = 0; run < runCount; run++ )
+            {
+                files.get( runFiles.get( run ) ).markRunDirty( runStarts.get( run ), runLengths.get( run ) );
+            }
+            throw e;
+        }
+
+        List<JobHandle<?>> forces = new ArrayList<>( files.size() );
+        for ( MuninnPagedFile file : files )
+        {
+            forces.add( scheduler.schedule( Group.FILE_IO_HELPER, () -> unchecked( file::forceAfterFlush ) ) );
+        }
+        awaitAll( forces );
+    }
+
+    private void addRun( int fileIndex, long startFilePageId, int pageCount )
+    {
+        runFiles.add( fileIndex );
+        runStarts.add( startFilePageId );
+        runLengths.add( pageCount );
+        runCount++;
+    }
+
+    private void writeRuns() throws IOException
+    {
+        long[] pages = new long[MuninnPagedFile.MAX_FLUSH_RUN_PAGES];
+        long[] flushStamps = new long[MuninnPagedFile.MAX_FLUSH_RUN_PAGES];
+        long[] bufferAddresses = new long[MuninnPagedFile.MAX_FLUSH_RUN_PAGES];
+        int run;
+        while ( (run = nextRun.getAndIncrement()) < runCount )
+        {
+            MuninnPagedFile file = files.get( runFiles.get( run ) );
+            int pagesFlushed;
+            try ( MajorFlushEvent fileFlush = pageCacheTracer.beginFileFlush( file.swapper ) )
+            {
+                pagesFlushed = file.flushRun( runStarts.get( run ), runLengths.get( run ), fileFlush.flushEventOpportunity(), pages, flushStamps,
+                        bufferAddresses );
+            }
+            if ( pagesFlushed > 0 )
+            {
+                limitIO( pagesFlushed, file );
+            }
+        }
+    }
+
+    private synchronized void limitIO( int recentlyCompletedIOs, Flushable flushable )
+    {
+        limiterStamp = limiter.maybeLimitIO( limiterStamp, recentlyCompletedIOs, flushable );
+    }
+
+    private static void unchecked( IOTask task )
+    {
+        try
+        {
+            task.run();
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    private static void awaitAll( List<JobHandle<?>> jobs ) throws IOException
+    {
+        IOException failure = null;
+        for ( JobHandle<?> job : jobs )
+        {
+            try
+            {
+                job.waitTermination();
+            }
+            catch ( InterruptedException | ExecutionException e )
+            {
+                if ( failure == null )
+                {
+                    failure = new IOException( e );
+                }
+                else
+                {
+                    failure.addSuppressed( e );
+                }
+            }
+        }
+        if ( failure != null )
+        {
+            throw failure;
+        }
+    }
+
+    @FunctionalInterface
+    private interface IOTask
+    {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,378 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import org.neo4j.internal.unsafe.UnsafeUtil;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.scheduler.CancelListener;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobHandle;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.time.SystemNanoClock;
+
+import static org.neo4j.io.pagecache.PageCursor.UNBOUND_PAGE_ID;
+import static org.neo4j.util.FeatureToggles.getInteger;
+
+/**
+ * An adaptive read-ahead engine for sequential and strided scans, that serves any number of concurrently scanning cursors from a single background job.
+ *
+ * Every cursor opened with {@link org.neo4j.io.pagecache.PagedFile#PF_READ_AHEAD} is registered as a {@link Stream}. The engine "weakly" observes the
+ * current page id of all the streams, relying on the {@link UnsafeUtil#putOrderedLong(Object, long, long) ordered stores} of the page id by the scanning
+ * threads. From the observed steps, the engine works out the direction and the stride of every stream. The stride is the greatest common divisor of the
+ * observed steps, so a scanner that moves several pages in between two observations is still recognised as sequential.
+ *
+ * Once a stream has a stable direction, the engine keeps a window of pages ahead of the scanner in memory. Runs of consecutive pages in the window are
+ * faulted in with vectored reads through {@link MuninnPagedFile#readAhead(long, int, PageCursorTracer)}, which only takes pages from the freelist and
+ * never waits for other page faults.
+ *
+ * The size of the window is tuned from page fault feedback. If the {@link PageCursorTracer} of the scanning cursor reports page faults since the last
+ * round, then the scanner has caught up with the window, and the window doubles. If the window could not be filled because the freelist ran dry, then
+ * read-ahead is competing with the rest of the workload for memory, and the window is halved.
+ */
+final class ReadAheadEngine implements Runnable, CancelListener
+{
+    private static final String TRACER_READ_AHEAD_TAG = "Read-ahead";
+    private static final int initialWindow = getInteger( ReadAheadEngine.class, "initialWindow", 4 );
+    private static final int maxWindow = getInteger( ReadAheadEngine.class, "maxWindow", 512 );
+    private static final int maxVectorLength = getInteger( ReadAheadEngine.class, "maxVectorLength", 64 );
+    private static final long startTimeoutNanos = TimeUnit.MILLISECONDS.toNanos( 150 );
+    private static final long progressTimeoutNanos = TimeUnit.SECONDS.toNanos( 10 );
+    private static final long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos( 150 );
+    private static final long minPauseNanos = TimeUnit.MICROSECONDS.toNanos( 50 );
+    private static final long maxPauseNanos = TimeUnit.MILLISECONDS.toNanos( 10 );
+
+    private final JobScheduler scheduler;
+    private final PageCacheTracer tracer;
+    private final SystemNanoClock clock;
+    private final int windowLimit;
+    private final Queue<Stream> registrations = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile JobHandle<?> jobHandle;
+    private volatile boolean cancelled;
+    private volatile long heartbeat;
+
+    /**
+     * @param maxPages the number of pages in the page cache. No single stream will read ahead more than a small fraction of this.
+     */
+    ReadAheadEngine( JobScheduler scheduler, PageCacheTracer tracer, SystemNanoClock clock, int maxPages )
+    {
+        this.scheduler = scheduler;
+        this.tracer = tracer;
+        this.clock = clock;
+        this.windowLimit = Math.max( 1, Math.min( maxWindow, maxPages / 16 ) );
+    }
+
+    /**
+     * Start reading ahead of the given cursor, which must be bound to the given paged file.
+     * @return the stream that represents the cursor in the engine. It must be {@link Stream#close() closed} when the cursor is closed.
+     */
+    Stream register( MuninnPageCursor cursor, MuninnPagedFile pagedFile )
+    {
+        Stream stream = new Stream( cursor, pagedFile, cursor.tracer, clock.nanos() );
+        registrations.add( stream );
+        if ( cancelled )
+        {
+            return stream;
+        }
+        // The pre-fetcher thread pool discards jobs when it is saturated, so a job that has been scheduled is not necessarily ever going to run.
+        // If the running job has not shown any sign of life for a while, then we assume that it was discarded, and schedule a new one.
+        if ( running.compareAndSet( false, true ) || clock.nanos() - heartbeat > idleTimeoutNanos * 2 )
+        {
+            heartbeat = clock.nanos();
+            jobHandle = scheduler.schedule( Group.PAGE_CACHE_PRE_FETCHER, this );
+        }
+        return stream;
+    }
+
+    /**
+     * Stop the background job, if it is running. The engine cannot be used again after this.
+     */
+    void shutdown()
+    {
+        cancelled = true;
+        JobHandle<?> handle = jobHandle;
+        if ( handle != null )
+        {
+            handle.cancel();
+        }
+    }
+
+    @Override
+    public void cancelled()
+    {
+        cancelled = true;
+    }
+
+    @Override
+    public void run()
+    {
+        List<Stream> streams = new ArrayList<>();
+        long pauseNanos = minPauseNanos;
+        long idleSince = clock.nanos();
+        try ( PageCursorTracer cursorTracer = tracer.createPageCursorTracer( TRACER_READ_AHEAD_TAG ) )
+        {
+            while ( !cancelled )
+            {
+                Stream registered;
+                while ( (registered = registrations.poll()) != null )
+                {
+                    streams.add( registered );
+                }
+
+                long now = clock.nanos();
+                heartbeat = now;
+                boolean progress = false;
+                for ( Iterator<Stream> iterator = streams.iterator(); iterator.hasNext(); )
+                {
+                    Stream stream = iterator.next();
+                    switch ( stream.observe( now ) )
+                    {
+                    case Stream.DONE:
+                        iterator.remove();
+                        break;
+                    case Stream.MOVED:
+                        progress = true;
+                        readAhead( stream, cursorTracer );
+                        break;
+                    default:
+                        break;
+                    }
+                }
+                cursorTracer.reportEvents();
+
+                if ( streams.isEmpty() )
+                {
+                    if ( now - idleSince > idleTimeoutNanos && stopUnlessRegistered() )
+                    {
+                        return;
+                    }
+                }
+                else
+                {
+                    idleSince = now;
+                }
+                // Observe the streams more frequently when they are moving, and back off when they are not.
+                pauseNanos = progress ? Math.max( minPauseNanos, pauseNanos / 2 ) : Math.min( maxPauseNanos, pauseNanos * 2 );
+                LockSupport.parkNanos( this, pauseNanos );
+            }
+        }
+    }
+
+    private boolean stopUnlessRegistered()
+    {
+        running.set( false );
+        // A stream could have been registered after we last looked, but before we stopped running. If so, then we keep going, unless that
+        // registration already managed to start a new job.
+        return registrations.isEmpty() || !running.compareAndSet( false, true );
+    }
+
+    private void readAhead( Stream stream, PageCursorTracer cursorTracer )
+    {
+        try
+        {
+            stream.readAhead( cursorTracer, windowLimit );
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            // Read-ahead is only an optimisation. The file was most likely unmapped, and the scanner will find out by itself if anything is wrong.
+            stream.close();
+        }
+    }
+
+    /**
+     * The read-ahead state of a single scanning cursor. All state, except the closed flag, is only accessed by the read-ahead job.
+     */
+    static final class Stream
+    {
+        static final int DONE = 0;
+        static final int MOVED = 1;
+        static final int IDLE = 2;
+
+        private final MuninnPageCursor cursor;
+        private final MuninnPagedFile pagedFile;
+        private final PageCursorTracer scannerTracer;
+        private final long registeredAt;
+        private volatile boolean closed;
+
+        private long lastObservedPageId = UNBOUND_PAGE_ID;
+        private long lastProgress;
+        private int direction;
+        private long stride;
+        private boolean stable;
+        private long frontier;
+        private int window = initialWindow;
+        private long lastScannerFaults;
+
+        Stream( MuninnPageCursor cursor, MuninnPagedFile pagedFile, PageCursorTracer scannerTracer, long now )
+        {
+            this.cursor = cursor;
+            this.pagedFile = pagedFile;
+            this.scannerTracer = scannerTracer;
+            this.registeredAt = now;
+            this.lastProgress = now;
+            this.lastScannerFaults = scannerTracer.faults();
+        }
+
+        /**
+         * Stop reading ahead for this stream. Called when the observed cursor is closed, since the cursor object may be reused for something else.
+         */
+        void close()
+        {
+            closed = true;
+        }
+
+        int observe( long now )
+        {
+            if ( closed )
+            {
+                return DONE;
+            }
+            // Read as volatile even though the field isn't volatile.
+            // We rely on the ordered-store of all writes to the current page id field, in order to weakly observe this value.
+            long pageId = cursor.loadVolatileCurrentPageId();
+            if ( pageId == UNBOUND_PAGE_ID )
+            {
+                // Either the cursor has not started yet, or it has finished.
+                boolean started = lastObservedPageId != UNBOUND_PAGE_ID;
+                return started || now - registeredAt > startTimeoutNanos ? DONE : IDLE;
+            }
+            if ( pageId == lastObservedPageId )
+            {
+                return now - lastProgress > progressTimeoutNanos ? DONE : IDLE;
+            }
+            lastProgress = now;
+            if ( lastObservedPageId != UNBOUND_PAGE_ID )
+            {
+                long step = pageId - lastObservedPageId;
+                int stepDirection = step > 0 ? 1 : -1;
+                if ( stepDirection != direction )
+                {
+                    // New stream, or the scanner changed direction. Start over.
+                    direction = stepDirection;
+                    stride = Math.abs( step );
+                    stable = false;
+                    frontier = pageId;
+                    window = initialWindow;
+                }
+                else
+                {
+                    stride = gcd( stride, Math.abs( step ) );
+                    stable = true;
+                }
+            }
+            lastObservedPageId = pageId;
+            return MOVED;
+        }
+
+        void readAhead( PageCursorTracer cursorTracer, int windowLimit ) throws IOException
+        {
+            if ( !stable )
+            {
+                return;
+            }
+            long scannerFaults = scannerTracer.faults();
+            boolean scannerFaulted = scannerFaults > lastScannerFaults;
+            lastScannerFaults = scannerFaults;
+            if ( scannerFaulted || isBehind( frontier, lastObservedPageId ) )
+            {
+                // The scanner has caught up with us, so we have to reach further ahead.
+                window = Math.min( windowLimit, window * 2 );
+            }
+            if ( isBehind( frontier, lastObservedPageId ) )
+            {
+                frontier = lastObservedPageId;
+            }
+
+            long target = lastObservedPageId + direction * stride * window;
+            while ( !closed && isBehind( frontier, target ) )
+            {
+                long pageId = frontier + direction * stride;
+                if ( pageId < 0 )
+                {
+                    return;
+                }
+                if ( stride == 1 )
+                {
+                    // Consecutive pages. These are read with a single vectored read, which goes in increasing page id order regardless of the
+                    // direction of the scan.
+                    int length = (int) Math.min( maxVectorLength, Math.abs( target - frontier ) );
+                    long start = direction > 0 ? pageId : Math.max( 0, frontier - length );
+                    length = direction > 0 ? length : (int) (frontier - start);
+                    int faulted = pagedFile.readAhead( start, length, cursorTracer );
+                    if ( faulted > 0 && (direction > 0 || faulted == length) )
+                    {
+                        frontier = direction > 0 ? frontier + faulted : start;
+                        continue;
+                    }
+                }
+                else
+                {
+                    int faulted = pagedFile.readAhead( pageId, 1, cursorTracer );
+                    if ( faulted > 0 )
+                    {
+                        frontier = pageId;
+                        continue;
+                    }
+                }
+
+                if ( pageId > pagedFile.getLastPageId() )
+                {
+                    return; // Reached the end of the file.
+                }
+                if ( pagedFile.isMapped( pageId ) )
+                {
+                    frontier = pageId; // Already in memory. Skip it.
+                    continue;
+                }
+                // The page is either being faulted in by someone else, or we ran out of free pages. Either way, we back off for now,
+                // and in the latter case we are competing for memory, so the window should be smaller.
+                window = Math.max( 1, window / 2 );
+                return;
+            }
+        }
+
+        private boolean isBehind( long pageId, long reference )
+        {
+            return direction > 0 ? pageId < reference : pageId > reference;
+        }
+
+        private static long gcd( long a, long b )
+        {
+            while ( b != 0 )
+            {
+                long t = a % b;
+                a = b;
+                b = t;
+            }
+            return a;
+        }
+    }
+}
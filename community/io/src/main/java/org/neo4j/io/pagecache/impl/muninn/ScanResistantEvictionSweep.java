@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import static org.neo4j.util.FeatureToggles.getInteger;
+
+/**
+ * The {@link EvictionPolicy#SCAN_RESISTANT} sweep.
+ * <p>
+ * The page usage counter is used to segment the pages: a page that has been pinned at most once since it was faulted
+ * in (or since it was last aged down) is <em>probationary</em>, and any other page is <em>protected</em>. Probationary
+ * pages are always eligible for eviction. Protected pages are only aged, by decrementing their usage counters, during
+ * revolutions of the clock arm that follow a revolution where fewer than {@link #minProbationaryPercent} of the pages
+ * were probationary. The protected segment is thereby bounded in size, and pages that are no longer in use will
+ * eventually drain out of it, but a sequential scan, which only pins every page once, cannot push anything out of it.
+ * <p>
+ * The revolution statistics are only gathered by the background eviction thread, and are intentionally left racy,
+ * since they are only used as a heuristic.
+ */
+final class ScanResistantEvictionSweep implements EvictionSweep
+{
+    // The usage count at or below which a page is considered to be probationary.
+    private static final int PROBATIONARY_USAGE_COUNT = 1;
+
+    // When fewer than this percentage of the pages were found to be probationary during a revolution of the clock arm,
+    // the next revolution will also age the protected pages.
+    private static final int minProbationaryPercent = getInteger(
+            ScanResistantEvictionSweep.class, "minProbationaryPercent", 20 );
+
+    private final PageList pages;
+    private final long minProbationaryPages;
+    private long probationaryPagesSeen;
+    private volatile boolean aging;
+
+    ScanResistantEvictionSweep( PageList pages )
+    {
+        this.pages = pages;
+        this.minProbationaryPages = Math.max( 1, (long) pages.getPageCount() * minProbationaryPercent / 100 );
+    }
+
+    @Override
+    public boolean shouldEvict( long pageRef )
+    {
+        if ( isProbationary( pageRef ) )
+        {
+            probationaryPagesSeen++;
+            return pages.decrementUsage( pageRef );
+        }
+        return aging && pages.decrementUsage( pageRef );
+    }
+
+    @Override
+    public boolean shouldEvictCooperatively( long pageRef, int revolutions )
+    {
+        // Faulting threads must not get stuck looking for probationary pages that are not there, so after the first
+        // revolution, we fall back to aging everything.
+        if ( revolutions > 0 || aging || isProbationary( pageRef ) )
+        {
+            return pages.decrementUsage( pageRef );
+        }
+        return false;
+    }
+
+    @Override
+    public void revolutionCompleted()
+    {
+        aging = probationaryPagesSeen < minProbationaryPages;
+        probationaryPagesSeen = 0;
+    }
+
+    private boolean isProbationary( long pageRef )
+    {
+        return pages.getUsageCounter( pageRef ) <= PROBATIONARY_USAGE_COUNT;
+    }
+}
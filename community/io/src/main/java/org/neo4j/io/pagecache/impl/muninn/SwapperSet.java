@@ -40,10 +40,10 @@ import org.neo4j.io.pagecache.PageSwapper;
 final class SwapperSet
 {
     // The sentinel is used to reserve swapper id 0 as a special value.
-    private static final SwapperMapping SENTINEL = new SwapperMapping( 0, null );
+    private static final SwapperMapping SENTINEL = new SwapperMapping( 0, null, FileResidency.UNRESTRICTED );
     // The tombstone is used as a marker to reserve allocation entries that have been freed, but not yet vacuumed.
     // An allocation cannot be reused until it has been vacuumed.
-    private static final SwapperMapping TOMBSTONE = new SwapperMapping( 0, null );
+    private static final SwapperMapping TOMBSTONE = new SwapperMapping( 0, null, FileResidency.UNRESTRICTED );
     private static final int MAX_SWAPPER_ID = (1 << 21) - 1;
     private volatile SwapperMapping[] swapperMappings = new SwapperMapping[] { SENTINEL };
     private final MutableIntSet free = new IntHashSet();
@@ -51,17 +51,19 @@ final class SwapperSet
     private int freeCounter; // Used in `free`; Guarded by `this`
 
     /**
-     * The mapping entry between a {@link PageSwapper} and its swapper id.
+     * The mapping entry between a {@link PageSwapper} and its swapper id, and the residency of the file it swaps.
      */
     static final class SwapperMapping
     {
         public final int id;
         public final PageSwapper swapper;
+        public final FileResidency residency;
 
-        private SwapperMapping( int id, PageSwapper swapper )
+        private SwapperMapping( int id, PageSwapper swapper, FileResidency residency )
         {
             this.id = id;
             this.swapper = swapper;
+            this.residency = residency;
         }
     }
 
@@ -90,7 +92,15 @@ final class SwapperSet
     /**
      * Allocate a new swapper id for the given {@link PageSwapper}.
      */
-    synchronized int allocate( PageSwapper swapper )
+    int allocate( PageSwapper swapper )
+    {
+        return allocate( swapper, FileResidency.UNRESTRICTED );
+    }
+
+    /**
+     * Allocate a new swapper id for the given {@link PageSwapper}, which swaps a file with the given residency.
+     */
+    synchronized int allocate( PageSwapper swapper, FileResidency residency )
     {
         SwapperMapping[] swapperMappings = this.swapperMappings;
 
@@ -101,7 +111,7 @@ final class SwapperSet
             {
                 int id = free.intIterator().next();
                 free.remove( id );
-                swapperMappings[id] = new SwapperMapping( id, swapper );
+                swapperMappings[id] = new SwapperMapping( id, swapper, residency );
                 this.swapperMappings = swapperMappings; // Volatile store synchronizes-with loads in getters.
                 return id;
             }
@@ -114,7 +124,7 @@ final class SwapperSet
             throw new IllegalStateException( "All swapper ids are allocated: " + MAX_SWAPPER_ID );
         }
         swapperMappings = Arrays.copyOf( swapperMappings, id + 1 );
-        swapperMappings[id] = new SwapperMapping( id, swapper );
+        swapperMappings[id] = new SwapperMapping( id, swapper, residency );
         this.swapperMappings = swapperMappings; // Volatile store synchronizes-with loads in getters.
         return id;
     }
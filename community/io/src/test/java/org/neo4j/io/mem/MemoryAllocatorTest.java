@@ -22,6 +22,11 @@ package org.neo4j.io.mem;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.internal.nativeimpl.NativeAccess;
+import org.neo4j.internal.nativeimpl.NativeCallResult;
 import org.neo4j.internal.unsafe.UnsafeUtil;
 import org.neo4j.io.ByteUnit;
 import org.neo4j.io.pagecache.PageCache;
@@ -203,6 +208,44 @@ class MemoryAllocatorTest
         }
     }
 
+    @Test
+    void allocatorWithMemoryPlacementMustAllocateAccessibleMemory()
+    {
+        for ( NumaPolicy numaPolicy : NumaPolicy.values() )
+        {
+            closeAllocator();
+            allocator = MemoryAllocator.createAllocator( MebiByte.toBytes( 64 ), new LocalMemoryTracker(), true, numaPolicy );
+            for ( int i = 0; i < 1024; i++ )
+            {
+                long address = allocator.allocateAligned( PageCache.PAGE_SIZE, UnsafeUtil.pageSize() );
+                assertThat( address % UnsafeUtil.pageSize() ).isEqualTo( 0L );
+                UnsafeUtil.putLong( address, i );
+                UnsafeUtil.putLong( address + PageCache.PAGE_SIZE - Long.BYTES, i );
+                assertThat( UnsafeUtil.getLong( address ) ).isEqualTo( i );
+            }
+        }
+    }
+
+    @Test
+    void grabPlacementMustOnlyAdviseAlignedRangesWithinGrab()
+    {
+        RecordingNativeAccess nativeAccess = new RecordingNativeAccess( 2 );
+        GrabPlacement placement = new GrabPlacement( true, NumaPolicy.PARTITION, nativeAccess );
+        long pageSize = UnsafeUtil.pageSize();
+        long hugePageSize = MebiByte.toBytes( 2 );
+        long address = 10 * hugePageSize + pageSize + 16;
+        long size = 4 * hugePageSize;
+
+        placement.place( address, size );
+        placement.place( address + size, size );
+        placement.place( address + 2 * size, size );
+
+        assertThat( nativeAccess.nodes ).containsExactly( 0, 1, 0 );
+        assertThat( nativeAccess.placedRanges.get( 0 ) ).containsExactly( 10 * hugePageSize + 2 * pageSize, 14 * hugePageSize + pageSize );
+        assertThat( nativeAccess.hugePageRanges.get( 0 ) ).containsExactly( 11 * hugePageSize, 14 * hugePageSize );
+        assertThat( placement.grabSize() ).isGreaterThanOrEqualTo( 8 * hugePageSize );
+    }
+
     private void closeAllocator()
     {
         if ( allocator != null )
@@ -218,4 +261,81 @@ class MemoryAllocatorTest
         allocator = MemoryAllocator.createAllocator( expectedMaxMemory, new LocalMemoryTracker() );
         return allocator;
     }
+
+    private static class RecordingNativeAccess implements NativeAccess
+    {
+        private final int numaNodes;
+        private final List<Integer> nodes = new ArrayList<>();
+        private final List<long[]> placedRanges = new ArrayList<>();
+        private final List<long[]> hugePageRanges = new ArrayList<>();
+
+        RecordingNativeAccess( int numaNodes )
+        {
+            this.numaNodes = numaNodes;
+        }
+
+        @Override
+        public boolean isAvailable()
+        {
+            return true;
+        }
+
+        @Override
+        public NativeCallResult tryEvictFromCache( int fd )
+        {
+            return NativeCallResult.SUCCESS;
+        }
+
+        @Override
+        public NativeCallResult tryAdviseSequentialAccess( int fd )
+        {
+            return NativeCallResult.SUCCESS;
+        }
+
+        @Override
+        public NativeCallResult tryAdviseToKeepInCache( int fd )
+        {
+            return NativeCallResult.SUCCESS;
+        }
+
+        @Override
+        public NativeCallResult tryPreallocateSpace( int fd, long bytes )
+        {
+            return NativeCallResult.SUCCESS;
+        }
+
+        @Override
+        public NativeCallResult tryAdviseHugePages( long address, long length )
+        {
+            hugePageRanges.add( new long[]{address, address + length} );
+            return NativeCallResult.SUCCESS;
+        }
+
+        @Override
+        public int numaNodeCount()
+        {
+            return numaNodes;
+        }
+
+        @Override
+        public NativeCallResult tryInterleaveMemory( long address, long length )
+        {
+            placedRanges.add( new long[]{address, address + length} );
+            return NativeCallResult.SUCCESS;
+        }
+
+        @Override
+        public NativeCallResult tryPlaceMemoryOnNode( long address, long length, int nodeIndex )
+        {
+            nodes.add( nodeIndex );
+            placedRanges.add( new long[]{address, address + length} );
+            return NativeCallResult.SUCCESS;
+        }
+
+        @Override
+        public String describe()
+        {
+            return "Test only";
+        }
+    }
 }
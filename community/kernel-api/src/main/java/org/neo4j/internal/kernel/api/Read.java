@@ -58,6 +58,21 @@ public interface Read
     void nodeIndexSeek( IndexReadSession index, NodeValueIndexCursor cursor, IndexQueryConstraints constraints, IndexQuery... query )
             throws KernelException;
 
+    /**
+     * Seek all nodes matching the provided index query in an index, split up into partitions which can be read in parallel,
+     * where each call to {@link Scan#reserveBatch(Cursor, int)} reserves one whole partition regardless of the given size hint.
+     * The returned {@link Scan} can be shared among threads, each thread using its own cursor.
+     *
+     * @param index {@link IndexReadSession} referencing index to query.
+     * @param desiredNumberOfPartitions the desired number of partitions. Indexes which can't partition their seeks will use a single partition.
+     * @param constraints The requested constraints on the query result, such as whether the index should fetch property values
+     * together with node ids for index queries. The result is unordered, so no {@link IndexOrder} other than {@link IndexOrder#NONE} can be requested.
+     * @param query Combination of {@link IndexQuery index queries} to run against referenced index.
+     * @return a {@link Scan} handing out the partitions of the seek.
+     */
+    Scan<NodeValueIndexCursor> nodeIndexSeekPartitioned( IndexReadSession index, int desiredNumberOfPartitions, IndexQueryConstraints constraints,
+            IndexQuery... query ) throws KernelException;
+
     /**
      * Seek all relationships matching the provided index query in an index.
      *
@@ -104,6 +119,19 @@ public interface Read
      */
     void nodeIndexScan( IndexReadSession index, NodeValueIndexCursor cursor, IndexQueryConstraints constraints ) throws KernelException;
 
+    /**
+     * Scan all values in an index, split up into partitions which can be read in parallel.
+     *
+     * @param index {@link IndexReadSession} index read session to query.
+     * @param desiredNumberOfPartitions the desired number of partitions. Indexes which can't partition their scans will use a single partition.
+     * @param constraints The requested constraints on the query result, such as whether the index should fetch property values
+     * together with node ids. The result is unordered, so no {@link IndexOrder} other than {@link IndexOrder#NONE} can be requested.
+     * @return a {@link Scan} handing out the partitions of the scan.
+     * @see #nodeIndexSeekPartitioned(IndexReadSession, int, IndexQueryConstraints, IndexQuery...)
+     */
+    Scan<NodeValueIndexCursor> nodeIndexScanPartitioned( IndexReadSession index, int desiredNumberOfPartitions, IndexQueryConstraints constraints )
+            throws KernelException;
+
     /**
      * Scan all nodes with a label.
      *
@@ -24,6 +24,7 @@ import java.io.File;
 import java.io.UncheckedIOException;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Optional;
 
 import org.neo4j.annotations.documented.ReporterFactory;
 import org.neo4j.graphdb.ResourceIterator;
@@ -186,6 +187,16 @@ public interface IndexAccessor extends Closeable, ConsistencyCheckable, MinimalI
      */
     long estimateNumberOfEntries( PageCursorTracer cursorTracer );
 
+    /**
+     * Some indexes keep their statistics up to date as updates are applied to them, instead of relying on being sampled.
+     *
+     * @return the current statistics of this index, or {@link Optional#empty()} if this index doesn't maintain any.
+     */
+    default Optional<IndexSample> incrementalStatistics()
+    {
+        return Optional.empty();
+    }
+
     class Adapter implements IndexAccessor
     {
         @Override
@@ -366,5 +377,11 @@ public interface IndexAccessor extends Closeable, ConsistencyCheckable, MinimalI
         {
             return delegate.estimateNumberOfEntries( cursorTracer );
         }
+
+        @Override
+        public Optional<IndexSample> incrementalStatistics()
+        {
+            return delegate.incrementalStatistics();
+        }
     }
 }
@@ -53,6 +53,22 @@ public interface IndexReader extends Resource
     void query( QueryContext context, IndexProgressor.EntityValueClient client, IndexQueryConstraints constraints,
             IndexQuery... query ) throws IndexNotApplicableKernelException;
 
+    /**
+     * Queries the index for the given {@link IndexQuery} predicates, splitting the result up into partitions which can be read in parallel.
+     * Readers which can't partition their queries serve the whole query as a single partition.
+     * The result is unordered, so {@code constraints} can not ask for any order.
+     *
+     * @param context the query context of the transaction the seek is made in.
+     * @param desiredNumberOfPartitions the number of partitions desired by the caller. The actual number of partitions may be lower.
+     * @param constraints constraints upon the query result, like whether the index should fetch property values alongside the entity ids.
+     * @param query the query to serve.
+     * @return a {@link PartitionedValueSeek} handing out the partitions of the query result.
+     */
+    default PartitionedValueSeek valueSeek( QueryContext context, int desiredNumberOfPartitions, IndexQueryConstraints constraints, IndexQuery... query )
+    {
+        return new SinglePartitionValueSeek( this, context, constraints, query );
+    }
+
     /**
      * @param predicates query to determine whether index has full value precision for.
      * @return whether or not this reader will only return 100% matching results from
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.api.index;
+
+/**
+ * The result of {@link IndexReader#valueSeek(org.neo4j.internal.kernel.api.QueryContext, int, org.neo4j.internal.kernel.api.IndexQueryConstraints,
+ * org.neo4j.internal.kernel.api.IndexQuery...)}, i.e. a seek which has been split up into a number of partitions that can be read in parallel.
+ * Collectively the partitions cover all entries matching the query, each entry belonging to exactly one partition.
+ * <p>
+ * Partitions are handed out by {@link #reservePartition(IndexProgressor.EntityValueClient)}, which is safe to call from multiple threads.
+ */
+public interface PartitionedValueSeek
+{
+    /**
+     * @return the number of partitions this seek has been split into. May be lower than the desired number of partitions.
+     */
+    int getNumberOfPartitions();
+
+    /**
+     * Reserves the next partition of this seek, if any, and initializes the given {@code client} with a progressor for it.
+     * The client will be told that the index does not include transaction state.
+     *
+     * @param client the client which will progress through the entries of the reserved partition.
+     * @return {@code true} if a partition was reserved and the client initialized, or {@code false} if all partitions have already been reserved.
+     */
+    boolean reservePartition( IndexProgressor.EntityValueClient client );
+}
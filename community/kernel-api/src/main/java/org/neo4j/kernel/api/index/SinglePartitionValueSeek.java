@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.api.index;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.neo4j.internal.kernel.api.IndexQuery;
+import org.neo4j.internal.kernel.api.IndexQueryConstraints;
+import org.neo4j.internal.kernel.api.QueryContext;
+import org.neo4j.internal.kernel.api.exceptions.schema.IndexNotApplicableKernelException;
+
+import static org.neo4j.util.Preconditions.checkArgument;
+
+/**
+ * A {@link PartitionedValueSeek} for indexes which can't partition their seeks, which serves the whole query as a single partition.
+ */
+public class SinglePartitionValueSeek implements PartitionedValueSeek
+{
+    private final IndexReader reader;
+    private final QueryContext context;
+    private final IndexQueryConstraints constraints;
+    private final IndexQuery[] query;
+    private final AtomicBoolean reserved = new AtomicBoolean();
+
+    public SinglePartitionValueSeek( IndexReader reader, QueryContext context, IndexQueryConstraints constraints, IndexQuery[] query )
+    {
+        checkArgument( !constraints.isOrdered(), "Partitioned seeks are unordered, but %s was requested", constraints.order() );
+        this.reader = reader;
+        this.context = context;
+        this.constraints = constraints;
+        this.query = query;
+    }
+
+    @Override
+    public int getNumberOfPartitions()
+    {
+        return 1;
+    }
+
+    @Override
+    public boolean reservePartition( IndexProgressor.EntityValueClient client )
+    {
+        if ( !reserved.compareAndSet( false, true ) )
+        {
+            return false;
+        }
+        try
+        {
+            reader.query( context, client, constraints, query );
+            return true;
+        }
+        catch ( IndexNotApplicableKernelException e )
+        {
+            throw new IllegalStateException( e.getMessage(), e );
+        }
+    }
+}
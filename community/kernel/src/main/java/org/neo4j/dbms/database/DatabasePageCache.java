@@ -95,10 +95,19 @@ public class DatabasePageCache implements PageCache
     @Override
     public void flushAndForce( IOLimiter limiter ) throws IOException
     {
-        for ( PagedFile pagedFile : databasePagedFiles )
+        flushAndForce( databasePagedFiles, limiter );
+    }
+
+    @Override
+    public void flushAndForce( List<PagedFile> files, IOLimiter limiter ) throws IOException
+    {
+        // Hand all the files over to the global page cache at once, so it gets to flush them together.
+        List<PagedFile> globalPagedFiles = new ArrayList<>( files.size() );
+        for ( PagedFile pagedFile : files )
         {
-            pagedFile.flushAndForce( limiter );
+            globalPagedFiles.add( pagedFile instanceof DatabasePageFile ? ((DatabasePageFile) pagedFile).delegate : pagedFile );
         }
+        globalPageCache.flushAndForce( globalPagedFiles, limiter );
     }
 
     @Override
@@ -163,6 +172,12 @@ public class DatabasePageCache implements PageCache
             return delegate.fileSize();
         }
 
+        @Override
+        public long dirtyPages()
+        {
+            return delegate.dirtyPages();
+        }
+
         @Override
         public File file()
         {
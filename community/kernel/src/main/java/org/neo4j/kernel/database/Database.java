@@ -80,6 +80,7 @@ import org.neo4j.kernel.impl.api.index.IndexProviderMap;
 import org.neo4j.kernel.impl.api.index.IndexStoreView;
 import org.neo4j.kernel.impl.api.index.IndexingService;
 import org.neo4j.kernel.impl.api.index.IndexingServiceFactory;
+import org.neo4j.kernel.impl.api.index.TracingIndexUpdateListener;
 import org.neo4j.kernel.impl.api.index.stats.IndexStatisticsStore;
 import org.neo4j.kernel.impl.api.scan.FullLabelStream;
 import org.neo4j.kernel.impl.api.scan.FullRelationshipTypeStream;
@@ -96,6 +97,7 @@ import org.neo4j.kernel.impl.factory.KernelTransactionFactory;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.locking.StatementLocksFactory;
 import org.neo4j.kernel.impl.pagecache.PageCacheLifecycle;
+import org.neo4j.kernel.impl.pagecache.PageCacheWarmer;
 import org.neo4j.kernel.impl.query.QueryEngineProvider;
 import org.neo4j.kernel.impl.query.QueryExecutionEngine;
 import org.neo4j.kernel.impl.store.stats.DatabaseEntityCounters;
@@ -129,6 +131,7 @@ import org.neo4j.kernel.impl.transaction.state.DefaultIndexProviderMap;
 import org.neo4j.kernel.impl.transaction.state.storeview.DynamicIndexStoreView;
 import org.neo4j.kernel.impl.transaction.state.storeview.NeoStoreIndexStoreView;
 import org.neo4j.kernel.impl.transaction.stats.DatabaseTransactionStats;
+import org.neo4j.kernel.impl.transaction.tracing.DatabaseTracer;
 import org.neo4j.kernel.impl.util.collection.CollectionsFactorySupplier;
 import org.neo4j.kernel.internal.event.DatabaseTransactionEventListeners;
 import org.neo4j.kernel.internal.event.GlobalTransactionEventListeners;
@@ -366,6 +369,7 @@ public class Database extends LifecycleAdapter
                     .withConfig( databaseConfig )
                     .withDependencies( databaseDependencies )
                     .withLogProvider( internalLogProvider )
+                    .withJobScheduler( scheduler )
                     .withDatabaseTracers( tracers )
                     .withMemoryTracker( otherDatabaseMemoryTracker )
                     .withCommandReaderFactory( storageEngineFactory.commandReaderFactory() )
@@ -408,7 +412,7 @@ public class Database extends LifecycleAdapter
             NeoStoreIndexStoreView neoStoreIndexStoreView = new NeoStoreIndexStoreView( lockService, storageEngine::newReader );
             LabelScanStore labelScanStore =
                     buildLabelIndex( databasePageCache, recoveryCleanupWorkCollector, storageEngine, neoStoreIndexStoreView, databaseMonitors,
-                            pageCacheTracer, otherDatabaseMemoryTracker );
+                            databaseConfig, pageCacheTracer, otherDatabaseMemoryTracker );
             RelationshipTypeScanStore relationshipTypeScanStore =
                     buildRelationshipTypeIndex( databasePageCache, recoveryCleanupWorkCollector, storageEngine, neoStoreIndexStoreView, databaseMonitors,
                             databaseConfig, otherDatabaseMemoryTracker );
@@ -472,6 +476,9 @@ public class Database extends LifecycleAdapter
 
             this.checkpointerLifecycle = new CheckpointerLifecycle( transactionLogModule.checkPointer(), databaseHealth );
 
+            life.add( new PageCacheWarmer( fs, databasePageCache, scheduler, databaseLayout, databaseConfig,
+                    internalLogProvider.getLog( PageCacheWarmer.class ),
+                    tracers.getPageCacheTracer() ) );
             life.add( databaseHealth );
             life.add( databaseAvailabilityGuard );
             life.add( databaseAvailability );
@@ -546,7 +553,7 @@ public class Database extends LifecycleAdapter
     {
         return life.add( buildIndexingService( storageEngine, databaseSchemaState, indexStoreView, indexStatisticsStore, databaseConfig, scheduler,
                 indexProviderMap, tokenHolders, internalLogProvider, userLogProvider, databaseMonitors.newMonitor( IndexingService.Monitor.class ),
-                pageCacheTracer, memoryTracker, readOnly ) );
+                tracers.getDatabaseTracer(), pageCacheTracer, memoryTracker, readOnly ) );
     }
 
     /**
@@ -564,6 +571,7 @@ public class Database extends LifecycleAdapter
             LogProvider internalLogProvider,
             LogProvider userLogProvider,
             IndexingService.Monitor indexingServiceMonitor,
+            DatabaseTracer databaseTracer,
             PageCacheTracer pageCacheTracer,
             MemoryTracker memoryTracker,
             boolean readOnly )
@@ -571,7 +579,7 @@ public class Database extends LifecycleAdapter
         IndexingService indexingService = IndexingServiceFactory.createIndexingService( config, jobScheduler, indexProviderMap, indexStoreView,
                 tokenNameLookup, initialSchemaRulesLoader( storageEngine ), internalLogProvider, userLogProvider, indexingServiceMonitor,
                 databaseSchemaState, indexStatisticsStore, pageCacheTracer, memoryTracker, readOnly );
-        storageEngine.addIndexUpdateListener( indexingService );
+        storageEngine.addIndexUpdateListener( new TracingIndexUpdateListener( indexingService, databaseTracer ) );
         return indexingService;
     }
 
@@ -584,10 +592,10 @@ public class Database extends LifecycleAdapter
      * Builds a {@link LabelScanStore} and adds it to this database's {@link LifeSupport}.
      */
     private LabelScanStore buildLabelIndex( PageCache pageCache, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, StorageEngine storageEngine,
-            NeoStoreIndexStoreView neoStoreIndexStoreView, Monitors monitors, PageCacheTracer pageCacheTracer, MemoryTracker memoryTracker )
+            NeoStoreIndexStoreView neoStoreIndexStoreView, Monitors monitors, Config config, PageCacheTracer pageCacheTracer, MemoryTracker memoryTracker )
     {
         return life.add( buildLabelIndex( recoveryCleanupWorkCollector, storageEngine, neoStoreIndexStoreView, monitors, internalLogProvider,
-                pageCache, databaseLayout, fs, readOnly, pageCacheTracer, memoryTracker ) );
+                pageCache, databaseLayout, fs, readOnly, config, pageCacheTracer, memoryTracker ) );
     }
 
     /**
@@ -619,13 +627,14 @@ public class Database extends LifecycleAdapter
             DatabaseLayout databaseLayout,
             FileSystemAbstraction fs,
             boolean readOnly,
+            Config config,
             PageCacheTracer cacheTracer,
             MemoryTracker memoryTracker )
     {
         monitors.addMonitorListener( new LoggingMonitor( logProvider.getLog( LabelScanStore.class ), EntityType.NODE ), LABEL_SCAN_STORE_MONITOR_TAG );
         FullStoreChangeStream labelStream = new FullLabelStream( indexStoreView );
         LabelScanStore labelScanStore = labelScanStore( pageCache, databaseLayout, fs, labelStream, readOnly, monitors, recoveryCleanupWorkCollector,
-                cacheTracer, memoryTracker );
+                config, cacheTracer, memoryTracker );
         storageEngine.addNodeLabelUpdateListener( labelScanStore.updateListener() );
         return labelScanStore;
     }
@@ -670,18 +679,21 @@ public class Database extends LifecycleAdapter
                 new LogRotationImpl( logFiles, clock, databaseHealth, monitors.newMonitor( LogRotationMonitor.class ) );
 
         final TransactionAppender appender = life.add( new BatchingTransactionAppender(
-                logFiles, logRotation, transactionMetadataCache, transactionIdStore, databaseHealth ) );
+                logFiles, logRotation, transactionMetadataCache, transactionIdStore, databaseHealth,
+                config.get( GraphDatabaseInternalSettings.tx_log_compress_commands ) ) );
         final LogicalTransactionStore logicalTransactionStore =
                 new PhysicalLogicalTransactionStore( logFiles, transactionMetadataCache, logEntryReader, monitors, true );
 
-        CheckPointThreshold threshold = CheckPointThreshold.createThreshold( config, clock, logPruning, logProvider );
+        CheckPointThreshold threshold = CheckPointThreshold.createThreshold( config, clock, logPruning, tracers.getDatabaseTracer(), databasePageCache,
+                logProvider );
+        IOLimiter checkPointIOLimiter = threshold.checkPointIOLimiter( ioLimiter );
 
         final CheckPointerImpl checkPointer =
                 new CheckPointerImpl( transactionIdStore, threshold, forceOperation, logPruning, appender, databaseHealth, logProvider,
-                        tracers, ioLimiter, storeCopyCheckPointMutex );
+                        tracers, checkPointIOLimiter, storeCopyCheckPointMutex );
 
         long recurringPeriod = threshold.checkFrequencyMillis();
-        CheckPointScheduler checkPointScheduler = new CheckPointScheduler( checkPointer, ioLimiter, scheduler,
+        CheckPointScheduler checkPointScheduler = new CheckPointScheduler( checkPointer, checkPointIOLimiter, scheduler,
                 recurringPeriod, databaseHealth );
 
         life.add( checkPointer );
@@ -95,6 +95,7 @@ import org.neo4j.kernel.impl.newapi.Operations;
 import org.neo4j.kernel.impl.transaction.TransactionMonitor;
 import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
+import org.neo4j.kernel.impl.transaction.tracing.LockAcquisitionEvent;
 import org.neo4j.kernel.impl.transaction.tracing.TransactionEvent;
 import org.neo4j.kernel.impl.transaction.tracing.TransactionTracer;
 import org.neo4j.kernel.impl.util.collection.CollectionsFactory;
@@ -718,7 +719,10 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
                 forceThawLocks();
 
                 // grab all optimistic locks now, locks can't be deferred any further
-                statementLocks.prepareForCommit( currentStatement.lockTracer() );
+                try ( LockAcquisitionEvent lockAcquisitionEvent = commitEvent.beginLockAcquisition() )
+                {
+                    statementLocks.prepareForCommit( currentStatement.lockTracer() );
+                }
                 // use pessimistic locks for the rest of the commit process, locks can't be deferred any further
                 Locks.Client commitLocks = statementLocks.pessimistic();
 
@@ -24,6 +24,7 @@ import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
 import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
 import org.neo4j.kernel.impl.transaction.tracing.StoreApplyEvent;
+import org.neo4j.kernel.impl.transaction.tracing.TransactionCloseEvent;
 import org.neo4j.storageengine.api.StorageEngine;
 import org.neo4j.storageengine.api.TransactionApplicationMode;
 
@@ -52,7 +53,7 @@ public class TransactionRepresentationCommitProcess implements TransactionCommit
         }
         finally
         {
-            close( batch );
+            close( batch, commitEvent );
         }
     }
 
@@ -83,13 +84,16 @@ public class TransactionRepresentationCommitProcess implements TransactionCommit
         }
     }
 
-    private static void close( TransactionToApply batch )
+    private static void close( TransactionToApply batch, CommitEvent commitEvent )
     {
-        while ( batch != null )
+        try ( TransactionCloseEvent transactionCloseEvent = commitEvent.beginTransactionClose() )
         {
-            batch.publishAsClosed();
-            batch.close();
-            batch = batch.next();
+            while ( batch != null )
+            {
+                batch.publishAsClosed();
+                batch.close();
+                batch = batch.next();
+            }
         }
     }
 }
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index;
+
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.neo4j.exceptions.UnderlyingStorageException;
+import org.neo4j.internal.helpers.Exceptions;
+import org.neo4j.internal.schema.IndexDescriptor;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
+import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.scheduler.CallableExecutor;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.storageengine.api.IndexEntryUpdate;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
+
+/**
+ * Applies the index updates of a batch of committed transactions, one index at a time.
+ * <p>
+ * The updates are first grouped per index, so that each index gets all of its updates from one {@link IndexUpdater}. When the batch is
+ * big enough, and touches more than one index, the indexes are spread over the threads of the {@link Group#INDEX_UPDATE_APPLY} pool, with
+ * the calling thread taking one of them. The calling thread returns only when every index has had its updates applied, so batches are
+ * still applied one after the other, in commit order.
+ * <p>
+ * The updates for one index are applied by one thread, in commit order, except that updates for a non-unique index are sorted by their
+ * values if no entity has more than one of them. Those updates are then independent of each other, and sorting them means that updates
+ * landing in the same part of the index are applied close together. Updates for unique indexes are never reordered, since removing a
+ * value from one entity must happen before adding it to another.
+ */
+class IndexUpdateApplier
+{
+    private static final String INDEX_UPDATE_APPLY_TAG = "indexUpdateApply";
+    private static final Comparator<IndexEntryUpdate<IndexDescriptor>> VALUE_ORDER = ( left, right ) ->
+    {
+        int compare = compareValues( left.values(), right.values() );
+        return compare != 0 ? compare : Long.compare( left.getEntityId(), right.getEntityId() );
+    };
+
+    private final JobScheduler scheduler;
+    private final PageCacheTracer pageCacheTracer;
+    private final int workers;
+    private final int parallelThreshold;
+
+    /**
+     * @param workers number of threads that may apply updates of one batch, including the calling thread. One means that the calling thread
+     * applies all of them.
+     * @param parallelThreshold the smallest number of updates in a batch for it to be spread over more than one thread.
+     */
+    IndexUpdateApplier( JobScheduler scheduler, PageCacheTracer pageCacheTracer, int workers, int parallelThreshold )
+    {
+        this.scheduler = scheduler;
+        this.pageCacheTracer = pageCacheTracer;
+        this.workers = workers;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    void apply( IndexMapReference indexMapRef, Iterable<IndexEntryUpdate<IndexDescriptor>> updates, IndexUpdateMode updateMode,
+            PageCursorTracer cursorTracer ) throws IndexEntryConflictException
+    {
+        Map<IndexDescriptor,List<IndexEntryUpdate<IndexDescriptor>>> updatesPerIndex = new HashMap<>();
+        int numberOfUpdates = 0;
+        for ( IndexEntryUpdate<IndexDescriptor> update : updates )
+        {
+            updatesPerIndex.computeIfAbsent( update.indexKey(), index -> new ArrayList<>() ).add( update );
+            numberOfUpdates++;
+        }
+        updatesPerIndex.forEach( IndexUpdateApplier::sortForLocality );
+
+        if ( workers > 1 && updatesPerIndex.size() > 1 && numberOfUpdates >= parallelThreshold )
+        {
+            applyInParallel( indexMapRef.indexMapSnapshot(), updatesPerIndex, updateMode, cursorTracer );
+        }
+        else
+        {
+            applySequentially( indexMapRef, updatesPerIndex, updateMode, cursorTracer );
+        }
+    }
+
+    private static void applySequentially( IndexMapReference indexMapRef, Map<IndexDescriptor,List<IndexEntryUpdate<IndexDescriptor>>> updatesPerIndex,
+            IndexUpdateMode updateMode, PageCursorTracer cursorTracer ) throws IndexEntryConflictException
+    {
+        try ( IndexUpdaterMap updaterMap = indexMapRef.createIndexUpdaterMap( updateMode ) )
+        {
+            for ( Map.Entry<IndexDescriptor,List<IndexEntryUpdate<IndexDescriptor>>> indexUpdates : updatesPerIndex.entrySet() )
+            {
+                IndexUpdater updater = updaterMap.getUpdater( indexUpdates.getKey(), cursorTracer );
+                if ( updater != null )
+                {
+                    for ( IndexEntryUpdate<IndexDescriptor> update : indexUpdates.getValue() )
+                    {
+                        updater.process( update );
+                    }
+                }
+            }
+        }
+    }
+
+    private void applyInParallel( IndexMap indexMap, Map<IndexDescriptor,List<IndexEntryUpdate<IndexDescriptor>>> updatesPerIndex,
+            IndexUpdateMode updateMode, PageCursorTracer cursorTracer ) throws IndexEntryConflictException
+    {
+        CallableExecutor executor = scheduler.executor( Group.INDEX_UPDATE_APPLY );
+        Iterator<Map.Entry<IndexDescriptor,List<IndexEntryUpdate<IndexDescriptor>>>> indexes = updatesPerIndex.entrySet().iterator();
+        Map.Entry<IndexDescriptor,List<IndexEntryUpdate<IndexDescriptor>>> callerIndex = indexes.next();
+        List<Future<Void>> jobs = new ArrayList<>( updatesPerIndex.size() - 1 );
+        while ( indexes.hasNext() )
+        {
+            Map.Entry<IndexDescriptor,List<IndexEntryUpdate<IndexDescriptor>>> indexUpdates = indexes.next();
+            jobs.add( executor.submit( () ->
+            {
+                try ( PageCursorTracer jobCursorTracer = pageCacheTracer.createPageCursorTracer( INDEX_UPDATE_APPLY_TAG ) )
+                {
+                    applyToIndex( indexMap, indexUpdates.getKey(), indexUpdates.getValue(), updateMode, jobCursorTracer );
+                }
+                return null;
+            } ) );
+        }
+
+        Throwable failure = null;
+        try
+        {
+            applyToIndex( indexMap, callerIndex.getKey(), callerIndex.getValue(), updateMode, cursorTracer );
+        }
+        catch ( IndexEntryConflictException | RuntimeException e )
+        {
+            failure = e;
+        }
+        // All jobs must have completed before returning, since the next batch must not be applied concurrently with this one
+        boolean interrupted = false;
+        for ( Future<Void> job : jobs )
+        {
+            while ( true )
+            {
+                try
+                {
+                    job.get();
+                    break;
+                }
+                catch ( InterruptedException e )
+                {
+                    interrupted = true;
+                }
+                catch ( ExecutionException e )
+                {
+                    failure = Exceptions.chain( failure, e.getCause() );
+                    break;
+                }
+            }
+        }
+        if ( interrupted )
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        if ( failure instanceof IndexEntryConflictException )
+        {
+            throw (IndexEntryConflictException) failure;
+        }
+        if ( failure != null )
+        {
+            Exceptions.throwIfUnchecked( failure );
+            throw new UnderlyingStorageException( failure );
+        }
+    }
+
+    private static void applyToIndex( IndexMap indexMap, IndexDescriptor index, List<IndexEntryUpdate<IndexDescriptor>> updates,
+            IndexUpdateMode updateMode, PageCursorTracer cursorTracer ) throws IndexEntryConflictException
+    {
+        IndexProxy indexProxy = indexMap.getIndexProxy( index );
+        if ( indexProxy == null )
+        {
+            return;
+        }
+        try ( IndexUpdater updater = indexProxy.newUpdater( updateMode, cursorTracer ) )
+        {
+            for ( IndexEntryUpdate<IndexDescriptor> update : updates )
+            {
+                updater.process( update );
+            }
+        }
+        catch ( UncheckedIOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+    }
+
+    private static void sortForLocality( IndexDescriptor index, List<IndexEntryUpdate<IndexDescriptor>> updates )
+    {
+        if ( index.isUnique() || updates.size() < 2 )
+        {
+            return;
+        }
+        MutableLongSet entities = new LongHashSet( updates.size() );
+        for ( IndexEntryUpdate<IndexDescriptor> update : updates )
+        {
+            if ( !entities.add( update.getEntityId() ) )
+            {
+                // Updates for the same entity must be applied in commit order
+                return;
+            }
+        }
+        updates.sort( VALUE_ORDER );
+    }
+
+    private static int compareValues( Value[] left, Value[] right )
+    {
+        int length = Math.min( left.length, right.length );
+        for ( int i = 0; i < length; i++ )
+        {
+            int compare = Values.COMPARATOR.compare( left[i], right[i] );
+            if ( compare != 0 )
+            {
+                return compare;
+            }
+        }
+        return Integer.compare( left.length, right.length );
+    }
+}
@@ -62,12 +62,10 @@ import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.kernel.api.exceptions.index.IndexActivationFailedKernelException;
-import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
 import org.neo4j.kernel.api.exceptions.index.IndexPopulationFailedKernelException;
 import org.neo4j.kernel.api.exceptions.schema.UniquePropertyValueValidationException;
 import org.neo4j.kernel.api.index.IndexPopulator;
 import org.neo4j.kernel.api.index.IndexProvider;
-import org.neo4j.kernel.api.index.IndexUpdater;
 import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingController;
 import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingMode;
 import org.neo4j.kernel.impl.api.index.stats.IndexStatisticsStore;
@@ -125,6 +123,7 @@ public class IndexingService extends LifecycleAdapter implements IndexUpdateList
     private final Monitor monitor;
     private final SchemaState schemaState;
     private final IndexPopulationJobController populationJobController;
+    private final IndexUpdateApplier indexUpdateApplier;
     private final Map<Long,IndexProxy> indexesToDropAfterCompletedRecovery = new HashMap<>();
     private static final String INIT_TAG = "Initialize IndexingService";
 
@@ -217,6 +216,7 @@ public class IndexingService extends LifecycleAdapter implements IndexUpdateList
             IndexStatisticsStore indexStatisticsStore,
             PageCacheTracer pageCacheTracer,
             MemoryTracker memoryTracker,
+            IndexUpdateApplier indexUpdateApplier,
             boolean readOnly )
     {
         this.indexProxyCreator = indexProxyCreator;
@@ -236,6 +236,7 @@ public class IndexingService extends LifecycleAdapter implements IndexUpdateList
         this.indexStatisticsStore = indexStatisticsStore;
         this.pageCacheTracer = pageCacheTracer;
         this.memoryTracker = memoryTracker;
+        this.indexUpdateApplier = indexUpdateApplier;
         this.readOnly = readOnly;
     }
 
@@ -596,13 +597,7 @@ public class IndexingService extends LifecycleAdapter implements IndexUpdateList
 
     private void apply( Iterable<IndexEntryUpdate<IndexDescriptor>> updates, IndexUpdateMode updateMode, PageCursorTracer cursorTracer ) throws KernelException
     {
-        try ( IndexUpdaterMap updaterMap = indexMapRef.createIndexUpdaterMap( updateMode ) )
-        {
-            for ( IndexEntryUpdate<IndexDescriptor> indexUpdate : updates )
-            {
-                processUpdate( updaterMap, indexUpdate, cursorTracer );
-            }
-        }
+        indexUpdateApplier.apply( indexMapRef, updates, updateMode, cursorTracer );
     }
 
     /**
@@ -638,16 +633,6 @@ public class IndexingService extends LifecycleAdapter implements IndexUpdateList
         populationStarter.startPopulation();
     }
 
-    private void processUpdate( IndexUpdaterMap updaterMap, IndexEntryUpdate<IndexDescriptor> indexUpdate,
-            PageCursorTracer cursorTracer ) throws IndexEntryConflictException
-    {
-        IndexUpdater updater = updaterMap.getUpdater( indexUpdate.indexKey(), cursorTracer );
-        if ( updater != null )
-        {
-            updater.process( indexUpdate );
-        }
-    }
-
     @Override
     public void dropIndex( IndexDescriptor rule )
     {
@@ -21,6 +21,7 @@ package org.neo4j.kernel.impl.api.index;
 
 import org.neo4j.common.TokenNameLookup;
 import org.neo4j.configuration.Config;
+import org.neo4j.configuration.GraphDatabaseInternalSettings;
 import org.neo4j.internal.schema.IndexDescriptor;
 import org.neo4j.internal.schema.SchemaState;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
@@ -63,8 +64,12 @@ public final class IndexingServiceFactory
         IndexProxyCreator proxySetup =
                 new IndexProxyCreator( samplingConfig, indexStatisticsStore, providerMap, tokenNameLookup, internalLogProvider );
 
+        IndexUpdateApplier indexUpdateApplier = new IndexUpdateApplier( scheduler, pageCacheTracer,
+                config.get( GraphDatabaseInternalSettings.index_update_apply_workers ),
+                config.get( GraphDatabaseInternalSettings.index_update_apply_parallel_threshold ) );
+
         return new IndexingService( proxySetup, providerMap, indexMapRef, storeView, indexRules,
                 indexSamplingController, tokenNameLookup, scheduler, schemaState,
-                internalLogProvider, userLogProvider, monitor, indexStatisticsStore, pageCacheTracer, memoryTracker, readOnly );
+                internalLogProvider, userLogProvider, monitor, indexStatisticsStore, pageCacheTracer, memoryTracker, indexUpdateApplier, readOnly );
     }
 }
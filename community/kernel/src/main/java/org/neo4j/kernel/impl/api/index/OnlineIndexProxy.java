@@ -115,7 +115,7 @@ public class OnlineIndexProxy implements IndexProxy
 
     private IndexUpdater updateCountingUpdater( final IndexUpdater indexUpdater )
     {
-        return new UpdateCountingIndexUpdater( indexStatisticsStore, indexId, indexUpdater );
+        return new UpdateCountingIndexUpdater( indexStatisticsStore, indexId, indexUpdater, accessor );
     }
 
     @Override
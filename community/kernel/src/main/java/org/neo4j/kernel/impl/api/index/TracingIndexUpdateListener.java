@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index;
+
+import java.io.IOException;
+
+import org.neo4j.exceptions.KernelException;
+import org.neo4j.internal.schema.IndexDescriptor;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.kernel.impl.transaction.tracing.DatabaseTracer;
+import org.neo4j.kernel.impl.transaction.tracing.IndexApplyEvent;
+import org.neo4j.storageengine.api.IndexEntryUpdate;
+import org.neo4j.storageengine.api.IndexUpdateListener;
+
+/**
+ * {@link IndexUpdateListener} which traces the application of index updates from committed transactions
+ * to the given {@link DatabaseTracer}, before handing them over to the actual listener.
+ */
+public class TracingIndexUpdateListener implements IndexUpdateListener
+{
+    private final IndexUpdateListener delegate;
+    private final DatabaseTracer databaseTracer;
+
+    public TracingIndexUpdateListener( IndexUpdateListener delegate, DatabaseTracer databaseTracer )
+    {
+        this.delegate = delegate;
+        this.databaseTracer = databaseTracer;
+    }
+
+    @Override
+    public void createIndexes( IndexDescriptor... indexes )
+    {
+        delegate.createIndexes( indexes );
+    }
+
+    @Override
+    public void activateIndex( IndexDescriptor index ) throws KernelException
+    {
+        delegate.activateIndex( index );
+    }
+
+    @Override
+    public void dropIndex( IndexDescriptor index )
+    {
+        delegate.dropIndex( index );
+    }
+
+    @Override
+    public void applyUpdates( Iterable<IndexEntryUpdate<IndexDescriptor>> updates, PageCursorTracer cursorTracer ) throws IOException, KernelException
+    {
+        try ( IndexApplyEvent indexApplyEvent = databaseTracer.beginIndexApply() )
+        {
+            delegate.applyUpdates( updates, cursorTracer );
+        }
+    }
+
+    @Override
+    public void validateIndex( long indexReference ) throws KernelException
+    {
+        delegate.validateIndex( indexReference );
+    }
+}
@@ -122,6 +122,32 @@ public class IndexStatisticsStore extends LifecycleAdapter implements IndexStati
         cache.put( key, value );
     }
 
+    /**
+     * Replaces the sampled statistics of an index with an estimate of them, but keeps counting the updates since the index was last sampled.
+     *
+     * @param indexId id of the index.
+     * @param estimate the estimated statistics of the index.
+     * @param updatesDelta number of updates to add to the updates count.
+     */
+    public void replaceEstimatedStats( long indexId, IndexSample estimate, long updatesDelta )
+    {
+        assertNotReadOnly();
+        IndexStatisticsKey key = new IndexStatisticsKey( indexId );
+        boolean replaced;
+        do
+        {
+            IndexStatisticsValue existing = cache.get( key );
+            if ( existing == null )
+            {
+                return;
+            }
+            IndexStatisticsValue value = new IndexStatisticsValue(
+                    estimate.uniqueValues(), estimate.sampleSize(), existing.getUpdatesCount() + updatesDelta, estimate.indexSize() );
+            replaced = cache.replace( key, existing, value );
+        }
+        while ( !replaced );
+    }
+
     public void removeIndex( long indexId )
     {
         assertNotReadOnly();
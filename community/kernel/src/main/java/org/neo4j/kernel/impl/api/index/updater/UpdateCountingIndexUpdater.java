@@ -19,23 +19,34 @@
  */
 package org.neo4j.kernel.impl.api.index.updater;
 
+import java.util.Optional;
+
 import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
+import org.neo4j.kernel.api.index.IndexAccessor;
+import org.neo4j.kernel.api.index.IndexSample;
 import org.neo4j.kernel.api.index.IndexUpdater;
 import org.neo4j.kernel.impl.api.index.stats.IndexStatisticsStore;
 import org.neo4j.storageengine.api.IndexEntryUpdate;
 
+/**
+ * Counts the updates applied to an index in the {@link IndexStatisticsStore}, so that the index gets resampled when enough of it has changed.
+ * An index which keeps its own {@link IndexAccessor#incrementalStatistics() statistics} up to date also has those replace its statistics
+ * in the store, so that they don't drift between samples.
+ */
 public class UpdateCountingIndexUpdater implements IndexUpdater
 {
     private final IndexStatisticsStore indexStatisticsStore;
     private final long indexId;
     private final IndexUpdater delegate;
+    private final IndexAccessor accessor;
     private long updates;
 
-    public UpdateCountingIndexUpdater( IndexStatisticsStore indexStatisticsStore, long indexId, IndexUpdater delegate )
+    public UpdateCountingIndexUpdater( IndexStatisticsStore indexStatisticsStore, long indexId, IndexUpdater delegate, IndexAccessor accessor )
     {
         this.indexStatisticsStore = indexStatisticsStore;
         this.indexId = indexId;
         this.delegate = delegate;
+        this.accessor = accessor;
     }
 
     @Override
@@ -49,6 +60,14 @@ public class UpdateCountingIndexUpdater implements IndexUpdater
     public void close() throws IndexEntryConflictException
     {
         delegate.close();
-        indexStatisticsStore.incrementIndexUpdates( indexId, updates );
+        Optional<IndexSample> statistics = accessor.incrementalStatistics();
+        if ( statistics.isPresent() )
+        {
+            indexStatisticsStore.replaceEstimatedStats( indexId, statistics.get(), updates );
+        }
+        else
+        {
+            indexStatisticsStore.incrementIndexUpdates( indexId, updates );
+        }
     }
 }
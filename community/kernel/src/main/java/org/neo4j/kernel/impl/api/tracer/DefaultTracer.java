@@ -19,12 +19,17 @@
  */
 package org.neo4j.kernel.impl.api.tracer;
 
+import java.util.EnumMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.stats.CommitPhase;
+import org.neo4j.kernel.impl.transaction.stats.LatencyHistogram;
 import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
 import org.neo4j.kernel.impl.transaction.tracing.DatabaseTracer;
+import org.neo4j.kernel.impl.transaction.tracing.IndexApplyEvent;
+import org.neo4j.kernel.impl.transaction.tracing.LockAcquisitionEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogCheckPointEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogFileCreateEvent;
@@ -33,12 +38,22 @@ import org.neo4j.kernel.impl.transaction.tracing.LogForceWaitEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogRotateEvent;
 import org.neo4j.kernel.impl.transaction.tracing.SerializeTransactionEvent;
 import org.neo4j.kernel.impl.transaction.tracing.StoreApplyEvent;
+import org.neo4j.kernel.impl.transaction.tracing.TransactionCloseEvent;
 import org.neo4j.kernel.impl.transaction.tracing.TransactionEvent;
 
 import static org.neo4j.kernel.impl.transaction.log.entry.LogVersions.CURRENT_FORMAT_LOG_HEADER_SIZE;
+import static org.neo4j.kernel.impl.transaction.stats.CommitPhase.APPLY;
+import static org.neo4j.kernel.impl.transaction.stats.CommitPhase.CLOSE;
+import static org.neo4j.kernel.impl.transaction.stats.CommitPhase.COMMIT;
+import static org.neo4j.kernel.impl.transaction.stats.CommitPhase.FORCE_WAIT;
+import static org.neo4j.kernel.impl.transaction.stats.CommitPhase.INDEX_APPLY;
+import static org.neo4j.kernel.impl.transaction.stats.CommitPhase.LOCK_WAIT;
+import static org.neo4j.kernel.impl.transaction.stats.CommitPhase.LOG_WRITE;
+import static org.neo4j.kernel.impl.transaction.stats.CommitPhase.SERIALIZATION;
 
 /**
- * Tracer used to trace database scoped events, like transaction logs rotations, checkpoints, transactions etc
+ * Tracer used to trace database scoped events, like transaction logs rotations, checkpoints, transactions etc.
+ * Latencies of the phases of committing transactions are recorded into a histogram per {@link CommitPhase}.
  */
 public class DefaultTracer implements DatabaseTracer
 {
@@ -47,13 +62,15 @@ public class DefaultTracer implements DatabaseTracer
     private final CountingLogRotateEvent countingLogRotateEvent = new CountingLogRotateEvent();
     private final LogFileCreateEvent logFileCreateEvent = () -> appendedBytes.addAndGet( CURRENT_FORMAT_LOG_HEADER_SIZE );
     private final CountingLogCheckPointEvent logCheckPointEvent = new CountingLogCheckPointEvent( this::appendLogBytes );
-    private final LogAppendEvent logAppendEvent = new DefaultLogAppendEvent();
-    private final CommitEvent commitEvent = new DefaultCommitEvent();
     private final TransactionEvent transactionEvent = new DefaultTransactionEvent();
+    private final EnumMap<CommitPhase,LatencyHistogram> commitLatencies = new EnumMap<>( CommitPhase.class );
 
     public DefaultTracer()
     {
-        //empty
+        for ( CommitPhase phase : CommitPhase.values() )
+        {
+            commitLatencies.put( phase, new LatencyHistogram() );
+        }
     }
 
     @Override
@@ -125,6 +142,24 @@ public class DefaultTracer implements DatabaseTracer
         return logFileCreateEvent;
     }
 
+    @Override
+    public IndexApplyEvent beginIndexApply()
+    {
+        long startTime = System.nanoTime();
+        return () -> recordLatency( INDEX_APPLY, startTime );
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot commitLatency( CommitPhase phase )
+    {
+        return commitLatencies.get( phase ).snapshot();
+    }
+
+    private void recordLatency( CommitPhase phase, long startTime )
+    {
+        commitLatencies.get( phase ).record( System.nanoTime() - startTime );
+    }
+
     private class DefaultTransactionEvent implements TransactionEvent
     {
 
@@ -141,7 +176,7 @@ public class DefaultTracer implements DatabaseTracer
         @Override
         public CommitEvent beginCommitEvent()
         {
-            return commitEvent;
+            return new DefaultCommitEvent( System.nanoTime() );
         }
 
         @Override
@@ -162,26 +197,62 @@ public class DefaultTracer implements DatabaseTracer
 
     private class DefaultCommitEvent implements CommitEvent
     {
+        private final long startTime;
+        // Read only transactions commit too, only record commits that actually appended to the log
+        private boolean appended;
+
+        DefaultCommitEvent( long startTime )
+        {
+            this.startTime = startTime;
+        }
+
         @Override
         public void close()
         {
+            if ( appended )
+            {
+                recordLatency( COMMIT, startTime );
+            }
         }
 
         @Override
         public LogAppendEvent beginLogAppend()
         {
-            return logAppendEvent;
+            appended = true;
+            return new DefaultLogAppendEvent( System.nanoTime() );
         }
 
         @Override
         public StoreApplyEvent beginStoreApply()
         {
-            return StoreApplyEvent.NULL;
+            long applyStartTime = System.nanoTime();
+            return () -> recordLatency( APPLY, applyStartTime );
+        }
+
+        @Override
+        public LockAcquisitionEvent beginLockAcquisition()
+        {
+            long lockStartTime = System.nanoTime();
+            return () -> recordLatency( LOCK_WAIT, lockStartTime );
+        }
+
+        @Override
+        public TransactionCloseEvent beginTransactionClose()
+        {
+            long closeStartTime = System.nanoTime();
+            return () -> recordLatency( CLOSE, closeStartTime );
         }
     }
 
     private class DefaultLogAppendEvent implements LogAppendEvent
     {
+        private final long startTime;
+
+        DefaultLogAppendEvent( long startTime )
+        {
+            this.startTime = startTime;
+        }
+
         @Override
         public void appendToLogFile( LogPosition logPositionBeforeAppend, LogPosition logPositionAfterAppend )
         {
@@ -191,6 +262,7 @@ public class DefaultTracer implements DatabaseTracer
         @Override
         public void close()
         {
+            recordLatency( LOG_WRITE, startTime );
         }
 
         @Override
@@ -208,13 +280,15 @@ public class DefaultTracer implements DatabaseTracer
         @Override
         public SerializeTransactionEvent beginSerializeTransaction()
         {
-            return SerializeTransactionEvent.NULL;
+            long serializationStartTime = System.nanoTime();
+            return () -> recordLatency( SERIALIZATION, serializationStartTime );
         }
 
         @Override
         public LogForceWaitEvent beginLogForceWait()
         {
-            return LogForceWaitEvent.NULL;
+            long forceWaitStartTime = System.nanoTime();
+            return () -> recordLatency( FORCE_WAIT, forceWaitStartTime );
         }
 
         @Override
@@ -433,7 +433,7 @@ public abstract class BlockBasedIndexPopulator<KEY extends NativeIndexKey<KEY>,V
             }
 
             int asMuchAsPossibleToTheLeft = 1;
-            try ( Writer<KEY,VALUE> writer = tree.writer( asMuchAsPossibleToTheLeft, cursorTracer ) )
+            try ( Writer<KEY,VALUE> writer = tree.sortedWriter( asMuchAsPossibleToTheLeft, cursorTracer ) )
             {
                 while ( allEntries.next() && !cancellation.cancelled() )
                 {
@@ -37,6 +37,7 @@ abstract class ConflictDetectingValueMerger<KEY extends NativeIndexKey<KEY>, VAL
     private final boolean compareEntityIds;
 
     private boolean conflict;
+    private boolean keyExisted;
     private long existingNodeId;
     private long addedNodeId;
 
@@ -48,6 +49,7 @@ abstract class ConflictDetectingValueMerger<KEY extends NativeIndexKey<KEY>, VAL
     @Override
     public MergeResult merge( KEY existingKey, KEY newKey, VALUE existingValue, VALUE newValue )
     {
+        keyExisted = true;
         if ( existingKey.getEntityId() != newKey.getEntityId() )
         {
             conflict = true;
@@ -67,6 +69,16 @@ abstract class ConflictDetectingValueMerger<KEY extends NativeIndexKey<KEY>, VAL
     void controlConflictDetection( KEY key )
     {
         key.setCompareId( compareEntityIds );
+        keyExisted = false;
+    }
+
+    /**
+     * @return whether or not the key last {@link #controlConflictDetection(NativeIndexKey) prepared} by this merger was already in the tree,
+     * so that nothing got inserted.
+     */
+    boolean keyExisted()
+    {
+        return keyExisted;
     }
 
     boolean wasConflicting()
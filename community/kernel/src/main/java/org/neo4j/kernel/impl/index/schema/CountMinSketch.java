@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.nio.ByteBuffer;
+
+import org.neo4j.io.pagecache.PageCursor;
+
+import static org.neo4j.util.Preconditions.requirePositive;
+import static org.neo4j.util.Preconditions.requirePowerOfTwo;
+
+/**
+ * A count-min sketch, estimating how many times each 64-bit hash has been added to it using a fixed amount of memory.
+ * Each of the {@code depth} rows maps a hash to one of its {@code width} counters, where the rows use different mappings.
+ * The estimated count of a hash is the smallest of its counters, which is never lower than its actual count
+ * as long as no hash is removed more times than it has been added.
+ * <p>
+ * Counters saturate at {@link Integer#MAX_VALUE} and then stay there, since the counts they are shared by are no longer known.
+ */
+class CountMinSketch
+{
+    private final int depth;
+    private final int width;
+    private final int[] counters;
+
+    CountMinSketch( int depth, int width )
+    {
+        requirePositive( depth );
+        requirePowerOfTwo( width );
+        this.depth = depth;
+        this.width = width;
+        this.counters = new int[depth * width];
+    }
+
+    /**
+     * Adds {@code delta} to the count of the hash, where a negative {@code delta} removes occurrences of it.
+     *
+     * @return the estimated count of the hash after the change.
+     */
+    long add( long hash, long delta )
+    {
+        long estimate = Long.MAX_VALUE;
+        for ( int row = 0; row < depth; row++ )
+        {
+            int index = index( hash, row );
+            int counter = counters[index];
+            if ( counter != Integer.MAX_VALUE )
+            {
+                counter = (int) Math.min( Math.max( counter + delta, 0 ), Integer.MAX_VALUE );
+                counters[index] = counter;
+            }
+            estimate = Math.min( estimate, counter );
+        }
+        return estimate;
+    }
+
+    long count( long hash )
+    {
+        long estimate = Long.MAX_VALUE;
+        for ( int row = 0; row < depth; row++ )
+        {
+            estimate = Math.min( estimate, counters[index( hash, row )] );
+        }
+        return estimate;
+    }
+
+    void writeTo( PageCursor cursor )
+    {
+        cursor.putByte( (byte) depth );
+        cursor.putInt( width );
+        for ( int counter : counters )
+        {
+            cursor.putInt( counter );
+        }
+    }
+
+    static CountMinSketch readFrom( ByteBuffer buffer )
+    {
+        CountMinSketch sketch = new CountMinSketch( buffer.get(), buffer.getInt() );
+        for ( int i = 0; i < sketch.counters.length; i++ )
+        {
+            sketch.counters[i] = buffer.getInt();
+        }
+        return sketch;
+    }
+
+    private int index( long hash, int row )
+    {
+        // Derives the row hashes from the two halves of the hash, as described by Kirsch and Mitzenmacher
+        int rowHash = (int) hash + row * (int) (hash >>> Integer.SIZE);
+        return row * width + (rowHash & (width - 1));
+    }
+}
@@ -39,11 +39,21 @@ class FullScanNonUniqueIndexSampler<KEY extends NativeIndexKey<KEY>, VALUE exten
 {
     private final GBPTree<KEY,VALUE> gbpTree;
     private final IndexLayout<KEY,VALUE> layout;
+    private final IncrementalIndexStatistics statistics;
 
     FullScanNonUniqueIndexSampler( GBPTree<KEY,VALUE> gbpTree, IndexLayout<KEY,VALUE> layout )
+    {
+        this( gbpTree, layout, null );
+    }
+
+    /**
+     * @param statistics if not {@code null}, all scanned entries are {@link IncrementalIndexStatistics#include(long, long) included} in these.
+     */
+    FullScanNonUniqueIndexSampler( GBPTree<KEY,VALUE> gbpTree, IndexLayout<KEY,VALUE> layout, IncrementalIndexStatistics statistics )
     {
         this.gbpTree = gbpTree;
         this.layout = layout;
+        this.statistics = statistics;
     }
 
     @Override
@@ -60,6 +70,7 @@ class FullScanNonUniqueIndexSampler<KEY extends NativeIndexKey<KEY>, VALUE exten
         {
             long sampledValues = 0;
             long uniqueValues = 0;
+            long duplicates = 0;
 
             // Get the first one so that prev gets initialized
             if ( seek.next() )
@@ -73,12 +84,19 @@ class FullScanNonUniqueIndexSampler<KEY extends NativeIndexKey<KEY>, VALUE exten
                 {
                     if ( layout.compareValue( prev, seek.key() ) != 0 )
                     {
+                        includeInStatistics( prev, duplicates );
+                        duplicates = 0;
                         uniqueValues++;
                         layout.copyKey( seek.key(), prev );
                     }
-                    // else this is a duplicate of the previous one
+                    else
+                    {
+                        // this is a duplicate of the previous one
+                        duplicates++;
+                    }
                     sampledValues++;
                 }
+                includeInStatistics( prev, duplicates );
             }
             return new IndexSample( sampledValues, uniqueValues, sampledValues );
         }
@@ -88,6 +106,14 @@ class FullScanNonUniqueIndexSampler<KEY extends NativeIndexKey<KEY>, VALUE exten
         }
     }
 
+    private void includeInStatistics( KEY key, long duplicates )
+    {
+        if ( statistics != null )
+        {
+            statistics.include( IncrementalIndexStatistics.hash( key.asValues() ), 1 + duplicates );
+        }
+    }
+
     @Override
     public IndexSample sample( int numDocs, PageCursorTracer cursorTracer )
     {
@@ -26,6 +26,7 @@ import org.neo4j.gis.spatial.index.curves.SpaceFillingCurveConfiguration;
 import org.neo4j.internal.schema.IndexDescriptor;
 import org.neo4j.io.memory.ByteBufferFactory;
 import org.neo4j.kernel.api.index.IndexValueValidator;
+import org.neo4j.kernel.impl.api.index.IndexSamplingConfig;
 import org.neo4j.kernel.impl.index.schema.config.IndexSpecificSpaceFillingCurveSettings;
 import org.neo4j.memory.MemoryTracker;
 import org.neo4j.values.storable.Value;
@@ -34,20 +35,22 @@ class GenericBlockBasedIndexPopulator extends BlockBasedIndexPopulator<GenericKe
 {
     private final IndexSpecificSpaceFillingCurveSettings spatialSettings;
     private final SpaceFillingCurveConfiguration configuration;
+    private final IndexSamplingConfig samplingConfig;
 
     GenericBlockBasedIndexPopulator( DatabaseIndexContext databaseIndexContext, IndexFiles indexFiles, IndexLayout<GenericKey,NativeIndexValue> layout,
-            IndexDescriptor descriptor, IndexSpecificSpaceFillingCurveSettings spatialSettings, SpaceFillingCurveConfiguration configuration,
-            boolean archiveFailedIndex, ByteBufferFactory bufferFactory, MemoryTracker memoryTracker )
+            IndexDescriptor descriptor, IndexSamplingConfig samplingConfig, IndexSpecificSpaceFillingCurveSettings spatialSettings,
+            SpaceFillingCurveConfiguration configuration, boolean archiveFailedIndex, ByteBufferFactory bufferFactory, MemoryTracker memoryTracker )
     {
         super( databaseIndexContext, indexFiles, layout, descriptor, archiveFailedIndex, bufferFactory, memoryTracker );
         this.spatialSettings = spatialSettings;
         this.configuration = configuration;
+        this.samplingConfig = samplingConfig;
     }
 
     @Override
     NativeIndexReader<GenericKey,NativeIndexValue> newReader()
     {
-        return new GenericNativeIndexReader( tree, layout, descriptor, spatialSettings, configuration );
+        return new GenericNativeIndexReader( tree, layout, descriptor, samplingConfig, spatialSettings, configuration, null );
     }
 
     @Override
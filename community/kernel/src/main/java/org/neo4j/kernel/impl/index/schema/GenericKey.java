@@ -397,6 +397,118 @@ public class GenericKey extends NativeIndexKey<GenericKey>
         return setType( Types.BY_ID[typeId] ).readValue( cursor, size - TYPE_ID_SIZE, this );
     }
 
+    /* <key prefix compression> (the text bytes of the first slot can be shared between keys, see GenericLayout#compressKeyPrefix) */
+
+    /**
+     * @return number of leading text bytes in the first slot that this key and {@code other} have in common.
+     */
+    int sharedTextPrefixLength( GenericKey other )
+    {
+        GenericKey slot = stateSlot( 0 );
+        GenericKey otherSlot = other.stateSlot( 0 );
+        if ( !slot.hasSharableText() || !otherSlot.hasSharableText() )
+        {
+            return 0;
+        }
+        int maxLength = (int) Math.min( slot.long0, otherSlot.long0 );
+        int length = 0;
+        while ( length < maxLength && slot.byteArray[length] == otherSlot.byteArray[length] )
+        {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * @return number of leading text bytes in the first slot that this key has in common with the text prefix at {@code prefixOffset}.
+     */
+    int sharedTextPrefixLength( PageCursor cursor, int prefixOffset, int prefixLength )
+    {
+        GenericKey slot = stateSlot( 0 );
+        if ( !slot.hasSharableText() )
+        {
+            return 0;
+        }
+        int maxLength = (int) Math.min( slot.long0, prefixLength );
+        int length = 0;
+        while ( length < maxLength && slot.byteArray[length] == cursor.getByte( prefixOffset + length ) )
+        {
+            length++;
+        }
+        return length;
+    }
+
+    void putTextPrefix( PageCursor cursor, int prefixLength )
+    {
+        cursor.putBytes( stateSlot( 0 ).byteArray, 0, prefixLength );
+    }
+
+    /**
+     * Same as {@link #put(PageCursor)}, but leaves out the first {@code prefixLength} text bytes of the first slot.
+     */
+    void putWithoutTextPrefix( PageCursor cursor, int prefixLength )
+    {
+        cursor.putLong( getEntityId() );
+        GenericKey slot = stateSlot( 0 );
+        cursor.putByte( slot.type.typeId );
+        TextType.putSuffix( cursor, slot.byteArray, slot.long0, slot.long2, prefixLength );
+        for ( int i = 1; i < numberOfStateSlots(); i++ )
+        {
+            stateSlot( i ).putInternal( cursor );
+        }
+    }
+
+    /**
+     * Reads a key written by {@link #putWithoutTextPrefix(PageCursor, int)}, reading the text bytes that were left out from {@code prefixOffset}.
+     *
+     * @param size size of the whole key, including the text bytes that were left out.
+     */
+    boolean getWithoutTextPrefix( PageCursor cursor, int size, int prefixOffset, int prefixLength )
+    {
+        if ( size < ENTITY_ID_SIZE + TYPE_ID_SIZE )
+        {
+            initializeToDummyValue();
+            cursor.setCursorException( format( "Failed to read " + getClass().getSimpleName() +
+                    " due to keySize < ENTITY_ID_SIZE + TYPE_ID_SIZE, more precisely %d", size ) );
+            return false;
+        }
+
+        initialize( cursor.getLong() );
+        if ( !stateSlot( 0 ).getTextWithoutPrefix( cursor, size - ENTITY_ID_SIZE, prefixOffset, prefixLength ) )
+        {
+            initializeToDummyValue();
+            return false;
+        }
+        for ( int i = 1; i < numberOfStateSlots(); i++ )
+        {
+            if ( !stateSlot( i ).getInternal( cursor, size ) )
+            {
+                initializeToDummyValue();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean getTextWithoutPrefix( PageCursor cursor, int size, int prefixOffset, int prefixLength )
+    {
+        byte typeId = cursor.getByte();
+        if ( typeId != Types.TEXT.typeId )
+        {
+            setCursorException( cursor, "non-text typeId for key with shared text prefix, " + typeId );
+            return false;
+        }
+
+        inclusion = NEUTRAL;
+        setType( Types.TEXT );
+        return TextType.readSuffix( cursor, size - TYPE_ID_SIZE, this, prefixOffset, prefixLength );
+    }
+
+    private boolean hasSharableText()
+    {
+        return type == Types.TEXT && byteArray != null;
+    }
+
     /* <write> (write to field state from Value or cursor) */
 
     private <T extends Type> T setType( T type )
@@ -76,6 +76,46 @@ class GenericLayout extends IndexLayout<GenericKey,NativeIndexValue>
         right.minimalSplitter( left, right, into );
     }
 
+    /**
+     * Keys in the same leaf often have text values starting the same way, which the leaf then only needs to store once.
+     * The sharable part of a key is the text in its first slot, keys with another type of value in their first slot share nothing.
+     */
+    @Override
+    public boolean compressKeyPrefix()
+    {
+        return true;
+    }
+
+    @Override
+    public int keyPrefixLength( GenericKey left, GenericKey right )
+    {
+        return left.sharedTextPrefixLength( right );
+    }
+
+    @Override
+    public int keyPrefixLength( GenericKey key, PageCursor cursor, int prefixOffset, int prefixLength )
+    {
+        return key.sharedTextPrefixLength( cursor, prefixOffset, prefixLength );
+    }
+
+    @Override
+    public void writeKeyPrefix( PageCursor cursor, GenericKey key, int prefixLength )
+    {
+        key.putTextPrefix( cursor, prefixLength );
+    }
+
+    @Override
+    public void writeKeySuffix( PageCursor cursor, GenericKey key, int prefixLength )
+    {
+        key.putWithoutTextPrefix( cursor, prefixLength );
+    }
+
+    @Override
+    public void readKeySuffix( PageCursor cursor, GenericKey into, int suffixSize, int prefixOffset, int prefixLength )
+    {
+        into.getWithoutTextPrefix( cursor, suffixSize + prefixLength, prefixOffset, prefixLength );
+    }
+
     IndexSpecificSpaceFillingCurveSettings getSpaceFillingCurveSettings()
     {
         return spatialSettings;
@@ -36,25 +36,29 @@ import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.kernel.api.index.IndexEntriesReader;
 import org.neo4j.kernel.api.index.IndexReader;
 import org.neo4j.kernel.api.index.IndexValueValidator;
+import org.neo4j.kernel.impl.api.index.IndexSamplingConfig;
 import org.neo4j.kernel.impl.index.schema.config.IndexSpecificSpaceFillingCurveSettings;
 import org.neo4j.values.storable.Value;
 
+import static org.neo4j.index.internal.gbptree.GBPTree.NO_HEADER_READER;
 import static org.neo4j.index.internal.gbptree.GBPTree.NO_HEADER_WRITER;
 
 class GenericNativeIndexAccessor extends NativeIndexAccessor<GenericKey,NativeIndexValue>
 {
     private final IndexSpecificSpaceFillingCurveSettings spaceFillingCurveSettings;
     private final SpaceFillingCurveConfiguration configuration;
+    private final IndexSamplingConfig samplingConfig;
     private IndexValueValidator validator;
 
     GenericNativeIndexAccessor( DatabaseIndexContext databaseIndexContext, IndexFiles indexFiles,
             IndexLayout<GenericKey,NativeIndexValue> layout, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, IndexDescriptor descriptor,
-            IndexSpecificSpaceFillingCurveSettings spaceFillingCurveSettings, SpaceFillingCurveConfiguration configuration )
+            IndexSamplingConfig samplingConfig, IndexSpecificSpaceFillingCurveSettings spaceFillingCurveSettings, SpaceFillingCurveConfiguration configuration )
     {
-        super( databaseIndexContext, indexFiles, layout, descriptor, NO_HEADER_WRITER );
+        super( databaseIndexContext, indexFiles, layout, descriptor, NO_HEADER_READER, NO_HEADER_WRITER );
         this.spaceFillingCurveSettings = spaceFillingCurveSettings;
         this.configuration = configuration;
-        instantiateTree( recoveryCleanupWorkCollector, headerWriter );
+        this.samplingConfig = samplingConfig;
+        instantiateTree( recoveryCleanupWorkCollector );
     }
 
     @Override
@@ -67,7 +71,7 @@ class GenericNativeIndexAccessor extends NativeIndexAccessor<GenericKey,NativeIn
     public IndexReader newReader()
     {
         assertOpen();
-        return new GenericNativeIndexReader( tree, layout, descriptor, spaceFillingCurveSettings, configuration );
+        return new GenericNativeIndexReader( tree, layout, descriptor, samplingConfig, spaceFillingCurveSettings, configuration, statistics() );
     }
 
     @Override
@@ -80,7 +84,7 @@ class GenericNativeIndexAccessor extends NativeIndexAccessor<GenericKey,NativeIn
     public void force( IOLimiter ioLimiter, PageCursorTracer cursorTracer )
     {
         // This accessor needs to use the header writer here because coordinate reference systems may have changed since last checkpoint.
-        tree.checkpoint( ioLimiter, headerWriter, cursorTracer );
+        tree.checkpoint( ioLimiter, headerWriter(), cursorTracer );
     }
 
     @Override
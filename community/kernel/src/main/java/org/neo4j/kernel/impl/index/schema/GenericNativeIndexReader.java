@@ -33,6 +33,9 @@ import org.neo4j.internal.kernel.api.QueryContext;
 import org.neo4j.internal.schema.IndexDescriptor;
 import org.neo4j.kernel.api.index.BridgingIndexProgressor;
 import org.neo4j.kernel.api.index.IndexProgressor;
+import org.neo4j.kernel.api.index.PartitionedValueSeek;
+import org.neo4j.kernel.api.index.SinglePartitionValueSeek;
+import org.neo4j.kernel.impl.api.index.IndexSamplingConfig;
 import org.neo4j.kernel.impl.index.schema.config.IndexSpecificSpaceFillingCurveSettings;
 import org.neo4j.values.storable.CoordinateReferenceSystem;
 import org.neo4j.values.storable.Value;
@@ -49,10 +52,10 @@ class GenericNativeIndexReader extends NativeIndexReader<GenericKey,NativeIndexV
     private final SpaceFillingCurveConfiguration configuration;
 
     GenericNativeIndexReader( GBPTree<GenericKey,NativeIndexValue> tree, IndexLayout<GenericKey,NativeIndexValue> layout,
-            IndexDescriptor descriptor, IndexSpecificSpaceFillingCurveSettings spaceFillingCurveSettings,
-            SpaceFillingCurveConfiguration configuration )
+            IndexDescriptor descriptor, IndexSamplingConfig samplingConfig, IndexSpecificSpaceFillingCurveSettings spaceFillingCurveSettings,
+            SpaceFillingCurveConfiguration configuration, IncrementalIndexStatistics statistics )
     {
-        super( tree, layout, descriptor );
+        super( tree, layout, descriptor, samplingConfig, statistics );
         this.spaceFillingCurveSettings = spaceFillingCurveSettings;
         this.configuration = configuration;
     }
@@ -120,6 +123,18 @@ class GenericNativeIndexReader extends NativeIndexReader<GenericKey,NativeIndexV
         }
     }
 
+    @Override
+    public PartitionedValueSeek valueSeek( QueryContext context, int desiredNumberOfPartitions, IndexQueryConstraints constraints,
+            IndexQuery... query )
+    {
+        if ( getGeometryRangePredicateIfAny( query ) != null )
+        {
+            // A geometry range query is already made up of multiple sub-queries, one per space filling curve range. Serve it as a single partition.
+            return new SinglePartitionValueSeek( this, context, constraints, query );
+        }
+        return super.valueSeek( context, desiredNumberOfPartitions, constraints, query );
+    }
+
     /**
      * Initializes {@code treeKeyFrom} and {@code treeKeyTo} from the {@link IndexQuery query}.
      * Geometry range queries makes an otherwise straight-forward key construction complex in that a geometry range internally is performed
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.nio.ByteBuffer;
+
+import org.neo4j.io.pagecache.PageCursor;
+
+import static org.neo4j.util.Preconditions.checkArgument;
+import static org.neo4j.util.Preconditions.requireBetween;
+
+/**
+ * A HyperLogLog sketch, estimating the number of distinct 64-bit hashes added to it using a fixed amount of memory.
+ * The first {@code precision} bits of a hash select one of {@code 2^precision} registers, which keeps the highest rank,
+ * i.e. position of the first set bit, among the remaining bits of the hashes selecting it.
+ * <p>
+ * The relative standard error of the estimate is about {@code 1.04 / sqrt(2^precision)}. Hashes must be uniformly distributed
+ * over all 64 bits, so for example {@link org.neo4j.hashing.HashFunction#incrementalXXH64() xxHash64} is a good choice.
+ */
+class HyperLogLog
+{
+    static final int MIN_PRECISION = 4;
+    static final int MAX_PRECISION = 18;
+
+    private final int precision;
+    private final byte[] registers;
+
+    HyperLogLog( int precision )
+    {
+        requireBetween( precision, MIN_PRECISION, MAX_PRECISION + 1 );
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    void add( long hash )
+    {
+        int register = (int) (hash >>> (Long.SIZE - precision));
+        // The sentinel bit caps the rank for hashes where all the remaining bits are zero
+        long remainingBits = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros( remainingBits ) + 1);
+        if ( rank > registers[register] )
+        {
+            registers[register] = rank;
+        }
+    }
+
+    /**
+     * Merges the other sketch into this one, after which this sketch estimates the number of distinct hashes added to either of them.
+     */
+    void merge( HyperLogLog other )
+    {
+        checkArgument( precision == other.precision, "Can not merge sketches of different precisions %d and %d", precision, other.precision );
+        for ( int i = 0; i < registers.length; i++ )
+        {
+            if ( other.registers[i] > registers[i] )
+            {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    long estimate()
+    {
+        int m = registers.length;
+        double sum = 0;
+        int zeroRegisters = 0;
+        for ( byte rank : registers )
+        {
+            sum += 1D / (1L << rank);
+            if ( rank == 0 )
+            {
+                zeroRegisters++;
+            }
+        }
+        double estimate = alpha( m ) * m * m / sum;
+        if ( estimate <= 2.5 * m && zeroRegisters > 0 )
+        {
+            // Linear counting is more accurate for small cardinalities. 64-bit hashes makes a correction for large cardinalities unnecessary.
+            estimate = m * Math.log( (double) m / zeroRegisters );
+        }
+        return Math.round( estimate );
+    }
+
+    void writeTo( PageCursor cursor )
+    {
+        cursor.putByte( (byte) precision );
+        cursor.putBytes( registers );
+    }
+
+    static HyperLogLog readFrom( ByteBuffer buffer )
+    {
+        HyperLogLog sketch = new HyperLogLog( buffer.get() );
+        buffer.get( sketch.registers );
+        return sketch;
+    }
+
+    private static double alpha( int m )
+    {
+        switch ( m )
+        {
+        case 16:
+            return 0.673;
+        case 32:
+            return 0.697;
+        case 64:
+            return 0.709;
+        default:
+            return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+}
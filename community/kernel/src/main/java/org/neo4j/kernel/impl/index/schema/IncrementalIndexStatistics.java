@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.nio.ByteBuffer;
+
+import org.neo4j.hashing.HashFunction;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.kernel.api.index.IndexSample;
+import org.neo4j.values.storable.Value;
+
+/**
+ * Statistics of a non-unique native index which are kept up to date as updates are applied to it, so that they don't drift
+ * between samples of the index. They are built from all entries when the index is populated and then persisted in the index header.
+ * <p>
+ * The number of entries is counted exactly. The number of distinct values is estimated from two sketches over hashes of the values:
+ * <ul>
+ *     <li>A {@link CountMinSketch} of the number of entries per value. It never underestimates a count, so a value whose count was zero
+ *     before being added certainly appeared in the index and a value whose count drops to zero when removed certainly vanished from it.
+ *     While the sketch is sparse this is accurate, but as more and more distinct values share counters these events go unnoticed.</li>
+ *     <li>A {@link HyperLogLog} of all values ever added to the index, which keeps estimating how many new values have been added
+ *     regardless of how many distinct values there are, but can't tell when values are removed.</li>
+ * </ul>
+ * The estimate is the number of distinct values when the statistics were built, plus the larger of the number of appeared values and
+ * the number of new values, minus the number of vanished values. Since the sketches are of fixed size their errors grow with the index,
+ * so every completed sample of the index becomes the new {@link #rebaseline(IndexSample) baseline} of the estimate.
+ */
+class IncrementalIndexStatistics
+{
+    private static final byte FORMAT = 1;
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH = 256;
+    private static final int DISTINCT_VALUES_PRECISION = 11;
+    private static final long UNKNOWN = -1;
+
+    private final CountMinSketch valueCounts;
+    private final HyperLogLog distinctValues;
+    private long entries;
+    private long baselineDistinctValues;
+    private long baselineDistinctValuesEstimate;
+    private long appearedValues;
+    private long vanishedValues;
+
+    IncrementalIndexStatistics()
+    {
+        this( new CountMinSketch( SKETCH_DEPTH, SKETCH_WIDTH ), new HyperLogLog( DISTINCT_VALUES_PRECISION ), 0, 0, UNKNOWN, 0, 0 );
+    }
+
+    private IncrementalIndexStatistics( CountMinSketch valueCounts, HyperLogLog distinctValues, long entries, long baselineDistinctValues,
+            long baselineDistinctValuesEstimate, long appearedValues, long vanishedValues )
+    {
+        this.valueCounts = valueCounts;
+        this.distinctValues = distinctValues;
+        this.entries = entries;
+        this.baselineDistinctValues = baselineDistinctValues;
+        this.baselineDistinctValuesEstimate = baselineDistinctValuesEstimate;
+        this.appearedValues = appearedValues;
+        this.vanishedValues = vanishedValues;
+    }
+
+    /**
+     * Includes entries which are already in the index when building these statistics, where each call is for a different value.
+     *
+     * @param valueHash {@link #hash(Value[]) hash} of the value of the entries.
+     * @param count number of entries with the value.
+     */
+    synchronized void include( long valueHash, long count )
+    {
+        valueCounts.add( valueHash, count );
+        distinctValues.add( valueHash );
+        entries += count;
+        baselineDistinctValues++;
+        baselineDistinctValuesEstimate = UNKNOWN;
+    }
+
+    synchronized void added( long valueHash )
+    {
+        establishBaseline();
+        if ( valueCounts.add( valueHash, 1 ) == 1 )
+        {
+            appearedValues++;
+        }
+        distinctValues.add( valueHash );
+        entries++;
+    }
+
+    synchronized void removed( long valueHash )
+    {
+        establishBaseline();
+        if ( valueCounts.add( valueHash, -1 ) == 0 )
+        {
+            vanishedValues++;
+        }
+        entries = Math.max( entries - 1, 0 );
+    }
+
+    /**
+     * Makes the number of distinct values in a completed sample of the index the new baseline of the estimate, so that only values
+     * appearing, vanishing or being added after the sample are estimated from the sketches. The exact number of entries is kept.
+     *
+     * @param sample a completed sample of the index.
+     */
+    synchronized void rebaseline( IndexSample sample )
+    {
+        baselineDistinctValues = sample.sampleSize() == 0 ? 0 : Math.round( (double) sample.uniqueValues() * entries / sample.sampleSize() );
+        baselineDistinctValuesEstimate = distinctValues.estimate();
+        appearedValues = 0;
+        vanishedValues = 0;
+    }
+
+    synchronized IndexSample toIndexSample()
+    {
+        establishBaseline();
+        long newValues = distinctValues.estimate() - baselineDistinctValuesEstimate;
+        long estimate = baselineDistinctValues + Math.max( appearedValues, newValues ) - vanishedValues;
+        long uniqueValues = Math.min( Math.max( estimate, Math.min( entries, 1 ) ), entries );
+        return new IndexSample( entries, uniqueValues, entries );
+    }
+
+    synchronized void writeTo( PageCursor cursor )
+    {
+        establishBaseline();
+        cursor.putByte( FORMAT );
+        cursor.putLong( entries );
+        cursor.putLong( baselineDistinctValues );
+        cursor.putLong( baselineDistinctValuesEstimate );
+        cursor.putLong( appearedValues );
+        cursor.putLong( vanishedValues );
+        valueCounts.writeTo( cursor );
+        distinctValues.writeTo( cursor );
+    }
+
+    /**
+     * @return the statistics read from the buffer, or {@code null} if they were written in a format which isn't known.
+     */
+    static IncrementalIndexStatistics readFrom( ByteBuffer buffer )
+    {
+        if ( buffer.get() != FORMAT )
+        {
+            return null;
+        }
+        long entries = buffer.getLong();
+        long baselineDistinctValues = buffer.getLong();
+        long baselineDistinctValuesEstimate = buffer.getLong();
+        long appearedValues = buffer.getLong();
+        long vanishedValues = buffer.getLong();
+        CountMinSketch valueCounts = CountMinSketch.readFrom( buffer );
+        HyperLogLog distinctValues = HyperLogLog.readFrom( buffer );
+        return new IncrementalIndexStatistics( valueCounts, distinctValues, entries, baselineDistinctValues, baselineDistinctValuesEstimate,
+                appearedValues, vanishedValues );
+    }
+
+    static long hash( Value[] values )
+    {
+        HashFunction hashFunction = HashFunction.incrementalXXH64();
+        long hash = hashFunction.initialise( 0 );
+        for ( Value value : values )
+        {
+            hash = value.updateHash( hashFunction, hash );
+        }
+        return hashFunction.finalise( hash );
+    }
+
+    private void establishBaseline()
+    {
+        // New values are counted from the distinct values estimate when the statistics were built
+        if ( baselineDistinctValuesEstimate == UNKNOWN )
+        {
+            baselineDistinctValuesEstimate = distinctValues.estimate();
+        }
+    }
+}
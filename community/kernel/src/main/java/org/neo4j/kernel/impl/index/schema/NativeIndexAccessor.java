@@ -22,10 +22,13 @@ package org.neo4j.kernel.impl.index.schema;
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.Optional;
 import java.util.function.Consumer;
 
 import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Header;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
 import org.neo4j.index.internal.gbptree.TreeInconsistencyException;
 import org.neo4j.internal.helpers.collection.BoundedIterable;
 import org.neo4j.internal.schema.IndexDescriptor;
@@ -34,6 +37,7 @@ import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.kernel.api.index.IndexAccessor;
 import org.neo4j.kernel.api.index.IndexReader;
+import org.neo4j.kernel.api.index.IndexSample;
 import org.neo4j.kernel.impl.api.index.IndexUpdateMode;
 import org.neo4j.storageengine.api.NodePropertyAccessor;
 
@@ -45,14 +49,35 @@ public abstract class NativeIndexAccessor<KEY extends NativeIndexKey<KEY>, VALUE
         implements IndexAccessor
 {
     private final NativeIndexUpdater<KEY,VALUE> singleUpdater;
-    final NativeIndexHeaderWriter headerWriter;
+    private final Header.Reader additionalHeaderReader;
+    private final Consumer<PageCursor> additionalHeaderWriter;
+    // Only non-unique indexes populated with statistics in their header keep them up to date, others are sampled
+    private IncrementalIndexStatistics statistics;
 
     NativeIndexAccessor( DatabaseIndexContext databaseIndexContext, IndexFiles indexFiles, IndexLayout<KEY,VALUE> layout,
-            IndexDescriptor descriptor, Consumer<PageCursor> additionalHeaderWriter )
+            IndexDescriptor descriptor, Header.Reader additionalHeaderReader, Consumer<PageCursor> additionalHeaderWriter )
     {
         super( databaseIndexContext, layout, indexFiles, descriptor, GBPTree.NO_MONITOR );
         singleUpdater = new NativeIndexUpdater<>( layout.newKey(), layout.newValue() );
-        headerWriter = new NativeIndexHeaderWriter( BYTE_ONLINE, additionalHeaderWriter );
+        this.additionalHeaderReader = additionalHeaderReader;
+        this.additionalHeaderWriter = additionalHeaderWriter;
+    }
+
+    void instantiateTree( RecoveryCleanupWorkCollector recoveryCleanupWorkCollector )
+    {
+        NativeIndexHeaderReader headerReader = new NativeIndexHeaderReader( additionalHeaderReader );
+        instantiateTree( recoveryCleanupWorkCollector, headerReader, headerWriter() );
+        statistics = headerReader.statistics;
+    }
+
+    NativeIndexHeaderWriter headerWriter()
+    {
+        return new NativeIndexHeaderWriter( BYTE_ONLINE, additionalHeaderWriter, statistics );
+    }
+
+    IncrementalIndexStatistics statistics()
+    {
+        return statistics;
     }
 
     @Override
@@ -69,7 +94,8 @@ public abstract class NativeIndexAccessor<KEY extends NativeIndexKey<KEY>, VALUE
         assertOpen();
         try
         {
-            return singleUpdater.initialize( tree.writer( cursorTracer ) );
+            // Updates from committed transactions are mostly applied in key order, see IndexUpdateApplier
+            return singleUpdater.initialize( tree.sortedWriter( cursorTracer ), statistics );
         }
         catch ( IOException e )
         {
@@ -80,7 +106,15 @@ public abstract class NativeIndexAccessor<KEY extends NativeIndexKey<KEY>, VALUE
     @Override
     public void force( IOLimiter ioLimiter, PageCursorTracer cursorTracer )
     {
-        tree.checkpoint( ioLimiter, cursorTracer );
+        if ( statistics != null )
+        {
+            // The statistics have most likely changed since last checkpoint
+            tree.checkpoint( ioLimiter, headerWriter(), cursorTracer );
+        }
+        else
+        {
+            tree.checkpoint( ioLimiter, cursorTracer );
+        }
     }
 
     @Override
@@ -115,6 +149,12 @@ public abstract class NativeIndexAccessor<KEY extends NativeIndexKey<KEY>, VALUE
     {   // Not needed since uniqueness is verified automatically w/o cost for every update.
     }
 
+    @Override
+    public Optional<IndexSample> incrementalStatistics()
+    {
+        return statistics != null ? Optional.of( statistics.toIndexSample() ) : Optional.empty();
+    }
+
     @Override
     public long estimateNumberOfEntries( PageCursorTracer cursorTracer )
     {
@@ -35,6 +35,7 @@ class NativeIndexHeaderReader implements Header.Reader
     private final Header.Reader additionalReader;
     byte state;
     String failureMessage;
+    IncrementalIndexStatistics statistics;
 
     NativeIndexHeaderReader( Header.Reader additionalReader )
     {
@@ -54,6 +55,10 @@ class NativeIndexHeaderReader implements Header.Reader
             else
             {
                 additionalReader.read( headerData );
+                if ( headerData.hasRemaining() )
+                {
+                    statistics = IncrementalIndexStatistics.readFrom( headerData );
+                }
             }
         }
         catch ( BufferUnderflowException e )
@@ -25,17 +25,24 @@ import org.neo4j.index.internal.gbptree.GBPTree;
 import org.neo4j.io.pagecache.PageCursor;
 
 /**
- * Writes index state in the {@link GBPTree} header.
+ * Writes index state in the {@link GBPTree} header, optionally followed by the {@link IncrementalIndexStatistics} of the index.
  */
 public class NativeIndexHeaderWriter implements Consumer<PageCursor>
 {
     private final byte state;
     private final Consumer<PageCursor> additionalHeaderWriter;
+    private final IncrementalIndexStatistics statistics;
 
     public NativeIndexHeaderWriter( byte state, Consumer<PageCursor> additionalHeaderWriter )
+    {
+        this( state, additionalHeaderWriter, null );
+    }
+
+    NativeIndexHeaderWriter( byte state, Consumer<PageCursor> additionalHeaderWriter, IncrementalIndexStatistics statistics )
     {
         this.state = state;
         this.additionalHeaderWriter = additionalHeaderWriter;
+        this.statistics = statistics;
     }
 
     @Override
@@ -43,5 +50,9 @@ public class NativeIndexHeaderWriter implements Consumer<PageCursor>
     {
         cursor.putByte( state );
         additionalHeaderWriter.accept( cursor );
+        if ( statistics != null )
+        {
+            statistics.writeTo( cursor );
+        }
     }
 }
@@ -64,6 +64,8 @@ public abstract class NativeIndexPopulator<KEY extends NativeIndexKey<KEY>, VALU
 
     private ConflictDetectingValueMerger<KEY,VALUE,Value[]> mainConflictDetector;
     private ConflictDetectingValueMerger<KEY,VALUE,Value[]> updatesConflictDetector;
+    // Built along with the sample of a non-unique index, after which they're kept up to date and written in the header when marked as online
+    private volatile IncrementalIndexStatistics statistics;
 
     private byte[] failureBytes;
     private boolean dropped;
@@ -209,12 +211,15 @@ public abstract class NativeIndexPopulator<KEY extends NativeIndexKey<KEY>, VALU
     void flushTreeAndMarkAs( byte state, PageCursorTracer cursorTracer )
     {
         tree.checkpoint( IOLimiter.UNLIMITED,
-                new NativeIndexHeaderWriter( state, additionalHeaderWriter ), cursorTracer );
+                new NativeIndexHeaderWriter( state, additionalHeaderWriter, statistics ), cursorTracer );
     }
 
     IndexSample buildNonUniqueIndexSample( PageCursorTracer cursorTracer )
     {
-        return new FullScanNonUniqueIndexSampler<>( tree, layout ).sample( cursorTracer );
+        IncrementalIndexStatistics scannedStatistics = new IncrementalIndexStatistics();
+        IndexSample sample = new FullScanNonUniqueIndexSampler<>( tree, layout, scannedStatistics ).sample( cursorTracer );
+        statistics = scannedStatistics;
+        return sample;
     }
 
     private void markTreeAsFailed( PageCursorTracer cursorTracer )
@@ -230,7 +235,7 @@ public abstract class NativeIndexPopulator<KEY extends NativeIndexKey<KEY>, VALU
         {
             for ( IndexEntryUpdate<?> indexEntryUpdate : indexEntryUpdates )
             {
-                NativeIndexUpdater.processUpdate( treeKey, treeValue, indexEntryUpdate, writer, conflictDetector );
+                NativeIndexUpdater.processUpdate( treeKey, treeValue, indexEntryUpdate, writer, conflictDetector, statistics );
             }
         }
         catch ( IOException e )
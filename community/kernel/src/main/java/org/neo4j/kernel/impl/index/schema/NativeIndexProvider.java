@@ -95,20 +95,21 @@ abstract class NativeIndexProvider<KEY extends NativeIndexKey<KEY>,VALUE extends
 
         IndexFiles indexFiles = indexFiles( descriptor );
         return newIndexPopulator( indexFiles, layout( descriptor, null /*meaning don't read from this file since we're recreating it anyway*/ ), descriptor,
-                bufferFactory, memoryTracker );
+                samplingConfig, bufferFactory, memoryTracker );
     }
 
-    protected abstract IndexPopulator newIndexPopulator( IndexFiles indexFiles, LAYOUT layout, IndexDescriptor descriptor,
+    protected abstract IndexPopulator newIndexPopulator( IndexFiles indexFiles, LAYOUT layout, IndexDescriptor descriptor, IndexSamplingConfig samplingConfig,
             ByteBufferFactory bufferFactory, MemoryTracker memoryTracker );
 
     @Override
     public IndexAccessor getOnlineAccessor( IndexDescriptor descriptor, IndexSamplingConfig samplingConfig ) throws IOException
     {
         IndexFiles indexFiles = indexFiles( descriptor );
-        return newIndexAccessor( indexFiles, layout( descriptor, indexFiles.getStoreFile() ), descriptor );
+        return newIndexAccessor( indexFiles, layout( descriptor, indexFiles.getStoreFile() ), descriptor, samplingConfig );
     }
 
-    protected abstract IndexAccessor newIndexAccessor( IndexFiles indexFiles, LAYOUT layout, IndexDescriptor descriptor ) throws IOException;
+    protected abstract IndexAccessor newIndexAccessor( IndexFiles indexFiles, LAYOUT layout, IndexDescriptor descriptor, IndexSamplingConfig samplingConfig )
+            throws IOException;
 
     @Override
     public String getPopulationFailure( IndexDescriptor descriptor, PageCursorTracer cursorTracer )
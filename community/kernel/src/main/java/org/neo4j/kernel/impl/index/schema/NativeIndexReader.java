@@ -21,6 +21,10 @@ package org.neo4j.kernel.impl.index.schema;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.neo4j.index.internal.gbptree.GBPTree;
 import org.neo4j.index.internal.gbptree.Seeker;
@@ -34,28 +38,46 @@ import org.neo4j.io.pagecache.impl.FileIsNotMappedException;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.kernel.api.index.IndexProgressor;
 import org.neo4j.kernel.api.index.IndexReader;
+import org.neo4j.kernel.api.index.IndexSample;
 import org.neo4j.kernel.api.index.IndexSampler;
+import org.neo4j.kernel.api.index.PartitionedValueSeek;
+import org.neo4j.kernel.impl.api.index.IndexSamplingConfig;
 import org.neo4j.values.storable.Value;
 
 import static org.apache.commons.lang3.exception.ExceptionUtils.getRootCause;
+import static org.neo4j.io.IOUtils.closeAllUnchecked;
 import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.Inclusion.NEUTRAL;
+import static org.neo4j.util.Preconditions.checkArgument;
+import static org.neo4j.util.Preconditions.requirePositive;
 
 abstract class NativeIndexReader<KEY extends NativeIndexKey<KEY>, VALUE extends NativeIndexValue> implements IndexReader
 {
     protected final IndexDescriptor descriptor;
     final IndexLayout<KEY,VALUE> layout;
     final GBPTree<KEY,VALUE> tree;
+    private final IndexSamplingConfig samplingConfig;
+    private final IncrementalIndexStatistics statistics;
+    private final List<NativePartitionedValueSeek> partitionedSeeks = new ArrayList<>();
 
-    NativeIndexReader( GBPTree<KEY,VALUE> tree, IndexLayout<KEY,VALUE> layout, IndexDescriptor descriptor )
+    /**
+     * @param statistics {@link IncrementalIndexStatistics} of the index, which are rebaselined by each completed sample of it, or {@code null}.
+     */
+    NativeIndexReader( GBPTree<KEY,VALUE> tree, IndexLayout<KEY,VALUE> layout, IndexDescriptor descriptor, IndexSamplingConfig samplingConfig,
+            IncrementalIndexStatistics statistics )
     {
         this.tree = tree;
         this.layout = layout;
         this.descriptor = descriptor;
+        this.samplingConfig = samplingConfig;
+        this.statistics = statistics;
     }
 
     @Override
     public void close()
     {
+        // Partitions that were never reserved still hold on to their seekers
+        partitionedSeeks.forEach( NativePartitionedValueSeek::closeUnreservedPartitions );
+        partitionedSeeks.clear();
     }
 
     @Override
@@ -65,15 +87,20 @@ abstract class NativeIndexReader<KEY extends NativeIndexKey<KEY>, VALUE extends
         // the number of indexed values and create a sample for that count. The GBPTree doesn't have an O(1)
         // count mechanism, it will have to manually count the indexed values in it to get it.
         // For that reason this implementation opts for keeping complexity down by just using the existing
-        // non-unique sampler which scans the index and counts (potentially duplicates, of which there will
+        // non-unique sampler which samples the index and counts (potentially duplicates, of which there will
         // be none in a unique index).
 
-        FullScanNonUniqueIndexSampler<KEY,VALUE> sampler = new FullScanNonUniqueIndexSampler<>( tree, layout );
+        SampledNonUniqueIndexSampler<KEY,VALUE> sampler = new SampledNonUniqueIndexSampler<>( tree, layout, samplingConfig.sampleSizeLimit() );
         return tracer ->
         {
             try
             {
-                return sampler.sample( tracer );
+                IndexSample sample = sampler.sample( tracer );
+                if ( statistics != null )
+                {
+                    statistics.rebaseline( sample );
+                }
+                return sample;
             }
             catch ( UncheckedIOException e )
             {
@@ -132,6 +159,35 @@ abstract class NativeIndexReader<KEY extends NativeIndexKey<KEY>, VALUE extends
         startSeekForInitializedRange( cursor, treeKeyFrom, treeKeyTo, predicates, constraints, needFilter, context.cursorTracer() );
     }
 
+    @Override
+    public PartitionedValueSeek valueSeek( QueryContext context, int desiredNumberOfPartitions, IndexQueryConstraints constraints,
+            IndexQuery... predicates )
+    {
+        requirePositive( desiredNumberOfPartitions );
+        checkArgument( !constraints.isOrdered(), "Partitioned seeks are unordered, but %s was requested", constraints.order() );
+        validateQuery( constraints, predicates );
+
+        KEY treeKeyFrom = layout.newKey();
+        KEY treeKeyTo = layout.newKey();
+        initializeFromToKeys( treeKeyFrom, treeKeyTo );
+
+        boolean needFilter = initializeRangeForQuery( treeKeyFrom, treeKeyTo, predicates );
+        try
+        {
+            List<Seeker<KEY,VALUE>> seekers = isEmptyRange( treeKeyFrom, treeKeyTo )
+                                              ? Collections.emptyList()
+                                              : new ArrayList<>( tree.partitionedSeek( treeKeyFrom, treeKeyTo, desiredNumberOfPartitions,
+                                                      context.cursorTracer() ) );
+            NativePartitionedValueSeek partitionedSeek = new NativePartitionedValueSeek( seekers, predicates, constraints, needFilter );
+            partitionedSeeks.add( partitionedSeek );
+            return partitionedSeek;
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
     void initializeFromToKeys( KEY treeKeyFrom, KEY treeKeyTo )
     {
         treeKeyFrom.initialize( Long.MIN_VALUE );
@@ -189,4 +245,56 @@ abstract class NativeIndexReader<KEY extends NativeIndexKey<KEY>, VALUE extends
     {
         return layout.compare( treeKeyFrom, treeKeyTo ) > 0;
     }
+
+    /**
+     * Hands out the {@link Seeker seekers} of a {@link GBPTree#partitionedSeek(Object, Object, int, PageCursorTracer) partitioned seek}
+     * one at a time. The seekers are all created up front, on the thread creating the seek. A reserved seeker is closed by the progressor
+     * it's given to, whereas seekers that were never reserved are closed when this reader is closed.
+     */
+    private class NativePartitionedValueSeek implements PartitionedValueSeek
+    {
+        private final List<Seeker<KEY,VALUE>> seekers;
+        private final IndexQuery[] query;
+        private final IndexQueryConstraints constraints;
+        private final boolean needFilter;
+        private final AtomicInteger nextPartition = new AtomicInteger();
+
+        NativePartitionedValueSeek( List<Seeker<KEY,VALUE>> seekers, IndexQuery[] query, IndexQueryConstraints constraints, boolean needFilter )
+        {
+            this.seekers = seekers;
+            this.query = query;
+            this.constraints = constraints;
+            this.needFilter = needFilter;
+        }
+
+        @Override
+        public int getNumberOfPartitions()
+        {
+            // An empty range is still served as one, empty, partition
+            return Math.max( 1, seekers.size() );
+        }
+
+        @Override
+        public boolean reservePartition( IndexProgressor.EntityValueClient client )
+        {
+            int partition = nextPartition.getAndIncrement();
+            if ( partition >= getNumberOfPartitions() )
+            {
+                return false;
+            }
+            IndexProgressor progressor = seekers.isEmpty() ? IndexProgressor.EMPTY : getIndexProgressor( seekers.get( partition ), client, needFilter, query );
+            client.initialize( descriptor, progressor, query, constraints, false );
+            return true;
+        }
+
+        void closeUnreservedPartitions()
+        {
+            List<Seeker<KEY,VALUE>> unreserved = new ArrayList<>();
+            for ( int partition = nextPartition.getAndIncrement(); partition < seekers.size(); partition = nextPartition.getAndIncrement() )
+            {
+                unreserved.add( seekers.get( partition ) );
+            }
+            closeAllUnchecked( unreserved );
+        }
+    }
 }
@@ -35,6 +35,7 @@ class NativeIndexUpdater<KEY extends NativeIndexKey<KEY>, VALUE extends NativeIn
     private final VALUE treeValue;
     private final ConflictDetectingValueMerger<KEY,VALUE,Value[]> conflictDetectingValueMerger = new ThrowingConflictDetector<>( true );
     private Writer<KEY,VALUE> writer;
+    private IncrementalIndexStatistics statistics;
 
     private boolean closed = true;
 
@@ -44,7 +45,10 @@ class NativeIndexUpdater<KEY extends NativeIndexKey<KEY>, VALUE extends NativeIn
         this.treeValue = treeValue;
     }
 
-    NativeIndexUpdater<KEY,VALUE> initialize( Writer<KEY,VALUE> writer )
+    /**
+     * @param statistics statistics to keep up to date with the applied updates, or {@code null} if there are none.
+     */
+    NativeIndexUpdater<KEY,VALUE> initialize( Writer<KEY,VALUE> writer, IncrementalIndexStatistics statistics )
     {
         if ( !closed )
         {
@@ -52,6 +56,7 @@ class NativeIndexUpdater<KEY extends NativeIndexKey<KEY>, VALUE extends NativeIn
         }
 
         this.writer = writer;
+        this.statistics = statistics;
         closed = false;
         return this;
     }
@@ -60,7 +65,7 @@ class NativeIndexUpdater<KEY extends NativeIndexKey<KEY>, VALUE extends NativeIn
     public void process( IndexEntryUpdate<?> update ) throws IndexEntryConflictException
     {
         assertOpen();
-        processUpdate( treeKey, treeValue, update, writer, conflictDetectingValueMerger );
+        processUpdate( treeKey, treeValue, update, writer, conflictDetectingValueMerger, statistics );
     }
 
     @Override
@@ -78,20 +83,25 @@ class NativeIndexUpdater<KEY extends NativeIndexKey<KEY>, VALUE extends NativeIn
         }
     }
 
+    /**
+     * @param statistics statistics to keep up to date with the update, or {@code null} if there are none.
+     * Since they are persisted by checkpoints, which wait for writers to close, they must be updated while the writer is open.
+     */
     static <KEY extends NativeIndexKey<KEY>, VALUE extends NativeIndexValue> void processUpdate( KEY treeKey, VALUE treeValue,
-            IndexEntryUpdate<?> update, Writer<KEY,VALUE> writer, ConflictDetectingValueMerger<KEY,VALUE,Value[]> conflictDetectingValueMerger )
+            IndexEntryUpdate<?> update, Writer<KEY,VALUE> writer, ConflictDetectingValueMerger<KEY,VALUE,Value[]> conflictDetectingValueMerger,
+            IncrementalIndexStatistics statistics )
             throws IndexEntryConflictException
     {
         switch ( update.updateMode() )
         {
         case ADDED:
-            processAdd( treeKey, treeValue, update, writer, conflictDetectingValueMerger );
+            processAdd( treeKey, treeValue, update, writer, conflictDetectingValueMerger, statistics );
             break;
         case CHANGED:
-            processChange( treeKey, treeValue, update, writer, conflictDetectingValueMerger );
+            processChange( treeKey, treeValue, update, writer, conflictDetectingValueMerger, statistics );
             break;
         case REMOVED:
-            processRemove( treeKey, update, writer );
+            processRemove( treeKey, update, writer, statistics );
             break;
         default:
             throw new IllegalArgumentException();
@@ -99,38 +109,62 @@ class NativeIndexUpdater<KEY extends NativeIndexKey<KEY>, VALUE extends NativeIn
     }
 
     private static <KEY extends NativeIndexKey<KEY>, VALUE extends NativeIndexValue> void processRemove( KEY treeKey,
-            IndexEntryUpdate<?> update, Writer<KEY,VALUE> writer )
+            IndexEntryUpdate<?> update, Writer<KEY,VALUE> writer, IncrementalIndexStatistics statistics )
     {
         // todo Do we need to verify that we actually removed something at all?
         // todo Difference between online and recovery?
         initializeKeyFromUpdate( treeKey, update.getEntityId(), update.values() );
-        writer.remove( treeKey );
+        removeEntry( treeKey, writer, statistics );
     }
 
     private static <KEY extends NativeIndexKey<KEY>, VALUE extends NativeIndexValue> void processChange( KEY treeKey, VALUE treeValue,
             IndexEntryUpdate<?> update, Writer<KEY,VALUE> writer,
-            ConflictDetectingValueMerger<KEY,VALUE,Value[]> conflictDetectingValueMerger )
+            ConflictDetectingValueMerger<KEY,VALUE,Value[]> conflictDetectingValueMerger, IncrementalIndexStatistics statistics )
             throws IndexEntryConflictException
     {
         // Remove old entry
         initializeKeyFromUpdate( treeKey, update.getEntityId(), update.beforeValues() );
-        writer.remove( treeKey );
+        removeEntry( treeKey, writer, statistics );
         // Insert new entry
         initializeKeyFromUpdate( treeKey, update.getEntityId(), update.values() );
         treeValue.from( update.values() );
-        conflictDetectingValueMerger.controlConflictDetection( treeKey );
-        writer.merge( treeKey, treeValue, conflictDetectingValueMerger );
+        addEntry( treeKey, treeValue, writer, conflictDetectingValueMerger, statistics );
         conflictDetectingValueMerger.checkConflict( update.values() );
     }
 
     private static <KEY extends NativeIndexKey<KEY>, VALUE extends NativeIndexValue> void processAdd( KEY treeKey, VALUE treeValue, IndexEntryUpdate<?> update,
-            Writer<KEY,VALUE> writer, ConflictDetectingValueMerger<KEY,VALUE,Value[]> conflictDetectingValueMerger )
+            Writer<KEY,VALUE> writer, ConflictDetectingValueMerger<KEY,VALUE,Value[]> conflictDetectingValueMerger, IncrementalIndexStatistics statistics )
             throws IndexEntryConflictException
     {
         initializeKeyAndValueFromUpdate( treeKey, treeValue, update.getEntityId(), update.values() );
+        addEntry( treeKey, treeValue, writer, conflictDetectingValueMerger, statistics );
+        conflictDetectingValueMerger.checkConflict( update.values() );
+    }
+
+    private static <KEY extends NativeIndexKey<KEY>, VALUE extends NativeIndexValue> void addEntry( KEY treeKey, VALUE treeValue, Writer<KEY,VALUE> writer,
+            ConflictDetectingValueMerger<KEY,VALUE,Value[]> conflictDetectingValueMerger, IncrementalIndexStatistics statistics )
+    {
         conflictDetectingValueMerger.controlConflictDetection( treeKey );
         writer.merge( treeKey, treeValue, conflictDetectingValueMerger );
-        conflictDetectingValueMerger.checkConflict( update.values() );
+        if ( statistics != null && !conflictDetectingValueMerger.keyExisted() )
+        {
+            statistics.added( hashValues( treeKey ) );
+        }
+    }
+
+    private static <KEY extends NativeIndexKey<KEY>, VALUE extends NativeIndexValue> void removeEntry( KEY treeKey, Writer<KEY,VALUE> writer,
+            IncrementalIndexStatistics statistics )
+    {
+        if ( writer.remove( treeKey ) != null && statistics != null )
+        {
+            statistics.removed( hashValues( treeKey ) );
+        }
+    }
+
+    private static <KEY extends NativeIndexKey<KEY>> long hashValues( KEY treeKey )
+    {
+        // Values are hashed the way they come out of the tree, like when the statistics were built
+        return IncrementalIndexStatistics.hash( treeKey.asValues() );
     }
 
     static <KEY extends NativeIndexKey<KEY>, VALUE extends NativeIndexValue> void initializeKeyAndValueFromUpdate( KEY treeKey, VALUE treeValue,
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Seeker;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.kernel.api.index.IndexSample;
+import org.neo4j.kernel.api.index.NonUniqueIndexSampler;
+
+import static org.neo4j.io.IOUtils.closeAllUnchecked;
+import static org.neo4j.util.Preconditions.requirePositive;
+
+/**
+ * {@link NonUniqueIndexSampler} which reads a bounded number of entries from a {@link GBPTree} in {@link #sample(PageCursorTracer)},
+ * no matter the size of the tree.
+ * <p>
+ * Trees not estimated to have more entries than the sample size limit are fully scanned, like {@link FullScanNonUniqueIndexSampler} does.
+ * Bigger trees are sampled in runs of consecutive entries, one run from the start of each partition of a
+ * {@link GBPTree#partitionedSeek(Object, Object, int, PageCursorTracer) partitioned seek}, which spreads the runs over the whole key range.
+ * Since entries are sorted by value, the fraction of adjacent entries in the runs having different values estimates the fraction of
+ * distinct values among all entries in the tree. The number of distinct values seen in the runs, counted by a {@link HyperLogLog}
+ * to not count values spanning several runs more than once, is a lower bound for the estimate.
+ * <p>
+ * The returned {@link IndexSample} is extrapolated to the whole tree, i.e. its sample size is the estimated number of entries.
+ *
+ * @param <KEY> type of keys in tree.
+ * @param <VALUE> type of values in tree.
+ */
+class SampledNonUniqueIndexSampler<KEY extends NativeIndexKey<KEY>, VALUE extends NativeIndexValue>
+        extends NonUniqueIndexSampler.Adapter
+{
+    static final int NUMBER_OF_RUNS = 100;
+    static final int DISTINCT_VALUES_PRECISION = 14;
+
+    private final GBPTree<KEY,VALUE> gbpTree;
+    private final IndexLayout<KEY,VALUE> layout;
+    private final int sampleSizeLimit;
+
+    SampledNonUniqueIndexSampler( GBPTree<KEY,VALUE> gbpTree, IndexLayout<KEY,VALUE> layout, int sampleSizeLimit )
+    {
+        this.gbpTree = gbpTree;
+        this.layout = layout;
+        this.sampleSizeLimit = requirePositive( sampleSizeLimit );
+    }
+
+    @Override
+    public IndexSample sample( PageCursorTracer cursorTracer )
+    {
+        try
+        {
+            long estimatedNumberOfEntries = gbpTree.estimateNumberOfEntriesInTree( cursorTracer );
+            if ( estimatedNumberOfEntries <= sampleSizeLimit )
+            {
+                return new FullScanNonUniqueIndexSampler<>( gbpTree, layout ).sample( cursorTracer );
+            }
+            return sampleRuns( estimatedNumberOfEntries, cursorTracer );
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    private IndexSample sampleRuns( long estimatedNumberOfEntries, PageCursorTracer cursorTracer ) throws IOException
+    {
+        KEY lowest = layout.newKey();
+        lowest.initialize( Long.MIN_VALUE );
+        lowest.initValuesAsLowest();
+        KEY highest = layout.newKey();
+        highest.initialize( Long.MAX_VALUE );
+        highest.initValuesAsHighest();
+        KEY prev = layout.newKey();
+
+        Collection<Seeker<KEY,VALUE>> partitions = gbpTree.partitionedSeek( lowest, highest, NUMBER_OF_RUNS, cursorTracer );
+        try
+        {
+            int runLength = Math.max( 1, sampleSizeLimit / partitions.size() );
+            HyperLogLog distinctValues = new HyperLogLog( DISTINCT_VALUES_PRECISION );
+            long sampledValues = 0;
+            long adjacentPairs = 0;
+            long valueChanges = 0;
+            boolean allRunsExhausted = true;
+            boolean prevIsAdjacent = false;
+            for ( Seeker<KEY,VALUE> partition : partitions )
+            {
+                int run = 0;
+                while ( run < runLength && partition.next() )
+                {
+                    KEY key = partition.key();
+                    if ( prevIsAdjacent )
+                    {
+                        adjacentPairs++;
+                        if ( layout.compareValue( prev, key ) != 0 )
+                        {
+                            valueChanges++;
+                        }
+                    }
+                    distinctValues.add( IncrementalIndexStatistics.hash( key.asValues() ) );
+                    layout.copyKey( key, prev );
+                    prevIsAdjacent = true;
+                    sampledValues++;
+                    run++;
+                }
+                boolean exhausted = run < runLength;
+                allRunsExhausted &= exhausted;
+                // The next run is only adjacent to this one if this one read its whole partition
+                prevIsAdjacent &= exhausted;
+            }
+
+            // If the runs read every entry then the counts are exact, otherwise extrapolate from the fraction of adjacent entries having different values
+            long numberOfEntries = allRunsExhausted ? sampledValues : Math.max( estimatedNumberOfEntries, sampledValues );
+            long uniqueValues = distinctValues.estimate();
+            if ( adjacentPairs > 0 )
+            {
+                long extrapolated = 1 + Math.round( (numberOfEntries - 1) * ((double) valueChanges / adjacentPairs) );
+                uniqueValues = Math.max( uniqueValues, extrapolated );
+            }
+            uniqueValues = Math.min( uniqueValues, numberOfEntries );
+            return new IndexSample( numberOfEntries, uniqueValues, numberOfEntries );
+        }
+        finally
+        {
+            closeAllUnchecked( partitions );
+        }
+    }
+
+    @Override
+    public IndexSample sample( int numDocs, PageCursorTracer cursorTracer )
+    {
+        throw new UnsupportedOperationException();
+    }
+}
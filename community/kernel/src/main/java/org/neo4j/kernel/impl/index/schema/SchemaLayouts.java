@@ -31,6 +31,7 @@ import org.neo4j.index.internal.gbptree.LayoutBootstrapper;
 import org.neo4j.index.internal.gbptree.Meta;
 import org.neo4j.index.internal.gbptree.MetadataMismatchException;
 import org.neo4j.internal.id.indexed.IdRangeLayout;
+import org.neo4j.internal.index.label.RoaringTokenScanLayout;
 import org.neo4j.internal.index.label.TokenScanLayout;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.impl.api.index.stats.IndexStatisticsLayout;
@@ -47,6 +48,7 @@ public class SchemaLayouts implements LayoutBootstrapper
                 genericLayout(),
                 idRangeLayout(),
                 ( indexFile, pageCache, meta ) -> new TokenScanLayout(),
+                ( indexFile, pageCache, meta ) -> new RoaringTokenScanLayout(),
                 ( indexFile, pageCache, meta ) -> new IndexStatisticsLayout() ) );
     }
 
@@ -56,6 +58,7 @@ public class SchemaLayouts implements LayoutBootstrapper
                 "Generic layout",
                 "Id range layout",
                 "Label scan layout",
+                "Roaring label scan layout",
                 "Index statistics layout"
         };
     }
@@ -162,6 +162,15 @@ class TextType extends Type
     }
 
     static void put( PageCursor cursor, byte[] byteArray, long long0, long long2 )
+    {
+        putSuffix( cursor, byteArray, long0, long2, 0 );
+    }
+
+    /**
+     * Like {@link #put(PageCursor, byte[], long, long)}, but leaves out the first {@code prefixLength} bytes of the text,
+     * which are stored elsewhere. The written length is still that of the whole text.
+     */
+    static void putSuffix( PageCursor cursor, byte[] byteArray, long long0, long long2, int prefixLength )
     {
         // There are two variants of a text value, one is string, the other is char. Both are the same ValueGroup, i.e. TEXT
         // and should be treated the same, it's just that we need to know if it's a char so that we can materialize a CharValue for chars.
@@ -169,15 +178,24 @@ class TextType extends Type
         // This can be picked up by reader and set the right flag in state so that a CharValue can be materialized.
         short length = toNonNegativeShortExact( long0 );
         cursor.putShort( isCharValueType( long2 ) ? (short) (length | CHAR_TYPE_LENGTH_MARKER) : length );
-        cursor.putBytes( byteArray, 0, length );
+        cursor.putBytes( byteArray, prefixLength, length - prefixLength );
     }
 
     static boolean read( PageCursor cursor, int maxSize, GenericKey into )
+    {
+        return readSuffix( cursor, maxSize, into, 0, 0 );
+    }
+
+    /**
+     * Reads text written by {@link #putSuffix(PageCursor, byte[], long, long, int)}, where the first {@code prefixLength} bytes
+     * of the text are read from {@code prefixOffset} in the same cursor.
+     */
+    static boolean readSuffix( PageCursor cursor, int maxSize, GenericKey into, int prefixOffset, int prefixLength )
     {
         // For performance reasons cannot be redirected to writeString, due to byte[] reuse
         short rawLength = cursor.getShort();
         short bytesLength = (short) (rawLength & ~CHAR_TYPE_LENGTH_MARKER);
-        if ( bytesLength > maxSize )
+        if ( bytesLength - prefixLength > maxSize || bytesLength < prefixLength )
         {
             setCursorException( cursor, "non-valid bytes length for text, " + bytesLength );
             return false;
@@ -187,7 +205,14 @@ class TextType extends Type
         boolean isCharType = (rawLength & CHAR_TYPE_LENGTH_MARKER) != 0;
         setCharType( into, isCharType );
         setBytesLength( into, bytesLength );
-        cursor.getBytes( into.byteArray, 0, bytesLength );
+        if ( prefixLength > 0 )
+        {
+            int suffixOffset = cursor.getOffset();
+            cursor.setOffset( prefixOffset );
+            cursor.getBytes( into.byteArray, 0, prefixLength );
+            cursor.setOffset( suffixOffset );
+        }
+        cursor.getBytes( into.byteArray, prefixLength, bytesLength - prefixLength );
         return true;
     }
 
@@ -34,6 +34,8 @@ import org.neo4j.kernel.api.index.BridgingIndexProgressor;
 import org.neo4j.kernel.api.index.IndexProgressor;
 import org.neo4j.kernel.api.index.IndexReader;
 import org.neo4j.kernel.api.index.IndexSampler;
+import org.neo4j.kernel.api.index.PartitionedValueSeek;
+import org.neo4j.kernel.api.index.SinglePartitionValueSeek;
 import org.neo4j.values.storable.Value;
 
 import static java.lang.String.format;
@@ -107,6 +109,19 @@ class FusionIndexReader extends FusionIndexBase<IndexReader> implements IndexRea
         }
     }
 
+    @Override
+    public PartitionedValueSeek valueSeek( QueryContext context, int desiredNumberOfPartitions, IndexQueryConstraints constraints,
+            IndexQuery... predicates )
+    {
+        IndexSlot slot = slotSelector.selectSlot( predicates, IndexQuery::valueCategory );
+        if ( slot != null )
+        {
+            return instanceSelector.select( slot ).valueSeek( context, desiredNumberOfPartitions, constraints, predicates );
+        }
+        // A query spanning all slots is bridged over all of them, serve it as a single partition
+        return new SinglePartitionValueSeek( this, context, constraints, predicates );
+    }
+
     private static final class InnerException extends RuntimeException
     {
         private InnerException( IndexNotApplicableKernelException e )
@@ -177,6 +177,16 @@ class DefaultNodeValueIndexCursor extends IndexCursor<IndexProgressor>
         }
     }
 
+    /**
+     * Drops the nodes added in the transaction, but keeps filtering out the ones removed in it.
+     * Used for all but one of the partitions of a partitioned seek, since only one of them should return the added nodes.
+     */
+    void skipAddedInTransaction()
+    {
+        this.added = ImmutableEmptyLongIterator.INSTANCE;
+        this.addedWithValues = Collections.emptyIterator();
+    }
+
     /**
      * If the current user is allowed to traverse all labels used in this index and read the properties no matter what label
      * the node has, we can skip checking on every node we get back.
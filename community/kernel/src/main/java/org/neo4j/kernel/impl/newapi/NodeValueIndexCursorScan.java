@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.newapi;
+
+import org.neo4j.internal.kernel.api.NodeValueIndexCursor;
+import org.neo4j.internal.kernel.api.Scan;
+import org.neo4j.kernel.api.index.PartitionedValueSeek;
+
+import static org.neo4j.util.Preconditions.requirePositive;
+
+/**
+ * A {@link Scan} over the partitions of a {@link PartitionedValueSeek}, where each batch is one whole partition.
+ * <p>
+ * Transaction state is merged into the partitions the same way as for a single seek, with the difference that nodes added
+ * in the transaction are only returned by the first reserved partition. Reading transaction state isn't thread-safe,
+ * so partitions are initialized one at a time when the transaction has changes.
+ */
+class NodeValueIndexCursorScan implements Scan<NodeValueIndexCursor>
+{
+    private final Read read;
+    private final PartitionedValueSeek seek;
+    private final boolean hasChanges;
+    private boolean addedItemsReserved;
+
+    NodeValueIndexCursorScan( Read read, PartitionedValueSeek seek )
+    {
+        this.read = read;
+        this.seek = seek;
+        this.hasChanges = read.hasTxStateWithChanges();
+    }
+
+    @Override
+    public boolean reserveBatch( NodeValueIndexCursor cursor, int sizeHint )
+    {
+        requirePositive( sizeHint );
+
+        DefaultNodeValueIndexCursor indexCursor = (DefaultNodeValueIndexCursor) cursor;
+        indexCursor.setRead( read );
+        if ( !hasChanges )
+        {
+            return seek.reservePartition( indexCursor );
+        }
+        synchronized ( this )
+        {
+            if ( !seek.reservePartition( indexCursor ) )
+            {
+                return false;
+            }
+            if ( addedItemsReserved )
+            {
+                indexCursor.skipAddedInTransaction();
+            }
+            addedItemsReserved = true;
+            return true;
+        }
+    }
+}
@@ -113,6 +113,26 @@ abstract class Read implements TxStateHolder,
         indexSession.reader.query( this, withFullPrecision, constraints, query );
     }
 
+    @Override
+    public final Scan<NodeValueIndexCursor> nodeIndexSeekPartitioned( IndexReadSession index, int desiredNumberOfPartitions, IndexQueryConstraints constraints,
+            IndexQuery... query ) throws IndexNotApplicableKernelException
+    {
+        ktx.assertOpen();
+        DefaultIndexReadSession indexSession = (DefaultIndexReadSession) index;
+
+        if ( indexSession.reference.schema().entityType() != EntityType.NODE )
+        {
+            throw new IndexNotApplicableKernelException( "Node index seek can only be performed on node indexes: " + index );
+        }
+        // Filtering the results of an index without full value precision needs cursors of this transaction, which can't be shared among threads
+        if ( !indexSession.reader.hasFullValuePrecision( query ) )
+        {
+            throw new IndexNotApplicableKernelException( "Partitioned node index seek requires an index with full value precision for the query: " + index );
+        }
+
+        return new NodeValueIndexCursorScan( this, indexSession.reader.valueSeek( this, desiredNumberOfPartitions, constraints, query ) );
+    }
+
     @Override
     public final void relationshipIndexSeek( IndexDescriptor index, RelationshipIndexCursor cursor, IndexQueryConstraints constraints, IndexQuery... query )
             throws IndexNotApplicableKernelException, IndexNotFoundKernelException
@@ -243,6 +263,15 @@ abstract class Read implements TxStateHolder,
         indexSession.reader.query( this, cursorImpl, constraints, IndexQuery.exists( firstProperty ) );
     }
 
+    @Override
+    public final Scan<NodeValueIndexCursor> nodeIndexScanPartitioned( IndexReadSession index, int desiredNumberOfPartitions, IndexQueryConstraints constraints )
+            throws KernelException
+    {
+        // for a scan, we simply query for existence of the first property, which covers all entries in an index
+        int firstProperty = ((DefaultIndexReadSession) index).reference.schema().getPropertyIds()[0];
+        return nodeIndexSeekPartitioned( index, desiredNumberOfPartitions, constraints, IndexQuery.exists( firstProperty ) );
+    }
+
     @Override
     public final void nodeLabelScan( int label, NodeLabelIndexCursor cursor, IndexOrder order )
     {
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.io.Flushable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.neo4j.configuration.Config;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.check_point_flush_rate;
+
+/**
+ * An {@link IOLimiter} that keeps the flushing of pages within a budget of bytes per second.
+ * <p>
+ * The stamp is the point in time, in nanoseconds, up to which the flush has spent its budget. Every call moves the stamp forward by the time it
+ * takes to write the recently completed IOs at the configured rate, and then sleeps until the clock has caught up with the stamp. A flush that
+ * has fallen behind its budget, because the IO itself was slow, may catch up by at most one second worth of budget.
+ */
+public class BandwidthIOLimiter implements IOLimiter
+{
+    private static final long MAX_CATCH_UP_NANOS = TimeUnit.SECONDS.toNanos( 1 );
+
+    private final long bytesPerSecond;
+    private final int bytesPerIO;
+    private final AtomicInteger disabledCounter = new AtomicInteger();
+
+    /**
+     * @param bytesPerSecond the number of bytes that may be written per second.
+     * @param bytesPerIO the number of bytes in one IO, which is the size of a page.
+     */
+    public BandwidthIOLimiter( long bytesPerSecond, int bytesPerIO )
+    {
+        if ( bytesPerSecond <= 0 )
+        {
+            throw new IllegalArgumentException( "Bytes per second must be positive, but was " + bytesPerSecond );
+        }
+        this.bytesPerSecond = bytesPerSecond;
+        this.bytesPerIO = bytesPerIO;
+    }
+
+    /**
+     * Create the limiter configured by {@link org.neo4j.configuration.GraphDatabaseInternalSettings#check_point_flush_rate}, or
+     * {@link IOLimiter#UNLIMITED} if no rate has been configured.
+     */
+    public static IOLimiter create( Config config )
+    {
+        long bytesPerSecond = config.get( check_point_flush_rate );
+        return bytesPerSecond > 0 ? new BandwidthIOLimiter( bytesPerSecond, PageCache.PAGE_SIZE ) : IOLimiter.UNLIMITED;
+    }
+
+    @Override
+    public long maybeLimitIO( long previousStamp, int recentlyCompletedIOs, Flushable flushable )
+    {
+        long now = System.nanoTime();
+        if ( disabledCounter.get() > 0 )
+        {
+            return now;
+        }
+        long start = previousStamp == INITIAL_STAMP ? now : Math.max( previousStamp, now - MAX_CATCH_UP_NANOS );
+        double bytes = (double) recentlyCompletedIOs * bytesPerIO;
+        long stamp = start + (long) (bytes * TimeUnit.SECONDS.toNanos( 1 ) / bytesPerSecond);
+        long delay = stamp - now;
+        if ( delay > 0 )
+        {
+            LockSupport.parkNanos( delay );
+        }
+        return stamp;
+    }
+
+    @Override
+    public void disableLimit()
+    {
+        disabledCounter.getAndIncrement();
+    }
+
+    @Override
+    public void enableLimit()
+    {
+        disabledCounter.getAndDecrement();
+    }
+
+    @Override
+    public boolean isLimited()
+    {
+        return disabledCounter.get() == 0;
+    }
+}
@@ -20,12 +20,15 @@
 package org.neo4j.kernel.impl.pagecache;
 
 import org.neo4j.configuration.Config;
+import org.neo4j.internal.nativeimpl.NativeAccessProvider;
 import org.neo4j.io.ByteUnit;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.mem.MemoryAllocator;
+import org.neo4j.io.mem.NumaPolicy;
 import org.neo4j.io.os.OsBeanUtil;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.io.pagecache.impl.IOUringPageSwapperFactory;
 import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
 import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
@@ -36,6 +39,10 @@ import org.neo4j.memory.MemoryTracker;
 import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.time.SystemNanoClock;
 
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.pagecache_eviction_policy;
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.pagecache_huge_pages;
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.pagecache_io_uring;
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.pagecache_numa_policy;
 import static org.neo4j.configuration.GraphDatabaseSettings.pagecache_memory;
 import static org.neo4j.configuration.SettingValueParsers.BYTES;
 import static org.neo4j.io.mem.MemoryAllocator.createAllocator;
@@ -93,12 +100,21 @@ public class ConfiguringPageCacheFactory
         var memoryPool = memoryPools.pool( PAGE_CACHE, pageCacheMaxMemory, false );
         var memoryTracker = memoryPool.getPoolMemoryTracker();
         MemoryAllocator memoryAllocator = buildMemoryAllocator( pageCacheMaxMemory, memoryTracker );
-        return new MuninnPageCache( swapperFactory, memoryAllocator, pageCacheTracer, versionContextSupplier, scheduler, clock, memoryTracker );
+        return new MuninnPageCache( swapperFactory, memoryAllocator, pageCacheTracer, versionContextSupplier, scheduler, clock, memoryTracker,
+                config.get( pagecache_eviction_policy ) );
     }
 
     private MemoryAllocator buildMemoryAllocator( long pageCacheMaxMemory, MemoryTracker memoryTracker )
     {
-        return createAllocator( pageCacheMaxMemory, memoryTracker );
+        boolean hugePages = config.get( pagecache_huge_pages );
+        NumaPolicy numaPolicy = config.get( pagecache_numa_policy );
+        if ( (hugePages || numaPolicy != NumaPolicy.NONE) && !NativeAccessProvider.getNativeAccess().isAvailable() )
+        {
+            log.warn( "Page cache memory placement is configured with " + pagecache_huge_pages.name() + "=" + hugePages + " and " +
+                      pagecache_numa_policy.name() + "=" + numaPolicy + ", but native access is not available on this system. " +
+                      "Page cache memory will be placed by the operating system." );
+        }
+        return createAllocator( pageCacheMaxMemory, memoryTracker, hugePages, numaPolicy );
     }
 
     private long getPageCacheMaxMemory( Config config )
@@ -176,8 +192,18 @@ public class ConfiguringPageCacheFactory
         log.info( msg );
     }
 
-    private static PageSwapperFactory createAndConfigureSwapperFactory( FileSystemAbstraction fs )
+    private PageSwapperFactory createAndConfigureSwapperFactory( FileSystemAbstraction fs )
     {
+        if ( config.get( pagecache_io_uring ) )
+        {
+            IOUringPageSwapperFactory factory = new IOUringPageSwapperFactory( fs );
+            if ( !factory.isAvailable() )
+            {
+                log.warn( "The " + pagecache_io_uring.name() + " setting is enabled, but io_uring is not available on this system. " +
+                          "Falling back to regular file channel IO." );
+            }
+            return factory;
+        }
         return new SingleFilePageSwapperFactory( fs );
     }
 }
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * The set of pages of a file that were resident in the page cache, when the profile was taken.
+ *
+ * The pages are kept as a run-length encoded bitmap, that is, as a sorted list of runs of consecutive resident pages. On disk, a profile consists
+ * of a magic number, the number of runs, and then for each run the distance from the end of the previous run and the length of the run, as
+ * variable-length encoded longs. Page caches are usually populated in long runs, so this is far more compact than a plain bitmap.
+ */
+final class PageCacheProfile
+{
+    static final String SUFFIX = ".cacheprof";
+    private static final int MAGIC = 0x50435046;
+    private static final int MAX_VAR_LONG_BYTES = 10;
+
+    private final long[] runStarts;
+    private final long[] runLengths;
+    private final int runCount;
+
+    private PageCacheProfile( long[] runStarts, long[] runLengths, int runCount )
+    {
+        this.runStarts = runStarts;
+        this.runLengths = runLengths;
+        this.runCount = runCount;
+    }
+
+    static Builder builder()
+    {
+        return new Builder();
+    }
+
+    int runCount()
+    {
+        return runCount;
+    }
+
+    long runStart( int run )
+    {
+        return runStarts[run];
+    }
+
+    long runLength( int run )
+    {
+        return runLengths[run];
+    }
+
+    long pageCount()
+    {
+        long pages = 0;
+        for ( int i = 0; i < runCount; i++ )
+        {
+            pages += runLengths[i];
+        }
+        return pages;
+    }
+
+    /**
+     * Write this profile to the given file, by way of a temporary file that is atomically moved into place, so a crash while writing cannot
+     * leave a torn profile behind.
+     */
+    void write( FileSystemAbstraction fs, File file ) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate( Integer.BYTES * 2 + runCount * 2 * MAX_VAR_LONG_BYTES );
+        buffer.putInt( MAGIC );
+        buffer.putInt( runCount );
+        long previousRunEnd = 0;
+        for ( int i = 0; i < runCount; i++ )
+        {
+            putVarLong( buffer, runStarts[i] - previousRunEnd );
+            putVarLong( buffer, runLengths[i] );
+            previousRunEnd = runStarts[i] + runLengths[i];
+        }
+        buffer.flip();
+
+        fs.mkdirs( file.getParentFile() );
+        File tempFile = new File( file.getParentFile(), file.getName() + ".tmp" );
+        try ( StoreChannel channel = fs.write( tempFile ) )
+        {
+            channel.truncate( 0 );
+            channel.writeAll( buffer );
+            channel.force( false );
+        }
+        fs.renameFile( tempFile, file, ATOMIC_MOVE, REPLACE_EXISTING );
+    }
+
+    static PageCacheProfile read( FileSystemAbstraction fs, File file ) throws IOException
+    {
+        long fileSize = fs.getFileSize( file );
+        if ( fileSize < Integer.BYTES * 2 || fileSize > Integer.MAX_VALUE )
+        {
+            throw new IOException( "Page cache profile " + file + " has an invalid size of " + fileSize + " bytes." );
+        }
+        ByteBuffer buffer = ByteBuffer.allocate( (int) fileSize );
+        try ( StoreChannel channel = fs.read( file ) )
+        {
+            channel.readAll( buffer );
+        }
+        buffer.flip();
+
+        if ( buffer.getInt() != MAGIC )
+        {
+            throw new IOException( "File " + file + " is not a page cache profile." );
+        }
+        int runCount = buffer.getInt();
+        if ( runCount < 0 || runCount > buffer.remaining() / 2 )
+        {
+            throw new IOException( "Page cache profile " + file + " is corrupt, with an invalid run count of " + runCount + "." );
+        }
+        Builder builder = new Builder();
+        long previousRunEnd = 0;
+        for ( int i = 0; i < runCount; i++ )
+        {
+            long start = previousRunEnd + getVarLong( buffer, file );
+            long length = getVarLong( buffer, file );
+            if ( start < previousRunEnd || length <= 0 )
+            {
+                throw new IOException( "Page cache profile " + file + " is corrupt, with an invalid run at page " + start + "." );
+            }
+            builder.addRun( start, length );
+            previousRunEnd = start + length;
+        }
+        return builder.build();
+    }
+
+    private static void putVarLong( ByteBuffer buffer, long value )
+    {
+        while ( (value & ~0x7FL) != 0 )
+        {
+            buffer.put( (byte) ((value & 0x7F) | 0x80) );
+            value >>>= 7;
+        }
+        buffer.put( (byte) value );
+    }
+
+    private static long getVarLong( ByteBuffer buffer, File file ) throws IOException
+    {
+        long value = 0;
+        for ( int shift = 0; shift < MAX_VAR_LONG_BYTES * 7; shift += 7 )
+        {
+            if ( !buffer.hasRemaining() )
+            {
+                throw new IOException( "Page cache profile " + file + " is truncated." );
+            }
+            byte b = buffer.get();
+            value |= (b & 0x7FL) << shift;
+            if ( b >= 0 )
+            {
+                return value;
+            }
+        }
+        throw new IOException( "Page cache profile " + file + " is corrupt, with an overlong number." );
+    }
+
+    /**
+     * Collects resident pages into runs. Pages must be added in ascending order.
+     */
+    static final class Builder
+    {
+        private long[] runStarts = new long[16];
+        private long[] runLengths = new long[16];
+        private int runCount;
+
+        private Builder()
+        {
+        }
+
+        Builder add( long pageId )
+        {
+            int last = runCount - 1;
+            if ( last >= 0 && runStarts[last] + runLengths[last] == pageId )
+            {
+                runLengths[last]++;
+                return this;
+            }
+            return addRun( pageId, 1 );
+        }
+
+        private Builder addRun( long start, long length )
+        {
+            if ( runCount == runStarts.length )
+            {
+                runStarts = Arrays.copyOf( runStarts, runCount * 2 );
+                runLengths = Arrays.copyOf( runLengths, runCount * 2 );
+            }
+            runStarts[runCount] = start;
+            runLengths[runCount] = length;
+            runCount++;
+            return this;
+        }
+
+        PageCacheProfile build()
+        {
+            return new PageCacheProfile( runStarts, runLengths, runCount );
+        }
+    }
+}
@@ -0,0 +1,427 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.neo4j.configuration.Config;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.layout.DatabaseLayout;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobHandle;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.util.FeatureToggles;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.neo4j.configuration.GraphDatabaseSettings.pagecache_warmup_enabled;
+import static org.neo4j.configuration.GraphDatabaseSettings.pagecache_warmup_prefetch;
+import static org.neo4j.configuration.GraphDatabaseSettings.pagecache_warmup_prefetch_whitelist;
+import static org.neo4j.configuration.GraphDatabaseSettings.pagecache_warmup_profiling_interval;
+import static org.neo4j.configuration.GraphDatabaseSettings.read_only;
+import static org.neo4j.io.pagecache.PageCursor.UNBOUND_PAGE_ID;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_TRANSIENT;
+
+/**
+ * Keeps the page cache warm across restarts.
+ *
+ * While the database is running, the warmer periodically writes a {@link PageCacheProfile} of the resident pages of every file the database
+ * has mapped, to the {@value #PROFILES_DIRECTORY} directory of the database. When the database starts, the warmer reloads the profiled pages in
+ * the background, while the database is already accepting traffic. Files are warmed in parallel, and the pages of each file are loaded in file
+ * order with read-ahead cursors, so consecutive profiled pages are read with large sequential reads.
+ *
+ * When {@link org.neo4j.configuration.GraphDatabaseSettings#pagecache_warmup_prefetch} is enabled, the whitelisted files are instead loaded in
+ * their entirety, and profiles are ignored.
+ *
+ * No profiles are written until warmup has completed, so a database that is restarted shortly after being started, does not lose its profile.
+ * Profiling does not count as page access, so it does not change which pages the page cache prefers to keep.
+ */
+public class PageCacheWarmer extends LifecycleAdapter
+{
+    public static final String PROFILES_DIRECTORY = "profiles";
+    private static final String TRACER_TAG = "pageCacheWarmer";
+    private static final int PARALLELISM = FeatureToggles.getInteger( PageCacheWarmer.class, "parallelism",
+            Math.max( 1, Runtime.getRuntime().availableProcessors() / 2 ) );
+
+    private final FileSystemAbstraction fs;
+    private final PageCache pageCache;
+    private final JobScheduler scheduler;
+    private final File databaseDirectory;
+    private final File profilesDirectory;
+    private final Config config;
+    private final Log log;
+    private final PageCacheTracer pageCacheTracer;
+    private volatile boolean stopped;
+    private final List<JobHandle<?>> reheatJobs = new ArrayList<>();
+    private JobHandle<?> profileJob;
+
+    public PageCacheWarmer( FileSystemAbstraction fs, PageCache pageCache, JobScheduler scheduler, DatabaseLayout databaseLayout, Config config,
+            Log log, PageCacheTracer pageCacheTracer )
+    {
+        this.fs = fs;
+        this.pageCache = pageCache;
+        this.scheduler = scheduler;
+        this.databaseDirectory = databaseLayout.databaseDirectory();
+        this.profilesDirectory = new File( databaseDirectory, PROFILES_DIRECTORY );
+        this.config = config;
+        this.log = log;
+        this.pageCacheTracer = pageCacheTracer;
+    }
+
+    @Override
+    public synchronized void start()
+    {
+        if ( !config.get( pagecache_warmup_enabled ) )
+        {
+            return;
+        }
+        stopped = false;
+        reheatJobs.add( scheduler.schedule( Group.PAGE_CACHE_WARMER, this::reheatInBackground ) );
+    }
+
+    @Override
+    public void stop() throws IOException
+    {
+        List<JobHandle<?>> reheat;
+        JobHandle<?> profiling;
+        synchronized ( this )
+        {
+            stopped = true;
+            reheat = new ArrayList<>( reheatJobs );
+            profiling = profileJob;
+            reheatJobs.clear();
+            profileJob = null;
+        }
+        reheat.forEach( PageCacheWarmer::awaitTermination );
+        if ( profiling != null )
+        {
+            profiling.cancel();
+            awaitTermination( profiling );
+            profile();
+        }
+    }
+
+    private void reheatInBackground()
+    {
+        long startTime = System.nanoTime();
+        Queue<PagedFile> files;
+        try
+        {
+            files = new ConcurrentLinkedQueue<>( mappedFiles() );
+        }
+        catch ( Exception e )
+        {
+            log.warn( "Page cache warmup failed.", e );
+            scheduleProfiling();
+            return;
+        }
+        BackgroundReheat reheat = new BackgroundReheat( files, Math.max( 1, Math.min( PARALLELISM, files.size() ) ), startTime );
+        synchronized ( this )
+        {
+            if ( stopped )
+            {
+                return;
+            }
+            for ( int i = 0; i < reheat.workerCount; i++ )
+            {
+                reheatJobs.add( scheduler.schedule( Group.PAGE_CACHE_WARMER, reheat::work ) );
+            }
+        }
+    }
+
+    private synchronized void scheduleProfiling()
+    {
+        if ( !stopped && !config.get( read_only ) )
+        {
+            long interval = config.get( pagecache_warmup_profiling_interval ).toMillis();
+            profileJob = scheduler.scheduleRecurring( Group.PAGE_CACHE_WARMER, this::profileInBackground, interval, interval, MILLISECONDS );
+        }
+    }
+
+    private void profileInBackground()
+    {
+        try
+        {
+            profile();
+        }
+        catch ( Exception e )
+        {
+            log.warn( "Page cache profiling failed.", e );
+        }
+    }
+
+    /**
+     * Load the profiled pages, or with prefetching the entire whitelisted files, of all mapped files into the page cache. No more pages than fit
+     * in the page cache are loaded. The calling thread takes part in the work, and waits for the helpers it schedules in the
+     * {@link Group#PAGE_CACHE_WARMER} group, so this must not be called from a job of that group.
+     *
+     * @return the number of pages that were loaded.
+     */
+    public long reheat() throws IOException, ExecutionException, InterruptedException
+    {
+        Queue<PagedFile> files = new ConcurrentLinkedQueue<>( mappedFiles() );
+        AtomicLong budget = new AtomicLong( pageCache.maxCachedPages() );
+        int helperCount = Math.min( PARALLELISM, files.size() ) - 1;
+        List<JobHandle<Long>> workers = new ArrayList<>();
+        for ( int i = 0; i < helperCount; i++ )
+        {
+            workers.add( scheduler.schedule( Group.PAGE_CACHE_WARMER, () -> reheatFiles( files, budget ) ) );
+        }
+        long pagesLoaded = reheatFiles( files, budget );
+        for ( JobHandle<Long> worker : workers )
+        {
+            pagesLoaded += worker.get();
+        }
+        return pagesLoaded;
+    }
+
+    private long reheatFiles( Queue<PagedFile> files, AtomicLong budget ) throws IOException
+    {
+        Pattern prefetchWhitelist = config.get( pagecache_warmup_prefetch ) ? Pattern.compile( config.get( pagecache_warmup_prefetch_whitelist ) ) : null;
+        long pagesLoaded = 0;
+        PagedFile file;
+        try ( PageCursorTracer cursorTracer = pageCacheTracer.createPageCursorTracer( TRACER_TAG ) )
+        {
+            while ( !stopped && budget.get() > 0 && (file = files.poll()) != null )
+            {
+                PageCacheProfile profile = prefetchWhitelist != null ? prefetchProfile( file, prefetchWhitelist ) : readProfile( file );
+                if ( profile != null )
+                {
+                    pagesLoaded += reheat( file, profile, budget, cursorTracer );
+                }
+            }
+        }
+        return pagesLoaded;
+    }
+
+    private long reheat( PagedFile file, PageCacheProfile profile, AtomicLong budget, PageCursorTracer cursorTracer ) throws IOException
+    {
+        long pagesLoaded = 0;
+        try ( PageCursor cursor = file.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD, cursorTracer ) )
+        {
+            for ( int run = 0; run < profile.runCount(); run++ )
+            {
+                long runEnd = profile.runStart( run ) + profile.runLength( run );
+                for ( long pageId = profile.runStart( run ); pageId < runEnd; pageId++ )
+                {
+                    if ( stopped || budget.getAndDecrement() <= 0 || !cursor.next( pageId ) )
+                    {
+                        return pagesLoaded;
+                    }
+                    pagesLoaded++;
+                }
+            }
+        }
+        return pagesLoaded;
+    }
+
+    private PageCacheProfile readProfile( PagedFile file )
+    {
+        File profileFile = profileFile( file.file() );
+        if ( profileFile == null || !fs.fileExists( profileFile ) )
+        {
+            return null;
+        }
+        try
+        {
+            return PageCacheProfile.read( fs, profileFile );
+        }
+        catch ( IOException e )
+        {
+            log.warn( "Ignoring unreadable page cache profile " + profileFile + ".", e );
+            return null;
+        }
+    }
+
+    private static PageCacheProfile prefetchProfile( PagedFile file, Pattern whitelist ) throws IOException
+    {
+        long lastPageId = file.getLastPageId();
+        if ( lastPageId < 0 || !whitelist.matcher( file.file().getName() ).matches() )
+        {
+            return null;
+        }
+        PageCacheProfile.Builder builder = PageCacheProfile.builder();
+        for ( long pageId = 0; pageId <= lastPageId; pageId++ )
+        {
+            builder.add( pageId );
+        }
+        return builder.build();
+    }
+
+    /**
+     * Write a profile of the currently resident pages of every mapped file.
+     */
+    public synchronized void profile() throws IOException
+    {
+        try ( PageCursorTracer cursorTracer = pageCacheTracer.createPageCursorTracer( TRACER_TAG ) )
+        {
+            for ( PagedFile file : mappedFiles() )
+            {
+                File profileFile = profileFile( file.file() );
+                if ( profileFile != null )
+                {
+                    profile( file, cursorTracer ).write( fs, profileFile );
+                }
+            }
+        }
+    }
+
+    private static PageCacheProfile profile( PagedFile file, PageCursorTracer cursorTracer ) throws IOException
+    {
+        PageCacheProfile.Builder builder = PageCacheProfile.builder();
+        try ( PageCursor cursor = file.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT | PF_TRANSIENT, cursorTracer ) )
+        {
+            while ( cursor.next() )
+            {
+                long pageId = cursor.getCurrentPageId();
+                if ( pageId != UNBOUND_PAGE_ID )
+                {
+                    builder.add( pageId );
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    private List<PagedFile> mappedFiles() throws IOException
+    {
+        // The same file can be mapped more than once, but we only need to visit it once.
+        Set<File> seen = new HashSet<>();
+        List<PagedFile> files = new ArrayList<>();
+        for ( PagedFile file : pageCache.listExistingMappings() )
+        {
+            if ( seen.add( file.file() ) )
+            {
+                files.add( file );
+            }
+        }
+        return files;
+    }
+
+    /**
+     * @return the profile file for the given mapped file, or {@code null} if the mapped file does not belong to this database.
+     */
+    private File profileFile( File mappedFile )
+    {
+        Path databasePath = databaseDirectory.toPath();
+        Path mappedPath = mappedFile.toPath();
+        if ( !mappedPath.startsWith( databasePath ) )
+        {
+            return null;
+        }
+        return new File( profilesDirectory, databasePath.relativize( mappedPath ) + PageCacheProfile.SUFFIX );
+    }
+
+    /**
+     * A warmup in the background, split over workers that take files from a shared queue. The last worker to finish completes the warmup, so that
+     * no job of the {@link Group#PAGE_CACHE_WARMER} group ever waits for another job of the same group.
+     */
+    private final class BackgroundReheat
+    {
+        private final Queue<PagedFile> files;
+        private final int workerCount;
+        private final long startTime;
+        private final AtomicLong budget = new AtomicLong( pageCache.maxCachedPages() );
+        private final AtomicLong pagesLoaded = new AtomicLong();
+        private final AtomicInteger remainingWorkers;
+        private volatile boolean failed;
+
+        BackgroundReheat( Queue<PagedFile> files, int workerCount, long startTime )
+        {
+            this.files = files;
+            this.workerCount = workerCount;
+            this.startTime = startTime;
+            this.remainingWorkers = new AtomicInteger( workerCount );
+        }
+
+        void work()
+        {
+            try
+            {
+                pagesLoaded.addAndGet( reheatFiles( files, budget ) );
+            }
+            catch ( Exception e )
+            {
+                failed = true;
+                log.warn( "Page cache warmup failed.", e );
+            }
+            finally
+            {
+                if ( remainingWorkers.decrementAndGet() == 0 )
+                {
+                    completed();
+                }
+            }
+        }
+
+        private void completed()
+        {
+            if ( !stopped && !failed )
+            {
+                log.info( "Page cache warmup completed. %d pages loaded. Duration: %d ms.", pagesLoaded.get(),
+                        NANOSECONDS.toMillis( System.nanoTime() - startTime ) );
+            }
+            scheduleProfiling();
+        }
+    }
+
+    private static void awaitTermination( JobHandle<?> job )
+    {
+        if ( job == null )
+        {
+            return;
+        }
+        try
+        {
+            job.waitTermination();
+        }
+        catch ( CancellationException | ExecutionException e )
+        {
+            // Failures have already been logged by the job itself.
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -22,6 +22,9 @@ package org.neo4j.kernel.impl.transaction.log;
 import java.io.Flushable;
 import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
@@ -50,9 +53,15 @@ import static org.neo4j.kernel.impl.api.TransactionToApply.TRANSACTION_ID_NOT_SP
 /**
  * Concurrently appends transactions to the transaction log, while coordinating with the log rotation and forcing the
  * log file in batches for higher throughput in a concurrent scenario.
+ * <p>
+ * Committing threads enqueue their batches in two stages. In the append stage, whichever committer gets the logFile
+ * monitor first serializes all batches pending so far into the log channel and releases the monitor again. In the
+ * force stage, whichever committer gets the force lock forces the log once for every batch appended so far and then
+ * completes them. Batches keep being appended while a force is ongoing and are forced together as the next group.
  */
 public class BatchingTransactionAppender extends LifecycleAdapter implements TransactionAppender
 {
+    private final AtomicReference<ThreadLink> appendLinkHead = new AtomicReference<>( ThreadLink.END );
     private final AtomicReference<ThreadLink> threadLinkHead = new AtomicReference<>( ThreadLink.END );
     private final TransactionMetadataCache transactionMetadataCache;
     private final LogFile logFile;
@@ -61,6 +70,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
     private final LogPositionMarker positionMarker = new LogPositionMarker();
     private final Health databaseHealth;
     private final Lock forceLock = new ReentrantLock();
+    private final boolean compressCommands;
 
     private FlushablePositionAwareChecksumChannel writer;
     private TransactionLogWriter transactionLogWriter;
@@ -68,6 +78,12 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
 
     public BatchingTransactionAppender( LogFiles logFiles, LogRotation logRotation, TransactionMetadataCache transactionMetadataCache,
             TransactionIdStore transactionIdStore, Health databaseHealth )
+    {
+        this( logFiles, logRotation, transactionMetadataCache, transactionIdStore, databaseHealth, false );
+    }
+
+    public BatchingTransactionAppender( LogFiles logFiles, LogRotation logRotation, TransactionMetadataCache transactionMetadataCache,
+            TransactionIdStore transactionIdStore, Health databaseHealth, boolean compressCommands )
     {
         this.logFile = logFiles.getLogFile();
         this.logRotation = logRotation;
@@ -75,6 +91,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         this.databaseHealth = databaseHealth;
         this.transactionMetadataCache = transactionMetadataCache;
         this.previousChecksum = transactionIdStore.getLastCommittedTransaction().checksum();
+        this.compressCommands = compressCommands;
     }
 
     @VisibleForTesting
@@ -87,57 +104,28 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         this.databaseHealth = databaseHealth;
         this.transactionMetadataCache = transactionMetadataCache;
         this.previousChecksum = previousChecksum;
+        this.compressCommands = false;
     }
 
     @Override
     public void start()
     {
         this.writer = logFile.getWriter();
-        this.transactionLogWriter = new TransactionLogWriter( new LogEntryWriter( writer ) );
+        this.transactionLogWriter = new TransactionLogWriter( new LogEntryWriter( writer, compressCommands ) );
     }
 
     @Override
     public long append( TransactionToApply batch, LogAppendEvent logAppendEvent ) throws IOException
     {
-        // Assigned base tx id just to make compiler happy
-        long lastTransactionId = TransactionIdStore.BASE_TX_ID;
-        // Synchronized with logFile to get absolute control over concurrent rotations happening
-        synchronized ( logFile )
-        {
-            // Assert that kernel is healthy before making any changes
-            databaseHealth.assertHealthy( IOException.class );
-            try ( SerializeTransactionEvent serialiseEvent = logAppendEvent.beginSerializeTransaction() )
-            {
-                // Append all transactions in this batch to the log under the same logFile monitor
-                TransactionToApply tx = batch;
-                while ( tx != null )
-                {
-                    long transactionId = transactionIdStore.nextCommittingTransactionId();
-
-                    // If we're in a scenario where we're merely replicating transactions, i.e. transaction
-                    // id have already been generated by another entity we simply check that our id
-                    // that we generated match that id. If it doesn't we've run into a problem we can't ´
-                    // really recover from and would point to a bug somewhere.
-                    matchAgainstExpectedTransactionIdIfAny( transactionId, tx );
-
-                    TransactionCommitment commitment = appendToLog( tx.transactionRepresentation(), transactionId, logAppendEvent, previousChecksum );
-                    previousChecksum = commitment.getTransactionChecksum();
-                    tx.commitment( commitment, transactionId );
-                    tx.logPosition( commitment.logPosition() );
-                    tx = tx.next();
-                    lastTransactionId = transactionId;
-                }
-            }
-        }
-
-        // At this point we've appended all transactions in this batch, but we can't mark any of them
-        // as committed since they haven't been forced to disk yet. So here we force, or potentially
-        // piggy-back on another force, but anyway after this call below we can be sure that all our transactions
-        // in this batch exist durably on disk.
-        if ( forceAfterAppend( logAppendEvent ) )
+        // The batch is first appended to the log, together with any other batches pending at the time, and then
+        // handed over to the group commit stage, where whichever committer currently holds the force lock forces
+        // the log once for the whole group. When this call returns, all transactions in this batch exist durably on disk.
+        ThreadLink threadLink = new ThreadLink( Thread.currentThread(), batch, logAppendEvent );
+        appendGroup( threadLink );
+        if ( awaitGroupCommit( threadLink, logAppendEvent ) )
         {
-            // We got lucky and were the one forcing the log. It's enough if ones of all doing concurrent committers
-            // checks the need for log rotation.
+            // We got lucky and were the one forcing the group. It's enough if ones of all doing
+            // concurrent committers checks the need for log rotation.
             boolean logRotated = logRotation.rotateLogIfNeeded( logAppendEvent );
             logAppendEvent.setLogRotated( logRotated );
         }
@@ -145,6 +133,39 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         // Mark all transactions as committed
         publishAsCommitted( batch );
 
+        return threadLink.lastTransactionId;
+    }
+
+    /**
+     * Appends all transactions in the given batch to the log. Must be called while holding the logFile monitor.
+     *
+     * @return the id of the last transaction in the batch.
+     */
+    private long appendBatch( TransactionToApply batch, LogAppendEvent logAppendEvent ) throws IOException
+    {
+        // Assigned base tx id just to make compiler happy
+        long lastTransactionId = TransactionIdStore.BASE_TX_ID;
+        try ( SerializeTransactionEvent serialiseEvent = logAppendEvent.beginSerializeTransaction() )
+        {
+            TransactionToApply tx = batch;
+            while ( tx != null )
+            {
+                long transactionId = transactionIdStore.nextCommittingTransactionId();
+
+                // If we're in a scenario where we're merely replicating transactions, i.e. transaction
+                // id have already been generated by another entity we simply check that our id
+                // that we generated match that id. If it doesn't we've run into a problem we can't ´
+                // really recover from and would point to a bug somewhere.
+                matchAgainstExpectedTransactionIdIfAny( transactionId, tx );
+
+                TransactionCommitment commitment = appendToLog( tx.transactionRepresentation(), transactionId, logAppendEvent, previousChecksum );
+                previousChecksum = commitment.getTransactionChecksum();
+                tx.commitment( commitment, transactionId );
+                tx.logPosition( commitment.logPosition() );
+                tx = tx.next();
+                lastTransactionId = transactionId;
+            }
+        }
         return lastTransactionId;
     }
 
@@ -217,6 +238,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
             logAppendEvent.appendToLogFile( logPositionBeforeCommit, logPositionAfterCommit );
 
             transactionMetadataCache.cacheTransactionMetadata( transactionId, logPositionBeforeCommit, checksum, transaction.getTimeCommitted() );
+            logFile.transactionAppended( transactionId, logPositionBeforeCommit );
 
             return new TransactionCommitment( transactionId, checksum, transaction.getTimeCommitted(), logPositionAfterCommit,
                     transactionIdStore );
@@ -236,22 +258,73 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
      */
     protected boolean forceAfterAppend( LogForceEvents logForceEvents ) throws IOException
     {
-        // There's a benign race here, where we add our link before we update our next pointer.
-        // This is okay, however, because unparkAll() spins when it sees a null next pointer.
-        ThreadLink threadLink = new ThreadLink( Thread.currentThread() );
-        threadLink.next = threadLinkHead.getAndSet( threadLink );
+        return awaitGroupCommit( new ThreadLink( Thread.currentThread() ), logForceEvents );
+    }
+
+    /**
+     * Enqueues the given link in the append stage and returns once its batch has been appended to the log, by this
+     * thread or by another committer that got the logFile monitor first. The link is then pending in the group
+     * commit stage.
+     */
+    private void appendGroup( ThreadLink threadLink ) throws IOException
+    {
+        push( appendLinkHead, threadLink );
+        // Synchronized with logFile to get absolute control over concurrent rotations happening
+        synchronized ( logFile )
+        {
+            if ( threadLink.appended || threadLink.done )
+            {
+                // Appended, or failed, together with the batches of another committer while we waited for the monitor
+                return;
+            }
+            List<ThreadLink> group = drainPendingLinks( appendLinkHead );
+            try
+            {
+                // Assert that kernel is healthy before making any changes
+                databaseHealth.assertHealthy( IOException.class );
+                for ( ThreadLink link : group )
+                {
+                    link.lastTransactionId = appendBatch( link.batch, link.logAppendEvent );
+                }
+            }
+            catch ( final Throwable t )
+            {
+                completeGroup( group, t );
+                throw t;
+            }
+            for ( ThreadLink link : group )
+            {
+                link.appended = true;
+                push( threadLinkHead, link );
+            }
+        }
+    }
+
+    /**
+     * Enqueues the given link in the group commit stage, unless it already failed to be appended, and waits until the
+     * log has been forced for it. The link may carry a batch of transactions already appended, or nothing if the caller
+     * only wants the log forced, e.g. after a check point.
+     *
+     * @return {@code true} if this thread was the one forcing the group.
+     */
+    private boolean awaitGroupCommit( ThreadLink threadLink, LogForceEvents logForceEvents ) throws IOException
+    {
+        if ( threadLink.batch == null )
+        {
+            push( threadLinkHead, threadLink );
+        }
         boolean attemptedForce = false;
 
         try ( LogForceWaitEvent logForceWaitEvent = logForceEvents.beginLogForceWait() )
         {
-            do
+            while ( !threadLink.done )
             {
                 if ( forceLock.tryLock() )
                 {
                     attemptedForce = true;
                     try
                     {
-                        forceLog( logForceEvents );
+                        forceGroup( logForceEvents );
                         // In the event of any failure a database panic will be raised and thrown here
                     }
                     finally
@@ -271,7 +344,6 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
                     waitForLogForce();
                 }
             }
-            while ( !threadLink.done );
 
             // If there were many threads committing simultaneously and I wasn't the lucky one
             // actually doing the forcing (where failure would throw panic exception) I need to
@@ -280,13 +352,23 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
             {
                 databaseHealth.assertHealthy( IOException.class );
             }
+            // Also the one forcing may have had its own link completed by another group, or failed to be appended
+            Throwable failure = threadLink.failure;
+            if ( failure != null )
+            {
+                throw new IOException( "Group commit failed", failure );
+            }
         }
         return attemptedForce;
     }
 
-    private void forceLog( LogForceEvents logForceEvents ) throws IOException
+    /**
+     * Takes all links that have been appended so far and forces the log once on behalf of all of them. Every drained
+     * link is completed, successfully or not, before this method returns.
+     */
+    private void forceGroup( LogForceEvents logForceEvents ) throws IOException
     {
-        ThreadLink links = threadLinkHead.getAndSet( ThreadLink.END );
+        List<ThreadLink> group = drainPendingLinks( threadLinkHead );
         try ( LogForceEvent logForceEvent = logForceEvents.beginLogForce() )
         {
             force();
@@ -294,20 +376,38 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         catch ( final Throwable panic )
         {
             databaseHealth.panic( panic );
+            completeGroup( group, panic );
             throw panic;
         }
-        finally
+        completeGroup( group, null );
+    }
+
+    private static void completeGroup( List<ThreadLink> group, Throwable failure )
+    {
+        for ( ThreadLink link : group )
         {
-            unparkAll( links );
+            link.failure = failure;
+            link.done = true;
+            link.unpark();
         }
     }
 
-    private static void unparkAll( ThreadLink links )
+    private static void push( AtomicReference<ThreadLink> head, ThreadLink link )
+    {
+        // A link drained from the append stage still points into that stack, so clear it before it's published again.
+        // There's a benign race here, where we add our link before we update our next pointer.
+        // This is okay, however, because drainPendingLinks() spins when it sees a null next pointer.
+        link.next = null;
+        link.next = head.getAndSet( link );
+    }
+
+    private static List<ThreadLink> drainPendingLinks( AtomicReference<ThreadLink> head )
     {
-        do
+        ThreadLink links = head.getAndSet( ThreadLink.END );
+        List<ThreadLink> group = new ArrayList<>();
+        while ( links != ThreadLink.END )
         {
-            links.done = true;
-            links.unpark();
+            group.add( links );
             ThreadLink tmp;
             do
             {
@@ -317,7 +417,9 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
             while ( tmp == null );
             links = tmp;
         }
-        while ( links != ThreadLink.END );
+        // The links are stacked with the most recent first, but batches are appended in the order they arrived.
+        Collections.reverse( group );
+        return group;
     }
 
     private void waitForLogForce()
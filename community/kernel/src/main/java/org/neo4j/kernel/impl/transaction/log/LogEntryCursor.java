@@ -20,13 +20,19 @@
 package org.neo4j.kernel.impl.transaction.log;
 
 import java.io.IOException;
+import java.util.Iterator;
 
 import org.neo4j.cursor.IOCursor;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntry;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommand;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCompressedCommands;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 
+import static java.util.Collections.emptyIterator;
+
 /**
- * {@link IOCursor} abstraction on top of a {@link LogEntryReader}
+ * {@link IOCursor} abstraction on top of a {@link LogEntryReader}. The commands of a {@link LogEntryCompressedCommands compressed block}
+ * are handed out one by one, like ordinary command entries.
  */
 public class LogEntryCursor implements IOCursor<LogEntry>
 {
@@ -34,6 +40,7 @@ public class LogEntryCursor implements IOCursor<LogEntry>
     private final ReadableClosablePositionAwareChecksumChannel channel;
     private final LogPositionMarker position = new LogPositionMarker();
     private LogEntry entry;
+    private Iterator<LogEntryCommand> pendingCommands = emptyIterator();
 
     public LogEntryCursor( LogEntryReader logEntryReader, ReadableClosablePositionAwareChecksumChannel channel )
     {
@@ -50,8 +57,21 @@ public class LogEntryCursor implements IOCursor<LogEntry>
     @Override
     public boolean next() throws IOException
     {
-        entry = logEntryReader.readLogEntry( channel );
+        if ( pendingCommands.hasNext() )
+        {
+            entry = pendingCommands.next();
+            return true;
+        }
 
+        while ( (entry = logEntryReader.readLogEntry( channel )) instanceof LogEntryCompressedCommands )
+        {
+            pendingCommands = ((LogEntryCompressedCommands) entry).getCommands().iterator();
+            if ( pendingCommands.hasNext() )
+            {
+                entry = pendingCommands.next();
+                return true;
+            }
+        }
         return entry != null;
     }
 
@@ -0,0 +1,387 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.util.function.LongPredicate;
+import java.util.zip.Checksum;
+
+import org.neo4j.internal.unsafe.UnsafeUtil;
+import org.neo4j.io.fs.ChecksumMismatchException;
+import org.neo4j.io.fs.ReadPastEndException;
+import org.neo4j.memory.MemoryTracker;
+import org.neo4j.util.FeatureToggles;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static org.neo4j.io.ByteUnit.mebiBytes;
+import static org.neo4j.io.fs.ChecksumWriter.CHECKSUM_FACTORY;
+import static org.neo4j.io.fs.PhysicalFlushableChecksumChannel.DISABLE_WAL_CHECKSUM;
+
+/**
+ * A {@link ReadableLogChannel} which reads log files that are no longer written to straight out of memory mapped segments of those files,
+ * instead of copying their contents through a read-ahead buffer like {@link ReadAheadLogChannel} does.
+ * <p>
+ * Which log versions may be mapped is decided by the given predicate. A log file that may still be written to must not be mapped,
+ * since its size changes and it gets truncated on rotation. When reading reaches such a file, or a file whose channel can't be mapped,
+ * the rest of the reading is handed over to a {@link ReadAheadLogChannel}. Log entries never span log files, so this hand over
+ * usually happens between two entries. Should mapping fail in the middle of a file, the part of the current entry read so far
+ * is read again by the read-ahead channel, so that its checksum still covers the whole entry.
+ */
+public class MappedLogChannel implements PositionableLogChannel
+{
+    private static final long SEGMENT_SIZE = FeatureToggles.getLong( MappedLogChannel.class, "segmentSize", mebiBytes( 256 ) );
+    private static final int SKIP_BUFFER_SIZE = 4096;
+
+    private final LogVersionBridge bridge;
+    private final LongPredicate mappableVersion;
+    private final MemoryTracker memoryTracker;
+    private final Checksum checksum;
+
+    private LogVersionedStoreChannel channel;
+    private ByteBuffer segment;
+    private ByteBuffer checksumView;
+    private long segmentStart;
+    private long checksumStart;
+    private long fileSize;
+    private ReadAheadLogChannel readAheadChannel;
+
+    public MappedLogChannel( LogVersionedStoreChannel startingChannel, LogVersionBridge bridge, LongPredicate mappableVersion, MemoryTracker memoryTracker )
+            throws IOException
+    {
+        this.bridge = bridge;
+        this.mappableVersion = mappableVersion;
+        this.memoryTracker = memoryTracker;
+        this.checksum = CHECKSUM_FACTORY.get();
+        this.channel = startingChannel;
+        startReading( startingChannel );
+    }
+
+    @Override
+    public byte get() throws IOException
+    {
+        if ( mapped( Byte.BYTES ) )
+        {
+            return segment.get();
+        }
+        return readAheadChannel.get();
+    }
+
+    @Override
+    public short getShort() throws IOException
+    {
+        if ( mapped( Short.BYTES ) )
+        {
+            return segment.getShort();
+        }
+        return readAheadChannel.getShort();
+    }
+
+    @Override
+    public int getInt() throws IOException
+    {
+        if ( mapped( Integer.BYTES ) )
+        {
+            return segment.getInt();
+        }
+        return readAheadChannel.getInt();
+    }
+
+    @Override
+    public long getLong() throws IOException
+    {
+        if ( mapped( Long.BYTES ) )
+        {
+            return segment.getLong();
+        }
+        return readAheadChannel.getLong();
+    }
+
+    @Override
+    public float getFloat() throws IOException
+    {
+        if ( mapped( Float.BYTES ) )
+        {
+            return segment.getFloat();
+        }
+        return readAheadChannel.getFloat();
+    }
+
+    @Override
+    public double getDouble() throws IOException
+    {
+        if ( mapped( Double.BYTES ) )
+        {
+            return segment.getDouble();
+        }
+        return readAheadChannel.getDouble();
+    }
+
+    @Override
+    public void get( byte[] bytes, int length ) throws IOException
+    {
+        if ( mapped( length ) )
+        {
+            segment.get( bytes, 0, length );
+        }
+        else
+        {
+            readAheadChannel.get( bytes, length );
+        }
+    }
+
+    @Override
+    public void beginChecksum()
+    {
+        if ( readAheadChannel != null )
+        {
+            readAheadChannel.beginChecksum();
+            return;
+        }
+        checksumStart = segmentStart + segment.position();
+        if ( DISABLE_WAL_CHECKSUM )
+        {
+            return;
+        }
+        checksum.reset();
+        checksumView.limit( checksumView.capacity() );
+        checksumView.position( segment.position() );
+    }
+
+    @Override
+    public int endChecksumAndValidate() throws IOException
+    {
+        if ( !mapped( Integer.BYTES ) )
+        {
+            return readAheadChannel.endChecksumAndValidate();
+        }
+        if ( DISABLE_WAL_CHECKSUM )
+        {
+            segment.getInt();
+            return 0xDEAD5EED;
+        }
+
+        updateChecksum();
+        int calculatedChecksum = (int) checksum.getValue();
+        int storedChecksum = segment.getInt();
+        if ( calculatedChecksum != storedChecksum )
+        {
+            throw new ChecksumMismatchException( storedChecksum, calculatedChecksum );
+        }
+        beginChecksum();
+        return calculatedChecksum;
+    }
+
+    @Override
+    public LogPositionMarker getCurrentPosition( LogPositionMarker positionMarker ) throws IOException
+    {
+        if ( readAheadChannel != null )
+        {
+            return readAheadChannel.getCurrentPosition( positionMarker );
+        }
+        positionMarker.mark( channel.getVersion(), position() );
+        return positionMarker;
+    }
+
+    @Override
+    public long position() throws IOException
+    {
+        if ( readAheadChannel != null )
+        {
+            return readAheadChannel.position();
+        }
+        if ( channel == null )
+        {
+            throw new ClosedChannelException();
+        }
+        return segmentStart + segment.position();
+    }
+
+    @Override
+    public void setCurrentPosition( long byteOffset ) throws IOException
+    {
+        if ( readAheadChannel != null )
+        {
+            readAheadChannel.setCurrentPosition( byteOffset );
+            return;
+        }
+        long positionInSegment = byteOffset - segmentStart;
+        if ( positionInSegment >= 0 && positionInSegment <= segment.limit() )
+        {
+            segment.position( (int) positionInSegment );
+        }
+        else if ( !mapSegment( byteOffset, 0 ) )
+        {
+            checksumStart = byteOffset;
+            handOver( byteOffset );
+        }
+        beginChecksum();
+    }
+
+    @Override
+    public long getVersion()
+    {
+        return readAheadChannel != null ? readAheadChannel.getVersion() : channel.getVersion();
+    }
+
+    @Override
+    public byte getLogFormatVersion()
+    {
+        return readAheadChannel != null ? readAheadChannel.getLogFormatVersion() : channel.getLogFormatVersion();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        releaseSegment();
+        if ( readAheadChannel != null )
+        {
+            readAheadChannel.close();
+            readAheadChannel = null;
+        }
+        else if ( channel != null )
+        {
+            channel.close();
+        }
+        channel = null;
+    }
+
+    /**
+     * Makes sure that the next read can be served, either from the mapped segment or by the read-ahead channel.
+     *
+     * @return {@code true} if the next {@code bytes} can be read from the mapped segment, or {@code false} if reading has been handed over
+     * to the read-ahead channel.
+     */
+    private boolean mapped( int bytes ) throws IOException
+    {
+        if ( readAheadChannel != null )
+        {
+            return false;
+        }
+        if ( channel == null )
+        {
+            throw new ClosedChannelException();
+        }
+        while ( segment.remaining() < bytes )
+        {
+            updateChecksum();
+            long position = segmentStart + segment.position();
+            if ( position + bytes <= fileSize )
+            {
+                // The requested bytes are in this file, just not in the currently mapped segment
+                if ( !mapSegment( position, bytes ) )
+                {
+                    handOver( position );
+                    return false;
+                }
+            }
+            else if ( segment.hasRemaining() )
+            {
+                // The file ends in the middle of what's being read, which is what a log file ending with an incomplete entry looks like
+                throw ReadPastEndException.INSTANCE;
+            }
+            else
+            {
+                LogVersionedStoreChannel nextChannel = bridge.next( channel );
+                if ( nextChannel == channel )
+                {
+                    throw ReadPastEndException.INSTANCE;
+                }
+                channel = nextChannel;
+                if ( !startReading( nextChannel ) )
+                {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Starts reading the given channel from its current position, mapping it if possible, otherwise handing reading over to a read-ahead channel.
+     *
+     * @return {@code true} if the channel is read through a mapped segment.
+     */
+    private boolean startReading( LogVersionedStoreChannel logChannel ) throws IOException
+    {
+        if ( mappableVersion.test( logChannel.getVersion() ) && mapSegment( logChannel.position(), 0 ) )
+        {
+            checksumStart = segmentStart;
+            return true;
+        }
+        releaseSegment();
+        readAheadChannel = new ReadAheadLogChannel( logChannel, bridge, memoryTracker );
+        return false;
+    }
+
+    /**
+     * Hands the rest of the reading of the current file over to a read-ahead channel, continuing at the given position.
+     * The bytes since the last {@link #beginChecksum()} are read again, to carry the checksum of the current entry over.
+     */
+    private void handOver( long position ) throws IOException
+    {
+        releaseSegment();
+        channel.position( checksumStart );
+        readAheadChannel = new ReadAheadLogChannel( channel, bridge, memoryTracker );
+        readAheadChannel.beginChecksum();
+        byte[] skipped = new byte[(int) min( SKIP_BUFFER_SIZE, position - checksumStart )];
+        for ( long remaining = position - checksumStart; remaining > 0; remaining -= skipped.length )
+        {
+            readAheadChannel.get( skipped, (int) min( skipped.length, remaining ) );
+        }
+    }
+
+    private boolean mapSegment( long position, int minimumSize ) throws IOException
+    {
+        fileSize = channel.size();
+        long size = min( max( SEGMENT_SIZE, minimumSize ), max( 0, fileSize - position ) );
+        ByteBuffer mappedSegment = channel.mapReadOnly( position, size );
+        if ( mappedSegment == null )
+        {
+            return false;
+        }
+        releaseSegment();
+        segment = mappedSegment;
+        segmentStart = position;
+        checksumView = segment.duplicate();
+        return true;
+    }
+
+    private void updateChecksum()
+    {
+        if ( !DISABLE_WAL_CHECKSUM )
+        {
+            checksumView.limit( segment.position() );
+            checksum.update( checksumView );
+        }
+    }
+
+    private void releaseSegment()
+    {
+        if ( segment != null )
+        {
+            UnsafeUtil.invokeCleaner( segment );
+        }
+        segment = null;
+        checksumView = null;
+    }
+}
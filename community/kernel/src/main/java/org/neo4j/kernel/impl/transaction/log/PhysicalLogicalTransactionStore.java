@@ -92,9 +92,10 @@ public class PhysicalLogicalTransactionStore implements LogicalTransactionStore
             LogVersionLocator headerVisitor = new LogVersionLocator( transactionIdToStartFrom );
             logFiles.accept( headerVisitor );
 
-            // ask LogFile
+            // ask LogFile, starting from as close to the transaction as the offset index of that version knows
+            LogPosition scanStart = logFile.findTransactionScanStart( transactionIdToStartFrom, headerVisitor.getLogPosition(), logEntryReader );
             TransactionPositionLocator transactionPositionLocator = new TransactionPositionLocator( transactionIdToStartFrom, logEntryReader );
-            logFile.accept( transactionPositionLocator, headerVisitor.getLogPosition() );
+            logFile.accept( transactionPositionLocator, scanStart );
             LogPosition position = transactionPositionLocator.getAndCacheFoundLogPosition( transactionMetadataCache );
             return new PhysicalTransactionCursor( logFile.getReader( position ), logEntryReader );
         }
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.IOException;
+
+import org.neo4j.io.fs.PositionableChannel;
+
+/**
+ * A {@link ReadableLogChannel} which can be moved to any offset within the log file it currently reads.
+ */
+public interface PositionableLogChannel extends ReadableLogChannel, PositionableChannel
+{
+    /**
+     * @return the byte offset in the current log file which the next read will start from.
+     * @throws IOException on I/O error.
+     */
+    long position() throws IOException;
+}
@@ -21,15 +21,31 @@ package org.neo4j.kernel.impl.transaction.log;
 
 import java.util.concurrent.locks.LockSupport;
 
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
+import org.neo4j.storageengine.api.TransactionIdStore;
+
 class ThreadLink
 {
     final Thread thread;
+    final TransactionToApply batch;
+    final LogAppendEvent logAppendEvent;
     volatile ThreadLink next;
+    volatile boolean appended;
     volatile boolean done;
+    volatile Throwable failure;
+    volatile long lastTransactionId = TransactionIdStore.BASE_TX_ID;
 
     ThreadLink( Thread thread )
+    {
+        this( thread, null, LogAppendEvent.NULL );
+    }
+
+    ThreadLink( Thread thread, TransactionToApply batch, LogAppendEvent logAppendEvent )
     {
         this.thread = thread;
+        this.batch = batch;
+        this.logAppendEvent = logAppendEvent;
     }
 
     public void unpark()
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.internal.helpers.Format;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.kernel.impl.transaction.stats.TransactionLogCounters;
+import org.neo4j.time.SystemNanoClock;
+
+import static org.neo4j.io.ByteUnit.mebiBytes;
+
+/**
+ * Triggers check points such that the transaction log that recovery would have to replay never takes longer than a target time to replay,
+ * while spreading the flushing of each check point out over the time that is left before that happens.
+ * <p>
+ * The amount of log that recovery can replay within the target time is the target time multiplied by an assumed replay rate. Each check
+ * compares the log appended since the last check point with that budget and, from the rate at which the log has been growing, estimates how
+ * much time is left before the budget is used up. A check point is triggered when that time is getting close to what flushing the currently
+ * dirty pages would take at the rate the storage has been observed to write them, and that check point is then paced, through
+ * {@link PacingIOLimiter}, to use up most of the time left instead of flushing as fast as it can.
+ */
+class AdaptiveCheckPointThreshold extends AbstractCheckPointThreshold
+{
+    private static final long MIN_CHECKING_FREQUENCY_MILLIS = 100;
+    private static final long INITIAL_FLUSH_BYTES_PER_SECOND = mebiBytes( 32 );
+    private static final double RATE_SMOOTHING = 0.3;
+    /**
+     * How much of the time left before the log budget is used up a paced check point aims to use, leaving the rest as a margin.
+     */
+    private static final double PACE_TIME_FRACTION = 0.75;
+    /**
+     * How many times the estimated flush time must fit in the time left for a check point to not be triggered yet.
+     */
+    private static final double FLUSH_TIME_MARGIN = 2.0;
+
+    private final SystemNanoClock clock;
+    private final TransactionLogCounters logCounters;
+    private final PageCache pageCache;
+    private final long logBudgetBytes;
+    private final long checkFrequencyMillis;
+
+    private volatile long lastCheckPointedTransactionId;
+    private volatile long logBytesAtLastCheckPoint;
+    private volatile long logBytesAtLastCheck;
+    private volatile PacingIOLimiter limiter;
+
+    // Only touched by the thread checking the threshold
+    private long lastCheckNanos;
+    private double appendBytesPerSecond;
+    private double flushBytesPerSecond = INITIAL_FLUSH_BYTES_PER_SECOND;
+
+    AdaptiveCheckPointThreshold( long recoveryTimeTargetMillis, long replayBytesPerSecond, SystemNanoClock clock, TransactionLogCounters logCounters,
+            PageCache pageCache )
+    {
+        super( "recovery time target of " + formatDuration( recoveryTimeTargetMillis ) + " threshold" );
+        this.clock = clock;
+        this.logCounters = logCounters;
+        this.pageCache = pageCache;
+        this.logBudgetBytes = (long) (replayBytesPerSecond * (recoveryTimeTargetMillis / 1000.0));
+        this.checkFrequencyMillis = Math.max( MIN_CHECKING_FREQUENCY_MILLIS, Math.min( DEFAULT_CHECKING_FREQUENCY_MILLIS, recoveryTimeTargetMillis / 10 ) );
+    }
+
+    private static String formatDuration( long millis )
+    {
+        return Format.duration( millis, TimeUnit.DAYS, TimeUnit.MILLISECONDS, unit -> ' ' + unit.name().toLowerCase() );
+    }
+
+    @Override
+    public void initialize( long transactionId )
+    {
+        lastCheckPointedTransactionId = transactionId;
+        long appendedBytes = logCounters.appendedBytes();
+        logBytesAtLastCheckPoint = appendedBytes;
+        logBytesAtLastCheck = appendedBytes;
+        lastCheckNanos = clock.nanos();
+    }
+
+    @Override
+    protected boolean thresholdReached( long lastCommittedTransactionId )
+    {
+        long now = clock.nanos();
+        long appendedBytes = logCounters.appendedBytes();
+        sampleRates( now, appendedBytes );
+        if ( lastCommittedTransactionId <= lastCheckPointedTransactionId )
+        {
+            return false;
+        }
+
+        long logBytes = appendedBytes - logBytesAtLastCheckPoint;
+        if ( logBytes >= logBudgetBytes )
+        {
+            // Already behind, catch up as fast as the database limiter allows
+            pace( 0 );
+            return true;
+        }
+        if ( appendBytesPerSecond <= 0 )
+        {
+            return false;
+        }
+
+        double secondsLeft = (logBudgetBytes - logBytes) / appendBytesPerSecond;
+        long dirtyBytes = dirtyBytes();
+        double flushSeconds = dirtyBytes / flushBytesPerSecond;
+        if ( secondsLeft > FLUSH_TIME_MARGIN * flushSeconds + checkFrequencyMillis / 1000.0 )
+        {
+            return false;
+        }
+        long pace = (long) (dirtyBytes / (PACE_TIME_FRACTION * secondsLeft));
+        pace( pace < flushBytesPerSecond ? Math.max( pace, 1 ) : 0 );
+        return true;
+    }
+
+    @Override
+    public void checkPointHappened( long transactionId )
+    {
+        lastCheckPointedTransactionId = transactionId;
+        // Everything appended up until the last check has been check pointed, what has been appended after that is not known to be
+        logBytesAtLastCheckPoint = Math.min( logBytesAtLastCheck, logCounters.appendedBytes() );
+        pace( 0 );
+    }
+
+    @Override
+    public long checkFrequencyMillis()
+    {
+        return checkFrequencyMillis;
+    }
+
+    @Override
+    public IOLimiter checkPointIOLimiter( IOLimiter ioLimiter )
+    {
+        PacingIOLimiter pacingLimiter = new PacingIOLimiter( ioLimiter, pageCache.pageSize() );
+        limiter = pacingLimiter;
+        return pacingLimiter;
+    }
+
+    private void sampleRates( long now, long appendedBytes )
+    {
+        long elapsedNanos = now - lastCheckNanos;
+        if ( elapsedNanos > 0 )
+        {
+            double appendRate = (double) (appendedBytes - logBytesAtLastCheck) * TimeUnit.SECONDS.toNanos( 1 ) / elapsedNanos;
+            appendBytesPerSecond = smooth( appendBytesPerSecond, appendRate );
+            lastCheckNanos = now;
+            logBytesAtLastCheck = appendedBytes;
+        }
+
+        PacingIOLimiter pacingLimiter = limiter;
+        if ( pacingLimiter != null )
+        {
+            long measured = pacingLimiter.takeMeasuredThroughput();
+            if ( measured > 0 )
+            {
+                flushBytesPerSecond = smooth( flushBytesPerSecond, measured );
+            }
+        }
+    }
+
+    private void pace( long bytesPerSecond )
+    {
+        PacingIOLimiter pacingLimiter = limiter;
+        if ( pacingLimiter != null )
+        {
+            pacingLimiter.pace( bytesPerSecond );
+        }
+    }
+
+    private long dirtyBytes()
+    {
+        try
+        {
+            long dirtyBytes = 0;
+            for ( PagedFile pagedFile : pageCache.listExistingMappings() )
+            {
+                dirtyBytes += pagedFile.dirtyPages() * pagedFile.pageSize();
+            }
+            return dirtyBytes;
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    private static double smooth( double average, double sample )
+    {
+        return average + RATE_SMOOTHING * (sample - average);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+import org.neo4j.annotations.service.ServiceProvider;
+import org.neo4j.configuration.Config;
+import org.neo4j.configuration.GraphDatabaseInternalSettings;
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.impl.transaction.log.pruning.LogPruning;
+import org.neo4j.kernel.impl.transaction.stats.TransactionLogCounters;
+import org.neo4j.logging.LogProvider;
+import org.neo4j.time.SystemNanoClock;
+
+import static org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointThreshold.or;
+
+/**
+ * The {@code adaptive} check point threshold policy uses the {@link GraphDatabaseSettings#check_point_recovery_time_target} to decide when
+ * check point processes should be started, and how fast they should flush, so that recovering from the last check point is expected to take
+ * no longer than that target. The {@link GraphDatabaseSettings#check_point_interval_time} still applies, so that a database with little
+ * write load is check pointed every now and then too.
+ */
+@ServiceProvider
+public class AdaptiveThresholdPolicy implements CheckPointThresholdPolicy
+{
+    @Override
+    public String getName()
+    {
+        return "adaptive";
+    }
+
+    @Override
+    public CheckPointThreshold createThreshold( Config config, SystemNanoClock clock, LogPruning logPruning, TransactionLogCounters logCounters,
+            PageCache pageCache, LogProvider logProvider )
+    {
+        long recoveryTimeTargetMillis = config.get( GraphDatabaseSettings.check_point_recovery_time_target ).toMillis();
+        long replayBytesPerSecond = config.get( GraphDatabaseInternalSettings.check_point_recovery_replay_rate );
+        AdaptiveCheckPointThreshold adaptiveThreshold =
+                new AdaptiveCheckPointThreshold( recoveryTimeTargetMillis, replayBytesPerSecond, clock, logCounters, pageCache );
+
+        long timeMillisThreshold = config.get( GraphDatabaseSettings.check_point_interval_time ).toMillis();
+        TimeCheckPointThreshold timeCheckPointThreshold = new TimeCheckPointThreshold( timeMillisThreshold, clock );
+
+        return or( adaptiveThreshold, timeCheckPointThreshold );
+    }
+}
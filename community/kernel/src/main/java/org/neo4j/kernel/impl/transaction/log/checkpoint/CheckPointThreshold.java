@@ -25,7 +25,10 @@ import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import org.neo4j.configuration.Config;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.impl.transaction.log.pruning.LogPruning;
+import org.neo4j.kernel.impl.transaction.stats.TransactionLogCounters;
 import org.neo4j.logging.LogProvider;
 import org.neo4j.time.SystemNanoClock;
 
@@ -73,11 +76,22 @@ public interface CheckPointThreshold
      */
     long checkFrequencyMillis();
 
+    /**
+     * Give this threshold a say in how fast the check points it triggers flush, by wrapping the {@link IOLimiter} they would otherwise use.
+     *
+     * @param ioLimiter the limiter configured for the database.
+     * @return the limiter that check points should use.
+     */
+    default IOLimiter checkPointIOLimiter( IOLimiter ioLimiter )
+    {
+        return ioLimiter;
+    }
+
     /**
      * Create and configure a {@link CheckPointThreshold} based on the given configurations.
      */
-    static CheckPointThreshold createThreshold(
-            Config config, SystemNanoClock clock, LogPruning logPruning, LogProvider logProvider )
+    static CheckPointThreshold createThreshold( Config config, SystemNanoClock clock, LogPruning logPruning, TransactionLogCounters logCounters,
+            PageCache pageCache, LogProvider logProvider )
     {
         String policyName = config.get( check_point_policy ).name().toLowerCase();
         CheckPointThresholdPolicy policy;
@@ -92,7 +106,7 @@ public interface CheckPointThreshold
                     "Using default policy instead.", e );
             policy = new PeriodicThresholdPolicy();
         }
-        return policy.createThreshold( config, clock, logPruning, logProvider );
+        return policy.createThreshold( config, clock, logPruning, logCounters, pageCache, logProvider );
     }
 
     /**
@@ -141,6 +155,17 @@ public interface CheckPointThreshold
                              .mapToLong( CheckPointThreshold::checkFrequencyMillis )
                              .min().orElse( DEFAULT_CHECKING_FREQUENCY_MILLIS );
             }
+
+            @Override
+            public IOLimiter checkPointIOLimiter( IOLimiter ioLimiter )
+            {
+                IOLimiter limiter = ioLimiter;
+                for ( CheckPointThreshold threshold : thresholds )
+                {
+                    limiter = threshold.checkPointIOLimiter( limiter );
+                }
+                return limiter;
+            }
         };
     }
 }
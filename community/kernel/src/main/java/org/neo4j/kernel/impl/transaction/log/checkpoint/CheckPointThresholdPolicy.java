@@ -24,7 +24,9 @@ import java.util.NoSuchElementException;
 import org.neo4j.annotations.service.Service;
 import org.neo4j.configuration.Config;
 import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.impl.transaction.log.pruning.LogPruning;
+import org.neo4j.kernel.impl.transaction.stats.TransactionLogCounters;
 import org.neo4j.logging.LogProvider;
 import org.neo4j.service.NamedService;
 import org.neo4j.service.Services;
@@ -36,7 +38,7 @@ import org.neo4j.time.SystemNanoClock;
  *
  * The is determined by the {@link GraphDatabaseSettings#check_point_policy} setting, and
  * based on this, the concrete policies are loaded and used to
- * {@link CheckPointThreshold#createThreshold(Config, SystemNanoClock, LogPruning, LogProvider) create} the final and fully
+ * {@link CheckPointThreshold#createThreshold(Config, SystemNanoClock, LogPruning, TransactionLogCounters, PageCache, LogProvider) create} the final and fully
  * configured check point thresholds.
  */
 @Service
@@ -55,5 +57,6 @@ public interface CheckPointThresholdPolicy extends NamedService
     /**
      * Create a {@link CheckPointThreshold} instance based on this policy and the given configurations.
      */
-    CheckPointThreshold createThreshold( Config config, SystemNanoClock clock, LogPruning logPruning, LogProvider logProvider );
+    CheckPointThreshold createThreshold( Config config, SystemNanoClock clock, LogPruning logPruning, TransactionLogCounters logCounters,
+            PageCache pageCache, LogProvider logProvider );
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+import java.io.Flushable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.neo4j.io.pagecache.IOLimiter;
+
+/**
+ * An {@link IOLimiter} that spreads the flushing of a check point out over the time that the {@link AdaptiveCheckPointThreshold} has given it,
+ * on top of whatever limit the wrapped limiter imposes.
+ * <p>
+ * The pace is a number of bytes per second, shared by all flushes that go through this limiter. It is kept in this limiter rather than in the
+ * stamp, which belongs to the wrapped limiter. While flushing, the limiter also measures the rate at which pages were written when it was not
+ * holding them back, which is what the threshold uses as the throughput that the storage can sustain.
+ */
+class PacingIOLimiter implements IOLimiter
+{
+    private static final long MAX_CATCH_UP_NANOS = TimeUnit.SECONDS.toNanos( 1 );
+    /**
+     * Calls further apart than this are assumed to belong to different flushes, and the time between them is not counted as time spent on IO.
+     */
+    private static final long MAX_IO_GAP_NANOS = TimeUnit.SECONDS.toNanos( 1 );
+
+    private final IOLimiter delegate;
+    private final int bytesPerIO;
+    private final AtomicInteger disabledCounter = new AtomicInteger();
+    private volatile long bytesPerSecond;
+
+    // Guarded by this
+    private long paceStamp;
+    private long lastReturnNanos;
+    private long measuredIOs;
+    private long measuredNanos;
+
+    PacingIOLimiter( IOLimiter delegate, int bytesPerIO )
+    {
+        this.delegate = delegate;
+        this.bytesPerIO = bytesPerIO;
+    }
+
+    /**
+     * @param bytesPerSecond the pace of the flushes that follow, or {@code 0} to not hold them back beyond the wrapped limiter.
+     */
+    void pace( long bytesPerSecond )
+    {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    long pace()
+    {
+        return bytesPerSecond;
+    }
+
+    /**
+     * @return the rate, in bytes per second, at which pages have been written while they were not held back, since the last call to this method,
+     * or {@code 0} if nothing has been written since then.
+     */
+    synchronized long takeMeasuredThroughput()
+    {
+        long throughput = measuredNanos > 0 ? (long) ((double) measuredIOs * bytesPerIO * TimeUnit.SECONDS.toNanos( 1 ) / measuredNanos) : 0;
+        measuredIOs = 0;
+        measuredNanos = 0;
+        return throughput;
+    }
+
+    @Override
+    public long maybeLimitIO( long previousStamp, int recentlyCompletedIOs, Flushable flushable )
+    {
+        long start = System.nanoTime();
+        long stamp = delegate.maybeLimitIO( previousStamp, recentlyCompletedIOs, flushable );
+        long now = System.nanoTime();
+        long delay = 0;
+        synchronized ( this )
+        {
+            long ioNanos = start - lastReturnNanos;
+            if ( ioNanos < MAX_IO_GAP_NANOS )
+            {
+                measuredIOs += recentlyCompletedIOs;
+                measuredNanos += ioNanos;
+            }
+            long rate = bytesPerSecond;
+            if ( rate > 0 && disabledCounter.get() == 0 )
+            {
+                double bytes = (double) recentlyCompletedIOs * bytesPerIO;
+                paceStamp = Math.max( paceStamp, now - MAX_CATCH_UP_NANOS ) + (long) (bytes * TimeUnit.SECONDS.toNanos( 1 ) / rate);
+                delay = paceStamp - now;
+            }
+            lastReturnNanos = now + Math.max( 0, delay );
+        }
+        if ( delay > 0 )
+        {
+            LockSupport.parkNanos( delay );
+        }
+        return stamp;
+    }
+
+    @Override
+    public void disableLimit()
+    {
+        disabledCounter.getAndIncrement();
+        delegate.disableLimit();
+    }
+
+    @Override
+    public void enableLimit()
+    {
+        delegate.enableLimit();
+        disabledCounter.getAndDecrement();
+    }
+
+    @Override
+    public boolean isLimited()
+    {
+        return delegate.isLimited() || (bytesPerSecond > 0 && disabledCounter.get() == 0);
+    }
+}
@@ -22,7 +22,9 @@ package org.neo4j.kernel.impl.transaction.log.checkpoint;
 import org.neo4j.annotations.service.ServiceProvider;
 import org.neo4j.configuration.Config;
 import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.impl.transaction.log.pruning.LogPruning;
+import org.neo4j.kernel.impl.transaction.stats.TransactionLogCounters;
 import org.neo4j.logging.LogProvider;
 import org.neo4j.time.SystemNanoClock;
 
@@ -42,8 +44,8 @@ public class PeriodicThresholdPolicy implements CheckPointThresholdPolicy
     }
 
     @Override
-    public CheckPointThreshold createThreshold(
-            Config config, SystemNanoClock clock, LogPruning logPruning, LogProvider logProvider )
+    public CheckPointThreshold createThreshold( Config config, SystemNanoClock clock, LogPruning logPruning, TransactionLogCounters logCounters,
+            PageCache pageCache, LogProvider logProvider )
     {
         int txThreshold = config.get( GraphDatabaseSettings.check_point_interval_tx );
         final CountCommittedTransactionThreshold countCommittedTransactionThreshold =
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+
+import org.neo4j.internal.helpers.collection.Visitor;
+import org.neo4j.io.fs.WritableChannel;
+import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.util.FeatureToggles;
+
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryTypeCodes.COMPRESSED_COMMANDS;
+
+/**
+ * Gathers the serialized commands of a transaction in memory, so that they can be written as one deflated
+ * {@link LogEntryTypeCodes#COMPRESSED_COMMANDS} entry instead of one {@link LogEntryTypeCodes#COMMAND} entry per command.
+ * Blocks that are too small to be worth compressing, or that don't shrink, are left for the caller to write uncompressed.
+ */
+class CompressedCommandBlock implements Visitor<StorageCommand,IOException>, WritableChannel
+{
+    private static final int MIN_COMPRESSED_BLOCK_SIZE = FeatureToggles.getInteger( CompressedCommandBlock.class, "minBlockSize", 256 );
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
+    private final Deflater deflater = new Deflater( Deflater.BEST_SPEED );
+    private ByteBuffer buffer = ByteBuffer.allocate( INITIAL_BUFFER_SIZE );
+    private byte[] compressed = new byte[INITIAL_BUFFER_SIZE];
+
+    void clear()
+    {
+        buffer.clear();
+    }
+
+    @Override
+    public boolean visit( StorageCommand command ) throws IOException
+    {
+        command.serialize( this );
+        return false;
+    }
+
+    /**
+     * Write the gathered commands to the given channel as a compressed block, if compressing them pays off.
+     *
+     * @return {@code true} if the block was written, otherwise {@code false} and the commands must be written uncompressed.
+     */
+    boolean writeCompressed( WritableChannel channel ) throws IOException
+    {
+        int length = buffer.position();
+        if ( length < MIN_COMPRESSED_BLOCK_SIZE )
+        {
+            return false;
+        }
+
+        int compressedLength = deflate( length );
+        if ( compressedLength < 0 )
+        {
+            return false;
+        }
+
+        LogEntryWriter.writeLogEntryHeader( COMPRESSED_COMMANDS, channel );
+        channel.putInt( length )
+               .putInt( compressedLength )
+               .put( compressed, compressedLength );
+        return true;
+    }
+
+    /**
+     * @return the length of the deflated data, or {@code -1} if it wouldn't be smaller than the input.
+     */
+    private int deflate( int length )
+    {
+        if ( compressed.length < length )
+        {
+            compressed = new byte[buffer.capacity()];
+        }
+        deflater.reset();
+        deflater.setInput( buffer.array(), 0, length );
+        deflater.finish();
+        int compressedLength = 0;
+        while ( !deflater.finished() && compressedLength < length )
+        {
+            compressedLength += deflater.deflate( compressed, compressedLength, length - compressedLength );
+        }
+        return deflater.finished() && compressedLength < length ? compressedLength : -1;
+    }
+
+    private void ensureCapacity( int bytes )
+    {
+        if ( buffer.remaining() < bytes )
+        {
+            ByteBuffer grown = ByteBuffer.allocate( Math.max( buffer.capacity() * 2, buffer.position() + bytes ) );
+            buffer.flip();
+            grown.put( buffer );
+            buffer = grown;
+        }
+    }
+
+    @Override
+    public WritableChannel put( byte value )
+    {
+        ensureCapacity( Byte.BYTES );
+        buffer.put( value );
+        return this;
+    }
+
+    @Override
+    public WritableChannel putShort( short value )
+    {
+        ensureCapacity( Short.BYTES );
+        buffer.putShort( value );
+        return this;
+    }
+
+    @Override
+    public WritableChannel putInt( int value )
+    {
+        ensureCapacity( Integer.BYTES );
+        buffer.putInt( value );
+        return this;
+    }
+
+    @Override
+    public WritableChannel putLong( long value )
+    {
+        ensureCapacity( Long.BYTES );
+        buffer.putLong( value );
+        return this;
+    }
+
+    @Override
+    public WritableChannel putFloat( float value )
+    {
+        ensureCapacity( Float.BYTES );
+        buffer.putFloat( value );
+        return this;
+    }
+
+    @Override
+    public WritableChannel putDouble( double value )
+    {
+        ensureCapacity( Double.BYTES );
+        buffer.putDouble( value );
+        return this;
+    }
+
+    @Override
+    public WritableChannel put( byte[] value, int length )
+    {
+        ensureCapacity( length );
+        buffer.put( value, 0, length );
+        return this;
+    }
+}
@@ -39,15 +39,27 @@ public class LogEntryWriter
 {
     protected final WritableChecksumChannel channel;
     private final Visitor<StorageCommand,IOException> serializer;
+    private final CompressedCommandBlock compressedCommands;
 
     /**
      * Create a writer that uses {@link LogEntryVersion#LATEST} for versioning.
      * @param channel underlying channel
      */
     public LogEntryWriter( WritableChecksumChannel channel )
+    {
+        this( channel, false );
+    }
+
+    /**
+     * Create a writer that uses {@link LogEntryVersion#LATEST} for versioning.
+     * @param channel underlying channel
+     * @param compressCommands whether to write the commands of each transaction as one compressed block, when that makes them smaller
+     */
+    public LogEntryWriter( WritableChecksumChannel channel, boolean compressCommands )
     {
         this.channel = channel;
         this.serializer = new StorageCommandSerializer( channel );
+        this.compressedCommands = compressCommands ? new CompressedCommandBlock() : null;
     }
 
     protected static void writeLogEntryHeader( byte type, WritableChannel channel ) throws IOException
@@ -88,6 +100,15 @@ public class LogEntryWriter
 
     public void serialize( TransactionRepresentation tx ) throws IOException
     {
+        if ( compressedCommands != null )
+        {
+            compressedCommands.clear();
+            tx.accept( compressedCommands );
+            if ( compressedCommands.writeCompressed( channel ) )
+            {
+                return;
+            }
+        }
         tx.accept( serializer );
     }
 
@@ -100,6 +121,18 @@ public class LogEntryWriter
 
     public void serialize( Collection<StorageCommand> commands ) throws IOException
     {
+        if ( compressedCommands != null )
+        {
+            compressedCommands.clear();
+            for ( StorageCommand command : commands )
+            {
+                compressedCommands.visit( command );
+            }
+            if ( compressedCommands.writeCompressed( channel ) )
+            {
+                return;
+            }
+        }
         for ( StorageCommand command : commands )
         {
             serializer.visit( command );
@@ -27,8 +27,10 @@ import org.neo4j.io.fs.ReadableChannel;
 import org.neo4j.kernel.impl.transaction.log.FlushablePositionAwareChecksumChannel;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.LogVersionBridge;
+import org.neo4j.kernel.impl.transaction.log.LogVersionedStoreChannel;
 import org.neo4j.kernel.impl.transaction.log.ReadableClosablePositionAwareChecksumChannel;
 import org.neo4j.kernel.impl.transaction.log.ReadableLogChannel;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 
 /**
  * Sees a log file as bytes, including taking care of rotation of the file into optimal chunks.
@@ -67,8 +69,40 @@ public interface LogFile
      */
     ReadableLogChannel getReader( LogPosition position, LogVersionBridge logVersionBridge ) throws IOException;
 
+    /**
+     * Opens a {@link ReadableLogChannel reader} of an already opened log version {@code channel}, capable of reading log entries
+     * from the current position of that channel, without continuing into later log versions. Closing the reader closes the channel.
+     *
+     * @param channel {@link LogVersionedStoreChannel} to read.
+     * @return {@link ReadableChannel} capable of reading log data from the given channel.
+     * @throws IOException on I/O error.
+     */
+    ReadableLogChannel getReader( LogVersionedStoreChannel channel ) throws IOException;
+
     void accept( LogFileVisitor visitor, LogPosition startingFromPosition ) throws IOException;
 
+    /**
+     * Registers that the transaction with the given id has been appended to this log, starting at the given position.
+     * Must be called in the order that transactions are appended.
+     *
+     * @param transactionId id of the appended transaction.
+     * @param startPosition {@link LogPosition} of the start entry of the appended transaction.
+     */
+    void transactionAppended( long transactionId, LogPosition startPosition );
+
+    /**
+     * Finds the position to start reading from when looking for the transaction with the given id, using the sparse offset index
+     * of the log version it's in. The index of a log version which is missing one gets rebuilt, by reading that log version with the
+     * given {@link LogEntryReader}.
+     *
+     * @param transactionId id of the transaction to look for.
+     * @param logStart {@link LogPosition} of the first entry in the log version which the transaction is in.
+     * @param logEntryReader {@link LogEntryReader} to read the log version with, if its index needs to be rebuilt.
+     * @return {@link LogPosition} at or before the start of the transaction, {@code logStart} if there's no better position known.
+     * @throws IOException on I/O error.
+     */
+    LogPosition findTransactionScanStart( long transactionId, LogPosition logStart, LogEntryReader logEntryReader ) throws IOException;
+
     /**
      * @return {@code true} if a rotation is needed.
      */
@@ -28,6 +28,7 @@ import java.util.function.Supplier;
 
 import org.neo4j.common.DependencyResolver;
 import org.neo4j.configuration.Config;
+import org.neo4j.configuration.GraphDatabaseInternalSettings;
 import org.neo4j.internal.nativeimpl.NativeAccess;
 import org.neo4j.internal.nativeimpl.NativeAccessProvider;
 import org.neo4j.io.fs.FileSystemAbstraction;
@@ -41,6 +42,7 @@ import org.neo4j.logging.LogProvider;
 import org.neo4j.logging.NullLogProvider;
 import org.neo4j.memory.EmptyMemoryTracker;
 import org.neo4j.memory.MemoryTracker;
+import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.storageengine.api.CommandReaderFactory;
 import org.neo4j.storageengine.api.LogVersionRepository;
 import org.neo4j.storageengine.api.StorageEngineFactory;
@@ -90,6 +92,7 @@ public class LogFilesBuilder
     private MemoryTracker memoryTracker = EmptyMemoryTracker.INSTANCE;
     private StoreId storeId;
     private NativeAccess nativeAccess;
+    private JobScheduler jobScheduler;
 
     private LogFilesBuilder()
     {
@@ -203,6 +206,12 @@ public class LogFilesBuilder
         return this;
     }
 
+    public LogFilesBuilder withJobScheduler( JobScheduler jobScheduler )
+    {
+        this.jobScheduler = jobScheduler;
+        return this;
+    }
+
     public LogFilesBuilder withDatabaseTracers( DatabaseTracers databaseTracers )
     {
         this.databaseTracers = databaseTracers;
@@ -279,9 +288,13 @@ public class LogFilesBuilder
         AtomicBoolean tryPreallocateTransactionLogs = getTryToPreallocateTransactionLogs();
         var nativeAccess = getNativeAccess();
 
-        return new TransactionLogFilesContext( rotationThreshold, tryPreallocateTransactionLogs, logEntryReader, lastCommittedIdSupplier,
+        boolean memoryMappedReads = config.get( GraphDatabaseInternalSettings.tx_log_memory_mapped_reads );
+        JobScheduler allocationScheduler = !readOnly && config.get( GraphDatabaseInternalSettings.tx_log_allocate_ahead ) ? jobScheduler : null;
+
+        return new TransactionLogFilesContext( rotationThreshold, tryPreallocateTransactionLogs, memoryMappedReads, logEntryReader, lastCommittedIdSupplier,
                 committingTransactionIdSupplier, lastClosedTransactionPositionSupplier, logVersionRepositorySupplier, fileSystem,
-                logProvider, databaseTracers, storeIdSupplier, nativeAccess, memoryTracker );
+                logProvider, databaseTracers, storeIdSupplier, nativeAccess, memoryTracker, allocationScheduler,
+                readOnly ? null : jobScheduler, readOnly );
     }
 
     private NativeAccess getNativeAccess()
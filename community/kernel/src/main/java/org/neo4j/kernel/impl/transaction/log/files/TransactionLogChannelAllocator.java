@@ -22,6 +22,8 @@ package org.neo4j.kernel.impl.transaction.log.files;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.LongSupplier;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
@@ -33,6 +35,10 @@ import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
 import org.neo4j.kernel.impl.transaction.log.entry.LogHeaderWriter;
 import org.neo4j.kernel.impl.transaction.tracing.DatabaseTracer;
 import org.neo4j.kernel.impl.transaction.tracing.LogFileCreateEvent;
+import org.neo4j.logging.Log;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobHandle;
+import org.neo4j.scheduler.JobScheduler;
 
 import static java.lang.String.format;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderReader.readLogHeader;
@@ -41,12 +47,18 @@ import static org.neo4j.kernel.impl.transaction.log.entry.LogVersions.CURRENT_LO
 
 class TransactionLogChannelAllocator
 {
+    private static final String ALLOCATED_FILE_NAME_SUFFIX = "_allocated";
+
     private final TransactionLogFilesContext logFilesContext;
     private final FileSystemAbstraction fileSystem;
     private final TransactionLogFilesHelper fileHelper;
     private final LogHeaderCache logHeaderCache;
     private final LogFileChannelNativeAccessor nativeChannelAccessor;
     private final DatabaseTracer databaseTracer;
+    private final JobScheduler allocationScheduler;
+    private final boolean readOnly;
+    private final Log log;
+    private final AtomicReference<AllocatedAhead> allocatedAhead = new AtomicReference<>();
 
     TransactionLogChannelAllocator( TransactionLogFilesContext logFilesContext, TransactionLogFilesHelper fileHelper, LogHeaderCache logHeaderCache,
             LogFileChannelNativeAccessor nativeChannelAccessor )
@@ -57,6 +69,9 @@ class TransactionLogChannelAllocator
         this.fileHelper = fileHelper;
         this.logHeaderCache = logHeaderCache;
         this.nativeChannelAccessor = nativeChannelAccessor;
+        this.allocationScheduler = logFilesContext.getAllocationScheduler();
+        this.readOnly = logFilesContext.isReadOnly();
+        this.log = logFilesContext.getLogProvider().getLog( getClass() );
     }
 
     PhysicalLogVersionedStoreChannel createLogChannel( long version, LongSupplier lastCommittedTransactionId ) throws IOException
@@ -136,10 +151,175 @@ class TransactionLogChannelAllocator
         }
     }
 
+    /**
+     * Starts allocating the file of the given log version in the background, if allocating ahead is enabled. This is the file which
+     * {@link #createLogChannel(long, LongSupplier)} will then use for that version, instead of creating and preallocating one itself.
+     * The file is allocated under a name which isn't recognized as a log file, so that it's never mistaken for a log version which
+     * has been rotated to. It's moved into place when its version is created.
+     *
+     * @param version the log version which is expected to be created next.
+     */
+    void allocateAhead( long version )
+    {
+        if ( allocationScheduler == null )
+        {
+            return;
+        }
+        File file = allocatedFileFor( version );
+        JobHandle<?> job = allocationScheduler.schedule( Group.FILE_IO_HELPER, () -> allocate( file, version ) );
+        AllocatedAhead previous = allocatedAhead.getAndSet( new AllocatedAhead( version, file, job ) );
+        if ( previous != null && previous.version != version )
+        {
+            discard( previous );
+        }
+    }
+
+    /**
+     * Deletes files allocated ahead in an earlier run which can't be used anymore, i.e. all but the one for the given version.
+     * They are outside of the log file pattern, so neither log pruning nor anything else would ever get rid of them.
+     * A file for the given version is left for {@link #allocateAhead(long)} to use as is.
+     *
+     * @param nextVersion the log version which is expected to be created next.
+     */
+    void deleteStaleAllocations( long nextVersion )
+    {
+        if ( readOnly )
+        {
+            return;
+        }
+        File nextFile = allocatedFileFor( nextVersion );
+        String prefix = allocatedFilePrefix( nextFile.getName() );
+        File[] files = fileSystem.listFiles( nextFile.getParentFile(), ( dir, name ) -> isAllocatedFileName( name, prefix ) );
+        if ( files == null )
+        {
+            return;
+        }
+        for ( File file : files )
+        {
+            if ( !file.getName().equals( nextFile.getName() ) )
+            {
+                fileSystem.deleteFile( file );
+            }
+        }
+    }
+
+    /**
+     * Waits for any file being allocated ahead and leaves it for the next start, which is likely to be able to use it.
+     */
+    void close()
+    {
+        AllocatedAhead allocated = allocatedAhead.getAndSet( null );
+        if ( allocated != null )
+        {
+            awaitAllocated( allocated );
+        }
+    }
+
+    private Void allocate( File file, long version ) throws IOException
+    {
+        // Only ever created and preallocated, never written to. A file left over from before a restart can therefore be used as is
+        try ( StoreChannel channel = fileSystem.write( file ) )
+        {
+            if ( channel.size() == 0 && logFilesContext.getTryPreallocateTransactionLogs().get() )
+            {
+                nativeChannelAccessor.preallocateSpace( channel, version );
+            }
+        }
+        return null;
+    }
+
+    private boolean takeAllocatedAhead( long version, File logFile ) throws IOException
+    {
+        AllocatedAhead allocated = allocatedAhead.getAndSet( null );
+        if ( allocated == null )
+        {
+            return false;
+        }
+        if ( allocated.version != version || !awaitAllocated( allocated ) )
+        {
+            discard( allocated );
+            return false;
+        }
+        fileSystem.renameFile( allocated.file, logFile );
+        return true;
+    }
+
+    /**
+     * Takes a file allocated for the given version in an earlier run, e.g. one which crashed while rotating to that version.
+     */
+    private boolean takeLeftOverAllocation( long version, File logFile ) throws IOException
+    {
+        File file = allocatedFileFor( version );
+        if ( readOnly || !fileSystem.fileExists( file ) )
+        {
+            return false;
+        }
+        fileSystem.renameFile( file, logFile );
+        return true;
+    }
+
+    private boolean awaitAllocated( AllocatedAhead allocated )
+    {
+        try
+        {
+            allocated.job.waitTermination();
+            return true;
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        catch ( ExecutionException e )
+        {
+            log.warn( "Unable to allocate file of transaction log version " + allocated.version + " ahead of rotation", e );
+            return false;
+        }
+    }
+
+    private void discard( AllocatedAhead allocated )
+    {
+        awaitAllocated( allocated );
+        fileSystem.deleteFile( allocated.file );
+    }
+
+    private File allocatedFileFor( long version )
+    {
+        File logFile = fileHelper.getLogFileForVersion( version );
+        String name = logFile.getName();
+        int versionSeparator = name.lastIndexOf( '.' );
+        return new File( logFile.getParentFile(), name.substring( 0, versionSeparator ) + ALLOCATED_FILE_NAME_SUFFIX + name.substring( versionSeparator ) );
+    }
+
+    private static String allocatedFilePrefix( String allocatedFileName )
+    {
+        return allocatedFileName.substring( 0, allocatedFileName.lastIndexOf( '.' ) + 1 );
+    }
+
+    private static boolean isAllocatedFileName( String name, String prefix )
+    {
+        if ( !name.startsWith( prefix ) || name.length() == prefix.length() )
+        {
+            return false;
+        }
+        for ( int i = prefix.length(); i < name.length(); i++ )
+        {
+            if ( !Character.isDigit( name.charAt( i ) ) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private AllocatedFile allocateFile( long version ) throws IOException
     {
         File file = fileHelper.getLogFileForVersion( version );
         boolean fileExist = fileSystem.fileExists( file );
+        if ( !fileExist && (takeAllocatedAhead( version, file ) || takeLeftOverAllocation( version, file )) )
+        {
+            return new AllocatedFile( file, fileSystem.write( file ) );
+        }
         StoreChannel storeChannel = fileSystem.write( file );
         if ( fileExist )
         {
@@ -152,6 +332,20 @@ class TransactionLogChannelAllocator
         return new AllocatedFile( file, storeChannel );
     }
 
+    private static class AllocatedAhead
+    {
+        private final long version;
+        private final File file;
+        private final JobHandle<?> job;
+
+        AllocatedAhead( long version, File file, JobHandle<?> job )
+        {
+            this.version = version;
+            this.file = file;
+            this.job = job;
+        }
+    }
+
     private static class AllocatedFile
     {
         private final File file;
@@ -35,6 +35,7 @@ import org.neo4j.kernel.impl.transaction.log.FlushablePositionAwareChecksumChann
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.LogVersionBridge;
 import org.neo4j.kernel.impl.transaction.log.LogVersionedStoreChannel;
+import org.neo4j.kernel.impl.transaction.log.MappedLogChannel;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogVersionedStoreChannel;
 import org.neo4j.kernel.impl.transaction.log.PositionAwarePhysicalFlushableChecksumChannel;
 import org.neo4j.kernel.impl.transaction.log.ReadAheadLogChannel;
@@ -48,6 +49,7 @@ import org.neo4j.storageengine.api.LogVersionRepository;
 
 import static java.lang.Math.min;
 import static java.lang.Runtime.getRuntime;
+import static org.neo4j.kernel.impl.transaction.log.LogVersionBridge.NO_MORE_CHANNELS;
 
 /**
  * {@link LogFile} backed by one or more files in a {@link FileSystemAbstraction}.
@@ -61,12 +63,14 @@ class TransactionLogFile extends LifecycleAdapter implements LogFile
     private final LogVersionBridge readerLogVersionBridge;
     private final PageCacheTracer pageCacheTracer;
     private final MemoryTracker memoryTracker;
+    private final TransactionLogOffsetIndex offsetIndex;
+    private final TransactionLogChannelAllocator channelAllocator;
 
     private volatile PhysicalLogVersionedStoreChannel channel;
     private PositionAwarePhysicalFlushableChecksumChannel writer;
     private LogVersionRepository logVersionRepository;
 
-    TransactionLogFile( LogFiles logFiles, TransactionLogFilesContext context )
+    TransactionLogFile( LogFiles logFiles, TransactionLogFilesContext context, TransactionLogChannelAllocator channelAllocator )
     {
         this.rotateAtSize = context.getRotationThreshold();
         this.context = context;
@@ -74,6 +78,9 @@ class TransactionLogFile extends LifecycleAdapter implements LogFile
         this.readerLogVersionBridge = new ReaderLogVersionBridge( logFiles );
         this.pageCacheTracer = context.getDatabaseTracers().getPageCacheTracer();
         memoryTracker = context.getMemoryTracker();
+        this.offsetIndex = new TransactionLogOffsetIndex( context.getFileSystem(), logFiles, this, context.getJobScheduler(),
+                context.getLogProvider().getLog( TransactionLogOffsetIndex.class ) );
+        this.channelAllocator = channelAllocator;
     }
 
     @Override
@@ -90,6 +97,10 @@ class TransactionLogFile extends LifecycleAdapter implements LogFile
 
         //try to set position
         seekChannelPosition( currentLogVersion );
+        long headerSize = logFiles.extractHeader( currentLogVersion ).getStartPosition().getByteOffset();
+        offsetIndex.startVersion( currentLogVersion, channel.position() == headerSize );
+        channelAllocator.deleteStaleAllocations( currentLogVersion + 1 );
+        channelAllocator.allocateAhead( currentLogVersion + 1 );
 
         writer = new PositionAwarePhysicalFlushableChecksumChannel( channel, new NativeScopedBuffer( calculateLogBufferSize(), memoryTracker ) );
     }
@@ -165,6 +176,8 @@ class TransactionLogFile extends LifecycleAdapter implements LogFile
     @Override
     public void shutdown() throws IOException
     {
+        channelAllocator.close();
+        offsetIndex.writeClosedVersions();
         IOUtils.closeAll( writer );
     }
 
@@ -183,8 +196,12 @@ class TransactionLogFile extends LifecycleAdapter implements LogFile
     {
         try ( var cursorTracer = pageCacheTracer.createPageCursorTracer( TRANSACTION_LOG_FILE_ROTATION_TAG ) )
         {
+            long closedVersion = channel.getVersion();
             channel = rotate( channel, cursorTracer );
             writer.setChannel( channel );
+            offsetIndex.versionClosed( closedVersion );
+            offsetIndex.startVersion( channel.getVersion(), true );
+            channelAllocator.allocateAhead( channel.getVersion() + 1 );
             return channel.getFile();
         }
     }
@@ -199,7 +216,8 @@ class TransactionLogFile extends LifecycleAdapter implements LogFile
      * <ol>
      * <li>1: Increment log version, {@link LogVersionRepository#incrementAndGetVersion(PageCursorTracer)} (also flushes the store)</li>
      * <li>2: Flush current log</li>
-     * <li>3: Create new log file</li>
+     * <li>3: Create new log file, or move the file allocated ahead for it into place, see
+     * {@link TransactionLogChannelAllocator#allocateAhead(long)}</li>
      * <li>4: Write header</li>
      * </ol>
      *
@@ -279,9 +297,32 @@ class TransactionLogFile extends LifecycleAdapter implements LogFile
     {
         PhysicalLogVersionedStoreChannel logChannel = logFiles.openForVersion( position.getLogVersion() );
         logChannel.position( position.getByteOffset() );
+        if ( context.isMemoryMappedReads() )
+        {
+            return new MappedLogChannel( logChannel, logVersionBridge, this::isClosedVersion, memoryTracker );
+        }
         return new ReadAheadLogChannel( logChannel, logVersionBridge, memoryTracker );
     }
 
+    @Override
+    public ReadableLogChannel getReader( LogVersionedStoreChannel logChannel ) throws IOException
+    {
+        if ( context.isMemoryMappedReads() )
+        {
+            return new MappedLogChannel( logChannel, NO_MORE_CHANNELS, this::isClosedVersion, memoryTracker );
+        }
+        return new ReadAheadLogChannel( logChannel, memoryTracker );
+    }
+
+    /**
+     * A log version is closed when it's older than the version currently being written to, and will therefore neither grow nor be truncated.
+     */
+    private boolean isClosedVersion( long version )
+    {
+        PhysicalLogVersionedStoreChannel currentChannel = channel;
+        return currentChannel != null ? version < currentChannel.getVersion() : version < logFiles.getHighestLogVersion();
+    }
+
     @Override
     public void accept( LogFileVisitor visitor, LogPosition startingFromPosition ) throws IOException
     {
@@ -291,6 +332,18 @@ class TransactionLogFile extends LifecycleAdapter implements LogFile
         }
     }
 
+    @Override
+    public void transactionAppended( long transactionId, LogPosition startPosition )
+    {
+        offsetIndex.transactionAppended( transactionId, startPosition );
+    }
+
+    @Override
+    public LogPosition findTransactionScanStart( long transactionId, LogPosition logStart, LogEntryReader logEntryReader ) throws IOException
+    {
+        return offsetIndex.scanStart( transactionId, logStart, isClosedVersion( logStart.getLogVersion() ), logEntryReader );
+    }
+
     /**
      * Calculate size of byte buffer for transaction log file based on number of available cpu's.
      * Minimal buffer size is 512KB. Every another 4 cpu's will add another 512KB into the buffer size.
@@ -63,8 +63,8 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
         this.logHeaderCache = new LogHeaderCache( 1000 );
         this.logFileInformation = new TransactionLogFileInformation( this, logHeaderCache, context );
         this.nativeChannelAccessor = new LogFileChannelNativeAccessor( fileSystem, context );
-        this.logFile = new TransactionLogFile( this, context );
         this.channelAllocator = new TransactionLogChannelAllocator( logFilesContext, fileHelper, logHeaderCache, nativeChannelAccessor );
+        this.logFile = new TransactionLogFile( this, context, channelAllocator );
     }
 
     @Override
@@ -31,6 +31,7 @@ import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.logging.LogProvider;
 import org.neo4j.memory.MemoryTracker;
+import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.storageengine.api.LogVersionRepository;
 import org.neo4j.storageengine.api.StoreId;
 
@@ -38,6 +39,7 @@ class TransactionLogFilesContext
 {
     private final AtomicLong rotationThreshold;
     private final AtomicBoolean tryPreallocateTransactionLogs;
+    private final boolean memoryMappedReads;
     private final LogEntryReader logEntryReader;
     private final LongSupplier lastCommittedTransactionIdSupplier;
     private final LongSupplier committingTransactionIdSupplier;
@@ -49,14 +51,20 @@ class TransactionLogFilesContext
     private final Supplier<StoreId> storeId;
     private final NativeAccess nativeAccess;
     private final MemoryTracker memoryTracker;
+    private final JobScheduler allocationScheduler;
+    private final JobScheduler jobScheduler;
+    private final boolean readOnly;
 
-    TransactionLogFilesContext( AtomicLong rotationThreshold, AtomicBoolean tryPreallocateTransactionLogs, LogEntryReader logEntryReader,
+    TransactionLogFilesContext( AtomicLong rotationThreshold, AtomicBoolean tryPreallocateTransactionLogs, boolean memoryMappedReads,
+            LogEntryReader logEntryReader,
             LongSupplier lastCommittedTransactionIdSupplier, LongSupplier committingTransactionIdSupplier, Supplier<LogPosition> lastClosedPositionSupplier,
             Supplier<LogVersionRepository> logVersionRepositorySupplier, FileSystemAbstraction fileSystem,
-            LogProvider logProvider, DatabaseTracers databaseTracers, Supplier<StoreId> storeId, NativeAccess nativeAccess, MemoryTracker memoryTracker )
+            LogProvider logProvider, DatabaseTracers databaseTracers, Supplier<StoreId> storeId, NativeAccess nativeAccess, MemoryTracker memoryTracker,
+            JobScheduler allocationScheduler, JobScheduler jobScheduler, boolean readOnly )
     {
         this.rotationThreshold = rotationThreshold;
         this.tryPreallocateTransactionLogs = tryPreallocateTransactionLogs;
+        this.memoryMappedReads = memoryMappedReads;
         this.logEntryReader = logEntryReader;
         this.lastCommittedTransactionIdSupplier = lastCommittedTransactionIdSupplier;
         this.committingTransactionIdSupplier = committingTransactionIdSupplier;
@@ -68,6 +76,9 @@ class TransactionLogFilesContext
         this.storeId = storeId;
         this.nativeAccess = nativeAccess;
         this.memoryTracker = memoryTracker;
+        this.allocationScheduler = allocationScheduler;
+        this.jobScheduler = jobScheduler;
+        this.readOnly = readOnly;
     }
 
     AtomicLong getRotationThreshold()
@@ -115,6 +126,11 @@ class TransactionLogFilesContext
         return tryPreallocateTransactionLogs;
     }
 
+    boolean isMemoryMappedReads()
+    {
+        return memoryMappedReads;
+    }
+
     NativeAccess getNativeAccess()
     {
         return nativeAccess;
@@ -134,4 +150,28 @@ class TransactionLogFilesContext
     {
         return memoryTracker;
     }
+
+    /**
+     * @return scheduler to allocate next log files ahead of rotation with, or {@code null} if they should be allocated when rotating.
+     */
+    JobScheduler getAllocationScheduler()
+    {
+        return allocationScheduler;
+    }
+
+    /**
+     * @return scheduler for other background work on the log files, or {@code null} if there is none and such work has to wait for shutdown.
+     */
+    JobScheduler getJobScheduler()
+    {
+        return jobScheduler;
+    }
+
+    /**
+     * @return {@code true} if the log files are only opened for reading, e.g. by a tool, and files other than the log files must be left alone.
+     */
+    boolean isReadOnly()
+    {
+        return readOnly;
+    }
 }
@@ -0,0 +1,386 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.files;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.Checksum;
+
+import org.neo4j.internal.helpers.collection.LruCache;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.ReadableLogChannel;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntry;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart;
+import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
+import org.neo4j.logging.Log;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.util.FeatureToggles;
+
+import static org.neo4j.io.ByteUnit.kibiBytes;
+import static org.neo4j.io.fs.ChecksumWriter.CHECKSUM_FACTORY;
+import static org.neo4j.kernel.impl.transaction.log.LogVersionBridge.NO_MORE_CHANNELS;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryTypeCodes.TX_COMMIT;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryTypeCodes.TX_START;
+
+/**
+ * Sparse index of where transactions start in the transaction log, kept as one sidecar file per log version next to the log file itself.
+ * An entry, i.e. a transaction id and the byte offset of its start entry, is recorded whenever at least {@link #SPACING} bytes have been
+ * written since the previously recorded one. Finding a transaction in a log version is then a binary search in its index, followed by
+ * reading at most about {@link #SPACING} bytes of log, instead of reading the log version from its start.
+ * <p>
+ * Entries of the log version currently being appended to are only kept in memory. The index file of a log version is written in the
+ * background once that version has been rotated away from, or on shutdown if there's no scheduler to do so, never by rotation itself
+ * since that holds up committing transactions. An index file which is missing, e.g. because the log version was appended to before a restart, or which
+ * doesn't match the log file it's for, is rebuilt by reading the log version the first time it's needed. The index is only ever a hint:
+ * lookups fall back to the start of the log version whenever it has nothing better to offer.
+ */
+public class TransactionLogOffsetIndex
+{
+    private static final long SPACING = FeatureToggles.getLong( TransactionLogOffsetIndex.class, "spacing", kibiBytes( 64 ) );
+    private static final String INDEX_FILE_NAME_SUFFIX = "_offsets";
+    private static final long FORMAT = 0x4F46_4653_0001L;
+    // format, log version, last committed tx id from log header, log file size, entry count and checksum of the entries
+    private static final int HEADER_SIZE = 4 * Long.BYTES + 2 * Integer.BYTES;
+    private static final int ENTRY_SIZE = 2 * Long.BYTES;
+
+    private final FileSystemAbstraction fileSystem;
+    private final LogFiles logFiles;
+    private final LogFile logFile;
+    private final JobScheduler jobScheduler;
+    private final Log log;
+    private final LruCache<Long,Offsets> closedVersions = new LruCache<>( "Transaction log offset index cache", 64 );
+    private final Queue<Offsets> unwrittenVersions = new ConcurrentLinkedQueue<>();
+    private final Object indexFileLock = new Object();
+    private volatile Offsets activeVersion;
+
+    TransactionLogOffsetIndex( FileSystemAbstraction fileSystem, LogFiles logFiles, LogFile logFile, JobScheduler jobScheduler, Log log )
+    {
+        this.fileSystem = fileSystem;
+        this.logFiles = logFiles;
+        this.logFile = logFile;
+        this.jobScheduler = jobScheduler;
+        this.log = log;
+    }
+
+    /**
+     * @param logFile a transaction log file.
+     * @return the file holding the offset index of the given transaction log file.
+     */
+    public static File indexFileFor( File logFile )
+    {
+        String name = logFile.getName();
+        int versionSeparator = name.lastIndexOf( '.' );
+        if ( versionSeparator == -1 )
+        {
+            return new File( logFile.getParentFile(), name + INDEX_FILE_NAME_SUFFIX );
+        }
+        return new File( logFile.getParentFile(), name.substring( 0, versionSeparator ) + INDEX_FILE_NAME_SUFFIX + name.substring( versionSeparator ) );
+    }
+
+    /**
+     * Starts recording entries for the given log version, which is about to be appended to.
+     *
+     * @param version the log version.
+     * @param fromStart whether or not all transactions in this log version will be appended after this call, i.e. the index will be complete.
+     */
+    void startVersion( long version, boolean fromStart )
+    {
+        activeVersion = new Offsets( version, fromStart );
+    }
+
+    /**
+     * Records the start of a transaction appended to the active log version. Must be called in the order transactions are appended.
+     */
+    void transactionAppended( long transactionId, LogPosition startPosition )
+    {
+        Offsets offsets = activeVersion;
+        if ( offsets != null && offsets.version == startPosition.getLogVersion() )
+        {
+            offsets.addIfSpaced( transactionId, startPosition.getByteOffset() );
+        }
+    }
+
+    /**
+     * Schedules writing the index file of the given log version, which won't be appended to anymore, if all its transactions have been recorded.
+     * Until written the index is served from memory.
+     */
+    void versionClosed( long version )
+    {
+        Offsets offsets = activeVersion;
+        if ( offsets == null || offsets.version != version || !offsets.complete )
+        {
+            return;
+        }
+        closedVersions.put( version, offsets );
+        unwrittenVersions.add( offsets );
+        if ( jobScheduler != null )
+        {
+            jobScheduler.schedule( Group.FILE_IO_HELPER, this::writeClosedVersions );
+        }
+    }
+
+    /**
+     * Writes the index files of the closed log versions which haven't been written yet.
+     * Failing to do so is not a problem for the log itself, an index file will then be rebuilt when needed.
+     */
+    void writeClosedVersions()
+    {
+        synchronized ( indexFileLock )
+        {
+            Offsets offsets;
+            while ( (offsets = unwrittenVersions.poll()) != null )
+            {
+                try
+                {
+                    write( offsets );
+                }
+                catch ( IOException e )
+                {
+                    log.warn( "Unable to write offset index of transaction log version " + offsets.version + ", it will be rebuilt when needed", e );
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the position to start reading from when looking for the transaction with the given id in the log version starting at {@code logStart}.
+     *
+     * @param transactionId id of the transaction to look for.
+     * @param logStart position of the first entry in the log version which the transaction is in.
+     * @param isClosed whether or not the log version is closed, i.e. won't be appended to anymore.
+     * @param logEntryReader reader to use if the index of the log version needs to be rebuilt.
+     * @return a position at or before the start of the transaction, which is {@code logStart} if nothing better is known.
+     * @throws IOException on I/O error reading the index or the log.
+     */
+    LogPosition scanStart( long transactionId, LogPosition logStart, boolean isClosed, LogEntryReader logEntryReader ) throws IOException
+    {
+        long version = logStart.getLogVersion();
+        Offsets offsets = activeVersion;
+        if ( offsets == null || offsets.version != version )
+        {
+            if ( !isClosed )
+            {
+                return logStart;
+            }
+            offsets = closedVersion( version, logStart, logEntryReader );
+        }
+        long offset = offsets.floorOffset( transactionId );
+        return offset > logStart.getByteOffset() ? new LogPosition( version, offset ) : logStart;
+    }
+
+    private Offsets closedVersion( long version, LogPosition logStart, LogEntryReader logEntryReader ) throws IOException
+    {
+        Offsets offsets = closedVersions.get( version );
+        if ( offsets != null )
+        {
+            return offsets;
+        }
+        synchronized ( indexFileLock )
+        {
+            offsets = closedVersions.get( version );
+            if ( offsets == null )
+            {
+                offsets = read( version );
+                if ( offsets == null )
+                {
+                    offsets = rebuild( logStart, logEntryReader );
+                    if ( offsets.complete )
+                    {
+                        write( offsets );
+                    }
+                }
+                closedVersions.put( version, offsets );
+            }
+            return offsets;
+        }
+    }
+
+    private Offsets rebuild( LogPosition logStart, LogEntryReader logEntryReader ) throws IOException
+    {
+        Offsets offsets = new Offsets( logStart.getLogVersion(), true );
+        try ( ReadableLogChannel channel = logFile.getReader( logStart, NO_MORE_CHANNELS ) )
+        {
+            LogEntry entry;
+            long startOffset = -1;
+            while ( (entry = logEntryReader.readLogEntry( channel )) != null )
+            {
+                if ( entry.getType() == TX_START )
+                {
+                    startOffset = ((LogEntryStart) entry).getStartPosition().getByteOffset();
+                }
+                else if ( entry.getType() == TX_COMMIT && startOffset != -1 )
+                {
+                    offsets.addIfSpaced( ((LogEntryCommit) entry).getTxId(), startOffset );
+                    startOffset = -1;
+                }
+            }
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            // A closed log version that can't be read to its end gets an empty index, its transactions will be looked up from the start
+            log.warn( "Unable to rebuild offset index of transaction log version " + logStart.getLogVersion(), e );
+            return new Offsets( logStart.getLogVersion(), false );
+        }
+        return offsets;
+    }
+
+    private Offsets read( long version ) throws IOException
+    {
+        File logFile = logFiles.getLogFileForVersion( version );
+        File indexFile = indexFileFor( logFile );
+        if ( !fileSystem.fileExists( indexFile ) )
+        {
+            return null;
+        }
+        long indexFileSize = fileSystem.getFileSize( indexFile );
+        if ( indexFileSize < HEADER_SIZE || (indexFileSize - HEADER_SIZE) % ENTRY_SIZE != 0 )
+        {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate( Math.toIntExact( indexFileSize ) );
+        try ( StoreChannel channel = fileSystem.read( indexFile ) )
+        {
+            channel.readAll( buffer );
+        }
+        buffer.flip();
+        LogHeader logHeader = logFiles.extractHeader( version );
+        if ( buffer.getLong() != FORMAT || buffer.getLong() != version || buffer.getLong() != logHeader.getLastCommittedTxId() ||
+             buffer.getLong() != fileSystem.getFileSize( logFile ) )
+        {
+            // This index file is left over from another log file with the same version, e.g. one which was truncated during recovery
+            return null;
+        }
+        int count = buffer.getInt();
+        int checksum = buffer.getInt();
+        if ( count != (indexFileSize - HEADER_SIZE) / ENTRY_SIZE || checksum != checksum( buffer ) )
+        {
+            return null;
+        }
+        Offsets offsets = new Offsets( version, true );
+        for ( int i = 0; i < count; i++ )
+        {
+            offsets.add( buffer.getLong(), buffer.getLong() );
+        }
+        return offsets;
+    }
+
+    private void write( Offsets offsets ) throws IOException
+    {
+        File logFile = logFiles.getLogFileForVersion( offsets.version );
+        if ( !fileSystem.fileExists( logFile ) )
+        {
+            // Pruned before we got around to it
+            return;
+        }
+        int count = offsets.size();
+        ByteBuffer buffer = ByteBuffer.allocate( HEADER_SIZE + count * ENTRY_SIZE );
+        buffer.position( HEADER_SIZE );
+        for ( int i = 0; i < count; i++ )
+        {
+            buffer.putLong( offsets.transactionIds[i] ).putLong( offsets.offsets[i] );
+        }
+        buffer.position( HEADER_SIZE );
+        int checksum = checksum( buffer );
+        buffer.clear();
+        buffer.putLong( FORMAT ).putLong( offsets.version ).putLong( logFiles.extractHeader( offsets.version ).getLastCommittedTxId() )
+                .putLong( fileSystem.getFileSize( logFile ) ).putInt( count ).putInt( checksum );
+        buffer.clear();
+        try ( StoreChannel channel = fileSystem.write( indexFileFor( logFile ) ) )
+        {
+            channel.truncate( 0 );
+            channel.writeAll( buffer );
+            channel.force( false );
+        }
+    }
+
+    private static int checksum( ByteBuffer entries )
+    {
+        Checksum checksum = CHECKSUM_FACTORY.get();
+        checksum.update( entries.duplicate() );
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * Transaction ids and start offsets of a single log version, in ascending order.
+     */
+    private static class Offsets
+    {
+        private final long version;
+        private final boolean complete;
+        private long[] transactionIds = new long[16];
+        private long[] offsets = new long[16];
+        private volatile int size;
+
+        Offsets( long version, boolean complete )
+        {
+            this.version = version;
+            this.complete = complete;
+        }
+
+        int size()
+        {
+            return size;
+        }
+
+        void addIfSpaced( long transactionId, long offset )
+        {
+            int currentSize = size;
+            if ( currentSize == 0 || offset - offsets[currentSize - 1] >= SPACING )
+            {
+                add( transactionId, offset );
+            }
+        }
+
+        synchronized void add( long transactionId, long offset )
+        {
+            int currentSize = size;
+            if ( currentSize == transactionIds.length )
+            {
+                transactionIds = Arrays.copyOf( transactionIds, currentSize * 2 );
+                offsets = Arrays.copyOf( offsets, currentSize * 2 );
+            }
+            transactionIds[currentSize] = transactionId;
+            offsets[currentSize] = offset;
+            size = currentSize + 1;
+        }
+
+        /**
+         * @return start offset of the highest recorded transaction id which is at most the given id, or {@code -1} if there's none.
+         */
+        synchronized long floorOffset( long transactionId )
+        {
+            int index = Arrays.binarySearch( transactionIds, 0, size, transactionId );
+            if ( index < 0 )
+            {
+                index = -index - 2;
+            }
+            return index >= 0 ? offsets[index] : -1;
+        }
+    }
+}
@@ -28,6 +28,7 @@ import org.neo4j.configuration.Config;
 import org.neo4j.configuration.GraphDatabaseSettings;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
+import org.neo4j.kernel.impl.transaction.log.files.TransactionLogOffsetIndex;
 import org.neo4j.logging.Log;
 import org.neo4j.logging.LogProvider;
 import org.neo4j.time.SystemNanoClock;
@@ -131,6 +132,7 @@ public class LogPruningImpl implements LogPruning
             toVersion = toVersion == NO_VERSION ? version : Math.max( toVersion, version );
             File logFile = logFiles.getLogFileForVersion( version );
             fs.deleteFile( logFile );
+            fs.deleteFile( TransactionLogOffsetIndex.indexFileFor( logFile ) );
         }
 
         String describeResult( LogPruneStrategy strategy )
@@ -29,6 +29,7 @@ import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.LogVersionBridge;
 import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionCursor;
+import org.neo4j.kernel.impl.transaction.log.PositionableLogChannel;
 import org.neo4j.kernel.impl.transaction.log.ReadAheadLogChannel;
 import org.neo4j.kernel.impl.transaction.log.TransactionCursor;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
@@ -65,7 +66,7 @@ public class ReversedSingleFileTransactionCursor implements TransactionCursor
     // Should this be passed in or extracted from the read-ahead channel instead?
     private static final int CHUNK_SIZE = ReadAheadChannel.DEFAULT_READ_AHEAD_SIZE;
 
-    private final ReadAheadLogChannel channel;
+    private final PositionableLogChannel channel;
     private final boolean failOnCorruptedLogFiles;
     private final ReversedTransactionCursorMonitor monitor;
     private final TransactionCursor transactionCursor;
@@ -78,7 +79,7 @@ public class ReversedSingleFileTransactionCursor implements TransactionCursor
     private int chunkStartOffsetIndex;
     private long totalSize;
 
-    ReversedSingleFileTransactionCursor( ReadAheadLogChannel channel, LogEntryReader logEntryReader, boolean failOnCorruptedLogFiles,
+    ReversedSingleFileTransactionCursor( PositionableLogChannel channel, LogEntryReader logEntryReader, boolean failOnCorruptedLogFiles,
             ReversedTransactionCursorMonitor monitor ) throws IOException
     {
         this.channel = channel;
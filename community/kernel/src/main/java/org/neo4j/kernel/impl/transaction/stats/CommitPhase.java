@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.stats;
+
+/**
+ * The phases that the commit of a transaction goes through, in the order they happen.
+ * Latencies of each of them are available from {@link CommitLatencyCounters}.
+ */
+public enum CommitPhase
+{
+    /**
+     * The whole commit of a transaction that had changes, from the start of its commit until it has been closed.
+     */
+    COMMIT( "commit" ),
+    /**
+     * Acquiring the locks needed by the commit, including waiting for other transactions to release them.
+     */
+    LOCK_WAIT( "lockWait" ),
+    /**
+     * Serializing the commands of a batch of transactions into the transaction log.
+     */
+    SERIALIZATION( "serialization" ),
+    /**
+     * Appending a batch of transactions to the transaction log, including serialization, forcing and waiting for forcing.
+     */
+    LOG_WRITE( "logWrite" ),
+    /**
+     * Waiting for the transaction log to be forced by this or some other committing thread.
+     */
+    FORCE_WAIT( "forceWait" ),
+    /**
+     * Applying a batch of transactions to the store, including the index updates.
+     */
+    APPLY( "apply" ),
+    /**
+     * Applying a batch of index updates to the indexes. Index updates from concurrently committing transactions are
+     * applied together, so this is the latency of such combined batches rather than of individual transactions.
+     */
+    INDEX_APPLY( "indexApply" ),
+    /**
+     * Marking a batch of applied transactions as closed.
+     */
+    CLOSE( "close" );
+
+    private final String phaseName;
+
+    CommitPhase( String phaseName )
+    {
+        this.phaseName = phaseName;
+    }
+
+    public String phaseName()
+    {
+        return phaseName;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.stats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent histogram of latencies which keeps a bounded relative error over the whole range of values, like HDR histograms do.
+ * <p>
+ * Values are counted in buckets where every power of two range is split into {@value #SUB_BUCKETS} equally sized sub buckets,
+ * which means that a value is never reported off by more than about 3% of itself. Recording a value is lock free and
+ * does not allocate, so it can be done on the commit path.
+ */
+public class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray( BUCKETS );
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one occurrence of the given value. Negative values are recorded as zero.
+     * @param value value to record.
+     */
+    public void record( long value )
+    {
+        value = Math.max( 0, value );
+        counts.incrementAndGet( bucketIndex( value ) );
+        total.add( value );
+        long currentMax = max.get();
+        while ( value > currentMax && !max.compareAndSet( currentMax, value ) )
+        {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * @return a snapshot of the values recorded so far. Values recorded concurrently with taking the snapshot may or may not be included.
+     */
+    public Snapshot snapshot()
+    {
+        long[] snapshotCounts = new long[BUCKETS];
+        long count = 0;
+        for ( int i = 0; i < BUCKETS; i++ )
+        {
+            snapshotCounts[i] = counts.get( i );
+            count += snapshotCounts[i];
+        }
+        return new Snapshot( snapshotCounts, count, total.sum(), max.get() );
+    }
+
+    static int bucketIndex( long value )
+    {
+        if ( value < SUB_BUCKETS )
+        {
+            return (int) value;
+        }
+        int shift = Long.SIZE - Long.numberOfLeadingZeros( value ) - 1 - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestValueInBucket( int index )
+    {
+        if ( index < SUB_BUCKETS )
+        {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = SUB_BUCKETS + index % SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    public static class Snapshot
+    {
+        public static final Snapshot EMPTY = new Snapshot( new long[0], 0, 0, 0 );
+
+        private final long[] counts;
+        private final long count;
+        private final long total;
+        private final long max;
+
+        private Snapshot( long[] counts, long count, long total, long max )
+        {
+            this.counts = counts;
+            this.count = count;
+            this.total = total;
+            this.max = max;
+        }
+
+        /**
+         * @return number of recorded values.
+         */
+        public long count()
+        {
+            return count;
+        }
+
+        /**
+         * @return mean of all recorded values, or {@code 0} if no values have been recorded.
+         */
+        public long mean()
+        {
+            return count == 0 ? 0 : total / count;
+        }
+
+        /**
+         * @return the highest recorded value, or {@code 0} if no values have been recorded.
+         */
+        public long max()
+        {
+            return max;
+        }
+
+        /**
+         * @param percentile percentile, between {@code 0} and {@code 100}, to get the value of.
+         * @return the value which the given percentile of the recorded values are lower than or equal to,
+         * or {@code 0} if no values have been recorded.
+         */
+        public long valueAtPercentile( double percentile )
+        {
+            if ( count == 0 )
+            {
+                return 0;
+            }
+            long rank = Math.max( 1, (long) Math.ceil( Math.min( percentile, 100 ) / 100 * count ) );
+            long seen = 0;
+            for ( int i = 0; i < counts.length; i++ )
+            {
+                seen += counts[i];
+                if ( seen >= rank )
+                {
+                    return Math.min( highestValueInBucket( i ), max );
+                }
+            }
+            return max;
+        }
+    }
+}
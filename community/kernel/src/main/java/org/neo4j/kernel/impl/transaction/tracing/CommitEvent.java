@@ -42,6 +42,18 @@ public interface CommitEvent extends AutoCloseable
         {
             return StoreApplyEvent.NULL;
         }
+
+        @Override
+        public LockAcquisitionEvent beginLockAcquisition()
+        {
+            return LockAcquisitionEvent.NULL;
+        }
+
+        @Override
+        public TransactionCloseEvent beginTransactionClose()
+        {
+            return TransactionCloseEvent.NULL;
+        }
     };
 
     /**
@@ -59,4 +71,14 @@ public interface CommitEvent extends AutoCloseable
      * Begin applying the commands of the committed transaction to the stores.
      */
     StoreApplyEvent beginStoreApply();
+
+    /**
+     * Begin acquiring the locks needed to commit the transaction.
+     */
+    LockAcquisitionEvent beginLockAcquisition();
+
+    /**
+     * Begin marking the applied transactions as closed.
+     */
+    TransactionCloseEvent beginTransactionClose();
 }
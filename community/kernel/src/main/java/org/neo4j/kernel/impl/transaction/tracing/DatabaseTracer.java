@@ -20,6 +20,8 @@
 package org.neo4j.kernel.impl.transaction.tracing;
 
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.kernel.impl.transaction.stats.CommitPhase;
+import org.neo4j.kernel.impl.transaction.stats.LatencyHistogram;
 
 public interface DatabaseTracer extends TransactionTracer, CheckPointTracer
 {
@@ -84,7 +86,24 @@ public interface DatabaseTracer extends TransactionTracer, CheckPointTracer
         {
             return 0;
         }
+
+        @Override
+        public LatencyHistogram.Snapshot commitLatency( CommitPhase phase )
+        {
+            return LatencyHistogram.Snapshot.EMPTY;
+        }
+
+        @Override
+        public IndexApplyEvent beginIndexApply()
+        {
+            return IndexApplyEvent.NULL;
+        }
     };
 
     LogFileCreateEvent createLogFile();
+
+    /**
+     * Begin applying a batch of index updates, which may come from several concurrently committing transactions, to the indexes.
+     */
+    IndexApplyEvent beginIndexApply();
 }
@@ -21,6 +21,7 @@ package org.neo4j.kernel.recovery;
 
 import java.io.IOException;
 
+import org.neo4j.configuration.GraphDatabaseInternalSettings;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.kernel.impl.api.TransactionToApply;
 import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
@@ -38,6 +39,7 @@ import org.neo4j.storageengine.api.TransactionIdStore;
 
 import static org.neo4j.kernel.impl.transaction.log.Commitment.NO_COMMITMENT;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogVersions.CURRENT_FORMAT_LOG_HEADER_SIZE;
+import static org.neo4j.storageengine.api.TransactionApplicationMode.RECOVERY;
 
 public class DefaultRecoveryService implements RecoveryService
 {
@@ -47,12 +49,18 @@ public class DefaultRecoveryService implements RecoveryService
     private final LogicalTransactionStore logicalTransactionStore;
     private final LogVersionRepository logVersionRepository;
     private final Log log;
+    private final int applyBatchSize;
 
+    /**
+     * @param applyBatchSize maximum number of recovered transactions handed to the storage engine in one batch. Larger batches let the
+     * storage engine apply the transactions of a batch concurrently, see {@link GraphDatabaseInternalSettings#recovery_parallelism}.
+     */
     DefaultRecoveryService( StorageEngine storageEngine, LogTailScanner logTailScanner, TransactionIdStore transactionIdStore,
             LogicalTransactionStore logicalTransactionStore, LogVersionRepository logVersionRepository, LogFiles logFiles,
-            RecoveryStartInformationProvider.Monitor monitor, Log log )
+            RecoveryStartInformationProvider.Monitor monitor, Log log, int applyBatchSize )
     {
         this.storageEngine = storageEngine;
+        this.applyBatchSize = applyBatchSize;
         this.transactionIdStore = transactionIdStore;
         this.logicalTransactionStore = logicalTransactionStore;
         this.logVersionRepository = logVersionRepository;
@@ -69,7 +77,7 @@ public class DefaultRecoveryService implements RecoveryService
     @Override
     public RecoveryApplier getRecoveryApplier( TransactionApplicationMode mode, PageCursorTracer cursorTracer )
     {
-        return new RecoveryVisitor( storageEngine, mode, cursorTracer );
+        return new RecoveryVisitor( storageEngine, mode, cursorTracer, mode == RECOVERY ? applyBatchSize : 1 );
     }
 
     @Override
@@ -128,12 +136,17 @@ public class DefaultRecoveryService implements RecoveryService
         private final StorageEngine storageEngine;
         private final TransactionApplicationMode mode;
         private final PageCursorTracer cursorTracer;
+        private final int batchSize;
+        private TransactionToApply first;
+        private TransactionToApply last;
+        private int batched;
 
-        RecoveryVisitor( StorageEngine storageEngine, TransactionApplicationMode mode, PageCursorTracer cursorTracer )
+        RecoveryVisitor( StorageEngine storageEngine, TransactionApplicationMode mode, PageCursorTracer cursorTracer, int batchSize )
         {
             this.storageEngine = storageEngine;
             this.mode = mode;
             this.cursorTracer = cursorTracer;
+            this.batchSize = batchSize;
         }
 
         @Override
@@ -144,13 +157,39 @@ public class DefaultRecoveryService implements RecoveryService
             TransactionToApply tx = new TransactionToApply( txRepresentation, txId, cursorTracer );
             tx.commitment( NO_COMMITMENT, txId );
             tx.logPosition( transaction.getStartEntry().getStartPosition() );
-            storageEngine.apply( tx, mode );
+            if ( first == null )
+            {
+                first = tx;
+            }
+            else
+            {
+                last.next( tx );
+            }
+            last = tx;
+            if ( ++batched >= batchSize )
+            {
+                applyBatch();
+            }
             return false;
         }
 
+        private void applyBatch() throws Exception
+        {
+            if ( first != null )
+            {
+                TransactionToApply batch = first;
+                first = null;
+                last = null;
+                batched = 0;
+                storageEngine.apply( batch, mode );
+            }
+        }
+
         @Override
-        public void close()
-        {   // nothing to close
+        public void close() throws Exception
+        {
+            // Apply whatever is left of the last batch
+            applyBatch();
         }
     }
 }
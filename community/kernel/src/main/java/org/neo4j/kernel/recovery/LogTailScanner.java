@@ -30,7 +30,6 @@ import org.neo4j.io.memory.HeapScopedBuffer;
 import org.neo4j.kernel.impl.transaction.log.LogEntryCursor;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.LogVersionedStoreChannel;
-import org.neo4j.kernel.impl.transaction.log.ReadAheadLogChannel;
 import org.neo4j.kernel.impl.transaction.log.entry.CheckPoint;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntry;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
@@ -115,7 +114,7 @@ public class LogTailScanner
             CheckPoint latestCheckPoint = null;
             StoreId storeId = StoreId.UNKNOWN;
             try ( LogVersionedStoreChannel channel = logFiles.openForVersion( version );
-                  LogEntryCursor cursor = new LogEntryCursor( logEntryReader, new ReadAheadLogChannel( channel, memoryTracker ) ) )
+                  LogEntryCursor cursor = new LogEntryCursor( logEntryReader, logFiles.getLogFile().getReader( channel ) ) )
             {
                 LogHeader logHeader = logFiles.extractHeader( version );
                 storeId = logHeader.getStoreId();
@@ -295,7 +294,7 @@ public class LogTailScanner
                 try ( LogVersionedStoreChannel storeChannel = logFiles.openForVersion( logVersion ) )
                 {
                     storeChannel.position( currentPosition.getByteOffset() );
-                    try ( LogEntryCursor cursor = new LogEntryCursor( logEntryReader, new ReadAheadLogChannel( storeChannel, memoryTracker ) ) )
+                    try ( LogEntryCursor cursor = new LogEntryCursor( logEntryReader, logFiles.getLogFile().getReader( storeChannel ) ) )
                     {
                         while ( cursor.next() )
                         {
@@ -120,6 +120,7 @@ import static org.neo4j.token.api.TokenHolder.TYPE_LABEL;
 import static org.neo4j.token.api.TokenHolder.TYPE_PROPERTY_KEY;
 import static org.neo4j.token.api.TokenHolder.TYPE_RELATIONSHIP_TYPE;
 import static org.neo4j.util.FeatureToggles.flag;
+import static org.neo4j.util.FeatureToggles.getInteger;
 
 /**
  * Utility class to perform store recovery or check is recovery is required.
@@ -130,6 +131,7 @@ import static org.neo4j.util.FeatureToggles.flag;
 public final class Recovery
 {
     private static final boolean IGNORE_STORE_ID = flag( Recovery.class, "ignoreStoreId", false );
+    private static final int PARALLEL_RECOVERY_BATCH_SIZE = getInteger( Recovery.class, "parallelRecoveryBatchSize", 1024 );
 
     private Recovery()
     {
@@ -313,7 +315,7 @@ public final class Recovery
         // Label index
         NeoStoreIndexStoreView neoStoreIndexStoreView = new NeoStoreIndexStoreView( NO_LOCK_SERVICE, storageEngine::newReader );
         LabelScanStore labelScanStore = Database.buildLabelIndex( recoveryCleanupCollector, storageEngine, neoStoreIndexStoreView, monitors,
-                logProvider, databasePageCache, databaseLayout, fs, false, tracers.getPageCacheTracer(), memoryTracker );
+                logProvider, databasePageCache, databaseLayout, fs, false, config, tracers.getPageCacheTracer(), memoryTracker );
         RelationshipTypeScanStore relationshipTypeScanStore =
                 Database.buildRelationshipTypeIndex( recoveryCleanupCollector, storageEngine, neoStoreIndexStoreView, monitors, logProvider, databasePageCache,
                         databaseLayout, fs, false, config, tracers.getPageCacheTracer(), memoryTracker );
@@ -326,7 +328,7 @@ public final class Recovery
                 new IndexStatisticsStore( databasePageCache, databaseLayout, recoveryCleanupCollector, false, tracers.getPageCacheTracer() );
         IndexingService indexingService = Database.buildIndexingService( storageEngine, schemaState, indexStoreView, indexStatisticsStore,
                 config, scheduler, indexProviderMap, tokenHolders, logProvider, logProvider, monitors.newMonitor( IndexingService.Monitor.class ),
-                tracers.getPageCacheTracer(), memoryTracker, false );
+                tracers.getDatabaseTracer(), tracers.getPageCacheTracer(), memoryTracker, false );
 
         TransactionIdStore transactionIdStore = storageEngine.transactionIdStore();
         LogVersionRepository logVersionRepository = storageEngine.logVersionRepository();
@@ -352,7 +354,7 @@ public final class Recovery
         PhysicalLogicalTransactionStore transactionStore = new PhysicalLogicalTransactionStore( logFiles, metadataCache, logEntryReader, monitors,
                 failOnCorruptedLogFiles );
         BatchingTransactionAppender transactionAppender = new BatchingTransactionAppender( logFiles, LogRotation.NO_ROTATION, metadataCache,
-                transactionIdStore, databaseHealth );
+                transactionIdStore, databaseHealth, config.get( GraphDatabaseInternalSettings.tx_log_compress_commands ) );
 
         LifeSupport schemaLife = new LifeSupport();
         schemaLife.add( storageEngine.schemaAndTokensLifecycle() );
@@ -361,7 +363,8 @@ public final class Recovery
         TransactionLogsRecovery transactionLogsRecovery =
                 transactionLogRecovery( fs, transactionIdStore, logTailScanner, monitors.newMonitor( RecoveryMonitor.class ),
                         monitors.newMonitor( RecoveryStartInformationProvider.Monitor.class ), logFiles, storageEngine, transactionStore, logVersionRepository,
-                        schemaLife, databaseLayout, failOnCorruptedLogFiles, recoveryLog, startupChecker, tracers.getPageCacheTracer(), memoryTracker );
+                        schemaLife, databaseLayout, failOnCorruptedLogFiles, recoveryLog, startupChecker, tracers.getPageCacheTracer(), memoryTracker,
+                        recoveryApplyBatchSize( config ) );
 
         CheckPointerImpl.ForceOperation forceOperation = new DefaultForceOperation( indexingService, labelScanStore, relationshipTypeScanStore, storageEngine );
         CheckPointerImpl checkPointer =
@@ -425,16 +428,25 @@ public final class Recovery
             LogTailScanner tailScanner, RecoveryMonitor recoveryMonitor, RecoveryStartInformationProvider.Monitor positionMonitor, LogFiles logFiles,
             StorageEngine storageEngine, LogicalTransactionStore logicalTransactionStore, LogVersionRepository logVersionRepository,
             Lifecycle schemaLife, DatabaseLayout databaseLayout, boolean failOnCorruptedLogFiles, Log log, RecoveryStartupChecker startupChecker,
-            PageCacheTracer pageCacheTracer, MemoryTracker memoryTracker )
+            PageCacheTracer pageCacheTracer, MemoryTracker memoryTracker, int recoveryApplyBatchSize )
     {
         RecoveryService recoveryService = new DefaultRecoveryService( storageEngine, tailScanner, transactionIdStore, logicalTransactionStore,
-                logVersionRepository, logFiles, positionMonitor, log );
+                logVersionRepository, logFiles, positionMonitor, log, recoveryApplyBatchSize );
         CorruptedLogsTruncator logsTruncator = new CorruptedLogsTruncator( databaseLayout.databaseDirectory(), logFiles, fileSystemAbstraction, memoryTracker );
         ProgressReporter progressReporter = new LogProgressReporter( log );
         return new TransactionLogsRecovery( recoveryService, logsTruncator, schemaLife, recoveryMonitor, progressReporter, failOnCorruptedLogFiles,
                 startupChecker, pageCacheTracer );
     }
 
+    /**
+     * Recovered transactions are only batched when the storage engine is allowed to apply them in parallel, otherwise each transaction is
+     * applied by itself, just like when it was committed.
+     */
+    private static int recoveryApplyBatchSize( Config config )
+    {
+        return config.get( GraphDatabaseInternalSettings.recovery_parallelism ) > 1 ? PARALLEL_RECOVERY_BATCH_SIZE : 1;
+    }
+
     private static Iterable<ExtensionFactory<?>> loadExtensions()
     {
         return Iterables.cast( Services.loadAll( ExtensionFactory.class ) );
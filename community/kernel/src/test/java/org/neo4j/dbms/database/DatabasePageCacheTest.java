@@ -214,10 +214,8 @@ class DatabasePageCacheTest
             PagedFile originalPagedFile3 = findPagedFile( pagedFiles, mapFile3 );
             PagedFile originalPagedFile4 = findPagedFile( pagedFiles, mapFile4 );
 
-            verify( originalPagedFile1 ).flushAndForce( IOLimiter.UNLIMITED );
-            verify( originalPagedFile2 ).flushAndForce( IOLimiter.UNLIMITED );
-            verify( originalPagedFile3, never() ).flushAndForce( IOLimiter.UNLIMITED );
-            verify( originalPagedFile4, never() ).flushAndForce( IOLimiter.UNLIMITED );
+            verify( globalPageCache ).flushAndForce( List.of( originalPagedFile1, originalPagedFile2 ), IOLimiter.UNLIMITED );
+            verify( globalPageCache, never() ).flushAndForce( IOLimiter.UNLIMITED );
         }
     }
 
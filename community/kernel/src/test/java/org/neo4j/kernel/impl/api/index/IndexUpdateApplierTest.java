@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.util.List;
+
+import org.neo4j.internal.schema.IndexDescriptor;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
+import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.storageengine.api.IndexEntryUpdate;
+import org.neo4j.test.scheduler.ThreadPoolJobScheduler;
+import org.neo4j.values.storable.Values;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.neo4j.internal.schema.IndexPrototype.forSchema;
+import static org.neo4j.internal.schema.IndexPrototype.uniqueForSchema;
+import static org.neo4j.internal.schema.SchemaDescriptor.forLabel;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+import static org.neo4j.kernel.impl.api.index.TestIndexProviderDescriptor.PROVIDER_DESCRIPTOR;
+
+class IndexUpdateApplierTest
+{
+    private ThreadPoolJobScheduler scheduler;
+    private IndexMapReference indexMapRef;
+    private IndexDescriptor index1;
+    private IndexDescriptor index2;
+    private IndexDescriptor uniqueIndex;
+    private IndexUpdater updater1;
+    private IndexUpdater updater2;
+    private IndexUpdater uniqueUpdater;
+
+    @BeforeEach
+    void setUp()
+    {
+        scheduler = new ThreadPoolJobScheduler();
+        index1 = forSchema( forLabel( 1, 1 ), PROVIDER_DESCRIPTOR ).withName( "a" ).materialise( 1 );
+        index2 = forSchema( forLabel( 2, 2 ), PROVIDER_DESCRIPTOR ).withName( "b" ).materialise( 2 );
+        uniqueIndex = uniqueForSchema( forLabel( 3, 3 ), PROVIDER_DESCRIPTOR ).withName( "c" ).materialise( 3 );
+        updater1 = mock( IndexUpdater.class );
+        updater2 = mock( IndexUpdater.class );
+        uniqueUpdater = mock( IndexUpdater.class );
+        indexMapRef = new IndexMapReference();
+        indexMapRef.modify( indexMap ->
+        {
+            indexMap.putIndexProxy( indexProxy( index1, updater1 ) );
+            indexMap.putIndexProxy( indexProxy( index2, updater2 ) );
+            indexMap.putIndexProxy( indexProxy( uniqueIndex, uniqueUpdater ) );
+            return indexMap;
+        } );
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void shouldApplyUpdatesOfEachIndexWithItsOwnUpdater() throws Exception
+    {
+        IndexEntryUpdate<IndexDescriptor> update1 = IndexEntryUpdate.add( 1, index1, Values.intValue( 1 ) );
+        IndexEntryUpdate<IndexDescriptor> update2 = IndexEntryUpdate.add( 2, index2, Values.intValue( 2 ) );
+        IndexEntryUpdate<IndexDescriptor> update3 = IndexEntryUpdate.add( 3, index1, Values.intValue( 3 ) );
+
+        parallelApplier().apply( indexMapRef, List.of( update1, update2, update3 ), IndexUpdateMode.ONLINE, NULL );
+
+        verify( updater1 ).process( update1 );
+        verify( updater1 ).process( update3 );
+        verify( updater1 ).close();
+        verify( updater2 ).process( update2 );
+        verify( updater2 ).close();
+    }
+
+    @Test
+    void shouldApplyUpdatesOfDifferentEntitiesInValueOrder() throws Exception
+    {
+        IndexEntryUpdate<IndexDescriptor> update1 = IndexEntryUpdate.add( 1, index1, Values.intValue( 3 ) );
+        IndexEntryUpdate<IndexDescriptor> update2 = IndexEntryUpdate.add( 2, index1, Values.intValue( 1 ) );
+        IndexEntryUpdate<IndexDescriptor> update3 = IndexEntryUpdate.remove( 3, index1, Values.intValue( 2 ) );
+
+        sequentialApplier().apply( indexMapRef, List.of( update1, update2, update3 ), IndexUpdateMode.ONLINE, NULL );
+
+        InOrder inOrder = inOrder( updater1 );
+        inOrder.verify( updater1 ).process( update2 );
+        inOrder.verify( updater1 ).process( update3 );
+        inOrder.verify( updater1 ).process( update1 );
+        inOrder.verify( updater1 ).close();
+    }
+
+    @Test
+    void shouldApplyUpdatesInCommitOrderWhenAnEntityHasMoreThanOne() throws Exception
+    {
+        IndexEntryUpdate<IndexDescriptor> update1 = IndexEntryUpdate.add( 1, index1, Values.intValue( 3 ) );
+        IndexEntryUpdate<IndexDescriptor> update2 = IndexEntryUpdate.add( 2, index1, Values.intValue( 2 ) );
+        IndexEntryUpdate<IndexDescriptor> update3 = IndexEntryUpdate.change( 1, index1, Values.intValue( 3 ), Values.intValue( 1 ) );
+
+        sequentialApplier().apply( indexMapRef, List.of( update1, update2, update3 ), IndexUpdateMode.ONLINE, NULL );
+
+        InOrder inOrder = inOrder( updater1 );
+        inOrder.verify( updater1 ).process( update1 );
+        inOrder.verify( updater1 ).process( update2 );
+        inOrder.verify( updater1 ).process( update3 );
+    }
+
+    @Test
+    void shouldApplyUpdatesOfUniqueIndexInCommitOrder() throws Exception
+    {
+        IndexEntryUpdate<IndexDescriptor> update1 = IndexEntryUpdate.remove( 2, uniqueIndex, Values.intValue( 1 ) );
+        IndexEntryUpdate<IndexDescriptor> update2 = IndexEntryUpdate.add( 1, uniqueIndex, Values.intValue( 1 ) );
+
+        sequentialApplier().apply( indexMapRef, List.of( update1, update2 ), IndexUpdateMode.ONLINE, NULL );
+
+        InOrder inOrder = inOrder( uniqueUpdater );
+        inOrder.verify( uniqueUpdater ).process( update1 );
+        inOrder.verify( uniqueUpdater ).process( update2 );
+    }
+
+    @Test
+    void shouldPropagateConflictFromOtherThreadAfterAllIndexesAreDone() throws Exception
+    {
+        IndexEntryUpdate<IndexDescriptor> update1 = IndexEntryUpdate.add( 1, index1, Values.intValue( 1 ) );
+        IndexEntryUpdate<IndexDescriptor> update2 = IndexEntryUpdate.add( 2, index2, Values.intValue( 2 ) );
+        IndexEntryUpdate<IndexDescriptor> update3 = IndexEntryUpdate.add( 3, uniqueIndex, Values.intValue( 3 ) );
+        IndexEntryConflictException conflict = new IndexEntryConflictException( 3, 4, Values.intValue( 3 ) );
+        doThrow( conflict ).when( uniqueUpdater ).process( update3 );
+
+        IndexEntryConflictException e = assertThrows( IndexEntryConflictException.class,
+                () -> parallelApplier().apply( indexMapRef, List.of( update1, update2, update3 ), IndexUpdateMode.ONLINE, NULL ) );
+
+        assertThat( e ).isSameAs( conflict );
+        verify( updater1 ).close();
+        verify( updater2 ).close();
+        verify( uniqueUpdater ).close();
+    }
+
+    private IndexUpdateApplier parallelApplier()
+    {
+        return new IndexUpdateApplier( scheduler, PageCacheTracer.NULL, 4, 1 );
+    }
+
+    private IndexUpdateApplier sequentialApplier()
+    {
+        return new IndexUpdateApplier( scheduler, PageCacheTracer.NULL, 1, 1 );
+    }
+
+    private static IndexProxy indexProxy( IndexDescriptor index, IndexUpdater updater )
+    {
+        IndexProxy indexProxy = mock( IndexProxy.class );
+        when( indexProxy.getDescriptor() ).thenReturn( index );
+        when( indexProxy.newUpdater( any( IndexUpdateMode.class ), any( PageCursorTracer.class ) ) ).thenReturn( updater );
+        return indexProxy;
+    }
+}
@@ -701,10 +701,10 @@ class IndexingServiceTest
         // When
         indexing.applyUpdates( asList( add( 1, "foo" ), add( 2, "bar" ) ), NULL );
 
-        // Then
+        // Then, updates of different entities in a non-unique index are applied in value order
         InOrder inOrder = inOrder( updater );
-        inOrder.verify( updater ).process( add( 1, "foo" ) );
         inOrder.verify( updater ).process( add( 2, "bar" ) );
+        inOrder.verify( updater ).process( add( 1, "foo" ) );
         inOrder.verify( updater ).close();
         inOrder.verifyNoMoreInteractions();
     }
@@ -1322,7 +1322,7 @@ class IndexingServiceTest
         IndexingService indexingService =
                 new IndexingService( indexProxyCreator, indexProviderMap, indexMapReference, mock( IndexStoreView.class ), schemaRules, samplingController,
                         nameLookup, scheduler, null, logProvider, logProvider, monitor, mock( IndexStatisticsStore.class ),
-                        PageCacheTracer.NULL, INSTANCE, false );
+                        PageCacheTracer.NULL, INSTANCE, new IndexUpdateApplier( scheduler, PageCacheTracer.NULL, 1, 1 ), false );
         // and where index population starts
         indexingService.init();
 
@@ -1606,7 +1606,8 @@ class IndexingServiceTest
                 indexMapReference, mock( IndexStoreView.class ), Collections.emptyList(),
                 mock( IndexSamplingController.class ), nameLookup,
                 mock( JobScheduler.class ), mock( SchemaState.class ),
-                internalLogProvider, userLogProvider, IndexingService.NO_MONITOR, mock( IndexStatisticsStore.class ), PageCacheTracer.NULL, INSTANCE, false );
+                internalLogProvider, userLogProvider, IndexingService.NO_MONITOR, mock( IndexStatisticsStore.class ), PageCacheTracer.NULL, INSTANCE,
+                new IndexUpdateApplier( mock( JobScheduler.class ), PageCacheTracer.NULL, 1, 1 ), false );
     }
 
     private static DependencyResolver buildIndexDependencies( IndexProvider... providers )
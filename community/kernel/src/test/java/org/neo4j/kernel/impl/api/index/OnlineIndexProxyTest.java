@@ -21,15 +21,24 @@ package org.neo4j.kernel.impl.api.index;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.Optional;
+
 import org.neo4j.internal.schema.IndexDescriptor;
 import org.neo4j.internal.schema.IndexPrototype;
 import org.neo4j.internal.schema.SchemaDescriptor;
 import org.neo4j.kernel.api.index.IndexAccessor;
+import org.neo4j.kernel.api.index.IndexSample;
+import org.neo4j.kernel.api.index.IndexUpdater;
 import org.neo4j.kernel.impl.api.index.stats.IndexStatisticsStore;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+import static org.neo4j.storageengine.api.IndexEntryUpdate.add;
+import static org.neo4j.values.storable.Values.intValue;
 
 class OnlineIndexProxyTest
 {
@@ -53,4 +62,46 @@ class OnlineIndexProxyTest
         verify( indexStatisticsStore ).removeIndex( indexId );
         verifyNoMoreInteractions( accessor, storeView );
     }
+
+    @Test
+    void shouldCountUpdatesOfIndexWithoutIncrementalStatistics() throws Exception
+    {
+        // given
+        OnlineIndexProxy index = new OnlineIndexProxy( descriptor, accessor, indexStatisticsStore, false );
+        when( accessor.newUpdater( any(), any() ) ).thenReturn( mock( IndexUpdater.class ) );
+        when( accessor.incrementalStatistics() ).thenReturn( Optional.empty() );
+        index.start();
+
+        // when
+        try ( IndexUpdater updater = index.newUpdater( IndexUpdateMode.ONLINE, NULL ) )
+        {
+            updater.process( add( 1, descriptor, intValue( 1 ) ) );
+            updater.process( add( 2, descriptor, intValue( 2 ) ) );
+        }
+
+        // then
+        verify( indexStatisticsStore ).incrementIndexUpdates( indexId, 2 );
+        verifyNoMoreInteractions( indexStatisticsStore );
+    }
+
+    @Test
+    void shouldReplaceStatisticsWithIncrementalStatisticsOfIndexAndCountUpdates() throws Exception
+    {
+        // given
+        OnlineIndexProxy index = new OnlineIndexProxy( descriptor, accessor, indexStatisticsStore, false );
+        IndexSample statistics = new IndexSample( 10, 4, 10 );
+        when( accessor.newUpdater( any(), any() ) ).thenReturn( mock( IndexUpdater.class ) );
+        when( accessor.incrementalStatistics() ).thenReturn( Optional.of( statistics ) );
+        index.start();
+
+        // when
+        try ( IndexUpdater updater = index.newUpdater( IndexUpdateMode.ONLINE, NULL ) )
+        {
+            updater.process( add( 1, descriptor, intValue( 1 ) ) );
+        }
+
+        // then
+        verify( indexStatisticsStore ).replaceEstimatedStats( indexId, statistics, 1 );
+        verifyNoMoreInteractions( indexStatisticsStore );
+    }
 }
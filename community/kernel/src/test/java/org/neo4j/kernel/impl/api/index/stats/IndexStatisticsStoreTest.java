@@ -174,6 +174,20 @@ class IndexStatisticsStoreTest
                 initialSample.updates() + addedUpdates ), store.indexSample( indexId ) );
     }
 
+    @Test
+    void shouldReplaceEstimatedStatsAndKeepCountingUpdates()
+    {
+        // given
+        long indexId = 4;
+        store.replaceStats( indexId, new IndexSample( 456, 5, 200, 123 ) );
+
+        // when
+        store.replaceEstimatedStats( indexId, new IndexSample( 460, 7, 460 ), 4 );
+
+        // then
+        assertEquals( new IndexSample( 460, 7, 460, 127 ), store.indexSample( indexId ) );
+    }
+
     @Test
     void shouldStoreDataOnCheckpoint() throws IOException
     {
@@ -41,6 +41,7 @@ import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
 import org.neo4j.kernel.api.index.IndexDirectoryStructure;
 import org.neo4j.kernel.api.index.IndexReader;
 import org.neo4j.kernel.api.schema.index.TestIndexDescriptorFactory;
+import org.neo4j.kernel.impl.api.index.IndexSamplingConfig;
 import org.neo4j.kernel.impl.api.index.IndexUpdateMode;
 import org.neo4j.kernel.impl.index.schema.config.IndexSpecificSpaceFillingCurveSettings;
 import org.neo4j.storageengine.api.IndexEntryUpdate;
@@ -95,7 +96,8 @@ class GenericAccessorPointsTest
         RecoveryCleanupWorkCollector collector = RecoveryCleanupWorkCollector.ignore();
         DatabaseIndexContext databaseIndexContext = DatabaseIndexContext.builder( pageCache, fs ).build();
         StandardConfiguration configuration = new StandardConfiguration();
-        accessor = new GenericNativeIndexAccessor( databaseIndexContext, indexFiles, layout, collector, descriptor, indexSettings, configuration );
+        accessor = new GenericNativeIndexAccessor( databaseIndexContext, indexFiles, layout, collector, descriptor,
+                new IndexSamplingConfig( Config.defaults() ), indexSettings, configuration );
     }
 
     @AfterEach
@@ -25,9 +25,18 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.neo4j.configuration.Config;
+import org.neo4j.io.pagecache.ByteArrayPageCursor;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.kernel.impl.index.schema.config.IndexSpecificSpaceFillingCurveSettings;
+import org.neo4j.values.storable.Value;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.Inclusion.NEUTRAL;
+import static org.neo4j.values.storable.Values.intValue;
+import static org.neo4j.values.storable.Values.stringValue;
 
 class GenericLayoutTest
 {
@@ -47,4 +56,54 @@ class GenericLayoutTest
                                     "firstSlotCount=%s, secondSlotCount=%s.", previous, i ) );
         }
     }
+
+    @Test
+    void shouldReadKeyWrittenWithoutSharedTextPrefix()
+    {
+        // given
+        GenericLayout layout = new GenericLayout( 2, spatialSettings );
+        GenericKey left = key( layout, 1, stringValue( "abcdef" ), intValue( 10 ) );
+        GenericKey right = key( layout, 2, stringValue( "abcxyz" ), intValue( 20 ) );
+        int prefixLength = layout.keyPrefixLength( left, right );
+        assertEquals( 3, prefixLength );
+
+        // when
+        PageCursor cursor = ByteArrayPageCursor.wrap( PageCache.PAGE_SIZE );
+        int prefixOffset = PageCache.PAGE_SIZE - prefixLength;
+        cursor.setOffset( prefixOffset );
+        layout.writeKeyPrefix( cursor, left, prefixLength );
+        cursor.setOffset( 0 );
+        layout.writeKeySuffix( cursor, right, prefixLength );
+        int suffixSize = layout.keySize( right ) - prefixLength;
+        assertEquals( suffixSize, cursor.getOffset() );
+        assertEquals( prefixLength, layout.keyPrefixLength( right, cursor, prefixOffset, prefixLength ) );
+
+        // then
+        GenericKey read = layout.newKey();
+        cursor.setOffset( 0 );
+        layout.readKeySuffix( cursor, read, suffixSize, prefixOffset, prefixLength );
+        assertEquals( suffixSize, cursor.getOffset() );
+        assertEquals( right.getEntityId(), read.getEntityId() );
+        assertArrayEquals( right.asValues(), read.asValues() );
+    }
+
+    @Test
+    void shouldOnlyShareTextPrefix()
+    {
+        GenericLayout layout = new GenericLayout( 1, spatialSettings );
+        assertEquals( 0, layout.keyPrefixLength( key( layout, 1, intValue( 10 ) ), key( layout, 2, intValue( 11 ) ) ) );
+        assertEquals( 0, layout.keyPrefixLength( key( layout, 1, intValue( 10 ) ), key( layout, 2, stringValue( "a" ) ) ) );
+        assertEquals( 1, layout.keyPrefixLength( key( layout, 1, stringValue( "ab" ) ), key( layout, 2, stringValue( "ac" ) ) ) );
+    }
+
+    private static GenericKey key( GenericLayout layout, long entityId, Value... values )
+    {
+        GenericKey key = layout.newKey();
+        key.initialize( entityId );
+        for ( int i = 0; i < values.length; i++ )
+        {
+            key.initFromValue( i, values[i], NEUTRAL );
+        }
+        return key;
+    }
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.RandomExtension;
+import org.neo4j.test.rule.RandomRule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith( RandomExtension.class )
+class HyperLogLogTest
+{
+    private static final int PRECISION = 14;
+    // Three times the standard error of 1.04 / sqrt(2^14)
+    private static final double TOLERATED_ERROR = 3 * 1.04 / Math.sqrt( 1 << PRECISION );
+
+    @Inject
+    private RandomRule random;
+
+    @Test
+    void shouldEstimateZeroForEmptySketch()
+    {
+        assertEquals( 0, new HyperLogLog( PRECISION ).estimate() );
+    }
+
+    @Test
+    void shouldEstimateSmallCardinalitiesClosely()
+    {
+        // given
+        HyperLogLog sketch = new HyperLogLog( PRECISION );
+
+        // when
+        for ( int i = 0; i < 100; i++ )
+        {
+            sketch.add( random.nextLong() );
+        }
+
+        // then
+        assertThat( sketch.estimate() ).isCloseTo( 100L, within( 2L ) );
+    }
+
+    @Test
+    void shouldEstimateLargeCardinalitiesWithinErrorBounds()
+    {
+        // given
+        HyperLogLog sketch = new HyperLogLog( PRECISION );
+        int count = 1_000_000;
+
+        // when
+        for ( int i = 0; i < count; i++ )
+        {
+            sketch.add( random.nextLong() );
+        }
+
+        // then
+        assertThat( (double) sketch.estimate() ).isCloseTo( count, within( count * TOLERATED_ERROR ) );
+    }
+
+    @Test
+    void shouldNotCountDuplicates()
+    {
+        // given
+        HyperLogLog sketch = new HyperLogLog( PRECISION );
+        long[] hashes = new long[10_000];
+        for ( int i = 0; i < hashes.length; i++ )
+        {
+            hashes[i] = random.nextLong();
+            sketch.add( hashes[i] );
+        }
+        long estimate = sketch.estimate();
+
+        // when
+        for ( long hash : hashes )
+        {
+            sketch.add( hash );
+        }
+
+        // then
+        assertEquals( estimate, sketch.estimate() );
+    }
+
+    @Test
+    void shouldEstimateUnionWhenMerged()
+    {
+        // given
+        HyperLogLog first = new HyperLogLog( PRECISION );
+        HyperLogLog second = new HyperLogLog( PRECISION );
+        HyperLogLog union = new HyperLogLog( PRECISION );
+        for ( int i = 0; i < 100_000; i++ )
+        {
+            long hash = random.nextLong();
+            // Every third hash is added to both sketches
+            if ( i % 3 != 1 )
+            {
+                first.add( hash );
+            }
+            if ( i % 3 != 0 )
+            {
+                second.add( hash );
+            }
+            union.add( hash );
+        }
+
+        // when
+        first.merge( second );
+
+        // then
+        assertEquals( union.estimate(), first.estimate() );
+    }
+
+    @Test
+    void shouldNotMergeSketchesOfDifferentPrecision()
+    {
+        assertThrows( IllegalArgumentException.class, () -> new HyperLogLog( PRECISION ).merge( new HyperLogLog( PRECISION - 1 ) ) );
+    }
+
+    @Test
+    void shouldRejectPrecisionOutOfRange()
+    {
+        assertThrows( IllegalArgumentException.class, () -> new HyperLogLog( HyperLogLog.MIN_PRECISION - 1 ) );
+        assertThrows( IllegalArgumentException.class, () -> new HyperLogLog( HyperLogLog.MAX_PRECISION + 1 ) );
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.nio.ByteBuffer;
+
+import org.neo4j.io.pagecache.ByteArrayPageCursor;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.kernel.api.index.IndexSample;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.RandomExtension;
+import org.neo4j.test.rule.RandomRule;
+import org.neo4j.values.storable.Value;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.neo4j.values.storable.Values.intValue;
+
+@ExtendWith( RandomExtension.class )
+class IncrementalIndexStatisticsTest
+{
+    @Inject
+    private RandomRule random;
+
+    @Test
+    void shouldHaveStatisticsOfIncludedEntries()
+    {
+        // given
+        IncrementalIndexStatistics statistics = new IncrementalIndexStatistics();
+
+        // when
+        for ( int value = 0; value < 100; value++ )
+        {
+            statistics.include( hash( value ), 3 );
+        }
+
+        // then
+        assertSample( statistics.toIndexSample(), 300, 100 );
+    }
+
+    @Test
+    void shouldHaveEmptyStatisticsForEmptyIndex()
+    {
+        assertSample( new IncrementalIndexStatistics().toIndexSample(), 0, 0 );
+    }
+
+    @Test
+    void shouldTrackAppearingAndVanishingValuesExactlyWhileFewValues()
+    {
+        // given
+        IncrementalIndexStatistics statistics = new IncrementalIndexStatistics();
+        for ( int value = 0; value < 20; value++ )
+        {
+            statistics.include( hash( value ), 2 );
+        }
+
+        // when adding entries with both existing and new values
+        for ( int value = 10; value < 30; value++ )
+        {
+            statistics.added( hash( value ) );
+        }
+        // and removing all entries of some existing values
+        for ( int value = 0; value < 5; value++ )
+        {
+            statistics.removed( hash( value ) );
+            statistics.removed( hash( value ) );
+        }
+        // and bringing one of them back
+        statistics.added( hash( 0 ) );
+
+        // then
+        assertSample( statistics.toIndexSample(), 40 + 20 - 10 + 1, 30 - 5 + 1 );
+    }
+
+    @Test
+    void shouldEstimateNewValuesWhenManyValues()
+    {
+        // given
+        IncrementalIndexStatistics statistics = new IncrementalIndexStatistics();
+        for ( int value = 0; value < 100_000; value++ )
+        {
+            statistics.include( hash( value ), 1 );
+        }
+
+        // when
+        for ( int value = 100_000; value < 150_000; value++ )
+        {
+            statistics.added( hash( value ) );
+        }
+        for ( int i = 0; i < 50_000; i++ )
+        {
+            statistics.added( hash( random.nextInt( 150_000 ) ) );
+        }
+
+        // then
+        IndexSample sample = statistics.toIndexSample();
+        assertEquals( 200_000, sample.indexSize() );
+        assertThat( (double) sample.uniqueValues() ).isCloseTo( 150_000, within( 150_000 * 0.1 ) );
+    }
+
+    @Test
+    void shouldNotEstimateMoreDistinctValuesThanEntries()
+    {
+        // given
+        IncrementalIndexStatistics statistics = new IncrementalIndexStatistics();
+        for ( int value = 0; value < 1_000; value++ )
+        {
+            statistics.include( hash( value ), 1 );
+        }
+
+        // when
+        for ( int value = 0; value < 1_000; value++ )
+        {
+            statistics.removed( hash( value ) );
+        }
+        statistics.added( hash( 0 ) );
+
+        // then
+        assertSample( statistics.toIndexSample(), 1, 1 );
+    }
+
+    @Test
+    void shouldRebaselineFromSampleOfIndex()
+    {
+        // given statistics which have drifted far from the actual number of distinct values
+        IncrementalIndexStatistics statistics = new IncrementalIndexStatistics();
+        for ( int value = 0; value < 100_000; value++ )
+        {
+            statistics.include( hash( value ), 1 );
+        }
+        for ( int value = 0; value < 100_000; value++ )
+        {
+            statistics.removed( hash( value ) );
+            statistics.added( hash( value % 1_000 ) );
+        }
+
+        // when
+        statistics.rebaseline( new IndexSample( 100_000, 1_000, 100_000 ) );
+
+        // then
+        assertSample( statistics.toIndexSample(), 100_000, 1_000 );
+    }
+
+    @Test
+    void shouldRebaselineFromExtrapolatedSampleOfIndex()
+    {
+        // given
+        IncrementalIndexStatistics statistics = new IncrementalIndexStatistics();
+        for ( int value = 0; value < 1_000; value++ )
+        {
+            statistics.include( hash( value ), 10 );
+        }
+
+        // when sampling a tenth of the index, finding half of the values in it
+        statistics.rebaseline( new IndexSample( 9_000, 50, 1_000 ) );
+
+        // then the number of distinct values is scaled to the exact number of entries
+        assertSample( statistics.toIndexSample(), 10_000, 500 );
+    }
+
+    @Test
+    void shouldContinueFromWrittenStatistics()
+    {
+        // given
+        IncrementalIndexStatistics statistics = new IncrementalIndexStatistics();
+        for ( int value = 0; value < 1_000; value++ )
+        {
+            statistics.include( hash( value ), random.nextInt( 1, 5 ) );
+        }
+        for ( int i = 0; i < 1_000; i++ )
+        {
+            statistics.added( hash( random.nextInt( 2_000 ) ) );
+        }
+
+        // when
+        IncrementalIndexStatistics readStatistics = writeAndRead( statistics );
+
+        // then
+        assertEquals( statistics.toIndexSample(), readStatistics.toIndexSample() );
+        statistics.added( hash( 5_000 ) );
+        readStatistics.added( hash( 5_000 ) );
+        statistics.removed( hash( 0 ) );
+        readStatistics.removed( hash( 0 ) );
+        assertEquals( statistics.toIndexSample(), readStatistics.toIndexSample() );
+    }
+
+    @Test
+    void shouldNotReadStatisticsOfUnknownFormat()
+    {
+        ByteBuffer buffer = ByteBuffer.wrap( new byte[]{Byte.MAX_VALUE} );
+        assertNull( IncrementalIndexStatistics.readFrom( buffer ) );
+    }
+
+    private static IncrementalIndexStatistics writeAndRead( IncrementalIndexStatistics statistics )
+    {
+        byte[] data = new byte[8192];
+        PageCursor cursor = ByteArrayPageCursor.wrap( data );
+        statistics.writeTo( cursor );
+        ByteBuffer buffer = ByteBuffer.wrap( data, 0, cursor.getOffset() );
+        IncrementalIndexStatistics readStatistics = IncrementalIndexStatistics.readFrom( buffer );
+        assertEquals( 0, buffer.remaining() );
+        return readStatistics;
+    }
+
+    private static long hash( int value )
+    {
+        return IncrementalIndexStatistics.hash( new Value[]{intValue( value )} );
+    }
+
+    private static void assertSample( IndexSample sample, long expectedEntries, long expectedUniqueValues )
+    {
+        assertEquals( expectedEntries, sample.indexSize() );
+        assertEquals( expectedEntries, sample.sampleSize() );
+        assertEquals( expectedUniqueValues, sample.uniqueValues() );
+    }
+}
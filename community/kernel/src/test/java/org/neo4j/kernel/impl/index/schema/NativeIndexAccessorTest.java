@@ -24,6 +24,7 @@ import org.neo4j.gis.spatial.index.curves.StandardConfiguration;
 import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
 import org.neo4j.internal.schema.IndexCapability;
 import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.impl.api.index.IndexSamplingConfig;
 import org.neo4j.kernel.impl.index.schema.config.IndexSpecificSpaceFillingCurveSettings;
 import org.neo4j.values.storable.ValueType;
 
@@ -46,7 +47,8 @@ class NativeIndexAccessorTest extends NativeIndexAccessorTests<GenericKey,Native
     {
         RecoveryCleanupWorkCollector cleanup = RecoveryCleanupWorkCollector.immediate();
         DatabaseIndexContext context = DatabaseIndexContext.builder( pageCache, fs ).withMonitor( monitor ).withReadOnly( false ).build();
-        return new GenericNativeIndexAccessor( context, indexFiles, layout, cleanup, indexDescriptor, spaceFillingCurveSettings, configuration );
+        return new GenericNativeIndexAccessor( context, indexFiles, layout, cleanup, indexDescriptor,
+                new IndexSamplingConfig( Config.defaults() ), spaceFillingCurveSettings, configuration );
     }
 
     @Override
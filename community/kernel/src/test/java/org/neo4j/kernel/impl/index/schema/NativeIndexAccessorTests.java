@@ -33,6 +33,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -40,6 +41,7 @@ import java.util.stream.Stream;
 
 import org.neo4j.collection.PrimitiveLongCollections;
 import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.index.internal.gbptree.GBPTree;
 import org.neo4j.internal.kernel.api.IndexQuery;
 import org.neo4j.internal.kernel.api.IndexQueryConstraints;
 import org.neo4j.internal.kernel.api.exceptions.schema.IndexNotApplicableKernelException;
@@ -77,6 +79,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.neo4j.collection.PrimitiveLongCollections.EMPTY_LONG_ARRAY;
 import static org.neo4j.function.Predicates.alwaysTrue;
 import static org.neo4j.function.Predicates.in;
+import static org.neo4j.index.internal.gbptree.GBPTree.NO_HEADER_WRITER;
 import static org.neo4j.internal.helpers.collection.Iterables.asUniqueSet;
 import static org.neo4j.internal.helpers.collection.Iterators.filter;
 import static org.neo4j.internal.kernel.api.IndexQueryConstraints.constrained;
@@ -85,6 +88,7 @@ import static org.neo4j.internal.kernel.api.IndexQueryConstraints.unorderedValue
 import static org.neo4j.internal.kernel.api.QueryContext.NULL_CONTEXT;
 import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
 import static org.neo4j.kernel.impl.api.index.IndexUpdateMode.ONLINE;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexPopulator.BYTE_ONLINE;
 import static org.neo4j.kernel.impl.index.schema.ValueCreatorUtil.countUniqueValues;
 import static org.neo4j.storageengine.api.IndexEntryUpdate.change;
 import static org.neo4j.storageengine.api.IndexEntryUpdate.remove;
@@ -673,6 +677,68 @@ abstract class NativeIndexAccessorTests<KEY extends NativeIndexKey<KEY>, VALUE e
         }
     }
 
+    @Test
+    void shouldNotHaveIncrementalStatisticsWithoutStatisticsInHeader() throws Exception
+    {
+        // given
+        processAll( someUpdatesSingleType() );
+
+        // when/then
+        assertTrue( accessor.incrementalStatistics().isEmpty() );
+    }
+
+    @Test
+    void shouldKeepIncrementalStatisticsInHeaderUpToDate() throws Exception
+    {
+        // given an index with statistics in its header, like after population of a non-unique index
+        accessor.close();
+        GBPTree.overwriteHeader( pageCache, indexFiles.getStoreFile(),
+                new NativeIndexHeaderWriter( BYTE_ONLINE, NO_HEADER_WRITER, new IncrementalIndexStatistics() ), NULL );
+        accessor = makeAccessor( pageCache );
+
+        // when
+        IndexEntryUpdate<IndexDescriptor>[] updates = someUpdatesSingleType();
+        processAll( updates );
+
+        // then
+        IndexSample expected = new IndexSample( updates.length, countUniqueValues( updates ), updates.length );
+        assertEquals( Optional.of( expected ), accessor.incrementalStatistics() );
+
+        // and when
+        accessor.force( IOLimiter.UNLIMITED, NULL );
+        accessor.close();
+        accessor = makeAccessor( pageCache );
+
+        // then
+        assertEquals( Optional.of( expected ), accessor.incrementalStatistics() );
+    }
+
+    @Test
+    void shouldRebaselineIncrementalStatisticsFromCompletedSample() throws Exception
+    {
+        // given an index with statistics in its header which have drifted from the index
+        accessor.close();
+        IncrementalIndexStatistics drifted = new IncrementalIndexStatistics();
+        drifted.include( 0, 1_000 );
+        GBPTree.overwriteHeader( pageCache, indexFiles.getStoreFile(), new NativeIndexHeaderWriter( BYTE_ONLINE, NO_HEADER_WRITER, drifted ), NULL );
+        accessor = makeAccessor( pageCache );
+        IndexEntryUpdate<IndexDescriptor>[] updates = someUpdatesSingleType();
+        processAll( updates );
+
+        // when
+        IndexSample sample;
+        try ( IndexReader reader = accessor.newReader();
+              IndexSampler sampler = reader.createSampler() )
+        {
+            sample = sampler.sampleIndex( NULL );
+        }
+
+        // then the distinct values are those of the sample, scaled to the entries counted by the statistics
+        long entries = 1_000 + updates.length;
+        long expectedUniqueValues = Math.round( (double) sample.uniqueValues() * entries / sample.sampleSize() );
+        assertEquals( Optional.of( new IndexSample( entries, expectedUniqueValues, entries ) ), accessor.incrementalStatistics() );
+    }
+
     @Test
     void readingAfterDropShouldThrow()
     {
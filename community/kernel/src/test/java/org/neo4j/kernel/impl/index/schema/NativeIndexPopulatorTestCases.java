@@ -24,6 +24,7 @@ import java.io.IOException;
 import org.neo4j.configuration.Config;
 import org.neo4j.gis.spatial.index.curves.StandardConfiguration;
 import org.neo4j.internal.schema.IndexDescriptor;
+import org.neo4j.kernel.impl.api.index.IndexSamplingConfig;
 import org.neo4j.kernel.impl.index.schema.config.IndexSpecificSpaceFillingCurveSettings;
 
 import static org.neo4j.io.memory.ByteBufferFactory.heapBufferFactory;
@@ -38,8 +39,8 @@ class NativeIndexPopulatorTestCases
     static PopulatorFactory<GenericKey,NativeIndexValue> genericBlockBasedPopulatorFactory()
     {
         return ( nativeIndexContext, storeFile, layout, descriptor ) ->
-                new GenericBlockBasedIndexPopulator( nativeIndexContext, storeFile, layout, descriptor, spaceFillingCurveSettings, configuration, false,
-                        heapBufferFactory( 10 * 1024 ), INSTANCE );
+                new GenericBlockBasedIndexPopulator( nativeIndexContext, storeFile, layout, descriptor, new IndexSamplingConfig( Config.defaults() ),
+                        spaceFillingCurveSettings, configuration, false, heapBufferFactory( 10 * 1024 ), INSTANCE );
     }
 
     @FunctionalInterface
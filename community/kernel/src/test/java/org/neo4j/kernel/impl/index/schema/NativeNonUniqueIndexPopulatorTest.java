@@ -25,6 +25,8 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Iterator;
 
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.GBPTreeBuilder;
 import org.neo4j.internal.schema.IndexDescriptor;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.api.index.IndexSample;
@@ -36,6 +38,8 @@ import org.neo4j.values.storable.ValueType;
 
 import static java.util.Arrays.asList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.neo4j.index.internal.gbptree.GBPTree.NO_HEADER_READER;
 import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
 import static org.neo4j.kernel.impl.api.index.PhaseTracker.nullInstance;
 import static org.neo4j.kernel.impl.index.schema.ValueCreatorUtil.countUniqueValues;
@@ -123,6 +127,28 @@ abstract class NativeNonUniqueIndexPopulatorTest<KEY extends NativeIndexKey<KEY>
         verifyUpdates( updates );
     }
 
+    @Test
+    void successfulCloseMustWriteIncrementalStatisticsMatchingSampleInHeader() throws Exception
+    {
+        // given
+        populator.create();
+        IndexEntryUpdate<IndexDescriptor>[] updates = valueCreatorUtil.someUpdatesWithDuplicateValues( random );
+        populator.add( asList( updates ), NULL );
+        populator.scanCompleted( nullInstance, jobScheduler, NULL );
+        IndexSample sample = populator.sample( NULL );
+
+        // when
+        populator.close( true, NULL );
+
+        // then
+        NativeIndexHeaderReader headerReader = new NativeIndexHeaderReader( NO_HEADER_READER );
+        try ( GBPTree<KEY,VALUE> ignored = new GBPTreeBuilder<>( pageCache, indexFiles.getStoreFile(), layout ).with( headerReader ).build() )
+        {
+            assertNotNull( headerReader.statistics );
+            assertEquals( sample, headerReader.statistics.toIndexSample() );
+        }
+    }
+
     @Test
     void shouldSampleUpdatesIfConfiguredForOnlineSampling() throws Exception
     {
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import org.neo4j.configuration.Config;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Writer;
+import org.neo4j.internal.schema.IndexDescriptor;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.kernel.api.index.IndexSample;
+import org.neo4j.kernel.impl.index.schema.config.IndexSpecificSpaceFillingCurveSettings;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.neo4j.internal.schema.IndexPrototype.forSchema;
+import static org.neo4j.internal.schema.SchemaDescriptor.forLabel;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.Inclusion.NEUTRAL;
+import static org.neo4j.values.storable.RandomValues.typesOfGroup;
+import static org.neo4j.values.storable.ValueGroup.NUMBER;
+
+class SampledNonUniqueIndexSamplerTest extends NativeIndexTestUtil<GenericKey,NativeIndexValue>
+{
+    private static final IndexSpecificSpaceFillingCurveSettings specificSettings = IndexSpecificSpaceFillingCurveSettings.fromConfig( Config.defaults() );
+    private static final int NUMBER_OF_ENTRIES = 100_000;
+
+    @Test
+    void shouldScanWholeTreeWhenWithinSampleSizeLimit() throws IOException
+    {
+        // given
+        buildTree( NUMBER_OF_ENTRIES, 1_000 );
+
+        // when
+        IndexSample sample = sample( NUMBER_OF_ENTRIES * 2, NULL );
+
+        // then
+        assertEquals( NUMBER_OF_ENTRIES, sample.indexSize() );
+        assertEquals( 1_000, sample.uniqueValues() );
+        assertEquals( NUMBER_OF_ENTRIES, sample.sampleSize() );
+    }
+
+    @Test
+    void shouldEstimateDuplicatedValuesFromSample() throws IOException
+    {
+        // given
+        buildTree( NUMBER_OF_ENTRIES, 1_000 );
+
+        // when
+        IndexSample sample = sample( NUMBER_OF_ENTRIES / 5, NULL );
+
+        // then
+        assertEstimate( sample, 1_000 );
+    }
+
+    @Test
+    void shouldEstimateUniqueValuesFromSample() throws IOException
+    {
+        // given
+        buildTree( NUMBER_OF_ENTRIES, NUMBER_OF_ENTRIES );
+
+        // when
+        IndexSample sample = sample( NUMBER_OF_ENTRIES / 10, NULL );
+
+        // then
+        assertEstimate( sample, NUMBER_OF_ENTRIES );
+    }
+
+    @Test
+    void shouldEstimateFewDistinctValuesFromSample() throws IOException
+    {
+        // given
+        buildTree( NUMBER_OF_ENTRIES, 3 );
+
+        // when
+        IndexSample sample = sample( NUMBER_OF_ENTRIES / 10, NULL );
+
+        // then
+        assertEquals( 3, sample.uniqueValues() );
+    }
+
+    @Test
+    void shouldReadFewerPagesThanFullScan() throws IOException
+    {
+        // given
+        buildTree( NUMBER_OF_ENTRIES, 1_000 );
+        var pageCacheTracer = new DefaultPageCacheTracer();
+        var fullScanTracer = pageCacheTracer.createPageCursorTracer( "fullScan" );
+        var sampleTracer = pageCacheTracer.createPageCursorTracer( "sample" );
+
+        // when
+        sample( NUMBER_OF_ENTRIES, fullScanTracer );
+        sample( NUMBER_OF_ENTRIES / 100, sampleTracer );
+
+        // then
+        assertThat( sampleTracer.pins() ).isLessThan( fullScanTracer.pins() / 2 );
+    }
+
+    private static void assertEstimate( IndexSample sample, long expectedUniqueValues )
+    {
+        // The number of entries is estimated by the tree, which is coarse for trees this small
+        assertThat( (double) sample.indexSize() ).isCloseTo( NUMBER_OF_ENTRIES, within( NUMBER_OF_ENTRIES * 0.25 ) );
+        assertEquals( sample.indexSize(), sample.sampleSize() );
+        double selectivity = (double) sample.uniqueValues() / sample.sampleSize();
+        double expectedSelectivity = (double) expectedUniqueValues / NUMBER_OF_ENTRIES;
+        assertThat( selectivity ).isCloseTo( expectedSelectivity, within( expectedSelectivity * 0.2 ) );
+    }
+
+    private IndexSample sample( int sampleSizeLimit, PageCursorTracer cursorTracer ) throws IOException
+    {
+        try ( GBPTree<GenericKey,NativeIndexValue> gbpTree = getTree() )
+        {
+            return new SampledNonUniqueIndexSampler<>( gbpTree, layout, sampleSizeLimit ).sample( cursorTracer );
+        }
+    }
+
+    private void buildTree( int numberOfEntries, int numberOfDistinctValues ) throws IOException
+    {
+        try ( GBPTree<GenericKey,NativeIndexValue> gbpTree = getTree() )
+        {
+            try ( Writer<GenericKey,NativeIndexValue> writer = gbpTree.writer( NULL ) )
+            {
+                GenericKey key = layout.newKey();
+                NativeIndexValue value = layout.newValue();
+                for ( long nodeId = 0; nodeId < numberOfEntries; nodeId++ )
+                {
+                    Value number = Values.longValue( random.nextInt( numberOfDistinctValues ) );
+                    if ( nodeId < numberOfDistinctValues )
+                    {
+                        // Make sure every value is there
+                        number = Values.longValue( nodeId );
+                    }
+                    key.initialize( nodeId );
+                    key.initFromValue( 0, number, NEUTRAL );
+                    value.from( number );
+                    writer.put( key, value );
+                }
+            }
+            gbpTree.checkpoint( IOLimiter.UNLIMITED, NULL );
+        }
+    }
+
+    @Override
+    protected ValueCreatorUtil<GenericKey,NativeIndexValue> createValueCreatorUtil()
+    {
+        IndexDescriptor index = forSchema( forLabel( 42, 666 ) ).withName( "index" ).materialise( 0 );
+        return new ValueCreatorUtil<>( index, typesOfGroup( NUMBER ), 0 );
+    }
+
+    @Override
+    IndexLayout<GenericKey,NativeIndexValue> createLayout()
+    {
+        return new GenericLayout( 1, specificSettings );
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.Flushable;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.configuration.Config;
+import org.neo4j.io.pagecache.IOLimiter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.check_point_flush_rate;
+import static org.neo4j.io.ByteUnit.kibiBytes;
+import static org.neo4j.io.ByteUnit.mebiBytes;
+
+class BandwidthIOLimiterTest
+{
+    private static final Flushable NO_FLUSH = () -> {};
+
+    @Test
+    void mustBeUnlimitedWhenNoRateIsConfigured()
+    {
+        assertSame( IOLimiter.UNLIMITED, BandwidthIOLimiter.create( Config.defaults() ) );
+    }
+
+    @Test
+    void mustBeLimitedWhenRateIsConfigured()
+    {
+        IOLimiter limiter = BandwidthIOLimiter.create( Config.defaults( check_point_flush_rate, mebiBytes( 10 ) ) );
+        assertThat( limiter ).isInstanceOf( BandwidthIOLimiter.class );
+        assertThat( limiter.isLimited() ).isTrue();
+    }
+
+    @Test
+    void mustPauseToKeepWithinBudget()
+    {
+        // 8 MiB per second, and every call reports 512 KiB of IO, which is 62.5 milliseconds worth of budget.
+        IOLimiter limiter = new BandwidthIOLimiter( mebiBytes( 8 ), (int) kibiBytes( 8 ) );
+        long start = System.nanoTime();
+        long stamp = IOLimiter.INITIAL_STAMP;
+        for ( int i = 0; i < 4; i++ )
+        {
+            stamp = limiter.maybeLimitIO( stamp, 64, NO_FLUSH );
+        }
+        assertThat( System.nanoTime() - start ).isGreaterThanOrEqualTo( TimeUnit.MILLISECONDS.toNanos( 200 ) );
+    }
+
+    @Test
+    void mustNotPauseWhileDisabled()
+    {
+        IOLimiter limiter = new BandwidthIOLimiter( 1, (int) kibiBytes( 8 ) );
+        limiter.disableLimit();
+        try
+        {
+            assertThat( limiter.isLimited() ).isFalse();
+            long start = System.nanoTime();
+            long stamp = IOLimiter.INITIAL_STAMP;
+            for ( int i = 0; i < 4; i++ )
+            {
+                stamp = limiter.maybeLimitIO( stamp, 1_000, NO_FLUSH );
+            }
+            assertThat( System.nanoTime() - start ).isLessThan( TimeUnit.SECONDS.toNanos( 10 ) );
+        }
+        finally
+        {
+            limiter.enableLimit();
+        }
+        assertThat( limiter.isLimited() ).isTrue();
+    }
+}
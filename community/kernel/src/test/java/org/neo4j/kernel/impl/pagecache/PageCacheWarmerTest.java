@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import org.neo4j.configuration.Config;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.layout.DatabaseLayout;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier;
+import org.neo4j.logging.NullLog;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.testdirectory.EphemeralTestDirectoryExtension;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.scheduler.ThreadPoolJobScheduler;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.eclipse.collections.api.factory.Sets.immutable;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.neo4j.configuration.GraphDatabaseSettings.pagecache_warmup_prefetch;
+import static org.neo4j.configuration.GraphDatabaseSettings.pagecache_warmup_prefetch_whitelist;
+import static org.neo4j.io.pagecache.PageCursor.UNBOUND_PAGE_ID;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+import static org.neo4j.test.assertion.Assert.assertEventually;
+
+@EphemeralTestDirectoryExtension
+class PageCacheWarmerTest
+{
+    private static final int FILE_PAGES = 50;
+
+    @Inject
+    private FileSystemAbstraction fs;
+    @Inject
+    private TestDirectory testDirectory;
+
+    private JobScheduler jobScheduler;
+    private DatabaseLayout databaseLayout;
+    private File file;
+
+    @BeforeEach
+    void setUp() throws IOException
+    {
+        jobScheduler = new ThreadPoolJobScheduler();
+        databaseLayout = DatabaseLayout.ofFlat( testDirectory.homeDir() );
+        file = new File( databaseLayout.databaseDirectory(), "store" );
+        try ( PageCache pageCache = createPageCache();
+              PagedFile pagedFile = pageCache.map( file, pageCache.pageSize(), immutable.of( CREATE ) );
+              PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK, NULL ) )
+        {
+            for ( int i = 0; i < FILE_PAGES; i++ )
+            {
+                assertTrue( cursor.next() );
+                cursor.putLong( i );
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception
+    {
+        jobScheduler.close();
+    }
+
+    @Test
+    void reheatMustLoadProfiledPages() throws Exception
+    {
+        try ( PageCache pageCache = createPageCache();
+              PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            touch( pagedFile, 3, 4, 5, 20, 42 );
+            createWarmer( pageCache, Config.defaults() ).profile();
+        }
+
+        PageCacheProfile profile = PageCacheProfile.read( fs, profileFile() );
+        assertThat( profile.runCount() ).isEqualTo( 3 );
+        assertThat( profile.pageCount() ).isEqualTo( 5 );
+
+        try ( PageCache pageCache = createPageCache();
+              PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            assertThat( residentPages( pagedFile ) ).isEmpty();
+            assertThat( createWarmer( pageCache, Config.defaults() ).reheat() ).isEqualTo( 5 );
+            assertThat( residentPages( pagedFile ) ).contains( 3L, 4L, 5L, 20L, 42L );
+        }
+    }
+
+    @Test
+    void backgroundWarmupMustNotWaitForOtherJobsOfItsGroup() throws Exception
+    {
+        try ( PageCache pageCache = createPageCache();
+              PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            touch( pagedFile, 3, 4, 5 );
+            createWarmer( pageCache, Config.defaults() ).profile();
+        }
+
+        // A single thread for all the jobs of the warmer, so a job that waits for another job would never finish.
+        try ( JobScheduler warmerScheduler = new ThreadPoolJobScheduler( Executors.newSingleThreadExecutor() );
+              PageCache pageCache = createPageCache();
+              PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            PageCacheWarmer warmer =
+                    new PageCacheWarmer( fs, pageCache, warmerScheduler, databaseLayout, Config.defaults(), NullLog.getInstance(), PageCacheTracer.NULL );
+            warmer.start();
+            assertEventually( () -> residentPages( pagedFile ), pages -> pages.containsAll( List.of( 3L, 4L, 5L ) ), 1, MINUTES );
+            warmer.stop();
+        }
+    }
+
+    @Test
+    void reheatMustPrefetchEntireWhitelistedFiles() throws Exception
+    {
+        Config config = Config.newBuilder()
+                .set( pagecache_warmup_prefetch, true )
+                .set( pagecache_warmup_prefetch_whitelist, "store" )
+                .build();
+        try ( PageCache pageCache = createPageCache();
+              PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            assertThat( createWarmer( pageCache, config ).reheat() ).isEqualTo( FILE_PAGES );
+            assertThat( residentPages( pagedFile ) ).hasSize( FILE_PAGES );
+        }
+    }
+
+    @Test
+    void reheatMustIgnoreCorruptProfiles() throws Exception
+    {
+        fs.mkdirs( profileFile().getParentFile() );
+        try ( StoreChannel channel = fs.write( profileFile() ) )
+        {
+            channel.writeAll( ByteBuffer.wrap( new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9} ) );
+        }
+
+        try ( PageCache pageCache = createPageCache();
+              PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            assertThat( createWarmer( pageCache, Config.defaults() ).reheat() ).isZero();
+            assertThat( residentPages( pagedFile ) ).isEmpty();
+        }
+    }
+
+    private PageCache createPageCache()
+    {
+        return new MuninnPageCache( new SingleFilePageSwapperFactory( fs ), 100, PageCacheTracer.NULL, EmptyVersionContextSupplier.EMPTY, jobScheduler );
+    }
+
+    private PageCacheWarmer createWarmer( PageCache pageCache, Config config )
+    {
+        return new PageCacheWarmer( fs, pageCache, jobScheduler, databaseLayout, config, NullLog.getInstance(), PageCacheTracer.NULL );
+    }
+
+    private File profileFile()
+    {
+        return new File( new File( databaseLayout.databaseDirectory(), PageCacheWarmer.PROFILES_DIRECTORY ), "store" + PageCacheProfile.SUFFIX );
+    }
+
+    private static void touch( PagedFile pagedFile, long... pageIds ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK, NULL ) )
+        {
+            for ( long pageId : pageIds )
+            {
+                assertTrue( cursor.next( pageId ) );
+            }
+        }
+    }
+
+    private static List<Long> residentPages( PagedFile pagedFile ) throws IOException
+    {
+        List<Long> pageIds = new ArrayList<>();
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT, NULL ) )
+        {
+            while ( cursor.next() )
+            {
+                if ( cursor.getCurrentPageId() != UNBOUND_PAGE_ID )
+                {
+                    pageIds.add( cursor.getCurrentPageId() );
+                }
+            }
+        }
+        return pageIds;
+    }
+}
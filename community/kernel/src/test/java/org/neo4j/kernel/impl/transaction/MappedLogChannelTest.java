@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.zip.Checksum;
+
+import org.neo4j.internal.helpers.collection.Visitor;
+import org.neo4j.io.fs.ChecksumMismatchException;
+import org.neo4j.io.fs.DelegatingStoreChannel;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.ReadPastEndException;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.memory.ByteBuffers;
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
+import org.neo4j.kernel.impl.transaction.log.LogVersionBridge;
+import org.neo4j.kernel.impl.transaction.log.LogVersionedStoreChannel;
+import org.neo4j.kernel.impl.transaction.log.MappedLogChannel;
+import org.neo4j.kernel.impl.transaction.log.PhysicalLogVersionedStoreChannel;
+import org.neo4j.kernel.impl.transaction.log.files.LogFileChannelNativeAccessor;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.testdirectory.TestDirectoryExtension;
+import org.neo4j.test.rule.TestDirectory;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.neo4j.io.ByteUnit.KibiByte;
+import static org.neo4j.io.fs.ChecksumWriter.CHECKSUM_FACTORY;
+import static org.neo4j.kernel.impl.transaction.log.LogVersionBridge.NO_MORE_CHANNELS;
+import static org.neo4j.memory.EmptyMemoryTracker.INSTANCE;
+
+@TestDirectoryExtension
+class MappedLogChannelTest
+{
+    @Inject
+    private FileSystemAbstraction fileSystem;
+    @Inject
+    private TestDirectory directory;
+    private final LogFileChannelNativeAccessor nativeChannelAccessor = mock( LogFileChannelNativeAccessor.class );
+
+    @Test
+    void shouldReadFromSingleMappedChannel() throws Exception
+    {
+        // GIVEN
+        final byte byteValue = (byte) 5;
+        final short shortValue = (short) 56;
+        final int intValue = 32145;
+        final long longValue = 5689456895869L;
+        final float floatValue = 12.12345f;
+        final double doubleValue = 3548.45748D;
+        final byte[] byteArrayValue = new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9};
+        writeSomeData( file( 0 ), element ->
+        {
+            element.put( byteValue );
+            element.putShort( shortValue );
+            element.putInt( intValue );
+            element.putLong( longValue );
+            element.putFloat( floatValue );
+            element.putDouble( doubleValue );
+            element.put( byteArrayValue );
+            return true;
+        } );
+
+        try ( MappedLogChannel channel = new MappedLogChannel( openForVersion( 0 ), NO_MORE_CHANNELS, version -> true, INSTANCE ) )
+        {
+            // THEN
+            assertEquals( byteValue, channel.get() );
+            assertEquals( shortValue, channel.getShort() );
+            assertEquals( intValue, channel.getInt() );
+            assertEquals( longValue, channel.getLong() );
+            assertEquals( floatValue, channel.getFloat(), 0.1f );
+            assertEquals( doubleValue, channel.getDouble(), 0.1d );
+
+            byte[] bytes = new byte[byteArrayValue.length];
+            channel.get( bytes, byteArrayValue.length );
+            assertArrayEquals( byteArrayValue, bytes );
+
+            LogPositionMarker marker = channel.getCurrentPosition( new LogPositionMarker() );
+            assertEquals( 36, marker.getByteOffset() );
+            assertThrows( ReadPastEndException.class, channel::get );
+        }
+    }
+
+    @Test
+    void shouldContinueWithReadAheadWhenReachingVersionThatMayNotBeMapped() throws Exception
+    {
+        // GIVEN
+        writeSomeData( file( 0 ), element ->
+        {
+            for ( int i = 0; i < 10; i++ )
+            {
+                element.putLong( i );
+            }
+            return true;
+        } );
+        writeSomeData( file( 1 ), element ->
+        {
+            for ( int i = 10; i < 20; i++ )
+            {
+                element.putLong( i );
+            }
+            return true;
+        } );
+
+        LogVersionBridge bridge = channel ->
+        {
+            if ( channel.getVersion() == 0 )
+            {
+                channel.close();
+                return openForVersion( 1 );
+            }
+            return channel;
+        };
+        try ( MappedLogChannel channel = new MappedLogChannel( openForVersion( 0 ), bridge, version -> version < 1, INSTANCE ) )
+        {
+            // THEN
+            for ( long i = 0; i < 20; i++ )
+            {
+                assertEquals( i, channel.getLong() );
+                assertEquals( i < 10 ? 0 : 1, channel.getVersion() );
+            }
+            assertThrows( ReadPastEndException.class, channel::get );
+        }
+    }
+
+    @Test
+    void shouldValidateChecksumOfMappedData() throws Exception
+    {
+        // GIVEN
+        ByteBuffer data = ByteBuffers.allocate( 16, INSTANCE );
+        data.putLong( 42 ).putLong( 4242 ).flip();
+        Checksum checksum = CHECKSUM_FACTORY.get();
+        checksum.update( data );
+        int expectedChecksum = (int) checksum.getValue();
+        writeSomeData( file( 0 ), element ->
+        {
+            element.putLong( 42 ).putLong( 4242 ).putInt( expectedChecksum );
+            element.putLong( 42 ).putLong( 4242 ).putInt( expectedChecksum + 1 );
+            return true;
+        } );
+
+        try ( MappedLogChannel channel = new MappedLogChannel( openForVersion( 0 ), NO_MORE_CHANNELS, version -> true, INSTANCE ) )
+        {
+            // THEN
+            channel.beginChecksum();
+            assertEquals( 42, channel.getLong() );
+            assertEquals( 4242, channel.getLong() );
+            assertEquals( expectedChecksum, channel.endChecksumAndValidate() );
+
+            assertEquals( 42, channel.getLong() );
+            assertEquals( 4242, channel.getLong() );
+            assertThrows( ChecksumMismatchException.class, channel::endChecksumAndValidate );
+        }
+    }
+
+    @Test
+    void shouldRepositionWithinMappedFile() throws Exception
+    {
+        // GIVEN
+        writeSomeData( file( 0 ), element ->
+        {
+            for ( int i = 0; i < 10; i++ )
+            {
+                element.putLong( i );
+            }
+            return true;
+        } );
+
+        try ( MappedLogChannel channel = new MappedLogChannel( openForVersion( 0 ), NO_MORE_CHANNELS, version -> true, INSTANCE ) )
+        {
+            // WHEN
+            channel.setCurrentPosition( Long.BYTES * 7 );
+
+            // THEN
+            assertEquals( 7, channel.getLong() );
+            channel.setCurrentPosition( Long.BYTES * 2 );
+            assertEquals( 2, channel.getLong() );
+        }
+    }
+
+    @Test
+    void shouldContinueWithReadAheadWhenMappingFailsInTheMiddleOfAFile() throws Exception
+    {
+        // GIVEN
+        ByteBuffer data = ByteBuffers.allocate( 10 * Long.BYTES, INSTANCE );
+        for ( int i = 0; i < 10; i++ )
+        {
+            data.putLong( i );
+        }
+        data.flip();
+        Checksum checksum = CHECKSUM_FACTORY.get();
+        checksum.update( data );
+        int expectedChecksum = (int) checksum.getValue();
+        writeSomeData( file( 0 ), element ->
+        {
+            element.put( data.flip() ).putInt( expectedChecksum );
+            return true;
+        } );
+
+        // a first segment that ends in the middle of the third long, after which the file can't be mapped any more
+        try ( MappedLogChannel channel = new MappedLogChannel( openForVersion( 0, 20 ), NO_MORE_CHANNELS, version -> true, INSTANCE ) )
+        {
+            // THEN
+            channel.beginChecksum();
+            for ( long i = 0; i < 10; i++ )
+            {
+                assertEquals( i, channel.getLong() );
+            }
+            assertEquals( expectedChecksum, channel.endChecksumAndValidate() );
+            assertThrows( ReadPastEndException.class, channel::get );
+        }
+    }
+
+    @Test
+    void shouldContinueWithReadAheadWhenRepositioningFailsToMap() throws Exception
+    {
+        // GIVEN
+        writeSomeData( file( 0 ), element ->
+        {
+            for ( int i = 0; i < 10; i++ )
+            {
+                element.putLong( i );
+            }
+            return true;
+        } );
+        LogVersionedStoreChannel storeChannel = openForVersion( 0, Long.MAX_VALUE );
+        storeChannel.position( Long.BYTES * 2 );
+
+        try ( MappedLogChannel channel = new MappedLogChannel( storeChannel, NO_MORE_CHANNELS, version -> true, INSTANCE ) )
+        {
+            assertEquals( 2, channel.getLong() );
+
+            // WHEN
+            channel.setCurrentPosition( 0 );
+
+            // THEN
+            for ( long i = 0; i < 10; i++ )
+            {
+                assertEquals( i, channel.getLong() );
+            }
+            assertThrows( ReadPastEndException.class, channel::get );
+        }
+    }
+
+    private LogVersionedStoreChannel openForVersion( long version ) throws IOException
+    {
+        StoreChannel storeChannel = fileSystem.read( file( version ) );
+        return new PhysicalLogVersionedStoreChannel( storeChannel, version, (byte) -1, file( version ), nativeChannelAccessor );
+    }
+
+    /**
+     * Opens a channel that can only be mapped once, and then at most {@code mappedSize} bytes of it.
+     */
+    private LogVersionedStoreChannel openForVersion( long version, long mappedSize ) throws IOException
+    {
+        StoreChannel storeChannel = new DelegatingStoreChannel<>( fileSystem.read( file( version ) ) )
+        {
+            private boolean mapped;
+
+            @Override
+            public MappedByteBuffer mapReadOnly( long position, long size ) throws IOException
+            {
+                if ( mapped )
+                {
+                    return null;
+                }
+                mapped = true;
+                return super.mapReadOnly( position, Math.min( size, mappedSize ) );
+            }
+        };
+        return new PhysicalLogVersionedStoreChannel( storeChannel, version, (byte) -1, file( version ), nativeChannelAccessor );
+    }
+
+    private void writeSomeData( File file, Visitor<ByteBuffer, IOException> visitor ) throws IOException
+    {
+        try ( StoreChannel channel = fileSystem.write( file ) )
+        {
+            ByteBuffer buffer = ByteBuffers.allocate( 1, KibiByte, INSTANCE );
+            visitor.visit( buffer );
+            buffer.flip();
+            channel.writeAll( buffer );
+        }
+    }
+
+    private File file( long version )
+    {
+        return new File( directory.homeDir(), "" + version );
+    }
+}
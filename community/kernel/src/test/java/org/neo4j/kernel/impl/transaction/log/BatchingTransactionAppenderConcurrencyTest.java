@@ -30,6 +30,10 @@ import java.io.Flushable;
 import java.io.IOException;
 import java.lang.StackWalker.StackFrame;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
@@ -219,6 +223,76 @@ public class BatchingTransactionAppenderConcurrencyTest
         assertTrue( channelCommandQueue.isEmpty(), "Command queue: " + channelCommandQueue );
     }
 
+    @Test
+    void shouldAppendBatchesOfWaitingCommittersAsOneGroup() throws Throwable
+    {
+        channelCommandQueue.put( ChannelCommand.dummy );
+
+        // The first committer will write its own batch and then block on 'force' because the queue is at capacity,
+        // which lets all the other committers pile up behind it.
+
+        final BatchingTransactionAppender appender = life.add( createTransactionAppender() );
+        life.start();
+
+        Future<Long> first = executor.submit( () -> appender.append( tx(), logAppendEvent ) );
+
+        forceSemaphore.acquire();
+
+        List<Future<Long>> others = new ArrayList<>();
+        for ( int i = 0; i < 10; i++ )
+        {
+            others.add( executor.submit( () -> appender.append( tx(), logAppendEvent ) ) );
+        }
+        awaitThreadsWaitingForGroupCommit( others.size() );
+
+        // Only two forces are needed: one for the first committer and one for everyone who arrived while it was forcing.
+        assertThat( channelCommandQueue.take() ).isEqualTo( ChannelCommand.dummy );
+        assertThat( channelCommandQueue.take() ).isEqualTo( ChannelCommand.emptyBufferIntoChannelAndClearIt );
+        assertThat( channelCommandQueue.take() ).isEqualTo( ChannelCommand.force );
+        assertThat( channelCommandQueue.take() ).isEqualTo( ChannelCommand.emptyBufferIntoChannelAndClearIt );
+        assertThat( channelCommandQueue.take() ).isEqualTo( ChannelCommand.force );
+
+        Set<Long> committedIds = new HashSet<>();
+        assertThat( first.get() ).isEqualTo( TransactionIdStore.BASE_TX_ID + 1 );
+        for ( Future<Long> other : others )
+        {
+            committedIds.add( other.get() );
+        }
+        assertThat( committedIds ).hasSize( others.size() );
+        assertThat( committedIds ).allMatch( id -> id > TransactionIdStore.BASE_TX_ID + 1 && id <= TransactionIdStore.BASE_TX_ID + 1 + others.size() );
+        assertThat( transactionIdStore.getLastCommittedTransactionId() ).isEqualTo( TransactionIdStore.BASE_TX_ID + 1 + others.size() );
+        assertTrue( channelCommandQueue.isEmpty(), "Command queue: " + channelCommandQueue );
+    }
+
+    @Test
+    void shouldAppendBatchWhileLogIsBeingForced() throws Throwable
+    {
+        channelCommandQueue.put( ChannelCommand.dummy );
+
+        // The first committer will write its own batch and then block on 'force' because the queue is at capacity
+        final BatchingTransactionAppender appender = life.add( createTransactionAppender() );
+        life.start();
+
+        Future<Long> first = executor.submit( () -> appender.append( tx(), logAppendEvent ) );
+        forceSemaphore.acquire();
+
+        Future<Long> second = executor.submit( () -> appender.append( tx(), logAppendEvent ) );
+        awaitThreadsWaitingForGroupCommit( 1 );
+
+        // The second batch is in the log already, while the first committer is still forcing
+        assertThat( transactionMetadataCache.getTransactionMetadata( TransactionIdStore.BASE_TX_ID + 2 ) ).isNotNull();
+        assertThat( first.isDone() ).isFalse();
+
+        assertThat( channelCommandQueue.take() ).isEqualTo( ChannelCommand.dummy );
+        assertThat( channelCommandQueue.take() ).isEqualTo( ChannelCommand.emptyBufferIntoChannelAndClearIt );
+        assertThat( channelCommandQueue.take() ).isEqualTo( ChannelCommand.force );
+        assertThat( channelCommandQueue.take() ).isEqualTo( ChannelCommand.emptyBufferIntoChannelAndClearIt );
+        assertThat( channelCommandQueue.take() ).isEqualTo( ChannelCommand.force );
+        assertThat( first.get() ).isEqualTo( TransactionIdStore.BASE_TX_ID + 1 );
+        assertThat( second.get() ).isEqualTo( TransactionIdStore.BASE_TX_ID + 2 );
+        assertTrue( channelCommandQueue.isEmpty(), "Command queue: " + channelCommandQueue );
+    }
+
     /*
      * There was an issue where if multiple concurrent appending threads did append and they moved on
      * to await a force, where the force would fail and the one doing the force would raise a panic...
@@ -443,6 +517,27 @@ public class BatchingTransactionAppenderConcurrencyTest
         };
     }
 
+    private static void awaitThreadsWaitingForGroupCommit( int expectedThreads ) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + MILLISECONDS_TO_WAIT;
+        while ( countThreadsWaitingForGroupCommit() < expectedThreads )
+        {
+            if ( System.currentTimeMillis() > deadline )
+            {
+                fail( "Committers did not start waiting for the group commit in time" );
+            }
+            Thread.sleep( 10 );
+        }
+    }
+
+    private static long countThreadsWaitingForGroupCommit()
+    {
+        return Thread.getAllStackTraces().entrySet().stream()
+                .filter( entry -> entry.getKey().getState() == Thread.State.TIMED_WAITING )
+                .filter( entry -> Stream.of( entry.getValue() ).anyMatch( e -> e.getMethodName().equals( "awaitGroupCommit" ) ) )
+                .count();
+    }
+
     private static Predicate<StackFrame> failMethod( final Class<?> klass, final String methodName )
     {
         return frame -> frame.getClassName().equals( klass.getName() ) && frame.getMethodName().equals( methodName );
@@ -463,6 +558,11 @@ public class BatchingTransactionAppenderConcurrencyTest
 
     class CommandQueueChannel extends InMemoryClosableChannel implements Flushable
     {
+        CommandQueueChannel()
+        {
+            super( 10_000 );
+        }
+
         @Override
         public Flushable prepareForFlush()
         {
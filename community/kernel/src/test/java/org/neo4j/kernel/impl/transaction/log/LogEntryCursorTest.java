@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.kernel.impl.api.TestCommand;
+import org.neo4j.kernel.impl.api.TestCommandReaderFactory;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommand;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
+import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
+import org.neo4j.storageengine.api.StorageCommand;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.neo4j.storageengine.api.TransactionIdStore.BASE_TX_CHECKSUM;
+
+class LogEntryCursorTest
+{
+    private final LogEntryReader logEntryReader = new VersionAwareLogEntryReader( new TestCommandReaderFactory() );
+
+    @Test
+    void shouldHandOutCommandsOfCompressedBlockOneByOne() throws IOException
+    {
+        // given
+        List<StorageCommand> commands = commands( 0 );
+        InMemoryClosableChannel channel = new InMemoryClosableChannel();
+        writeCompressedTransaction( channel, commands );
+
+        // when
+        try ( LogEntryCursor cursor = new LogEntryCursor( logEntryReader, channel ) )
+        {
+            // then
+            assertTrue( cursor.next() );
+            assertTrue( cursor.get() instanceof LogEntryStart );
+            for ( StorageCommand command : commands )
+            {
+                assertTrue( cursor.next() );
+                assertEquals( new LogEntryCommand( command ), cursor.get() );
+            }
+            assertTrue( cursor.next() );
+            assertTrue( cursor.get() instanceof LogEntryCommit );
+            assertFalse( cursor.next() );
+        }
+    }
+
+    @Test
+    void cursorsSharingReaderMustNotSeeCommandsOfEachOthersCompressedBlocks() throws IOException
+    {
+        // given
+        List<StorageCommand> firstCommands = commands( 0 );
+        List<StorageCommand> secondCommands = commands( 100 );
+        InMemoryClosableChannel firstChannel = new InMemoryClosableChannel();
+        InMemoryClosableChannel secondChannel = new InMemoryClosableChannel();
+        writeCompressedTransaction( firstChannel, firstCommands );
+        writeCompressedTransaction( secondChannel, secondCommands );
+
+        try ( LogEntryCursor first = new LogEntryCursor( logEntryReader, firstChannel );
+              LogEntryCursor second = new LogEntryCursor( logEntryReader, secondChannel ) )
+        {
+            // when both cursors are in the middle of their compressed blocks
+            assertTrue( first.next() );
+            assertTrue( first.next() );
+            assertEquals( new LogEntryCommand( firstCommands.get( 0 ) ), first.get() );
+            assertTrue( second.next() );
+            assertTrue( second.get() instanceof LogEntryStart );
+
+            // then
+            for ( int i = 0; i < secondCommands.size(); i++ )
+            {
+                assertTrue( first.next() );
+                assertTrue( second.next() );
+                if ( i + 1 < firstCommands.size() )
+                {
+                    assertEquals( new LogEntryCommand( firstCommands.get( i + 1 ) ), first.get() );
+                }
+                else
+                {
+                    assertTrue( first.get() instanceof LogEntryCommit );
+                }
+                assertEquals( new LogEntryCommand( secondCommands.get( i ) ), second.get() );
+            }
+        }
+    }
+
+    private static List<StorageCommand> commands( int offset )
+    {
+        List<StorageCommand> commands = new ArrayList<>();
+        for ( int i = 0; i < 10; i++ )
+        {
+            byte[] bytes = new byte[32];
+            bytes[0] = (byte) (offset + i);
+            commands.add( new TestCommand( bytes ) );
+        }
+        return commands;
+    }
+
+    private static void writeCompressedTransaction( InMemoryClosableChannel channel, List<StorageCommand> commands ) throws IOException
+    {
+        LogEntryWriter writer = new LogEntryWriter( channel, true );
+        writer.writeStartEntry( 1, 2, BASE_TX_CHECKSUM, new byte[0] );
+        writer.serialize( commands );
+        writer.writeCommitEntry( 42, 21 );
+    }
+}
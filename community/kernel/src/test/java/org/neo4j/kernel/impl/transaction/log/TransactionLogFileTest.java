@@ -435,6 +435,30 @@ class TransactionLogFileTest
             return NativeCallResult.SUCCESS;
         }
 
+        @Override
+        public NativeCallResult tryAdviseHugePages( long address, long length )
+        {
+            return NativeCallResult.SUCCESS;
+        }
+
+        @Override
+        public int numaNodeCount()
+        {
+            return 1;
+        }
+
+        @Override
+        public NativeCallResult tryInterleaveMemory( long address, long length )
+        {
+            return NativeCallResult.SUCCESS;
+        }
+
+        @Override
+        public NativeCallResult tryPlaceMemoryOnNode( long address, long length, int nodeIndex )
+        {
+            return NativeCallResult.SUCCESS;
+        }
+
         @Override
         public String describe()
         {
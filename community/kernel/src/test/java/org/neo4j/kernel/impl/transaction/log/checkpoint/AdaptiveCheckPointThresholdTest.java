@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PagedFile;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.check_point_recovery_replay_rate;
+import static org.neo4j.configuration.GraphDatabaseSettings.check_point_recovery_time_target;
+import static org.neo4j.io.ByteUnit.mebiBytes;
+import static org.neo4j.io.pagecache.PageCache.PAGE_SIZE;
+
+class AdaptiveCheckPointThresholdTest extends CheckPointThresholdTestSupport
+{
+    private PagedFile pagedFile;
+    private long appendedBytes;
+
+    @BeforeEach
+    void setUpAdaptivePolicy() throws IOException
+    {
+        withPolicy( "adaptive" );
+        config.set( check_point_recovery_time_target, Duration.ofSeconds( 60 ) );
+        config.set( check_point_recovery_replay_rate, mebiBytes( 1 ) );
+        pagedFile = mock( PagedFile.class );
+        when( pagedFile.pageSize() ).thenReturn( PAGE_SIZE );
+        when( pageCache.listExistingMappings() ).thenReturn( List.of( pagedFile ) );
+        when( logCounters.appendedBytes() ).thenAnswer( invocation -> appendedBytes );
+    }
+
+    @Test
+    void mustTriggerWhenLogToReplayExceedsRecoveryTimeTarget()
+    {
+        CheckPointThreshold threshold = createThreshold();
+        threshold.initialize( 1 );
+
+        // Appended slowly enough that the log budget is not expected to run out soon
+        appendedBytes = mebiBytes( 59 );
+        clock.forward( 400, SECONDS );
+        assertFalse( threshold.isCheckPointingNeeded( 2, notTriggered ) );
+
+        appendedBytes = mebiBytes( 60 );
+        clock.forward( 1, SECONDS );
+        assertTrue( threshold.isCheckPointingNeeded( 3, triggered ) );
+        verifyTriggered( "recovery time target" );
+        verifyNoMoreTriggers();
+    }
+
+    @Test
+    void mustNotTriggerWithoutNewTransactions()
+    {
+        CheckPointThreshold threshold = createThreshold();
+        threshold.initialize( 1 );
+
+        appendedBytes = mebiBytes( 100 );
+        clock.forward( 1, SECONDS );
+        assertFalse( threshold.isCheckPointingNeeded( 1, notTriggered ) );
+    }
+
+    @Test
+    void mustCountLogToReplayFromLastCheckPoint()
+    {
+        CheckPointThreshold threshold = createThreshold();
+        threshold.initialize( 1 );
+
+        appendedBytes = mebiBytes( 60 );
+        clock.forward( 400, SECONDS );
+        assertTrue( threshold.isCheckPointingNeeded( 2, triggered ) );
+        threshold.checkPointHappened( 2 );
+
+        clock.forward( 60, SECONDS );
+        assertFalse( threshold.isCheckPointingNeeded( 3, notTriggered ) );
+    }
+
+    @Test
+    void mustTriggerEarlierWhenThereAreMoreDirtyPagesToFlush()
+    {
+        long withoutDirtyPages = logAppendedBeforeTrigger( 0 );
+        long withDirtyPages = logAppendedBeforeTrigger( mebiBytes( 320 ) / PAGE_SIZE );
+
+        assertThat( withDirtyPages ).isLessThan( withoutDirtyPages );
+        assertThat( withoutDirtyPages ).isLessThan( mebiBytes( 60 ) );
+    }
+
+    @Test
+    void mustPaceTriggeredCheckPointUntilItHasHappened()
+    {
+        CheckPointThreshold threshold = createThreshold();
+        PacingIOLimiter limiter = (PacingIOLimiter) threshold.checkPointIOLimiter( IOLimiter.UNLIMITED );
+        when( pagedFile.dirtyPages() ).thenReturn( mebiBytes( 32 ) / PAGE_SIZE );
+        threshold.initialize( 1 );
+
+        long txId = 1;
+        while ( !threshold.isCheckPointingNeeded( ++txId, triggered ) )
+        {
+            appendedBytes += mebiBytes( 1 );
+            clock.forward( 1, SECONDS );
+        }
+        assertThat( limiter.pace() ).isGreaterThan( 0L ).isLessThan( mebiBytes( 32 ) );
+        assertTrue( limiter.isLimited() );
+
+        threshold.checkPointHappened( txId );
+        assertThat( limiter.pace() ).isZero();
+        assertFalse( limiter.isLimited() );
+    }
+
+    @Test
+    void mustNotPaceWhileLimitIsDisabled()
+    {
+        PacingIOLimiter limiter = new PacingIOLimiter( IOLimiter.UNLIMITED, PAGE_SIZE );
+        limiter.pace( 1 );
+        assertTrue( limiter.isLimited() );
+
+        limiter.disableLimit();
+        assertFalse( limiter.isLimited() );
+        long start = System.nanoTime();
+        limiter.maybeLimitIO( IOLimiter.INITIAL_STAMP, 1000, () -> {} );
+        assertThat( System.nanoTime() - start ).isLessThan( SECONDS.toNanos( 1 ) );
+
+        limiter.enableLimit();
+        assertTrue( limiter.isLimited() );
+    }
+
+    private long logAppendedBeforeTrigger( long dirtyPages )
+    {
+        appendedBytes = 0;
+        when( pagedFile.dirtyPages() ).thenReturn( dirtyPages );
+        CheckPointThreshold threshold = createThreshold();
+        threshold.initialize( 1 );
+
+        long txId = 1;
+        while ( !threshold.isCheckPointingNeeded( ++txId, triggered ) )
+        {
+            appendedBytes += mebiBytes( 1 );
+            clock.forward( 1, SECONDS );
+        }
+        return appendedBytes;
+    }
+}
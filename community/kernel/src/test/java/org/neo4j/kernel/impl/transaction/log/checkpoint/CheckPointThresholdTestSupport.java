@@ -30,7 +30,9 @@ import java.util.function.Consumer;
 import org.neo4j.configuration.Config;
 import org.neo4j.configuration.GraphDatabaseSettings;
 import org.neo4j.configuration.SettingImpl;
+import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.impl.transaction.log.pruning.LogPruning;
+import org.neo4j.kernel.impl.transaction.stats.TransactionLogCounters;
 import org.neo4j.logging.LogProvider;
 import org.neo4j.logging.NullLogProvider;
 import org.neo4j.time.Clocks;
@@ -38,12 +40,17 @@ import org.neo4j.time.FakeClock;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.neo4j.io.pagecache.PageCache.PAGE_SIZE;
 
 public class CheckPointThresholdTestSupport
 {
     protected Config config;
     protected FakeClock clock;
     protected LogPruning logPruning;
+    protected TransactionLogCounters logCounters;
+    protected PageCache pageCache;
     protected LogProvider logProvider;
     protected Integer intervalTx;
     protected Duration intervalTime;
@@ -57,6 +64,9 @@ public class CheckPointThresholdTestSupport
         config = Config.defaults();
         clock = Clocks.fakeClock();
         logPruning = LogPruning.NO_PRUNING;
+        logCounters = mock( TransactionLogCounters.class );
+        pageCache = mock( PageCache.class );
+        when( pageCache.pageSize() ).thenReturn( PAGE_SIZE );
         logProvider = NullLogProvider.getInstance();
         intervalTx = config.get( GraphDatabaseSettings.check_point_interval_tx );
         intervalTime = config.get( GraphDatabaseSettings.check_point_interval_time );
@@ -84,7 +94,7 @@ public class CheckPointThresholdTestSupport
 
     protected CheckPointThreshold createThreshold()
     {
-        return CheckPointThreshold.createThreshold( config, clock, logPruning, logProvider );
+        return CheckPointThreshold.createThreshold( config, clock, logPruning, logCounters, pageCache, logProvider );
     }
 
     protected void verifyTriggered( String... reason )
@@ -23,12 +23,15 @@ import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.neo4j.kernel.impl.api.TestCommand;
 import org.neo4j.kernel.impl.api.TestCommandReaderFactory;
 import org.neo4j.kernel.impl.transaction.log.InMemoryClosableChannel;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.storageengine.api.CommandReader;
+import org.neo4j.storageengine.api.StorageCommand;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -143,6 +146,86 @@ class VersionAwareLogEntryReaderTest
         assertNull( logEntry );
     }
 
+    @Test
+    void shouldReadCommandsOfACompressedCommandBlock() throws IOException
+    {
+        // given
+        List<StorageCommand> commands = compressibleCommands();
+        final InMemoryClosableChannel channel = new InMemoryClosableChannel();
+        final InMemoryClosableChannel uncompressedChannel = new InMemoryClosableChannel();
+        writeTransaction( new LogEntryWriter( channel, true ), commands );
+        writeTransaction( new LogEntryWriter( uncompressedChannel, false ), commands );
+
+        // when
+        final LogEntry start = logEntryReader.readLogEntry( channel );
+        final LogEntry block = logEntryReader.readLogEntry( channel );
+        final LogEntry commit = logEntryReader.readLogEntry( channel );
+
+        // then
+        assertTrue( channel.writerPosition() < uncompressedChannel.writerPosition() );
+        assertTrue( start instanceof LogEntryStart );
+        List<LogEntryCommand> readCommands = ((LogEntryCompressedCommands) block).getCommands();
+        assertEquals( commands.size(), readCommands.size() );
+        for ( int i = 0; i < commands.size(); i++ )
+        {
+            assertEquals( new LogEntryCommand( commands.get( i ) ), readCommands.get( i ) );
+        }
+        assertEquals( new LogEntryCommit( 42, 21, ((LogEntryCommit) commit).getChecksum() ), commit );
+        assertNull( logEntryReader.readLogEntry( channel ) );
+    }
+
+    @Test
+    void shouldFailOnCompressedCommandBlockWithCorruptLengths() throws IOException
+    {
+        assertCorruptCompressedBlock( -1, 100 );
+        assertCorruptCompressedBlock( Integer.MAX_VALUE, 100 );
+        assertCorruptCompressedBlock( 100, Integer.MAX_VALUE );
+        assertCorruptCompressedBlock( 100, -5 );
+        assertCorruptCompressedBlock( 100, 0 );
+    }
+
+    @Test
+    void shouldFailOnCompressedCommandBlockThatInflatesToAnotherLength() throws IOException
+    {
+        // given
+        final InMemoryClosableChannel channel = new InMemoryClosableChannel();
+        writeTransaction( new LogEntryWriter( channel, true ), compressibleCommands() );
+        logEntryReader.readLogEntry( channel );
+        int blockPosition = channel.readerPosition();
+        // bump the uncompressed length that follows the version and type of the block
+        channel.positionReader( blockPosition + 2 );
+        int uncompressedLength = channel.getInt();
+        int end = channel.positionWriter( blockPosition + 2 );
+        channel.putInt( uncompressedLength + 1 );
+        channel.positionWriter( end );
+
+        // when
+        channel.positionReader( blockPosition );
+        IOException e = assertThrows( IOException.class, () -> logEntryReader.readLogEntry( channel ) );
+
+        // then
+        assertTrue( e.getMessage().contains( "did not inflate to the expected" ), e.getMessage() );
+    }
+
+    @Test
+    void shouldWriteSmallCommandBlocksUncompressed() throws IOException
+    {
+        // given
+        List<StorageCommand> commands = List.of( new TestCommand( new byte[] {100, 101, 102} ) );
+        final InMemoryClosableChannel channel = new InMemoryClosableChannel();
+        final InMemoryClosableChannel uncompressedChannel = new InMemoryClosableChannel();
+
+        // when
+        writeTransaction( new LogEntryWriter( channel, true ), commands );
+        writeTransaction( new LogEntryWriter( uncompressedChannel, false ), commands );
+
+        // then
+        assertEquals( uncompressedChannel.writerPosition(), channel.writerPosition() );
+        assertTrue( logEntryReader.readLogEntry( channel ) instanceof LogEntryStart );
+        assertEquals( new LogEntryCommand( commands.get( 0 ) ), logEntryReader.readLogEntry( channel ) );
+        assertTrue( logEntryReader.readLogEntry( channel ) instanceof LogEntryCommit );
+    }
+
     @Disabled // TODO it's not clear what the benefit verifying the chain will give us, so it's disable for now
     @Test
     void shouldValidateChecksumChain() throws IOException
@@ -184,6 +267,36 @@ class VersionAwareLogEntryReaderTest
         assertTrue( e.getMessage().contains( "The checksum chain is broken" ) );
     }
 
+    private void assertCorruptCompressedBlock( int uncompressedLength, int compressedLength )
+    {
+        final InMemoryClosableChannel channel = new InMemoryClosableChannel();
+        channel.put( LATEST.version() );
+        channel.put( LogEntryTypeCodes.COMPRESSED_COMMANDS );
+        channel.putInt( uncompressedLength );
+        channel.putInt( compressedLength );
+        channel.put( new byte[16], 16 );
+
+        IOException e = assertThrows( IOException.class, () -> logEntryReader.readLogEntry( channel ) );
+        assertTrue( e.getMessage().contains( "Corrupt compressed command block" ), e.getMessage() );
+    }
+
+    private static List<StorageCommand> compressibleCommands()
+    {
+        List<StorageCommand> commands = new ArrayList<>();
+        for ( int i = 0; i < 10; i++ )
+        {
+            commands.add( new TestCommand( new byte[] {(byte) i, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 24, 25} ) );
+        }
+        return commands;
+    }
+
+    private static void writeTransaction( LogEntryWriter writer, List<StorageCommand> commands ) throws IOException
+    {
+        writer.writeStartEntry( 1, 2, BASE_TX_CHECKSUM, new byte[0] );
+        writer.serialize( commands );
+        writer.writeCommitEntry( 42, 21 );
+    }
+
     private static void writeStartEntry( InMemoryClosableChannel channel, LogEntryStart start )
     {
         channel.beginChecksum();
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.files;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import org.neo4j.configuration.Config;
+import org.neo4j.configuration.GraphDatabaseInternalSettings;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.layout.DatabaseLayout;
+import org.neo4j.kernel.impl.api.TestCommand;
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.transaction.SimpleLogVersionRepository;
+import org.neo4j.kernel.impl.transaction.SimpleTransactionIdStore;
+import org.neo4j.kernel.impl.transaction.log.BatchingTransactionAppender;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.PhysicalLogicalTransactionStore;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.TransactionCursor;
+import org.neo4j.kernel.impl.transaction.log.TransactionMetadataCache;
+import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
+import org.neo4j.kernel.lifecycle.LifeSupport;
+import org.neo4j.monitoring.DatabaseHealth;
+import org.neo4j.monitoring.Monitors;
+import org.neo4j.storageengine.api.StoreId;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.storageengine.api.TransactionIdStore;
+import org.neo4j.test.OnDemandJobScheduler;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.Neo4jLayoutExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+import static org.neo4j.kernel.impl.transaction.log.TestLogEntryReader.logEntryReader;
+import static org.neo4j.kernel.impl.transaction.log.rotation.LogRotation.NO_ROTATION;
+
+@Neo4jLayoutExtension
+class TransactionLogOffsetIndexTest
+{
+    private static final int TRANSACTIONS = 1_000;
+
+    @Inject
+    private FileSystemAbstraction fileSystem;
+    @Inject
+    private DatabaseLayout databaseLayout;
+
+    private final TransactionIdStore transactionIdStore = new SimpleTransactionIdStore();
+    private final SimpleLogVersionRepository logVersionRepository = new SimpleLogVersionRepository();
+    private final TransactionMetadataCache metadataCache = new TransactionMetadataCache();
+
+    @Test
+    void shouldWriteIndexOfRotatedLogVersionInTheBackground() throws IOException
+    {
+        OnDemandJobScheduler jobScheduler = new OnDemandJobScheduler();
+        LifeSupport life = new LifeSupport();
+        LogFiles logFiles = buildLogFiles( jobScheduler );
+        life.add( logFiles );
+        life.start();
+        try
+        {
+            appendTransactionsAndRotate( life, logFiles );
+
+            File indexFile = TransactionLogOffsetIndex.indexFileFor( logFiles.getLogFileForVersion( 0 ) );
+            assertFalse( fileSystem.fileExists( indexFile ) );
+            verifyTransactionsCanBeFound( logFiles );
+
+            jobScheduler.runJob();
+            assertTrue( fileSystem.fileExists( indexFile ) );
+            assertFalse( logFiles.isLogFile( indexFile ) );
+            verifyTransactionsCanBeFound( logFiles );
+        }
+        finally
+        {
+            life.shutdown();
+        }
+    }
+
+    @Test
+    void shouldWriteIndexOfRotatedLogVersionOnShutdownWithoutScheduler() throws IOException
+    {
+        LifeSupport life = new LifeSupport();
+        LogFiles logFiles = buildLogFiles();
+        life.add( logFiles );
+        life.start();
+        File indexFile = TransactionLogOffsetIndex.indexFileFor( logFiles.getLogFileForVersion( 0 ) );
+        try
+        {
+            appendTransactionsAndRotate( life, logFiles );
+            assertFalse( fileSystem.fileExists( indexFile ) );
+        }
+        finally
+        {
+            life.shutdown();
+        }
+        assertTrue( fileSystem.fileExists( indexFile ) );
+    }
+
+    @Test
+    void shouldRebuildMissingIndexOfClosedLogVersion() throws IOException
+    {
+        LifeSupport life = new LifeSupport();
+        LogFiles logFiles = buildLogFiles();
+        life.add( logFiles );
+        life.start();
+        try
+        {
+            appendTransactionsAndRotate( life, logFiles );
+        }
+        finally
+        {
+            life.shutdown();
+        }
+        File indexFile = TransactionLogOffsetIndex.indexFileFor( logFiles.getLogFileForVersion( 0 ) );
+        fileSystem.deleteFile( indexFile );
+
+        life = new LifeSupport();
+        logFiles = buildLogFiles();
+        life.add( logFiles );
+        life.start();
+        try
+        {
+            verifyTransactionsCanBeFound( logFiles );
+            assertTrue( fileSystem.fileExists( indexFile ) );
+        }
+        finally
+        {
+            life.shutdown();
+        }
+    }
+
+    @Test
+    void shouldIgnoreIndexWhichDoesNotMatchLogFile() throws IOException
+    {
+        LifeSupport life = new LifeSupport();
+        LogFiles logFiles = buildLogFiles();
+        life.add( logFiles );
+        life.start();
+        try
+        {
+            appendTransactionsAndRotate( life, logFiles );
+        }
+        finally
+        {
+            life.shutdown();
+        }
+        File indexFile = TransactionLogOffsetIndex.indexFileFor( logFiles.getLogFileForVersion( 0 ) );
+        long indexFileSize = fileSystem.getFileSize( indexFile );
+        try ( StoreChannel channel = fileSystem.write( indexFile ) )
+        {
+            channel.truncate( indexFileSize - Long.BYTES );
+        }
+
+        life = new LifeSupport();
+        logFiles = buildLogFiles();
+        life.add( logFiles );
+        life.start();
+        try
+        {
+            verifyTransactionsCanBeFound( logFiles );
+            assertEquals( indexFileSize, fileSystem.getFileSize( indexFile ) );
+        }
+        finally
+        {
+            life.shutdown();
+        }
+    }
+
+    private void appendTransactionsAndRotate( LifeSupport life, LogFiles logFiles ) throws IOException
+    {
+        BatchingTransactionAppender appender = life.add( new BatchingTransactionAppender( logFiles, NO_ROTATION, metadataCache,
+                transactionIdStore, mock( DatabaseHealth.class ) ) );
+        for ( int i = 0; i < TRANSACTIONS; i++ )
+        {
+            PhysicalTransactionRepresentation transaction =
+                    new PhysicalTransactionRepresentation( Collections.singletonList( new TestCommand( 1_000 ) ) );
+            transaction.setHeader( new byte[0], 1, 2, 3, -1 );
+            appender.append( new TransactionToApply( transaction, NULL ), LogAppendEvent.NULL );
+        }
+        logFiles.getLogFile().rotate();
+        metadataCache.clear();
+    }
+
+    private void verifyTransactionsCanBeFound( LogFiles logFiles ) throws IOException
+    {
+        LogFile logFile = logFiles.getLogFile();
+        LogPosition logStart = logFiles.extractHeader( 0 ).getStartPosition();
+        PhysicalLogicalTransactionStore store =
+                new PhysicalLogicalTransactionStore( logFiles, metadataCache, logEntryReader(), new Monitors(), true );
+        for ( long txId = TransactionIdStore.BASE_TX_ID + 1; txId <= TRANSACTIONS + 1; txId += 97 )
+        {
+            LogPosition scanStart = logFile.findTransactionScanStart( txId, logStart, logEntryReader() );
+            assertEquals( 0, scanStart.getLogVersion() );
+            try ( TransactionCursor cursor = store.getTransactions( txId ) )
+            {
+                assertTrue( cursor.next() );
+                assertEquals( txId, cursor.get().getCommitEntry().getTxId() );
+                assertTrue( cursor.position().getByteOffset() > scanStart.getByteOffset() );
+            }
+            metadataCache.clear();
+        }
+        LogPosition lastScanStart = logFile.findTransactionScanStart( TRANSACTIONS + 1, logStart, logEntryReader() );
+        assertTrue( lastScanStart.getByteOffset() > logStart.getByteOffset() );
+    }
+
+    private LogFiles buildLogFiles() throws IOException
+    {
+        return buildLogFiles( null );
+    }
+
+    private LogFiles buildLogFiles( JobScheduler jobScheduler ) throws IOException
+    {
+        return LogFilesBuilder.builder( databaseLayout, fileSystem )
+                .withConfig( Config.defaults( GraphDatabaseInternalSettings.tx_log_allocate_ahead, false ) )
+                .withJobScheduler( jobScheduler )
+                .withTransactionIdStore( transactionIdStore )
+                .withLogVersionRepository( logVersionRepository )
+                .withLogEntryReader( logEntryReader() )
+                .withStoreId( StoreId.UNKNOWN )
+                .build();
+    }
+}
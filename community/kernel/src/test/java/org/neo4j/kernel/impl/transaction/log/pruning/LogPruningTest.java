@@ -30,6 +30,7 @@ import org.neo4j.configuration.Config;
 import org.neo4j.configuration.GraphDatabaseSettings;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
+import org.neo4j.kernel.impl.transaction.log.files.TransactionLogOffsetIndex;
 import org.neo4j.logging.LogProvider;
 import org.neo4j.logging.NullLogProvider;
 import org.neo4j.time.SystemNanoClock;
@@ -76,7 +77,9 @@ class LogPruningTest
         pruning.pruneLogs( 5 );
         InOrder order = inOrder( fs );
         order.verify( fs ).deleteFile( new File( "3" ) );
+        order.verify( fs ).deleteFile( TransactionLogOffsetIndex.indexFileFor( new File( "3" ) ) );
         order.verify( fs ).deleteFile( new File( "4" ) );
+        order.verify( fs ).deleteFile( TransactionLogOffsetIndex.indexFileFor( new File( "4" ) ) );
         // Log file 5 is not deleted; it's the lowest version expected to remain after pruning.
         verifyNoMoreInteractions( fs );
     }
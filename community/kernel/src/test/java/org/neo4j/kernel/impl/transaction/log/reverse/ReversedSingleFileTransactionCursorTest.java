@@ -37,7 +37,7 @@ import org.neo4j.kernel.impl.transaction.SimpleTransactionIdStore;
 import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.log.FlushablePositionAwareChecksumChannel;
 import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
-import org.neo4j.kernel.impl.transaction.log.ReadAheadLogChannel;
+import org.neo4j.kernel.impl.transaction.log.PositionableLogChannel;
 import org.neo4j.kernel.impl.transaction.log.TransactionLogWriter;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
 import org.neo4j.kernel.impl.transaction.log.files.LogFile;
@@ -161,7 +161,7 @@ class ReversedSingleFileTransactionCursorTest
         writeTransactions( 1, 1, 1 );
 
         // when
-        try ( ReadAheadLogChannel channel = (ReadAheadLogChannel) logFile.getReader( logFiles.extractHeader( 0 ).getStartPosition() ) )
+        try ( PositionableLogChannel channel = (PositionableLogChannel) logFile.getReader( logFiles.extractHeader( 0 ).getStartPosition() ) )
         {
             new ReversedSingleFileTransactionCursor( channel, logEntryReader(), false, monitor );
             fail( "Should've failed" );
@@ -225,7 +225,7 @@ class ReversedSingleFileTransactionCursorTest
 
     private ReversedSingleFileTransactionCursor txCursor( boolean failOnCorruptedLogFiles ) throws IOException
     {
-        ReadAheadLogChannel fileReader = (ReadAheadLogChannel) logFile.getReader( logFiles.extractHeader( 0 ).getStartPosition() );
+        PositionableLogChannel fileReader = (PositionableLogChannel) logFile.getReader( logFiles.extractHeader( 0 ).getStartPosition() );
         try
         {
             return new ReversedSingleFileTransactionCursor( fileReader, logEntryReader(), failOnCorruptedLogFiles, monitor );
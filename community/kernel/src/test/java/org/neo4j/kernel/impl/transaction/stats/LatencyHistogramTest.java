@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest
+{
+    @Test
+    void emptyHistogramReportsZeros()
+    {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+        assertEquals( 0, snapshot.count() );
+        assertEquals( 0, snapshot.mean() );
+        assertEquals( 0, snapshot.max() );
+        assertEquals( 0, snapshot.valueAtPercentile( 99 ) );
+    }
+
+    @Test
+    void smallValuesAreRecordedExactly()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for ( int value = 1; value <= 10; value++ )
+        {
+            histogram.record( value );
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals( 10, snapshot.count() );
+        assertEquals( 5, snapshot.mean() );
+        assertEquals( 10, snapshot.max() );
+        assertEquals( 5, snapshot.valueAtPercentile( 50 ) );
+        assertEquals( 9, snapshot.valueAtPercentile( 90 ) );
+        assertEquals( 10, snapshot.valueAtPercentile( 100 ) );
+    }
+
+    @Test
+    void percentilesStayWithinRelativeErrorOverWholeRange()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for ( int value = 1; value <= 100_000; value++ )
+        {
+            histogram.record( value * 1_000L );
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals( 100_000, snapshot.count() );
+        assertEquals( 100_000_000, snapshot.max() );
+        assertWithinRelativeError( 50_000_000, snapshot.valueAtPercentile( 50 ) );
+        assertWithinRelativeError( 99_000_000, snapshot.valueAtPercentile( 99 ) );
+        assertWithinRelativeError( 99_900_000, snapshot.valueAtPercentile( 99.9 ) );
+    }
+
+    @Test
+    void everyValueFallsWithinItsBucket()
+    {
+        long[] values = {0, 1, 31, 32, 33, 63, 64, 1_000, 123_456_789, 1L << 40, Long.MAX_VALUE};
+        for ( long value : values )
+        {
+            int index = LatencyHistogram.bucketIndex( value );
+            assertTrue( value <= LatencyHistogram.highestValueInBucket( index ), "value " + value );
+            assertTrue( index == 0 || value > LatencyHistogram.highestValueInBucket( index - 1 ), "value " + value );
+        }
+    }
+
+    @Test
+    void negativeValuesAreRecordedAsZero()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record( -10 );
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals( 1, snapshot.count() );
+        assertEquals( 0, snapshot.valueAtPercentile( 100 ) );
+    }
+
+    private static void assertWithinRelativeError( long expected, long actual )
+    {
+        assertTrue( Math.abs( expected - actual ) <= expected / LatencyHistogram.SUB_BUCKETS, "expected " + expected + " but was " + actual );
+    }
+}
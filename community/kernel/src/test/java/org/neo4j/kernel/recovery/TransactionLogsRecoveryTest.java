@@ -199,7 +199,7 @@ class TransactionLogsRecoveryTest
             CorruptedLogsTruncator logPruner = new CorruptedLogsTruncator( storeDir, logFiles, fileSystem, INSTANCE );
             monitors.addMonitorListener( monitor );
             life.add( new TransactionLogsRecovery( new DefaultRecoveryService( storageEngine, tailScanner, transactionIdStore,
-                    txStore, versionRepository, logFiles, NO_MONITOR, mock( Log.class ) )
+                    txStore, versionRepository, logFiles, NO_MONITOR, mock( Log.class ), 1 )
             {
                 private int nr;
 
@@ -298,7 +298,7 @@ class TransactionLogsRecoveryTest
                 }
             } );
             life.add( new TransactionLogsRecovery( new DefaultRecoveryService( storageEngine, tailScanner, transactionIdStore,
-                    txStore, versionRepository, logFiles, NO_MONITOR, mock( Log.class ) ),
+                    txStore, versionRepository, logFiles, NO_MONITOR, mock( Log.class ), 1 ),
                     logPruner, schemaLife, monitor, ProgressReporter.SILENT, false, EMPTY_CHECKER, NULL ) );
 
             life.start();
@@ -514,7 +514,7 @@ class TransactionLogsRecoveryTest
             CorruptedLogsTruncator logPruner = new CorruptedLogsTruncator( storeDir, logFiles, fileSystem, INSTANCE );
             monitors.addMonitorListener( monitor );
             life.add( new TransactionLogsRecovery( new DefaultRecoveryService( storageEngine, tailScanner, transactionIdStore,
-                    txStore, versionRepository, logFiles, NO_MONITOR, mock( Log.class ) ),
+                    txStore, versionRepository, logFiles, NO_MONITOR, mock( Log.class ), 1 ),
                     logPruner, schemaLife, monitor, ProgressReporter.SILENT, false, startupChecker, NULL ) );
 
             life.start();
@@ -32,9 +32,9 @@ class NativeLabelScanStore extends NativeTokenScanStore implements LabelScanStor
 {
     NativeLabelScanStore( PageCache pageCache, DatabaseLayout directoryStructure, FileSystemAbstraction fs, FullStoreChangeStream fullStoreChangeStream,
             boolean readOnly, Monitors monitors, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, EntityType entityType,
-            PageCacheTracer cacheTracer, MemoryTracker memoryTracker )
+            PageCacheTracer cacheTracer, MemoryTracker memoryTracker, boolean roaringFormat )
     {
         super( pageCache, directoryStructure, fs, fullStoreChangeStream, readOnly, monitors, recoveryCleanupWorkCollector, entityType, cacheTracer,
-                memoryTracker );
+                memoryTracker, roaringFormat );
     }
 }
@@ -40,16 +40,16 @@ import static org.neo4j.internal.index.label.TokenScanValue.RANGE_SIZE;
 /**
  * {@link TokenScanReader} for reading data from {@link NativeTokenScanStore}.
  * Each {@link LongIterator} returned from each of the methods has a {@link Seeker}
- * directly from {@link GBPTree#seek(Object, Object, PageCursorTracer)} backing it.
+ * directly from {@link GBPTree#seek(Object, Object, PageCursorTracer)} backing it, or from a {@link RoaringTokenScanSeeker} on top of it.
  */
 class NativeTokenScanReader implements TokenScanReader
 {
     /**
      * Index that is queried when calling the methods below.
      */
-    private final GBPTree<TokenScanKey,TokenScanValue> index;
+    private final Seeker.Factory<TokenScanKey,TokenScanValue> index;
 
-    NativeTokenScanReader( GBPTree<TokenScanKey,TokenScanValue> index )
+    NativeTokenScanReader( Seeker.Factory<TokenScanKey,TokenScanValue> index )
     {
         this.index = index;
     }
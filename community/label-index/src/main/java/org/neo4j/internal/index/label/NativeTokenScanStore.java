@@ -41,6 +41,7 @@ import org.neo4j.index.internal.gbptree.MetadataMismatchException;
 import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
 import org.neo4j.index.internal.gbptree.Seeker;
 import org.neo4j.index.internal.gbptree.TreeFileNotFoundException;
+import org.neo4j.index.internal.gbptree.Writer;
 import org.neo4j.internal.helpers.collection.Iterators;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.layout.DatabaseLayout;
@@ -147,11 +148,31 @@ public abstract class NativeTokenScanStore implements TokenScanStore, EntityToke
     private final PageCacheTracer cacheTracer;
     private final MemoryTracker memoryTracker;
 
+    /**
+     * Whether or not this token scan store uses {@link RoaringTokenScanLayout} instead of {@link TokenScanLayout}.
+     */
+    private final boolean roaringFormat;
+
     /**
      * The index which backs this token scan store. Instantiated in {@link #init()} and considered
      * started after call to {@link #start()}.
      */
-    private GBPTree<TokenScanKey,TokenScanValue> index;
+    private GBPTree<TokenScanKey,?> index;
+
+    /**
+     * Seeks in {@link #index} as if it had {@link TokenScanLayout}, whichever format it has.
+     */
+    private Seeker.Factory<TokenScanKey,TokenScanValue> seekers;
+
+    /**
+     * Creates writers on {@link #index} taking changes as if it had {@link TokenScanLayout}, whichever format it has.
+     */
+    private TreeWriterFactory writers;
+
+    /**
+     * Like {@link #writers}, but for writers specialized in appending entities in order.
+     */
+    private TreeWriterFactory bulkAppendWriters;
 
     /**
      * Set during {@link #init()} if {@link #start()} will need to rebuild the whole token scan store from
@@ -187,7 +208,7 @@ public abstract class NativeTokenScanStore implements TokenScanStore, EntityToke
 
     NativeTokenScanStore( PageCache pageCache, DatabaseLayout directoryStructure, FileSystemAbstraction fs, FullStoreChangeStream fullStoreChangeStream,
             boolean readOnly, Monitors monitors, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, EntityType entityType,
-            PageCacheTracer cacheTracer, MemoryTracker memoryTracker )
+            PageCacheTracer cacheTracer, MemoryTracker memoryTracker, boolean roaringFormat )
     {
         this.pageCache = pageCache;
         this.fs = fs;
@@ -204,6 +225,7 @@ public abstract class NativeTokenScanStore implements TokenScanStore, EntityToke
         this.recoveryCleanupWorkCollector = recoveryCleanupWorkCollector;
         this.fileSystem = fs;
         this.entityType = entityType;
+        this.roaringFormat = roaringFormat;
     }
 
     @Override
@@ -221,7 +243,7 @@ public abstract class NativeTokenScanStore implements TokenScanStore, EntityToke
     @Override
     public TokenScanReader newReader()
     {
-        return new NativeTokenScanReader( index );
+        return new NativeTokenScanReader( seekers );
     }
 
     /**
@@ -262,7 +284,7 @@ public abstract class NativeTokenScanStore implements TokenScanStore, EntityToke
 
         try
         {
-            return new BulkAppendNativeTokenScanWriter( index.writer( cursorTracer ) );
+            return new BulkAppendNativeTokenScanWriter( bulkAppendWriters.writer( cursorTracer ) );
         }
         catch ( IOException e )
         {
@@ -321,7 +343,7 @@ public abstract class NativeTokenScanStore implements TokenScanStore, EntityToke
         {
             try
             {
-                return index.seek(
+                return seekers.seek(
                         new TokenScanKey().set( tokenId, fromEntityId / RANGE_SIZE ),
                         new TokenScanKey().set( tokenId, (toEntityId - 1) / RANGE_SIZE + 1 ), cursorTracer );
             }
@@ -332,7 +354,7 @@ public abstract class NativeTokenScanStore implements TokenScanStore, EntityToke
         };
 
         int highestTokenId = -1;
-        try ( Seeker<TokenScanKey,TokenScanValue> cursor = index.seek(
+        try ( Seeker<TokenScanKey,TokenScanValue> cursor = seekers.seek(
                 new TokenScanKey().set( Integer.MAX_VALUE, Long.MAX_VALUE ),
                 new TokenScanKey().set( 0, -1 ), cursorTracer ) )
         {
@@ -418,10 +440,29 @@ public abstract class NativeTokenScanStore implements TokenScanStore, EntityToke
         MutableBoolean isRebuilding = new MutableBoolean();
         Header.Reader readRebuilding =
                 headerData -> isRebuilding.setValue( headerData.get() == NEEDS_REBUILDING );
+        // Entities are appended in order when bulk appending, so leave every tree node full
+        int asMuchAsPossibleToTheLeft = 1;
         try
         {
-            index = new GBPTree<>( pageCache, storeFile, new TokenScanLayout(), 0, monitor, readRebuilding,
-                    needsRebuildingWriter, recoveryCleanupWorkCollector, readOnly, cacheTracer, immutable.empty() );
+            if ( roaringFormat )
+            {
+                GBPTree<TokenScanKey,RoaringTokenScanValue> tree = new GBPTree<>( pageCache, storeFile, new RoaringTokenScanLayout(), 0, monitor,
+                        readRebuilding, needsRebuildingWriter, recoveryCleanupWorkCollector, readOnly, cacheTracer, immutable.empty() );
+                RoaringTokenScanWriter roaringWriter = new RoaringTokenScanWriter();
+                index = tree;
+                seekers = RoaringTokenScanSeeker.seekers( tree );
+                writers = cursorTracer -> roaringWriter.initialize( tree.sortedWriter( cursorTracer ) );
+                bulkAppendWriters = cursorTracer -> roaringWriter.initialize( tree.sortedWriter( asMuchAsPossibleToTheLeft, cursorTracer ) );
+            }
+            else
+            {
+                GBPTree<TokenScanKey,TokenScanValue> tree = new GBPTree<>( pageCache, storeFile, new TokenScanLayout(), 0, monitor, readRebuilding,
+                        needsRebuildingWriter, recoveryCleanupWorkCollector, readOnly, cacheTracer, immutable.empty() );
+                index = tree;
+                seekers = tree;
+                writers = tree::sortedWriter;
+                bulkAppendWriters = cursorTracer -> tree.sortedWriter( asMuchAsPossibleToTheLeft, cursorTracer );
+            }
             return isRebuilding.getValue();
         }
         catch ( TreeFileNotFoundException e )
@@ -490,13 +531,13 @@ public abstract class NativeTokenScanStore implements TokenScanStore, EntityToke
 
     private NativeTokenScanWriter writer( PageCursorTracer cursorTracer ) throws IOException
     {
-        return singleWriter.initialize( index.writer( cursorTracer ) );
+        return singleWriter.initialize( writers.writer( cursorTracer ) );
     }
 
     @Override
     public boolean isEmpty( PageCursorTracer cursorTracer ) throws IOException
     {
-        try ( Seeker<TokenScanKey,TokenScanValue> cursor = index.seek(
+        try ( Seeker<TokenScanKey,TokenScanValue> cursor = seekers.seek(
                 new TokenScanKey( 0, 0 ),
                 new TokenScanKey( Integer.MAX_VALUE, Long.MAX_VALUE ), cursorTracer ) )
         {
@@ -582,4 +623,10 @@ public abstract class NativeTokenScanStore implements TokenScanStore, EntityToke
             monitor.recoveryCleanupFailed( throwable );
         }
     }
+
+    @FunctionalInterface
+    private interface TreeWriterFactory
+    {
+        Writer<TokenScanKey,TokenScanValue> writer( PageCursorTracer cursorTracer ) throws IOException;
+    }
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.index.label;
+
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.io.pagecache.PageCursor;
+
+/**
+ * {@link Layout} for {@link GBPTree} used by {@link NativeTokenScanStore} when configured to use the roaring format.
+ *
+ * <ul>
+ * <li>
+ * Each key is a combination of {@code tokenId} and {@code entityIdRange} ({@code entityId/16384}), stored like in {@link TokenScanLayout}.
+ * </li>
+ * <li>
+ * Each value is the set of entities with that token in the range, stored as an array, a bitmap or a run container,
+ * see {@link RoaringTokenScanValue}.
+ * </li>
+ * </ul>
+ */
+public class RoaringTokenScanLayout extends Layout.Adapter<TokenScanKey,RoaringTokenScanValue>
+{
+    /**
+     * Name part of the {@link #identifier()} value.
+     */
+    private static final String IDENTIFIER_NAME = "RSL";
+
+    /**
+     * Keys are the same as in {@link TokenScanLayout}, only their ranges are larger.
+     */
+    private static final TokenScanLayout KEY_LAYOUT = new TokenScanLayout();
+
+    public RoaringTokenScanLayout()
+    {
+        super( false, Layout.namedIdentifier( IDENTIFIER_NAME, RoaringTokenScanValue.RANGE_SIZE ), 0, 1 );
+    }
+
+    @Override
+    public int compare( TokenScanKey o1, TokenScanKey o2 )
+    {
+        return KEY_LAYOUT.compare( o1, o2 );
+    }
+
+    @Override
+    public TokenScanKey newKey()
+    {
+        return new TokenScanKey();
+    }
+
+    @Override
+    public TokenScanKey copyKey( TokenScanKey key, TokenScanKey into )
+    {
+        return KEY_LAYOUT.copyKey( key, into );
+    }
+
+    @Override
+    public RoaringTokenScanValue newValue()
+    {
+        return new RoaringTokenScanValue();
+    }
+
+    @Override
+    public int keySize( TokenScanKey key )
+    {
+        return KEY_LAYOUT.keySize( key );
+    }
+
+    @Override
+    public int valueSize( RoaringTokenScanValue value )
+    {
+        return value.size();
+    }
+
+    @Override
+    public void writeKey( PageCursor cursor, TokenScanKey key )
+    {
+        KEY_LAYOUT.writeKey( cursor, key );
+    }
+
+    @Override
+    public void writeValue( PageCursor cursor, RoaringTokenScanValue value )
+    {
+        value.write( cursor );
+    }
+
+    @Override
+    public void readKey( PageCursor cursor, TokenScanKey into, int keySize )
+    {
+        KEY_LAYOUT.readKey( cursor, into, keySize );
+    }
+
+    @Override
+    public void readValue( PageCursor cursor, RoaringTokenScanValue into, int valueSize )
+    {
+        into.read( cursor, valueSize );
+    }
+
+    @Override
+    public void initializeAsLowest( TokenScanKey key )
+    {
+        KEY_LAYOUT.initializeAsLowest( key );
+    }
+
+    @Override
+    public void initializeAsHighest( TokenScanKey key )
+    {
+        KEY_LAYOUT.initializeAsHighest( key );
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.index.label;
+
+import java.io.IOException;
+
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Seeker;
+
+import static org.neo4j.internal.index.label.RoaringTokenScanValue.WORDS_PER_RANGE;
+
+/**
+ * {@link Seeker} over a {@link GBPTree} with {@link RoaringTokenScanLayout}, which presents each word with any bit set in a
+ * {@link RoaringTokenScanValue} as an entry of its own, with the same key and value as it would have had in a tree with {@link TokenScanLayout}.
+ * This way the readers of the token scan store can read either format, while a roaring store only needs one tree entry per
+ * {@link RoaringTokenScanValue#RANGE_SIZE} entities.
+ * <p>
+ * Seeks are given in keys of {@link TokenScanLayout} and are translated into the keys of the roaring ranges containing them.
+ * Words outside of the given keys are skipped.
+ */
+class RoaringTokenScanSeeker implements Seeker<TokenScanKey,TokenScanValue>
+{
+    private static final TokenScanLayout LAYOUT = new TokenScanLayout();
+    private static final int WORD_SHIFT = Integer.numberOfTrailingZeros( WORDS_PER_RANGE );
+
+    private final Seeker<TokenScanKey,RoaringTokenScanValue> seeker;
+    private final TokenScanKey fromInclusive;
+    private final TokenScanKey toExclusive;
+    private final boolean ascending;
+    private final TokenScanKey key = new TokenScanKey();
+    private final TokenScanValue value = new TokenScanValue();
+
+    /**
+     * Index of the word in the current {@link RoaringTokenScanValue} to look at next.
+     */
+    private int word;
+
+    /**
+     * {@code true} while {@link #word} is inside the current {@link RoaringTokenScanValue}.
+     */
+    private boolean inRange;
+
+    private RoaringTokenScanSeeker( Seeker<TokenScanKey,RoaringTokenScanValue> seeker, TokenScanKey fromInclusive, TokenScanKey toExclusive,
+            boolean ascending )
+    {
+        this.seeker = seeker;
+        this.fromInclusive = fromInclusive;
+        this.toExclusive = toExclusive;
+        this.ascending = ascending;
+    }
+
+    /**
+     * @param tree tree with {@link RoaringTokenScanLayout} to seek in.
+     * @return {@link Seeker.Factory} seeking in {@code tree} as if it was a tree with {@link TokenScanLayout}.
+     */
+    static Seeker.Factory<TokenScanKey,TokenScanValue> seekers( GBPTree<TokenScanKey,RoaringTokenScanValue> tree )
+    {
+        return ( fromInclusive, toExclusive, cursorTracer ) ->
+        {
+            TokenScanKey from = new TokenScanKey( fromInclusive.tokenId, fromInclusive.idRange );
+            TokenScanKey to = new TokenScanKey( toExclusive.tokenId, toExclusive.idRange );
+            boolean ascending = LAYOUT.compare( from, to ) <= 0;
+            // The roaring range containing the first word is always included. For the last word the roaring range containing it
+            // is included too, which for ascending seeks means going one range further unless the word is the first one in its range.
+            long toRange = ascending ? roaringRangeOf( to.idRange ) + ((to.idRange & (WORDS_PER_RANGE - 1)) == 0 ? 0 : 1)
+                                     : roaringRangeOf( to.idRange ) - 1;
+            Seeker<TokenScanKey,RoaringTokenScanValue> seeker = tree.seek(
+                    new TokenScanKey( from.tokenId, roaringRangeOf( from.idRange ) ), new TokenScanKey( to.tokenId, toRange ), cursorTracer );
+            return new RoaringTokenScanSeeker( seeker, from, to, ascending );
+        };
+    }
+
+    private static long roaringRangeOf( long idRange )
+    {
+        return idRange >> WORD_SHIFT;
+    }
+
+    @Override
+    public boolean next() throws IOException
+    {
+        while ( true )
+        {
+            if ( inRange )
+            {
+                RoaringTokenScanValue range = seeker.value();
+                while ( ascending ? word <= range.highWord : word >= range.lowWord )
+                {
+                    long bits = range.words[word];
+                    int currentWord = word;
+                    word += ascending ? 1 : -1;
+                    if ( bits != 0 )
+                    {
+                        key.set( seeker.key().tokenId, (seeker.key().idRange << WORD_SHIFT) + currentWord );
+                        if ( beforeFrom( key ) )
+                        {
+                            continue;
+                        }
+                        if ( !beforeTo( key ) )
+                        {
+                            // Keys only move away from the seek range from here on
+                            inRange = false;
+                            return false;
+                        }
+                        value.bits = bits;
+                        return true;
+                    }
+                }
+                inRange = false;
+            }
+
+            if ( !seeker.next() )
+            {
+                return false;
+            }
+            RoaringTokenScanValue range = seeker.value();
+            word = ascending ? range.lowWord : range.highWord;
+            inRange = true;
+        }
+    }
+
+    private boolean beforeFrom( TokenScanKey key )
+    {
+        int comparison = LAYOUT.compare( key, fromInclusive );
+        return ascending ? comparison < 0 : comparison > 0;
+    }
+
+    private boolean beforeTo( TokenScanKey key )
+    {
+        int comparison = LAYOUT.compare( key, toExclusive );
+        return ascending ? comparison < 0 : comparison > 0;
+    }
+
+    @Override
+    public TokenScanKey key()
+    {
+        return key;
+    }
+
+    @Override
+    public TokenScanValue value()
+    {
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        seeker.close();
+    }
+}
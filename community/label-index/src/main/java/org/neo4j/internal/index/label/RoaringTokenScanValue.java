@@ -0,0 +1,409 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.index.label;
+
+import java.util.Arrays;
+
+import org.neo4j.io.pagecache.PageCursor;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Set of entities in a range of {@link #RANGE_SIZE} entities. Used in {@link RoaringTokenScanLayout}.
+ * <p>
+ * In memory the set is a bit set of {@link #WORDS_PER_RANGE} words, where each word covers the same 64 entities as a {@link TokenScanValue}.
+ * {@link #lowWord} and {@link #highWord} are the lowest and highest words with any bit set, so that sparse sets are cheap to clear and iterate.
+ * <p>
+ * In the tree the set is stored in one of three kinds of containers, whichever is smallest, like in roaring bitmaps:
+ * <ul>
+ * <li>{@link #ARRAY}: the offsets of the entities, in ascending order, two bytes each.</li>
+ * <li>{@link #BITMAP}: the index of the lowest word with any bit set, followed by the words up to and including the highest such word.</li>
+ * <li>{@link #RUN}: the offset and length of each run of consecutive entities, two bytes each.</li>
+ * </ul>
+ * The container is preceded by a byte saying which kind it is. The number of offsets, words or runs follows from the size of the value.
+ */
+class RoaringTokenScanValue
+{
+    static final int RANGE_SIZE = 1 << 14;
+    static final int WORDS_PER_RANGE = RANGE_SIZE / Long.SIZE;
+    private static final int WORD_SHIFT = Integer.numberOfTrailingZeros( Long.SIZE );
+
+    static final byte ARRAY = 0;
+    static final byte BITMAP = 1;
+    static final byte RUN = 2;
+
+    private static final int HEADER_SIZE = Byte.BYTES;
+    private static final int BITMAP_HEADER_SIZE = HEADER_SIZE + Byte.BYTES;
+    private static final int RUN_SIZE = 2 * Short.BYTES;
+
+    /**
+     * Bit set of the entities in this range, one word per 64 entities.
+     */
+    final long[] words = new long[WORDS_PER_RANGE];
+
+    /**
+     * Index of the lowest word with any bit set, or {@link #WORDS_PER_RANGE} if no bit is set.
+     */
+    int lowWord = WORDS_PER_RANGE;
+
+    /**
+     * Index of the highest word with any bit set, or {@code -1} if no bit is set.
+     */
+    int highWord = -1;
+
+    /**
+     * Sets bit at given {@code offset} into this range.
+     *
+     * @param offset offset into the range of the entity to set.
+     * @return this instance, now with the bit set.
+     */
+    RoaringTokenScanValue set( int offset )
+    {
+        int word = offset >>> WORD_SHIFT;
+        words[word] |= 1L << offset;
+        include( word, word );
+        return this;
+    }
+
+    /**
+     * Adds the bits of a word, i.e. of the 64 entities starting at {@code word * 64} in this range.
+     *
+     * @param word index of the word to add bits to.
+     * @param bits bits to add.
+     * @return this instance, now with added bits.
+     */
+    RoaringTokenScanValue add( int word, long bits )
+    {
+        if ( bits != 0 )
+        {
+            words[word] |= bits;
+            include( word, word );
+        }
+        return this;
+    }
+
+    /**
+     * Adds all bits from {@code other} to this set. {@code other} is kept intact.
+     *
+     * @param other value containing bits to add.
+     * @return this instance, now with added bits from {@code other}.
+     */
+    RoaringTokenScanValue add( RoaringTokenScanValue other )
+    {
+        for ( int word = other.lowWord; word <= other.highWord; word++ )
+        {
+            words[word] |= other.words[word];
+        }
+        if ( !other.isEmpty() )
+        {
+            include( other.lowWord, other.highWord );
+        }
+        return this;
+    }
+
+    /**
+     * Removes all bits in {@code other} from this set. {@code other} is kept intact.
+     *
+     * @param other value containing bits to remove.
+     * @return this instance, now with removed bits from {@code other}.
+     */
+    RoaringTokenScanValue remove( RoaringTokenScanValue other )
+    {
+        int to = min( highWord, other.highWord );
+        for ( int word = max( lowWord, other.lowWord ); word <= to; word++ )
+        {
+            words[word] &= ~other.words[word];
+        }
+        while ( lowWord <= highWord && words[lowWord] == 0 )
+        {
+            lowWord++;
+        }
+        while ( highWord >= lowWord && words[highWord] == 0 )
+        {
+            highWord--;
+        }
+        if ( lowWord > highWord )
+        {
+            lowWord = WORDS_PER_RANGE;
+            highWord = -1;
+        }
+        return this;
+    }
+
+    /**
+     * Clears all bits in this set.
+     */
+    void clear()
+    {
+        if ( !isEmpty() )
+        {
+            Arrays.fill( words, lowWord, highWord + 1, 0 );
+            lowWord = WORDS_PER_RANGE;
+            highWord = -1;
+        }
+    }
+
+    /**
+     * @return {@code true} if no bit in this range is set, otherwise {@code false}.
+     */
+    boolean isEmpty()
+    {
+        return highWord < 0;
+    }
+
+    /**
+     * @return the kind of container this set is smallest in, one of {@link #ARRAY}, {@link #BITMAP} and {@link #RUN}.
+     */
+    byte container()
+    {
+        if ( isEmpty() )
+        {
+            return ARRAY;
+        }
+        int arraySize = cardinality() * Short.BYTES;
+        int bitmapSize = Byte.BYTES + (highWord - lowWord + 1) * Long.BYTES;
+        int runSize = runs() * RUN_SIZE;
+        if ( arraySize <= bitmapSize && arraySize <= runSize )
+        {
+            return ARRAY;
+        }
+        return runSize < bitmapSize ? RUN : BITMAP;
+    }
+
+    /**
+     * @return number of bytes this set takes in the tree, in the container from {@link #container()}.
+     */
+    int size()
+    {
+        switch ( container() )
+        {
+        case ARRAY:
+            return HEADER_SIZE + cardinality() * Short.BYTES;
+        case BITMAP:
+            return BITMAP_HEADER_SIZE + (highWord - lowWord + 1) * Long.BYTES;
+        default:
+            return HEADER_SIZE + runs() * RUN_SIZE;
+        }
+    }
+
+    private int cardinality()
+    {
+        int cardinality = 0;
+        for ( int word = lowWord; word <= highWord; word++ )
+        {
+            cardinality += Long.bitCount( words[word] );
+        }
+        return cardinality;
+    }
+
+    private int runs()
+    {
+        int runs = 0;
+        long previousBits = 0;
+        for ( int word = lowWord; word <= highWord; word++ )
+        {
+            long bits = words[word];
+            // A run starts at each set bit with a cleared bit right below it
+            runs += Long.bitCount( bits & ~((bits << 1) | (previousBits >>> (Long.SIZE - 1))) );
+            previousBits = bits;
+        }
+        return runs;
+    }
+
+    /**
+     * Writes this set to {@code cursor}, in the container from {@link #container()}.
+     */
+    void write( PageCursor cursor )
+    {
+        byte container = container();
+        cursor.putByte( container );
+        switch ( container )
+        {
+        case ARRAY:
+            for ( int word = lowWord; word <= highWord; word++ )
+            {
+                long bits = words[word];
+                while ( bits != 0 )
+                {
+                    cursor.putShort( (short) ((word << WORD_SHIFT) + Long.numberOfTrailingZeros( bits )) );
+                    bits &= bits - 1;
+                }
+            }
+            break;
+        case BITMAP:
+            cursor.putByte( (byte) lowWord );
+            for ( int word = lowWord; word <= highWord; word++ )
+            {
+                cursor.putLong( words[word] );
+            }
+            break;
+        default:
+            int start = nextSetBit( 0 );
+            while ( start < RANGE_SIZE )
+            {
+                int end = nextClearBit( start );
+                cursor.putShort( (short) start );
+                cursor.putShort( (short) (end - start) );
+                start = nextSetBit( end );
+            }
+        }
+    }
+
+    /**
+     * Reads a set written by {@link #write(PageCursor)} into this instance, replacing what was in it.
+     * Invalid data, which may be read when racing with writers, is reported through {@link PageCursor#setCursorException(String)}.
+     *
+     * @param cursor cursor to read from.
+     * @param size number of bytes the set takes in the tree.
+     */
+    void read( PageCursor cursor, int size )
+    {
+        clear();
+        byte container = cursor.getByte();
+        switch ( container )
+        {
+        case ARRAY:
+            int count = (size - HEADER_SIZE) / Short.BYTES;
+            if ( count < 0 || count > RANGE_SIZE )
+            {
+                cursor.setCursorException( "Invalid number of offsets " + count + " in array container" );
+                return;
+            }
+            for ( int i = 0; i < count; i++ )
+            {
+                set( cursor.getShort() & (RANGE_SIZE - 1) );
+            }
+            break;
+        case BITMAP:
+            int first = cursor.getByte() & 0xFF;
+            int numberOfWords = (size - BITMAP_HEADER_SIZE) / Long.BYTES;
+            if ( numberOfWords <= 0 || first + numberOfWords > WORDS_PER_RANGE )
+            {
+                cursor.setCursorException( "Invalid words [" + first + "+" + numberOfWords + "] in bitmap container" );
+                return;
+            }
+            for ( int i = 0; i < numberOfWords; i++ )
+            {
+                add( first + i, cursor.getLong() );
+            }
+            break;
+        case RUN:
+            int runs = (size - HEADER_SIZE) / RUN_SIZE;
+            for ( int i = 0; i < runs; i++ )
+            {
+                int start = cursor.getShort();
+                int length = cursor.getShort();
+                if ( start < 0 || length <= 0 || start + length > RANGE_SIZE )
+                {
+                    cursor.setCursorException( "Invalid run [" + start + "+" + length + "] in run container" );
+                    return;
+                }
+                setRange( start, start + length );
+            }
+            break;
+        default:
+            cursor.setCursorException( "Invalid container " + container );
+        }
+    }
+
+    private void setRange( int from, int to )
+    {
+        int first = from >>> WORD_SHIFT;
+        int last = (to - 1) >>> WORD_SHIFT;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if ( first == last )
+        {
+            words[first] |= firstMask & lastMask;
+        }
+        else
+        {
+            words[first] |= firstMask;
+            Arrays.fill( words, first + 1, last, -1L );
+            words[last] |= lastMask;
+        }
+        include( first, last );
+    }
+
+    private void include( int fromWord, int toWord )
+    {
+        lowWord = min( lowWord, fromWord );
+        highWord = max( highWord, toWord );
+    }
+
+    /**
+     * @return offset of the lowest set bit at or above {@code from}, or {@link #RANGE_SIZE} if there is none.
+     */
+    private int nextSetBit( int from )
+    {
+        int word = max( from >>> WORD_SHIFT, lowWord );
+        if ( word > highWord )
+        {
+            return RANGE_SIZE;
+        }
+        long bits = word == from >>> WORD_SHIFT ? words[word] & (-1L << from) : words[word];
+        while ( bits == 0 )
+        {
+            if ( ++word > highWord )
+            {
+                return RANGE_SIZE;
+            }
+            bits = words[word];
+        }
+        return (word << WORD_SHIFT) + Long.numberOfTrailingZeros( bits );
+    }
+
+    /**
+     * @return offset of the lowest cleared bit at or above {@code from}, or {@link #RANGE_SIZE} if there is none.
+     */
+    private int nextClearBit( int from )
+    {
+        int word = from >>> WORD_SHIFT;
+        if ( word >= WORDS_PER_RANGE )
+        {
+            return RANGE_SIZE;
+        }
+        long bits = ~words[word] & (-1L << from);
+        while ( bits == 0 )
+        {
+            if ( ++word == WORDS_PER_RANGE )
+            {
+                return RANGE_SIZE;
+            }
+            bits = ~words[word];
+        }
+        return (word << WORD_SHIFT) + Long.numberOfTrailingZeros( bits );
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder( "[" );
+        for ( int word = lowWord; word <= highWord; word++ )
+        {
+            if ( words[word] != 0 )
+            {
+                builder.append( builder.length() > 1 ? "," : "" ).append( word ).append( ':' ).append( Long.toBinaryString( words[word] ) );
+            }
+        }
+        return builder.append( ']' ).toString();
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.index.label;
+
+import org.eclipse.collections.api.map.primitive.MutableIntObjectMap;
+import org.eclipse.collections.impl.factory.primitive.IntObjectMaps;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.ValueMerger;
+import org.neo4j.index.internal.gbptree.Writer;
+
+import static org.neo4j.internal.index.label.RoaringTokenScanValue.WORDS_PER_RANGE;
+
+/**
+ * {@link Writer} into a {@link GBPTree} with {@link RoaringTokenScanLayout}, which takes changes in keys and values of {@link TokenScanLayout},
+ * so that the writers of the token scan store can write either format.
+ * <p>
+ * {@link #merge(TokenScanKey, TokenScanValue, ValueMerger) Merges} add the bits of the given value and
+ * {@link #mergeIfExists(TokenScanKey, TokenScanValue, ValueMerger) conditional merges} remove them, which is how the token scan writers use them.
+ * The given {@link ValueMerger mergers} are not called. Changes are gathered per token into a {@link RoaringTokenScanValue} and written
+ * to the tree when a change comes for another range of that token, or switches between adding and removing, or when this writer is closed.
+ * This way each range is typically written once per write session instead of once per 64 entities.
+ * <p>
+ * Instances are reused between write sessions, see {@link #initialize(Writer)}, so that ranges don't have to be allocated for each session.
+ */
+class RoaringTokenScanWriter implements Writer<TokenScanKey,TokenScanValue>
+{
+    private static final int WORD_SHIFT = Integer.numberOfTrailingZeros( WORDS_PER_RANGE );
+
+    private static final ValueMerger<TokenScanKey,RoaringTokenScanValue> ADD_MERGER = ( existingKey, newKey, existingValue, newValue ) ->
+    {
+        existingValue.add( newValue );
+        return ValueMerger.MergeResult.MERGED;
+    };
+
+    private static final ValueMerger<TokenScanKey,RoaringTokenScanValue> REMOVE_MERGER = ( existingKey, newKey, existingValue, newValue ) ->
+    {
+        existingValue.remove( newValue );
+        return existingValue.isEmpty() ? ValueMerger.MergeResult.REMOVED : ValueMerger.MergeResult.MERGED;
+    };
+
+    /**
+     * Range with changes not yet written to the tree, per token id.
+     */
+    private final MutableIntObjectMap<PendingRange> pendingRanges = IntObjectMaps.mutable.empty();
+
+    /**
+     * Ranges of previous write sessions, for reuse.
+     */
+    private final Deque<PendingRange> freeRanges = new ArrayDeque<>();
+
+    private Writer<TokenScanKey,RoaringTokenScanValue> writer;
+
+    RoaringTokenScanWriter initialize( Writer<TokenScanKey,RoaringTokenScanValue> writer )
+    {
+        this.writer = writer;
+        return this;
+    }
+
+    @Override
+    public void put( TokenScanKey key, TokenScanValue value )
+    {
+        throw new UnsupportedOperationException( "Token scan store entries can only be merged" );
+    }
+
+    @Override
+    public void merge( TokenScanKey key, TokenScanValue value, ValueMerger<TokenScanKey,TokenScanValue> valueMerger )
+    {
+        change( key, value.bits, true );
+    }
+
+    @Override
+    public void mergeIfExists( TokenScanKey key, TokenScanValue value, ValueMerger<TokenScanKey,TokenScanValue> valueMerger )
+    {
+        change( key, value.bits, false );
+    }
+
+    @Override
+    public TokenScanValue remove( TokenScanKey key )
+    {
+        throw new UnsupportedOperationException( "Token scan store entries can only be merged" );
+    }
+
+    private void change( TokenScanKey key, long bits, boolean addition )
+    {
+        long range = key.idRange >> WORD_SHIFT;
+        PendingRange pending = pendingRanges.get( key.tokenId );
+        if ( pending == null )
+        {
+            pending = freeRanges.isEmpty() ? new PendingRange() : freeRanges.pop();
+            pendingRanges.put( key.tokenId, pending );
+            pending.set( key.tokenId, range, addition );
+        }
+        else if ( pending.key.idRange != range || pending.addition != addition )
+        {
+            flush( pending );
+            pending.set( key.tokenId, range, addition );
+        }
+        pending.value.add( (int) (key.idRange & (WORDS_PER_RANGE - 1)), bits );
+    }
+
+    private void flush( PendingRange pending )
+    {
+        if ( !pending.value.isEmpty() )
+        {
+            if ( pending.addition )
+            {
+                writer.merge( pending.key, pending.value, ADD_MERGER );
+            }
+            else
+            {
+                writer.mergeIfExists( pending.key, pending.value, REMOVE_MERGER );
+            }
+            pending.value.clear();
+        }
+    }
+
+    /**
+     * Writes all pending changes, in order of token id, and closes the underlying {@link Writer}.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            for ( int tokenId : pendingRanges.keySet().toSortedArray() )
+            {
+                flush( pendingRanges.get( tokenId ) );
+            }
+        }
+        finally
+        {
+            pendingRanges.forEachValue( pending ->
+            {
+                pending.value.clear();
+                freeRanges.push( pending );
+            } );
+            pendingRanges.clear();
+            writer.close();
+        }
+    }
+
+    private static class PendingRange
+    {
+        private final TokenScanKey key = new TokenScanKey();
+        private final RoaringTokenScanValue value = new RoaringTokenScanValue();
+        private boolean addition;
+
+        void set( int tokenId, long range, boolean addition )
+        {
+            key.set( tokenId, range );
+            this.addition = addition;
+        }
+    }
+}
@@ -24,6 +24,7 @@ import java.io.IOException;
 
 import org.neo4j.common.EntityType;
 import org.neo4j.configuration.Config;
+import org.neo4j.configuration.GraphDatabaseInternalSettings;
 import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
 import org.neo4j.io.fs.FileSystemAbstraction;
@@ -51,25 +52,47 @@ public interface TokenScanStore extends Lifecycle, ConsistencyCheckable
     String RELATIONSHIP_TYPE_SCAN_STORE_MONITOR_TAG = "RelationshipTypeScanStore";
 
     /**
-     * Create a new {@link LabelScanStore}.
+     * Create a new {@link LabelScanStore} with default configuration.
      */
     static LabelScanStore labelScanStore( PageCache pageCache, DatabaseLayout directoryStructure, FileSystemAbstraction fs,
             FullStoreChangeStream fullStoreChangeStream, boolean readOnly, Monitors monitors, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector,
             PageCacheTracer cacheTracer, MemoryTracker memoryTracker )
+    {
+        return labelScanStore( pageCache, directoryStructure, fs, fullStoreChangeStream, readOnly, monitors, recoveryCleanupWorkCollector,
+                Config.defaults(), cacheTracer, memoryTracker );
+    }
+
+    /**
+     * Create a new {@link LabelScanStore}, in the format given by {@link GraphDatabaseInternalSettings#token_scan_store_roaring_format}.
+     */
+    static LabelScanStore labelScanStore( PageCache pageCache, DatabaseLayout directoryStructure, FileSystemAbstraction fs,
+            FullStoreChangeStream fullStoreChangeStream, boolean readOnly, Monitors monitors, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector,
+            Config config, PageCacheTracer cacheTracer, MemoryTracker memoryTracker )
     {
         return new NativeLabelScanStore( pageCache, directoryStructure, fs, fullStoreChangeStream, readOnly, monitors, recoveryCleanupWorkCollector, NODE,
-                cacheTracer, memoryTracker );
+                cacheTracer, memoryTracker, config.get( GraphDatabaseInternalSettings.token_scan_store_roaring_format ) );
     }
 
     /**
-     * Create a new {@link RelationshipTypeScanStore}.
+     * Create a new {@link RelationshipTypeScanStore} with default configuration.
      */
     static RelationshipTypeScanStore relationshipTypeScanStore( PageCache pageCache, DatabaseLayout directoryStructure, FileSystemAbstraction fs,
             FullStoreChangeStream fullStoreChangeStream, boolean readOnly, Monitors monitors, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector,
             PageCacheTracer cacheTracer, MemoryTracker memoryTracker )
+    {
+        return relationshipTypeScanStore( pageCache, directoryStructure, fs, fullStoreChangeStream, readOnly, monitors, recoveryCleanupWorkCollector,
+                Config.defaults(), cacheTracer, memoryTracker );
+    }
+
+    /**
+     * Create a new {@link RelationshipTypeScanStore}, in the format given by {@link GraphDatabaseInternalSettings#token_scan_store_roaring_format}.
+     */
+    static RelationshipTypeScanStore relationshipTypeScanStore( PageCache pageCache, DatabaseLayout directoryStructure, FileSystemAbstraction fs,
+            FullStoreChangeStream fullStoreChangeStream, boolean readOnly, Monitors monitors, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector,
+            Config config, PageCacheTracer cacheTracer, MemoryTracker memoryTracker )
     {
         return new NativeRelationshipTypeScanStore( pageCache, directoryStructure, fs, fullStoreChangeStream, readOnly, monitors, recoveryCleanupWorkCollector,
-                RELATIONSHIP, cacheTracer, memoryTracker );
+                RELATIONSHIP, cacheTracer, memoryTracker, config.get( GraphDatabaseInternalSettings.token_scan_store_roaring_format ) );
     }
 
     static RelationshipTypeScanStore toggledRelationshipTypeScanStore( PageCache pageCache, DatabaseLayout directoryStructure, FileSystemAbstraction fs,
@@ -79,7 +102,7 @@ public interface TokenScanStore extends Lifecycle, ConsistencyCheckable
         if ( config.get( RelationshipTypeScanStoreSettings.enable_relationship_type_scan_store ) )
         {
             return relationshipTypeScanStore( pageCache, directoryStructure, fs, fullStoreChangeStream, readOnly, monitors, recoveryCleanupWorkCollector,
-                    cacheTracer, memoryTracker );
+                    config, cacheTracer, memoryTracker );
         }
         return new EmptyingRelationshipTypeScanStore( fs, directoryStructure, readOnly );
     }
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.index.label;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.GBPTreeBuilder;
+import org.neo4j.index.internal.gbptree.Seeker;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.storageengine.api.EntityTokenUpdate;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.RandomExtension;
+import org.neo4j.test.extension.pagecache.PageCacheExtension;
+import org.neo4j.test.rule.RandomRule;
+import org.neo4j.test.rule.TestDirectory;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.neo4j.collection.PrimitiveLongCollections.asArray;
+import static org.neo4j.internal.index.label.LabelScanStoreIT.flipRandom;
+import static org.neo4j.internal.index.label.LabelScanStoreIT.getLabels;
+import static org.neo4j.internal.index.label.LabelScanStoreIT.nodesWithLabel;
+import static org.neo4j.internal.index.label.TokenScanReader.NO_ID;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+
+@ExtendWith( RandomExtension.class )
+@PageCacheExtension
+class RoaringTokenScanSeekerTest
+{
+    private static final int LABEL_COUNT = 5;
+    private static final int NODE_COUNT = 3 * RoaringTokenScanValue.RANGE_SIZE + 1_000;
+    private static final int ID_RANGE_COUNT = NODE_COUNT / TokenScanValue.RANGE_SIZE + 1;
+
+    @Inject
+    private RandomRule random;
+    @Inject
+    private PageCache pageCache;
+    @Inject
+    private TestDirectory directory;
+
+    private GBPTree<TokenScanKey,TokenScanValue> bitsetTree;
+    private GBPTree<TokenScanKey,RoaringTokenScanValue> roaringTree;
+    private Seeker.Factory<TokenScanKey,TokenScanValue> roaringSeekers;
+
+    @BeforeEach
+    void openTrees()
+    {
+        bitsetTree = new GBPTreeBuilder<>( pageCache, directory.file( "bitset" ), new TokenScanLayout() ).build();
+        roaringTree = new GBPTreeBuilder<>( pageCache, directory.file( "roaring" ), new RoaringTokenScanLayout() ).build();
+        roaringSeekers = RoaringTokenScanSeeker.seekers( roaringTree );
+    }
+
+    @AfterEach
+    void closeTrees() throws IOException
+    {
+        bitsetTree.close();
+        roaringTree.close();
+    }
+
+    @Test
+    void shouldSeeSameEntriesAsBitsetFormat() throws Exception
+    {
+        // GIVEN
+        long[] expected = writeRandomUpdates();
+
+        // WHEN/THEN
+        for ( int i = 0; i < LABEL_COUNT; i++ )
+        {
+            long[] actualNodeIds = asArray( new TokenScanValueIterator(
+                    roaringSeekers.seek( new TokenScanKey( i, 0 ), new TokenScanKey( i, Long.MAX_VALUE ), NULL ), NO_ID ) );
+            assertArrayEquals( nodesWithLabel( expected, i ), actualNodeIds, "For label " + i );
+        }
+        for ( int i = 0; i < 1_000; i++ )
+        {
+            TokenScanKey from = randomKey();
+            TokenScanKey to = randomKey();
+            try ( Seeker<TokenScanKey,TokenScanValue> expectedSeeker = bitsetTree.seek( from, to, NULL );
+                  Seeker<TokenScanKey,TokenScanValue> actualSeeker = roaringSeekers.seek( from, to, NULL ) )
+            {
+                assertSameEntries( expectedSeeker, actualSeeker, from, to );
+            }
+        }
+    }
+
+    @Test
+    void shouldSeekAcrossTokens() throws Exception
+    {
+        // GIVEN
+        writeRandomUpdates();
+        TokenScanKey from = new TokenScanKey( 0, 0 );
+        TokenScanKey to = new TokenScanKey( Integer.MAX_VALUE, Long.MAX_VALUE );
+
+        // WHEN/THEN
+        try ( Seeker<TokenScanKey,TokenScanValue> expectedSeeker = bitsetTree.seek( from, to, NULL );
+              Seeker<TokenScanKey,TokenScanValue> actualSeeker = roaringSeekers.seek( from, to, NULL ) )
+        {
+            assertSameEntries( expectedSeeker, actualSeeker, from, to );
+        }
+        try ( Seeker<TokenScanKey,TokenScanValue> expectedSeeker = bitsetTree.seek( to, from, NULL );
+              Seeker<TokenScanKey,TokenScanValue> actualSeeker = roaringSeekers.seek( to, from, NULL ) )
+        {
+            assertSameEntries( expectedSeeker, actualSeeker, to, from );
+        }
+    }
+
+    private long[] writeRandomUpdates() throws IOException
+    {
+        long[] expected = new long[NODE_COUNT];
+        try ( NativeTokenScanWriter bitsetWriter = new NativeTokenScanWriter( 1_000, NativeTokenScanWriter.EMPTY );
+              NativeTokenScanWriter roaringWriter = new NativeTokenScanWriter( 1_000, NativeTokenScanWriter.EMPTY ) )
+        {
+            bitsetWriter.initialize( bitsetTree.writer( NULL ) );
+            roaringWriter.initialize( new RoaringTokenScanWriter().initialize( roaringTree.writer( NULL ) ) );
+            for ( int i = 0; i < NODE_COUNT * 3; i++ )
+            {
+                EntityTokenUpdate update = randomUpdate( expected );
+                // The writers rearrange the token ids of the updates they get, so each writer gets its own copy
+                long[] tokensBefore = update.getTokensBefore().clone();
+                long[] tokensAfter = update.getTokensAfter().clone();
+                roaringWriter.write( EntityTokenUpdate.tokenChanges( update.getEntityId(), tokensBefore, tokensAfter ) );
+                bitsetWriter.write( update );
+            }
+        }
+        return expected;
+    }
+
+    private TokenScanKey randomKey()
+    {
+        return new TokenScanKey( random.nextInt( LABEL_COUNT ), random.nextInt( ID_RANGE_COUNT ) );
+    }
+
+    private EntityTokenUpdate randomUpdate( long[] expected )
+    {
+        int nodeId = random.nextInt( expected.length );
+        long labels = expected[nodeId];
+        long[] before = getLabels( labels );
+        int changeCount = random.nextInt( 4 ) + 1;
+        for ( int i = 0; i < changeCount; i++ )
+        {
+            labels = flipRandom( labels, LABEL_COUNT, random.random() );
+        }
+        expected[nodeId] = labels;
+        return EntityTokenUpdate.tokenChanges( nodeId, before, getLabels( labels ) );
+    }
+
+    private static void assertSameEntries( Seeker<TokenScanKey,TokenScanValue> expected, Seeker<TokenScanKey,TokenScanValue> actual,
+            TokenScanKey from, TokenScanKey to ) throws IOException
+    {
+        String range = "Seeking from " + from + " to " + to;
+        while ( expected.next() )
+        {
+            assertTrue( actual.next(), range );
+            assertEquals( expected.key().tokenId, actual.key().tokenId, range );
+            assertEquals( expected.key().idRange, actual.key().idRange, range );
+            assertEquals( expected.value().bits, actual.value().bits, range );
+        }
+        assertFalse( actual.next(), range );
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.index.label;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.BitSet;
+
+import org.neo4j.io.pagecache.ByteArrayPageCursor;
+import org.neo4j.io.pagecache.CursorException;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.RandomExtension;
+import org.neo4j.test.rule.RandomRule;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.neo4j.internal.index.label.RoaringTokenScanValue.ARRAY;
+import static org.neo4j.internal.index.label.RoaringTokenScanValue.BITMAP;
+import static org.neo4j.internal.index.label.RoaringTokenScanValue.RANGE_SIZE;
+import static org.neo4j.internal.index.label.RoaringTokenScanValue.RUN;
+import static org.neo4j.internal.index.label.RoaringTokenScanValue.WORDS_PER_RANGE;
+
+@ExtendWith( RandomExtension.class )
+class RoaringTokenScanValueTest
+{
+    private final RoaringTokenScanLayout layout = new RoaringTokenScanLayout();
+
+    @Inject
+    private RandomRule random;
+
+    @Test
+    void shouldAddBits()
+    {
+        // GIVEN
+        RoaringTokenScanValue value = new RoaringTokenScanValue().set( 3 ).set( 200 );
+
+        // WHEN
+        value.add( new RoaringTokenScanValue().set( 5 ).set( RANGE_SIZE - 1 ) );
+
+        // THEN
+        assertEquals( 0b101000, value.words[0] );
+        assertEquals( 1L << (200 - 3 * Long.SIZE), value.words[3] );
+        assertEquals( 1L << (Long.SIZE - 1), value.words[WORDS_PER_RANGE - 1] );
+        assertEquals( 0, value.lowWord );
+        assertEquals( WORDS_PER_RANGE - 1, value.highWord );
+    }
+
+    @Test
+    void shouldRemoveBits()
+    {
+        // GIVEN
+        RoaringTokenScanValue value = new RoaringTokenScanValue().set( 3 ).set( 5 ).set( 200 ).set( RANGE_SIZE - 1 );
+
+        // WHEN
+        value.remove( new RoaringTokenScanValue().set( 3 ).set( 5 ).set( RANGE_SIZE - 1 ) );
+
+        // THEN
+        assertEquals( 0, value.words[0] );
+        assertEquals( 3, value.lowWord );
+        assertEquals( 3, value.highWord );
+        assertFalse( value.isEmpty() );
+
+        // WHEN
+        value.remove( new RoaringTokenScanValue().set( 200 ) );
+
+        // THEN
+        assertTrue( value.isEmpty() );
+    }
+
+    @Test
+    void shouldStoreFewEntitiesInArrayContainer()
+    {
+        RoaringTokenScanValue value = new RoaringTokenScanValue().set( 10 ).set( 1_000 ).set( 10_000 ).set( RANGE_SIZE - 1 );
+
+        assertEquals( ARRAY, value.container() );
+        assertEquals( Byte.BYTES + 4 * Short.BYTES, value.size() );
+        assertRoundTrip( value );
+    }
+
+    @Test
+    void shouldStoreManyScatteredEntitiesInBitmapContainer()
+    {
+        RoaringTokenScanValue value = new RoaringTokenScanValue();
+        for ( int offset = 64; offset < 64 * 11; offset += 2 )
+        {
+            value.set( offset );
+        }
+
+        assertEquals( BITMAP, value.container() );
+        assertEquals( 2 * Byte.BYTES + 10 * Long.BYTES, value.size() );
+        assertRoundTrip( value );
+    }
+
+    @Test
+    void shouldStoreConsecutiveEntitiesInRunContainer()
+    {
+        RoaringTokenScanValue value = new RoaringTokenScanValue();
+        for ( int offset = 100; offset < 10_000; offset++ )
+        {
+            value.set( offset );
+        }
+        value.set( RANGE_SIZE - 1 );
+
+        assertEquals( RUN, value.container() );
+        assertEquals( Byte.BYTES + 2 * 2 * Short.BYTES, value.size() );
+        assertRoundTrip( value );
+    }
+
+    @Test
+    void shouldStoreFullRangeInRunContainer()
+    {
+        RoaringTokenScanValue value = new RoaringTokenScanValue();
+        for ( int offset = 0; offset < RANGE_SIZE; offset++ )
+        {
+            value.set( offset );
+        }
+
+        assertEquals( RUN, value.container() );
+        assertRoundTrip( value );
+    }
+
+    @Test
+    void shouldStoreRandomSetsInSmallestContainer()
+    {
+        for ( int i = 0; i < 200; i++ )
+        {
+            // GIVEN
+            RoaringTokenScanValue value = new RoaringTokenScanValue();
+            BitSet expected = new BitSet( RANGE_SIZE );
+            int from = random.nextInt( RANGE_SIZE );
+            int to = from + random.nextInt( RANGE_SIZE - from ) + 1;
+            double density = random.nextDouble();
+            int runLength = 1 + random.nextInt( 100 );
+            for ( int offset = from; offset < to; offset += runLength )
+            {
+                if ( random.nextDouble() < density )
+                {
+                    for ( int o = offset; o < Math.min( offset + runLength, to ); o++ )
+                    {
+                        value.set( o );
+                        expected.set( o );
+                    }
+                }
+            }
+
+            // WHEN
+            RoaringTokenScanValue read = assertRoundTrip( value );
+
+            // THEN
+            long[] expectedWords = expected.toLongArray();
+            for ( int word = 0; word < WORDS_PER_RANGE; word++ )
+            {
+                assertEquals( word < expectedWords.length ? expectedWords[word] : 0, read.words[word] );
+            }
+            int arraySize = Byte.BYTES + expected.cardinality() * Short.BYTES;
+            assertTrue( value.size() <= arraySize );
+            if ( !expected.isEmpty() )
+            {
+                int bitmapSize = 2 * Byte.BYTES + (value.highWord - value.lowWord + 1) * Long.BYTES;
+                assertTrue( value.size() <= bitmapSize );
+            }
+        }
+    }
+
+    @Test
+    void shouldReportInvalidContainer()
+    {
+        PageCursor cursor = ByteArrayPageCursor.wrap( new byte[]{(byte) 7, 0, 0} );
+        layout.readValue( cursor, layout.newValue(), 3 );
+
+        assertThrows( CursorException.class, cursor::checkAndClearCursorException );
+    }
+
+    @Test
+    void shouldReportInvalidRun()
+    {
+        RoaringTokenScanValue value = new RoaringTokenScanValue();
+        byte[] bytes = new byte[Byte.BYTES + 2 * Short.BYTES];
+        PageCursor cursor = ByteArrayPageCursor.wrap( bytes );
+        cursor.putByte( RUN );
+        cursor.putShort( (short) (RANGE_SIZE - 1) );
+        cursor.putShort( (short) 2 );
+        cursor.setOffset( 0 );
+
+        layout.readValue( cursor, value, bytes.length );
+
+        assertThrows( CursorException.class, cursor::checkAndClearCursorException );
+    }
+
+    private RoaringTokenScanValue assertRoundTrip( RoaringTokenScanValue value )
+    {
+        int size = layout.valueSize( value );
+        byte[] bytes = new byte[size];
+        PageCursor cursor = ByteArrayPageCursor.wrap( bytes );
+        layout.writeValue( cursor, value );
+        assertEquals( size, cursor.getOffset() );
+
+        // Read into a value with other bits set, to see that they are cleared
+        RoaringTokenScanValue read = layout.newValue().set( 1 ).set( RANGE_SIZE / 2 );
+        cursor.setOffset( 0 );
+        layout.readValue( cursor, read, size );
+        assertArrayEquals( value.words, read.words );
+        assertEquals( value.isEmpty() ? WORDS_PER_RANGE : value.lowWord, read.lowWord );
+        assertEquals( value.highWord, read.highWord );
+        return read;
+    }
+}
@@ -46,6 +46,7 @@ import org.neo4j.collection.PrimitiveLongCollections;
 import org.neo4j.collection.PrimitiveLongResourceIterator;
 import org.neo4j.common.EntityType;
 import org.neo4j.configuration.Config;
+import org.neo4j.configuration.GraphDatabaseInternalSettings;
 import org.neo4j.configuration.GraphDatabaseSettings;
 import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.index.internal.gbptree.TreeFileNotFoundException;
@@ -184,6 +185,37 @@ public class TokenScanStoreTest
         life.shutdown();
     }
 
+    @Test
+    void shouldRebuildStoreInOtherFormat() throws IOException
+    {
+        // given
+        int labelId = 1;
+        long[] nodeIds = {3, 100, 20_000, 20_001, 1_000_000};
+        List<EntityTokenUpdate> data = new ArrayList<>();
+        for ( long nodeId : nodeIds )
+        {
+            data.add( EntityTokenUpdate.tokenChanges( nodeId, NO_LABELS, new long[]{labelId} ) );
+        }
+        start( data );
+        life.shutdown();
+
+        // when
+        boolean roaringFormat = config().get( GraphDatabaseInternalSettings.token_scan_store_roaring_format );
+        Config otherFormat = Config.defaults( GraphDatabaseInternalSettings.token_scan_store_roaring_format, !roaringFormat );
+        monitor = new TrackingMonitor();
+        Monitors monitors = new Monitors();
+        monitors.addMonitorListener( monitor );
+        life = new LifeSupport();
+        store = life.add( labelScanStore( pageCache, databaseLayout, fileSystem, asStream( data ), false, monitors, immediate(), otherFormat,
+                PageCacheTracer.NULL, INSTANCE ) );
+        life.start();
+
+        // then
+        assertTrue( monitor.corruptedIndex );
+        assertTrue( monitor.rebuiltCalled );
+        assertNodesForLabel( labelId, nodeIds );
+    }
+
     @Test
     void failToRetrieveWriterOnReadOnlyScanStore()
     {
@@ -674,8 +706,13 @@ public class TokenScanStoreTest
     private LabelScanStore getLabelScanStore( FileSystemAbstraction fileSystemAbstraction, DatabaseLayout databaseLayout,
             FullStoreChangeStream fullStoreChangeStream, boolean readOnly, Monitors monitors )
     {
-        return labelScanStore( pageCache, databaseLayout, fileSystemAbstraction, fullStoreChangeStream, readOnly, monitors, immediate(), PageCacheTracer.NULL,
-                INSTANCE );
+        return labelScanStore( pageCache, databaseLayout, fileSystemAbstraction, fullStoreChangeStream, readOnly, monitors, immediate(), config(),
+                PageCacheTracer.NULL, INSTANCE );
+    }
+
+    protected Config config()
+    {
+        return Config.defaults();
     }
 
     private void corruptIndex( DatabaseLayout databaseLayout ) throws IOException
@@ -51,6 +51,30 @@ public class AbsentNativeAccess implements NativeAccess
         return NativeCallResult.SUCCESS;
     }
 
+    @Override
+    public NativeCallResult tryAdviseHugePages( long address, long length )
+    {
+        return NativeCallResult.SUCCESS;
+    }
+
+    @Override
+    public int numaNodeCount()
+    {
+        return 1;
+    }
+
+    @Override
+    public NativeCallResult tryInterleaveMemory( long address, long length )
+    {
+        return NativeCallResult.SUCCESS;
+    }
+
+    @Override
+    public NativeCallResult tryPlaceMemoryOnNode( long address, long length, int nodeIndex )
+    {
+        return NativeCallResult.SUCCESS;
+    }
+
     @Override
     public String describe()
     {
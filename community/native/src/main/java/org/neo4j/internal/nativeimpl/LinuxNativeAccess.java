@@ -24,6 +24,11 @@ import com.sun.jna.Native;
 import com.sun.jna.Platform;
 import com.sun.jna.Pointer;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.IntStream;
+
 import static org.apache.commons.lang3.exception.ExceptionUtils.getStackTrace;
 
 public class LinuxNativeAccess implements NativeAccess
@@ -47,11 +52,48 @@ public class LinuxNativeAccess implements NativeAccess
      */
     private static final int POSIX_FADV_DONTNEED = 4;
 
+    /**
+     * System call numbers of io_uring_setup(2) and io_uring_enter(2). These are the same on all architectures that have io_uring.
+     */
+    private static final long SYS_IO_URING_SETUP = 425;
+    private static final long SYS_IO_URING_ENTER = 426;
+
+    /**
+     * Constants defined in mman.h, for mapping the io_uring submission and completion queues into our address space.
+     */
+    private static final int PROT_READ = 0x1;
+    private static final int PROT_WRITE = 0x2;
+    private static final int MAP_SHARED = 0x01;
+    private static final int MAP_POPULATE = 0x08000;
+    private static final long MAP_FAILED = -1;
+
+    /**
+     * Constant defined in mman.h and advises that the specified memory should be backed by transparent huge pages.
+     * For more info check man page for madvise.
+     */
+    private static final int MADV_HUGEPAGE = 14;
+
+    /**
+     * Constants defined in mempolicy.h, for preferring a single NUMA node, and for interleaving pages across a set of NUMA nodes.
+     * For more info check man page for mbind.
+     */
+    private static final int MPOL_PREFERRED = 1;
+    private static final int MPOL_INTERLEAVE = 3;
+
+    /**
+     * System call number of mbind(2), which has no wrapper function in the C library. Unlike the io_uring system calls, the number differs
+     * between architectures, and we only know it for the 64-bit ones we run on.
+     */
+    private static final long SYS_MBIND = !Platform.is64Bit() ? -1 : Platform.isIntel() ? 237 : Platform.isARM() ? 235 : -1;
+
+    private static final String ONLINE_NUMA_NODES = "/sys/devices/system/node/online";
+
     private static final int EINVAL = 22;
     private static final int ERANGE = 34;
 
     private static final boolean NATIVE_ACCESS_AVAILABLE;
     private static final Throwable INITIALIZATION_FAILURE;
+    private static final int[] NUMA_NODES = onlineNumaNodes();
 
     static
     {
@@ -98,6 +140,40 @@ public class LinuxNativeAccess implements NativeAccess
      */
     private static native int posix_fallocate( int fd, long offset, long len ) throws LastErrorException;
 
+    /**
+     * Give advice about use of memory. The advice applies to the memory range starting at address and extending for length bytes.
+     * @param address start of the memory range, aligned to the page size
+     * @param length length of the memory range in bytes
+     * @param advice advise options
+     * @return 0 on success. On error, -1 is returned and errno is set
+     */
+    private static native int madvise( long address, long length, int advice ) throws LastErrorException;
+
+    /**
+     * Indirect system call, used for the system calls that have no wrapper function in the C library.
+     * @param number the system call number
+     * @return the result of the system call. On error, -1 is returned and errno is set
+     */
+    private static native long syscall( long number, long arg1, long arg2, long arg3, long arg4, long arg5, long arg6 ) throws LastErrorException;
+
+    /**
+     * Creates a new mapping in the virtual address space of the calling process.
+     * @return the address of the mapping. On error, MAP_FAILED is returned and errno is set
+     */
+    private static native long mmap( long address, long length, int protection, int flags, int fd, long offset ) throws LastErrorException;
+
+    /**
+     * Deletes the mappings for the specified address range.
+     * @return zero on success. On error, -1 is returned and errno is set
+     */
+    private static native int munmap( long address, long length ) throws LastErrorException;
+
+    /**
+     * Closes a file descriptor.
+     * @return zero on success. On error, -1 is returned and errno is set
+     */
+    private static native int close( int fd ) throws LastErrorException;
+
     /**
      * Return pointer to a string describing error number, possibly using the LC_MESSAGES part of the current locale to select the appropriate language.
      * @param errnum error number to describe
@@ -156,6 +232,226 @@ public class LinuxNativeAccess implements NativeAccess
         return wrapResult( () -> posix_fallocate( fd, 0, bytes ) );
     }
 
+    @Override
+    public NativeCallResult tryAdviseHugePages( long address, long length )
+    {
+        if ( address == 0 || length <= 0 )
+        {
+            return new NativeCallResult( ERROR, "Incorrect memory range." );
+        }
+        return wrapResult( () -> madvise( address, length, MADV_HUGEPAGE ) );
+    }
+
+    @Override
+    public int numaNodeCount()
+    {
+        return NUMA_NODES.length;
+    }
+
+    @Override
+    public NativeCallResult tryInterleaveMemory( long address, long length )
+    {
+        if ( NUMA_NODES.length == 1 )
+        {
+            return NativeCallResult.SUCCESS;
+        }
+        return bindMemory( address, length, MPOL_INTERLEAVE, NUMA_NODES );
+    }
+
+    @Override
+    public NativeCallResult tryPlaceMemoryOnNode( long address, long length, int nodeIndex )
+    {
+        if ( NUMA_NODES.length == 1 )
+        {
+            return NativeCallResult.SUCCESS;
+        }
+        if ( nodeIndex < 0 || nodeIndex >= NUMA_NODES.length )
+        {
+            return new NativeCallResult( ERROR, "Incorrect NUMA node index: " + nodeIndex + ". Number of nodes: " + NUMA_NODES.length );
+        }
+        // Only a preference, so that allocations fall back to other nodes rather than fail when this node runs out of free memory
+        return bindMemory( address, length, MPOL_PREFERRED, new int[]{NUMA_NODES[nodeIndex]} );
+    }
+
+    private static NativeCallResult bindMemory( long address, long length, int mode, int[] nodes )
+    {
+        if ( address == 0 || length <= 0 )
+        {
+            return new NativeCallResult( ERROR, "Incorrect memory range." );
+        }
+        if ( SYS_MBIND == -1 )
+        {
+            return new NativeCallResult( ERROR, "NUMA memory placement is not supported on this architecture." );
+        }
+        int maxNode = 0;
+        for ( int node : nodes )
+        {
+            maxNode = Math.max( maxNode, node );
+        }
+        int maskLongs = maxNode / Long.SIZE + 1;
+        long maskPointer = Native.malloc( (long) maskLongs * Long.BYTES );
+        if ( maskPointer == 0 )
+        {
+            return new NativeCallResult( ERROR, "Could not allocate NUMA node mask." );
+        }
+        try
+        {
+            Pointer mask = new Pointer( maskPointer );
+            mask.setMemory( 0, (long) maskLongs * Long.BYTES, (byte) 0 );
+            for ( int node : nodes )
+            {
+                long offset = (long) (node / Long.SIZE) * Long.BYTES;
+                mask.setLong( offset, mask.getLong( offset ) | 1L << (node % Long.SIZE) );
+            }
+            // The kernel treats the max node argument as one more than the number of bits in the mask.
+            return wrapResult( () -> (int) syscall( SYS_MBIND, address, length, mode, maskPointer, (long) maskLongs * Long.SIZE + 1, 0 ) );
+        }
+        finally
+        {
+            Native.free( maskPointer );
+        }
+    }
+
+    private static int[] onlineNumaNodes()
+    {
+        // The file contains a list of node ranges, for example "0-3,6".
+        try
+        {
+            Path path = Path.of( ONLINE_NUMA_NODES );
+            if ( Platform.isLinux() && Files.exists( path ) )
+            {
+                IntStream.Builder nodes = IntStream.builder();
+                for ( String range : Files.readString( path ).trim().split( "," ) )
+                {
+                    int dash = range.indexOf( '-' );
+                    int first = Integer.parseInt( dash == -1 ? range : range.substring( 0, dash ) );
+                    int last = dash == -1 ? first : Integer.parseInt( range.substring( dash + 1 ) );
+                    IntStream.rangeClosed( first, last ).forEach( nodes );
+                }
+                int[] online = nodes.build().toArray();
+                if ( online.length > 0 )
+                {
+                    return online;
+                }
+            }
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            // Treat the system as having a single node.
+        }
+        return new int[]{0};
+    }
+
+    /**
+     * Set up an io_uring submission and completion queue pair, with at least the given number of entries.
+     * See io_uring_setup(2).
+     * @param entries the requested number of submission queue entries
+     * @param paramsAddress address of a zeroed {@code struct io_uring_params}, which the kernel fills in with the ring offsets
+     * @return the file descriptor of the new ring
+     * @throws IOException if native access is not available, or the kernel does not support io_uring
+     */
+    public int ioUringSetup( int entries, long paramsAddress ) throws IOException
+    {
+        assertAvailable();
+        try
+        {
+            return (int) syscall( SYS_IO_URING_SETUP, entries, paramsAddress, 0, 0, 0, 0 );
+        }
+        catch ( LastErrorException e )
+        {
+            throw nativeCallFailure( "io_uring_setup", e );
+        }
+    }
+
+    /**
+     * Submit queued submission queue entries of the given ring, and optionally wait for completions. See io_uring_enter(2).
+     * @param ringFd the file descriptor of the ring
+     * @param toSubmit the number of submission queue entries to submit
+     * @param minComplete the number of completions to wait for, if {@code flags} includes IORING_ENTER_GETEVENTS
+     * @param flags io_uring_enter flags
+     * @return the number of submission queue entries that were consumed
+     */
+    public int ioUringEnter( int ringFd, int toSubmit, int minComplete, int flags ) throws IOException
+    {
+        assertAvailable();
+        try
+        {
+            return (int) syscall( SYS_IO_URING_ENTER, ringFd, toSubmit, minComplete, flags, 0, 0 );
+        }
+        catch ( LastErrorException e )
+        {
+            throw nativeCallFailure( "io_uring_enter", e );
+        }
+    }
+
+    /**
+     * Map a region of the given file descriptor into memory, shared with the kernel and populated up front.
+     * Used for mapping the queues of an io_uring.
+     * @return the address of the mapping
+     */
+    public long mapShared( int fd, long offset, long length ) throws IOException
+    {
+        assertAvailable();
+        try
+        {
+            long address = mmap( 0, length, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE, fd, offset );
+            if ( address == MAP_FAILED )
+            {
+                throw new IOException( "mmap failed." );
+            }
+            return address;
+        }
+        catch ( LastErrorException e )
+        {
+            throw nativeCallFailure( "mmap", e );
+        }
+    }
+
+    /**
+     * Remove a mapping created by {@link #mapShared(int, long, long)}.
+     */
+    public void unmap( long address, long length ) throws IOException
+    {
+        assertAvailable();
+        try
+        {
+            munmap( address, length );
+        }
+        catch ( LastErrorException e )
+        {
+            throw nativeCallFailure( "munmap", e );
+        }
+    }
+
+    /**
+     * Close a file descriptor that was not opened through Java, like the file descriptor of an io_uring.
+     */
+    public void closeFileDescriptor( int fd ) throws IOException
+    {
+        assertAvailable();
+        try
+        {
+            close( fd );
+        }
+        catch ( LastErrorException e )
+        {
+            throw nativeCallFailure( "close", e );
+        }
+    }
+
+    private static void assertAvailable() throws IOException
+    {
+        if ( !NATIVE_ACCESS_AVAILABLE )
+        {
+            throw new IOException( "Linux native access is not available." );
+        }
+    }
+
+    private static IOException nativeCallFailure( String call, LastErrorException e )
+    {
+        return new IOException( "Native call " + call + " failed with error code " + e.getErrorCode() + ": " + tryExtractError( e.getErrorCode() ), e );
+    }
+
     @Override
     public String describe()
     {
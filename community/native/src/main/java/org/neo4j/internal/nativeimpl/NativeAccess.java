@@ -69,6 +69,41 @@ public interface NativeAccess
      */
     NativeCallResult tryPreallocateSpace( int fd, long bytes );
 
+    /**
+     * Try to advise that the memory in the given range should be backed by transparent huge pages.
+     * Useful for large, long lived, memory regions that are accessed randomly. For example: page cache memory.
+     * @param address start of the memory range, must be aligned to the OS page size
+     * @param length length of the memory range in bytes
+     * @return returns zero on success, or an error number on failure
+     */
+    NativeCallResult tryAdviseHugePages( long address, long length );
+
+    /**
+     * Number of NUMA nodes that memory can be placed on.
+     * @return number of online NUMA nodes, or 1 if the system is not NUMA or the topology cannot be determined
+     */
+    int numaNodeCount();
+
+    /**
+     * Try to interleave the memory in the given range across all NUMA nodes, page by page.
+     * Must be called before the memory is first touched, to have any effect.
+     * @param address start of the memory range, must be aligned to the OS page size
+     * @param length length of the memory range in bytes
+     * @return returns zero on success, or an error number on failure
+     */
+    NativeCallResult tryInterleaveMemory( long address, long length );
+
+    /**
+     * Try to make the given NUMA node the preferred node for the memory in the given range. The memory is placed on other nodes
+     * when the preferred node is out of free memory.
+     * Must be called before the memory is first touched, to have any effect.
+     * @param address start of the memory range, must be aligned to the OS page size
+     * @param length length of the memory range in bytes
+     * @param nodeIndex index of the node, between zero and {@link #numaNodeCount()}
+     * @return returns zero on success, or an error number on failure
+     */
+    NativeCallResult tryPlaceMemoryOnNode( long address, long length, int nodeIndex );
+
     /**
      * Details about native access provider
      * @return details about native access
@@ -19,6 +19,7 @@
  */
 package org.neo4j.internal.nativeimpl;
 
+import com.sun.jna.Native;
 import org.apache.commons.lang3.reflect.FieldUtils;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -39,10 +40,12 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.neo4j.internal.nativeimpl.NativeAccess.ERROR;
 
 class LinuxNativeAccessTest
 {
+    private static final long HUGE_PAGE_SIZE = 2 * 1024 * 1024;
     private final LinuxNativeAccess nativeAccess = new LinuxNativeAccess();
 
     @Test
@@ -152,6 +155,47 @@ class LinuxNativeAccessTest
             assertNotEquals( 0, nativeAccess.tryEvictFromCache( descriptor ) );
         }
 
+        @Test
+        void failToAdviseHugePagesForIncorrectMemoryRange()
+        {
+            assertEquals( ERROR, nativeAccess.tryAdviseHugePages( 0, HUGE_PAGE_SIZE ).getErrorCode() );
+            assertEquals( ERROR, nativeAccess.tryAdviseHugePages( HUGE_PAGE_SIZE, 0 ).getErrorCode() );
+        }
+
+        @Test
+        void adviseHugePagesOnLinuxForAlignedMemory()
+        {
+            assumeTrue( new File( "/sys/kernel/mm/transparent_hugepage/enabled" ).exists() );
+            long pointer = Native.malloc( 3 * HUGE_PAGE_SIZE );
+            try
+            {
+                long aligned = (pointer + HUGE_PAGE_SIZE - 1) & -HUGE_PAGE_SIZE;
+                assertFalse( nativeAccess.tryAdviseHugePages( aligned, 2 * HUGE_PAGE_SIZE ).isError() );
+            }
+            finally
+            {
+                Native.free( pointer );
+            }
+        }
+
+        @Test
+        void placeMemoryOnNumaNodes()
+        {
+            int nodes = nativeAccess.numaNodeCount();
+            assertThat( nodes ).isPositive();
+            long pointer = Native.malloc( 3 * HUGE_PAGE_SIZE );
+            try
+            {
+                long aligned = (pointer + HUGE_PAGE_SIZE - 1) & -HUGE_PAGE_SIZE;
+                assertFalse( nativeAccess.tryInterleaveMemory( aligned, HUGE_PAGE_SIZE ).isError() );
+                assertFalse( nativeAccess.tryPlaceMemoryOnNode( aligned + HUGE_PAGE_SIZE, HUGE_PAGE_SIZE, nodes - 1 ).isError() );
+            }
+            finally
+            {
+                Native.free( pointer );
+            }
+        }
+
         @Test
         void skipCacheOnLinuxForCorrectDescriptor() throws IOException, IllegalAccessException
         {
@@ -383,6 +383,7 @@ public class GlobalModule
         jobScheduler.setParallelism( Group.INDEX_SAMPLING, globalConfig.get( GraphDatabaseInternalSettings.index_sampling_parallelism ) );
         jobScheduler.setParallelism( Group.INDEX_POPULATION, globalConfig.get( GraphDatabaseInternalSettings.index_population_parallelism ) );
         jobScheduler.setParallelism( Group.INDEX_POPULATION_WORK, globalConfig.get( GraphDatabaseInternalSettings.index_population_workers ) );
+        jobScheduler.setParallelism( Group.INDEX_UPDATE_APPLY, globalConfig.get( GraphDatabaseInternalSettings.index_update_apply_workers ) );
         jobScheduler.setParallelism( Group.PAGE_CACHE_PRE_FETCHER, globalConfig.get( GraphDatabaseSettings.pagecache_scan_prefetch ) );
         return jobScheduler;
     }
@@ -59,6 +59,9 @@ import org.neo4j.kernel.api.procedure.SystemProcedure;
 import org.neo4j.kernel.impl.api.index.IndexingService;
 import org.neo4j.kernel.impl.coreapi.InternalTransaction;
 import org.neo4j.kernel.impl.query.QueryExecutionEngine;
+import org.neo4j.kernel.impl.transaction.stats.CommitPhase;
+import org.neo4j.kernel.impl.transaction.stats.LatencyHistogram;
+import org.neo4j.kernel.impl.transaction.tracing.DatabaseTracer;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.procedure.Admin;
 import org.neo4j.procedure.Context;
@@ -69,6 +72,7 @@ import org.neo4j.procedure.Procedure;
 import org.neo4j.storageengine.api.StoreIdProvider;
 import org.neo4j.values.storable.Value;
 
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static org.neo4j.internal.helpers.collection.Iterators.asList;
 import static org.neo4j.internal.helpers.collection.Iterators.stream;
 import static org.neo4j.kernel.impl.api.TokenAccess.LABELS;
@@ -401,6 +405,16 @@ public class BuiltInProcedures
                 .clearQueryCaches();
     }
 
+    @Admin
+    @SystemProcedure
+    @Description( "List the latencies of the phases of committing transactions in the database, in microseconds." )
+    @Procedure( name = "db.commitLatency", mode = READ )
+    public Stream<CommitLatencyResult> commitLatency()
+    {
+        DatabaseTracer databaseTracer = graphDatabaseAPI.getDependencyResolver().resolveDependency( DatabaseTracer.class );
+        return Arrays.stream( CommitPhase.values() ).map( phase -> new CommitLatencyResult( phase, databaseTracer.commitLatency( phase ) ) );
+    }
+
     @SystemProcedure
     @Procedure( name = "db.schema.nodeTypeProperties", mode = Mode.READ )
     @Description( "Show the derived property schema of the nodes in tabular form." )
@@ -566,6 +580,30 @@ public class BuiltInProcedures
         }
     }
 
+    public static class CommitLatencyResult
+    {
+        public final String phase;
+        public final long count;
+        public final long meanMicros;
+        public final long p50Micros;
+        public final long p90Micros;
+        public final long p99Micros;
+        public final long p999Micros;
+        public final long maxMicros;
+
+        private CommitLatencyResult( CommitPhase phase, LatencyHistogram.Snapshot latency )
+        {
+            this.phase = phase.phaseName();
+            this.count = latency.count();
+            this.meanMicros = NANOSECONDS.toMicros( latency.mean() );
+            this.p50Micros = NANOSECONDS.toMicros( latency.valueAtPercentile( 50 ) );
+            this.p90Micros = NANOSECONDS.toMicros( latency.valueAtPercentile( 90 ) );
+            this.p99Micros = NANOSECONDS.toMicros( latency.valueAtPercentile( 99 ) );
+            this.p999Micros = NANOSECONDS.toMicros( latency.valueAtPercentile( 99.9 ) );
+            this.maxMicros = NANOSECONDS.toMicros( latency.max() );
+        }
+    }
+
     public static class RelationshipTypeResult
     {
         public final String relationshipType;
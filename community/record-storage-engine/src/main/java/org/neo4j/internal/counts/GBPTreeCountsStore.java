@@ -258,7 +258,7 @@ public class GBPTreeCountsStore implements CountsStore
         // Sort the entries in the natural tree order to get more performance in the writer
         List<Map.Entry<CountsKey,AtomicLong>> changeList = new ArrayList<>( changes.entrySet() );
         changeList.sort( ( e1, e2 ) -> layout.compare( e1.getKey(), e2.getKey() ) );
-        try ( Writer<CountsKey,CountsValue> writer = tree.writer( cursorTracer ) )
+        try ( Writer<CountsKey,CountsValue> writer = tree.sortedWriter( cursorTracer ) )
         {
             CountsValue value = new CountsValue();
             for ( Map.Entry<CountsKey,AtomicLong> entry : changeList )
@@ -0,0 +1,504 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.recordstorage;
+
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import org.neo4j.internal.recordstorage.Command.BaseCommand;
+import org.neo4j.internal.recordstorage.Command.LabelTokenCommand;
+import org.neo4j.internal.recordstorage.Command.NodeCommand;
+import org.neo4j.internal.recordstorage.Command.PropertyCommand;
+import org.neo4j.internal.recordstorage.Command.PropertyKeyTokenCommand;
+import org.neo4j.internal.recordstorage.Command.RelationshipCommand;
+import org.neo4j.internal.recordstorage.Command.RelationshipGroupCommand;
+import org.neo4j.internal.recordstorage.Command.RelationshipTypeTokenCommand;
+import org.neo4j.internal.recordstorage.Command.SchemaRuleCommand;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.kernel.impl.store.IdUpdateListener;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
+import org.neo4j.kernel.impl.store.record.DynamicRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
+import org.neo4j.storageengine.api.CommandsToApply;
+
+import static org.neo4j.internal.helpers.NamedThreadFactory.daemon;
+
+/**
+ * Applies batches of recovered transactions with the record updates written by several threads.
+ * <p>
+ * Consecutive transactions of a batch are gathered into segments in which no record, and no entity, is touched by more than one transaction.
+ * The record updates of a segment are sharded by record id and written concurrently, which is safe since no two of them target the same record.
+ * After that the rest of the recovery applier chain, i.e. counts, label index, schema index and high id tracking, is run for each transaction
+ * of the segment in transaction order. Since no other transaction in the segment touches the same entities, the index updates see the same
+ * store state as they would have when applying the transactions one by one.
+ * <p>
+ * Transactions changing tokens or schema are applied one by one through the regular recovery applier chain, as are transactions that
+ * conflict with the segment gathered so far, in which case that segment is applied first.
+ */
+class ParallelRecoveryApplier implements AutoCloseable
+{
+    private static final String RECOVERY_WORKER_TAG = "parallelRecoveryWorker";
+
+    private final NeoStores neoStores;
+    private final TransactionApplierFactoryChain serialChain;
+    private final TransactionApplierFactoryChain auxiliaryChain;
+    private final Supplier<IdUpdateListener> idUpdateListenerSupplier;
+    private final PageCacheTracer cacheTracer;
+    private final int parallelism;
+    private ExecutorService executor;
+
+    ParallelRecoveryApplier( NeoStores neoStores, TransactionApplierFactoryChain serialChain, TransactionApplierFactoryChain auxiliaryChain,
+            Supplier<IdUpdateListener> idUpdateListenerSupplier, PageCacheTracer cacheTracer, int parallelism )
+    {
+        this.neoStores = neoStores;
+        this.serialChain = serialChain;
+        this.auxiliaryChain = auxiliaryChain;
+        this.idUpdateListenerSupplier = idUpdateListenerSupplier;
+        this.cacheTracer = cacheTracer;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Applies the given batch of recovered transactions.
+     *
+     * @param batch the transactions to apply, in commit order.
+     * @param contextFactory creates the {@link BatchContext} for each segment and each serially applied transaction. Every context is closed,
+     * and thereby has its label index, index and id updates applied, before the next segment or transaction is applied.
+     */
+    void apply( CommandsToApply batch, Supplier<BatchContext> contextFactory ) throws Exception
+    {
+        Segment segment = new Segment();
+        CommandsToApply transaction = batch;
+        while ( transaction != null )
+        {
+            TransactionKind kind = segment.tryAdd( transaction );
+            if ( kind == TransactionKind.CONFLICTING )
+            {
+                applySegment( segment, contextFactory );
+                segment.clear();
+                // Retry the same transaction against the now empty segment
+                continue;
+            }
+            if ( kind == TransactionKind.SERIAL )
+            {
+                applySegment( segment, contextFactory );
+                segment.clear();
+                applySerially( transaction, contextFactory );
+            }
+            transaction = transaction.next();
+        }
+        applySegment( segment, contextFactory );
+    }
+
+    private void applySerially( CommandsToApply transaction, Supplier<BatchContext> contextFactory ) throws Exception
+    {
+        try ( BatchContext context = contextFactory.get();
+              TransactionApplier txApplier = serialChain.startTx( transaction, context ) )
+        {
+            transaction.accept( txApplier );
+        }
+    }
+
+    private void applySegment( Segment segment, Supplier<BatchContext> contextFactory ) throws Exception
+    {
+        if ( segment.transactions.isEmpty() )
+        {
+            return;
+        }
+
+        writeRecords( segment.recordCommands );
+        try ( BatchContext context = contextFactory.get() )
+        {
+            for ( CommandsToApply transaction : segment.transactions )
+            {
+                try ( TransactionApplier txApplier = auxiliaryChain.startTx( transaction, context ) )
+                {
+                    transaction.accept( txApplier );
+                }
+            }
+        }
+    }
+
+    private void writeRecords( List<BaseCommand<?>> recordCommands ) throws IOException
+    {
+        int shardCount = Math.min( parallelism, recordCommands.size() );
+        if ( shardCount <= 1 )
+        {
+            new RecordWriter( recordCommands ).call();
+            return;
+        }
+
+        List<List<BaseCommand<?>>> shards = new ArrayList<>( shardCount );
+        for ( int i = 0; i < shardCount; i++ )
+        {
+            shards.add( new ArrayList<>() );
+        }
+        for ( BaseCommand<?> command : recordCommands )
+        {
+            // Neighbouring records live on the same page, so let them be written by the same worker
+            shards.get( (int) ((command.getKey() >>> 6) % shardCount) ).add( command );
+        }
+
+        ExecutorService workers = executor();
+        List<Future<Void>> futures = new ArrayList<>( shardCount );
+        for ( List<BaseCommand<?>> shard : shards )
+        {
+            futures.add( workers.submit( new RecordWriter( shard ) ) );
+        }
+        Throwable failure = null;
+        for ( Future<Void> future : futures )
+        {
+            try
+            {
+                future.get();
+            }
+            catch ( ExecutionException e )
+            {
+                failure = failure == null ? e.getCause() : failure;
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                failure = failure == null ? e : failure;
+            }
+        }
+        if ( failure != null )
+        {
+            throw new IOException( "Failed to write records of recovered transactions", failure );
+        }
+    }
+
+    private synchronized ExecutorService executor()
+    {
+        if ( executor == null )
+        {
+            executor = Executors.newFixedThreadPool( parallelism, daemon( "recovery-applier" ) );
+        }
+        return executor;
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        if ( executor != null )
+        {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    private enum TransactionKind
+    {
+        /**
+         * The transaction was added to the segment.
+         */
+        PARALLEL,
+        /**
+         * The transaction touches records or entities that some transaction in the segment also touches.
+         */
+        CONFLICTING,
+        /**
+         * The transaction has commands that must be applied through the regular applier chain, e.g. token or schema changes.
+         */
+        SERIAL
+    }
+
+    /**
+     * Writes the after state of a set of record commands, with its own cursor tracer and id update listener.
+     */
+    private class RecordWriter extends CommandVisitor.Adapter implements Callable<Void>
+    {
+        private final List<BaseCommand<?>> commands;
+        private IdUpdateListener idUpdateListener;
+        private PageCursorTracer cursorTracer;
+
+        RecordWriter( List<BaseCommand<?>> commands )
+        {
+            this.commands = commands;
+        }
+
+        @Override
+        public Void call() throws IOException
+        {
+            try ( PageCursorTracer tracer = cacheTracer.createPageCursorTracer( RECOVERY_WORKER_TAG );
+                  IdUpdateListener listener = idUpdateListenerSupplier.get() )
+            {
+                cursorTracer = tracer;
+                idUpdateListener = listener;
+                for ( BaseCommand<?> command : commands )
+                {
+                    command.handle( this );
+                }
+            }
+            catch ( IOException | RuntimeException e )
+            {
+                throw e;
+            }
+            catch ( Exception e )
+            {
+                throw new IOException( e );
+            }
+            return null;
+        }
+
+        @Override
+        public boolean visitNodeCommand( NodeCommand command )
+        {
+            neoStores.getNodeStore().updateRecord( command.getAfter(), idUpdateListener, cursorTracer );
+            return false;
+        }
+
+        @Override
+        public boolean visitRelationshipCommand( RelationshipCommand command )
+        {
+            neoStores.getRelationshipStore().updateRecord( command.getAfter(), idUpdateListener, cursorTracer );
+            return false;
+        }
+
+        @Override
+        public boolean visitPropertyCommand( PropertyCommand command )
+        {
+            neoStores.getPropertyStore().updateRecord( command.getAfter(), idUpdateListener, cursorTracer );
+            return false;
+        }
+
+        @Override
+        public boolean visitRelationshipGroupCommand( RelationshipGroupCommand command )
+        {
+            neoStores.getRelationshipGroupStore().updateRecord( command.getAfter(), idUpdateListener, cursorTracer );
+            return false;
+        }
+    }
+
+    /**
+     * The transactions gathered so far, the record commands they write and the records and entities they touch.
+     */
+    private static class Segment
+    {
+        private final List<CommandsToApply> transactions = new ArrayList<>();
+        private final List<BaseCommand<?>> recordCommands = new ArrayList<>();
+        private final TouchedRecords touched = new TouchedRecords();
+        private final TouchedRecords candidate = new TouchedRecords();
+
+        TransactionKind tryAdd( CommandsToApply transaction ) throws IOException
+        {
+            candidate.clear();
+            transaction.accept( command -> ((Command) command).handle( candidate ) );
+            if ( candidate.serial )
+            {
+                return TransactionKind.SERIAL;
+            }
+            if ( touched.overlaps( candidate ) )
+            {
+                return TransactionKind.CONFLICTING;
+            }
+            touched.addAll( candidate );
+            recordCommands.addAll( candidate.commands );
+            transactions.add( transaction );
+            return TransactionKind.PARALLEL;
+        }
+
+        void clear()
+        {
+            transactions.clear();
+            recordCommands.clear();
+            touched.clear();
+        }
+    }
+
+    /**
+     * Ids of the records and entities touched by one or more transactions. Property records are also registered under the entity owning them
+     * and relationship groups under their owning node, so that two transactions changing different records of the same entity conflict.
+     * Dynamic records of all stores share one id set, which can only cause false conflicts. Secondary record units are registered as well,
+     * since a freed secondary unit can be reused by another record of the same store.
+     */
+    private static class TouchedRecords extends CommandVisitor.Adapter
+    {
+        private final MutableLongSet nodes = new LongHashSet();
+        private final MutableLongSet relationships = new LongHashSet();
+        private final MutableLongSet properties = new LongHashSet();
+        private final MutableLongSet relationshipGroups = new LongHashSet();
+        private final MutableLongSet dynamicRecords = new LongHashSet();
+        private final List<BaseCommand<?>> commands = new ArrayList<>();
+        private boolean serial;
+
+        @Override
+        public boolean visitNodeCommand( NodeCommand command )
+        {
+            addRecord( nodes, command.getBefore() );
+            addRecord( nodes, command.getAfter() );
+            addDynamicLabelRecords( command.getBefore() );
+            addDynamicLabelRecords( command.getAfter() );
+            commands.add( command );
+            return false;
+        }
+
+        @Override
+        public boolean visitRelationshipCommand( RelationshipCommand command )
+        {
+            addRecord( relationships, command.getBefore() );
+            addRecord( relationships, command.getAfter() );
+            commands.add( command );
+            return false;
+        }
+
+        @Override
+        public boolean visitPropertyCommand( PropertyCommand command )
+        {
+            addProperty( command.getBefore() );
+            addProperty( command.getAfter() );
+            commands.add( command );
+            return false;
+        }
+
+        @Override
+        public boolean visitRelationshipGroupCommand( RelationshipGroupCommand command )
+        {
+            addGroup( command.getBefore() );
+            addGroup( command.getAfter() );
+            commands.add( command );
+            return false;
+        }
+
+        @Override
+        public boolean visitRelationshipTypeTokenCommand( RelationshipTypeTokenCommand command )
+        {
+            serial = true;
+            return false;
+        }
+
+        @Override
+        public boolean visitLabelTokenCommand( LabelTokenCommand command )
+        {
+            serial = true;
+            return false;
+        }
+
+        @Override
+        public boolean visitPropertyKeyTokenCommand( PropertyKeyTokenCommand command )
+        {
+            serial = true;
+            return false;
+        }
+
+        @Override
+        public boolean visitSchemaRuleCommand( SchemaRuleCommand command )
+        {
+            serial = true;
+            return false;
+        }
+
+        private void addProperty( PropertyRecord record )
+        {
+            addRecord( properties, record );
+            if ( record.isNodeSet() )
+            {
+                nodes.add( record.getNodeId() );
+            }
+            else if ( record.isRelSet() )
+            {
+                relationships.add( record.getRelId() );
+            }
+            for ( PropertyBlock block : record )
+            {
+                for ( DynamicRecord valueRecord : block.getValueRecords() )
+                {
+                    addRecord( dynamicRecords, valueRecord );
+                }
+            }
+            for ( DynamicRecord deletedRecord : record.getDeletedRecords() )
+            {
+                addRecord( dynamicRecords, deletedRecord );
+            }
+        }
+
+        private void addGroup( RelationshipGroupRecord record )
+        {
+            addRecord( relationshipGroups, record );
+            if ( record.getOwningNode() != -1 )
+            {
+                nodes.add( record.getOwningNode() );
+            }
+        }
+
+        private void addDynamicLabelRecords( NodeRecord record )
+        {
+            for ( DynamicRecord labelRecord : record.getDynamicLabelRecords() )
+            {
+                addRecord( dynamicRecords, labelRecord );
+            }
+        }
+
+        private static void addRecord( MutableLongSet ids, AbstractBaseRecord record )
+        {
+            ids.add( record.getId() );
+            if ( record.hasSecondaryUnitId() )
+            {
+                ids.add( record.getSecondaryUnitId() );
+            }
+        }
+
+        boolean overlaps( TouchedRecords other )
+        {
+            return overlaps( nodes, other.nodes ) || overlaps( relationships, other.relationships ) || overlaps( properties, other.properties ) ||
+                    overlaps( relationshipGroups, other.relationshipGroups ) || overlaps( dynamicRecords, other.dynamicRecords );
+        }
+
+        private static boolean overlaps( MutableLongSet ours, MutableLongSet theirs )
+        {
+            return !ours.isEmpty() && theirs.anySatisfy( ours::contains );
+        }
+
+        void addAll( TouchedRecords other )
+        {
+            nodes.addAll( other.nodes );
+            relationships.addAll( other.relationships );
+            properties.addAll( other.properties );
+            relationshipGroups.addAll( other.relationshipGroups );
+            dynamicRecords.addAll( other.dynamicRecords );
+        }
+
+        void clear()
+        {
+            nodes.clear();
+            relationships.clear();
+            properties.clear();
+            relationshipGroups.clear();
+            dynamicRecords.clear();
+            commands.clear();
+            serial = false;
+        }
+    }
+}
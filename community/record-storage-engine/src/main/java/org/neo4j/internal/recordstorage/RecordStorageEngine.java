@@ -117,6 +117,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     private final ConstraintRuleAccessor constraintSemantics;
     private final LockService lockService;
     private final boolean consistencyCheckApply;
+    private final int recoveryParallelism;
     private WorkSync<EntityTokenUpdateListener,TokenUpdateWork> labelScanStoreSync;
     private WorkSync<EntityTokenUpdateListener,TokenUpdateWork> relationshipTypeScanStoreSync;
     private WorkSync<IndexUpdateListener,IndexUpdatesWork> indexUpdatesSync;
@@ -127,6 +128,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     private final int denseNodeThreshold;
     private final Map<IdType,WorkSync<IdGenerator,IdGeneratorUpdateWork>> idGeneratorWorkSyncs = new EnumMap<>( IdType.class );
     private final Map<TransactionApplicationMode,TransactionApplierFactoryChain> applierChains = new EnumMap<>( TransactionApplicationMode.class );
+    private ParallelRecoveryApplier parallelRecoveryApplier;
 
     // installed later
     private IndexUpdateListener indexUpdateListener;
@@ -181,6 +183,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
             countsStore = openCountsStore( pageCache, fs, databaseLayout, config, logProvider, recoveryCleanupWorkCollector, cacheTracer );
 
             consistencyCheckApply = config.get( GraphDatabaseInternalSettings.consistency_check_on_apply );
+            recoveryParallelism = config.get( GraphDatabaseInternalSettings.recovery_parallelism );
         }
         catch ( Throwable failure )
         {
@@ -193,21 +196,34 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     {
         for ( TransactionApplicationMode mode : TransactionApplicationMode.values() )
         {
-            applierChains.put( mode, buildApplierFacadeChain( mode ) );
+            applierChains.put( mode, buildApplierFacadeChain( mode, true ) );
+        }
+        if ( recoveryParallelism > 1 && !consistencyCheckApply )
+        {
+            TransactionApplierFactoryChain recoveryChain = applierChains.get( RECOVERY );
+            parallelRecoveryApplier = new ParallelRecoveryApplier( neoStores, recoveryChain, buildApplierFacadeChain( RECOVERY, false ),
+                    recoveryChain.getIdUpdateListenerSupplier(), cacheTracer, recoveryParallelism );
         }
     }
 
-    private TransactionApplierFactoryChain buildApplierFacadeChain( TransactionApplicationMode mode )
+    /**
+     * @param withStoreApplier whether or not the chain should write the records of the commands to the stores. Only the parallel recovery
+     * leaves this out, since it writes the records itself before running the rest of the chain.
+     */
+    private TransactionApplierFactoryChain buildApplierFacadeChain( TransactionApplicationMode mode, boolean withStoreApplier )
     {
         Supplier<IdUpdateListener> listenerSupplier = mode == REVERSE_RECOVERY ? () -> IdUpdateListener.IGNORE :
                                                       () -> new EnqueuingIdUpdateListener( idGeneratorWorkSyncs, cacheTracer );
         List<TransactionApplierFactory> appliers = new ArrayList<>();
         // Graph store application. The order of the decorated store appliers is irrelevant
-        if ( consistencyCheckApply && mode.needsAuxiliaryStores() )
+        if ( withStoreApplier )
         {
-            appliers.add( new ConsistencyCheckingApplierFactory( neoStores ) );
+            if ( consistencyCheckApply && mode.needsAuxiliaryStores() )
+            {
+                appliers.add( new ConsistencyCheckingApplierFactory( neoStores ) );
+            }
+            appliers.add( new NeoStoreTransactionApplierFactory( mode, neoStores, cacheAccess, lockService( mode ) ) );
         }
-        appliers.add( new NeoStoreTransactionApplierFactory( mode, neoStores, cacheAccess, lockService( mode ) ) );
         if ( mode.needsHighIdTracking() )
         {
             appliers.add( new HighIdTransactionApplierFactory( neoStores ) );
@@ -348,17 +364,26 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     {
         TransactionApplierFactoryChain batchApplier = applierChain( mode );
         CommandsToApply initialBatch = batch;
-        try ( BatchContext context = new BatchContext( indexUpdateListener, labelScanStoreSync, relationshipTypeScanStoreSync, indexUpdatesSync,
-                neoStores.getNodeStore(), neoStores.getPropertyStore(), this, schemaCache, initialBatch.cursorTracer(), otherMemoryTracker,
-                batchApplier.getIdUpdateListenerSupplier().get() ) )
+        try
         {
-            while ( batch != null )
+            if ( mode == RECOVERY && parallelRecoveryApplier != null && batch.next() != null )
+            {
+                parallelRecoveryApplier.apply( batch, () -> newBatchContext( batchApplier, initialBatch ) );
+                batch = null;
+            }
+            else
             {
-                try ( TransactionApplier txApplier = batchApplier.startTx( batch, context ) )
+                try ( BatchContext context = newBatchContext( batchApplier, initialBatch ) )
                 {
-                    batch.accept( txApplier );
+                    while ( batch != null )
+                    {
+                        try ( TransactionApplier txApplier = batchApplier.startTx( batch, context ) )
+                        {
+                            batch.accept( txApplier );
+                        }
+                        batch = batch.next();
+                    }
                 }
-                batch = batch.next();
             }
         }
         catch ( Throwable cause )
@@ -370,6 +395,13 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         }
     }
 
+    private BatchContext newBatchContext( TransactionApplierFactoryChain batchApplier, CommandsToApply initialBatch )
+    {
+        return new BatchContext( indexUpdateListener, labelScanStoreSync, relationshipTypeScanStoreSync, indexUpdatesSync,
+                neoStores.getNodeStore(), neoStores.getPropertyStore(), this, schemaCache, initialBatch.cursorTracer(), otherMemoryTracker,
+                batchApplier.getIdUpdateListenerSupplier().get() );
+    }
+
     /**
      * Provides a {@link TransactionApplierFactoryChain} that is to be used for all transactions
      * in a batch. Each transaction is handled by a {@link TransactionApplierFacade} which wraps the
@@ -420,7 +452,15 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     @Override
     public void shutdown() throws Exception
     {
-        executeAll( countsStore::close, neoStores::close );
+        executeAll( this::closeParallelRecoveryApplier, countsStore::close, neoStores::close );
+    }
+
+    private void closeParallelRecoveryApplier()
+    {
+        if ( parallelRecoveryApplier != null )
+        {
+            parallelRecoveryApplier.close();
+        }
     }
 
     @Override
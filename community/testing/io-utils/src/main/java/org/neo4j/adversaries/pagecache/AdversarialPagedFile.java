@@ -74,6 +74,12 @@ public class AdversarialPagedFile implements PagedFile
         return delegate.fileSize();
     }
 
+    @Override
+    public long dirtyPages()
+    {
+        return delegate.dirtyPages();
+    }
+
     @Override
     public File file()
     {
@@ -86,6 +86,12 @@ public class DelegatingPageCache implements PageCache
         delegate.flushAndForce( limiter );
     }
 
+    @Override
+    public void flushAndForce( List<PagedFile> files, IOLimiter limiter ) throws IOException
+    {
+        delegate.flushAndForce( files, limiter );
+    }
+
     @Override
     public void flushAndForce() throws IOException
     {
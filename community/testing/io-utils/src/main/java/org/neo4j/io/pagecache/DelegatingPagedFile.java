@@ -63,6 +63,12 @@ public class DelegatingPagedFile implements PagedFile
         return delegate.fileSize();
     }
 
+    @Override
+    public long dirtyPages()
+    {
+        return delegate.dirtyPages();
+    }
+
     @Override
     public File file()
     {
@@ -64,6 +64,12 @@ public class StubPagedFile implements PagedFile
         return (lastPageId + 1) * pageSize();
     }
 
+    @Override
+    public long dirtyPages()
+    {
+        return 0;
+    }
+
     @Override
     public File file()
     {
@@ -56,6 +56,13 @@ public class StubRead implements Read
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public Scan<NodeValueIndexCursor> nodeIndexSeekPartitioned( IndexReadSession index, int desiredNumberOfPartitions, IndexQueryConstraints constraints,
+            IndexQuery... query )
+    {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public void relationshipIndexSeek( IndexDescriptor index, RelationshipIndexCursor cursor, IndexQueryConstraints constraints, IndexQuery... query )
     {
@@ -76,6 +83,12 @@ public class StubRead implements Read
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public Scan<NodeValueIndexCursor> nodeIndexScanPartitioned( IndexReadSession index, int desiredNumberOfPartitions, IndexQueryConstraints constraints )
+    {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public void nodeLabelScan( int label, NodeLabelIndexCursor cursor, IndexOrder order )
     {
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import java.nio.ByteBuffer;
+
+import org.neo4j.io.fs.ReadableChannel;
+
+/**
+ * {@link ReadableChannel} over an in-memory buffer, used for reading commands out of an inflated command block.
+ */
+class HeapReadableChannel implements ReadableChannel
+{
+    private final ByteBuffer buffer;
+
+    HeapReadableChannel( byte[] data, int length )
+    {
+        this.buffer = ByteBuffer.wrap( data, 0, length );
+    }
+
+    boolean hasRemaining()
+    {
+        return buffer.hasRemaining();
+    }
+
+    @Override
+    public byte get()
+    {
+        return buffer.get();
+    }
+
+    @Override
+    public short getShort()
+    {
+        return buffer.getShort();
+    }
+
+    @Override
+    public int getInt()
+    {
+        return buffer.getInt();
+    }
+
+    @Override
+    public long getLong()
+    {
+        return buffer.getLong();
+    }
+
+    @Override
+    public float getFloat()
+    {
+        return buffer.getFloat();
+    }
+
+    @Override
+    public double getDouble()
+    {
+        return buffer.getDouble();
+    }
+
+    @Override
+    public void get( byte[] bytes, int length )
+    {
+        buffer.get( bytes, 0, length );
+    }
+
+    @Override
+    public void close()
+    {
+    }
+}
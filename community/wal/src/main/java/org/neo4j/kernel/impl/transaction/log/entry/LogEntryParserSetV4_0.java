@@ -20,16 +20,27 @@
 package org.neo4j.kernel.impl.transaction.log.entry;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 
 import org.neo4j.io.fs.ReadableChecksumChannel;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
+import org.neo4j.storageengine.api.CommandReader;
 import org.neo4j.storageengine.api.CommandReaderFactory;
 import org.neo4j.storageengine.api.StorageCommand;
 
 public class LogEntryParserSetV4_0 extends LogEntryParserSet.Adapter
 {
     public static final LogEntryParserSet V4_0 = new LogEntryParserSetV4_0();
+    /**
+     * Deflate can't do better than roughly 1032:1, so a block claiming more than that is corrupt.
+     */
+    private static final int MAX_DEFLATE_RATIO = 1032;
+    private static final int INFLATE_CHUNK_SIZE = 8192;
 
     private LogEntryParserSetV4_0()
     {
@@ -60,6 +71,35 @@ public class LogEntryParserSetV4_0 extends LogEntryParserSet.Adapter
                 return command == null ? null : new LogEntryCommand( version, command );
             }
         } );
+        register( new LogEntryParser.Adapter( LogEntryTypeCodes.COMPRESSED_COMMANDS )
+        {
+            @Override
+            public LogEntry parse( byte version, ReadableChecksumChannel channel, LogPositionMarker marker, CommandReaderFactory commandReaderFactory )
+                    throws IOException
+            {
+                int uncompressedLength = channel.getInt();
+                int compressedLength = channel.getInt();
+                if ( compressedLength <= 0 || uncompressedLength <= compressedLength || (long) compressedLength * MAX_DEFLATE_RATIO < uncompressedLength )
+                {
+                    throw new IOException( "Corrupt compressed command block with compressed length " + compressedLength +
+                            " and uncompressed length " + uncompressedLength );
+                }
+
+                HeapReadableChannel commandChannel = new HeapReadableChannel( inflate( channel, compressedLength, uncompressedLength ), uncompressedLength );
+                CommandReader commandReader = commandReaderFactory.get( version );
+                List<LogEntryCommand> commands = new ArrayList<>();
+                while ( commandChannel.hasRemaining() )
+                {
+                    StorageCommand command = commandReader.read( commandChannel );
+                    if ( command == null )
+                    {
+                        throw new IOException( "Unreadable command in compressed command block after " + commands.size() + " commands" );
+                    }
+                    commands.add( new LogEntryCommand( version, command ) );
+                }
+                return new LogEntryCompressedCommands( version, commands );
+            }
+        } );
         register( new LogEntryParser.Adapter( LogEntryTypeCodes.TX_COMMIT )
         {
             @Override
@@ -85,4 +125,67 @@ public class LogEntryParserSetV4_0 extends LogEntryParserSet.Adapter
             }
         } );
     }
+
+    /**
+     * Inflate a compressed block straight off the channel. Both buffers start small and only grow with data that is actually
+     * there, so that corrupt lengths can't make us allocate more than the block really holds.
+     */
+    private static byte[] inflate( ReadableChecksumChannel channel, int compressedLength, int uncompressedLength ) throws IOException
+    {
+        byte[] chunk = new byte[Math.min( compressedLength, INFLATE_CHUNK_SIZE )];
+        byte[] data = new byte[Math.min( uncompressedLength, INFLATE_CHUNK_SIZE )];
+        byte[] overflow = new byte[1];
+        Inflater inflater = new Inflater();
+        try
+        {
+            int remaining = compressedLength;
+            int inflated = 0;
+            while ( !inflater.finished() )
+            {
+                if ( inflater.needsInput() )
+                {
+                    if ( remaining == 0 )
+                    {
+                        break;
+                    }
+                    int length = Math.min( remaining, chunk.length );
+                    channel.get( chunk, length );
+                    inflater.setInput( chunk, 0, length );
+                    remaining -= length;
+                }
+                else if ( inflater.needsDictionary() )
+                {
+                    break;
+                }
+                if ( inflated == data.length )
+                {
+                    if ( inflated == uncompressedLength )
+                    {
+                        // Only the end of the stream may be left, any more data means the block is bigger than it claims
+                        if ( inflater.inflate( overflow ) > 0 )
+                        {
+                            break;
+                        }
+                        continue;
+                    }
+                    data = Arrays.copyOf( data, (int) Math.min( (long) data.length * 2, uncompressedLength ) );
+                }
+                inflated += inflater.inflate( data, inflated, data.length - inflated );
+            }
+            if ( !inflater.finished() || inflated != uncompressedLength || remaining != 0 )
+            {
+                throw new IOException( "Compressed command block of " + compressedLength + " bytes did not inflate to the expected " +
+                        uncompressedLength + " bytes" );
+            }
+            return data;
+        }
+        catch ( DataFormatException e )
+        {
+            throw new IOException( "Corrupt compressed command block", e );
+        }
+        finally
+        {
+            inflater.end();
+        }
+    }
 }
@@ -35,6 +35,8 @@ import static org.neo4j.storageengine.api.TransactionIdStore.BASE_TX_CHECKSUM;
 
 /**
  * Reads {@link LogEntry log entries} off of a channel. Supported versions can be read intermixed.
+ * A compressed command block is returned as one {@link LogEntryCompressedCommands} entry. Callers that are after the commands expand
+ * it themselves, since one reader is shared between many channels.
  */
 public class VersionAwareLogEntryReader implements LogEntryReader
 {